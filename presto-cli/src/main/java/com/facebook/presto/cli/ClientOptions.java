@@ -99,6 +99,9 @@ public class ClientOptions
     @Option(name = "--socks-proxy", title = "socks-proxy", description = "SOCKS proxy to use for server connections")
     public HostAndPort socksProxy;
 
+    @Option(name = "--direct-results", title = "direct results", description = "Fetch query results directly from the workers (workers must be reachable from the client and serve results without an access check)")
+    public boolean directResults;
+
     public enum OutputFormat
     {
         ALIGNED,
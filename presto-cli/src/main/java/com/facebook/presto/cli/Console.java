@@ -120,7 +120,8 @@ public class Console
                 Optional.ofNullable(clientOptions.krb5Principal),
                 Optional.ofNullable(clientOptions.krb5RemoteServiceName),
                 clientOptions.authenticationEnabled,
-                kerberosConfig)) {
+                kerberosConfig,
+                clientOptions.directResults)) {
             if (hasQuery) {
                 executeCommand(queryRunner, query, clientOptions.outputFormat);
             }
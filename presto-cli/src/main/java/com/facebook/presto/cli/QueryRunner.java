@@ -41,6 +41,7 @@ public class QueryRunner
     private final JsonCodec<QueryResults> queryResultsCodec;
     private final AtomicReference<ClientSession> session;
     private final HttpClient httpClient;
+    private final boolean directResults;
 
     public QueryRunner(
             ClientSession session,
@@ -51,7 +52,8 @@ public class QueryRunner
             Optional<String> kerberosPrincipal,
             Optional<String> kerberosRemoteServiceName,
             boolean authenticationEnabled,
-            KerberosConfig kerberosConfig)
+            KerberosConfig kerberosConfig,
+            boolean directResults)
     {
         this.session = new AtomicReference<>(checkNotNull(session, "session is null"));
         this.queryResultsCodec = checkNotNull(queryResultsCodec, "queryResultsCodec is null");
@@ -60,6 +62,7 @@ public class QueryRunner
                 kerberosConfig,
                 com.google.common.base.Optional.<JettyIoPool>absent(),
                 ImmutableList.<HttpRequestFilter>of());
+        this.directResults = directResults;
     }
 
     public ClientSession getSession()
@@ -84,7 +87,7 @@ public class QueryRunner
 
     public StatementClient startInternalQuery(String query)
     {
-        return new StatementClient(httpClient, queryResultsCodec, session.get(), query);
+        return new StatementClient(httpClient, queryResultsCodec, session.get(), query, true, directResults);
     }
 
     @Override
@@ -101,7 +104,8 @@ public class QueryRunner
             Optional<String> kerberosPrincipal,
             Optional<String> kerberosRemoteServiceName,
             boolean authenticationEnabled,
-            KerberosConfig kerberosConfig)
+            KerberosConfig kerberosConfig,
+            boolean directResults)
     {
         return new QueryRunner(
                 session,
@@ -112,7 +116,8 @@ public class QueryRunner
                 kerberosPrincipal,
                 kerberosRemoteServiceName,
                 authenticationEnabled,
-                kerberosConfig);
+                kerberosConfig,
+                directResults);
     }
 
     private static HttpClientConfig getHttpClientConfig(
@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.google.common.net.MediaType;
+import io.airlift.json.JsonCodec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.spi.type.StandardTypes.BIGINT;
+import static com.facebook.presto.spi.type.StandardTypes.BOOLEAN;
+import static com.facebook.presto.spi.type.StandardTypes.DOUBLE;
+import static com.facebook.presto.spi.type.StandardTypes.VARCHAR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Binary encoding of {@link QueryResults} that is used instead of JSON when the client
+ * accepts {@link #PRESTO_COLUMNAR_RESULTS}. Everything except the data is encoded as JSON,
+ * and the data follows column by column, so the values of the common types are written
+ * straight from the result pages and read without going through a JSON parser:
+ * <pre>
+ * int     length of the JSON results without the data
+ * byte[]  JSON results without the data
+ * int     number of rows, or -1 if the results have no data
+ * for each column:
+ *   byte  encoding of the column
+ *   for each row:
+ *     byte  1 if the value is null, otherwise 0 followed by the value
+ * </pre>
+ * Values of the other types are written as the length and UTF-8 bytes of the same JSON
+ * value that is returned in the JSON results. All numbers are little endian.
+ * <p>
+ * The output buffers of the workers return pages of the results as {@link #PRESTO_COLUMNAR_PAGES},
+ * which only contains the number of rows and the columns.
+ */
+public final class ColumnarQueryResults
+{
+    public static final String PRESTO_COLUMNAR_RESULTS = "application/X-presto-columnar-results";
+    public static final MediaType PRESTO_COLUMNAR_RESULTS_TYPE = MediaType.create("application", "X-presto-columnar-results");
+    public static final String PRESTO_COLUMNAR_PAGES = "application/X-presto-columnar-pages";
+    public static final MediaType PRESTO_COLUMNAR_PAGES_TYPE = MediaType.create("application", "X-presto-columnar-pages");
+
+    public static final byte JSON_ENCODING = 0;
+    public static final byte BIGINT_ENCODING = 1;
+    public static final byte DOUBLE_ENCODING = 2;
+    public static final byte BOOLEAN_ENCODING = 3;
+    public static final byte VARCHAR_ENCODING = 4;
+
+    public static final int NO_DATA = -1;
+
+    private static final JsonCodec<Object> VALUE_CODEC = jsonCodec(Object.class);
+
+    private ColumnarQueryResults()
+    {
+    }
+
+    /**
+     * Returns the encoding used for the values of a column of the specified type.
+     */
+    public static byte getEncoding(String type)
+    {
+        switch (type) {
+            case BIGINT:
+                return BIGINT_ENCODING;
+            case DOUBLE:
+                return DOUBLE_ENCODING;
+            case BOOLEAN:
+                return BOOLEAN_ENCODING;
+            case VARCHAR:
+                return VARCHAR_ENCODING;
+            default:
+                return JSON_ENCODING;
+        }
+    }
+
+    public static QueryResults readQueryResults(JsonCodec<QueryResults> queryResultsCodec, byte[] bytes)
+    {
+        checkNotNull(queryResultsCodec, "queryResultsCodec is null");
+        checkNotNull(bytes, "bytes is null");
+
+        ByteBuffer input = ByteBuffer.wrap(bytes).order(LITTLE_ENDIAN);
+        QueryResults results = queryResultsCodec.fromJson(readString(input));
+
+        int rowCount = input.getInt();
+        if (rowCount == NO_DATA) {
+            return results;
+        }
+
+        List<Column> columns = results.getColumns();
+        checkArgument(columns != null, "results with data do not have columns");
+
+        return new QueryResults(
+                results.getId(),
+                results.getInfoUri(),
+                results.getPartialCancelUri(),
+                results.getNextUri(),
+                columns,
+                readRows(input, rowCount, columns),
+                results.getDataUris(),
+                results.getStats(),
+                results.getError(),
+                results.getUpdateType(),
+                results.getUpdateCount());
+    }
+
+    /**
+     * Reads the rows of a {@link #PRESTO_COLUMNAR_PAGES} response.
+     */
+    public static List<List<Object>> readRows(List<Column> columns, byte[] bytes)
+    {
+        checkNotNull(columns, "columns is null");
+        checkNotNull(bytes, "bytes is null");
+
+        ByteBuffer input = ByteBuffer.wrap(bytes).order(LITTLE_ENDIAN);
+        return readRows(input, input.getInt(), columns);
+    }
+
+    private static List<List<Object>> readRows(ByteBuffer input, int rowCount, List<Column> columns)
+    {
+        List<List<Object>> rows = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            rows.add(Arrays.asList(new Object[columns.size()]));
+        }
+        for (int channel = 0; channel < columns.size(); channel++) {
+            String type = columns.get(channel).getType();
+            byte encoding = input.get();
+            for (List<Object> row : rows) {
+                if (input.get() == 0) {
+                    row.set(channel, readValue(input, encoding, type));
+                }
+            }
+        }
+        for (int row = 0; row < rowCount; row++) {
+            rows.set(row, unmodifiableList(rows.get(row))); // allow nulls in list
+        }
+        return rows;
+    }
+
+    private static Object readValue(ByteBuffer input, byte encoding, String type)
+    {
+        switch (encoding) {
+            case BIGINT_ENCODING:
+                return input.getLong();
+            case DOUBLE_ENCODING:
+                return input.getDouble();
+            case BOOLEAN_ENCODING:
+                return input.get() != 0;
+            case VARCHAR_ENCODING:
+                return readString(input);
+            case JSON_ENCODING:
+                return QueryResults.fixValue(type, VALUE_CODEC.fromJson(readString(input)));
+            default:
+                throw new IllegalArgumentException("Unknown column encoding: " + encoding);
+        }
+    }
+
+    private static String readString(ByteBuffer input)
+    {
+        int length = input.getInt();
+        String value = new String(input.array(), input.arrayOffset() + input.position(), length, UTF_8);
+        input.position(input.position() + length);
+        return value;
+    }
+}
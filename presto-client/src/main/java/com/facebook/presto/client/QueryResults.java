@@ -25,6 +25,7 @@ import javax.validation.constraints.NotNull;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -62,6 +63,7 @@ public class QueryResults
     private final URI nextUri;
     private final List<Column> columns;
     private final Iterable<List<Object>> data;
+    private final List<URI> dataUris;
     private final StatementStats stats;
     private final QueryError error;
     private final String updateType;
@@ -75,12 +77,13 @@ public class QueryResults
             @JsonProperty("nextUri") URI nextUri,
             @JsonProperty("columns") List<Column> columns,
             @JsonProperty("data") List<List<Object>> data,
+            @JsonProperty("dataUris") List<URI> dataUris,
             @JsonProperty("stats") StatementStats stats,
             @JsonProperty("error") QueryError error,
             @JsonProperty("updateType") String updateType,
             @JsonProperty("updateCount") Long updateCount)
     {
-        this(id, infoUri, partialCancelUri, nextUri, columns, fixData(columns, data), stats, error, updateType, updateCount);
+        this(id, infoUri, partialCancelUri, nextUri, columns, fixData(columns, data), dataUris, stats, error, updateType, updateCount);
     }
 
     public QueryResults(
@@ -90,6 +93,7 @@ public class QueryResults
             URI nextUri,
             List<Column> columns,
             Iterable<List<Object>> data,
+            List<URI> dataUris,
             StatementStats stats,
             QueryError error,
             String updateType,
@@ -100,7 +104,10 @@ public class QueryResults
         this.partialCancelUri = partialCancelUri;
         this.nextUri = nextUri;
         this.columns = (columns != null) ? ImmutableList.copyOf(columns) : null;
-        this.data = (data != null) ? unmodifiableIterable(data) : null;
+        // iterables that are not collections are kept as they are, so a writer can recognize
+        // the server side results and encode them from the pages rather than from the rows
+        this.data = (data instanceof Collection) ? unmodifiableIterable(data) : data;
+        this.dataUris = (dataUris != null) ? ImmutableList.copyOf(dataUris) : null;
         this.stats = checkNotNull(stats, "stats is null");
         this.error = error;
         this.updateType = updateType;
@@ -149,6 +156,17 @@ public class QueryResults
         return data;
     }
 
+    /**
+     * Locations of the output buffers the client fetches the data from, when
+     * the data is not returned by the coordinator.
+     */
+    @Nullable
+    @JsonProperty
+    public List<URI> getDataUris()
+    {
+        return dataUris;
+    }
+
     @NotNull
     @JsonProperty
     public StatementStats getStats()
@@ -187,6 +205,7 @@ public class QueryResults
                 .add("nextUri", nextUri)
                 .add("columns", columns)
                 .add("hasData", data != null)
+                .add("dataUris", dataUris)
                 .add("stats", stats)
                 .add("error", error)
                 .add("updateType", updateType)
@@ -215,7 +234,7 @@ public class QueryResults
     /**
      * Force values coming from Jackson to have the expected object type.
      */
-    private static Object fixValue(String type, Object value)
+    static Object fixValue(String type, Object value)
     {
         if (value == null) {
             return null;
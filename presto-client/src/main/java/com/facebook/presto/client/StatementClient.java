@@ -15,21 +15,29 @@ package com.facebook.presto.client;
 
 import com.google.common.base.Splitter;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import com.google.common.net.MediaType;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.http.client.FullJsonResponseHandler;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpClient.HttpResponseFuture;
 import io.airlift.http.client.HttpStatus;
 import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
 import io.airlift.json.JsonCodec;
 import io.airlift.units.Duration;
 
 import javax.annotation.concurrent.ThreadSafe;
 
 import java.io.Closeable;
+import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -38,14 +46,27 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static com.facebook.presto.client.ColumnarQueryResults.PRESTO_COLUMNAR_PAGES;
+import static com.facebook.presto.client.ColumnarQueryResults.PRESTO_COLUMNAR_PAGES_TYPE;
+import static com.facebook.presto.client.ColumnarQueryResults.PRESTO_COLUMNAR_RESULTS;
+import static com.facebook.presto.client.ColumnarQueryResults.PRESTO_COLUMNAR_RESULTS_TYPE;
+import static com.facebook.presto.client.ColumnarQueryResults.readQueryResults;
+import static com.facebook.presto.client.ColumnarQueryResults.readRows;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLEAR_SESSION;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SET_SESSION;
 import static com.google.common.base.MoreObjects.firstNonNull;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.net.HttpHeaders.ACCEPT;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static com.google.common.net.HttpHeaders.USER_AGENT;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
 import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.HttpStatus.Family;
@@ -54,6 +75,7 @@ import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
 import static io.airlift.http.client.Request.Builder.prepareDelete;
 import static io.airlift.http.client.Request.Builder.prepareGet;
 import static io.airlift.http.client.Request.Builder.preparePost;
+import static io.airlift.http.client.ResponseHandlerUtils.propagate;
 import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
 import static io.airlift.http.client.StatusResponseHandler.StatusResponse;
 import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
@@ -61,18 +83,24 @@ import static java.lang.String.format;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 @ThreadSafe
 public class StatementClient
         implements Closeable
 {
     private static final Splitter SESSION_HEADER_SPLITTER = Splitter.on('=').limit(2).trimResults();
+    private static final String COLUMNAR_RESULTS_ACCEPT_VALUE = PRESTO_COLUMNAR_RESULTS + ", " + MediaType.JSON_UTF_8.withoutParameters();
+    private static final long RESULTS_POLL_INTERVAL_NANOS = SECONDS.toNanos(1);
     private static final String USER_AGENT_VALUE = StatementClient.class.getSimpleName() +
             "/" +
             firstNonNull(StatementClient.class.getPackage().getImplementationVersion(), "unknown");
 
     private final HttpClient httpClient;
-    private final FullJsonResponseHandler<QueryResults> responseHandler;
+    private final QueryResultsResponseHandler responseHandler;
+    private final boolean columnarResults;
+    private final boolean directResults;
     private final boolean debug;
     private final String query;
     private final AtomicReference<QueryResults> currentResults = new AtomicReference<>();
@@ -83,21 +111,51 @@ public class StatementClient
     private final AtomicBoolean valid = new AtomicBoolean(true);
     private final String timeZoneId;
 
+    // next token of each output buffer the data is fetched from, when the data is not sent by the coordinator
+    private final Map<URI, Long> dataTokens = new ConcurrentHashMap<>();
+    // at most one outstanding request per buffer, so buffers without data do not hold up the others
+    private final Map<URI, HttpResponseFuture<DataResponse>> dataRequests = new ConcurrentHashMap<>();
+    private final Set<URI> finishedDataUris = Sets.newConcurrentHashSet();
+    private final AtomicLong lastResultsNanos = new AtomicLong(System.nanoTime());
+
     public StatementClient(HttpClient httpClient, JsonCodec<QueryResults> queryResultsCodec, ClientSession session, String query)
+    {
+        this(httpClient, queryResultsCodec, session, query, false);
+    }
+
+    /**
+     * When {@code columnarResults} is set, the server is asked to send the results in the
+     * binary format of {@link ColumnarQueryResults}. Servers that do not support it return JSON.
+     */
+    public StatementClient(HttpClient httpClient, JsonCodec<QueryResults> queryResultsCodec, ClientSession session, String query, boolean columnarResults)
+    {
+        this(httpClient, queryResultsCodec, session, query, columnarResults, false);
+    }
+
+    /**
+     * When {@code directResults} is set, the coordinator is asked to hand out the locations
+     * of the output buffers of the query, and the data is fetched from the workers directly
+     * while the coordinator is only polled for the state of the query. This requires
+     * the workers to be reachable from the client.
+     */
+    public StatementClient(HttpClient httpClient, JsonCodec<QueryResults> queryResultsCodec, ClientSession session, String query, boolean columnarResults, boolean directResults)
     {
         checkNotNull(httpClient, "httpClient is null");
         checkNotNull(queryResultsCodec, "queryResultsCodec is null");
         checkNotNull(session, "session is null");
         checkNotNull(query, "query is null");
+        checkArgument(columnarResults || !directResults, "direct results require columnar results");
 
         this.httpClient = httpClient;
-        this.responseHandler = createFullJsonResponseHandler(queryResultsCodec);
+        this.responseHandler = new QueryResultsResponseHandler(queryResultsCodec);
+        this.columnarResults = columnarResults;
+        this.directResults = directResults;
         this.debug = session.isDebug();
         this.timeZoneId = session.getTimeZoneId();
         this.query = query;
 
-        Request request = buildQueryRequest(session, query);
-        JsonResponse<QueryResults> response = httpClient.execute(request, responseHandler);
+        Request request = buildQueryRequest(session, query, columnarResults, directResults);
+        QueryResultsResponse response = httpClient.execute(request, responseHandler);
 
         if (response.getStatusCode() != HttpStatus.OK.code() || !response.hasValue()) {
             throw requestFailedException("starting query", request, response);
@@ -106,7 +164,7 @@ public class StatementClient
         processResponse(response);
     }
 
-    private static Request buildQueryRequest(ClientSession session, String query)
+    private static Request buildQueryRequest(ClientSession session, String query, boolean columnarResults, boolean directResults)
     {
         Request.Builder builder = preparePost()
                 .setUri(uriBuilderFrom(session.getServer()).replacePath("/v1/statement").build())
@@ -127,6 +185,12 @@ public class StatementClient
         builder.setHeader(PrestoHeaders.PRESTO_TIME_ZONE, session.getTimeZoneId());
         builder.setHeader(PrestoHeaders.PRESTO_LANGUAGE, session.getLocale().toLanguageTag());
         builder.setHeader(USER_AGENT, USER_AGENT_VALUE);
+        if (columnarResults) {
+            builder.setHeader(ACCEPT, COLUMNAR_RESULTS_ACCEPT_VALUE);
+        }
+        if (directResults) {
+            builder.setHeader(PrestoHeaders.PRESTO_DIRECT_RESULTS, "true");
+        }
 
         Map<String, String> property = session.getProperties();
         for (Entry<String, String> entry : property.entrySet()) {
@@ -201,15 +265,44 @@ public class StatementClient
     public boolean advance()
     {
         URI nextUri = current().getNextUri();
-        if (isClosed() || (nextUri == null)) {
+        if (isClosed()) {
+            valid.set(false);
+            return false;
+        }
+
+        // the coordinator is still polled regularly while fetching data from the workers,
+        // otherwise it considers the query abandoned
+        if (!dataTokens.isEmpty()) {
+            while (!dataTokens.isEmpty() && !isClosed()) {
+                long pollDelayNanos = RESULTS_POLL_INTERVAL_NANOS;
+                if (nextUri != null) {
+                    pollDelayNanos -= System.nanoTime() - lastResultsNanos.get();
+                    if (pollDelayNanos <= 0) {
+                        break;
+                    }
+                }
+                if (fetchData(pollDelayNanos)) {
+                    return true;
+                }
+            }
+            if (nextUri != null && !dataTokens.isEmpty()) {
+                // do not wait for the query state, as more data may be available
+                nextUri = uriBuilderFrom(nextUri).addParameter("maxWait", "0ms").build();
+            }
+        }
+
+        if (nextUri == null) {
             valid.set(false);
             return false;
         }
 
-        Request request = prepareGet()
+        Request.Builder builder = prepareGet()
                 .setHeader(USER_AGENT, USER_AGENT_VALUE)
-                .setUri(nextUri)
-                .build();
+                .setUri(nextUri);
+        if (columnarResults) {
+            builder.setHeader(ACCEPT, COLUMNAR_RESULTS_ACCEPT_VALUE);
+        }
+        Request request = builder.build();
 
         Exception cause = null;
         long start = System.nanoTime();
@@ -229,7 +322,7 @@ public class StatementClient
             }
             attempts++;
 
-            JsonResponse<QueryResults> response;
+            QueryResultsResponse response;
             try {
                 response = httpClient.execute(request, responseHandler);
             }
@@ -253,22 +346,131 @@ public class StatementClient
         throw new RuntimeException("Error fetching next", cause);
     }
 
-    private void processResponse(JsonResponse<QueryResults> response)
+    /**
+     * Waits up to the specified time for data from any of the worker buffers.
+     *
+     * @return true if rows were received
+     */
+    private boolean fetchData(long maxWaitNanos)
+    {
+        for (URI dataUri : ImmutableList.copyOf(dataTokens.keySet())) {
+            if (!dataRequests.containsKey(dataUri)) {
+                Request request = prepareGet()
+                        .setHeader(USER_AGENT, USER_AGENT_VALUE)
+                        .setHeader(ACCEPT, PRESTO_COLUMNAR_PAGES)
+                        .setUri(uriBuilderFrom(dataUri).appendPath(String.valueOf(dataTokens.get(dataUri))).build())
+                        .build();
+                dataRequests.put(dataUri, httpClient.executeAsync(request, new DataResponseHandler()));
+            }
+        }
+
+        SettableFuture<?> anyDone = SettableFuture.create();
+        for (HttpResponseFuture<DataResponse> dataRequest : dataRequests.values()) {
+            dataRequest.addListener(() -> anyDone.set(null), directExecutor());
+        }
+        try {
+            anyDone.get(maxWaitNanos, NANOSECONDS);
+        }
+        catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("StatementClient thread was interrupted");
+        }
+        catch (ExecutionException | TimeoutException ignored) {
+        }
+
+        for (Entry<URI, HttpResponseFuture<DataResponse>> entry : ImmutableList.copyOf(dataRequests.entrySet())) {
+            if (entry.getValue().isDone()) {
+                dataRequests.remove(entry.getKey());
+                if (processData(entry.getKey(), entry.getValue())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean processData(URI dataUri, HttpResponseFuture<DataResponse> dataRequest)
+    {
+        DataResponse response;
+        try {
+            response = dataRequest.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("StatementClient thread was interrupted");
+        }
+        catch (ExecutionException e) {
+            gone.set(true);
+            throw new RuntimeException(format("Error fetching data at %s", dataUri), e.getCause());
+        }
+
+        if (response.getStatusCode() == HttpStatus.GONE.code()) {
+            // all data has been read, so the buffer can be destroyed
+            dataTokens.remove(dataUri);
+            finishedDataUris.add(dataUri);
+            httpClient.executeAsync(prepareDelete()
+                    .setHeader(USER_AGENT, USER_AGENT_VALUE)
+                    .setUri(dataUri)
+                    .build(), createStatusResponseHandler());
+            return false;
+        }
+        if (response.getStatusCode() != HttpStatus.OK.code() && response.getStatusCode() != HttpStatus.NO_CONTENT.code()) {
+            gone.set(true);
+            throw new RuntimeException(format("Error fetching data at %s returned %s: %s", dataUri, response.getStatusCode(), response.getStatusMessage()));
+        }
+        if (response.getToken() != dataTokens.get(dataUri)) {
+            // the data for this token was already received
+            return false;
+        }
+        dataTokens.put(dataUri, response.getNextToken());
+
+        if (response.getData() == null) {
+            return false;
+        }
+        QueryResults results = currentResults.get();
+        List<List<Object>> rows = readRows(results.getColumns(), response.getData());
+        currentResults.set(new QueryResults(
+                results.getId(),
+                results.getInfoUri(),
+                results.getPartialCancelUri(),
+                results.getNextUri(),
+                results.getColumns(),
+                rows,
+                null,
+                results.getStats(),
+                results.getError(),
+                results.getUpdateType(),
+                results.getUpdateCount()));
+        return true;
+    }
+
+    private void processResponse(QueryResultsResponse response)
     {
-        for (String setSession : response.getHeaders().get(PRESTO_SET_SESSION)) {
+        for (String setSession : response.getSetSessionHeaders()) {
             List<String> keyValue = SESSION_HEADER_SPLITTER.splitToList(setSession);
             if (keyValue.size() != 2) {
                 continue;
             }
             setSessionProperties.put(keyValue.get(0), keyValue.size() > 1 ? keyValue.get(1) : "");
         }
-        for (String clearSession : response.getHeaders().get(PRESTO_CLEAR_SESSION)) {
+        for (String clearSession : response.getClearSessionHeaders()) {
             resetSessionProperties.add(clearSession);
         }
         currentResults.set(response.getValue());
+        lastResultsNanos.set(System.nanoTime());
+
+        List<URI> dataUris = response.getValue().getDataUris();
+        if (directResults && dataUris != null) {
+            for (URI dataUri : dataUris) {
+                if (!finishedDataUris.contains(dataUri)) {
+                    dataTokens.putIfAbsent(dataUri, 0L);
+                }
+            }
+        }
     }
 
-    private RuntimeException requestFailedException(String task, Request request, JsonResponse<QueryResults> response)
+    private RuntimeException requestFailedException(String task, Request request, QueryResultsResponse response)
     {
         gone.set(true);
         if (!response.hasValue()) {
@@ -312,6 +514,9 @@ public class StatementClient
     public void close()
     {
         if (!closed.getAndSet(true)) {
+            for (HttpResponseFuture<DataResponse> dataRequest : dataRequests.values()) {
+                dataRequest.cancel(true);
+            }
             URI uri = currentResults.get().getNextUri();
             if (uri != null) {
                 Request request = prepareDelete()
@@ -322,4 +527,232 @@ public class StatementClient
             }
         }
     }
+
+    private static boolean mediaTypeMatches(String value, MediaType range)
+    {
+        try {
+            return MediaType.parse(value).is(range);
+        }
+        catch (IllegalArgumentException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private static class QueryResultsResponseHandler
+            implements ResponseHandler<QueryResultsResponse, RuntimeException>
+    {
+        private final JsonCodec<QueryResults> queryResultsCodec;
+        private final FullJsonResponseHandler<QueryResults> jsonResponseHandler;
+
+        private QueryResultsResponseHandler(JsonCodec<QueryResults> queryResultsCodec)
+        {
+            this.queryResultsCodec = queryResultsCodec;
+            this.jsonResponseHandler = createFullJsonResponseHandler(queryResultsCodec);
+        }
+
+        @Override
+        public QueryResultsResponse handleException(Request request, Exception exception)
+        {
+            throw propagate(request, exception);
+        }
+
+        @Override
+        public QueryResultsResponse handle(Request request, Response response)
+        {
+            String contentType = response.getHeader(CONTENT_TYPE);
+            if ((contentType == null) || !mediaTypeMatches(contentType, PRESTO_COLUMNAR_RESULTS_TYPE)) {
+                JsonResponse<QueryResults> jsonResponse = jsonResponseHandler.handle(request, response);
+                return new QueryResultsResponse(
+                        jsonResponse.getStatusCode(),
+                        jsonResponse.getStatusMessage(),
+                        jsonResponse.getHeaders().get(PRESTO_SET_SESSION),
+                        jsonResponse.getHeaders().get(PRESTO_CLEAR_SESSION),
+                        jsonResponse.hasValue() ? jsonResponse.getValue() : null,
+                        jsonResponse.getException(),
+                        jsonResponse.toString());
+            }
+
+            List<String> setSessionHeaders = new ArrayList<>();
+            List<String> clearSessionHeaders = new ArrayList<>();
+            for (Entry<?, String> header : response.getHeaders().entries()) {
+                if (header.getKey().toString().equalsIgnoreCase(PRESTO_SET_SESSION)) {
+                    setSessionHeaders.add(header.getValue());
+                }
+                else if (header.getKey().toString().equalsIgnoreCase(PRESTO_CLEAR_SESSION)) {
+                    clearSessionHeaders.add(header.getValue());
+                }
+            }
+
+            QueryResults value = null;
+            Exception exception = null;
+            try {
+                value = readQueryResults(queryResultsCodec, ByteStreams.toByteArray(response.getInputStream()));
+            }
+            catch (IOException | RuntimeException e) {
+                exception = e;
+            }
+            return new QueryResultsResponse(
+                    response.getStatusCode(),
+                    response.getStatusMessage(),
+                    setSessionHeaders,
+                    clearSessionHeaders,
+                    value,
+                    exception,
+                    format("%s %s (%s)", response.getStatusCode(), response.getStatusMessage(), contentType));
+        }
+    }
+
+    private static class QueryResultsResponse
+    {
+        private final int statusCode;
+        private final String statusMessage;
+        private final List<String> setSessionHeaders;
+        private final List<String> clearSessionHeaders;
+        private final QueryResults value;
+        private final Exception exception;
+        private final String description;
+
+        private QueryResultsResponse(
+                int statusCode,
+                String statusMessage,
+                List<String> setSessionHeaders,
+                List<String> clearSessionHeaders,
+                QueryResults value,
+                Exception exception,
+                String description)
+        {
+            this.statusCode = statusCode;
+            this.statusMessage = statusMessage;
+            this.setSessionHeaders = ImmutableList.copyOf(setSessionHeaders);
+            this.clearSessionHeaders = ImmutableList.copyOf(clearSessionHeaders);
+            this.value = value;
+            this.exception = exception;
+            this.description = description;
+        }
+
+        public int getStatusCode()
+        {
+            return statusCode;
+        }
+
+        public String getStatusMessage()
+        {
+            return statusMessage;
+        }
+
+        public List<String> getSetSessionHeaders()
+        {
+            return setSessionHeaders;
+        }
+
+        public List<String> getClearSessionHeaders()
+        {
+            return clearSessionHeaders;
+        }
+
+        public boolean hasValue()
+        {
+            return value != null;
+        }
+
+        public QueryResults getValue()
+        {
+            checkState(hasValue(), "Response does not contain a value");
+            return value;
+        }
+
+        public Exception getException()
+        {
+            return exception;
+        }
+
+        @Override
+        public String toString()
+        {
+            return description;
+        }
+    }
+
+    private static class DataResponseHandler
+            implements ResponseHandler<DataResponse, RuntimeException>
+    {
+        @Override
+        public DataResponse handleException(Request request, Exception exception)
+        {
+            throw propagate(request, exception);
+        }
+
+        @Override
+        public DataResponse handle(Request request, Response response)
+        {
+            byte[] data = null;
+            if (response.getStatusCode() == HttpStatus.OK.code()) {
+                String contentType = response.getHeader(CONTENT_TYPE);
+                if ((contentType == null) || !mediaTypeMatches(contentType, PRESTO_COLUMNAR_PAGES_TYPE)) {
+                    throw new RuntimeException(format("Expected %s response from server but got %s: %s", PRESTO_COLUMNAR_PAGES_TYPE, contentType, request.getUri()));
+                }
+                try {
+                    data = ByteStreams.toByteArray(response.getInputStream());
+                }
+                catch (IOException e) {
+                    throw new RuntimeException(format("Error reading data from %s", request.getUri()), e);
+                }
+            }
+            return new DataResponse(
+                    response.getStatusCode(),
+                    response.getStatusMessage(),
+                    getTokenHeader(response, PRESTO_PAGE_TOKEN),
+                    getTokenHeader(response, PRESTO_PAGE_NEXT_TOKEN),
+                    data);
+        }
+
+        private static long getTokenHeader(Response response, String name)
+        {
+            String value = response.getHeader(name);
+            return (value == null) ? -1 : Long.parseLong(value);
+        }
+    }
+
+    private static class DataResponse
+    {
+        private final int statusCode;
+        private final String statusMessage;
+        private final long token;
+        private final long nextToken;
+        private final byte[] data;
+
+        private DataResponse(int statusCode, String statusMessage, long token, long nextToken, byte[] data)
+        {
+            this.statusCode = statusCode;
+            this.statusMessage = statusMessage;
+            this.token = token;
+            this.nextToken = nextToken;
+            this.data = data;
+        }
+
+        public int getStatusCode()
+        {
+            return statusCode;
+        }
+
+        public String getStatusMessage()
+        {
+            return statusMessage;
+        }
+
+        public long getToken()
+        {
+            return token;
+        }
+
+        public long getNextToken()
+        {
+            return nextToken;
+        }
+
+        public byte[] getData()
+        {
+            return data;
+        }
+    }
 }
@@ -0,0 +1,331 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.stats.CounterStat;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.base.Throwables.propagateIfInstanceOf;
+import static com.google.common.cache.CacheLoader.asyncReloading;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Caches the file listings of partition directories. Cache hits do not touch the file system.
+ * Listings older than the refresh interval are revalidated in the background: on file systems
+ * that maintain directory modification times, the listing is only reloaded if the modification
+ * time of the directory changed. Other file systems, such as S3, are simply listed again.
+ */
+@ThreadSafe
+public class CachingDirectoryLister
+        implements DirectoryLister
+{
+    private static final long NO_MODIFICATION_TIME = -1;
+
+    // file systems that update the modification time of a directory when files are added or removed
+    private static final Set<String> DIRECTORY_MODIFICATION_TIME_SCHEMES = ImmutableSet.of("hdfs", "viewfs", "file");
+
+    private final DirectoryLister delegate;
+    private final boolean enabled;
+    private final LoadingCache<DirectoryKey, DirectoryListing> cache;
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat staleListings = new CounterStat();
+
+    @Inject
+    public CachingDirectoryLister(HiveClientConfig hiveClientConfig, @ForHiveClient ExecutorService executor)
+    {
+        this(new HadoopDirectoryLister(),
+                checkNotNull(executor, "executor is null"),
+                checkNotNull(hiveClientConfig, "hiveClientConfig is null").getFileStatusCacheTtl(),
+                hiveClientConfig.getFileStatusCacheRefreshInterval(),
+                hiveClientConfig.getFileStatusCacheMaxSize());
+    }
+
+    public CachingDirectoryLister(DirectoryLister delegate, ExecutorService executor, Duration cacheTtl, Duration refreshInterval, long maxSize)
+    {
+        this(delegate, executor, cacheTtl, refreshInterval, maxSize, Ticker.systemTicker());
+    }
+
+    CachingDirectoryLister(DirectoryLister delegate, ExecutorService executor, Duration cacheTtl, Duration refreshInterval, long maxSize, Ticker ticker)
+    {
+        checkNotNull(ticker, "ticker is null");
+        this.delegate = checkNotNull(delegate, "delegate is null");
+        checkNotNull(executor, "executor is null");
+        long expiresAfterWriteMillis = checkNotNull(cacheTtl, "cacheTtl is null").toMillis();
+        long refreshMillis = checkNotNull(refreshInterval, "refreshInterval is null").toMillis();
+        checkArgument(maxSize > 0, "maxSize must be at least 1");
+
+        this.enabled = expiresAfterWriteMillis > 0;
+
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .expireAfterWrite(expiresAfterWriteMillis, MILLISECONDS)
+                .maximumWeight(maxSize);
+        if (refreshMillis > 0 && refreshMillis < expiresAfterWriteMillis) {
+            cacheBuilder.refreshAfterWrite(refreshMillis, MILLISECONDS);
+        }
+        this.cache = cacheBuilder
+                .weigher((DirectoryKey key, DirectoryListing listing) -> listing.getFiles().size() + 1)
+                .build(asyncReloading(new CacheLoader<DirectoryKey, DirectoryListing>()
+                {
+                    @Override
+                    public DirectoryListing load(DirectoryKey key)
+                            throws Exception
+                    {
+                        return loadListing(key);
+                    }
+
+                    @Override
+                    public ListenableFuture<DirectoryListing> reload(DirectoryKey key, DirectoryListing oldListing)
+                            throws Exception
+                    {
+                        return immediateFuture(reloadListing(key, oldListing));
+                    }
+                }, executor));
+    }
+
+    @Override
+    public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+            throws IOException
+    {
+        if (!enabled) {
+            return delegate.list(fs, path);
+        }
+
+        DirectoryKey key = new DirectoryKey(fs, path);
+        DirectoryListing listing = cache.getIfPresent(key);
+        if (listing != null) {
+            hits.update(1);
+            return new ListingIterator(listing.getFiles());
+        }
+
+        misses.update(1);
+        try {
+            return new ListingIterator(cache.get(key).getFiles());
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            propagateIfInstanceOf(e.getCause(), IOException.class);
+            throw propagate(e.getCause());
+        }
+    }
+
+    private DirectoryListing reloadListing(DirectoryKey key, DirectoryListing oldListing)
+            throws IOException
+    {
+        long modificationTime = getModificationTime(key);
+        if (modificationTime != NO_MODIFICATION_TIME) {
+            if (modificationTime == oldListing.getModificationTime()) {
+                return oldListing;
+            }
+            staleListings.update(1);
+        }
+        return listFiles(key, modificationTime);
+    }
+
+    private DirectoryListing loadListing(DirectoryKey key)
+            throws IOException
+    {
+        // read the modification time first, so a concurrent change makes the listing stale instead of lost
+        return listFiles(key, getModificationTime(key));
+    }
+
+    private DirectoryListing listFiles(DirectoryKey key, long modificationTime)
+            throws IOException
+    {
+        ImmutableList.Builder<LocatedFileStatus> files = ImmutableList.builder();
+        RemoteIterator<LocatedFileStatus> iterator = delegate.list(key.getFileSystem(), key.getPath());
+        while (iterator.hasNext()) {
+            files.add(iterator.next());
+        }
+        return new DirectoryListing(modificationTime, files.build());
+    }
+
+    private static long getModificationTime(DirectoryKey key)
+            throws IOException
+    {
+        FileSystem fileSystem = key.getFileSystem();
+        if (!DIRECTORY_MODIFICATION_TIME_SCHEMES.contains(fileSystem.getUri().getScheme())) {
+            return NO_MODIFICATION_TIME;
+        }
+        return fileSystem.getFileStatus(key.getPath()).getModificationTime();
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        cache.invalidateAll();
+    }
+
+    @Managed
+    public long getEntryCount()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        long hitCount = hits.getTotalCount();
+        long requestCount = hitCount + misses.getTotalCount();
+        if (requestCount == 0) {
+            return 0.0;
+        }
+        return hitCount / (double) requestCount;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getStaleListings()
+    {
+        return staleListings;
+    }
+
+    private static final class DirectoryKey
+    {
+        // the file system is only used to load the listing and is not part of the identity of the key
+        private final FileSystem fileSystem;
+        private final Path path;
+
+        private DirectoryKey(FileSystem fileSystem, Path path)
+        {
+            this.fileSystem = checkNotNull(fileSystem, "fileSystem is null");
+            this.path = checkNotNull(path, "path is null");
+        }
+
+        public FileSystem getFileSystem()
+        {
+            return fileSystem;
+        }
+
+        public Path getPath()
+        {
+            return path;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            return path.equals(((DirectoryKey) obj).path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return path.hashCode();
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .toString();
+        }
+    }
+
+    private static final class DirectoryListing
+    {
+        private final long modificationTime;
+        private final List<LocatedFileStatus> files;
+
+        private DirectoryListing(long modificationTime, List<LocatedFileStatus> files)
+        {
+            this.modificationTime = modificationTime;
+            this.files = checkNotNull(files, "files is null");
+        }
+
+        public long getModificationTime()
+        {
+            return modificationTime;
+        }
+
+        public List<LocatedFileStatus> getFiles()
+        {
+            return files;
+        }
+    }
+
+    private static final class ListingIterator
+            implements RemoteIterator<LocatedFileStatus>
+    {
+        private final Iterator<LocatedFileStatus> iterator;
+
+        private ListingIterator(List<LocatedFileStatus> files)
+        {
+            this.iterator = files.iterator();
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public LocatedFileStatus next()
+        {
+            return iterator.next();
+        }
+    }
+}
@@ -23,6 +23,7 @@ import io.airlift.configuration.DefunctConfig;
 import io.airlift.configuration.LegacyConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import io.airlift.units.MaxDataSize;
 import io.airlift.units.MinDataSize;
 import io.airlift.units.MinDuration;
 
@@ -34,6 +35,8 @@ import java.util.List;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 @DefunctConfig({
@@ -51,6 +54,7 @@ public class HiveClientConfig
     private int maxSplitIteratorThreads = 1_000;
     private int minPartitionBatchSize = 10;
     private int maxPartitionBatchSize = 100;
+    private int partitionLoaderConcurrency = 4;
     private int maxInitialSplits = 200;
     private DataSize maxInitialSplitSize;
     private boolean forceLocalScheduling;
@@ -66,6 +70,10 @@ public class HiveClientConfig
     private HostAndPort metastoreSocksProxy;
     private Duration metastoreTimeout = new Duration(10, TimeUnit.SECONDS);
 
+    private Duration fileStatusCacheTtl = new Duration(0, TimeUnit.SECONDS);
+    private Duration fileStatusCacheRefreshInterval = new Duration(1, TimeUnit.MINUTES);
+    private long fileStatusCacheMaxSize = 1_000_000;
+
     private Duration dfsTimeout = new Duration(10, TimeUnit.SECONDS);
     private Duration dfsConnectTimeout = new Duration(500, TimeUnit.MILLISECONDS);
     private int dfsConnectMaxRetries = 5;
@@ -83,10 +91,12 @@ public class HiveClientConfig
     private Duration s3ConnectTimeout = new Duration(5, TimeUnit.SECONDS);
     private Duration s3SocketTimeout = new Duration(5, TimeUnit.SECONDS);
     private int s3MaxConnections = 500;
+    private int s3MaxConcurrentRangeReads = 16;
     private File s3StagingDirectory = new File(StandardSystemProperty.JAVA_IO_TMPDIR.value());
     private DataSize s3MultipartMinFileSize = new DataSize(16, MEGABYTE);
     private DataSize s3MultipartMinPartSize = new DataSize(5, MEGABYTE);
     private boolean useParquetColumnNames;
+    private boolean parquetOptimizedReaderEnabled;
 
     private HiveStorageFormat hiveStorageFormat = HiveStorageFormat.RCBINARY;
 
@@ -100,6 +110,14 @@ public class HiveClientConfig
     private DataSize orcMaxBufferSize = new DataSize(8, MEGABYTE);
     private DataSize orcStreamBufferSize = new DataSize(8, MEGABYTE);
 
+    private boolean orcDataCacheEnabled;
+    private DataSize orcDataCacheMaxSize = new DataSize(1, GIGABYTE);
+    private DataSize orcDataCacheChunkSize = new DataSize(256, KILOBYTE);
+    private DataSize orcFileTailCacheMaxSize = new DataSize(64, MEGABYTE);
+    private boolean orcStripePrefetchEnabled;
+    private DataSize orcMaxPrefetchStripeSize = new DataSize(64, MEGABYTE);
+    private boolean orcLateMaterializationEnabled;
+
     public int getMaxInitialSplits()
     {
         return maxInitialSplits;
@@ -314,6 +332,49 @@ public class HiveClientConfig
         return this;
     }
 
+    @NotNull
+    public Duration getFileStatusCacheTtl()
+    {
+        return fileStatusCacheTtl;
+    }
+
+    @Config("hive.file-status-cache.ttl")
+    @ConfigDescription("How long the file listings of partition directories are cached, or zero to disable the cache")
+    public HiveClientConfig setFileStatusCacheTtl(Duration fileStatusCacheTtl)
+    {
+        this.fileStatusCacheTtl = fileStatusCacheTtl;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1ms")
+    public Duration getFileStatusCacheRefreshInterval()
+    {
+        return fileStatusCacheRefreshInterval;
+    }
+
+    @Config("hive.file-status-cache.refresh-interval")
+    @ConfigDescription("Age after which cached file listings are revalidated in the background")
+    public HiveClientConfig setFileStatusCacheRefreshInterval(Duration fileStatusCacheRefreshInterval)
+    {
+        this.fileStatusCacheRefreshInterval = fileStatusCacheRefreshInterval;
+        return this;
+    }
+
+    @Min(1)
+    public long getFileStatusCacheMaxSize()
+    {
+        return fileStatusCacheMaxSize;
+    }
+
+    @Config("hive.file-status-cache.max-size")
+    @ConfigDescription("Maximum number of file statuses in the file listing cache")
+    public HiveClientConfig setFileStatusCacheMaxSize(long fileStatusCacheMaxSize)
+    {
+        this.fileStatusCacheMaxSize = fileStatusCacheMaxSize;
+        return this;
+    }
+
     @Min(1)
     public int getMinPartitionBatchSize()
     {
@@ -340,6 +401,20 @@ public class HiveClientConfig
         return this;
     }
 
+    @Min(1)
+    public int getPartitionLoaderConcurrency()
+    {
+        return partitionLoaderConcurrency;
+    }
+
+    @Config("hive.metastore.partition-loader-concurrency")
+    @ConfigDescription("Number of partition batches loaded from the metastore concurrently, per query and for the whole node")
+    public HiveClientConfig setPartitionLoaderConcurrency(int partitionLoaderConcurrency)
+    {
+        this.partitionLoaderConcurrency = partitionLoaderConcurrency;
+        return this;
+    }
+
     public List<String> getResourceConfigFiles()
     {
         return resourceConfigFiles;
@@ -579,6 +654,20 @@ public class HiveClientConfig
         return this;
     }
 
+    @Min(1)
+    public int getS3MaxConcurrentRangeReads()
+    {
+        return s3MaxConcurrentRangeReads;
+    }
+
+    @Config("hive.s3.max-concurrent-range-reads")
+    @ConfigDescription("Maximum number of concurrent ranged GET requests issued by ORC readers on each node")
+    public HiveClientConfig setS3MaxConcurrentRangeReads(int s3MaxConcurrentRangeReads)
+    {
+        this.s3MaxConcurrentRangeReads = s3MaxConcurrentRangeReads;
+        return this;
+    }
+
     @NotNull
     public File getS3StagingDirectory()
     {
@@ -676,6 +765,103 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isOrcDataCacheEnabled()
+    {
+        return orcDataCacheEnabled;
+    }
+
+    @Config("hive.orc.data-cache.enabled")
+    @ConfigDescription("Cache ORC file data read by this node in memory")
+    public HiveClientConfig setOrcDataCacheEnabled(boolean orcDataCacheEnabled)
+    {
+        this.orcDataCacheEnabled = orcDataCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getOrcDataCacheMaxSize()
+    {
+        return orcDataCacheMaxSize;
+    }
+
+    @Config("hive.orc.data-cache.max-size")
+    @ConfigDescription("Maximum amount of ORC file data cached on this node")
+    public HiveClientConfig setOrcDataCacheMaxSize(DataSize orcDataCacheMaxSize)
+    {
+        this.orcDataCacheMaxSize = orcDataCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("1kB")
+    @MaxDataSize("64MB")
+    public DataSize getOrcDataCacheChunkSize()
+    {
+        return orcDataCacheChunkSize;
+    }
+
+    @Config("hive.orc.data-cache.chunk-size")
+    @ConfigDescription("Size of the aligned chunks in which ORC file data is cached")
+    public HiveClientConfig setOrcDataCacheChunkSize(DataSize orcDataCacheChunkSize)
+    {
+        this.orcDataCacheChunkSize = orcDataCacheChunkSize;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getOrcFileTailCacheMaxSize()
+    {
+        return orcFileTailCacheMaxSize;
+    }
+
+    @Config("hive.orc.file-tail-cache.max-size")
+    @ConfigDescription("Maximum size of the ORC footers and stripe statistics cached on this node")
+    public HiveClientConfig setOrcFileTailCacheMaxSize(DataSize orcFileTailCacheMaxSize)
+    {
+        this.orcFileTailCacheMaxSize = orcFileTailCacheMaxSize;
+        return this;
+    }
+
+    public boolean isOrcStripePrefetchEnabled()
+    {
+        return orcStripePrefetchEnabled;
+    }
+
+    @Config("hive.orc.stripe-prefetch.enabled")
+    @ConfigDescription("Read the next ORC stripe in the background while the current stripe is decoded")
+    public HiveClientConfig setOrcStripePrefetchEnabled(boolean orcStripePrefetchEnabled)
+    {
+        this.orcStripePrefetchEnabled = orcStripePrefetchEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getOrcMaxPrefetchStripeSize()
+    {
+        return orcMaxPrefetchStripeSize;
+    }
+
+    @Config("hive.orc.stripe-prefetch.max-stripe-size")
+    @ConfigDescription("Stripes whose selected columns are larger than this are not prefetched")
+    public HiveClientConfig setOrcMaxPrefetchStripeSize(DataSize orcMaxPrefetchStripeSize)
+    {
+        this.orcMaxPrefetchStripeSize = orcMaxPrefetchStripeSize;
+        return this;
+    }
+
+    public boolean isOrcLateMaterializationEnabled()
+    {
+        return orcLateMaterializationEnabled;
+    }
+
+    @Config("hive.orc.late-materialization.enabled")
+    @ConfigDescription("Read the ORC columns with a pushed down predicate first, and only decode the other columns for the matching rows")
+    public HiveClientConfig setOrcLateMaterializationEnabled(boolean orcLateMaterializationEnabled)
+    {
+        this.orcLateMaterializationEnabled = orcLateMaterializationEnabled;
+        return this;
+    }
+
     public boolean isAssumeCanonicalPartitionKeys()
     {
         return assumeCanonicalPartitionKeys;
@@ -700,4 +886,17 @@ public class HiveClientConfig
         this.useParquetColumnNames = useParquetColumnNames;
         return this;
     }
+
+    public boolean isParquetOptimizedReaderEnabled()
+    {
+        return parquetOptimizedReaderEnabled;
+    }
+
+    @Config("hive.parquet-optimized-reader.enabled")
+    @ConfigDescription("Read flat Parquet columns directly into blocks instead of materializing records")
+    public HiveClientConfig setParquetOptimizedReaderEnabled(boolean parquetOptimizedReaderEnabled)
+    {
+        this.parquetOptimizedReaderEnabled = parquetOptimizedReaderEnabled;
+        return this;
+    }
 }
@@ -16,8 +16,8 @@ package com.facebook.presto.hive;
 import com.facebook.presto.spi.Connector;
 import com.facebook.presto.spi.ConnectorHandleResolver;
 import com.facebook.presto.spi.ConnectorMetadata;
+import com.facebook.presto.spi.ConnectorPageSinkProvider;
 import com.facebook.presto.spi.ConnectorPageSourceProvider;
-import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSplitManager;
 import com.facebook.presto.spi.SystemTable;
 import com.google.common.collect.ImmutableSet;
@@ -37,7 +37,7 @@ public class HiveConnector
     private final ConnectorMetadata metadata;
     private final ConnectorSplitManager splitManager;
     private final ConnectorPageSourceProvider pageSourceProvider;
-    private final ConnectorRecordSinkProvider recordSinkProvider;
+    private final ConnectorPageSinkProvider pageSinkProvider;
     private final ConnectorHandleResolver handleResolver;
     private final Set<SystemTable> systemTables;
 
@@ -46,7 +46,7 @@ public class HiveConnector
             ConnectorMetadata metadata,
             ConnectorSplitManager splitManager,
             ConnectorPageSourceProvider pageSourceProvider,
-            ConnectorRecordSinkProvider recordSinkProvider,
+            ConnectorPageSinkProvider pageSinkProvider,
             ConnectorHandleResolver handleResolver,
             Set<SystemTable> systemTables)
     {
@@ -54,7 +54,7 @@ public class HiveConnector
         this.metadata = checkNotNull(metadata, "metadata is null");
         this.splitManager = checkNotNull(splitManager, "splitManager is null");
         this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceProvider is null");
-        this.recordSinkProvider = checkNotNull(recordSinkProvider, "recordSinkProvider is null");
+        this.pageSinkProvider = checkNotNull(pageSinkProvider, "pageSinkProvider is null");
         this.handleResolver = checkNotNull(handleResolver, "handleResolver is null");
         this.systemTables = ImmutableSet.copyOf(checkNotNull(systemTables, "systemTables is null"));
     }
@@ -78,9 +78,9 @@ public class HiveConnector
     }
 
     @Override
-    public ConnectorRecordSinkProvider getRecordSinkProvider()
+    public ConnectorPageSinkProvider getPageSinkProvider()
     {
-        return recordSinkProvider;
+        return pageSinkProvider;
     }
 
     @Override
@@ -22,11 +22,15 @@ import com.facebook.presto.spi.ConnectorOutputTableHandle;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.Domain;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaNotFoundException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.SerializableNativeValue;
 import com.facebook.presto.spi.TableNotFoundException;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.ViewNotFoundException;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
@@ -37,10 +41,12 @@ import com.google.common.collect.ImmutableMap;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.StatsSetupConst;
 import org.apache.hadoop.hive.metastore.TableType;
 import org.apache.hadoop.hive.metastore.api.Database;
 import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
+import org.apache.hadoop.hive.metastore.api.Partition;
 import org.apache.hadoop.hive.metastore.api.SerDeInfo;
 import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
 import org.apache.hadoop.hive.metastore.api.Table;
@@ -49,9 +55,11 @@ import org.joda.time.DateTimeZone;
 import javax.inject.Inject;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalDouble;
 import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.hive.HiveColumnHandle.SAMPLE_WEIGHT_COLUMN_NAME;
@@ -63,7 +71,10 @@ import static com.facebook.presto.hive.HiveSessionProperties.getHiveStorageForma
 import static com.facebook.presto.hive.HiveUtil.PRESTO_VIEW_FLAG;
 import static com.facebook.presto.hive.HiveUtil.decodeViewData;
 import static com.facebook.presto.hive.HiveUtil.encodeViewData;
+import static com.facebook.presto.hive.HiveUtil.extractPartitionKeyValues;
+import static com.facebook.presto.hive.HiveUtil.getPartitionKeyColumnHandles;
 import static com.facebook.presto.hive.HiveUtil.hiveColumnHandles;
+import static com.facebook.presto.hive.HiveUtil.parsePartitionValue;
 import static com.facebook.presto.hive.HiveUtil.schemaTableName;
 import static com.facebook.presto.hive.util.Types.checkType;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
@@ -84,6 +95,7 @@ public class HiveMetadata
         implements ConnectorMetadata
 {
     private static final Logger log = Logger.get(HiveMetadata.class);
+    private static final int MAX_PARTITIONS_FOR_STATISTICS = 100;
 
     private final String connectorId;
     private final boolean allowDropTable;
@@ -289,6 +301,114 @@ public class HiveMetadata
         return ImmutableList.of(new SchemaTableName(prefix.getSchemaName(), prefix.getTableName()));
     }
 
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, TupleDomain<ColumnHandle> constraint)
+    {
+        checkNotNull(constraint, "constraint is null");
+        SchemaTableName tableName = schemaTableName(tableHandle);
+        try {
+            Table table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName());
+            // the data size is the uncompressed raw data size; the total size of the files is not
+            // used, since compressed files can be many times smaller than the data they contain
+            if (table.getPartitionKeys().isEmpty()) {
+                return new TableStatistics(
+                        getStatisticsParameter(table.getParameters(), StatsSetupConst.ROW_COUNT),
+                        getStatisticsParameter(table.getParameters(), StatsSetupConst.RAW_DATA_SIZE),
+                        ImmutableMap.of());
+            }
+
+            List<HiveColumnHandle> partitionColumns = getPartitionKeyColumnHandles(connectorId, table, 0);
+            List<String> partitionNames = new ArrayList<>();
+            for (String partitionName : metastore.getPartitionNames(tableName.getSchemaName(), tableName.getTableName())) {
+                if (partitionMatches(partitionName, partitionColumns, constraint)) {
+                    partitionNames.add(partitionName);
+                }
+            }
+            if (partitionNames.isEmpty()) {
+                return new TableStatistics(OptionalDouble.of(0), OptionalDouble.of(0), ImmutableMap.of());
+            }
+
+            // fetching every partition of a large table is too expensive, so extrapolate from an evenly spaced sample
+            int sampleSize = Math.min(partitionNames.size(), MAX_PARTITIONS_FOR_STATISTICS);
+            List<String> sample = new ArrayList<>(sampleSize);
+            for (int i = 0; i < sampleSize; i++) {
+                sample.add(partitionNames.get((int) ((long) i * partitionNames.size() / sampleSize)));
+            }
+            Collection<Partition> partitions = metastore.getPartitionsByNames(tableName.getSchemaName(), tableName.getTableName(), sample).values();
+
+            double rowCount = 0;
+            int rowCountPartitions = 0;
+            double dataSize = 0;
+            int dataSizePartitions = 0;
+            for (Partition partition : partitions) {
+                OptionalDouble partitionRowCount = getStatisticsParameter(partition.getParameters(), StatsSetupConst.ROW_COUNT);
+                if (partitionRowCount.isPresent()) {
+                    rowCount += partitionRowCount.getAsDouble();
+                    rowCountPartitions++;
+                }
+                OptionalDouble partitionDataSize = getStatisticsParameter(partition.getParameters(), StatsSetupConst.RAW_DATA_SIZE);
+                if (partitionDataSize.isPresent()) {
+                    dataSize += partitionDataSize.getAsDouble();
+                    dataSizePartitions++;
+                }
+            }
+            return new TableStatistics(
+                    extrapolate(rowCount, rowCountPartitions, partitionNames.size()),
+                    extrapolate(dataSize, dataSizePartitions, partitionNames.size()),
+                    ImmutableMap.of());
+        }
+        catch (NoSuchObjectException e) {
+            throw new TableNotFoundException(tableName);
+        }
+    }
+
+    private boolean partitionMatches(String partitionName, List<HiveColumnHandle> partitionColumns, TupleDomain<ColumnHandle> constraint)
+    {
+        if (constraint.isNone()) {
+            return false;
+        }
+
+        List<String> partitionValues = extractPartitionKeyValues(partitionName);
+        for (int i = 0; i < partitionColumns.size(); i++) {
+            HiveColumnHandle column = partitionColumns.get(i);
+            Domain allowedDomain = constraint.getDomains().get(column);
+            if (allowedDomain != null) {
+                SerializableNativeValue value = parsePartitionValue(partitionName, partitionValues.get(i), column.getHiveType(), timeZone);
+                if (!allowedDomain.includesValue(value.getValue())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static OptionalDouble extrapolate(double sum, int sampledPartitions, int totalPartitions)
+    {
+        if (sampledPartitions == 0) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(sum / sampledPartitions * totalPartitions);
+    }
+
+    private static OptionalDouble getStatisticsParameter(Map<String, String> parameters, String name)
+    {
+        String value = parameters.get(name);
+        if (value == null) {
+            return OptionalDouble.empty();
+        }
+        try {
+            long parsed = Long.parseLong(value);
+            // Hive records -1 when the statistics have not been computed
+            if (parsed < 0) {
+                return OptionalDouble.empty();
+            }
+            return OptionalDouble.of(parsed);
+        }
+        catch (NumberFormatException e) {
+            return OptionalDouble.empty();
+        }
+    }
+
     /**
      * NOTE: This method does not return column comment
      */
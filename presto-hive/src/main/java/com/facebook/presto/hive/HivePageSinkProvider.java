@@ -13,43 +13,56 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.hive.orc.OrcPageSink;
+import com.facebook.presto.orc.writer.ColumnWriters;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
-import com.facebook.presto.spi.ConnectorRecordSinkProvider;
-import com.facebook.presto.spi.RecordSink;
+import com.facebook.presto.spi.ConnectorPageSink;
+import com.facebook.presto.spi.ConnectorPageSinkProvider;
+import com.facebook.presto.spi.RecordPageSink;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapred.JobConf;
+import org.joda.time.DateTimeZone;
 
 import javax.inject.Inject;
 
+import static com.facebook.presto.hive.HiveStorageFormat.ORC;
 import static com.facebook.presto.hive.util.Types.checkType;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.UUID.randomUUID;
 
-public class HiveRecordSinkProvider
-        implements ConnectorRecordSinkProvider
+public class HivePageSinkProvider
+        implements ConnectorPageSinkProvider
 {
     private final HdfsEnvironment hdfsEnvironment;
+    private final DateTimeZone hiveStorageTimeZone;
 
     @Inject
-    public HiveRecordSinkProvider(HdfsEnvironment hdfsEnvironment)
+    public HivePageSinkProvider(HiveClientConfig hiveClientConfig, HdfsEnvironment hdfsEnvironment)
     {
+        checkNotNull(hiveClientConfig, "hiveClientConfig is null");
+        this.hiveStorageTimeZone = DateTimeZone.forTimeZone(hiveClientConfig.getTimeZone());
         this.hdfsEnvironment = checkNotNull(hdfsEnvironment, "hdfsEnvironment is null");
     }
 
     @Override
-    public RecordSink getRecordSink(ConnectorOutputTableHandle tableHandle)
+    public ConnectorPageSink createPageSink(ConnectorOutputTableHandle tableHandle)
     {
         HiveOutputTableHandle handle = checkType(tableHandle, HiveOutputTableHandle.class, "tableHandle");
 
         Path target = new Path(handle.getTemporaryPath(), randomUUID().toString());
-        JobConf conf = new JobConf(hdfsEnvironment.getConfiguration(target));
 
-        return new HiveRecordSink(handle, target, conf);
+        // ORC files are written directly from the pages when the writer supports all the column types
+        if (handle.getHiveStorageFormat() == ORC && handle.getColumnTypes().stream().allMatch(ColumnWriters::isSupportedType)) {
+            return new OrcPageSink(handle, target, hdfsEnvironment, hiveStorageTimeZone);
+        }
+
+        JobConf conf = new JobConf(hdfsEnvironment.getConfiguration(target));
+        return new RecordPageSink(new HiveRecordSink(handle, target, conf));
     }
 
     @Override
-    public RecordSink getRecordSink(ConnectorInsertTableHandle tableHandle)
+    public ConnectorPageSink createPageSink(ConnectorInsertTableHandle tableHandle)
     {
         throw new UnsupportedOperationException();
     }
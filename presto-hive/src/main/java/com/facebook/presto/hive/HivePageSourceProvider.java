@@ -18,7 +18,10 @@ import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.RecordPageSource;
+import com.facebook.presto.spi.SerializableNativeValue;
 import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
@@ -31,10 +34,14 @@ import org.joda.time.DateTimeZone;
 import javax.inject.Inject;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 
+import static com.facebook.presto.hive.HiveType.HIVE_DATE;
+import static com.facebook.presto.hive.HiveType.HIVE_TIMESTAMP;
+import static com.facebook.presto.hive.HiveUtil.parsePartitionValue;
 import static com.facebook.presto.hive.util.Types.checkType;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.transform;
@@ -69,6 +76,53 @@ public class HivePageSourceProvider
     public ConnectorPageSource createPageSource(ConnectorSplit split, List<ColumnHandle> columns)
     {
         HiveSplit hiveSplit = checkType(split, HiveSplit.class, "split");
+        return createPageSource(hiveSplit, columns, hiveSplit.getEffectivePredicate());
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorSplit split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        HiveSplit hiveSplit = checkType(split, HiveSplit.class, "split");
+        TupleDomain<HiveColumnHandle> filter = dynamicFilter.transform(HiveColumnHandle::toHiveColumnHandle);
+
+        // skip the whole split when a partition key value is filtered out
+        if (!partitionMatches(hiveSplit, filter)) {
+            return new FixedPageSource(ImmutableList.of());
+        }
+
+        return createPageSource(hiveSplit, columns, hiveSplit.getEffectivePredicate().intersect(filter));
+    }
+
+    private boolean partitionMatches(HiveSplit hiveSplit, TupleDomain<HiveColumnHandle> filter)
+    {
+        if (filter.isNone()) {
+            return false;
+        }
+
+        for (Map.Entry<HiveColumnHandle, Domain> entry : filter.getDomains().entrySet()) {
+            HiveColumnHandle column = entry.getKey();
+            if (!column.isPartitionKey()) {
+                continue;
+            }
+            // date and timestamp partition values are not parsed to the native value of the type
+            if (column.getHiveType().equals(HIVE_DATE) || column.getHiveType().equals(HIVE_TIMESTAMP)) {
+                continue;
+            }
+            for (HivePartitionKey partitionKey : hiveSplit.getPartitionKeys()) {
+                if (partitionKey.getName().equals(column.getName())) {
+                    SerializableNativeValue value = parsePartitionValue(hiveSplit.getPartitionName(), partitionKey.getValue(), partitionKey.getHiveType(), hiveStorageTimeZone);
+                    Domain domain = entry.getValue();
+                    if (value.getType() == domain.getType() && !domain.includesValue(value.getValue())) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private ConnectorPageSource createPageSource(HiveSplit hiveSplit, List<ColumnHandle> columns, TupleDomain<HiveColumnHandle> effectivePredicate)
+    {
 
         String clientId = hiveSplit.getClientId();
         ConnectorSession session = hiveSplit.getSession();
@@ -79,8 +133,6 @@ public class HivePageSourceProvider
 
         Configuration configuration = hdfsEnvironment.getConfiguration(path);
 
-        TupleDomain<HiveColumnHandle> effectivePredicate = hiveSplit.getEffectivePredicate();
-
         Properties schema = hiveSplit.getSchema();
 
         List<HivePartitionKey> partitionKeys = hiveSplit.getPartitionKeys();
@@ -15,10 +15,15 @@ package com.facebook.presto.hive;
 
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.units.DataSize;
 
+import java.util.Set;
+
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_SESSION_PROPERTY;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static java.util.Locale.ENGLISH;
 
 public final class HiveSessionProperties
 {
@@ -28,6 +33,10 @@ public final class HiveSessionProperties
     private static final String ORC_MAX_MERGE_DISTANCE = "orc_max_merge_distance";
     private static final String ORC_MAX_BUFFER_SIZE = "orc_max_buffer_size";
     private static final String ORC_STREAM_BUFFER_SIZE = "orc_stream_buffer_size";
+    private static final String ORC_STRIPE_PREFETCH_ENABLED = "orc_stripe_prefetch_enabled";
+    private static final String ORC_LATE_MATERIALIZATION_ENABLED = "orc_late_materialization_enabled";
+    private static final String ORC_BLOOM_FILTER_COLUMNS = "orc_bloom_filter_columns";
+    private static final String PARQUET_OPTIMIZED_READER_ENABLED = "parquet_optimized_reader_enabled";
 
     private HiveSessionProperties()
     {
@@ -53,6 +62,30 @@ public final class HiveSessionProperties
         return isEnabled(OPTIMIZED_READER_ENABLED, session, defaultValue);
     }
 
+    public static boolean isParquetOptimizedReaderEnabled(ConnectorSession session, boolean defaultValue)
+    {
+        return isEnabled(PARQUET_OPTIMIZED_READER_ENABLED, session, defaultValue);
+    }
+
+    public static boolean isOrcStripePrefetchEnabled(ConnectorSession session, boolean defaultValue)
+    {
+        return isEnabled(ORC_STRIPE_PREFETCH_ENABLED, session, defaultValue);
+    }
+
+    public static boolean isOrcLateMaterializationEnabled(ConnectorSession session, boolean defaultValue)
+    {
+        return isEnabled(ORC_LATE_MATERIALIZATION_ENABLED, session, defaultValue);
+    }
+
+    public static Set<String> getOrcBloomFilterColumns(ConnectorSession session)
+    {
+        String columns = session.getProperties().get(ORC_BLOOM_FILTER_COLUMNS);
+        if (columns == null) {
+            return ImmutableSet.of();
+        }
+        return ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(columns.toLowerCase(ENGLISH)));
+    }
+
     public static DataSize getOrcMaxMergeDistance(ConnectorSession session, DataSize defaultValue)
     {
         String maxMergeDistanceString = session.getProperties().get(ORC_MAX_MERGE_DISTANCE);
@@ -14,6 +14,7 @@
 package com.facebook.presto.hive;
 
 import com.facebook.presto.hive.metastore.HiveMetastore;
+import com.facebook.presto.hive.util.ConcurrentBatchLoader;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPartition;
 import com.facebook.presto.spi.ConnectorPartitionResult;
@@ -29,7 +30,6 @@ import com.facebook.presto.spi.SerializableNativeValue;
 import com.facebook.presto.spi.SortedRangeSet;
 import com.facebook.presto.spi.TableNotFoundException;
 import com.facebook.presto.spi.TupleDomain;
-import com.google.common.base.Function;
 import com.google.common.base.Predicates;
 import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractIterator;
@@ -43,7 +43,6 @@ import io.airlift.concurrent.BoundedExecutor;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
-import org.apache.hadoop.hive.common.FileUtils;
 import org.apache.hadoop.hive.metastore.ProtectMode;
 import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
@@ -67,6 +66,7 @@ import static com.facebook.presto.hive.HiveBucketing.getHiveBucket;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_METADATA;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_SCHEMA_MISMATCH;
 import static com.facebook.presto.hive.HivePartition.UNPARTITIONED_ID;
+import static com.facebook.presto.hive.HiveUtil.extractPartitionKeyValues;
 import static com.facebook.presto.hive.HiveUtil.getPartitionKeyColumnHandles;
 import static com.facebook.presto.hive.HiveUtil.parsePartitionValue;
 import static com.facebook.presto.hive.HiveUtil.schemaTableName;
@@ -81,7 +81,6 @@ import static com.google.common.base.Predicates.not;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.getOnlyElement;
-import static com.google.common.collect.Iterables.transform;
 import static java.lang.Math.min;
 import static java.lang.String.format;
 import static org.apache.hadoop.hive.metastore.ProtectMode.getProtectModeFromString;
@@ -101,9 +100,11 @@ public class HiveSplitManager
     private final DirectoryLister directoryLister;
     private final DateTimeZone timeZone;
     private final Executor executor;
+    private final Executor partitionLoaderExecutor;
     private final int maxOutstandingSplits;
     private final int minPartitionBatchSize;
     private final int maxPartitionBatchSize;
+    private final int partitionLoaderConcurrency;
     private final DataSize maxSplitSize;
     private final DataSize maxInitialSplitSize;
     private final int maxInitialSplits;
@@ -128,9 +129,12 @@ public class HiveSplitManager
                 directoryLister,
                 DateTimeZone.forTimeZone(hiveClientConfig.getTimeZone()),
                 new BoundedExecutor(executorService, hiveClientConfig.getMaxSplitIteratorThreads()),
+                // the split loaders wait on the partition loads, so the loads must not share their threads
+                new BoundedExecutor(executorService, hiveClientConfig.getPartitionLoaderConcurrency()),
                 hiveClientConfig.getMaxOutstandingSplits(),
                 hiveClientConfig.getMinPartitionBatchSize(),
                 hiveClientConfig.getMaxPartitionBatchSize(),
+                hiveClientConfig.getPartitionLoaderConcurrency(),
                 hiveClientConfig.getMaxSplitSize(),
                 hiveClientConfig.getMaxInitialSplitSize(),
                 hiveClientConfig.getMaxInitialSplits(),
@@ -147,9 +151,11 @@ public class HiveSplitManager
             DirectoryLister directoryLister,
             DateTimeZone timeZone,
             Executor executor,
+            Executor partitionLoaderExecutor,
             int maxOutstandingSplits,
             int minPartitionBatchSize,
             int maxPartitionBatchSize,
+            int partitionLoaderConcurrency,
             DataSize maxSplitSize,
             DataSize maxInitialSplitSize,
             int maxInitialSplits,
@@ -164,10 +170,13 @@ public class HiveSplitManager
         this.directoryLister = checkNotNull(directoryLister, "directoryLister is null");
         this.timeZone = checkNotNull(timeZone, "timeZone is null");
         this.executor = new ErrorCodedExecutor(executor);
+        this.partitionLoaderExecutor = new ErrorCodedExecutor(partitionLoaderExecutor);
         checkArgument(maxOutstandingSplits >= 1, "maxOutstandingSplits must be at least 1");
         this.maxOutstandingSplits = maxOutstandingSplits;
         this.minPartitionBatchSize = minPartitionBatchSize;
         this.maxPartitionBatchSize = maxPartitionBatchSize;
+        checkArgument(partitionLoaderConcurrency >= 1, "partitionLoaderConcurrency must be at least 1");
+        this.partitionLoaderConcurrency = partitionLoaderConcurrency;
         this.maxSplitSize = checkNotNull(maxSplitSize, "maxSplitSize is null");
         this.maxInitialSplitSize = checkNotNull(maxInitialSplitSize, "maxInitialSplitSize is null");
         this.maxInitialSplits = maxInitialSplits;
@@ -312,34 +321,6 @@ public class HiveSplitManager
         }
     }
 
-    private static List<String> extractPartitionKeyValues(String partitionName)
-    {
-        ImmutableList.Builder<String> values = ImmutableList.builder();
-
-        boolean inKey = true;
-        int valueStart = -1;
-        for (int i = 0; i < partitionName.length(); i++) {
-            char current = partitionName.charAt(i);
-            if (inKey) {
-                checkArgument(current != '/', "Invalid partition spec: %s", partitionName);
-                if (current == '=') {
-                    inKey = false;
-                    valueStart = i + 1;
-                }
-            }
-            else if (current == '/') {
-                checkArgument(valueStart != -1, "Invalid partition spec: %s", partitionName);
-                values.add(FileUtils.unescapePathName(partitionName.substring(valueStart, i)));
-                inKey = true;
-                valueStart = -1;
-            }
-        }
-        checkArgument(!inKey, "Invalid partition spec: %s", partitionName);
-        values.add(FileUtils.unescapePathName(partitionName.substring(valueStart, partitionName.length())));
-
-        return values.build();
-    }
-
     @Override
     public ConnectorSplitSource getPartitionSplits(ConnectorTableHandle tableHandle, List<ConnectorPartition> connectorPartitions)
     {
@@ -405,90 +386,93 @@ public class HiveSplitManager
             }
         }
 
+        // batches are loaded concurrently ahead of the split loader, which starts on the first batch
         Iterable<List<HivePartition>> partitionNameBatches = partitionExponentially(partitions, minPartitionBatchSize, maxPartitionBatchSize);
-        Iterable<List<HivePartitionMetadata>> partitionBatches = transform(partitionNameBatches, new Function<List<HivePartition>, List<HivePartitionMetadata>>()
-        {
-            @Override
-            public List<HivePartitionMetadata> apply(List<HivePartition> partitionBatch)
-            {
-                Exception exception = null;
-                for (int attempt = 0; attempt < 10; attempt++) {
-                    try {
-                        Map<String, Partition> partitions = metastore.getPartitionsByNames(
-                                tableName.getSchemaName(),
-                                tableName.getTableName(),
-                                Lists.transform(partitionBatch, ConnectorPartition::getPartitionId));
-                        checkState(partitionBatch.size() == partitions.size(), "expected %s partitions but found %s", partitionBatch.size(), partitions.size());
-
-                        ImmutableList.Builder<HivePartitionMetadata> results = ImmutableList.builder();
-                        for (HivePartition hivePartition : partitionBatch) {
-                            Partition partition = partitions.get(hivePartition.getPartitionId());
-                            checkState(partition != null, "Partition %s was not loaded", hivePartition.getPartitionId());
-
-                            // verify all partition is online
-                            String protectMode = partition.getParameters().get(ProtectMode.PARAMETER_NAME);
-                            String partName = HiveUtil.createPartitionName(partition, table);
-                            if (protectMode != null && getProtectModeFromString(protectMode).offline) {
-                                throw new PartitionOfflineException(tableName, partName);
-                            }
-                            String prestoOffline = partition.getParameters().get(PRESTO_OFFLINE);
-                            if (!isNullOrEmpty(prestoOffline)) {
-                                throw new PartitionOfflineException(tableName, partName, format("Partition '%s' is offline for Presto: %s", partName, prestoOffline));
-                            }
-
-                            // Verify that the partition schema matches the table schema.
-                            // Either adding or dropping columns from the end of the table
-                            // without modifying existing partitions is allowed, but every
-                            // column that exists in both the table and partition must have
-                            // the same type.
-                            List<FieldSchema> tableColumns = table.getSd().getCols();
-                            List<FieldSchema> partitionColumns = partition.getSd().getCols();
-                            if ((tableColumns == null) || (partitionColumns == null)) {
-                                throw new PrestoException(HIVE_INVALID_METADATA, format("Table '%s' or partition '%s' has null columns", tableName, partName));
-                            }
-                            for (int i = 0; i < min(partitionColumns.size(), tableColumns.size()); i++) {
-                                String tableType = tableColumns.get(i).getType();
-                                String partitionType = partitionColumns.get(i).getType();
-                                if (!tableType.equals(partitionType)) {
-                                    throw new PrestoException(HIVE_PARTITION_SCHEMA_MISMATCH, format("" +
-                                                    "There is a mismatch between the table and partition schemas. " +
-                                                    "The column '%s' in table '%s' is declared as type '%s', " +
-                                                    "but partition '%s' declared column '%s' as type '%s'.",
-                                            tableColumns.get(i).getName(),
-                                            tableName,
-                                            tableType,
-                                            partName,
-                                            partitionColumns.get(i).getName(),
-                                            partitionType));
-                                }
-                            }
-
-                            results.add(new HivePartitionMetadata(hivePartition, partition));
-                        }
+        Iterable<List<HivePartitionMetadata>> partitionBatches = () -> new ConcurrentBatchLoader<>(
+                partitionNameBatches.iterator(),
+                partitionBatch -> loadPartitionBatch(table, tableName, partitionBatch),
+                partitionLoaderExecutor,
+                partitionLoaderConcurrency);
+        return concat(partitionBatches);
+    }
 
-                        return results.build();
-                    }
-                    catch (PrestoException | NoSuchObjectException | NullPointerException | IllegalStateException | IllegalArgumentException e) {
-                        throw Throwables.propagate(e);
+    private List<HivePartitionMetadata> loadPartitionBatch(Table table, SchemaTableName tableName, List<HivePartition> partitionBatch)
+    {
+        Exception exception = null;
+        for (int attempt = 0; attempt < 10; attempt++) {
+            try {
+                Map<String, Partition> partitions = metastore.getPartitionsByNames(
+                        tableName.getSchemaName(),
+                        tableName.getTableName(),
+                        Lists.transform(partitionBatch, ConnectorPartition::getPartitionId));
+                checkState(partitionBatch.size() == partitions.size(), "expected %s partitions but found %s", partitionBatch.size(), partitions.size());
+
+                ImmutableList.Builder<HivePartitionMetadata> results = ImmutableList.builder();
+                for (HivePartition hivePartition : partitionBatch) {
+                    Partition partition = partitions.get(hivePartition.getPartitionId());
+                    checkState(partition != null, "Partition %s was not loaded", hivePartition.getPartitionId());
+
+                    // verify all partition is online
+                    String protectMode = partition.getParameters().get(ProtectMode.PARAMETER_NAME);
+                    String partName = HiveUtil.createPartitionName(partition, table);
+                    if (protectMode != null && getProtectModeFromString(protectMode).offline) {
+                        throw new PartitionOfflineException(tableName, partName);
                     }
-                    catch (RuntimeException e) {
-                        exception = e;
-                        log.debug("getPartitions attempt %s failed, will retry. Exception: %s", attempt, e.getMessage());
+                    String prestoOffline = partition.getParameters().get(PRESTO_OFFLINE);
+                    if (!isNullOrEmpty(prestoOffline)) {
+                        throw new PartitionOfflineException(tableName, partName, format("Partition '%s' is offline for Presto: %s", partName, prestoOffline));
                     }
 
-                    try {
-                        TimeUnit.SECONDS.sleep(1);
+                    // Verify that the partition schema matches the table schema.
+                    // Either adding or dropping columns from the end of the table
+                    // without modifying existing partitions is allowed, but every
+                    // column that exists in both the table and partition must have
+                    // the same type.
+                    List<FieldSchema> tableColumns = table.getSd().getCols();
+                    List<FieldSchema> partitionColumns = partition.getSd().getCols();
+                    if ((tableColumns == null) || (partitionColumns == null)) {
+                        throw new PrestoException(HIVE_INVALID_METADATA, format("Table '%s' or partition '%s' has null columns", tableName, partName));
                     }
-                    catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw Throwables.propagate(e);
+                    for (int i = 0; i < min(partitionColumns.size(), tableColumns.size()); i++) {
+                        String tableType = tableColumns.get(i).getType();
+                        String partitionType = partitionColumns.get(i).getType();
+                        if (!tableType.equals(partitionType)) {
+                            throw new PrestoException(HIVE_PARTITION_SCHEMA_MISMATCH, format("" +
+                                            "There is a mismatch between the table and partition schemas. " +
+                                            "The column '%s' in table '%s' is declared as type '%s', " +
+                                            "but partition '%s' declared column '%s' as type '%s'.",
+                                    tableColumns.get(i).getName(),
+                                    tableName,
+                                    tableType,
+                                    partName,
+                                    partitionColumns.get(i).getName(),
+                                    partitionType));
+                        }
                     }
+
+                    results.add(new HivePartitionMetadata(hivePartition, partition));
                 }
-                assert exception != null; // impossible
-                throw Throwables.propagate(exception);
+
+                return results.build();
             }
-        });
-        return concat(partitionBatches);
+            catch (PrestoException | NoSuchObjectException | NullPointerException | IllegalStateException | IllegalArgumentException e) {
+                throw Throwables.propagate(e);
+            }
+            catch (RuntimeException e) {
+                exception = e;
+                log.debug("getPartitions attempt %s failed, will retry. Exception: %s", attempt, e.getMessage());
+            }
+
+            try {
+                TimeUnit.SECONDS.sleep(1);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Throwables.propagate(e);
+            }
+        }
+        assert exception != null; // impossible
+        throw Throwables.propagate(exception);
     }
 
     /**
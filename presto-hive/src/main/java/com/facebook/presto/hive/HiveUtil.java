@@ -29,6 +29,7 @@ import io.airlift.slice.Slices;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.FileUtils;
 import org.apache.hadoop.hive.common.JavaUtils;
 import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.hadoop.hive.metastore.api.MetaException;
@@ -346,6 +347,34 @@ public final class HiveUtil
         return bytes.length == 2 && bytes[0] == '\\' && bytes[1] == 'N';
     }
 
+    public static List<String> extractPartitionKeyValues(String partitionName)
+    {
+        ImmutableList.Builder<String> values = ImmutableList.builder();
+
+        boolean inKey = true;
+        int valueStart = -1;
+        for (int i = 0; i < partitionName.length(); i++) {
+            char current = partitionName.charAt(i);
+            if (inKey) {
+                checkArgument(current != '/', "Invalid partition spec: %s", partitionName);
+                if (current == '=') {
+                    inKey = false;
+                    valueStart = i + 1;
+                }
+            }
+            else if (current == '/') {
+                checkArgument(valueStart != -1, "Invalid partition spec: %s", partitionName);
+                values.add(FileUtils.unescapePathName(partitionName.substring(valueStart, i)));
+                inKey = true;
+                valueStart = -1;
+            }
+        }
+        checkArgument(!inKey, "Invalid partition spec: %s", partitionName);
+        values.add(FileUtils.unescapePathName(partitionName.substring(valueStart, partitionName.length())));
+
+        return values.build();
+    }
+
     public static SerializableNativeValue parsePartitionValue(String partitionName, String value, HiveType hiveType, DateTimeZone timeZone)
     {
         try {
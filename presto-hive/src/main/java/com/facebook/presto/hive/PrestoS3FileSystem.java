@@ -42,6 +42,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractSequentialIterator;
 import com.google.common.collect.Iterators;
+import com.google.common.io.ByteStreams;
 import com.google.common.primitives.Ints;
 import io.airlift.log.Logger;
 import io.airlift.units.DataSize;
@@ -63,6 +64,7 @@ import org.apache.hadoop.util.Progressable;
 
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -85,6 +87,7 @@ import static com.google.common.base.Strings.nullToEmpty;
 import static com.google.common.collect.Iterables.toArray;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.lang.Math.max;
+import static java.lang.String.format;
 import static java.nio.file.Files.createDirectories;
 import static java.nio.file.Files.createTempFile;
 import static org.apache.http.HttpStatus.SC_FORBIDDEN;
@@ -478,6 +481,7 @@ public class PrestoS3FileSystem
                     .stopOn(InterruptedException.class, UnrecoverableS3OperationException.class)
                     .onRetry(STATS::newGetMetadataRetry)
                     .run("getS3ObjectMetadata", () -> {
+                        long start = System.nanoTime();
                         try {
                             STATS.newMetadataCall();
                             return s3.getObjectMetadata(uri.getHost(), keyFromPath(path));
@@ -494,6 +498,9 @@ public class PrestoS3FileSystem
                             }
                             throw Throwables.propagate(e);
                         }
+                        finally {
+                            STATS.addGetMetadataTime(Duration.nanosSince(start));
+                        }
                     });
         }
         catch (InterruptedException e) {
@@ -664,6 +671,66 @@ public class PrestoS3FileSystem
             }
         }
 
+        /**
+         * Positioned reads issue their own ranged GET for exactly the requested bytes,
+         * so they do not disturb the sequential stream and can be issued concurrently.
+         * The connection goes back to the pool of the S3 client once the response is
+         * fully consumed.
+         */
+        @Override
+        public int read(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            checkState(!closed, "already closed");
+            checkArgument(position >= 0, "position is negative: %s", position);
+            if (length == 0) {
+                return 0;
+            }
+
+            try {
+                return retry()
+                        .maxAttempts(maxAttempts)
+                        .exponentialBackoff(new Duration(1, TimeUnit.SECONDS), maxBackoffTime, maxRetryTime, 2.0)
+                        .stopOn(InterruptedException.class, UnrecoverableS3OperationException.class)
+                        .onRetry(STATS::newReadRetry)
+                        .run("readRange", () -> {
+                            long start = System.nanoTime();
+                            InputStream stream = openStream(path, position, position + length - 1);
+                            try {
+                                int bytesRead = ByteStreams.read(stream, buffer, offset, length);
+                                stream.close();
+                                return (bytesRead == 0) ? -1 : bytesRead;
+                            }
+                            catch (Exception e) {
+                                STATS.newReadError(e);
+                                abortStream(stream);
+                                throw e;
+                            }
+                            finally {
+                                STATS.addRangedReadTime(Duration.nanosSince(start));
+                            }
+                        });
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Throwables.propagate(e);
+            }
+            catch (Exception e) {
+                Throwables.propagateIfInstanceOf(e, IOException.class);
+                throw Throwables.propagate(e);
+            }
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            int bytesRead = read(position, buffer, offset, length);
+            if (bytesRead < length) {
+                throw new EOFException(format("Reached end of %s before reading %s bytes at position %s", path, length, position));
+            }
+        }
+
         @Override
         public boolean seekToNewSource(long targetPos)
         {
@@ -705,13 +772,13 @@ public class PrestoS3FileSystem
                 throws IOException, UnrecoverableS3OperationException
         {
             if (in == null) {
-                in = openStream(path, nextReadPosition);
+                in = openStream(path, nextReadPosition, Long.MAX_VALUE);
                 streamPosition = nextReadPosition;
                 STATS.connectionOpened();
             }
         }
 
-        private InputStream openStream(Path path, long start)
+        private InputStream openStream(Path path, long start, long end)
                 throws IOException, UnrecoverableS3OperationException
         {
             try {
@@ -721,8 +788,9 @@ public class PrestoS3FileSystem
                         .stopOn(InterruptedException.class, UnrecoverableS3OperationException.class)
                         .onRetry(STATS::newGetObjectRetry)
                         .run("getS3Object", () -> {
+                            long requestStart = System.nanoTime();
                             try {
-                                GetObjectRequest request = new GetObjectRequest(host, keyFromPath(path)).withRange(start, Long.MAX_VALUE);
+                                GetObjectRequest request = new GetObjectRequest(host, keyFromPath(path)).withRange(start, end);
                                 return s3.getObject(request).getObjectContent();
                             }
                             catch (RuntimeException e) {
@@ -739,6 +807,9 @@ public class PrestoS3FileSystem
                                 }
                                 throw Throwables.propagate(e);
                             }
+                            finally {
+                                STATS.addGetObjectTime(Duration.nanosSince(requestStart));
+                            }
                         });
             }
             catch (InterruptedException e) {
@@ -755,21 +826,26 @@ public class PrestoS3FileSystem
         private void closeStream()
         {
             if (in != null) {
-                try {
-                    if (in instanceof S3ObjectInputStream) {
-                        ((S3ObjectInputStream) in).abort();
-                    }
-                    else {
-                        in.close();
-                    }
-                }
-                catch (IOException | AbortedException ignored) {
-                    // thrown if the current thread is in the interrupted state
-                }
+                abortStream(in);
                 in = null;
                 STATS.connectionReleased();
             }
         }
+
+        private static void abortStream(InputStream in)
+        {
+            try {
+                if (in instanceof S3ObjectInputStream) {
+                    ((S3ObjectInputStream) in).abort();
+                }
+                else {
+                    in.close();
+                }
+            }
+            catch (IOException | AbortedException ignored) {
+                // thrown if the current thread is in the interrupted state
+            }
+        }
     }
 
     private static class PrestoS3OutputStream
@@ -45,6 +45,11 @@ public class PrestoS3FileSystemStats
     private final CounterStat getMetadataRetries = new CounterStat();
     private final CounterStat readRetries = new CounterStat();
 
+    // latency of individual requests, including the time to read the body for ranged reads
+    private final TimeStat getObjectTime = new TimeStat(MILLISECONDS);
+    private final TimeStat getMetadataTime = new TimeStat(MILLISECONDS);
+    private final TimeStat rangedReadTime = new TimeStat(MILLISECONDS);
+
     // see AWSRequestMetrics
     private final CounterStat awsRequestCount = new CounterStat();
     private final CounterStat awsRetryCount = new CounterStat();
@@ -177,6 +182,27 @@ public class PrestoS3FileSystemStats
         return awsRequestTime;
     }
 
+    @Managed
+    @Nested
+    public TimeStat getGetObjectTime()
+    {
+        return getObjectTime;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getGetMetadataTime()
+    {
+        return getMetadataTime;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getRangedReadTime()
+    {
+        return rangedReadTime;
+    }
+
     @Managed
     @Nested
     public CounterStat getGetObjectRetries()
@@ -289,6 +315,21 @@ public class PrestoS3FileSystemStats
         awsRequestTime.add(duration);
     }
 
+    public void addGetObjectTime(Duration duration)
+    {
+        getObjectTime.add(duration);
+    }
+
+    public void addGetMetadataTime(Duration duration)
+    {
+        getMetadataTime.add(duration);
+    }
+
+    public void addRangedReadTime(Duration duration)
+    {
+        rangedReadTime.add(duration);
+    }
+
     public void newGetObjectRetry()
     {
         getObjectRetries.update(1);
@@ -14,10 +14,13 @@
 package com.facebook.presto.hive.orc;
 
 import com.facebook.hive.orc.OrcSerde;
+import com.facebook.presto.hive.ForHiveClient;
+import com.facebook.presto.hive.ForS3RangeReads;
 import com.facebook.presto.hive.HiveClientConfig;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
 import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.orc.OrcFileTailCache;
 import com.facebook.presto.orc.metadata.DwrfMetadataReader;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
@@ -33,11 +36,15 @@ import javax.inject.Inject;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxBufferSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxMergeDistance;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
 import static com.facebook.presto.hive.HiveSessionProperties.isOptimizedReaderEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcLateMaterializationEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcStripePrefetchEnabled;
 import static com.facebook.presto.hive.HiveUtil.isDeserializerClass;
 import static com.facebook.presto.hive.orc.OrcPageSourceFactory.createOrcPageSource;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -51,26 +58,69 @@ public class DwrfPageSourceFactory
     private final DataSize orcMaxMergeDistance;
     private final DataSize orcMaxBufferSize;
     private final DataSize orcStreamBufferSize;
+    private final OrcDataCache dataCache;
+    private final OrcFileTailCache fileTailCache;
+    private final boolean stripePrefetchEnabled;
+    private final Optional<Executor> prefetchExecutor;
+    private final DataSize maxPrefetchStripeSize;
+    private final boolean lateMaterializationEnabled;
+    private final Optional<Executor> s3RangeReadExecutor;
 
     @Inject
-    public DwrfPageSourceFactory(TypeManager typeManager, HiveClientConfig config)
+    public DwrfPageSourceFactory(
+            TypeManager typeManager,
+            HiveClientConfig config,
+            OrcDataCache dataCache,
+            OrcFileTailCache fileTailCache,
+            @ForHiveClient ExecutorService executor,
+            @ForS3RangeReads Executor s3RangeReadExecutor)
     {
         //noinspection deprecation
-        this(typeManager, config.isOptimizedReaderEnabled(), config.getOrcMaxMergeDistance(), config.getOrcMaxBufferSize(), config.getOrcStreamBufferSize());
+        this(typeManager,
+                config.isOptimizedReaderEnabled(),
+                config.getOrcMaxMergeDistance(),
+                config.getOrcMaxBufferSize(),
+                config.getOrcStreamBufferSize(),
+                dataCache,
+                fileTailCache,
+                config.isOrcStripePrefetchEnabled(),
+                Optional.of(executor),
+                config.getOrcMaxPrefetchStripeSize(),
+                config.isOrcLateMaterializationEnabled(),
+                Optional.of(s3RangeReadExecutor));
     }
 
     public DwrfPageSourceFactory(TypeManager typeManager)
     {
-        this(typeManager, true, new DataSize(1, MEGABYTE), new DataSize(8, MEGABYTE), new DataSize(8, MEGABYTE));
+        this(typeManager, true, new DataSize(1, MEGABYTE), new DataSize(8, MEGABYTE), new DataSize(8, MEGABYTE), new OrcDataCache(false, new DataSize(0, MEGABYTE), new DataSize(1, MEGABYTE)), new OrcFileTailCache(new DataSize(0, MEGABYTE)), false, Optional.empty(), new DataSize(0, MEGABYTE), true, Optional.empty());
     }
 
-    public DwrfPageSourceFactory(TypeManager typeManager, boolean enabled, DataSize orcMaxMergeDistance, DataSize orcMaxBufferSize, DataSize orcStreamBufferSize)
+    public DwrfPageSourceFactory(
+            TypeManager typeManager,
+            boolean enabled,
+            DataSize orcMaxMergeDistance,
+            DataSize orcMaxBufferSize,
+            DataSize orcStreamBufferSize,
+            OrcDataCache dataCache,
+            OrcFileTailCache fileTailCache,
+            boolean stripePrefetchEnabled,
+            Optional<Executor> prefetchExecutor,
+            DataSize maxPrefetchStripeSize,
+            boolean lateMaterializationEnabled,
+            Optional<Executor> s3RangeReadExecutor)
     {
         this.typeManager = checkNotNull(typeManager, "typeManager is null");
         this.enabled = enabled;
         this.orcMaxMergeDistance = checkNotNull(orcMaxMergeDistance, "orcMaxMergeDistance is null");
         this.orcMaxBufferSize = checkNotNull(orcMaxBufferSize, "orcMaxBufferSize is null");
         this.orcStreamBufferSize = checkNotNull(orcStreamBufferSize, "orcStreamBufferSize is null");
+        this.dataCache = checkNotNull(dataCache, "dataCache is null");
+        this.fileTailCache = checkNotNull(fileTailCache, "fileTailCache is null");
+        this.stripePrefetchEnabled = stripePrefetchEnabled;
+        this.prefetchExecutor = checkNotNull(prefetchExecutor, "prefetchExecutor is null");
+        this.maxPrefetchStripeSize = checkNotNull(maxPrefetchStripeSize, "maxPrefetchStripeSize is null");
+        this.lateMaterializationEnabled = lateMaterializationEnabled;
+        this.s3RangeReadExecutor = checkNotNull(s3RangeReadExecutor, "s3RangeReadExecutor is null");
     }
 
     @Override
@@ -106,6 +156,12 @@ public class DwrfPageSourceFactory
                 typeManager,
                 getOrcMaxMergeDistance(session, orcMaxMergeDistance),
                 getOrcMaxBufferSize(session, orcMaxBufferSize),
-                getOrcStreamBufferSize(session, orcStreamBufferSize)));
+                getOrcStreamBufferSize(session, orcStreamBufferSize),
+                dataCache,
+                fileTailCache,
+                isOrcStripePrefetchEnabled(session, stripePrefetchEnabled) ? prefetchExecutor : Optional.empty(),
+                maxPrefetchStripeSize,
+                isOrcLateMaterializationEnabled(session, lateMaterializationEnabled),
+                s3RangeReadExecutor));
     }
 }
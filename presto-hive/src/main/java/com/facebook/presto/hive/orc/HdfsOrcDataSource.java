@@ -14,20 +14,55 @@
 package com.facebook.presto.hive.orc;
 
 import com.facebook.presto.orc.AbstractOrcDataSource;
+import com.facebook.presto.orc.DiskRange;
+import com.google.common.base.Throwables;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.fs.FSDataInputStream;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 public class HdfsOrcDataSource
         extends AbstractOrcDataSource
 {
+    private final String path;
+    private final long modificationTime;
     private final FSDataInputStream inputStream;
+    private final OrcDataCache dataCache;
+    private final Optional<Executor> rangeReadExecutor;
 
-    public HdfsOrcDataSource(String name, long size, DataSize maxMergeDistance, DataSize maxReadSize, DataSize streamBufferSize, FSDataInputStream inputStream)
+    /**
+     * When {@code rangeReadExecutor} is present, the merged disk ranges of a read are
+     * fetched concurrently using positioned reads, which requires the input stream to
+     * support concurrent positioned reads.
+     */
+    public HdfsOrcDataSource(
+            String path,
+            long size,
+            long modificationTime,
+            DataSize maxMergeDistance,
+            DataSize maxReadSize,
+            DataSize streamBufferSize,
+            FSDataInputStream inputStream,
+            OrcDataCache dataCache,
+            Optional<Executor> rangeReadExecutor)
     {
-        super(name, size, maxMergeDistance, maxReadSize, streamBufferSize);
+        super(path, size, maxMergeDistance, maxReadSize, streamBufferSize);
+        this.path = path;
+        this.modificationTime = modificationTime;
         this.inputStream = inputStream;
+        this.dataCache = checkNotNull(dataCache, "dataCache is null");
+        this.rangeReadExecutor = checkNotNull(rangeReadExecutor, "rangeReadExecutor is null");
     }
 
     @Override
@@ -41,6 +76,48 @@ public class HdfsOrcDataSource
     protected void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
             throws IOException
     {
+        if (dataCache.isEnabled()) {
+            dataCache.readFully(path, modificationTime, getSize(), position, buffer, bufferOffset, bufferLength, inputStream::readFully);
+            return;
+        }
         inputStream.readFully(position, buffer, bufferOffset, bufferLength);
     }
+
+    @Override
+    protected void readInternal(Map<DiskRange, byte[]> buffers)
+            throws IOException
+    {
+        if (!rangeReadExecutor.isPresent() || buffers.size() <= 1) {
+            super.readInternal(buffers);
+            return;
+        }
+
+        List<FutureTask<Void>> reads = new ArrayList<>(buffers.size());
+        for (Entry<DiskRange, byte[]> entry : buffers.entrySet()) {
+            DiskRange diskRange = entry.getKey();
+            byte[] buffer = entry.getValue();
+            FutureTask<Void> read = new FutureTask<>(() -> {
+                readInternal(diskRange.getOffset(), buffer, 0, diskRange.getLength());
+                return null;
+            });
+            rangeReadExecutor.get().execute(read);
+            reads.add(read);
+        }
+
+        try {
+            for (FutureTask<Void> read : reads) {
+                read.get();
+            }
+        }
+        catch (InterruptedException e) {
+            reads.forEach(read -> read.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        catch (ExecutionException e) {
+            reads.forEach(read -> read.cancel(true));
+            Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        }
+    }
 }
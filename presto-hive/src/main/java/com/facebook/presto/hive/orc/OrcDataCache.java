@@ -0,0 +1,273 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.hive.HiveClientConfig;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.primitives.Ints;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.stats.CounterStat;
+import io.airlift.units.DataSize;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Node local read-through cache of ORC file data. Files are cached in chunks aligned to
+ * the chunk size, so reads of different stream ranges of a stripe, for example by queries
+ * projecting different columns, share the cached data. Entries are keyed by the path and
+ * modification time of the file and the offset of the chunk, so rewritten files are never
+ * served from stale entries. The chunks are kept off-heap, and the least recently used
+ * chunks are evicted once the cached data exceeds the maximum size.
+ */
+public class OrcDataCache
+{
+    private final boolean enabled;
+    private final int chunkSize;
+    private final Cache<CacheKey, Slice> cache;
+    private final AtomicLong cachedBytes = new AtomicLong();
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat bytesServed = new CounterStat();
+    private final CounterStat bytesLoaded = new CounterStat();
+    private final CounterStat evictions = new CounterStat();
+
+    @Inject
+    public OrcDataCache(HiveClientConfig config)
+    {
+        this(config.isOrcDataCacheEnabled(), config.getOrcDataCacheMaxSize(), config.getOrcDataCacheChunkSize());
+    }
+
+    public OrcDataCache(boolean enabled, DataSize maxSize, DataSize chunkSize)
+    {
+        checkNotNull(maxSize, "maxSize is null");
+        checkNotNull(chunkSize, "chunkSize is null");
+        this.enabled = enabled;
+        this.chunkSize = Ints.checkedCast(chunkSize.toBytes());
+        checkArgument(this.chunkSize > 0, "chunkSize must be positive");
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((CacheKey key, Slice value) -> value.length())
+                .removalListener(this::entryRemoved)
+                .build();
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Reads {@code length} bytes of the file starting at {@code position} into the buffer.
+     * Chunks of the range that are not cached are loaded with the loader, with a single
+     * read for each run of consecutive missing chunks.
+     */
+    public void readFully(String path, long modificationTime, long fileSize, long position, byte[] buffer, int bufferOffset, int length, DataLoader loader)
+            throws IOException
+    {
+        checkState(enabled, "cache is not enabled");
+        checkArgument(position >= 0 && position + length <= fileSize, "range is outside of the file");
+        if (length == 0) {
+            return;
+        }
+
+        long firstChunk = position / chunkSize;
+        int chunkCount = Ints.checkedCast((position + length - 1) / chunkSize - firstChunk + 1);
+        Slice[] chunks = new Slice[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i] = cache.getIfPresent(new CacheKey(path, modificationTime, (firstChunk + i) * chunkSize));
+            if (chunks[i] != null) {
+                hits.update(1);
+            }
+            else {
+                misses.update(1);
+            }
+        }
+
+        for (int i = 0; i < chunkCount; i++) {
+            long chunkOffset = (firstChunk + i) * chunkSize;
+            long start = Math.max(position, chunkOffset);
+            int chunkLength = Ints.checkedCast(Math.min(position + length, chunkOffset + chunkSize) - start);
+            if (chunks[i] != null) {
+                chunks[i].getBytes(Ints.checkedCast(start - chunkOffset), buffer, bufferOffset + Ints.checkedCast(start - position), chunkLength);
+                bytesServed.update(chunkLength);
+            }
+            else {
+                int missing = 1;
+                while (i + missing < chunkCount && chunks[i + missing] == null) {
+                    missing++;
+                }
+                byte[] loaded = loadChunks(path, modificationTime, fileSize, chunkOffset, missing, loader);
+                int copyLength = Ints.checkedCast(Math.min(position + length, chunkOffset + loaded.length) - start);
+                System.arraycopy(loaded, Ints.checkedCast(start - chunkOffset), buffer, bufferOffset + Ints.checkedCast(start - position), copyLength);
+                i += missing - 1;
+            }
+        }
+    }
+
+    private byte[] loadChunks(String path, long modificationTime, long fileSize, long offset, int chunkCount, DataLoader loader)
+            throws IOException
+    {
+        byte[] loaded = new byte[Ints.checkedCast(Math.min(offset + ((long) chunkCount * chunkSize), fileSize) - offset)];
+        loader.load(offset, loaded, 0, loaded.length);
+        bytesLoaded.update(loaded.length);
+
+        for (int chunkStart = 0; chunkStart < loaded.length; chunkStart += chunkSize) {
+            int chunkLength = Math.min(chunkSize, loaded.length - chunkStart);
+            Slice chunk = Slices.allocateDirect(chunkLength);
+            chunk.setBytes(0, loaded, chunkStart, chunkLength);
+            cachedBytes.addAndGet(chunkLength);
+            cache.put(new CacheKey(path, modificationTime, offset + chunkStart), chunk);
+        }
+        return loaded;
+    }
+
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+
+    private void entryRemoved(RemovalNotification<CacheKey, Slice> notification)
+    {
+        if (notification.getValue() != null) {
+            cachedBytes.addAndGet(-notification.getValue().length());
+        }
+        if (notification.wasEvicted()) {
+            evictions.update(1);
+        }
+    }
+
+    @Managed
+    public long getCachedBytes()
+    {
+        return cachedBytes.get();
+    }
+
+    @Managed
+    public long getEntryCount()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        long hitCount = hits.getTotalCount();
+        long requestCount = hitCount + misses.getTotalCount();
+        if (requestCount == 0) {
+            return 0.0;
+        }
+        return hitCount / (double) requestCount;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBytesServed()
+    {
+        return bytesServed;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBytesLoaded()
+    {
+        return bytesLoaded;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getEvictions()
+    {
+        return evictions;
+    }
+
+    public interface DataLoader
+    {
+        void load(long position, byte[] buffer, int bufferOffset, int length)
+                throws IOException;
+    }
+
+    private static final class CacheKey
+    {
+        private final String path;
+        private final long modificationTime;
+        private final long offset;
+
+        private CacheKey(String path, long modificationTime, long offset)
+        {
+            this.path = checkNotNull(path, "path is null");
+            this.modificationTime = modificationTime;
+            this.offset = offset;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, modificationTime, offset);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return Objects.equals(this.path, other.path) &&
+                    this.modificationTime == other.modificationTime &&
+                    this.offset == other.offset;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("modificationTime", modificationTime)
+                    .add("offset", offset)
+                    .toString();
+        }
+    }
+}
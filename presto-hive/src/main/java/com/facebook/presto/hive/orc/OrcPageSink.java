@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.hive.HdfsEnvironment;
+import com.facebook.presto.hive.HiveOutputTableHandle;
+import com.facebook.presto.orc.OrcWriter;
+import com.facebook.presto.spi.ConnectorPageSink;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+
+import static com.facebook.presto.hive.HiveColumnHandle.SAMPLE_WEIGHT_COLUMN_NAME;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_ERROR;
+import static com.facebook.presto.hive.HiveSessionProperties.getOrcBloomFilterColumns;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.facebook.presto.spi.StandardErrorCode.INVALID_SESSION_PROPERTY;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes the pages of a Hive table in the ORC format using the native ORC writer,
+ * without converting the values to Hive objects.
+ */
+public class OrcPageSink
+        implements ConnectorPageSink
+{
+    private final Path target;
+    private final FileSystem fileSystem;
+    private final int sampleWeightField;
+    private final OrcWriter orcWriter;
+
+    public OrcPageSink(HiveOutputTableHandle handle, Path target, HdfsEnvironment hdfsEnvironment, DateTimeZone hiveStorageTimeZone)
+    {
+        checkNotNull(handle, "handle is null");
+        this.target = checkNotNull(target, "target is null");
+        checkNotNull(hdfsEnvironment, "hdfsEnvironment is null");
+        checkNotNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+
+        sampleWeightField = handle.getColumnNames().indexOf(SAMPLE_WEIGHT_COLUMN_NAME);
+
+        Set<String> bloomFilterColumns = getOrcBloomFilterColumns(handle.getConnectorSession());
+        for (String column : bloomFilterColumns) {
+            int field = handle.getColumnNames().indexOf(column);
+            if (field < 0 || !OrcWriter.isBloomFilterSupported(handle.getColumnTypes().get(field))) {
+                throw new PrestoException(INVALID_SESSION_PROPERTY, "Can not create an ORC bloom filter for column: " + column);
+            }
+        }
+
+        try {
+            fileSystem = hdfsEnvironment.getFileSystem(target);
+            // ZLIB is the default compression of the Hive ORC writer
+            orcWriter = new OrcWriter(
+                    fileSystem.create(target),
+                    handle.getColumnNames(),
+                    handle.getColumnTypes(),
+                    ZLIB,
+                    OrcWriter.DEFAULT_STRIPE_MAX_SIZE,
+                    OrcWriter.DEFAULT_STRIPE_MAX_ROW_COUNT,
+                    OrcWriter.DEFAULT_ROW_GROUP_MAX_ROW_COUNT,
+                    OrcWriter.DEFAULT_MAX_COMPRESSION_BUFFER_SIZE,
+                    hiveStorageTimeZone,
+                    bloomFilterColumns,
+                    OrcWriter.DEFAULT_BLOOM_FILTER_FPP);
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_ERROR, "Error creating ORC file", e);
+        }
+    }
+
+    @Override
+    public void appendPage(Page page, Block sampleWeightBlock)
+    {
+        if (sampleWeightField >= 0) {
+            page = addSampleWeight(page, sampleWeightBlock);
+        }
+        try {
+            orcWriter.write(page);
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_ERROR, "Error writing ORC file", e);
+        }
+    }
+
+    @Override
+    public Collection<Slice> commit()
+    {
+        try {
+            orcWriter.close();
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_ERROR, "Error committing write to Hive", e);
+        }
+
+        // the committer can list the directory
+        return ImmutableList.of();
+    }
+
+    @Override
+    public void rollback()
+    {
+        try {
+            try {
+                orcWriter.close();
+            }
+            finally {
+                fileSystem.delete(target, false);
+            }
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_ERROR, "Error rolling back write to Hive", e);
+        }
+    }
+
+    private Page addSampleWeight(Page page, Block sampleWeightBlock)
+    {
+        if (sampleWeightBlock == null) {
+            // rows without a sample weight have a weight of one
+            BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), 1);
+            BIGINT.writeLong(blockBuilder, 1);
+            sampleWeightBlock = new RunLengthEncodedBlock(blockBuilder.build(), page.getPositionCount());
+        }
+
+        Block[] blocks = new Block[page.getChannelCount() + 1];
+        for (int channel = 0, field = 0; field < blocks.length; field++) {
+            if (field == sampleWeightField) {
+                blocks[field] = sampleWeightBlock;
+            }
+            else {
+                blocks[field] = page.getBlock(channel);
+                channel++;
+            }
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+}
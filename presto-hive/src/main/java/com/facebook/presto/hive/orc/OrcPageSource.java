@@ -20,23 +20,29 @@ import com.facebook.presto.orc.BooleanVector;
 import com.facebook.presto.orc.DoubleVector;
 import com.facebook.presto.orc.LongVector;
 import com.facebook.presto.orc.OrcCorruptionException;
-import com.facebook.presto.orc.OrcDataSource;
 import com.facebook.presto.orc.OrcRecordReader;
 import com.facebook.presto.orc.SliceVector;
+import com.facebook.presto.orc.Vector;
 import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Domain;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.block.LazyBlockLoader;
 import com.facebook.presto.spi.block.LazyFixedWidthBlock;
 import com.facebook.presto.spi.block.LazySliceArrayBlock;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.block.SliceArrayBlock;
 import com.facebook.presto.spi.type.FixedWidthType;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import org.joda.time.DateTimeZone;
@@ -83,7 +89,6 @@ public class OrcPageSource
 {
     private static final int NULL_ENTRY_SIZE = 0;
     private final OrcRecordReader recordReader;
-    private final OrcDataSource orcDataSource;
 
     private final List<String> columnNames;
     private final List<Type> types;
@@ -92,6 +97,19 @@ public class OrcPageSource
     private final Block[] constantBlocks;
     private final int[] hiveColumnIndexes;
 
+    // dictionary blocks of the current stripe, shared by all batches of the stripe
+    private final SliceArrayBlock[] dictionaryBlocks;
+    private final Slice[][] dictionaries;
+
+    // columns with a pushed down domain are read first, and the other columns
+    // are only decoded for the rows of the batch that match every domain
+    private final int[] filterFields;
+    private final VectorFilter[] filters;
+    private final Vector[] filterVectors;
+    private final int[] selectedPositions = new int[MAX_VECTOR_LENGTH];
+    private int selectedPositionCount;
+    private int batchSize;
+
     private long completedBytes;
 
     private int batchId;
@@ -99,14 +117,13 @@ public class OrcPageSource
 
     public OrcPageSource(
             OrcRecordReader recordReader,
-            OrcDataSource orcDataSource,
             List<HivePartitionKey> partitionKeys,
             List<HiveColumnHandle> columns,
+            TupleDomain<HiveColumnHandle> effectivePredicate,
             DateTimeZone hiveStorageTimeZone,
             TypeManager typeManager)
     {
         this.recordReader = checkNotNull(recordReader, "recordReader is null");
-        this.orcDataSource = checkNotNull(orcDataSource, "orcDataSource is null");
 
         Map<String, HivePartitionKey> partitionKeysByName = uniqueIndex(checkNotNull(partitionKeys, "partitionKeys is null"), HivePartitionKey::getName);
 
@@ -116,6 +133,14 @@ public class OrcPageSource
 
         this.constantBlocks = new Block[size];
         this.hiveColumnIndexes = new int[size];
+        this.dictionaryBlocks = new SliceArrayBlock[size];
+        this.dictionaries = new Slice[size][];
+        this.filters = new VectorFilter[size];
+        this.filterVectors = new Vector[size];
+
+        checkNotNull(effectivePredicate, "effectivePredicate is null");
+        Map<HiveColumnHandle, Domain> domains = effectivePredicate.isNone() ? ImmutableMap.of() : effectivePredicate.getDomains();
+        ImmutableList.Builder<Integer> filterFields = ImmutableList.builder();
 
         ImmutableList.Builder<String> namesBuilder = ImmutableList.builder();
         ImmutableList.Builder<Type> typesBuilder = ImmutableList.builder();
@@ -141,52 +166,38 @@ public class OrcPageSource
 
                 BlockBuilder blockBuilder;
                 if (type instanceof FixedWidthType) {
-                    blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), MAX_VECTOR_LENGTH);
+                    blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), 1);
                 }
                 else {
-                    blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), MAX_VECTOR_LENGTH, bytes.length);
+                    blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), 1, bytes.length);
                 }
 
                 if (HiveUtil.isHiveNull(bytes)) {
-                    for (int i = 0; i < MAX_VECTOR_LENGTH; i++) {
-                        blockBuilder.appendNull();
-                    }
+                    blockBuilder.appendNull();
                 }
                 else if (type.equals(BOOLEAN)) {
                     boolean value = booleanPartitionKey(partitionKey.getValue(), name);
-                    for (int i = 0; i < MAX_VECTOR_LENGTH; i++) {
-                        BOOLEAN.writeBoolean(blockBuilder, value);
-                    }
+                    BOOLEAN.writeBoolean(blockBuilder, value);
                 }
                 else if (type.equals(BIGINT)) {
                     long value = bigintPartitionKey(partitionKey.getValue(), name);
-                    for (int i = 0; i < MAX_VECTOR_LENGTH; i++) {
-                        BIGINT.writeLong(blockBuilder, value);
-                    }
+                    BIGINT.writeLong(blockBuilder, value);
                 }
                 else if (type.equals(DOUBLE)) {
                     double value = doublePartitionKey(partitionKey.getValue(), name);
-                    for (int i = 0; i < MAX_VECTOR_LENGTH; i++) {
-                        DOUBLE.writeDouble(blockBuilder, value);
-                    }
+                    DOUBLE.writeDouble(blockBuilder, value);
                 }
                 else if (type.equals(VARCHAR)) {
                     Slice value = Slices.wrappedBuffer(bytes);
-                    for (int i = 0; i < MAX_VECTOR_LENGTH; i++) {
-                        VARCHAR.writeSlice(blockBuilder, value);
-                    }
+                    VARCHAR.writeSlice(blockBuilder, value);
                 }
                 else if (type.equals(DATE)) {
                     long value = datePartitionKey(partitionKey.getValue(), name);
-                    for (int i = 0; i < MAX_VECTOR_LENGTH; i++) {
-                        DATE.writeLong(blockBuilder, value);
-                    }
+                    DATE.writeLong(blockBuilder, value);
                 }
                 else if (type.equals(TIMESTAMP)) {
                     long value = timestampPartitionKey(partitionKey.getValue(), hiveStorageTimeZone, name);
-                    for (int i = 0; i < MAX_VECTOR_LENGTH; i++) {
-                        TIMESTAMP.writeLong(blockBuilder, value);
-                    }
+                    TIMESTAMP.writeLong(blockBuilder, value);
                 }
                 else {
                     throw new PrestoException(NOT_SUPPORTED, format("Unsupported column type %s for partition key: %s", type.getDisplayName(), name));
@@ -195,15 +206,22 @@ public class OrcPageSource
                 constantBlocks[columnIndex] = blockBuilder.build();
             }
             else if (!recordReader.isColumnPresent(column.getHiveColumnIndex())) {
-                BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), MAX_VECTOR_LENGTH, NULL_ENTRY_SIZE);
-                for (int i = 0; i < MAX_VECTOR_LENGTH; i++) {
-                    blockBuilder.appendNull();
-                }
+                BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), 1, NULL_ENTRY_SIZE);
+                blockBuilder.appendNull();
                 constantBlocks[columnIndex] = blockBuilder.build();
             }
+            else if (domains.containsKey(column) && !domains.get(column).isAll()) {
+                VectorFilter filter = VectorFilter.create(type, domains.get(column));
+                if (filter != null) {
+                    filterFields.add(columnIndex);
+                    filters[columnIndex] = filter;
+                    filterVectors[columnIndex] = filter.createVector();
+                }
+            }
         }
         types = typesBuilder.build();
         columnNames = namesBuilder.build();
+        this.filterFields = Ints.toArray(filterFields.build());
     }
 
     @Override
@@ -221,7 +239,19 @@ public class OrcPageSource
     @Override
     public long getReadTimeNanos()
     {
-        return orcDataSource.getReadTimeNanos();
+        return recordReader.getReadTimeNanos();
+    }
+
+    @Override
+    public long getReadWaitNanos()
+    {
+        return recordReader.getPrefetchWaitNanos();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return recordReader.getSystemMemoryUsage();
     }
 
     @Override
@@ -234,39 +264,45 @@ public class OrcPageSource
     public Page getNextPage()
     {
         try {
-            batchId++;
-            int batchSize = recordReader.nextBatch();
-            if (batchSize <= 0) {
-                close();
-                return null;
+            // batches without any rows matching the domains are skipped
+            do {
+                batchId++;
+                batchSize = recordReader.nextBatch();
+                if (batchSize <= 0) {
+                    close();
+                    return null;
+                }
+                selectedPositionCount = selectPositions();
             }
+            while (selectedPositionCount == 0);
 
+            int positionCount = selectedPositionCount;
             Block[] blocks = new Block[hiveColumnIndexes.length];
             for (int fieldId = 0; fieldId < blocks.length; fieldId++) {
                 Type type = types.get(fieldId);
                 if (constantBlocks[fieldId] != null) {
-                    blocks[fieldId] = constantBlocks[fieldId].getRegion(0, batchSize);
+                    blocks[fieldId] = new RunLengthEncodedBlock(constantBlocks[fieldId], positionCount);
                 }
                 else if (BOOLEAN.equals(type)) {
-                    blocks[fieldId] = new LazyFixedWidthBlock(BOOLEAN.getFixedSize(), batchSize, new LazyBooleanBlockLoader(hiveColumnIndexes[fieldId], batchSize));
+                    blocks[fieldId] = new LazyFixedWidthBlock(BOOLEAN.getFixedSize(), positionCount, new LazyBooleanBlockLoader(fieldId, positionCount));
                 }
                 else if (DATE.equals(type)) {
-                    blocks[fieldId] = new LazyFixedWidthBlock(DATE.getFixedSize(), batchSize, new LazyDateBlockLoader(hiveColumnIndexes[fieldId], batchSize));
+                    blocks[fieldId] = new LazyFixedWidthBlock(DATE.getFixedSize(), positionCount, new LazyDateBlockLoader(fieldId, positionCount));
                 }
                 else if (BIGINT.equals(type) || TIMESTAMP.equals(type)) {
-                    blocks[fieldId] = new LazyFixedWidthBlock(((FixedWidthType) type).getFixedSize(), batchSize, new LazyLongBlockLoader(hiveColumnIndexes[fieldId], batchSize));
+                    blocks[fieldId] = new LazyFixedWidthBlock(((FixedWidthType) type).getFixedSize(), positionCount, new LazyLongBlockLoader(fieldId, positionCount));
                 }
                 else if (DOUBLE.equals(type)) {
-                    blocks[fieldId] = new LazyFixedWidthBlock(DOUBLE.getFixedSize(), batchSize, new LazyDoubleBlockLoader(hiveColumnIndexes[fieldId], batchSize));
+                    blocks[fieldId] = new LazyFixedWidthBlock(DOUBLE.getFixedSize(), positionCount, new LazyDoubleBlockLoader(fieldId, positionCount));
                 }
                 else if (VARCHAR.equals(type) || VARBINARY.equals(type) || isStructuralType[fieldId]) {
-                    blocks[fieldId] = new LazySliceArrayBlock(batchSize, new LazySliceBlockLoader(hiveColumnIndexes[fieldId], batchSize));
+                    blocks[fieldId] = new LazySliceArrayBlock(positionCount, new LazySliceBlockLoader(fieldId, positionCount));
                 }
                 else {
                     throw new PrestoException(NOT_SUPPORTED, "Unsupported column type: " + type);
                 }
             }
-            Page page = new Page(batchSize, blocks);
+            Page page = new Page(positionCount, blocks);
 
             long newCompletedBytes = (long) (recordReader.getSplitLength() * recordReader.getProgress());
             completedBytes = min(recordReader.getSplitLength(), max(completedBytes, newCompletedBytes));
@@ -320,17 +356,59 @@ public class OrcPageSource
         }
     }
 
+    private int selectPositions()
+            throws IOException
+    {
+        if (filterFields.length == 0) {
+            return batchSize;
+        }
+
+        int positionCount = batchSize;
+        for (int position = 0; position < batchSize; position++) {
+            selectedPositions[position] = position;
+        }
+        for (int fieldId : filterFields) {
+            Vector vector = filterVectors[fieldId];
+            recordReader.readVector(hiveColumnIndexes[fieldId], vector);
+
+            positionCount = filters[fieldId].filter(vector, selectedPositions, positionCount);
+        }
+        return positionCount;
+    }
+
+    private void readVector(int fieldId, Vector vector)
+            throws IOException
+    {
+        Vector filterVector = filterVectors[fieldId];
+        if (filterVector != null) {
+            // the column has already been read to select the positions
+            if (selectedPositionCount == batchSize) {
+                vector.copyFrom(filterVector, 0, 0, batchSize);
+                return;
+            }
+            for (int i = 0; i < selectedPositionCount; i++) {
+                vector.copyFrom(filterVector, selectedPositions[i], i, 1);
+            }
+        }
+        else if (selectedPositionCount == batchSize) {
+            recordReader.readVector(hiveColumnIndexes[fieldId], vector);
+        }
+        else {
+            recordReader.readVector(hiveColumnIndexes[fieldId], vector, selectedPositions, selectedPositionCount);
+        }
+    }
+
     private final class LazyBooleanBlockLoader
             implements LazyBlockLoader<LazyFixedWidthBlock>
     {
         private final int expectedBatchId = batchId;
         private final int batchSize;
-        private final int hiveColumnIndex;
+        private final int fieldId;
 
-        public LazyBooleanBlockLoader(int hiveColumnIndex, int batchSize)
+        public LazyBooleanBlockLoader(int fieldId, int batchSize)
         {
             this.batchSize = batchSize;
-            this.hiveColumnIndex = hiveColumnIndex;
+            this.fieldId = fieldId;
         }
 
         @Override
@@ -339,7 +417,7 @@ public class OrcPageSource
             checkState(batchId == expectedBatchId);
             try {
                 BooleanVector vector = new BooleanVector(batchSize);
-                recordReader.readVector(hiveColumnIndex, vector);
+                readVector(fieldId, vector);
                 block.setNullVector(vector.isNull);
                 block.setRawSlice(wrappedBooleanArray(vector.vector, 0, batchSize));
             }
@@ -354,12 +432,12 @@ public class OrcPageSource
     {
         private final int expectedBatchId = batchId;
         private final int batchSize;
-        private final int hiveColumnIndex;
+        private final int fieldId;
 
-        public LazyDateBlockLoader(int hiveColumnIndex, int batchSize)
+        public LazyDateBlockLoader(int fieldId, int batchSize)
         {
             this.batchSize = batchSize;
-            this.hiveColumnIndex = hiveColumnIndex;
+            this.fieldId = fieldId;
         }
 
         @Override
@@ -368,7 +446,7 @@ public class OrcPageSource
             checkState(batchId == expectedBatchId);
             try {
                 LongVector vector = new LongVector(batchSize);
-                recordReader.readVector(hiveColumnIndex, vector);
+                readVector(fieldId, vector);
                 block.setNullVector(vector.isNull);
 
                 // Presto stores dates as ints in memory, so convert to int array
@@ -391,12 +469,12 @@ public class OrcPageSource
     {
         private final int expectedBatchId = batchId;
         private final int batchSize;
-        private final int hiveColumnIndex;
+        private final int fieldId;
 
-        public LazyLongBlockLoader(int hiveColumnIndex, int batchSize)
+        public LazyLongBlockLoader(int fieldId, int batchSize)
         {
             this.batchSize = batchSize;
-            this.hiveColumnIndex = hiveColumnIndex;
+            this.fieldId = fieldId;
         }
 
         @Override
@@ -405,7 +483,7 @@ public class OrcPageSource
             checkState(batchId == expectedBatchId);
             try {
                 LongVector vector = new LongVector(batchSize);
-                recordReader.readVector(hiveColumnIndex, vector);
+                readVector(fieldId, vector);
                 block.setNullVector(vector.isNull);
                 block.setRawSlice(wrappedLongArray(vector.vector, 0, batchSize));
             }
@@ -421,12 +499,12 @@ public class OrcPageSource
         private final int expectedBatchId = batchId;
 
         private final int batchSize;
-        private final int hiveColumnIndex;
+        private final int fieldId;
 
-        public LazyDoubleBlockLoader(int hiveColumnIndex, int batchSize)
+        public LazyDoubleBlockLoader(int fieldId, int batchSize)
         {
             this.batchSize = batchSize;
-            this.hiveColumnIndex = hiveColumnIndex;
+            this.fieldId = fieldId;
         }
 
         @Override
@@ -435,7 +513,7 @@ public class OrcPageSource
             checkState(batchId == expectedBatchId);
             try {
                 DoubleVector vector = new DoubleVector(batchSize);
-                recordReader.readVector(hiveColumnIndex, vector);
+                readVector(fieldId, vector);
                 block.setNullVector(vector.isNull);
                 block.setRawSlice(wrappedDoubleArray(vector.vector, 0, batchSize));
             }
@@ -451,12 +529,12 @@ public class OrcPageSource
         private final int expectedBatchId = batchId;
 
         private final int batchSize;
-        private final int hiveColumnIndex;
+        private final int fieldId;
 
-        public LazySliceBlockLoader(int hiveColumnIndex, int batchSize)
+        public LazySliceBlockLoader(int fieldId, int batchSize)
         {
             this.batchSize = batchSize;
-            this.hiveColumnIndex = hiveColumnIndex;
+            this.fieldId = fieldId;
         }
 
         @Override
@@ -465,8 +543,17 @@ public class OrcPageSource
             checkState(batchId == expectedBatchId);
             try {
                 SliceVector vector = new SliceVector(batchSize);
-                recordReader.readVector(hiveColumnIndex, vector);
-                block.setValues(vector.vector);
+                readVector(fieldId, vector);
+                if (vector.dictionary == null) {
+                    block.setValues(vector.vector);
+                    return;
+                }
+
+                if (dictionaries[fieldId] != vector.dictionary) {
+                    dictionaries[fieldId] = vector.dictionary;
+                    dictionaryBlocks[fieldId] = new SliceArrayBlock(vector.dictionary.length, vector.dictionary);
+                }
+                block.setValues(dictionaryBlocks[fieldId], vector.ids);
             }
             catch (IOException e) {
                 throw propagateException(e);
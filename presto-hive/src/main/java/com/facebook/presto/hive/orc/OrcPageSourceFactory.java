@@ -13,11 +13,15 @@
  */
 package com.facebook.presto.hive.orc;
 
+import com.facebook.presto.hive.ForHiveClient;
+import com.facebook.presto.hive.ForS3RangeReads;
 import com.facebook.presto.hive.HiveClientConfig;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
 import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.hive.PrestoS3FileSystem;
 import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcFileTailCache;
 import com.facebook.presto.orc.OrcPredicate;
 import com.facebook.presto.orc.OrcReader;
 import com.facebook.presto.orc.OrcRecordReader;
@@ -36,6 +40,7 @@ import com.google.common.collect.ImmutableMap;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
@@ -48,6 +53,8 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_MISSING_DATA;
@@ -55,6 +62,8 @@ import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxBufferSize
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxMergeDistance;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
 import static com.facebook.presto.hive.HiveSessionProperties.isOptimizedReaderEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcLateMaterializationEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcStripePrefetchEnabled;
 import static com.facebook.presto.hive.HiveUtil.isDeserializerClass;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.nullToEmpty;
@@ -69,26 +78,69 @@ public class OrcPageSourceFactory
     private final DataSize orcMaxMergeDistance;
     private final DataSize orcMaxBufferSize;
     private final DataSize orcStreamBufferSize;
+    private final OrcDataCache dataCache;
+    private final OrcFileTailCache fileTailCache;
+    private final boolean stripePrefetchEnabled;
+    private final Optional<Executor> prefetchExecutor;
+    private final DataSize maxPrefetchStripeSize;
+    private final boolean lateMaterializationEnabled;
+    private final Optional<Executor> s3RangeReadExecutor;
 
     @Inject
-    public OrcPageSourceFactory(TypeManager typeManager, HiveClientConfig config)
+    public OrcPageSourceFactory(
+            TypeManager typeManager,
+            HiveClientConfig config,
+            OrcDataCache dataCache,
+            OrcFileTailCache fileTailCache,
+            @ForHiveClient ExecutorService executor,
+            @ForS3RangeReads Executor s3RangeReadExecutor)
     {
         //noinspection deprecation
-        this(typeManager, config.isOptimizedReaderEnabled(), config.getOrcMaxMergeDistance(), config.getOrcMaxBufferSize(), config.getOrcStreamBufferSize());
+        this(typeManager,
+                config.isOptimizedReaderEnabled(),
+                config.getOrcMaxMergeDistance(),
+                config.getOrcMaxBufferSize(),
+                config.getOrcStreamBufferSize(),
+                dataCache,
+                fileTailCache,
+                config.isOrcStripePrefetchEnabled(),
+                Optional.of(executor),
+                config.getOrcMaxPrefetchStripeSize(),
+                config.isOrcLateMaterializationEnabled(),
+                Optional.of(s3RangeReadExecutor));
     }
 
     public OrcPageSourceFactory(TypeManager typeManager)
     {
-        this(typeManager, true, new DataSize(1, MEGABYTE), new DataSize(8, MEGABYTE), new DataSize(8, MEGABYTE));
+        this(typeManager, true, new DataSize(1, MEGABYTE), new DataSize(8, MEGABYTE), new DataSize(8, MEGABYTE), new OrcDataCache(false, new DataSize(0, MEGABYTE), new DataSize(1, MEGABYTE)), new OrcFileTailCache(new DataSize(0, MEGABYTE)), false, Optional.empty(), new DataSize(0, MEGABYTE), true, Optional.empty());
     }
 
-    public OrcPageSourceFactory(TypeManager typeManager, boolean enabled, DataSize orcMaxMergeDistance, DataSize orcMaxBufferSize, DataSize orcStreamBufferSize)
+    public OrcPageSourceFactory(
+            TypeManager typeManager,
+            boolean enabled,
+            DataSize orcMaxMergeDistance,
+            DataSize orcMaxBufferSize,
+            DataSize orcStreamBufferSize,
+            OrcDataCache dataCache,
+            OrcFileTailCache fileTailCache,
+            boolean stripePrefetchEnabled,
+            Optional<Executor> prefetchExecutor,
+            DataSize maxPrefetchStripeSize,
+            boolean lateMaterializationEnabled,
+            Optional<Executor> s3RangeReadExecutor)
     {
         this.typeManager = checkNotNull(typeManager, "typeManager is null");
         this.enabled = enabled;
         this.orcMaxMergeDistance = checkNotNull(orcMaxMergeDistance, "orcMaxMergeDistance is null");
         this.orcMaxBufferSize = checkNotNull(orcMaxBufferSize, "orcMaxBufferSize is null");
         this.orcStreamBufferSize = checkNotNull(orcStreamBufferSize, "orcStreamBufferSize is null");
+        this.dataCache = checkNotNull(dataCache, "dataCache is null");
+        this.fileTailCache = checkNotNull(fileTailCache, "fileTailCache is null");
+        this.stripePrefetchEnabled = stripePrefetchEnabled;
+        this.prefetchExecutor = checkNotNull(prefetchExecutor, "prefetchExecutor is null");
+        this.maxPrefetchStripeSize = checkNotNull(maxPrefetchStripeSize, "maxPrefetchStripeSize is null");
+        this.lateMaterializationEnabled = lateMaterializationEnabled;
+        this.s3RangeReadExecutor = checkNotNull(s3RangeReadExecutor, "s3RangeReadExecutor is null");
     }
 
     @Override
@@ -125,7 +177,13 @@ public class OrcPageSourceFactory
                 typeManager,
                 getOrcMaxMergeDistance(session, orcMaxMergeDistance),
                 getOrcMaxBufferSize(session, orcMaxBufferSize),
-                getOrcStreamBufferSize(session, orcStreamBufferSize)));
+                getOrcStreamBufferSize(session, orcStreamBufferSize),
+                dataCache,
+                fileTailCache,
+                isOrcStripePrefetchEnabled(session, stripePrefetchEnabled) ? prefetchExecutor : Optional.empty(),
+                maxPrefetchStripeSize,
+                isOrcLateMaterializationEnabled(session, lateMaterializationEnabled),
+                s3RangeReadExecutor));
     }
 
     public static OrcPageSource createOrcPageSource(MetadataReader metadataReader,
@@ -140,14 +198,33 @@ public class OrcPageSourceFactory
             TypeManager typeManager,
             DataSize maxMergeDistance,
             DataSize maxBufferSize,
-            DataSize streamBufferSize)
+            DataSize streamBufferSize,
+            OrcDataCache dataCache,
+            OrcFileTailCache fileTailCache,
+            Optional<Executor> prefetchExecutor,
+            DataSize maxPrefetchStripeSize,
+            boolean lateMaterializationEnabled,
+            Optional<Executor> s3RangeReadExecutor)
     {
         OrcDataSource orcDataSource;
+        long modificationTime;
         try {
             FileSystem fileSystem = path.getFileSystem(configuration);
-            long size = fileSystem.getFileStatus(path).getLen();
+            FileStatus fileStatus = fileSystem.getFileStatus(path);
+            modificationTime = fileStatus.getModificationTime();
             FSDataInputStream inputStream = fileSystem.open(path);
-            orcDataSource = new HdfsOrcDataSource(path.toString(), size, maxMergeDistance, maxBufferSize, streamBufferSize, inputStream);
+            // ranged GETs have a high fixed latency, so disk ranges on S3 are read concurrently
+            Optional<Executor> rangeReadExecutor = fileSystem instanceof PrestoS3FileSystem ? s3RangeReadExecutor : Optional.empty();
+            orcDataSource = new HdfsOrcDataSource(
+                    path.toString(),
+                    fileStatus.getLen(),
+                    modificationTime,
+                    maxMergeDistance,
+                    maxBufferSize,
+                    streamBufferSize,
+                    inputStream,
+                    dataCache,
+                    rangeReadExecutor);
         }
         catch (Exception e) {
             if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
@@ -170,19 +247,21 @@ public class OrcPageSourceFactory
         OrcPredicate predicate = new TupleDomainOrcPredicate<>(effectivePredicate, columnReferences.build());
 
         try {
-            OrcReader reader = new OrcReader(orcDataSource, metadataReader);
+            OrcReader reader = fileTailCache.createOrcReader(orcDataSource, metadataReader, path.toString(), modificationTime);
             OrcRecordReader recordReader = reader.createRecordReader(
                     includedColumns.build(),
                     predicate,
                     start,
                     length,
-                    hiveStorageTimeZone);
+                    hiveStorageTimeZone,
+                    prefetchExecutor,
+                    maxPrefetchStripeSize);
 
             return new OrcPageSource(
                     recordReader,
-                    orcDataSource,
                     partitionKeys,
                     columns,
+                    lateMaterializationEnabled ? effectivePredicate : TupleDomain.all(),
                     hiveStorageTimeZone,
                     typeManager);
         }
@@ -0,0 +1,418 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.orc.BooleanVector;
+import com.facebook.presto.orc.DoubleVector;
+import com.facebook.presto.orc.LongVector;
+import com.facebook.presto.orc.SliceVector;
+import com.facebook.presto.orc.Vector;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Marker;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.Slice;
+
+import java.util.List;
+
+import static com.facebook.presto.orc.Vector.MAX_VECTOR_LENGTH;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Evaluates a domain on the values of a vector.  The ranges of the domain
+ * are unpacked into primitive bounds up front, so selecting the positions
+ * of a batch does not box the values or allocate markers.
+ */
+abstract class VectorFilter
+{
+    protected final boolean nullAllowed;
+
+    protected VectorFilter(boolean nullAllowed)
+    {
+        this.nullAllowed = nullAllowed;
+    }
+
+    /**
+     * Returns the filter for a domain on a column of the specified type,
+     * or null if the values of the type are not filtered.
+     */
+    public static VectorFilter create(Type type, Domain domain)
+    {
+        checkNotNull(type, "type is null");
+        checkNotNull(domain, "domain is null");
+        if (BOOLEAN.equals(type)) {
+            return new BooleanVectorFilter(domain);
+        }
+        if (BIGINT.equals(type) || DATE.equals(type)) {
+            return new LongVectorFilter(domain);
+        }
+        if (DOUBLE.equals(type)) {
+            return new DoubleVectorFilter(domain);
+        }
+        if (VARCHAR.equals(type) || VARBINARY.equals(type)) {
+            return new SliceVectorFilter(domain);
+        }
+        return null;
+    }
+
+    public abstract Vector createVector();
+
+    /**
+     * Keeps the positions whose value is in the domain, preserving their order.
+     *
+     * @return the number of positions kept at the start of {@code positions}
+     */
+    public abstract int filter(Vector vector, int[] positions, int positionCount);
+
+    private static class BooleanVectorFilter
+            extends VectorFilter
+    {
+        private final boolean trueAllowed;
+        private final boolean falseAllowed;
+
+        public BooleanVectorFilter(Domain domain)
+        {
+            super(domain.isNullAllowed());
+            trueAllowed = domain.includesValue(true);
+            falseAllowed = domain.includesValue(false);
+        }
+
+        @Override
+        public Vector createVector()
+        {
+            return new BooleanVector(MAX_VECTOR_LENGTH);
+        }
+
+        @Override
+        public int filter(Vector vector, int[] positions, int positionCount)
+        {
+            BooleanVector booleanVector = (BooleanVector) vector;
+            int matchingCount = 0;
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                boolean matches;
+                if (booleanVector.isNull[position]) {
+                    matches = nullAllowed;
+                }
+                else {
+                    matches = booleanVector.vector[position] ? trueAllowed : falseAllowed;
+                }
+                if (matches) {
+                    positions[matchingCount] = position;
+                    matchingCount++;
+                }
+            }
+            return matchingCount;
+        }
+    }
+
+    private static class LongVectorFilter
+            extends VectorFilter
+    {
+        // inclusive bounds of the sorted and disjoint ranges of the domain
+        private final long[] lows;
+        private final long[] highs;
+        private final int rangeCount;
+
+        public LongVectorFilter(Domain domain)
+        {
+            super(domain.isNullAllowed());
+            List<Range> ranges = domain.getRanges().getRanges();
+            lows = new long[ranges.size()];
+            highs = new long[ranges.size()];
+            int count = 0;
+            for (Range range : ranges) {
+                Marker low = range.getLow();
+                Marker high = range.getHigh();
+                long lowValue = low.isLowerUnbounded() ? Long.MIN_VALUE : (Long) low.getValue();
+                long highValue = high.isUpperUnbounded() ? Long.MAX_VALUE : (Long) high.getValue();
+                if (!low.isLowerUnbounded() && low.getBound() == Marker.Bound.ABOVE) {
+                    if (lowValue == Long.MAX_VALUE) {
+                        continue;
+                    }
+                    lowValue++;
+                }
+                if (!high.isUpperUnbounded() && high.getBound() == Marker.Bound.BELOW) {
+                    if (highValue == Long.MIN_VALUE) {
+                        continue;
+                    }
+                    highValue--;
+                }
+                if (lowValue <= highValue) {
+                    lows[count] = lowValue;
+                    highs[count] = highValue;
+                    count++;
+                }
+            }
+            rangeCount = count;
+        }
+
+        @Override
+        public Vector createVector()
+        {
+            return new LongVector(MAX_VECTOR_LENGTH);
+        }
+
+        @Override
+        public int filter(Vector vector, int[] positions, int positionCount)
+        {
+            LongVector longVector = (LongVector) vector;
+            int matchingCount = 0;
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                boolean matches;
+                if (longVector.isNull[position]) {
+                    matches = nullAllowed;
+                }
+                else {
+                    matches = includes(longVector.vector[position]);
+                }
+                if (matches) {
+                    positions[matchingCount] = position;
+                    matchingCount++;
+                }
+            }
+            return matchingCount;
+        }
+
+        private boolean includes(long value)
+        {
+            // find the last range starting at or before the value
+            int low = 0;
+            int high = rangeCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (lows[middle] <= value) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle - 1;
+                }
+            }
+            return high >= 0 && value <= highs[high];
+        }
+    }
+
+    private static class DoubleVectorFilter
+            extends VectorFilter
+    {
+        // the values are compared with Double.compare, which orders NaN above
+        // every other value like the markers of the domain do; an unbounded
+        // high is therefore represented by an inclusive NaN
+        private final double[] lows;
+        private final boolean[] lowInclusive;
+        private final double[] highs;
+        private final boolean[] highInclusive;
+
+        public DoubleVectorFilter(Domain domain)
+        {
+            super(domain.isNullAllowed());
+            List<Range> ranges = domain.getRanges().getRanges();
+            lows = new double[ranges.size()];
+            lowInclusive = new boolean[ranges.size()];
+            highs = new double[ranges.size()];
+            highInclusive = new boolean[ranges.size()];
+            for (int i = 0; i < ranges.size(); i++) {
+                Marker low = ranges.get(i).getLow();
+                if (low.isLowerUnbounded()) {
+                    lows[i] = Double.NEGATIVE_INFINITY;
+                    lowInclusive[i] = true;
+                }
+                else {
+                    lows[i] = (Double) low.getValue();
+                    lowInclusive[i] = low.getBound() == Marker.Bound.EXACTLY;
+                }
+                Marker high = ranges.get(i).getHigh();
+                if (high.isUpperUnbounded()) {
+                    highs[i] = Double.NaN;
+                    highInclusive[i] = true;
+                }
+                else {
+                    highs[i] = (Double) high.getValue();
+                    highInclusive[i] = high.getBound() == Marker.Bound.EXACTLY;
+                }
+            }
+        }
+
+        @Override
+        public Vector createVector()
+        {
+            return new DoubleVector(MAX_VECTOR_LENGTH);
+        }
+
+        @Override
+        public int filter(Vector vector, int[] positions, int positionCount)
+        {
+            DoubleVector doubleVector = (DoubleVector) vector;
+            int matchingCount = 0;
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                boolean matches;
+                if (doubleVector.isNull[position]) {
+                    matches = nullAllowed;
+                }
+                else {
+                    matches = includes(doubleVector.vector[position]);
+                }
+                if (matches) {
+                    positions[matchingCount] = position;
+                    matchingCount++;
+                }
+            }
+            return matchingCount;
+        }
+
+        private boolean includes(double value)
+        {
+            // find the last range starting at or before the value
+            int low = 0;
+            int high = lows.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (Double.compare(lows[middle], value) <= 0) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle - 1;
+                }
+            }
+            if (high < 0) {
+                return false;
+            }
+            int compareLow = Double.compare(value, lows[high]);
+            int compareHigh = Double.compare(value, highs[high]);
+            return (compareLow > 0 || (compareLow == 0 && lowInclusive[high])) &&
+                    (compareHigh < 0 || (compareHigh == 0 && highInclusive[high]));
+        }
+    }
+
+    private static class SliceVectorFilter
+            extends VectorFilter
+    {
+        // a null low or high is unbounded
+        private final Slice[] lows;
+        private final boolean[] lowInclusive;
+        private final Slice[] highs;
+        private final boolean[] highInclusive;
+
+        // the dictionary values are only evaluated once per stripe
+        private Slice[] dictionary;
+        private boolean[] dictionaryMatches;
+
+        public SliceVectorFilter(Domain domain)
+        {
+            super(domain.isNullAllowed());
+            List<Range> ranges = domain.getRanges().getRanges();
+            lows = new Slice[ranges.size()];
+            lowInclusive = new boolean[ranges.size()];
+            highs = new Slice[ranges.size()];
+            highInclusive = new boolean[ranges.size()];
+            for (int i = 0; i < ranges.size(); i++) {
+                Marker low = ranges.get(i).getLow();
+                if (!low.isLowerUnbounded()) {
+                    lows[i] = (Slice) low.getValue();
+                    lowInclusive[i] = low.getBound() == Marker.Bound.EXACTLY;
+                }
+                Marker high = ranges.get(i).getHigh();
+                if (!high.isUpperUnbounded()) {
+                    highs[i] = (Slice) high.getValue();
+                    highInclusive[i] = high.getBound() == Marker.Bound.EXACTLY;
+                }
+            }
+        }
+
+        @Override
+        public Vector createVector()
+        {
+            return new SliceVector(MAX_VECTOR_LENGTH);
+        }
+
+        @Override
+        public int filter(Vector vector, int[] positions, int positionCount)
+        {
+            SliceVector sliceVector = (SliceVector) vector;
+            int matchingCount = 0;
+            if (sliceVector.dictionary != null) {
+                boolean[] matches = getDictionaryMatches(sliceVector.dictionary);
+                for (int i = 0; i < positionCount; i++) {
+                    int position = positions[i];
+                    if (matches[sliceVector.ids[position]]) {
+                        positions[matchingCount] = position;
+                        matchingCount++;
+                    }
+                }
+                return matchingCount;
+            }
+
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                if (includes(sliceVector.vector[position])) {
+                    positions[matchingCount] = position;
+                    matchingCount++;
+                }
+            }
+            return matchingCount;
+        }
+
+        private boolean[] getDictionaryMatches(Slice[] newDictionary)
+        {
+            if (newDictionary != dictionary) {
+                boolean[] matches = new boolean[newDictionary.length];
+                for (int i = 0; i < newDictionary.length; i++) {
+                    matches[i] = includes(newDictionary[i]);
+                }
+                dictionary = newDictionary;
+                dictionaryMatches = matches;
+            }
+            return dictionaryMatches;
+        }
+
+        private boolean includes(Slice value)
+        {
+            if (value == null) {
+                return nullAllowed;
+            }
+
+            // find the last range starting at or before the value
+            int low = 0;
+            int high = lows.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (lows[middle] == null || lows[middle].compareTo(value) <= 0) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle - 1;
+                }
+            }
+            if (high < 0) {
+                return false;
+            }
+            if (lows[high] != null && !lowInclusive[high] && lows[high].compareTo(value) == 0) {
+                return false;
+            }
+            if (highs[high] == null) {
+                return true;
+            }
+            int compareHigh = value.compareTo(highs[high]);
+            return compareHigh < 0 || (compareHigh == 0 && highInclusive[high]);
+        }
+    }
+}
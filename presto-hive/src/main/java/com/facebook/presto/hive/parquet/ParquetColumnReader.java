@@ -0,0 +1,275 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.spi.PrestoException;
+import io.airlift.slice.Slice;
+import parquet.column.ColumnDescriptor;
+import parquet.column.Dictionary;
+import parquet.column.Encoding;
+import parquet.column.page.DictionaryPage;
+import parquet.column.page.Page;
+import parquet.column.page.PageReader;
+import parquet.column.values.ValuesReader;
+import parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+import java.io.IOException;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_BAD_DATA;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static parquet.column.ValuesType.DEFINITION_LEVEL;
+import static parquet.column.ValuesType.REPETITION_LEVEL;
+import static parquet.column.ValuesType.VALUES;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.DOUBLE;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.FLOAT;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.INT32;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.INT64;
+
+/**
+ * Reads the values of a single non-repeated column of a row group in batches. The pages
+ * are decoded with the Parquet value readers directly into vectors, so no records are
+ * materialized. Values of dictionary encoded pages can be returned as dictionary ids.
+ */
+public class ParquetColumnReader
+{
+    private final ColumnDescriptor descriptor;
+    private final PrimitiveTypeName typeName;
+    private final int maxDefinitionLevel;
+
+    private PageReader pageReader;
+    private Dictionary dictionary;
+    // decoded dictionary values with a trailing null entry
+    private Slice[] dictionaryValues;
+
+    private ValuesReader definitionReader;
+    private ValuesReader dataReader;
+    private boolean dictionaryEncoded;
+    private int remainingValuesInPage;
+
+    private int readOffset;
+    private int nextBatchSize;
+
+    public ParquetColumnReader(ColumnDescriptor descriptor)
+    {
+        this.descriptor = checkNotNull(descriptor, "descriptor is null");
+        checkState(descriptor.getMaxRepetitionLevel() == 0, "repeated columns are not supported");
+        this.typeName = descriptor.getType();
+        this.maxDefinitionLevel = descriptor.getMaxDefinitionLevel();
+    }
+
+    public ColumnDescriptor getDescriptor()
+    {
+        return descriptor;
+    }
+
+    /**
+     * Starts reading the column chunk of the next row group.
+     */
+    public void setPageReader(PageReader pageReader)
+            throws IOException
+    {
+        this.pageReader = checkNotNull(pageReader, "pageReader is null");
+
+        DictionaryPage dictionaryPage = pageReader.readDictionaryPage();
+        if (dictionaryPage != null) {
+            dictionary = dictionaryPage.getEncoding().initDictionary(descriptor, dictionaryPage);
+        }
+        else {
+            dictionary = null;
+        }
+        dictionaryValues = null;
+
+        definitionReader = null;
+        dataReader = null;
+        remainingValuesInPage = 0;
+        readOffset = 0;
+        nextBatchSize = 0;
+    }
+
+    /**
+     * Declares the size of the next batch. Batches that are never read are skipped.
+     */
+    public void prepareNextRead(int batchSize)
+    {
+        readOffset += nextBatchSize;
+        nextBatchSize = batchSize;
+    }
+
+    public void readBooleanVector(boolean[] isNull, boolean[] vector)
+            throws IOException
+    {
+        skipPendingValues();
+        for (int i = 0; i < nextBatchSize; i++) {
+            isNull[i] = readNull();
+            if (!isNull[i]) {
+                vector[i] = dataReader.readBoolean();
+            }
+        }
+        nextBatchSize = 0;
+    }
+
+    public void readLongVector(boolean[] isNull, long[] vector)
+            throws IOException
+    {
+        skipPendingValues();
+        for (int i = 0; i < nextBatchSize; i++) {
+            isNull[i] = readNull();
+            if (isNull[i]) {
+                continue;
+            }
+            if (typeName == INT32) {
+                vector[i] = dataReader.readInteger();
+            }
+            else if (typeName == INT64) {
+                vector[i] = dataReader.readLong();
+            }
+            else {
+                throw new IllegalStateException("Unexpected type for long column: " + typeName);
+            }
+        }
+        nextBatchSize = 0;
+    }
+
+    public void readDoubleVector(boolean[] isNull, double[] vector)
+            throws IOException
+    {
+        skipPendingValues();
+        for (int i = 0; i < nextBatchSize; i++) {
+            isNull[i] = readNull();
+            if (isNull[i]) {
+                continue;
+            }
+            if (typeName == DOUBLE) {
+                vector[i] = dataReader.readDouble();
+            }
+            else if (typeName == FLOAT) {
+                vector[i] = dataReader.readFloat();
+            }
+            else {
+                throw new IllegalStateException("Unexpected type for double column: " + typeName);
+            }
+        }
+        nextBatchSize = 0;
+    }
+
+    /**
+     * Reads the next batch of binary values into the vector. When every value of the batch
+     * comes from dictionary encoded pages, the ids of the values in {@link #getDictionary()}
+     * are also stored and true is returned.
+     */
+    public boolean readSliceVector(Slice[] vector, int[] ids)
+            throws IOException
+    {
+        skipPendingValues();
+        Slice[] dictionary = getDictionary();
+        boolean allDictionaryIds = dictionary != null;
+        for (int i = 0; i < nextBatchSize; i++) {
+            if (readNull()) {
+                vector[i] = null;
+                if (allDictionaryIds) {
+                    ids[i] = dictionary.length - 1;
+                }
+            }
+            else if (dictionaryEncoded) {
+                int id = dataReader.readValueDictionaryId();
+                vector[i] = dictionary[id];
+                ids[i] = id;
+            }
+            else {
+                // a chunk falls back to plain pages when its dictionary grows too large
+                allDictionaryIds = false;
+                vector[i] = wrappedBuffer(dataReader.readBytes().getBytes());
+            }
+        }
+        nextBatchSize = 0;
+        return allDictionaryIds;
+    }
+
+    /**
+     * Returns the decoded dictionary of the current column chunk with a trailing null
+     * entry, or null if the chunk is not dictionary encoded. The dictionary is not modified
+     * after it is handed out, so it may be retained.
+     */
+    public Slice[] getDictionary()
+    {
+        if (dictionary == null) {
+            return null;
+        }
+        if (dictionaryValues == null) {
+            Slice[] values = new Slice[dictionary.getMaxId() + 2];
+            for (int id = 0; id <= dictionary.getMaxId(); id++) {
+                values[id] = wrappedBuffer(dictionary.decodeToBinary(id).getBytes());
+            }
+            dictionaryValues = values;
+        }
+        return dictionaryValues;
+    }
+
+    private void skipPendingValues()
+            throws IOException
+    {
+        checkState(pageReader != null, "column chunk not set");
+        for (int i = 0; i < readOffset; i++) {
+            if (!readNull()) {
+                dataReader.skip();
+            }
+        }
+        readOffset = 0;
+    }
+
+    // consumes the definition level of the next value, moving to the next page when needed
+    private boolean readNull()
+            throws IOException
+    {
+        if (remainingValuesInPage == 0) {
+            readNextPage();
+        }
+        remainingValuesInPage--;
+        return maxDefinitionLevel > 0 && definitionReader.readInteger() < maxDefinitionLevel;
+    }
+
+    private void readNextPage()
+            throws IOException
+    {
+        Page page = pageReader.readPage();
+        if (page == null) {
+            throw new PrestoException(HIVE_BAD_DATA, "Unexpected end of Parquet column " + descriptor);
+        }
+
+        int valueCount = page.getValueCount();
+        byte[] bytes = page.getBytes().toByteArray();
+
+        // the page contains the repetition levels, the definition levels and the values
+        ValuesReader repetitionReader = page.getRlEncoding().getValuesReader(descriptor, REPETITION_LEVEL);
+        repetitionReader.initFromPage(valueCount, bytes, 0);
+        definitionReader = page.getDlEncoding().getValuesReader(descriptor, DEFINITION_LEVEL);
+        definitionReader.initFromPage(valueCount, bytes, repetitionReader.getNextOffset());
+
+        Encoding valueEncoding = page.getValueEncoding();
+        dictionaryEncoded = valueEncoding.usesDictionary();
+        if (dictionaryEncoded) {
+            if (dictionary == null) {
+                throw new PrestoException(HIVE_BAD_DATA, "Dictionary encoded page without a dictionary in Parquet column " + descriptor);
+            }
+            dataReader = valueEncoding.getDictionaryBasedValuesReader(descriptor, VALUES, dictionary);
+        }
+        else {
+            dataReader = valueEncoding.getValuesReader(descriptor, VALUES);
+        }
+        dataReader.initFromPage(valueCount, bytes, definitionReader.getNextOffset());
+        remainingValuesInPage = valueCount;
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.hive.HiveUtil;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.LazyBlockLoader;
+import com.facebook.presto.spi.block.LazyFixedWidthBlock;
+import com.facebook.presto.spi.block.LazySliceArrayBlock;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.block.SliceArrayBlock;
+import com.facebook.presto.spi.type.FixedWidthType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeManager;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import parquet.column.ColumnDescriptor;
+import parquet.column.page.PageReadStore;
+import parquet.hadoop.ParquetFileReader;
+import parquet.hadoop.metadata.BlockMetaData;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
+import static com.facebook.presto.hive.HiveUtil.bigintPartitionKey;
+import static com.facebook.presto.hive.HiveUtil.booleanPartitionKey;
+import static com.facebook.presto.hive.HiveUtil.doublePartitionKey;
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Maps.uniqueIndex;
+import static io.airlift.slice.Slices.wrappedBooleanArray;
+import static io.airlift.slice.Slices.wrappedDoubleArray;
+import static io.airlift.slice.Slices.wrappedLongArray;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class ParquetPageSource
+        implements ConnectorPageSource
+{
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final int NULL_ENTRY_SIZE = 0;
+
+    private final ParquetFileReader fileReader;
+    private final long splitLength;
+    private final long totalRowCount;
+
+    private final List<String> columnNames;
+    private final List<Type> types;
+
+    private final Block[] constantBlocks;
+    private final ParquetColumnReader[] columnReaders;
+
+    // dictionary blocks of the current row group, shared by all batches of the row group
+    private final SliceArrayBlock[] dictionaryBlocks;
+    private final Slice[][] dictionaries;
+
+    private long completedRowCount;
+    private long remainingRowsInRowGroup;
+    private long readTimeNanos;
+
+    private int batchId;
+    private boolean closed;
+
+    public ParquetPageSource(
+            ParquetFileReader fileReader,
+            List<BlockMetaData> rowGroups,
+            long splitLength,
+            List<HivePartitionKey> partitionKeys,
+            List<HiveColumnHandle> columns,
+            Map<HiveColumnHandle, ColumnDescriptor> columnDescriptors,
+            TypeManager typeManager)
+    {
+        this.fileReader = checkNotNull(fileReader, "fileReader is null");
+        checkNotNull(rowGroups, "rowGroups is null");
+        this.splitLength = splitLength;
+        checkNotNull(columnDescriptors, "columnDescriptors is null");
+
+        long totalRowCount = 0;
+        for (BlockMetaData rowGroup : rowGroups) {
+            totalRowCount += rowGroup.getRowCount();
+        }
+        this.totalRowCount = totalRowCount;
+
+        Map<String, HivePartitionKey> partitionKeysByName = uniqueIndex(checkNotNull(partitionKeys, "partitionKeys is null"), HivePartitionKey::getName);
+
+        int size = checkNotNull(columns, "columns is null").size();
+        this.constantBlocks = new Block[size];
+        this.columnReaders = new ParquetColumnReader[size];
+        this.dictionaryBlocks = new SliceArrayBlock[size];
+        this.dictionaries = new Slice[size][];
+
+        ImmutableList.Builder<String> namesBuilder = ImmutableList.builder();
+        ImmutableList.Builder<Type> typesBuilder = ImmutableList.builder();
+        for (int columnIndex = 0; columnIndex < columns.size(); columnIndex++) {
+            HiveColumnHandle column = columns.get(columnIndex);
+
+            String name = column.getName();
+            Type type = typeManager.getType(column.getTypeSignature());
+
+            namesBuilder.add(name);
+            typesBuilder.add(type);
+
+            if (column.isPartitionKey()) {
+                HivePartitionKey partitionKey = partitionKeysByName.get(name);
+                checkArgument(partitionKey != null, "No value provided for partition key %s", name);
+                constantBlocks[columnIndex] = createPartitionKeyBlock(type, name, partitionKey);
+            }
+            else if (!columnDescriptors.containsKey(column)) {
+                // the column does not exist in the file
+                BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), 1, NULL_ENTRY_SIZE);
+                blockBuilder.appendNull();
+                constantBlocks[columnIndex] = blockBuilder.build();
+            }
+            else {
+                columnReaders[columnIndex] = new ParquetColumnReader(columnDescriptors.get(column));
+            }
+        }
+        types = typesBuilder.build();
+        columnNames = namesBuilder.build();
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return splitLength;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        if (totalRowCount == 0) {
+            return closed ? splitLength : 0;
+        }
+        return (long) (splitLength * ((double) completedRowCount / totalRowCount));
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        try {
+            batchId++;
+            if (remainingRowsInRowGroup == 0 && !advanceToNextRowGroup()) {
+                close();
+                return null;
+            }
+
+            int batchSize = (int) min(MAX_BATCH_SIZE, remainingRowsInRowGroup);
+            remainingRowsInRowGroup -= batchSize;
+            completedRowCount += batchSize;
+
+            Block[] blocks = new Block[columnReaders.length];
+            for (int fieldId = 0; fieldId < blocks.length; fieldId++) {
+                Type type = types.get(fieldId);
+                if (constantBlocks[fieldId] != null) {
+                    blocks[fieldId] = new RunLengthEncodedBlock(constantBlocks[fieldId], batchSize);
+                    continue;
+                }
+
+                ParquetColumnReader columnReader = columnReaders[fieldId];
+                columnReader.prepareNextRead(batchSize);
+                if (BOOLEAN.equals(type)) {
+                    blocks[fieldId] = new LazyFixedWidthBlock(BOOLEAN.getFixedSize(), batchSize, new LazyBooleanBlockLoader(columnReader, batchSize));
+                }
+                else if (BIGINT.equals(type)) {
+                    blocks[fieldId] = new LazyFixedWidthBlock(BIGINT.getFixedSize(), batchSize, new LazyLongBlockLoader(columnReader, batchSize));
+                }
+                else if (DOUBLE.equals(type)) {
+                    blocks[fieldId] = new LazyFixedWidthBlock(DOUBLE.getFixedSize(), batchSize, new LazyDoubleBlockLoader(columnReader, batchSize));
+                }
+                else if (VARCHAR.equals(type)) {
+                    blocks[fieldId] = new LazySliceArrayBlock(batchSize, new LazySliceBlockLoader(fieldId, columnReader, batchSize));
+                }
+                else {
+                    throw new PrestoException(NOT_SUPPORTED, "Unsupported column type: " + type);
+                }
+            }
+            return new Page(batchSize, blocks);
+        }
+        catch (PrestoException e) {
+            closeWithSuppression(e);
+            throw e;
+        }
+        catch (IOException | RuntimeException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_CURSOR_ERROR, e);
+        }
+    }
+
+    private boolean advanceToNextRowGroup()
+            throws IOException
+    {
+        // row groups without rows do not produce pages
+        while (remainingRowsInRowGroup == 0) {
+            long start = System.nanoTime();
+            PageReadStore rowGroup = fileReader.readNextRowGroup();
+            readTimeNanos += System.nanoTime() - start;
+            if (rowGroup == null) {
+                return false;
+            }
+
+            remainingRowsInRowGroup = rowGroup.getRowCount();
+            for (int fieldId = 0; fieldId < columnReaders.length; fieldId++) {
+                ParquetColumnReader columnReader = columnReaders[fieldId];
+                if (columnReader != null) {
+                    columnReader.setPageReader(rowGroup.getPageReader(columnReader.getDescriptor()));
+                    dictionaries[fieldId] = null;
+                    dictionaryBlocks[fieldId] = null;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            fileReader.close();
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_CURSOR_ERROR, e);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("columnNames", columnNames)
+                .add("types", types)
+                .toString();
+    }
+
+    protected void closeWithSuppression(Throwable throwable)
+    {
+        checkNotNull(throwable, "throwable is null");
+        try {
+            close();
+        }
+        catch (RuntimeException e) {
+            throwable.addSuppressed(e);
+        }
+    }
+
+    private static Block createPartitionKeyBlock(Type type, String name, HivePartitionKey partitionKey)
+    {
+        byte[] bytes = partitionKey.getValue().getBytes(UTF_8);
+
+        BlockBuilder blockBuilder;
+        if (type instanceof FixedWidthType) {
+            blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), 1);
+        }
+        else {
+            blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), 1, bytes.length);
+        }
+
+        if (HiveUtil.isHiveNull(bytes)) {
+            blockBuilder.appendNull();
+        }
+        else if (type.equals(BOOLEAN)) {
+            BOOLEAN.writeBoolean(blockBuilder, booleanPartitionKey(partitionKey.getValue(), name));
+        }
+        else if (type.equals(BIGINT)) {
+            BIGINT.writeLong(blockBuilder, bigintPartitionKey(partitionKey.getValue(), name));
+        }
+        else if (type.equals(DOUBLE)) {
+            DOUBLE.writeDouble(blockBuilder, doublePartitionKey(partitionKey.getValue(), name));
+        }
+        else if (type.equals(VARCHAR)) {
+            VARCHAR.writeSlice(blockBuilder, Slices.wrappedBuffer(bytes));
+        }
+        else {
+            throw new PrestoException(NOT_SUPPORTED, format("Unsupported column type %s for partition key: %s", type.getDisplayName(), name));
+        }
+        return blockBuilder.build();
+    }
+
+    private final class LazyBooleanBlockLoader
+            implements LazyBlockLoader<LazyFixedWidthBlock>
+    {
+        private final int expectedBatchId = batchId;
+        private final ParquetColumnReader columnReader;
+        private final int batchSize;
+
+        public LazyBooleanBlockLoader(ParquetColumnReader columnReader, int batchSize)
+        {
+            this.columnReader = columnReader;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void load(LazyFixedWidthBlock block)
+        {
+            checkState(batchId == expectedBatchId);
+            try {
+                boolean[] isNull = new boolean[batchSize];
+                boolean[] vector = new boolean[batchSize];
+                columnReader.readBooleanVector(isNull, vector);
+                block.setNullVector(isNull);
+                block.setRawSlice(wrappedBooleanArray(vector, 0, batchSize));
+            }
+            catch (IOException e) {
+                throw new PrestoException(HIVE_CURSOR_ERROR, e);
+            }
+        }
+    }
+
+    private final class LazyLongBlockLoader
+            implements LazyBlockLoader<LazyFixedWidthBlock>
+    {
+        private final int expectedBatchId = batchId;
+        private final ParquetColumnReader columnReader;
+        private final int batchSize;
+
+        public LazyLongBlockLoader(ParquetColumnReader columnReader, int batchSize)
+        {
+            this.columnReader = columnReader;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void load(LazyFixedWidthBlock block)
+        {
+            checkState(batchId == expectedBatchId);
+            try {
+                boolean[] isNull = new boolean[batchSize];
+                long[] vector = new long[batchSize];
+                columnReader.readLongVector(isNull, vector);
+                block.setNullVector(isNull);
+                block.setRawSlice(wrappedLongArray(vector, 0, batchSize));
+            }
+            catch (IOException e) {
+                throw new PrestoException(HIVE_CURSOR_ERROR, e);
+            }
+        }
+    }
+
+    private final class LazyDoubleBlockLoader
+            implements LazyBlockLoader<LazyFixedWidthBlock>
+    {
+        private final int expectedBatchId = batchId;
+        private final ParquetColumnReader columnReader;
+        private final int batchSize;
+
+        public LazyDoubleBlockLoader(ParquetColumnReader columnReader, int batchSize)
+        {
+            this.columnReader = columnReader;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void load(LazyFixedWidthBlock block)
+        {
+            checkState(batchId == expectedBatchId);
+            try {
+                boolean[] isNull = new boolean[batchSize];
+                double[] vector = new double[batchSize];
+                columnReader.readDoubleVector(isNull, vector);
+                block.setNullVector(isNull);
+                block.setRawSlice(wrappedDoubleArray(vector, 0, batchSize));
+            }
+            catch (IOException e) {
+                throw new PrestoException(HIVE_CURSOR_ERROR, e);
+            }
+        }
+    }
+
+    private final class LazySliceBlockLoader
+            implements LazyBlockLoader<LazySliceArrayBlock>
+    {
+        private final int expectedBatchId = batchId;
+        private final int fieldId;
+        private final ParquetColumnReader columnReader;
+        private final int batchSize;
+
+        public LazySliceBlockLoader(int fieldId, ParquetColumnReader columnReader, int batchSize)
+        {
+            this.fieldId = fieldId;
+            this.columnReader = columnReader;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void load(LazySliceArrayBlock block)
+        {
+            checkState(batchId == expectedBatchId);
+            try {
+                Slice[] vector = new Slice[batchSize];
+                int[] ids = new int[batchSize];
+                if (!columnReader.readSliceVector(vector, ids)) {
+                    block.setValues(vector);
+                    return;
+                }
+
+                Slice[] dictionary = columnReader.getDictionary();
+                if (dictionaries[fieldId] != dictionary) {
+                    dictionaries[fieldId] = dictionary;
+                    dictionaryBlocks[fieldId] = new SliceArrayBlock(dictionary.length, dictionary);
+                }
+                block.setValues(dictionaryBlocks[fieldId], ids);
+            }
+            catch (IOException e) {
+                throw new PrestoException(HIVE_CURSOR_ERROR, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Primitives;
+import parquet.column.ColumnDescriptor;
+import parquet.column.statistics.BooleanStatistics;
+import parquet.column.statistics.DoubleStatistics;
+import parquet.column.statistics.FloatStatistics;
+import parquet.column.statistics.IntStatistics;
+import parquet.column.statistics.LongStatistics;
+import parquet.column.statistics.Statistics;
+import parquet.hadoop.metadata.BlockMetaData;
+import parquet.hadoop.metadata.ColumnChunkMetaData;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Matches the effective predicate against the min/max statistics of the column chunks of
+ * a row group. Statistics of binary columns are ignored, because older Parquet writers
+ * compute them with a signed byte comparison that does not match the order of varchar.
+ */
+public class TupleDomainParquetPredicate<C>
+{
+    private final TupleDomain<C> effectivePredicate;
+    private final List<ColumnReference<C>> columnReferences;
+
+    public TupleDomainParquetPredicate(TupleDomain<C> effectivePredicate, List<ColumnReference<C>> columnReferences)
+    {
+        this.effectivePredicate = checkNotNull(effectivePredicate, "effectivePredicate is null");
+        this.columnReferences = ImmutableList.copyOf(checkNotNull(columnReferences, "columnReferences is null"));
+    }
+
+    public boolean matches(BlockMetaData rowGroup)
+    {
+        ImmutableMap.Builder<C, Domain> domains = ImmutableMap.builder();
+        for (ColumnReference<C> columnReference : columnReferences) {
+            ColumnChunkMetaData columnChunk = getColumnChunk(rowGroup, columnReference.getDescriptor());
+            Statistics<?> statistics = columnChunk == null ? null : columnChunk.getStatistics();
+            domains.put(columnReference.getColumn(), getDomain(columnReference.getType(), rowGroup.getRowCount(), statistics));
+        }
+        return effectivePredicate.overlaps(TupleDomain.withColumnDomains(domains.build()));
+    }
+
+    @VisibleForTesting
+    public static Domain getDomain(Type type, long rowCount, Statistics<?> statistics)
+    {
+        Class<?> boxedJavaType = Primitives.wrap(type.getJavaType());
+        if (rowCount == 0) {
+            return Domain.none(boxedJavaType);
+        }
+
+        if (statistics == null || statistics.isEmpty()) {
+            return Domain.all(boxedJavaType);
+        }
+
+        // files written without null counts report a negative count
+        boolean hasNullValue = statistics.getNumNulls() != 0;
+
+        if (boxedJavaType == Boolean.class && statistics instanceof BooleanStatistics) {
+            BooleanStatistics booleanStatistics = (BooleanStatistics) statistics;
+            if (booleanStatistics.getMin() == booleanStatistics.getMax()) {
+                return Domain.create(SortedRangeSet.singleValue(booleanStatistics.getMin()), hasNullValue);
+            }
+        }
+        else if (boxedJavaType == Long.class && statistics instanceof IntStatistics) {
+            IntStatistics intStatistics = (IntStatistics) statistics;
+            return createDomain(hasNullValue, (long) intStatistics.getMin(), (long) intStatistics.getMax());
+        }
+        else if (boxedJavaType == Long.class && statistics instanceof LongStatistics) {
+            LongStatistics longStatistics = (LongStatistics) statistics;
+            return createDomain(hasNullValue, longStatistics.getMin(), longStatistics.getMax());
+        }
+        else if (boxedJavaType == Double.class && statistics instanceof FloatStatistics) {
+            FloatStatistics floatStatistics = (FloatStatistics) statistics;
+            return createDoubleDomain(hasNullValue, floatStatistics.getMin(), floatStatistics.getMax());
+        }
+        else if (boxedJavaType == Double.class && statistics instanceof DoubleStatistics) {
+            DoubleStatistics doubleStatistics = (DoubleStatistics) statistics;
+            return createDoubleDomain(hasNullValue, doubleStatistics.getMin(), doubleStatistics.getMax());
+        }
+        return Domain.create(SortedRangeSet.all(boxedJavaType), hasNullValue);
+    }
+
+    private static Domain createDoubleDomain(boolean hasNullValue, double min, double max)
+    {
+        if (Double.isNaN(min) || Double.isNaN(max)) {
+            return Domain.create(SortedRangeSet.all(Double.class), hasNullValue);
+        }
+        return createDomain(hasNullValue, min, max);
+    }
+
+    private static <T extends Comparable<T>> Domain createDomain(boolean hasNullValue, T min, T max)
+    {
+        return Domain.create(SortedRangeSet.of(Range.range(min, true, max, true)), hasNullValue);
+    }
+
+    private static ColumnChunkMetaData getColumnChunk(BlockMetaData rowGroup, ColumnDescriptor descriptor)
+    {
+        for (ColumnChunkMetaData columnChunk : rowGroup.getColumns()) {
+            if (Arrays.equals(columnChunk.getPath().toArray(), descriptor.getPath())) {
+                return columnChunk;
+            }
+        }
+        return null;
+    }
+
+    public static class ColumnReference<C>
+    {
+        private final C column;
+        private final ColumnDescriptor descriptor;
+        private final Type type;
+
+        public ColumnReference(C column, ColumnDescriptor descriptor, Type type)
+        {
+            this.column = checkNotNull(column, "column is null");
+            this.descriptor = checkNotNull(descriptor, "descriptor is null");
+            this.type = checkNotNull(type, "type is null");
+        }
+
+        public C getColumn()
+        {
+            return column;
+        }
+
+        public ColumnDescriptor getDescriptor()
+        {
+            return descriptor;
+        }
+
+        public Type getType()
+        {
+            return type;
+        }
+    }
+}
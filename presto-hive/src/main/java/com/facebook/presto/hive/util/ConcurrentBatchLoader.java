@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.util;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Loads batches on an executor, keeping up to {@code concurrency} batches loading ahead
+ * of the consumer. The loaded batches are returned in the order of the input batches.
+ * <p>
+ * The consumer blocks until the next batch is loaded, so the executor must not be bounded
+ * by the threads of the consumers, or the loads may never get to run.
+ * <p>
+ * This class is not thread safe.
+ */
+public class ConcurrentBatchLoader<T, R>
+        extends AbstractIterator<R>
+{
+    private final Iterator<T> batches;
+    private final Function<T, R> loader;
+    private final Executor executor;
+    private final int concurrency;
+    private final Queue<FutureTask<R>> loadingBatches = new ArrayDeque<>();
+
+    public ConcurrentBatchLoader(Iterator<T> batches, Function<T, R> loader, Executor executor, int concurrency)
+    {
+        this.batches = checkNotNull(batches, "batches is null");
+        this.loader = checkNotNull(loader, "loader is null");
+        this.executor = checkNotNull(executor, "executor is null");
+        checkArgument(concurrency >= 1, "concurrency must be at least 1");
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    protected R computeNext()
+    {
+        while (loadingBatches.size() < concurrency && batches.hasNext()) {
+            T batch = batches.next();
+            FutureTask<R> task = new FutureTask<>(() -> loader.apply(batch));
+            executor.execute(task);
+            loadingBatches.add(task);
+        }
+
+        FutureTask<R> task = loadingBatches.poll();
+        if (task == null) {
+            return endOfData();
+        }
+        try {
+            return task.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelLoadingBatches();
+            throw Throwables.propagate(e);
+        }
+        catch (ExecutionException e) {
+            cancelLoadingBatches();
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private void cancelLoadingBatches()
+    {
+        for (FutureTask<R> task : loadingBatches) {
+            task.cancel(true);
+        }
+        loadingBatches.clear();
+    }
+}
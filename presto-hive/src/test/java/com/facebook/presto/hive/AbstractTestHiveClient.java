@@ -25,11 +25,12 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorMetadata;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
+import com.facebook.presto.spi.ConnectorPageSink;
+import com.facebook.presto.spi.ConnectorPageSinkProvider;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.ConnectorPartition;
 import com.facebook.presto.spi.ConnectorPartitionResult;
-import com.facebook.presto.spi.ConnectorRecordSinkProvider;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
 import com.facebook.presto.spi.ConnectorSplitManager;
@@ -37,15 +38,17 @@ import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.RecordPageSource;
-import com.facebook.presto.spi.RecordSink;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
 import com.facebook.presto.spi.SerializableNativeValue;
 import com.facebook.presto.spi.TableNotFoundException;
 import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.ViewNotFoundException;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.SqlDate;
 import com.facebook.presto.spi.type.SqlTimestamp;
 import com.facebook.presto.spi.type.SqlVarbinary;
@@ -182,7 +185,7 @@ public abstract class AbstractTestHiveClient
     protected ConnectorMetadata metadata;
     protected ConnectorSplitManager splitManager;
     protected ConnectorPageSourceProvider pageSourceProvider;
-    protected ConnectorRecordSinkProvider recordSinkProvider;
+    protected ConnectorPageSinkProvider pageSinkProvider;
     protected ExecutorService executor;
 
     @BeforeClass
@@ -315,16 +318,18 @@ public abstract class AbstractTestHiveClient
                 new HadoopDirectoryLister(),
                 timeZone,
                 newDirectExecutorService(),
+                newDirectExecutorService(),
                 maxOutstandingSplits,
                 hiveClientConfig.getMinPartitionBatchSize(),
                 hiveClientConfig.getMaxPartitionBatchSize(),
+                hiveClientConfig.getPartitionLoaderConcurrency(),
                 hiveClientConfig.getMaxSplitSize(),
                 hiveClientConfig.getMaxInitialSplitSize(),
                 hiveClientConfig.getMaxInitialSplits(),
                 false,
                 false,
                 false);
-        recordSinkProvider = new HiveRecordSinkProvider(hdfsEnvironment);
+        pageSinkProvider = new HivePageSinkProvider(hiveClientConfig, hdfsEnvironment);
         pageSourceProvider = new HivePageSourceProvider(hiveClientConfig, hdfsEnvironment, DEFAULT_HIVE_RECORD_CURSOR_PROVIDER, DEFAULT_HIVE_DATA_STREAM_FACTORIES, TYPE_MANAGER);
     }
 
@@ -1255,19 +1260,17 @@ public abstract class AbstractTestHiveClient
         ConnectorOutputTableHandle outputHandle = metadata.beginCreateTable(SESSION, tableMetadata);
 
         // write the records
-        RecordSink sink = recordSinkProvider.getRecordSink(outputHandle);
-
-        sink.beginRecord(8);
-        sink.appendLong(2);
-        sink.finishRecord();
-
-        sink.beginRecord(5);
-        sink.appendLong(3);
-        sink.finishRecord();
-
-        sink.beginRecord(7);
-        sink.appendLong(4);
-        sink.finishRecord();
+        ConnectorPageSink sink = pageSinkProvider.createPageSink(outputHandle);
+
+        PageBuilder pageBuilder = new PageBuilder(ImmutableList.of(BIGINT));
+        BlockBuilder sampleWeightBlock = BIGINT.createBlockBuilder(new BlockBuilderStatus(), 3);
+        long[][] rows = {{2, 8}, {3, 5}, {4, 7}};
+        for (long[] row : rows) {
+            pageBuilder.declarePosition();
+            BIGINT.writeLong(pageBuilder.getBlockBuilder(0), row[0]);
+            BIGINT.writeLong(sampleWeightBlock, row[1]);
+        }
+        sink.appendPage(pageBuilder.build(), sampleWeightBlock.build());
 
         Collection<Slice> fragments = sink.commit();
 
@@ -1337,31 +1340,32 @@ public abstract class AbstractTestHiveClient
         ConnectorOutputTableHandle outputHandle = metadata.beginCreateTable(session, tableMetadata);
 
         // write the records
-        RecordSink sink = recordSinkProvider.getRecordSink(outputHandle);
-
-        sink.beginRecord(1);
-        sink.appendLong(1);
-        sink.appendString("hello".getBytes(UTF_8));
-        sink.appendLong(123);
-        sink.appendDouble(43.5);
-        sink.appendBoolean(true);
-        sink.finishRecord();
-
-        sink.beginRecord(1);
-        sink.appendLong(2);
-        sink.appendNull();
-        sink.appendNull();
-        sink.appendNull();
-        sink.appendNull();
-        sink.finishRecord();
-
-        sink.beginRecord(1);
-        sink.appendLong(3);
-        sink.appendString("bye".getBytes(UTF_8));
-        sink.appendLong(456);
-        sink.appendDouble(98.1);
-        sink.appendBoolean(false);
-        sink.finishRecord();
+        ConnectorPageSink sink = pageSinkProvider.createPageSink(outputHandle);
+
+        PageBuilder pageBuilder = new PageBuilder(ImmutableList.of(BIGINT, VARCHAR, BIGINT, DOUBLE, BOOLEAN));
+
+        pageBuilder.declarePosition();
+        BIGINT.writeLong(pageBuilder.getBlockBuilder(0), 1);
+        VARCHAR.writeSlice(pageBuilder.getBlockBuilder(1), utf8Slice("hello"));
+        BIGINT.writeLong(pageBuilder.getBlockBuilder(2), 123);
+        DOUBLE.writeDouble(pageBuilder.getBlockBuilder(3), 43.5);
+        BOOLEAN.writeBoolean(pageBuilder.getBlockBuilder(4), true);
+
+        pageBuilder.declarePosition();
+        BIGINT.writeLong(pageBuilder.getBlockBuilder(0), 2);
+        pageBuilder.getBlockBuilder(1).appendNull();
+        pageBuilder.getBlockBuilder(2).appendNull();
+        pageBuilder.getBlockBuilder(3).appendNull();
+        pageBuilder.getBlockBuilder(4).appendNull();
+
+        pageBuilder.declarePosition();
+        BIGINT.writeLong(pageBuilder.getBlockBuilder(0), 3);
+        VARCHAR.writeSlice(pageBuilder.getBlockBuilder(1), utf8Slice("bye"));
+        BIGINT.writeLong(pageBuilder.getBlockBuilder(2), 456);
+        DOUBLE.writeDouble(pageBuilder.getBlockBuilder(3), 98.1);
+        BOOLEAN.writeBoolean(pageBuilder.getBlockBuilder(4), false);
+
+        sink.appendPage(pageBuilder.build(), null);
 
         Collection<Slice> fragments = sink.commit();
 
@@ -17,6 +17,7 @@ import com.facebook.presto.hive.orc.DwrfPageSourceFactory;
 import com.facebook.presto.hive.orc.DwrfRecordCursorProvider;
 import com.facebook.presto.hive.orc.OrcPageSourceFactory;
 import com.facebook.presto.hive.orc.OrcRecordCursorProvider;
+import com.facebook.presto.hive.parquet.ParquetPageSourceFactory;
 import com.facebook.presto.hive.rcfile.RcFilePageSourceFactory;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.block.BlockBuilder;
@@ -45,6 +46,7 @@ public final class HiveTestUtils
             .add(new RcFilePageSourceFactory(TYPE_MANAGER))
             .add(new OrcPageSourceFactory(TYPE_MANAGER))
             .add(new DwrfPageSourceFactory(TYPE_MANAGER))
+            .add(new ParquetPageSourceFactory(TYPE_MANAGER))
             .build();
 
     public static final ImmutableSet<HiveRecordCursorProvider> DEFAULT_HIVE_RECORD_CURSOR_PROVIDER = ImmutableSet.<HiveRecordCursorProvider>builder()
@@ -88,6 +88,7 @@ import com.amazonaws.services.s3.model.UploadPartRequest;
 import com.amazonaws.services.s3.model.UploadPartResult;
 import com.amazonaws.services.s3.model.VersionListing;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
@@ -95,12 +96,14 @@ import java.util.Date;
 import java.util.List;
 
 import static org.apache.http.HttpStatus.SC_OK;
+import static org.apache.http.HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE;
 
 public class MockAmazonS3
         implements AmazonS3
 {
     private int getObjectHttpCode = SC_OK;
     private int getObjectMetadataHttpCode = SC_OK;
+    private byte[] objectContent;
 
     public void setGetObjectHttpErrorCode(int getObjectHttpErrorCode)
     {
@@ -112,6 +115,11 @@ public class MockAmazonS3
         this.getObjectMetadataHttpCode = getObjectMetadataHttpCode;
     }
 
+    public void setObjectContent(byte[] objectContent)
+    {
+        this.objectContent = objectContent;
+    }
+
     @Override
     public void setEndpoint(String endpoint)
     {
@@ -371,7 +379,21 @@ public class MockAmazonS3
             exception.setStatusCode(getObjectHttpCode);
             throw exception;
         }
-        return null;
+        if (objectContent == null) {
+            return null;
+        }
+
+        long[] range = getObjectRequest.getRange();
+        int start = (int) range[0];
+        if (start >= objectContent.length) {
+            AmazonS3Exception exception = new AmazonS3Exception("Failing getObject call with " + SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            exception.setStatusCode(SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            throw exception;
+        }
+        int end = (int) Math.min(range[1], objectContent.length - 1);
+        S3Object object = new S3Object();
+        object.setObjectContent(new ByteArrayInputStream(objectContent, start, end - start + 1));
+        return object;
     }
 
     @Override
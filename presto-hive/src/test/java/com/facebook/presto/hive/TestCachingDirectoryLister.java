@@ -0,0 +1,235 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.collect.ImmutableSet;
+import io.airlift.testing.TestingTicker;
+import io.airlift.units.Duration;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.testng.Assert.assertEquals;
+
+public class TestCachingDirectoryLister
+{
+    private ExecutorService executor;
+    private TestingTicker ticker;
+    private File directory;
+    private CountingFileSystem fileSystem;
+    private CountingDirectoryLister delegate;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        // reload in the calling thread, so a refreshed listing is returned by the call that triggers the refresh
+        executor = sameThreadExecutor();
+        ticker = new TestingTicker();
+        directory = createTempDir();
+        fileSystem = new CountingFileSystem(FileSystem.getLocal(new Configuration()), "file");
+        delegate = new CountingDirectoryLister();
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        deleteRecursively(directory);
+    }
+
+    @Test
+    public void testCachedListing()
+            throws Exception
+    {
+        CachingDirectoryLister lister = createLister();
+        createFile("a");
+        createFile("b");
+
+        assertEquals(listNames(lister), ImmutableSet.of("a", "b"));
+        assertEquals(delegate.getListCount(), 1);
+        assertEquals(lister.getMisses().getTotalCount(), 1);
+
+        // a hit does not touch the file system
+        int fileStatusCount = fileSystem.getFileStatusCount();
+        assertEquals(listNames(lister), ImmutableSet.of("a", "b"));
+        assertEquals(delegate.getListCount(), 1);
+        assertEquals(fileSystem.getFileStatusCount(), fileStatusCount);
+        assertEquals(lister.getHits().getTotalCount(), 1);
+
+        // changes are not noticed before the listing is refreshed
+        createFile("c");
+        assertEquals(listNames(lister), ImmutableSet.of("a", "b"));
+
+        lister.flushCache();
+        assertEquals(listNames(lister), ImmutableSet.of("a", "b", "c"));
+        assertEquals(delegate.getListCount(), 2);
+    }
+
+    @Test
+    public void testRefresh()
+            throws Exception
+    {
+        CachingDirectoryLister lister = createLister();
+        createFile("a");
+        directory.setLastModified(1_000_000);
+        assertEquals(listNames(lister), ImmutableSet.of("a"));
+
+        // the directory did not change, so the listing is kept
+        int fileStatusCount = fileSystem.getFileStatusCount();
+        ticker.increment(2, MINUTES);
+        assertEquals(listNames(lister), ImmutableSet.of("a"));
+        assertEquals(delegate.getListCount(), 1);
+        assertEquals(fileSystem.getFileStatusCount(), fileStatusCount + 1);
+        assertEquals(lister.getStaleListings().getTotalCount(), 0);
+
+        // a new file changes the modification time of the directory
+        createFile("b");
+        directory.setLastModified(2_000_000);
+        ticker.increment(2, MINUTES);
+        assertEquals(listNames(lister), ImmutableSet.of("a", "b"));
+        assertEquals(delegate.getListCount(), 2);
+        assertEquals(lister.getStaleListings().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testRefreshWithoutDirectoryModificationTimes()
+            throws Exception
+    {
+        fileSystem = new CountingFileSystem(FileSystem.getLocal(new Configuration()), "s3");
+        CachingDirectoryLister lister = createLister();
+        createFile("a");
+        assertEquals(listNames(lister), ImmutableSet.of("a"));
+        assertEquals(listNames(lister), ImmutableSet.of("a"));
+
+        // the listing is reloaded on every refresh
+        ticker.increment(2, MINUTES);
+        assertEquals(listNames(lister), ImmutableSet.of("a"));
+        assertEquals(delegate.getListCount(), 2);
+
+        createFile("b");
+        ticker.increment(2, MINUTES);
+        assertEquals(listNames(lister), ImmutableSet.of("a", "b"));
+        assertEquals(delegate.getListCount(), 3);
+        assertEquals(fileSystem.getFileStatusCount(), 0);
+        assertEquals(lister.getStaleListings().getTotalCount(), 0);
+    }
+
+    @Test
+    public void testDisabled()
+            throws Exception
+    {
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, executor, new Duration(0, HOURS), new Duration(1, HOURS), 1_000);
+        createFile("a");
+
+        assertEquals(listNames(lister), ImmutableSet.of("a"));
+        assertEquals(listNames(lister), ImmutableSet.of("a"));
+        assertEquals(delegate.getListCount(), 2);
+        assertEquals(lister.getEntryCount(), 0);
+    }
+
+    private CachingDirectoryLister createLister()
+    {
+        return new CachingDirectoryLister(delegate, executor, new Duration(1, HOURS), new Duration(1, MINUTES), 1_000, ticker);
+    }
+
+    private ImmutableSet<String> listNames(DirectoryLister lister)
+            throws IOException
+    {
+        ImmutableSet.Builder<String> names = ImmutableSet.builder();
+        RemoteIterator<LocatedFileStatus> iterator = lister.list(fileSystem, new Path(directory.toURI()));
+        while (iterator.hasNext()) {
+            String name = iterator.next().getPath().getName();
+            if (!name.startsWith(".")) {
+                names.add(name);
+            }
+        }
+        return names.build();
+    }
+
+    private void createFile(String name)
+            throws IOException
+    {
+        new File(directory, name).createNewFile();
+    }
+
+    private static class CountingFileSystem
+            extends FilterFileSystem
+    {
+        private final URI uri;
+        private final AtomicInteger fileStatusCount = new AtomicInteger();
+
+        public CountingFileSystem(FileSystem fileSystem, String scheme)
+        {
+            super(fileSystem);
+            this.uri = URI.create(scheme + ":///");
+        }
+
+        @Override
+        public URI getUri()
+        {
+            return uri;
+        }
+
+        @Override
+        public FileStatus getFileStatus(Path path)
+                throws IOException
+        {
+            fileStatusCount.incrementAndGet();
+            return super.getFileStatus(path);
+        }
+
+        public int getFileStatusCount()
+        {
+            return fileStatusCount.get();
+        }
+    }
+
+    private static class CountingDirectoryLister
+            extends HadoopDirectoryLister
+    {
+        private final AtomicInteger listCount = new AtomicInteger();
+
+        @Override
+        public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+                throws IOException
+        {
+            listCount.incrementAndGet();
+            return super.list(fs, path);
+        }
+
+        public int getListCount()
+        {
+            return listCount.get();
+        }
+    }
+}
@@ -48,8 +48,12 @@ public class TestHiveClientConfig
                 .setMaxMetastoreRefreshThreads(100)
                 .setMetastoreSocksProxy(null)
                 .setMetastoreTimeout(new Duration(10, TimeUnit.SECONDS))
+                .setFileStatusCacheTtl(new Duration(0, TimeUnit.SECONDS))
+                .setFileStatusCacheRefreshInterval(new Duration(1, TimeUnit.MINUTES))
+                .setFileStatusCacheMaxSize(1_000_000)
                 .setMinPartitionBatchSize(10)
                 .setMaxPartitionBatchSize(100)
+                .setPartitionLoaderConcurrency(4)
                 .setMaxInitialSplits(200)
                 .setMaxInitialSplitSize(new DataSize(32, Unit.MEGABYTE))
                 .setForceLocalScheduling(false)
@@ -62,6 +66,7 @@ public class TestHiveClientConfig
                 .setResourceConfigFiles((String) null)
                 .setHiveStorageFormat(HiveStorageFormat.RCBINARY)
                 .setUseParquetColumnNames(false)
+                .setParquetOptimizedReaderEnabled(false)
                 .setS3AwsAccessKey(null)
                 .setS3AwsSecretKey(null)
                 .setS3UseInstanceCredentials(true)
@@ -75,12 +80,20 @@ public class TestHiveClientConfig
                 .setS3MultipartMinFileSize(new DataSize(16, Unit.MEGABYTE))
                 .setS3MultipartMinPartSize(new DataSize(5, Unit.MEGABYTE))
                 .setS3MaxConnections(500)
+                .setS3MaxConcurrentRangeReads(16)
                 .setS3StagingDirectory(new File(StandardSystemProperty.JAVA_IO_TMPDIR.value()))
                 .setOptimizedReaderEnabled(true)
                 .setAssumeCanonicalPartitionKeys(false)
                 .setOrcMaxMergeDistance(new DataSize(1, Unit.MEGABYTE))
                 .setOrcMaxBufferSize(new DataSize(8, Unit.MEGABYTE))
-                .setOrcStreamBufferSize(new DataSize(8, Unit.MEGABYTE)));
+                .setOrcStreamBufferSize(new DataSize(8, Unit.MEGABYTE))
+                .setOrcDataCacheEnabled(false)
+                .setOrcDataCacheMaxSize(new DataSize(1, Unit.GIGABYTE))
+                .setOrcDataCacheChunkSize(new DataSize(256, Unit.KILOBYTE))
+                .setOrcFileTailCacheMaxSize(new DataSize(64, Unit.MEGABYTE))
+                .setOrcStripePrefetchEnabled(false)
+                .setOrcMaxPrefetchStripeSize(new DataSize(64, Unit.MEGABYTE))
+                .setOrcLateMaterializationEnabled(false));
     }
 
     @Test
@@ -99,8 +112,12 @@ public class TestHiveClientConfig
                 .put("hive.metastore-refresh-max-threads", "2500")
                 .put("hive.metastore.thrift.client.socks-proxy", "localhost:1080")
                 .put("hive.metastore-timeout", "20s")
+                .put("hive.file-status-cache.ttl", "10m")
+                .put("hive.file-status-cache.refresh-interval", "30s")
+                .put("hive.file-status-cache.max-size", "5000")
                 .put("hive.metastore.partition-batch-size.min", "1")
                 .put("hive.metastore.partition-batch-size.max", "1000")
+                .put("hive.metastore.partition-loader-concurrency", "16")
                 .put("hive.dfs-timeout", "33s")
                 .put("hive.dfs.connect.timeout", "20s")
                 .put("hive.dfs.connect.max-retries", "10")
@@ -114,6 +131,7 @@ public class TestHiveClientConfig
                 .put("hive.force-local-scheduling", "true")
                 .put("hive.assume-canonical-partition-keys", "true")
                 .put("hive.parquet.use-column-names", "true")
+                .put("hive.parquet-optimized-reader.enabled", "true")
                 .put("hive.s3.aws-access-key", "abc123")
                 .put("hive.s3.aws-secret-key", "secret")
                 .put("hive.s3.use-instance-credentials", "false")
@@ -127,11 +145,19 @@ public class TestHiveClientConfig
                 .put("hive.s3.multipart.min-file-size", "32MB")
                 .put("hive.s3.multipart.min-part-size", "15MB")
                 .put("hive.s3.max-connections", "77")
+                .put("hive.s3.max-concurrent-range-reads", "7")
                 .put("hive.s3.staging-directory", "/s3-staging")
                 .put("hive.optimized-reader.enabled", "false")
                 .put("hive.orc.max-merge-distance", "22kB")
                 .put("hive.orc.max-buffer-size", "44kB")
                 .put("hive.orc.stream-buffer-size", "55kB")
+                .put("hive.orc.data-cache.enabled", "true")
+                .put("hive.orc.data-cache.max-size", "2GB")
+                .put("hive.orc.data-cache.chunk-size", "1MB")
+                .put("hive.orc.file-tail-cache.max-size", "16MB")
+                .put("hive.orc.stripe-prefetch.enabled", "true")
+                .put("hive.orc.stripe-prefetch.max-stripe-size", "128MB")
+                .put("hive.orc.late-materialization.enabled", "true")
                 .build();
 
         HiveClientConfig expected = new HiveClientConfig()
@@ -147,8 +173,12 @@ public class TestHiveClientConfig
                 .setMaxMetastoreRefreshThreads(2500)
                 .setMetastoreSocksProxy(HostAndPort.fromParts("localhost", 1080))
                 .setMetastoreTimeout(new Duration(20, TimeUnit.SECONDS))
+                .setFileStatusCacheTtl(new Duration(10, TimeUnit.MINUTES))
+                .setFileStatusCacheRefreshInterval(new Duration(30, TimeUnit.SECONDS))
+                .setFileStatusCacheMaxSize(5000)
                 .setMinPartitionBatchSize(1)
                 .setMaxPartitionBatchSize(1000)
+                .setPartitionLoaderConcurrency(16)
                 .setMaxInitialSplits(10)
                 .setMaxInitialSplitSize(new DataSize(16, Unit.MEGABYTE))
                 .setForceLocalScheduling(true)
@@ -161,6 +191,7 @@ public class TestHiveClientConfig
                 .setHiveStorageFormat(HiveStorageFormat.SEQUENCEFILE)
                 .setDomainSocketPath("/foo")
                 .setUseParquetColumnNames(true)
+                .setParquetOptimizedReaderEnabled(true)
                 .setS3AwsAccessKey("abc123")
                 .setS3AwsSecretKey("secret")
                 .setS3UseInstanceCredentials(false)
@@ -174,12 +205,20 @@ public class TestHiveClientConfig
                 .setS3MultipartMinFileSize(new DataSize(32, Unit.MEGABYTE))
                 .setS3MultipartMinPartSize(new DataSize(15, Unit.MEGABYTE))
                 .setS3MaxConnections(77)
+                .setS3MaxConcurrentRangeReads(7)
                 .setS3StagingDirectory(new File("/s3-staging"))
                 .setOptimizedReaderEnabled(false)
                 .setAssumeCanonicalPartitionKeys(true)
                 .setOrcMaxMergeDistance(new DataSize(22, Unit.KILOBYTE))
                 .setOrcMaxBufferSize(new DataSize(44, Unit.KILOBYTE))
-                .setOrcStreamBufferSize(new DataSize(55, Unit.KILOBYTE));
+                .setOrcStreamBufferSize(new DataSize(55, Unit.KILOBYTE))
+                .setOrcDataCacheEnabled(true)
+                .setOrcDataCacheMaxSize(new DataSize(2, Unit.GIGABYTE))
+                .setOrcDataCacheChunkSize(new DataSize(1, Unit.MEGABYTE))
+                .setOrcFileTailCacheMaxSize(new DataSize(16, Unit.MEGABYTE))
+                .setOrcStripePrefetchEnabled(true)
+                .setOrcMaxPrefetchStripeSize(new DataSize(128, Unit.MEGABYTE))
+                .setOrcLateMaterializationEnabled(true);
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
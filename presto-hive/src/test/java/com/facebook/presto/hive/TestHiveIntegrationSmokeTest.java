@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.Session;
 import com.facebook.presto.testing.MaterializedResult;
 import com.facebook.presto.testing.MaterializedRow;
 import com.facebook.presto.tests.AbstractTestIntegrationSmokeTest;
@@ -75,6 +76,24 @@ public class TestHiveIntegrationSmokeTest
         assertQuery(actual, expected);
     }
 
+    @Test
+    public void testDynamicFiltering()
+            throws Exception
+    {
+        // the probe of a parallel join is not filtered, so run the join in a single driver
+        Session session = getSession()
+                .withSystemProperty("dynamic_filtering_enabled", "true")
+                .withSystemProperty("task_join_concurrency", "1");
+
+        // the scan of the probe side reads the orders split with the keys of the build side pushed down
+        assertQueryOrdered(session,
+                "SELECT count(*), sum(o.totalprice) FROM orders o JOIN (SELECT orderkey FROM orders WHERE orderkey % 100 = 7) b ON o.orderkey = b.orderkey",
+                "SELECT count(*), sum(o.totalprice) FROM orders o JOIN (SELECT orderkey FROM orders WHERE orderkey % 100 = 7) b ON o.orderkey = b.orderkey");
+        assertQueryOrdered(session,
+                "SELECT count(*) FROM orders o JOIN (SELECT orderkey FROM orders WHERE orderkey < 0) b ON o.orderkey = b.orderkey",
+                "SELECT count(*) FROM orders o JOIN (SELECT orderkey FROM orders WHERE orderkey < 0) b ON o.orderkey = b.orderkey");
+    }
+
     @Test
     public void createTableWithEveryType()
             throws Exception
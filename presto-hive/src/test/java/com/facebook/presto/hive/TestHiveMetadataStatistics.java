@@ -0,0 +1,218 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.metastore.InMemoryHiveMetastore;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.hive.common.StatsSetupConst;
+import org.apache.hadoop.hive.metastore.TableType;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.util.Locale.ENGLISH;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestHiveMetadataStatistics
+{
+    private static final String CONNECTOR_ID = "hive-test";
+    private static final String DATABASE = "test_database";
+    private static final ConnectorSession SESSION = new ConnectorSession("presto_test", UTC_KEY, ENGLISH, System.currentTimeMillis(), null);
+    private static final HiveColumnHandle PARTITION_COLUMN = new HiveColumnHandle(CONNECTOR_ID, "ds", 0, HIVE_STRING, VARCHAR.getTypeSignature(), -1, true);
+
+    private PartitionedMetastore metastore;
+    private HiveMetadata metadata;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        HiveClientConfig hiveClientConfig = new HiveClientConfig();
+        metastore = new PartitionedMetastore();
+        metadata = new HiveMetadata(
+                new HiveConnectorId(CONNECTOR_ID),
+                metastore,
+                new HdfsEnvironment(new HiveHdfsConfiguration(new HdfsConfigurationUpdater(hiveClientConfig)), hiveClientConfig),
+                DateTimeZone.UTC,
+                true,
+                true,
+                true,
+                hiveClientConfig.getHiveStorageFormat(),
+                new TypeRegistry());
+    }
+
+    @Test
+    public void testUnpartitionedTable()
+    {
+        createTable("stats", false, ImmutableMap.of(StatsSetupConst.ROW_COUNT, "1000", StatsSetupConst.RAW_DATA_SIZE, "5000", StatsSetupConst.TOTAL_SIZE, "500"));
+        assertEquals(getTableStatistics("stats", TupleDomain.all()), new TableStatistics(OptionalDouble.of(1000), OptionalDouble.of(5000), ImmutableMap.of()));
+
+        // the compressed size of the files is not an estimate of the data size
+        createTable("compressed_size", false, ImmutableMap.of(StatsSetupConst.ROW_COUNT, "1000", StatsSetupConst.TOTAL_SIZE, "500"));
+        assertEquals(getTableStatistics("compressed_size", TupleDomain.all()), new TableStatistics(OptionalDouble.of(1000), OptionalDouble.empty(), ImmutableMap.of()));
+
+        // Hive records -1 for statistics that have not been computed
+        createTable("no_stats", false, ImmutableMap.of(StatsSetupConst.ROW_COUNT, "-1"));
+        TableStatistics statistics = getTableStatistics("no_stats", TupleDomain.all());
+        assertFalse(statistics.getRowCount().isPresent());
+        assertFalse(statistics.getDataSize().isPresent());
+    }
+
+    @Test
+    public void testPartitionedTable()
+    {
+        createTable("partitioned", true, ImmutableMap.of());
+        metastore.addPartition("partitioned", "ds=a", partitionStatistics(100, 1000));
+        metastore.addPartition("partitioned", "ds=b", partitionStatistics(200, 2000));
+        metastore.addPartition("partitioned", "ds=c", partitionStatistics(300, 3000));
+
+        assertEquals(getTableStatistics("partitioned", TupleDomain.all()), new TableStatistics(OptionalDouble.of(600), OptionalDouble.of(6000), ImmutableMap.of()));
+
+        // only the partitions matching the constraint are counted
+        TupleDomain<ColumnHandle> constraint = TupleDomain.withColumnDomains(ImmutableMap.of(PARTITION_COLUMN, Domain.singleValue(utf8Slice("b"))));
+        assertEquals(getTableStatistics("partitioned", constraint), new TableStatistics(OptionalDouble.of(200), OptionalDouble.of(2000), ImmutableMap.of()));
+
+        constraint = TupleDomain.withColumnDomains(ImmutableMap.of(PARTITION_COLUMN, Domain.singleValue(utf8Slice("x"))));
+        assertEquals(getTableStatistics("partitioned", constraint).getRowCount(), OptionalDouble.of(0));
+        assertEquals(getTableStatistics("partitioned", TupleDomain.none()).getRowCount(), OptionalDouble.of(0));
+    }
+
+    @Test
+    public void testPartitionsWithoutStatistics()
+    {
+        createTable("partitioned", true, ImmutableMap.of());
+        metastore.addPartition("partitioned", "ds=a", partitionStatistics(100, 1000));
+        metastore.addPartition("partitioned", "ds=b", ImmutableMap.of());
+        metastore.addPartition("partitioned", "ds=c", partitionStatistics(300, 3000));
+        metastore.addPartition("partitioned", "ds=d", ImmutableMap.of(StatsSetupConst.ROW_COUNT, "-1"));
+
+        // the partitions without statistics are assumed to be like the others
+        assertEquals(getTableStatistics("partitioned", TupleDomain.all()), new TableStatistics(OptionalDouble.of(800), OptionalDouble.of(8000), ImmutableMap.of()));
+
+        createTable("no_stats", true, ImmutableMap.of());
+        metastore.addPartition("no_stats", "ds=a", ImmutableMap.of());
+        assertFalse(getTableStatistics("no_stats", TupleDomain.all()).getRowCount().isPresent());
+    }
+
+    @Test
+    public void testPartitionSampling()
+    {
+        createTable("partitioned", true, ImmutableMap.of());
+        int partitionCount = 1000;
+        for (int i = 0; i < partitionCount; i++) {
+            // the partitions get bigger, so a sample of the first partitions would underestimate the table
+            metastore.addPartition("partitioned", String.format("ds=%04d", i), partitionStatistics(i, 10 * i));
+        }
+
+        TableStatistics statistics = getTableStatistics("partitioned", TupleDomain.all());
+
+        // only an evenly spaced sample of the partitions is fetched
+        List<String> requested = metastore.getRequestedPartitions();
+        assertEquals(requested.size(), 100);
+        for (int i = 0; i < requested.size(); i++) {
+            assertEquals(requested.get(i), String.format("ds=%04d", i * 10));
+        }
+
+        // the sample contains the partitions 0, 10, ..., 990, which average 495 rows
+        assertEquals(statistics.getRowCount(), OptionalDouble.of(495.0 * partitionCount));
+        assertEquals(statistics.getDataSize(), OptionalDouble.of(4950.0 * partitionCount));
+        assertTrue(Math.abs(statistics.getRowCount().getAsDouble() - 499.5 * partitionCount) / (499.5 * partitionCount) < 0.01);
+    }
+
+    private TableStatistics getTableStatistics(String tableName, TupleDomain<ColumnHandle> constraint)
+    {
+        return metadata.getTableStatistics(SESSION, new HiveTableHandle(CONNECTOR_ID, DATABASE, tableName, SESSION), constraint);
+    }
+
+    private void createTable(String tableName, boolean partitioned, Map<String, String> parameters)
+    {
+        Table table = new Table();
+        table.setDbName(DATABASE);
+        table.setTableName(tableName);
+        table.setTableType(TableType.MANAGED_TABLE.name());
+        table.setPartitionKeys(partitioned ? ImmutableList.of(new FieldSchema("ds", "string", null)) : ImmutableList.of());
+        table.setParameters(new LinkedHashMap<>(parameters));
+        metastore.createTable(table);
+    }
+
+    private static Map<String, String> partitionStatistics(long rowCount, long rawDataSize)
+    {
+        return ImmutableMap.of(
+                StatsSetupConst.ROW_COUNT, String.valueOf(rowCount),
+                StatsSetupConst.RAW_DATA_SIZE, String.valueOf(rawDataSize),
+                StatsSetupConst.TOTAL_SIZE, String.valueOf(rawDataSize / 10));
+    }
+
+    private static class PartitionedMetastore
+            extends InMemoryHiveMetastore
+    {
+        private final Map<String, Map<String, Partition>> partitions = new LinkedHashMap<>();
+        private final List<String> requestedPartitions = new ArrayList<>();
+
+        public synchronized void addPartition(String tableName, String partitionName, Map<String, String> parameters)
+        {
+            Partition partition = new Partition();
+            partition.setDbName(DATABASE);
+            partition.setTableName(tableName);
+            partition.setParameters(new LinkedHashMap<>(parameters));
+            partitions.computeIfAbsent(tableName, name -> new LinkedHashMap<>()).put(partitionName, partition);
+        }
+
+        public synchronized List<String> getRequestedPartitions()
+        {
+            return ImmutableList.copyOf(requestedPartitions);
+        }
+
+        @Override
+        public synchronized List<String> getPartitionNames(String databaseName, String tableName)
+                throws NoSuchObjectException
+        {
+            return ImmutableList.copyOf(partitions.getOrDefault(tableName, ImmutableMap.of()).keySet());
+        }
+
+        @Override
+        public synchronized Map<String, Partition> getPartitionsByNames(String databaseName, String tableName, List<String> partitionNames)
+                throws NoSuchObjectException
+        {
+            requestedPartitions.addAll(partitionNames);
+            ImmutableMap.Builder<String, Partition> result = ImmutableMap.builder();
+            for (String partitionName : partitionNames) {
+                result.put(partitionName, partitions.get(tableName).get(partitionName));
+            }
+            return result.build();
+        }
+    }
+}
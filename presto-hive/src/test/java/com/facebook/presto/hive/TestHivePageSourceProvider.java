@@ -0,0 +1,178 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.FixedPageSource;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.util.Locale.ENGLISH;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestHivePageSourceProvider
+{
+    private static final String CLIENT_ID = "hive";
+    private static final ConnectorSession SESSION = new ConnectorSession("presto_test", UTC_KEY, ENGLISH, System.currentTimeMillis(), null);
+    private static final HiveColumnHandle PARTITION_COLUMN = new HiveColumnHandle(CLIENT_ID, "ds", 0, HIVE_LONG, BIGINT.getTypeSignature(), -1, true);
+    private static final HiveColumnHandle DATA_COLUMN = new HiveColumnHandle(CLIENT_ID, "value", 1, HIVE_STRING, VARCHAR.getTypeSignature(), 0, false);
+    private static final List<ColumnHandle> COLUMNS = ImmutableList.<ColumnHandle>of(PARTITION_COLUMN, DATA_COLUMN);
+
+    private RecordingPageSourceFactory pageSourceFactory;
+    private HivePageSourceProvider pageSourceProvider;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        HiveClientConfig hiveClientConfig = new HiveClientConfig();
+        pageSourceFactory = new RecordingPageSourceFactory();
+        pageSourceProvider = new HivePageSourceProvider(
+                hiveClientConfig,
+                new HdfsEnvironment(new HiveHdfsConfiguration(new HdfsConfigurationUpdater(hiveClientConfig)), hiveClientConfig),
+                ImmutableSet.of(),
+                ImmutableSet.of(pageSourceFactory),
+                new TypeRegistry());
+    }
+
+    @Test
+    public void testPartitionFilteredOut()
+    {
+        ConnectorPageSource pageSource = pageSourceProvider.createPageSource(createSplit(TupleDomain.all()), COLUMNS, dynamicFilter(PARTITION_COLUMN, Domain.singleValue(2L)));
+
+        // the split is skipped without opening the file
+        assertTrue(pageSource.isFinished());
+        assertTrue(pageSourceFactory.getEffectivePredicates().isEmpty());
+    }
+
+    @Test
+    public void testPartitionMatches()
+    {
+        TupleDomain<HiveColumnHandle> splitPredicate = TupleDomain.withColumnDomains(ImmutableMap.of(DATA_COLUMN, Domain.singleValue(utf8Slice("a"))));
+        TupleDomain<ColumnHandle> dynamicFilter = dynamicFilter(PARTITION_COLUMN, Domain.singleValue(1L));
+
+        pageSourceProvider.createPageSource(createSplit(splitPredicate), COLUMNS, dynamicFilter);
+
+        // the reader gets the predicate of the split narrowed by the filter
+        TupleDomain<HiveColumnHandle> expected = TupleDomain.withColumnDomains(ImmutableMap.of(
+                DATA_COLUMN, Domain.singleValue(utf8Slice("a")),
+                PARTITION_COLUMN, Domain.singleValue(1L)));
+        assertEquals(pageSourceFactory.getEffectivePredicates(), ImmutableList.of(expected));
+    }
+
+    @Test
+    public void testDataColumnFilter()
+    {
+        TupleDomain<ColumnHandle> dynamicFilter = dynamicFilter(DATA_COLUMN, Domain.singleValue(utf8Slice("b")));
+
+        // a filter on a data column can not skip the split, and is left to the reader
+        pageSourceProvider.createPageSource(createSplit(TupleDomain.all()), COLUMNS, dynamicFilter);
+
+        TupleDomain<HiveColumnHandle> expected = TupleDomain.withColumnDomains(ImmutableMap.of(DATA_COLUMN, Domain.singleValue(utf8Slice("b"))));
+        assertEquals(pageSourceFactory.getEffectivePredicates(), ImmutableList.of(expected));
+    }
+
+    @Test
+    public void testNoneFilter()
+    {
+        ConnectorPageSource pageSource = pageSourceProvider.createPageSource(createSplit(TupleDomain.all()), COLUMNS, TupleDomain.none());
+
+        assertTrue(pageSource.isFinished());
+        assertTrue(pageSourceFactory.getEffectivePredicates().isEmpty());
+    }
+
+    @Test
+    public void testWithoutDynamicFilter()
+    {
+        TupleDomain<HiveColumnHandle> splitPredicate = TupleDomain.withColumnDomains(ImmutableMap.of(DATA_COLUMN, Domain.singleValue(utf8Slice("a"))));
+
+        pageSourceProvider.createPageSource(createSplit(splitPredicate), COLUMNS);
+
+        assertEquals(pageSourceFactory.getEffectivePredicates(), ImmutableList.of(splitPredicate));
+    }
+
+    private static TupleDomain<ColumnHandle> dynamicFilter(HiveColumnHandle column, Domain domain)
+    {
+        return TupleDomain.withColumnDomains(ImmutableMap.<ColumnHandle, Domain>of(column, domain));
+    }
+
+    private static HiveSplit createSplit(TupleDomain<HiveColumnHandle> effectivePredicate)
+    {
+        return new HiveSplit(
+                CLIENT_ID,
+                "test_database",
+                "test_table",
+                "ds=1",
+                "file:///tmp/test_table/ds=1/file",
+                0,
+                100,
+                new Properties(),
+                ImmutableList.of(new HivePartitionKey("ds", HIVE_LONG, "1")),
+                ImmutableList.of(),
+                false,
+                SESSION,
+                effectivePredicate);
+    }
+
+    private static class RecordingPageSourceFactory
+            implements HivePageSourceFactory
+    {
+        private final List<TupleDomain<HiveColumnHandle>> effectivePredicates = new ArrayList<>();
+
+        public List<TupleDomain<HiveColumnHandle>> getEffectivePredicates()
+        {
+            return effectivePredicates;
+        }
+
+        @Override
+        public Optional<? extends ConnectorPageSource> createPageSource(
+                Configuration configuration,
+                ConnectorSession session,
+                Path path,
+                long start,
+                long length,
+                Properties schema,
+                List<HiveColumnHandle> columns,
+                List<HivePartitionKey> partitionKeys,
+                TupleDomain<HiveColumnHandle> effectivePredicate,
+                DateTimeZone hiveStorageTimeZone)
+        {
+            effectivePredicates.add(effectivePredicate);
+            return Optional.of(new FixedPageSource(ImmutableList.of()));
+        }
+    }
+}
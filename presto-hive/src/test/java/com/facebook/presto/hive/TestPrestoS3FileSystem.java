@@ -23,8 +23,10 @@ import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.Path;
 import org.testng.annotations.Test;
 
+import java.io.EOFException;
 import java.lang.reflect.Field;
 import java.net.URI;
+import java.util.Arrays;
 
 import static com.facebook.presto.hive.PrestoS3FileSystem.S3_MAX_BACKOFF_TIME;
 import static com.facebook.presto.hive.PrestoS3FileSystem.S3_MAX_CLIENT_RETRIES;
@@ -176,6 +178,53 @@ public class TestPrestoS3FileSystem
         }
     }
 
+    @Test
+    public void testPositionedRead()
+            throws Exception
+    {
+        byte[] content = new byte[1000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+
+        try (PrestoS3FileSystem fs = new PrestoS3FileSystem()) {
+            MockAmazonS3 s3 = new MockAmazonS3();
+            s3.setObjectContent(content);
+            fs.initialize(new URI("s3n://test-bucket/"), new Configuration());
+            fs.setS3Client(s3);
+            double rangedReads = PrestoS3FileSystem.getFileSystemStats().getRangedReadTime().getAllTime().getCount();
+            try (FSDataInputStream inputStream = fs.open(new Path("s3n://test-bucket/test"))) {
+                byte[] buffer = new byte[100];
+                inputStream.readFully(250, buffer, 10, 90);
+                assertEquals(Arrays.copyOfRange(buffer, 10, 100), Arrays.copyOfRange(content, 250, 340));
+
+                // positioned reads do not move the sequential stream
+                assertEquals(inputStream.getPos(), 0);
+
+                // a read past the end returns the available bytes
+                assertEquals(inputStream.read(950, buffer, 0, 100), 50);
+                assertEquals(Arrays.copyOf(buffer, 50), Arrays.copyOfRange(content, 950, 1000));
+                assertEquals(inputStream.read(1000, buffer, 0, 100), -1);
+            }
+            assertEquals(PrestoS3FileSystem.getFileSystemStats().getRangedReadTime().getAllTime().getCount(), rangedReads + 3.0);
+        }
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void testPositionedReadFullyPastEnd()
+            throws Exception
+    {
+        try (PrestoS3FileSystem fs = new PrestoS3FileSystem()) {
+            MockAmazonS3 s3 = new MockAmazonS3();
+            s3.setObjectContent(new byte[100]);
+            fs.initialize(new URI("s3n://test-bucket/"), new Configuration());
+            fs.setS3Client(s3);
+            try (FSDataInputStream inputStream = fs.open(new Path("s3n://test-bucket/test"))) {
+                inputStream.readFully(50, new byte[100]);
+            }
+        }
+    }
+
     @Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = ".*Failing getObjectMetadata call with " + SC_FORBIDDEN + ".*")
     public void testGetMetadataForbidden()
             throws Exception
@@ -0,0 +1,313 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.orc.DiskRange;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.FixedLengthSliceInput;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.hadoop.fs.Seekable;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestHdfsOrcDataSource
+{
+    private static final int FILE_SIZE = 1000;
+    // far enough apart that they are not merged into a single read
+    private static final Map<String, DiskRange> DISK_RANGES = ImmutableMap.of(
+            "first", new DiskRange(0, 10),
+            "second", new DiskRange(100, 20),
+            "third", new DiskRange(500, 30));
+    // each range is in a separate chunk of the cache
+    private static final DataSize CACHE_CHUNK_SIZE = new DataSize(100, BYTE);
+
+    @Test
+    public void testConcurrentRangeReads()
+            throws Exception
+    {
+        TestingInputStream inputStream = new TestingInputStream(-1);
+        HdfsOrcDataSource dataSource = createDataSource(inputStream, disabledCache(), Optional.of(directExecutor()));
+
+        assertRanges(dataSource.readFully(DISK_RANGES));
+        assertEquals(inputStream.getReadPositions(), ImmutableList.of(0L, 100L, 500L));
+    }
+
+    @Test
+    public void testFailedRangeRead()
+            throws Exception
+    {
+        HdfsOrcDataSource dataSource = createDataSource(new TestingInputStream(100), disabledCache(), Optional.of(directExecutor()));
+        try {
+            dataSource.readFully(DISK_RANGES);
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals(e.getMessage(), "read failed at 100");
+        }
+    }
+
+    @Test
+    public void testFailureCancelsPendingReads()
+            throws Exception
+    {
+        // only the first read runs, and it fails before the others are started
+        QueuedExecutor executor = new QueuedExecutor(1);
+        TestingInputStream inputStream = new TestingInputStream(0);
+        HdfsOrcDataSource dataSource = createDataSource(inputStream, disabledCache(), Optional.of(executor));
+        try {
+            dataSource.readFully(DISK_RANGES);
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals(e.getMessage(), "read failed at 0");
+        }
+
+        List<Runnable> pendingReads = executor.getQueuedTasks();
+        assertEquals(pendingReads.size(), 2);
+        for (Runnable pendingRead : pendingReads) {
+            assertTrue(((Future<?>) pendingRead).isCancelled());
+            pendingRead.run();
+        }
+        assertTrue(inputStream.getReadPositions().isEmpty());
+    }
+
+    @Test
+    public void testInterruptCancelsPendingReads()
+            throws Exception
+    {
+        QueuedExecutor executor = new QueuedExecutor(0);
+        TestingInputStream inputStream = new TestingInputStream(-1);
+        HdfsOrcDataSource dataSource = createDataSource(inputStream, disabledCache(), Optional.of(executor));
+
+        Thread.currentThread().interrupt();
+        try {
+            dataSource.readFully(DISK_RANGES);
+            fail("expected InterruptedIOException");
+        }
+        catch (InterruptedIOException expected) {
+        }
+        finally {
+            // the interrupt is restored for the caller, and cleared here for the next test
+            assertTrue(Thread.interrupted());
+        }
+
+        for (Runnable pendingRead : executor.getQueuedTasks()) {
+            assertTrue(((Future<?>) pendingRead).isCancelled());
+            pendingRead.run();
+        }
+        assertTrue(inputStream.getReadPositions().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentReadsUseDataCache()
+            throws Exception
+    {
+        OrcDataCache dataCache = new OrcDataCache(true, new DataSize(1, MEGABYTE), CACHE_CHUNK_SIZE);
+
+        TestingInputStream inputStream = new TestingInputStream(-1);
+        HdfsOrcDataSource dataSource = createDataSource(inputStream, dataCache, Optional.of(directExecutor()));
+        assertRanges(dataSource.readFully(DISK_RANGES));
+        assertEquals(inputStream.getReadPositions().size(), 3);
+
+        // the second read is served from the cache
+        assertRanges(dataSource.readFully(DISK_RANGES));
+        assertEquals(inputStream.getReadPositions().size(), 3);
+        assertEquals(dataCache.getHits().getTotalCount(), 3);
+        assertEquals(dataCache.getMisses().getTotalCount(), 3);
+    }
+
+    @Test
+    public void testFailedReadIsNotCached()
+            throws Exception
+    {
+        OrcDataCache dataCache = new OrcDataCache(true, new DataSize(1, MEGABYTE), CACHE_CHUNK_SIZE);
+
+        HdfsOrcDataSource failingDataSource = createDataSource(new TestingInputStream(100), dataCache, Optional.of(directExecutor()));
+        try {
+            failingDataSource.readFully(DISK_RANGES);
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals(e.getMessage(), "read failed at 100");
+        }
+        // the direct executor ran the other reads before the failure was seen
+        assertEquals(dataCache.getEntryCount(), 2);
+
+        // only the failed range is read again
+        TestingInputStream inputStream = new TestingInputStream(-1);
+        HdfsOrcDataSource dataSource = createDataSource(inputStream, dataCache, Optional.of(directExecutor()));
+        assertRanges(dataSource.readFully(DISK_RANGES));
+        assertEquals(inputStream.getReadPositions(), ImmutableList.of(100L));
+    }
+
+    private static void assertRanges(Map<String, FixedLengthSliceInput> inputs)
+    {
+        assertEquals(inputs.keySet(), DISK_RANGES.keySet());
+        for (Map.Entry<String, DiskRange> entry : DISK_RANGES.entrySet()) {
+            DiskRange diskRange = entry.getValue();
+            FixedLengthSliceInput input = inputs.get(entry.getKey());
+            assertEquals(input.length(), diskRange.getLength());
+            assertEquals(input.readSlice(diskRange.getLength()), Slices.wrappedBuffer(fileData(), (int) diskRange.getOffset(), diskRange.getLength()));
+        }
+    }
+
+    private static HdfsOrcDataSource createDataSource(TestingInputStream inputStream, OrcDataCache dataCache, Optional<Executor> rangeReadExecutor)
+    {
+        return new HdfsOrcDataSource(
+                "test",
+                FILE_SIZE,
+                1,
+                new DataSize(1, BYTE),
+                new DataSize(1, MEGABYTE),
+                new DataSize(1, MEGABYTE),
+                new FSDataInputStream(inputStream),
+                dataCache,
+                rangeReadExecutor);
+    }
+
+    private static OrcDataCache disabledCache()
+    {
+        return new OrcDataCache(false, new DataSize(1, MEGABYTE), CACHE_CHUNK_SIZE);
+    }
+
+    private static byte[] fileData()
+    {
+        byte[] data = new byte[FILE_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    /**
+     * Runs the first tasks when they are submitted, and queues the others.
+     */
+    private static class QueuedExecutor
+            implements Executor
+    {
+        private final List<Runnable> queuedTasks = new ArrayList<>();
+        private int remainingDirectTasks;
+
+        public QueuedExecutor(int directTasks)
+        {
+            this.remainingDirectTasks = directTasks;
+        }
+
+        @Override
+        public void execute(Runnable task)
+        {
+            if (remainingDirectTasks > 0) {
+                remainingDirectTasks--;
+                task.run();
+            }
+            else {
+                queuedTasks.add(task);
+            }
+        }
+
+        public List<Runnable> getQueuedTasks()
+        {
+            return queuedTasks;
+        }
+    }
+
+    private static class TestingInputStream
+            extends InputStream
+            implements Seekable, PositionedReadable
+    {
+        private final byte[] data = fileData();
+        private final long failurePosition;
+        private final List<Long> readPositions = new CopyOnWriteArrayList<>();
+
+        public TestingInputStream(long failurePosition)
+        {
+            this.failurePosition = failurePosition;
+        }
+
+        public List<Long> getReadPositions()
+        {
+            return ImmutableList.copyOf(readPositions);
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            if (position == failurePosition) {
+                throw new IOException("read failed at " + position);
+            }
+            readPositions.add(position);
+            System.arraycopy(data, (int) position, buffer, offset, length);
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer)
+                throws IOException
+        {
+            readFully(position, buffer, 0, buffer.length);
+        }
+
+        @Override
+        public int read(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void seek(long position)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getPos()
+        {
+            return 0;
+        }
+
+        @Override
+        public boolean seekToNewSource(long targetPosition)
+        {
+            return false;
+        }
+    }
+}
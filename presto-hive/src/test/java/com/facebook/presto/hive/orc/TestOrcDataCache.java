@@ -0,0 +1,244 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestOrcDataCache
+{
+    private static final long FILE_SIZE = 950;
+    private static final DataSize CHUNK_SIZE = new DataSize(100, BYTE);
+
+    @Test
+    public void testReadThrough()
+            throws Exception
+    {
+        OrcDataCache cache = new OrcDataCache(true, new DataSize(1, MEGABYTE), CHUNK_SIZE);
+        RecordingLoader loader = new RecordingLoader();
+
+        // the whole chunk containing the range is loaded
+        byte[] buffer = new byte[30];
+        cache.readFully("file", 1, FILE_SIZE, 150, buffer, 5, 20, loader);
+        assertEquals(loader.getLoads(), ImmutableList.of(new Load(100, 100)));
+        assertBytes(buffer, 5, 150, 20);
+
+        buffer = new byte[100];
+        cache.readFully("file", 1, FILE_SIZE, 100, buffer, 0, 100, loader);
+        assertEquals(loader.getLoads().size(), 1);
+        assertBytes(buffer, 0, 100, 100);
+
+        assertEquals(cache.getHits().getTotalCount(), 1);
+        assertEquals(cache.getMisses().getTotalCount(), 1);
+        assertEquals(cache.getBytesServed().getTotalCount(), 100);
+        assertEquals(cache.getBytesLoaded().getTotalCount(), 100);
+        assertEquals(cache.getCachedBytes(), 100);
+        assertEquals(cache.getEntryCount(), 1);
+        assertEquals(cache.getHitRate(), 0.5);
+    }
+
+    @Test
+    public void testDifferentRangesShareChunks()
+            throws Exception
+    {
+        OrcDataCache cache = new OrcDataCache(true, new DataSize(1, MEGABYTE), CHUNK_SIZE);
+        RecordingLoader loader = new RecordingLoader();
+
+        // consecutive missing chunks are loaded with a single read
+        byte[] buffer = new byte[300];
+        cache.readFully("file", 1, FILE_SIZE, 150, buffer, 0, 100, loader);
+        assertEquals(loader.getLoads(), ImmutableList.of(new Load(100, 200)));
+        assertBytes(buffer, 0, 150, 100);
+
+        // only the chunk that is not cached is loaded
+        cache.readFully("file", 1, FILE_SIZE, 250, buffer, 0, 100, loader);
+        assertEquals(loader.getLoads(), ImmutableList.of(new Load(100, 200), new Load(300, 100)));
+        assertBytes(buffer, 0, 250, 100);
+
+        // a range of the cached chunks that was never read is served from the cache
+        cache.readFully("file", 1, FILE_SIZE, 120, buffer, 0, 250, loader);
+        assertEquals(loader.getLoads().size(), 2);
+        assertBytes(buffer, 0, 120, 250);
+        assertEquals(cache.getEntryCount(), 3);
+    }
+
+    @Test
+    public void testMissingChunksBetweenCachedChunks()
+            throws Exception
+    {
+        OrcDataCache cache = new OrcDataCache(true, new DataSize(1, MEGABYTE), CHUNK_SIZE);
+        RecordingLoader loader = new RecordingLoader();
+
+        byte[] buffer = new byte[500];
+        cache.readFully("file", 1, FILE_SIZE, 0, buffer, 0, 10, loader);
+        cache.readFully("file", 1, FILE_SIZE, 300, buffer, 0, 10, loader);
+
+        cache.readFully("file", 1, FILE_SIZE, 50, buffer, 0, 450, loader);
+        assertEquals(loader.getLoads(), ImmutableList.of(new Load(0, 100), new Load(300, 100), new Load(100, 200), new Load(400, 100)));
+        assertBytes(buffer, 0, 50, 450);
+    }
+
+    @Test
+    public void testLastChunk()
+            throws Exception
+    {
+        OrcDataCache cache = new OrcDataCache(true, new DataSize(1, MEGABYTE), CHUNK_SIZE);
+        RecordingLoader loader = new RecordingLoader();
+
+        // the last chunk ends with the file
+        byte[] buffer = new byte[30];
+        cache.readFully("file", 1, FILE_SIZE, 920, buffer, 0, 30, loader);
+        assertEquals(loader.getLoads(), ImmutableList.of(new Load(900, 50)));
+        assertBytes(buffer, 0, 920, 30);
+        assertEquals(cache.getCachedBytes(), 50);
+    }
+
+    @Test
+    public void testKeyIncludesFileVersion()
+            throws Exception
+    {
+        OrcDataCache cache = new OrcDataCache(true, new DataSize(1, MEGABYTE), CHUNK_SIZE);
+        RecordingLoader loader = new RecordingLoader();
+
+        byte[] buffer = new byte[10];
+        cache.readFully("file", 1, FILE_SIZE, 0, buffer, 0, 10, loader);
+        cache.readFully("file", 2, FILE_SIZE, 0, buffer, 0, 10, loader);
+        cache.readFully("other", 1, FILE_SIZE, 0, buffer, 0, 10, loader);
+        cache.readFully("file", 1, FILE_SIZE, 5, buffer, 0, 5, loader);
+        assertEquals(loader.getLoads().size(), 3);
+        assertEquals(cache.getEntryCount(), 3);
+    }
+
+    @Test
+    public void testEviction()
+            throws Exception
+    {
+        OrcDataCache cache = new OrcDataCache(true, new DataSize(250, BYTE), CHUNK_SIZE);
+        RecordingLoader loader = new RecordingLoader();
+
+        byte[] buffer = new byte[40];
+        for (int i = 0; i < 9; i++) {
+            cache.readFully("file", 1, FILE_SIZE, i * 100, buffer, 0, 40, loader);
+        }
+        assertTrue(cache.getCachedBytes() <= 250);
+        assertTrue(cache.getEvictions().getTotalCount() >= 7);
+    }
+
+    @Test
+    public void testLoadFailure()
+            throws Exception
+    {
+        OrcDataCache cache = new OrcDataCache(true, new DataSize(1, MEGABYTE), CHUNK_SIZE);
+        try {
+            cache.readFully("file", 1, FILE_SIZE, 0, new byte[10], 0, 10, (position, buffer, bufferOffset, length) -> {
+                throw new IOException("read failed");
+            });
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals(e.getMessage(), "read failed");
+        }
+        assertEquals(cache.getEntryCount(), 0);
+        assertEquals(cache.getCachedBytes(), 0);
+
+        // the failure is not cached
+        RecordingLoader loader = new RecordingLoader();
+        cache.readFully("file", 1, FILE_SIZE, 0, new byte[10], 0, 10, loader);
+        assertEquals(loader.getLoads().size(), 1);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testDisabled()
+            throws Exception
+    {
+        new OrcDataCache(false, new DataSize(1, MEGABYTE), CHUNK_SIZE).readFully("file", 1, FILE_SIZE, 0, new byte[10], 0, 10, new RecordingLoader());
+    }
+
+    private static void assertBytes(byte[] buffer, int offset, long position, int length)
+    {
+        for (int i = 0; i < length; i++) {
+            assertEquals(buffer[offset + i], (byte) (position + i));
+        }
+    }
+
+    private static class RecordingLoader
+            implements OrcDataCache.DataLoader
+    {
+        private final List<Load> loads = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void load(long position, byte[] buffer, int bufferOffset, int length)
+        {
+            assertTrue(position + length <= FILE_SIZE);
+            loads.add(new Load(position, length));
+            for (int i = 0; i < length; i++) {
+                buffer[bufferOffset + i] = (byte) (position + i);
+            }
+        }
+
+        public List<Load> getLoads()
+        {
+            return ImmutableList.copyOf(loads);
+        }
+    }
+
+    private static class Load
+    {
+        private final long position;
+        private final int length;
+
+        public Load(long position, int length)
+        {
+            this.position = position;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            Load other = (Load) obj;
+            return position == other.position && length == other.length;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(position, length);
+        }
+
+        @Override
+        public String toString()
+        {
+            return position + "+" + length;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.orc.OrcFileTailCache;
+import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.FileSinkOperator.RecordWriter;
+import org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
+import org.apache.hadoop.hive.serde2.objectinspector.SettableStructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+import static com.facebook.presto.hive.HiveType.HIVE_BOOLEAN;
+import static com.facebook.presto.hive.HiveType.HIVE_DOUBLE;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardStructObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaBooleanObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaDoubleObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestOrcPageSource
+{
+    private static final int ROW_COUNT = 10_000;
+    private static final TypeRegistry TYPE_MANAGER = new TypeRegistry();
+
+    private static final HiveColumnHandle KEY_COLUMN = new HiveColumnHandle("test", "key", 0, HIVE_LONG, BIGINT.getTypeSignature(), 0, false);
+    private static final HiveColumnHandle VALUE_COLUMN = new HiveColumnHandle("test", "value", 1, HIVE_DOUBLE, DOUBLE.getTypeSignature(), 1, false);
+    private static final HiveColumnHandle NAME_COLUMN = new HiveColumnHandle("test", "name", 2, HIVE_STRING, VARCHAR.getTypeSignature(), 2, false);
+    private static final HiveColumnHandle FLAG_COLUMN = new HiveColumnHandle("test", "flag", 3, HIVE_BOOLEAN, BOOLEAN.getTypeSignature(), 3, false);
+    private static final List<HiveColumnHandle> COLUMNS = ImmutableList.of(KEY_COLUMN, VALUE_COLUMN, NAME_COLUMN, FLAG_COLUMN);
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, DOUBLE, VARCHAR, BOOLEAN);
+
+    private File file;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        file = File.createTempFile("presto_test", "orc");
+        file.delete();
+        writeFile(file);
+    }
+
+    @AfterClass
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    @Test
+    public void testLongRanges()
+            throws Exception
+    {
+        assertLateMaterialization(TupleDomain.withColumnDomains(ImmutableMap.of(
+                KEY_COLUMN, Domain.create(SortedRangeSet.of(Range.range(1000L, true, 1999L, false), Range.equal(5000L), Range.greaterThan(9990L)), false))));
+    }
+
+    @Test
+    public void testDoubleRangeWithNulls()
+            throws Exception
+    {
+        assertLateMaterialization(TupleDomain.withColumnDomains(ImmutableMap.of(
+                VALUE_COLUMN, Domain.create(SortedRangeSet.of(Range.lessThan(100.0), Range.greaterThanOrEqual(4000.0)), true))));
+    }
+
+    @Test
+    public void testSliceValues()
+            throws Exception
+    {
+        assertLateMaterialization(TupleDomain.withColumnDomains(ImmutableMap.of(
+                NAME_COLUMN, Domain.create(SortedRangeSet.of(Range.equal(utf8Slice("name1")), Range.equal(utf8Slice("name42"))), false))));
+        assertLateMaterialization(TupleDomain.withColumnDomains(ImmutableMap.of(
+                NAME_COLUMN, Domain.create(SortedRangeSet.of(Range.range(utf8Slice("name1"), false, utf8Slice("name3"), true)), true))));
+    }
+
+    @Test
+    public void testMultipleColumns()
+            throws Exception
+    {
+        assertLateMaterialization(TupleDomain.withColumnDomains(ImmutableMap.of(
+                KEY_COLUMN, Domain.create(SortedRangeSet.of(Range.lessThan(5000L)), false),
+                FLAG_COLUMN, Domain.singleValue(true),
+                NAME_COLUMN, Domain.notNull(VARCHAR.getJavaType()))));
+    }
+
+    @Test
+    public void testNoMatchingRows()
+            throws Exception
+    {
+        // the value is inside the statistics of the file, so only the row selection can remove the rows
+        TupleDomain<HiveColumnHandle> predicate = TupleDomain.withColumnDomains(ImmutableMap.of(
+                VALUE_COLUMN, Domain.create(SortedRangeSet.of(Range.range(100.1, false, 100.4, false)), false)));
+        assertEquals(readRows(predicate, true), ImmutableList.of());
+        assertTrue(readRows(predicate, false).size() > 0);
+    }
+
+    private void assertLateMaterialization(TupleDomain<HiveColumnHandle> predicate)
+            throws Exception
+    {
+        // without late materialization the predicate is only used to skip row groups, so the
+        // same rows must remain after the predicate is applied to the rows read the old way
+        List<List<Object>> expected = new ArrayList<>();
+        for (List<Object> row : readRows(predicate, false)) {
+            if (matches(predicate, row)) {
+                expected.add(row);
+            }
+        }
+        assertTrue(expected.size() > 0);
+        assertEquals(readRows(predicate, true), expected);
+    }
+
+    private static boolean matches(TupleDomain<HiveColumnHandle> predicate, List<Object> row)
+    {
+        for (Map.Entry<HiveColumnHandle, Domain> entry : predicate.getDomains().entrySet()) {
+            Object value = row.get(COLUMNS.indexOf(entry.getKey()));
+            if (value instanceof String) {
+                value = utf8Slice((String) value);
+            }
+            if (!entry.getValue().includesValue((Comparable<?>) value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<List<Object>> readRows(TupleDomain<HiveColumnHandle> predicate, boolean lateMaterializationEnabled)
+            throws Exception
+    {
+        ConnectorPageSource pageSource = OrcPageSourceFactory.createOrcPageSource(
+                new OrcMetadataReader(),
+                new Configuration(),
+                new Path(file.toURI()),
+                0,
+                file.length(),
+                COLUMNS,
+                ImmutableList.of(),
+                predicate,
+                DateTimeZone.UTC,
+                TYPE_MANAGER,
+                new DataSize(1, MEGABYTE),
+                new DataSize(8, MEGABYTE),
+                new DataSize(8, MEGABYTE),
+                new OrcDataCache(false, new DataSize(0, MEGABYTE), new DataSize(1, MEGABYTE)),
+                new OrcFileTailCache(new DataSize(0, MEGABYTE)),
+                Optional.empty(),
+                new DataSize(0, MEGABYTE),
+                lateMaterializationEnabled,
+                Optional.empty());
+
+        List<List<Object>> rows = new ArrayList<>();
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page == null) {
+                continue;
+            }
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                List<Object> row = new ArrayList<>();
+                for (int channel = 0; channel < TYPES.size(); channel++) {
+                    Block block = page.getBlock(channel);
+                    row.add(TYPES.get(channel).getObjectValue(null, block, position));
+                }
+                rows.add(row);
+            }
+        }
+        pageSource.close();
+        return rows;
+    }
+
+    private static void writeFile(File file)
+            throws Exception
+    {
+        JobConf jobConf = new JobConf();
+        Properties tableProperties = new Properties();
+        tableProperties.setProperty("columns", "key,value,name,flag");
+        tableProperties.setProperty("columns.types", "bigint,double,string,boolean");
+
+        @SuppressWarnings("deprecation")
+        OrcSerde serde = new OrcSerde();
+        serde.initialize(new Configuration(), tableProperties);
+
+        SettableStructObjectInspector objectInspector = getStandardStructObjectInspector(
+                ImmutableList.of("key", "value", "name", "flag"),
+                ImmutableList.of(javaLongObjectInspector, javaDoubleObjectInspector, javaStringObjectInspector, javaBooleanObjectInspector));
+        List<StructField> fields = ImmutableList.copyOf(objectInspector.getAllStructFieldRefs());
+
+        RecordWriter recordWriter = new OrcOutputFormat().getHiveRecordWriter(jobConf, new Path(file.toURI()), Text.class, false, tableProperties, () -> { });
+        try {
+            Object row = objectInspector.create();
+            for (int i = 0; i < ROW_COUNT; i++) {
+                // the names repeat, so the column is dictionary encoded
+                List<Object> values = Arrays.asList(
+                        (long) i,
+                        i % 7 == 0 ? null : i / 2.0,
+                        i % 11 == 0 ? null : "name" + (i % 100),
+                        i % 2 == 0);
+                for (int field = 0; field < fields.size(); field++) {
+                    objectInspector.setStructFieldData(row, fields.get(field), values.get(field));
+                }
+                recordWriter.write(serde.serialize(row, objectInspector));
+            }
+        }
+        finally {
+            recordWriter.close(false);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.orc.BooleanVector;
+import com.facebook.presto.orc.DoubleVector;
+import com.facebook.presto.orc.LongVector;
+import com.facebook.presto.orc.SliceVector;
+import com.facebook.presto.orc.Vector;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+
+public class TestVectorFilter
+{
+    private static final List<Long> LONG_VALUES = ImmutableList.of(Long.MIN_VALUE, Long.MIN_VALUE + 1, -10L, -1L, 0L, 1L, 9L, 10L, 11L, 20L, 21L, Long.MAX_VALUE - 1, Long.MAX_VALUE);
+    private static final List<Double> DOUBLE_VALUES = ImmutableList.of(Double.NEGATIVE_INFINITY, -10.0, -0.5, 0.0, 0.5, 10.0, 10.5, 20.0, Double.POSITIVE_INFINITY, Double.NaN);
+    private static final List<Slice> SLICE_VALUES = ImmutableList.of(utf8Slice(""), utf8Slice("a"), utf8Slice("abc"), utf8Slice("b"), utf8Slice("bb"), utf8Slice("c"), utf8Slice("zzz"));
+
+    @Test
+    public void testLong()
+    {
+        assertLongFilter(Domain.singleValue(10L));
+        assertLongFilter(Domain.notNull(Long.class));
+        assertLongFilter(Domain.onlyNull(Long.class));
+        assertLongFilter(Domain.create(SortedRangeSet.of(Range.range(0L, false, 10L, true), Range.range(20L, true, 21L, false)), true));
+        assertLongFilter(Domain.create(SortedRangeSet.of(Range.lessThan(Long.MIN_VALUE + 1), Range.greaterThan(Long.MAX_VALUE - 1)), false));
+        assertLongFilter(Domain.create(SortedRangeSet.of(Range.greaterThan(Long.MAX_VALUE)), false));
+        assertLongFilter(Domain.create(SortedRangeSet.of(Range.lessThan(Long.MIN_VALUE)), true));
+        assertLongFilter(Domain.create(SortedRangeSet.of(Range.equal(-10L), Range.equal(-1L), Range.equal(1L), Range.equal(11L), Range.greaterThanOrEqual(21L)), false));
+    }
+
+    @Test
+    public void testDouble()
+    {
+        assertDoubleFilter(Domain.singleValue(0.5));
+        assertDoubleFilter(Domain.notNull(Double.class));
+        assertDoubleFilter(Domain.create(SortedRangeSet.of(Range.lessThan(0.0), Range.range(0.5, false, 10.5, true)), true));
+        assertDoubleFilter(Domain.create(SortedRangeSet.of(Range.greaterThan(10.0)), false));
+        assertDoubleFilter(Domain.create(SortedRangeSet.of(Range.lessThanOrEqual(Double.NEGATIVE_INFINITY), Range.greaterThanOrEqual(Double.POSITIVE_INFINITY)), false));
+    }
+
+    @Test
+    public void testSlice()
+    {
+        assertSliceFilter(Domain.singleValue(utf8Slice("abc")));
+        assertSliceFilter(Domain.notNull(Slice.class));
+        assertSliceFilter(Domain.create(SortedRangeSet.of(Range.range(utf8Slice("a"), false, utf8Slice("b"), true), Range.greaterThan(utf8Slice("c"))), true));
+        assertSliceFilter(Domain.create(SortedRangeSet.of(Range.lessThan(utf8Slice("abc")), Range.equal(utf8Slice("bb"))), false));
+    }
+
+    @Test
+    public void testSliceDictionary()
+    {
+        Domain domain = Domain.create(SortedRangeSet.of(Range.equal(utf8Slice("a")), Range.equal(utf8Slice("c"))), true);
+        VectorFilter filter = VectorFilter.create(VARCHAR, domain);
+
+        // the last dictionary entry is used for nulls
+        Slice[] dictionary = {utf8Slice("a"), utf8Slice("b"), utf8Slice("c"), null};
+        SliceVector vector = (SliceVector) filter.createVector();
+        int[] ids = {0, 1, 2, 3, 1, 0};
+        for (int i = 0; i < ids.length; i++) {
+            vector.ids[i] = ids[i];
+            vector.vector[i] = dictionary[ids[i]];
+        }
+        vector.dictionary = dictionary;
+        assertFilter(filter, vector, ids.length, domain, Arrays.asList(utf8Slice("a"), utf8Slice("b"), utf8Slice("c"), null, utf8Slice("b"), utf8Slice("a")));
+
+        // a new stripe has a new dictionary
+        Slice[] newDictionary = {utf8Slice("c"), utf8Slice("d"), null};
+        vector.ids[0] = 0;
+        vector.ids[1] = 1;
+        vector.dictionary = newDictionary;
+        assertEquals(filter.filter(vector, new int[] {0, 1}, 2), 1);
+    }
+
+    @Test
+    public void testBoolean()
+    {
+        for (Domain domain : ImmutableList.of(Domain.singleValue(true), Domain.singleValue(false), Domain.notNull(Boolean.class), Domain.onlyNull(Boolean.class))) {
+            VectorFilter filter = VectorFilter.create(BOOLEAN, domain);
+            BooleanVector vector = (BooleanVector) filter.createVector();
+            vector.vector[0] = true;
+            vector.vector[1] = false;
+            vector.isNull[2] = true;
+            assertFilter(filter, vector, 3, domain, Arrays.asList(true, false, null));
+        }
+    }
+
+    private static void assertLongFilter(Domain domain)
+    {
+        VectorFilter filter = VectorFilter.create(BIGINT, domain);
+        LongVector vector = (LongVector) filter.createVector();
+        for (int i = 0; i < LONG_VALUES.size(); i++) {
+            vector.vector[i] = LONG_VALUES.get(i);
+        }
+        vector.isNull[LONG_VALUES.size()] = true;
+        assertFilter(filter, vector, LONG_VALUES.size() + 1, domain, withNull(LONG_VALUES));
+    }
+
+    private static void assertDoubleFilter(Domain domain)
+    {
+        VectorFilter filter = VectorFilter.create(DOUBLE, domain);
+        DoubleVector vector = (DoubleVector) filter.createVector();
+        for (int i = 0; i < DOUBLE_VALUES.size(); i++) {
+            vector.vector[i] = DOUBLE_VALUES.get(i);
+        }
+        vector.isNull[DOUBLE_VALUES.size()] = true;
+        assertFilter(filter, vector, DOUBLE_VALUES.size() + 1, domain, withNull(DOUBLE_VALUES));
+    }
+
+    private static void assertSliceFilter(Domain domain)
+    {
+        VectorFilter filter = VectorFilter.create(VARCHAR, domain);
+        SliceVector vector = (SliceVector) filter.createVector();
+        for (int i = 0; i < SLICE_VALUES.size(); i++) {
+            vector.vector[i] = SLICE_VALUES.get(i);
+        }
+        assertFilter(filter, vector, SLICE_VALUES.size() + 1, domain, withNull(SLICE_VALUES));
+    }
+
+    private static void assertFilter(VectorFilter filter, Vector vector, int positionCount, Domain domain, List<? extends Comparable<?>> values)
+    {
+        int[] positions = new int[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            positions[i] = i;
+        }
+        int matchingCount = filter.filter(vector, positions, positionCount);
+
+        ImmutableList.Builder<Integer> expected = ImmutableList.builder();
+        for (int i = 0; i < positionCount; i++) {
+            if (domain.includesValue(values.get(i))) {
+                expected.add(i);
+            }
+        }
+        ImmutableList.Builder<Integer> actual = ImmutableList.builder();
+        for (int i = 0; i < matchingCount; i++) {
+            actual.add(positions[i]);
+        }
+        assertEquals(actual.build(), expected.build(), domain.toString());
+    }
+
+    private static <T> List<T> withNull(List<T> values)
+    {
+        List<T> result = new ArrayList<>(values);
+        result.add(null);
+        return result;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.testng.annotations.Test;
+import parquet.bytes.BytesInput;
+import parquet.column.ColumnDescriptor;
+import parquet.column.Encoding;
+import parquet.column.page.DictionaryPage;
+import parquet.column.page.Page;
+import parquet.column.page.PageReader;
+import parquet.column.statistics.BinaryStatistics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY;
+
+public class TestParquetColumnReader
+{
+    // a required column, so the pages have no repetition or definition levels
+    private static final ColumnDescriptor DESCRIPTOR = new ColumnDescriptor(new String[] {"name"}, BINARY, 0, 0);
+
+    @Test
+    public void testDictionaryPage()
+            throws IOException
+    {
+        ParquetColumnReader reader = new ParquetColumnReader(DESCRIPTOR);
+        reader.setPageReader(new TestingPageReader(
+                dictionaryPage("a", "b"),
+                ImmutableList.of(dictionaryDataPage(1, 1, 1, 0, 0))));
+
+        Slice[] dictionary = reader.getDictionary();
+        assertEquals(dictionary.length, 3);
+        assertEquals(dictionary[0], utf8Slice("a"));
+        assertEquals(dictionary[1], utf8Slice("b"));
+        // the trailing entry is for nulls
+        assertNull(dictionary[2]);
+
+        Slice[] values = new Slice[5];
+        int[] ids = new int[5];
+        reader.prepareNextRead(5);
+        assertTrue(reader.readSliceVector(values, ids));
+        assertEquals(values, slices("b", "b", "b", "a", "a"));
+        assertEquals(ids, new int[] {1, 1, 1, 0, 0});
+    }
+
+    @Test
+    public void testSkipDictionaryValues()
+            throws IOException
+    {
+        ParquetColumnReader reader = new ParquetColumnReader(DESCRIPTOR);
+        reader.setPageReader(new TestingPageReader(
+                dictionaryPage("a", "b", "c"),
+                ImmutableList.of(dictionaryDataPage(2, 2, 0), dictionaryDataPage(1, 0, 2))));
+
+        // the first batch is never read, so its values are skipped when the second one is
+        reader.prepareNextRead(2);
+        reader.prepareNextRead(3);
+
+        Slice[] values = new Slice[3];
+        int[] ids = new int[3];
+        assertTrue(reader.readSliceVector(values, ids));
+        assertEquals(values, slices("a", "b", "a"));
+        assertEquals(ids, new int[] {0, 1, 0});
+    }
+
+    @Test
+    public void testFallbackToPlainPages()
+            throws IOException
+    {
+        // writers switch a column chunk to plain pages once its dictionary grows too large
+        ParquetColumnReader reader = new ParquetColumnReader(DESCRIPTOR);
+        reader.setPageReader(new TestingPageReader(
+                dictionaryPage("a", "b"),
+                ImmutableList.of(dictionaryDataPage(0, 1), plainDataPage("c", "d"))));
+
+        Slice[] values = new Slice[4];
+        reader.prepareNextRead(4);
+        assertFalse(reader.readSliceVector(values, new int[4]));
+        assertEquals(values, slices("a", "b", "c", "d"));
+    }
+
+    @Test
+    public void testPlainPages()
+            throws IOException
+    {
+        ParquetColumnReader reader = new ParquetColumnReader(DESCRIPTOR);
+        reader.setPageReader(new TestingPageReader(null, ImmutableList.of(plainDataPage("x", "y", "z"))));
+
+        assertNull(reader.getDictionary());
+
+        Slice[] values = new Slice[3];
+        reader.prepareNextRead(3);
+        assertFalse(reader.readSliceVector(values, new int[3]));
+        assertEquals(values, slices("x", "y", "z"));
+    }
+
+    private static Slice[] slices(String... values)
+    {
+        return Arrays.stream(values)
+                .map(Slices::utf8Slice)
+                .toArray(Slice[]::new);
+    }
+
+    private static DictionaryPage dictionaryPage(String... values)
+    {
+        return new DictionaryPage(BytesInput.from(plainEncode(values)), values.length, Encoding.PLAIN_DICTIONARY);
+    }
+
+    private static Page plainDataPage(String... values)
+    {
+        return dataPage(plainEncode(values), values.length, Encoding.PLAIN);
+    }
+
+    // encodes the ids as single runs of the run length / bit packing hybrid encoding with a width of 8 bits
+    private static Page dictionaryDataPage(int... ids)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(8);
+        for (int id : ids) {
+            // header of a run of length one, followed by the value
+            out.write(1 << 1);
+            out.write(id);
+        }
+        return dataPage(out.toByteArray(), ids.length, Encoding.PLAIN_DICTIONARY);
+    }
+
+    private static Page dataPage(byte[] bytes, int valueCount, Encoding valueEncoding)
+    {
+        // the levels of a required column are not stored
+        return new Page(BytesInput.from(bytes), valueCount, bytes.length, new BinaryStatistics(), Encoding.RLE, Encoding.RLE, valueEncoding);
+    }
+
+    private static byte[] plainEncode(String... values)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String value : values) {
+            byte[] bytes = value.getBytes(UTF_8);
+            out.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(bytes.length).array(), 0, 4);
+            out.write(bytes, 0, bytes.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static class TestingPageReader
+            implements PageReader
+    {
+        private final DictionaryPage dictionaryPage;
+        private final Queue<Page> pages;
+        private final long totalValueCount;
+
+        public TestingPageReader(DictionaryPage dictionaryPage, List<Page> pages)
+        {
+            this.dictionaryPage = dictionaryPage;
+            this.pages = new ArrayDeque<>(pages);
+            this.totalValueCount = pages.stream().mapToLong(Page::getValueCount).sum();
+        }
+
+        @Override
+        public DictionaryPage readDictionaryPage()
+        {
+            return dictionaryPage;
+        }
+
+        @Override
+        public long getTotalValueCount()
+        {
+            return totalValueCount;
+        }
+
+        @Override
+        public Page readPage()
+        {
+            return pages.poll();
+        }
+    }
+}
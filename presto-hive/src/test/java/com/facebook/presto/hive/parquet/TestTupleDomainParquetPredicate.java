@@ -0,0 +1,207 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.hive.parquet.TupleDomainParquetPredicate.ColumnReference;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+import parquet.column.ColumnDescriptor;
+import parquet.column.Encoding;
+import parquet.column.statistics.BinaryStatistics;
+import parquet.column.statistics.BooleanStatistics;
+import parquet.column.statistics.DoubleStatistics;
+import parquet.column.statistics.FloatStatistics;
+import parquet.column.statistics.IntStatistics;
+import parquet.column.statistics.LongStatistics;
+import parquet.column.statistics.Statistics;
+import parquet.hadoop.metadata.BlockMetaData;
+import parquet.hadoop.metadata.ColumnChunkMetaData;
+import parquet.hadoop.metadata.ColumnPath;
+import parquet.hadoop.metadata.CompressionCodecName;
+import parquet.io.api.Binary;
+import parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+import java.util.List;
+
+import static com.facebook.presto.hive.parquet.TupleDomainParquetPredicate.getDomain;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.BINARY;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.INT64;
+
+public class TestTupleDomainParquetPredicate
+{
+    private static final ColumnDescriptor KEY_DESCRIPTOR = new ColumnDescriptor(new String[] {"key"}, INT64, 0, 1);
+    private static final ColumnDescriptor NAME_DESCRIPTOR = new ColumnDescriptor(new String[] {"name"}, BINARY, 0, 1);
+    private static final List<ColumnReference<String>> COLUMNS = ImmutableList.of(
+            new ColumnReference<>("key", KEY_DESCRIPTOR, BIGINT),
+            new ColumnReference<>("name", NAME_DESCRIPTOR, VARCHAR));
+
+    @Test
+    public void testBoolean()
+    {
+        assertEquals(getDomain(BOOLEAN, 10, booleanStatistics(true, true, 0)), Domain.create(SortedRangeSet.singleValue(true), false));
+        assertEquals(getDomain(BOOLEAN, 10, booleanStatistics(false, false, 1)), Domain.create(SortedRangeSet.singleValue(false), true));
+        assertEquals(getDomain(BOOLEAN, 10, booleanStatistics(false, true, 0)), Domain.create(SortedRangeSet.all(Boolean.class), false));
+    }
+
+    @Test
+    public void testBigint()
+    {
+        assertEquals(getDomain(BIGINT, 10, longStatistics(-5, 20, 0)), Domain.create(SortedRangeSet.of(Range.range(-5L, true, 20L, true)), false));
+        assertEquals(getDomain(BIGINT, 10, longStatistics(7, 7, 3)), Domain.create(SortedRangeSet.singleValue(7L), true));
+
+        // int32 columns are read as bigint
+        IntStatistics intStatistics = new IntStatistics();
+        intStatistics.setMinMax(1, 3);
+        intStatistics.setNumNulls(0);
+        assertEquals(getDomain(BIGINT, 10, intStatistics), Domain.create(SortedRangeSet.of(Range.range(1L, true, 3L, true)), false));
+    }
+
+    @Test
+    public void testDouble()
+    {
+        DoubleStatistics doubleStatistics = new DoubleStatistics();
+        doubleStatistics.setMinMax(-1.5, 2.5);
+        doubleStatistics.setNumNulls(0);
+        assertEquals(getDomain(DOUBLE, 10, doubleStatistics), Domain.create(SortedRangeSet.of(Range.range(-1.5, true, 2.5, true)), false));
+
+        // float columns are read as double
+        FloatStatistics floatStatistics = new FloatStatistics();
+        floatStatistics.setMinMax(0.5f, 1.5f);
+        floatStatistics.setNumNulls(0);
+        assertEquals(getDomain(DOUBLE, 10, floatStatistics), Domain.create(SortedRangeSet.of(Range.range(0.5, true, 1.5, true)), false));
+
+        // NaN is not ordered, so the range can not be used
+        DoubleStatistics nanStatistics = new DoubleStatistics();
+        nanStatistics.setMinMax(Double.NaN, 2.5);
+        nanStatistics.setNumNulls(0);
+        assertEquals(getDomain(DOUBLE, 10, nanStatistics), Domain.create(SortedRangeSet.all(Double.class), false));
+    }
+
+    @Test
+    public void testVarcharStatisticsIgnored()
+    {
+        BinaryStatistics statistics = new BinaryStatistics();
+        statistics.setMinMax(Binary.fromString("a"), Binary.fromString("c"));
+        statistics.setNumNulls(0);
+        assertEquals(getDomain(VARCHAR, 10, statistics), Domain.create(SortedRangeSet.all(VARCHAR.getJavaType()), false));
+    }
+
+    @Test
+    public void testMissingStatistics()
+    {
+        assertEquals(getDomain(BIGINT, 10, null), Domain.all(Long.class));
+        assertEquals(getDomain(BIGINT, 10, new LongStatistics()), Domain.all(Long.class));
+
+        // an empty row group can not match anything
+        assertEquals(getDomain(BIGINT, 0, longStatistics(1, 2, 0)), Domain.none(Long.class));
+    }
+
+    @Test
+    public void testRowGroupSkipping()
+    {
+        BlockMetaData rowGroup = rowGroup(100, longStatistics(10, 20, 0));
+
+        assertTrue(matches(rowGroup, TupleDomain.all()));
+        assertTrue(matches(rowGroup, keyDomain(Domain.singleValue(15L))));
+        assertTrue(matches(rowGroup, keyDomain(Domain.create(SortedRangeSet.of(Range.greaterThanOrEqual(20L)), false))));
+        assertFalse(matches(rowGroup, keyDomain(Domain.singleValue(21L))));
+        assertFalse(matches(rowGroup, keyDomain(Domain.create(SortedRangeSet.of(Range.lessThan(10L)), false))));
+        assertFalse(matches(rowGroup, TupleDomain.none()));
+
+        // without nulls in the chunk, a null only predicate skips it
+        assertFalse(matches(rowGroup, keyDomain(Domain.onlyNull(Long.class))));
+        assertTrue(matches(rowGroup(100, longStatistics(10, 20, 5)), keyDomain(Domain.onlyNull(Long.class))));
+
+        // the statistics of the name column can not be used, so a predicate on it never skips the row group
+        assertTrue(matches(rowGroup, TupleDomain.withColumnDomains(ImmutableMap.of("name", Domain.singleValue(utf8Slice("zzz"))))));
+    }
+
+    @Test
+    public void testRowGroupWithoutColumnChunk()
+    {
+        // the column is missing from the file, so nothing is known about its values
+        BlockMetaData rowGroup = new BlockMetaData();
+        rowGroup.setRowCount(100);
+
+        assertTrue(matches(rowGroup, keyDomain(Domain.singleValue(21L))));
+    }
+
+    private static boolean matches(BlockMetaData rowGroup, TupleDomain<String> effectivePredicate)
+    {
+        return new TupleDomainParquetPredicate<>(effectivePredicate, COLUMNS).matches(rowGroup);
+    }
+
+    private static TupleDomain<String> keyDomain(Domain domain)
+    {
+        return TupleDomain.withColumnDomains(ImmutableMap.of("key", domain));
+    }
+
+    private static BlockMetaData rowGroup(long rowCount, LongStatistics keyStatistics)
+    {
+        BinaryStatistics nameStatistics = new BinaryStatistics();
+        nameStatistics.setMinMax(Binary.fromString("a"), Binary.fromString("c"));
+        nameStatistics.setNumNulls(0);
+
+        BlockMetaData rowGroup = new BlockMetaData();
+        rowGroup.setRowCount(rowCount);
+        rowGroup.addColumn(columnChunk(KEY_DESCRIPTOR, INT64, keyStatistics, rowCount));
+        rowGroup.addColumn(columnChunk(NAME_DESCRIPTOR, BINARY, nameStatistics, rowCount));
+        return rowGroup;
+    }
+
+    private static ColumnChunkMetaData columnChunk(ColumnDescriptor descriptor, PrimitiveTypeName typeName, Statistics<?> statistics, long valueCount)
+    {
+        return ColumnChunkMetaData.get(
+                ColumnPath.get(descriptor.getPath()),
+                typeName,
+                CompressionCodecName.UNCOMPRESSED,
+                ImmutableSet.of(Encoding.PLAIN),
+                statistics,
+                0,
+                0,
+                valueCount,
+                0,
+                0);
+    }
+
+    private static BooleanStatistics booleanStatistics(boolean min, boolean max, long nullCount)
+    {
+        BooleanStatistics statistics = new BooleanStatistics();
+        statistics.setMinMax(min, max);
+        statistics.setNumNulls(nullCount);
+        return statistics;
+    }
+
+    private static LongStatistics longStatistics(long min, long max, long nullCount)
+    {
+        LongStatistics statistics = new LongStatistics();
+        statistics.setMinMax(min, max);
+        statistics.setNumNulls(nullCount);
+        return statistics;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.util;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.concurrent.BoundedExecutor;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestConcurrentBatchLoader
+{
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+    }
+
+    @AfterClass
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testOrder()
+    {
+        ConcurrentBatchLoader<Integer, String> loader = new ConcurrentBatchLoader<>(
+                ImmutableList.of(1, 2, 3, 4, 5).iterator(),
+                batch -> "batch " + batch,
+                executor,
+                2);
+        assertEquals(ImmutableList.copyOf(loader), ImmutableList.of("batch 1", "batch 2", "batch 3", "batch 4", "batch 5"));
+    }
+
+    @Test(timeOut = 10_000)
+    public void testConcurrentLoads()
+            throws Exception
+    {
+        // the first batch can only finish once the second batch is loading
+        CountDownLatch secondBatchStarted = new CountDownLatch(1);
+        AtomicInteger maxStarted = new AtomicInteger();
+        ConcurrentBatchLoader<Integer, Integer> loader = new ConcurrentBatchLoader<>(
+                ImmutableList.of(1, 2, 3, 4).iterator(),
+                batch -> {
+                    maxStarted.accumulateAndGet(batch, Math::max);
+                    if (batch == 2) {
+                        secondBatchStarted.countDown();
+                    }
+                    if (batch == 1) {
+                        try {
+                            assertTrue(secondBatchStarted.await(5, SECONDS));
+                        }
+                        catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RuntimeException(e);
+                        }
+                    }
+                    return batch;
+                },
+                executor,
+                2);
+
+        assertEquals(loader.next().intValue(), 1);
+        // no more than two batches are loading ahead of the consumer
+        assertEquals(maxStarted.get(), 2);
+        assertEquals(ImmutableList.copyOf(loader), ImmutableList.of(2, 3, 4));
+    }
+
+    @Test(timeOut = 10_000)
+    public void testSaturatedConsumerExecutor()
+            throws Exception
+    {
+        // consumers use every thread of their executor, like the split loaders of concurrent queries
+        int consumers = 3;
+        Executor consumerExecutor = new BoundedExecutor(executor, consumers);
+        Executor loaderExecutor = new BoundedExecutor(executor, 1);
+
+        CountDownLatch allConsumersStarted = new CountDownLatch(consumers);
+        List<FutureTask<List<Integer>>> tasks = new ArrayList<>();
+        for (int i = 0; i < consumers; i++) {
+            FutureTask<List<Integer>> task = new FutureTask<>(() -> {
+                allConsumersStarted.countDown();
+                assertTrue(allConsumersStarted.await(5, SECONDS));
+                return ImmutableList.copyOf(new ConcurrentBatchLoader<>(ImmutableList.of(1, 2, 3).iterator(), batch -> batch, loaderExecutor, 2));
+            });
+            consumerExecutor.execute(task);
+            tasks.add(task);
+        }
+
+        // loading on the consumer executor would never finish, as all of its threads wait for a batch
+        for (FutureTask<List<Integer>> task : tasks) {
+            assertEquals(task.get(), ImmutableList.of(1, 2, 3));
+        }
+    }
+
+    @Test
+    public void testFailure()
+    {
+        ConcurrentBatchLoader<Integer, Integer> loader = new ConcurrentBatchLoader<>(
+                ImmutableList.of(1, 2, 3).iterator(),
+                batch -> {
+                    if (batch == 2) {
+                        throw new IllegalStateException("test failure");
+                    }
+                    return batch;
+                },
+                executor,
+                3);
+
+        assertEquals(loader.next().intValue(), 1);
+        try {
+            loader.next();
+            fail("expected exception");
+        }
+        catch (IllegalStateException e) {
+            assertEquals(e.getMessage(), "test failure");
+        }
+    }
+}
@@ -60,7 +60,7 @@ class QueryExecutor
 
     public StatementClient startQuery(ClientSession session, String query)
     {
-        return new StatementClient(httpClient, queryInfoCodec, session, query);
+        return new StatementClient(httpClient, queryInfoCodec, session, query, true);
     }
 
     @Override
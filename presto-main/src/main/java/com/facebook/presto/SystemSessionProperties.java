@@ -28,6 +28,11 @@ public final class SystemSessionProperties
     private static final String TASK_AGGREGATION_CONCURRENCY = "task_aggregation_concurrency";
     private static final String QUERY_MAX_MEMORY = "query_max_memory";
     private static final String REDISTRIBUTE_WRITES = "redistribute_writes";
+    private static final String SPILL_ENABLED = "spill_enabled";
+    private static final String DYNAMIC_FILTERING_ENABLED = "dynamic_filtering_enabled";
+    private static final String REORDER_JOINS = "reorder_joins";
+    private static final String AUTOMATIC_JOIN_DISTRIBUTION = "automatic_join_distribution";
+    private static final String BROADCAST_JOIN_MAX_BUILD_SIZE = "broadcast_join_max_build_size";
 
     private SystemSessionProperties() {}
 
@@ -123,4 +128,29 @@ public final class SystemSessionProperties
     {
         return isEnabled(REDISTRIBUTE_WRITES, session, defaultValue);
     }
+
+    public static boolean isSpillEnabled(Session session, boolean defaultValue)
+    {
+        return isEnabled(SPILL_ENABLED, session, defaultValue);
+    }
+
+    public static boolean isDynamicFilteringEnabled(Session session, boolean defaultValue)
+    {
+        return isEnabled(DYNAMIC_FILTERING_ENABLED, session, defaultValue);
+    }
+
+    public static boolean isReorderJoinsEnabled(Session session, boolean defaultValue)
+    {
+        return isEnabled(REORDER_JOINS, session, defaultValue);
+    }
+
+    public static boolean isAutomaticJoinDistribution(Session session, boolean defaultValue)
+    {
+        return isEnabled(AUTOMATIC_JOIN_DISTRIBUTION, session, defaultValue);
+    }
+
+    public static DataSize getBroadcastJoinMaxBuildSize(Session session, DataSize defaultValue)
+    {
+        return getDataSize(BROADCAST_JOIN_MAX_BUILD_SIZE, session, defaultValue);
+    }
 }
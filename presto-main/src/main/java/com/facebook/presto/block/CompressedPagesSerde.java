@@ -0,0 +1,164 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.block;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.google.common.collect.AbstractIterator;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+import org.iq80.snappy.Snappy;
+
+import java.util.Iterator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static java.lang.Math.min;
+import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
+
+// Frames each page serialized with PagesSerde so it can be individually compressed.
+//
+// layout is a sequence of:
+//   - codec (byte): 0 = uncompressed, 1 = snappy
+//   - uncompressed size (int)
+//   - payload size (int)
+//   - payload
+public final class CompressedPagesSerde
+{
+    public static final String SNAPPY_CODEC = "snappy";
+
+    private static final byte UNCOMPRESSED = 0;
+    private static final byte SNAPPY = 1;
+    private static final int FRAME_HEADER_SIZE = SIZE_OF_BYTE + SIZE_OF_INT + SIZE_OF_INT;
+
+    // small pages do not compress well enough to pay for the extra copy on the reader
+    private static final int MINIMUM_COMPRESSION_SIZE = 1024;
+    // pages that do not shrink at least this much are sent uncompressed
+    private static final double MAXIMUM_COMPRESSION_RATIO = 0.8;
+
+    private CompressedPagesSerde() {}
+
+    public static void writePages(BlockEncodingSerde blockEncodingSerde, SliceOutput sliceOutput, Iterable<Page> pages)
+    {
+        checkNotNull(blockEncodingSerde, "blockEncodingSerde is null");
+        checkNotNull(sliceOutput, "sliceOutput is null");
+
+        byte[] compressed = new byte[0];
+        for (Page page : pages) {
+            DynamicSliceOutput pageOutput = new DynamicSliceOutput((int) min(page.getSizeInBytes() + 1024, Integer.MAX_VALUE));
+            PagesSerde.writePages(blockEncodingSerde, pageOutput, page);
+            Slice serialized = pageOutput.slice();
+            int uncompressedSize = serialized.length();
+
+            if (uncompressedSize >= MINIMUM_COMPRESSION_SIZE) {
+                int maxCompressedSize = Snappy.maxCompressedLength(uncompressedSize);
+                if (compressed.length < maxCompressedSize) {
+                    compressed = new byte[maxCompressedSize];
+                }
+                byte[] base = (byte[]) serialized.getBase();
+                int offset = (int) (serialized.getAddress() - ARRAY_BYTE_BASE_OFFSET);
+                int compressedSize = Snappy.compress(base, offset, uncompressedSize, compressed, 0);
+
+                if (compressedSize <= uncompressedSize * MAXIMUM_COMPRESSION_RATIO) {
+                    sliceOutput.writeByte(SNAPPY);
+                    sliceOutput.writeInt(uncompressedSize);
+                    sliceOutput.writeInt(compressedSize);
+                    sliceOutput.writeBytes(compressed, 0, compressedSize);
+                    continue;
+                }
+            }
+
+            sliceOutput.writeByte(UNCOMPRESSED);
+            sliceOutput.writeInt(uncompressedSize);
+            sliceOutput.writeInt(uncompressedSize);
+            sliceOutput.writeBytes(serialized);
+        }
+    }
+
+    public static PagesReader readPages(BlockEncodingSerde blockEncodingSerde, SliceInput sliceInput)
+    {
+        return new PagesReader(blockEncodingSerde, sliceInput);
+    }
+
+    public static class PagesReader
+            extends AbstractIterator<Page>
+    {
+        private final BlockEncodingSerde serde;
+        private final SliceInput input;
+
+        private long compressedBytes;
+        private long uncompressedBytes;
+
+        private PagesReader(BlockEncodingSerde serde, SliceInput input)
+        {
+            this.serde = checkNotNull(serde, "serde is null");
+            this.input = checkNotNull(input, "input is null");
+        }
+
+        /**
+         * Bytes read from the input, including the frame headers.
+         */
+        public long getCompressedBytes()
+        {
+            return compressedBytes;
+        }
+
+        /**
+         * Bytes of the pages after decompression, as written by {@link PagesSerde}.
+         */
+        public long getUncompressedBytes()
+        {
+            return uncompressedBytes;
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            if (!input.isReadable()) {
+                return endOfData();
+            }
+
+            byte codec = input.readByte();
+            int uncompressedSize = input.readInt();
+            int payloadSize = input.readInt();
+
+            Slice serialized;
+            if (codec == SNAPPY) {
+                byte[] compressed = new byte[payloadSize];
+                input.readBytes(compressed);
+                byte[] uncompressed = new byte[uncompressedSize];
+                int actualSize = Snappy.uncompress(compressed, 0, payloadSize, uncompressed, 0);
+                checkState(actualSize == uncompressedSize, "Expected page of %s bytes, but decompressed %s bytes", uncompressedSize, actualSize);
+                serialized = Slices.wrappedBuffer(uncompressed);
+            }
+            else {
+                checkState(codec == UNCOMPRESSED, "Unknown page codec %s", codec);
+                serialized = input.readSlice(payloadSize);
+            }
+
+            compressedBytes += FRAME_HEADER_SIZE + payloadSize;
+            uncompressedBytes += uncompressedSize;
+
+            Iterator<Page> pages = PagesSerde.readPages(serde, serialized.getInput());
+            Page page = pages.next();
+            checkState(!pages.hasNext(), "Expected a single page in frame");
+            return page;
+        }
+    }
+}
@@ -56,7 +56,7 @@ public class MemoryTrackingRemoteTaskFactory
     }
 
     private static final class UpdatePeakMemory
-            implements StateChangeListener<TaskInfo>
+            implements StateChangeListener<TaskStatus>
     {
         private final QueryStateMachine stateMachine;
         private long previousMemory;
@@ -67,9 +67,9 @@ public class MemoryTrackingRemoteTaskFactory
         }
 
         @Override
-        public synchronized void stateChanged(TaskInfo newState)
+        public synchronized void stateChanged(TaskStatus newState)
         {
-            long currentMemory = newState.getStats().getMemoryReservation().toBytes();
+            long currentMemory = newState.getMemoryReservation().toBytes();
             long deltaMemoryInBytes = currentMemory - previousMemory;
             previousMemory = currentMemory;
             stateMachine.updateMemoryUsage(deltaMemoryInBytes);
@@ -0,0 +1,200 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import io.airlift.stats.TimeStat;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Splits waiting for a runner thread, organized as a multi-level feedback queue.
+ * Each level is ordered by the natural order of the splits. A runner takes from
+ * the non-empty level that is furthest behind its share of the scheduled time,
+ * where each level is entitled to {@code levelTimeMultiplier} times the time of
+ * the level below it. This keeps the lower levels making progress without letting
+ * them take over the threads from the splits of short queries in level 0.
+ */
+@ThreadSafe
+public class MultilevelSplitQueue<T extends Comparable<T>>
+{
+    private final double[] levelShares;
+
+    @GuardedBy("this")
+    private final List<PriorityQueue<QueuedSplit<T>>> levelQueues;
+
+    @GuardedBy("this")
+    private final long[] levelScheduledNanos;
+
+    private final TimeStat[] levelWaitTime;
+
+    public MultilevelSplitQueue(int levels, double levelTimeMultiplier)
+    {
+        checkArgument(levels > 0, "levels must be at least 1");
+        checkArgument(levelTimeMultiplier >= 1, "levelTimeMultiplier must be at least 1");
+
+        this.levelShares = new double[levels];
+        this.levelQueues = new ArrayList<>(levels);
+        this.levelScheduledNanos = new long[levels];
+        this.levelWaitTime = new TimeStat[levels];
+        for (int level = 0; level < levels; level++) {
+            levelShares[level] = Math.pow(levelTimeMultiplier, -level);
+            levelQueues.add(new PriorityQueue<>());
+            levelWaitTime[level] = new TimeStat(NANOSECONDS);
+        }
+    }
+
+    public synchronized void offer(int level, T split)
+    {
+        checkElementIndex(level, levelQueues.size(), "level");
+        checkNotNull(split, "split is null");
+
+        PriorityQueue<QueuedSplit<T>> queue = levelQueues.get(level);
+        if (queue.isEmpty()) {
+            // a level that was idle must not get a burst of threads to make up for
+            // the time it did not use, so it starts even with the busiest level
+            double minNormalizedNanos = Double.MAX_VALUE;
+            for (int i = 0; i < levelQueues.size(); i++) {
+                if (!levelQueues.get(i).isEmpty()) {
+                    minNormalizedNanos = Math.min(minNormalizedNanos, levelScheduledNanos[i] / levelShares[i]);
+                }
+            }
+            if (minNormalizedNanos != Double.MAX_VALUE) {
+                levelScheduledNanos[level] = Math.max(levelScheduledNanos[level], (long) (minNormalizedNanos * levelShares[level]));
+            }
+        }
+        queue.add(new QueuedSplit<>(level, split));
+        notify();
+    }
+
+    /**
+     * Waits for a split and returns it along with the level it was queued at.
+     */
+    public synchronized QueuedSplit<T> take()
+            throws InterruptedException
+    {
+        while (true) {
+            int level = selectLevel();
+            if (level >= 0) {
+                QueuedSplit<T> split = levelQueues.get(level).poll();
+                levelWaitTime[level].add(System.nanoTime() - split.getQueuedNanos(), NANOSECONDS);
+                return split;
+            }
+            wait();
+        }
+    }
+
+    /**
+     * Charges time used by a split taken from the specified level.
+     */
+    public synchronized void addLevelTime(int level, long nanos)
+    {
+        checkElementIndex(level, levelQueues.size(), "level");
+        levelScheduledNanos[level] += nanos;
+    }
+
+    public synchronized void removeAll(Collection<T> splits)
+    {
+        for (PriorityQueue<QueuedSplit<T>> queue : levelQueues) {
+            queue.removeIf(queuedSplit -> splits.contains(queuedSplit.getSplit()));
+        }
+    }
+
+    public synchronized int size()
+    {
+        int size = 0;
+        for (PriorityQueue<QueuedSplit<T>> queue : levelQueues) {
+            size += queue.size();
+        }
+        return size;
+    }
+
+    public synchronized int getLevelSize(int level)
+    {
+        return levelQueues.get(level).size();
+    }
+
+    public synchronized long getLevelScheduledNanos(int level)
+    {
+        return levelScheduledNanos[level];
+    }
+
+    public TimeStat getLevelWaitTime(int level)
+    {
+        return levelWaitTime[level];
+    }
+
+    @GuardedBy("this")
+    private int selectLevel()
+    {
+        int selectedLevel = -1;
+        double selectedNormalizedNanos = Double.MAX_VALUE;
+        for (int level = 0; level < levelQueues.size(); level++) {
+            if (levelQueues.get(level).isEmpty()) {
+                continue;
+            }
+            double normalizedNanos = levelScheduledNanos[level] / levelShares[level];
+            if (normalizedNanos < selectedNormalizedNanos) {
+                selectedLevel = level;
+                selectedNormalizedNanos = normalizedNanos;
+            }
+        }
+        return selectedLevel;
+    }
+
+    public static final class QueuedSplit<T extends Comparable<T>>
+            implements Comparable<QueuedSplit<T>>
+    {
+        private final int level;
+        private final T split;
+        private final long queuedNanos = System.nanoTime();
+
+        private QueuedSplit(int level, T split)
+        {
+            this.level = level;
+            this.split = split;
+        }
+
+        public int getLevel()
+        {
+            return level;
+        }
+
+        public T getSplit()
+        {
+            return split;
+        }
+
+        private long getQueuedNanos()
+        {
+            return queuedNanos;
+        }
+
+        @Override
+        public int compareTo(QueuedSplit<T> o)
+        {
+            return split.compareTo(o.split);
+        }
+    }
+}
@@ -72,8 +72,8 @@ public class NodeTaskMap
         private synchronized void addTask(RemoteTask task)
         {
             remoteTasks.add(task);
-            task.addStateChangeListener(taskInfo -> {
-                if (taskInfo.getState().isDone()) {
+            task.addStateChangeListener(taskStatus -> {
+                if (taskStatus.getState().isDone()) {
                     synchronized (NodeTasks.this) {
                         remoteTasks.remove(task);
                     }
@@ -81,7 +81,7 @@ public class NodeTaskMap
             });
 
             // Check if task state changes before adding the listener
-            if (task.getTaskInfo().getState().isDone()) {
+            if (task.getTaskStatus().getState().isDone()) {
                 remoteTasks.remove(task);
             }
         }
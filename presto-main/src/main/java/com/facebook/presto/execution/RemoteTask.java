@@ -22,8 +22,15 @@ public interface RemoteTask
 {
     String getNodeId();
 
+    /**
+     * Returns the last full task info received from the task. The info is
+     * refreshed less often than the status, so it should only be used for
+     * reporting.
+     */
     TaskInfo getTaskInfo();
 
+    TaskStatus getTaskStatus();
+
     void start();
 
     void addSplits(PlanNodeId sourceId, Iterable<Split> split);
@@ -32,7 +39,7 @@ public interface RemoteTask
 
     void setOutputBuffers(OutputBuffers outputBuffers);
 
-    void addStateChangeListener(StateChangeListener<TaskInfo> stateChangeListener);
+    void addStateChangeListener(StateChangeListener<TaskStatus> stateChangeListener);
 
     void cancel();
 
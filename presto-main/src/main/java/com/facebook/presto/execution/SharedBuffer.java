@@ -180,7 +180,7 @@ public class SharedBuffer
             infos.add(namedBuffer.getInfo());
         }
 
-        long totalBufferedBytes = partitionBuffers.values().stream().mapToLong(PartitionBuffer::getBufferedBytes).sum();
+        long totalBufferedBytes = getBufferedBytes();
         long totalBufferedPages = partitionBuffers.values().stream().mapToLong(PartitionBuffer::getBufferedPageCount).sum();
         long totalQueuedPages = partitionBuffers.values().stream().mapToLong(PartitionBuffer::getQueuedPageCount).sum();
         long totalPagesSent = partitionBuffers.values().stream().mapToLong(PartitionBuffer::getPageCount).sum();
@@ -188,6 +188,12 @@ public class SharedBuffer
         return new SharedBufferInfo(state, state.canAddBuffers(), state.canAddPages(), totalBufferedBytes, totalBufferedPages, totalQueuedPages, totalPagesSent, infos.build());
     }
 
+    public long getBufferedBytes()
+    {
+        // lock free for the same reason as getInfo
+        return partitionBuffers.values().stream().mapToLong(PartitionBuffer::getBufferedBytes).sum();
+    }
+
     public ListenableFuture<OutputBuffers> getFinalOutputBuffers()
     {
         return finalOutputBuffers;
@@ -26,6 +26,16 @@ public interface SplitRunner
     ListenableFuture<?> processFor(Duration duration)
             throws Exception;
 
+    /**
+     * Returns true if the last blocked future returned by {@link #processFor}
+     * waits for input from the source of the split, as opposed to output
+     * buffers, memory or other work.
+     */
+    default boolean isBlockedOnInput()
+    {
+        return false;
+    }
+
     @Override
     void close();
 }
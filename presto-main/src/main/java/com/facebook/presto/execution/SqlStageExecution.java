@@ -236,7 +236,7 @@ public final class SqlStageExecution
     {
         long memory = 0;
         for (RemoteTask task : tasks.values()) {
-            memory += task.getTaskInfo().getStats().getMemoryReservation().toBytes();
+            memory += task.getTaskStatus().getMemoryReservation().toBytes();
         }
         for (SqlStageExecution subStage : subStages.values()) {
             memory += subStage.getTotalMemoryReservation();
@@ -368,7 +368,7 @@ public final class SqlStageExecution
         try (SetThreadName ignored = new SetThreadName("Stage-%s", stateMachine.getStageId())) {
             ImmutableList.Builder<URI> locations = ImmutableList.builder();
             for (RemoteTask task : tasks.values()) {
-                locations.add(task.getTaskInfo().getSelf());
+                locations.add(task.getTaskStatus().getSelf());
             }
             return locations.build();
         }
@@ -463,7 +463,7 @@ public final class SqlStageExecution
         for (int taskId = 0; taskId < nodes.size(); taskId++) {
             Node node = nodes.get(taskId);
             RemoteTask task = scheduleTask(taskId, node);
-            tasks.add(task.getTaskInfo().getTaskId());
+            tasks.add(task.getTaskStatus().getTaskId());
         }
 
         // tell sub stages about all nodes and that there will not be more nodes
@@ -480,7 +480,7 @@ public final class SqlStageExecution
 
         // tell sub stages about all nodes and that there will not be more nodes
         for (SqlStageExecution subStage : subStages.values()) {
-            subStage.parentTasksAdded(ImmutableList.of(task.getTaskInfo().getTaskId()), true);
+            subStage.parentTasksAdded(ImmutableList.of(task.getTaskStatus().getTaskId()), true);
         }
     }
 
@@ -534,7 +534,7 @@ public final class SqlStageExecution
                 RemoteTask remoteTask = scheduleTask(nextTaskId.getAndIncrement(), node, fragment.getPartitionedSource(), taskSplits.getValue());
 
                 // tell the sub stages to create a buffer for this task
-                addStageNode(remoteTask.getTaskInfo().getTaskId());
+                addStageNode(remoteTask.getTaskStatus().getTaskId());
 
                 stateMachine.recordScheduleTaskTime(scheduleSplitStart);
             }
@@ -556,7 +556,7 @@ public final class SqlStageExecution
                 RemoteTask remoteTask = scheduleTask(nextTaskId.getAndIncrement(), node);
 
                 // tell the sub stages to create a buffer for this task
-                addStageNode(remoteTask.getTaskInfo().getTaskId());
+                addStageNode(remoteTask.getTaskStatus().getTaskId());
             }
             // tell sub stages there will be no more output buffers
             setNoMoreStageNodes();
@@ -617,14 +617,14 @@ public final class SqlStageExecution
                 initialSplits.build(),
                 getCurrentOutputBuffers());
 
-        task.addStateChangeListener(taskInfo -> doUpdateState());
+        task.addStateChangeListener(taskStatus -> doUpdateState());
 
         // create and update task
         task.start();
 
         // record this task
-        tasks.put(task.getTaskInfo().getTaskId(), task);
-        localNodeTaskMap.put(node, task.getTaskInfo().getTaskId());
+        tasks.put(task.getTaskStatus().getTaskId(), task);
+        localNodeTaskMap.put(node, task.getTaskStatus().getTaskId());
         nodeTaskMap.addTask(node, task);
 
         // check whether the stage finished while we were scheduling this task
@@ -686,7 +686,7 @@ public final class SqlStageExecution
         try (SetThreadName ignored = new SetThreadName("SqlStageExecution-%s", stateMachine.getStageId())) {
             for (RemoteTask task : tasks.values()) {
                 for (Entry<PlanNodeId, URI> entry : newExchangeLocations.entries()) {
-                    Split remoteSplit = createRemoteSplitFor(task.getTaskInfo().getTaskId(), entry.getValue());
+                    Split remoteSplit = createRemoteSplitFor(task.getTaskStatus().getTaskId(), entry.getValue());
                     task.addSplits(entry.getKey(), ImmutableList.of(remoteSplit));
                 }
                 task.setOutputBuffers(outputBuffers);
@@ -742,17 +742,17 @@ public final class SqlStageExecution
                     return;
                 }
 
-                List<TaskInfo> taskInfos = tasks.values().stream()
-                        .map(RemoteTask::getTaskInfo)
+                List<TaskStatus> taskStatuses = tasks.values().stream()
+                        .map(RemoteTask::getTaskStatus)
                         .collect(toImmutableList());
 
-                List<TaskState> taskStates = taskInfos.stream()
-                        .map(TaskInfo::getState)
+                List<TaskState> taskStates = taskStatuses.stream()
+                        .map(TaskStatus::getState)
                         .collect(toImmutableList());
 
                 if (any(taskStates, equalTo(TaskState.FAILED))) {
-                    RuntimeException failure = taskInfos.stream()
-                            .map(taskInfo -> Iterables.getFirst(taskInfo.getFailures(), null))
+                    RuntimeException failure = taskStatuses.stream()
+                            .map(taskStatus -> Iterables.getFirst(taskStatus.getFailures(), null))
                             .filter(Objects::nonNull)
                             .findFirst()
                             .map(ExecutionFailureInfo::toException)
@@ -20,6 +20,8 @@ import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.memory.QueryContext;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.operator.TaskStats;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.base.Function;
@@ -45,6 +47,8 @@ import java.util.concurrent.atomic.AtomicReference;
 import static com.facebook.presto.util.Failures.toFailures;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.Objects.requireNonNull;
 
 public class SqlTask
@@ -65,6 +69,10 @@ public class SqlTask
 
     private final AtomicReference<TaskHolder> taskHolderReference = new AtomicReference<>(new TaskHolder());
 
+    // needed to convert the output pages to the values returned to clients that read the output directly
+    private final AtomicReference<ConnectorSession> connectorSession = new AtomicReference<>();
+    private final AtomicReference<List<Type>> outputTypes = new AtomicReference<>();
+
     public SqlTask(
             TaskId taskId,
             String nodeInstanceId,
@@ -150,6 +158,57 @@ public class SqlTask
         }
     }
 
+    public TaskStatus getTaskStatus()
+    {
+        try (SetThreadName ignored = new SetThreadName("Task-%s", taskId)) {
+            return createTaskStatus(taskHolderReference.get());
+        }
+    }
+
+    private TaskStatus createTaskStatus(TaskHolder taskHolder)
+    {
+        // the status shares the version sequence of the task info, so the
+        // client can order the two
+        long versionNumber = nextTaskInfoVersion.getAndIncrement();
+
+        TaskState state = taskStateMachine.getState();
+        List<ExecutionFailureInfo> failures = ImmutableList.of();
+        if (state == TaskState.FAILED) {
+            failures = toFailures(taskStateMachine.getFailureCauses());
+        }
+
+        int queuedPartitionedDrivers = 0;
+        int runningPartitionedDrivers = 0;
+        DataSize memoryReservation = new DataSize(0, BYTE);
+
+        TaskInfo finalTaskInfo = taskHolder.getFinalTaskInfo();
+        if (finalTaskInfo != null) {
+            TaskStats taskStats = finalTaskInfo.getStats();
+            queuedPartitionedDrivers = taskStats.getQueuedPartitionedDrivers();
+            runningPartitionedDrivers = taskStats.getRunningPartitionedDrivers();
+            memoryReservation = taskStats.getMemoryReservation();
+        }
+        else if (taskHolder.getTaskExecution() != null) {
+            // unlike the task stats, these do not walk the operators of every driver
+            TaskContext taskContext = taskHolder.getTaskExecution().getTaskContext();
+            queuedPartitionedDrivers = taskContext.getQueuedPartitionedDrivers();
+            runningPartitionedDrivers = taskContext.getRunningPartitionedDrivers();
+            memoryReservation = taskContext.getMemoryReservation();
+        }
+
+        return new TaskStatus(
+                taskStateMachine.getTaskId(),
+                Optional.of(nodeInstanceId),
+                versionNumber,
+                state,
+                location,
+                failures,
+                queuedPartitionedDrivers,
+                runningPartitionedDrivers,
+                memoryReservation,
+                sharedBuffer.getBufferedBytes());
+    }
+
     private TaskInfo createTaskInfo(TaskHolder taskHolder)
     {
         // Always return a new TaskInfo with a larger version number;
@@ -213,7 +272,20 @@ public class SqlTask
         return Futures.transform(futureTaskState, (TaskState input) -> getTaskInfo());
     }
 
-    public TaskInfo updateTask(Session session, PlanFragment fragment, List<TaskSource> sources, OutputBuffers outputBuffers)
+    public ListenableFuture<TaskStatus> getTaskStatus(TaskState callersCurrentState)
+    {
+        checkNotNull(callersCurrentState, "callersCurrentState is null");
+
+        // see getTaskInfo(TaskState)
+        if (callersCurrentState.isDone()) {
+            return Futures.immediateFuture(getTaskStatus());
+        }
+
+        ListenableFuture<TaskState> futureTaskState = taskStateMachine.getStateChange(callersCurrentState);
+        return Futures.transform(futureTaskState, (TaskState input) -> getTaskStatus());
+    }
+
+    public TaskStatus updateTask(Session session, Optional<PlanFragment> fragment, List<TaskSource> sources, OutputBuffers outputBuffers)
     {
         try {
             // assure the task execution is only created once
@@ -222,12 +294,15 @@ public class SqlTask
                 // is task already complete?
                 TaskHolder taskHolder = taskHolderReference.get();
                 if (taskHolder.isFinished()) {
-                    return taskHolder.getFinalTaskInfo();
+                    return createTaskStatus(taskHolder);
                 }
                 taskExecution = taskHolder.getTaskExecution();
                 if (taskExecution == null) {
-                    taskExecution = sqlTaskExecutionFactory.create(session, queryContext, taskStateMachine, sharedBuffer, fragment, sources);
+                    checkState(fragment.isPresent(), "fragment must be present to create task %s", taskId);
+                    taskExecution = sqlTaskExecutionFactory.create(session, queryContext, taskStateMachine, sharedBuffer, fragment.get(), sources);
                     taskHolderReference.compareAndSet(taskHolder, new TaskHolder(taskExecution));
+                    connectorSession.set(session.toConnectorSession());
+                    outputTypes.set(ImmutableList.copyOf(fragment.get().getTypes()));
                 }
             }
 
@@ -245,7 +320,7 @@ public class SqlTask
             failed(e);
         }
 
-        return getTaskInfo();
+        return getTaskStatus();
     }
 
     public ListenableFuture<BufferResult> getTaskResults(TaskId outputName, long startingSequenceId, DataSize maxSize)
@@ -256,6 +331,20 @@ public class SqlTask
         return sharedBuffer.get(outputName, startingSequenceId, maxSize);
     }
 
+    public ConnectorSession getConnectorSession()
+    {
+        ConnectorSession session = connectorSession.get();
+        checkState(session != null, "Task %s has not been created", taskId);
+        return session;
+    }
+
+    public List<Type> getOutputTypes()
+    {
+        List<Type> types = outputTypes.get();
+        checkState(types != null, "Task %s has not been created", taskId);
+        return types;
+    }
+
     public TaskInfo abortTaskResults(TaskId outputId)
     {
         checkNotNull(outputId, "outputId is null");
@@ -587,6 +587,16 @@ public class SqlTaskExecution
             return driver.processFor(duration);
         }
 
+        @Override
+        public boolean isBlockedOnInput()
+        {
+            Driver driver;
+            synchronized (this) {
+                driver = this.driver;
+            }
+            return driver != null && driver.isBlockedOnInput();
+        }
+
         @Override
         public void close()
         {
@@ -22,6 +22,8 @@ import com.facebook.presto.memory.MemoryManagerConfig;
 import com.facebook.presto.memory.MemoryPoolAssignment;
 import com.facebook.presto.memory.MemoryPoolAssignmentsRequest;
 import com.facebook.presto.memory.QueryContext;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.LocalExecutionPlanner;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.base.Preconditions;
@@ -47,6 +49,7 @@ import javax.inject.Inject;
 
 import java.io.Closeable;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -252,7 +255,28 @@ public class SqlTaskManager
     }
 
     @Override
-    public TaskInfo updateTask(Session session, TaskId taskId, PlanFragment fragment, List<TaskSource> sources, OutputBuffers outputBuffers)
+    public TaskStatus getTaskStatus(TaskId taskId)
+    {
+        checkNotNull(taskId, "taskId is null");
+
+        SqlTask sqlTask = tasks.getUnchecked(taskId);
+        sqlTask.recordHeartbeat();
+        return sqlTask.getTaskStatus();
+    }
+
+    @Override
+    public ListenableFuture<TaskStatus> getTaskStatus(TaskId taskId, TaskState currentState)
+    {
+        checkNotNull(taskId, "taskId is null");
+        checkNotNull(currentState, "currentState is null");
+
+        SqlTask sqlTask = tasks.getUnchecked(taskId);
+        sqlTask.recordHeartbeat();
+        return sqlTask.getTaskStatus(currentState);
+    }
+
+    @Override
+    public TaskStatus updateTask(Session session, TaskId taskId, Optional<PlanFragment> fragment, List<TaskSource> sources, OutputBuffers outputBuffers)
     {
         checkNotNull(session, "session is null");
         checkNotNull(taskId, "taskId is null");
@@ -276,6 +300,22 @@ public class SqlTaskManager
         return tasks.getUnchecked(taskId).getTaskResults(outputName, startingSequenceId, maxSize);
     }
 
+    @Override
+    public ConnectorSession getTaskSession(TaskId taskId)
+    {
+        checkNotNull(taskId, "taskId is null");
+
+        return tasks.getUnchecked(taskId).getConnectorSession();
+    }
+
+    @Override
+    public List<Type> getTaskOutputTypes(TaskId taskId)
+    {
+        checkNotNull(taskId, "taskId is null");
+
+        return tasks.getUnchecked(taskId).getOutputTypes();
+    }
+
     @Override
     public TaskInfo abortTaskResults(TaskId taskId, TaskId outputId)
     {
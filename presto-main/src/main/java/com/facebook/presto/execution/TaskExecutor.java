@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.execution;
 
+import com.facebook.presto.execution.MultilevelSplitQueue.QueuedSplit;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.util.CpuTimer;
 import com.google.common.annotations.VisibleForTesting;
@@ -37,6 +38,7 @@ import javax.inject.Inject;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -47,7 +49,6 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -65,6 +66,17 @@ import static io.airlift.concurrent.Threads.threadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
+/**
+ * Runs the splits of all tasks on a fixed number of threads. Waiting splits are kept
+ * in a multi-level feedback queue where the level is chosen by the thread time
+ * used so far by the query of the split, across all of its tasks on this node.
+ * New queries start in the top level and are ordered ahead of the queries that
+ * have already run, and queries whose splits spend most of their time waiting
+ * for input from their sources are moved up one level, so short and I/O bound
+ * queries are not starved by queries with a large number of CPU bound splits.
+ * Splits blocked on full output buffers or on memory do not count as waiting
+ * for input, so queries throttled by their consumers are not promoted.
+ */
 @ThreadSafe
 public class TaskExecutor
 {
@@ -76,6 +88,11 @@ public class TaskExecutor
     // each time we run a split, run it for this length before returning to the pool
     private static final Duration SPLIT_RUN_QUANTA = new Duration(1, TimeUnit.SECONDS);
 
+    private static final int PRIORITY_LEVELS = 5;
+
+    // a query is moved up a level when its splits waited for input this many times longer than they ran
+    private static final int BLOCKED_TIME_BOOST_RATIO = 2;
+
     private static final AtomicLong NEXT_RUNNER_ID = new AtomicLong();
     private static final AtomicLong NEXT_WORKER_ID = new AtomicLong();
 
@@ -90,6 +107,9 @@ public class TaskExecutor
     @GuardedBy("this")
     private final List<TaskHandle> tasks;
 
+    @GuardedBy("this")
+    private final Map<QueryId, QueryHandle> queries = new HashMap<>();
+
     /**
      * All splits registered with the task executor.
      */
@@ -99,7 +119,7 @@ public class TaskExecutor
     /**
      * Splits waiting for a runner thread.
      */
-    private final PriorityBlockingQueue<PrioritizedSplitRunner> pendingSplits;
+    private final MultilevelSplitQueue<PrioritizedSplitRunner> pendingSplits;
 
     /**
      * Splits running on a thread.
@@ -111,7 +131,7 @@ public class TaskExecutor
      */
     private final Map<PrioritizedSplitRunner, Future<?>> blockedSplits = new ConcurrentHashMap<>();
 
-    private final AtomicLongArray completedTasksPerLevel = new AtomicLongArray(5);
+    private final AtomicLongArray completedTasksPerLevel = new AtomicLongArray(PRIORITY_LEVELS);
 
     private final TimeStat queuedTime = new TimeStat(NANOSECONDS);
     private final TimeStat wallTime = new TimeStat(NANOSECONDS);
@@ -121,7 +141,7 @@ public class TaskExecutor
     @Inject
     public TaskExecutor(TaskManagerConfig config)
     {
-        this(checkNotNull(config, "config is null").getMaxWorkerThreads(), config.getMinDrivers());
+        this(checkNotNull(config, "config is null").getMaxWorkerThreads(), config.getMinDrivers(), config.getLevelTimeMultiplier(), Ticker.systemTicker());
     }
 
     public TaskExecutor(int runnerThreads, int minDrivers)
@@ -131,6 +151,12 @@ public class TaskExecutor
 
     @VisibleForTesting
     public TaskExecutor(int runnerThreads, int minDrivers, Ticker ticker)
+    {
+        this(runnerThreads, minDrivers, new TaskManagerConfig().getLevelTimeMultiplier(), ticker);
+    }
+
+    @VisibleForTesting
+    public TaskExecutor(int runnerThreads, int minDrivers, double levelTimeMultiplier, Ticker ticker)
     {
         checkArgument(runnerThreads > 0, "runnerThreads must be at least 1");
 
@@ -142,7 +168,7 @@ public class TaskExecutor
         this.ticker = checkNotNull(ticker, "ticker is null");
 
         this.minimumNumberOfDrivers = minDrivers;
-        this.pendingSplits = new PriorityBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 10);
+        this.pendingSplits = new MultilevelSplitQueue<>(PRIORITY_LEVELS, levelTimeMultiplier);
         this.tasks = new LinkedList<>();
     }
 
@@ -185,7 +211,11 @@ public class TaskExecutor
 
     public synchronized TaskHandle addTask(TaskId taskId)
     {
-        TaskHandle taskHandle = new TaskHandle(checkNotNull(taskId, "taskId is null"));
+        checkNotNull(taskId, "taskId is null");
+        QueryHandle queryHandle = queries.computeIfAbsent(taskId.getQueryId(), queryId -> new QueryHandle());
+        queryHandle.tasks++;
+
+        TaskHandle taskHandle = new TaskHandle(taskId, queryHandle);
         tasks.add(taskHandle);
         return taskHandle;
     }
@@ -194,7 +224,13 @@ public class TaskExecutor
     {
         List<PrioritizedSplitRunner> splits;
         synchronized (this) {
-            tasks.remove(taskHandle);
+            if (tasks.remove(taskHandle)) {
+                QueryHandle queryHandle = taskHandle.getQueryHandle();
+                queryHandle.tasks--;
+                if (queryHandle.tasks == 0) {
+                    queries.remove(taskHandle.getTaskId().getQueryId());
+                }
+            }
             splits = taskHandle.destroy();
 
             // stop tracking splits (especially blocked splits which may never unblock)
@@ -303,7 +339,13 @@ public class TaskExecutor
     private synchronized void startSplit(PrioritizedSplitRunner split)
     {
         allSplits.add(split);
-        pendingSplits.put(split);
+        enqueuePendingSplit(split);
+    }
+
+    private void enqueuePendingSplit(PrioritizedSplitRunner split)
+    {
+        split.updatePriorityLevel();
+        pendingSplits.offer(split.getPriorityLevel(), split);
     }
 
     private synchronized PrioritizedSplitRunner pollNextSplitWorker()
@@ -331,6 +373,7 @@ public class TaskExecutor
     public static class TaskHandle
     {
         private final TaskId taskId;
+        private final QueryHandle queryHandle;
         private final Queue<PrioritizedSplitRunner> queuedSplits = new ArrayDeque<>(10);
         private final List<PrioritizedSplitRunner> runningSplits = new ArrayList<>(10);
         private final List<PrioritizedSplitRunner> forcedRunningSplits = new ArrayList<>(10);
@@ -340,14 +383,21 @@ public class TaskExecutor
 
         private final AtomicInteger nextSplitId = new AtomicInteger();
 
-        private TaskHandle(TaskId taskId)
+        private TaskHandle(TaskId taskId, QueryHandle queryHandle)
         {
             this.taskId = taskId;
+            this.queryHandle = queryHandle;
         }
 
-        private long addThreadUsageNanos(long durationNanos)
+        private void addThreadUsageNanos(long durationNanos)
         {
-            return taskThreadUsageNanos.addAndGet(durationNanos);
+            taskThreadUsageNanos.addAndGet(durationNanos);
+            queryHandle.threadUsageNanos.addAndGet(durationNanos);
+        }
+
+        private void addInputBlockedNanos(long durationNanos)
+        {
+            queryHandle.inputBlockedNanos.addAndGet(durationNanos);
         }
 
         private TaskId getTaskId()
@@ -355,6 +405,11 @@ public class TaskExecutor
             return taskId;
         }
 
+        private QueryHandle getQueryHandle()
+        {
+            return queryHandle;
+        }
+
         public boolean isDestroyed()
         {
             return destroyed.get();
@@ -393,6 +448,12 @@ public class TaskExecutor
             return runningSplits.size();
         }
 
+        @VisibleForTesting
+        int getPriorityLevel()
+        {
+            return queryHandle.getPriorityLevel();
+        }
+
         private long getThreadUsageNanos()
         {
             return taskThreadUsageNanos.get();
@@ -431,6 +492,28 @@ public class TaskExecutor
         }
     }
 
+    /**
+     * Scheduling state shared by the tasks of a query on this node.
+     */
+    private static class QueryHandle
+    {
+        private final AtomicLong threadUsageNanos = new AtomicLong();
+        private final AtomicLong inputBlockedNanos = new AtomicLong();
+
+        // guarded by the task executor
+        private int tasks;
+
+        private int getPriorityLevel()
+        {
+            long threadUsageNanos = this.threadUsageNanos.get();
+            int priorityLevel = calculatePriorityLevel(threadUsageNanos);
+            if (priorityLevel > 0 && inputBlockedNanos.get() > threadUsageNanos * BLOCKED_TIME_BOOST_RATIO) {
+                priorityLevel--;
+            }
+            return priorityLevel;
+        }
+    }
+
     private static class PrioritizedSplitRunner
             implements Comparable<PrioritizedSplitRunner>
     {
@@ -447,7 +530,9 @@ public class TaskExecutor
 
         private final AtomicBoolean destroyed = new AtomicBoolean();
 
+        // snapshots of the thread usage taken when the split is queued, used to order the splits within a level
         private final AtomicInteger priorityLevel = new AtomicInteger();
+        private final AtomicLong queryThreadUsageNanos = new AtomicLong();
         private final AtomicLong threadUsageNanos = new AtomicLong();
         private final AtomicLong lastRun = new AtomicLong();
         private final AtomicLong start = new AtomicLong();
@@ -501,19 +586,18 @@ public class TaskExecutor
                 start.compareAndSet(0, System.currentTimeMillis());
 
                 processCalls.incrementAndGet();
+                long startNanos = ticker.read();
                 CpuTimer timer = new CpuTimer();
                 ListenableFuture<?> blocked = split.processFor(SPLIT_RUN_QUANTA);
 
                 CpuTimer.CpuDuration elapsed = timer.elapsedTime();
+                long endNanos = ticker.read();
 
-                // update priority level base on total thread usage of task
-                long durationNanos = elapsed.getWall().roundTo(NANOSECONDS);
-                long threadUsageNanos = taskHandle.addThreadUsageNanos(durationNanos);
-                this.threadUsageNanos.set(threadUsageNanos);
-                priorityLevel.set(calculatePriorityLevel(threadUsageNanos));
+                // charge the thread usage to the task and the query
+                taskHandle.addThreadUsageNanos(endNanos - startNanos);
 
                 // record last run for prioritization within a level
-                lastRun.set(ticker.read());
+                lastRun.set(endNanos);
 
                 cpuTime.addAndGet(elapsed.getCpu().roundTo(NANOSECONDS));
                 return blocked;
@@ -524,16 +608,29 @@ public class TaskExecutor
             }
         }
 
-        public boolean updatePriorityLevel()
+        public boolean isBlockedOnInput()
         {
-            int newPriority = calculatePriorityLevel(taskHandle.getThreadUsageNanos());
-            if (newPriority == priorityLevel.getAndSet(newPriority)) {
-                return false;
-            }
+            return split.isBlockedOnInput();
+        }
 
-            // update thread usage while if level changed
+        /**
+         * Updates the priority of this split. It must not be called while the split is queued.
+         *
+         * @return true if the priority level changed
+         */
+        public boolean updatePriorityLevel()
+        {
+            QueryHandle queryHandle = taskHandle.getQueryHandle();
+            queryThreadUsageNanos.set(queryHandle.threadUsageNanos.get());
             threadUsageNanos.set(taskHandle.getThreadUsageNanos());
-            return true;
+
+            int newPriority = queryHandle.getPriorityLevel();
+            return newPriority != priorityLevel.getAndSet(newPriority);
+        }
+
+        public int getPriorityLevel()
+        {
+            return priorityLevel.get();
         }
 
         @Override
@@ -546,8 +643,12 @@ public class TaskExecutor
                 return result;
             }
 
-            if (level < 4) {
-                result = Long.compare(threadUsageNanos.get(), o.threadUsageNanos.get());
+            if (level < PRIORITY_LEVELS - 1) {
+                // least served query first, then least served task of that query
+                result = Long.compare(queryThreadUsageNanos.get(), o.queryThreadUsageNanos.get());
+                if (result == 0) {
+                    result = Long.compare(threadUsageNanos.get(), o.threadUsageNanos.get());
+                }
             }
             else {
                 result = Long.compare(lastRun.get(), o.lastRun.get());
@@ -617,13 +718,16 @@ public class TaskExecutor
                 while (!closed && !Thread.currentThread().isInterrupted()) {
                     // select next worker
                     final PrioritizedSplitRunner split;
+                    final int level;
                     try {
-                        split = pendingSplits.take();
+                        QueuedSplit<PrioritizedSplitRunner> queuedSplit = pendingSplits.take();
+                        split = queuedSplit.getSplit();
                         if (split.updatePriorityLevel()) {
                             // priority level changed, return split to queue for re-prioritization
-                            pendingSplits.put(split);
+                            pendingSplits.offer(split.getPriorityLevel(), split);
                             continue;
                         }
+                        level = queuedSplit.getLevel();
                     }
                     catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
@@ -635,12 +739,14 @@ public class TaskExecutor
 
                         boolean finished;
                         ListenableFuture<?> blocked;
+                        long start = ticker.read();
                         try {
                             blocked = split.process();
                             finished = split.isFinished();
                         }
                         finally {
                             runningSplits.remove(split);
+                            pendingSplits.addLevelTime(level, ticker.read() - start);
                         }
 
                         if (finished) {
@@ -649,9 +755,12 @@ public class TaskExecutor
                         }
                         else {
                             if (blocked.isDone()) {
-                                pendingSplits.put(split);
+                                enqueuePendingSplit(split);
                             }
                             else {
+                                // only time spent waiting for input counts towards the boost
+                                boolean blockedOnInput = split.isBlockedOnInput();
+                                long blockedStart = ticker.read();
                                 blockedSplits.put(split, blocked);
                                 blocked.addListener(new Runnable()
                                 {
@@ -659,8 +768,10 @@ public class TaskExecutor
                                     public void run()
                                     {
                                         blockedSplits.remove(split);
-                                        split.updatePriorityLevel();
-                                        pendingSplits.put(split);
+                                        if (blockedOnInput) {
+                                            split.getTaskHandle().addInputBlockedNanos(ticker.read() - blockedStart);
+                                        }
+                                        enqueuePendingSplit(split);
                                     }
                                 }, executor);
                             }
@@ -721,6 +832,107 @@ public class TaskExecutor
         return pendingSplits.size();
     }
 
+    @Managed
+    public int getPendingSplitsLevel0()
+    {
+        return pendingSplits.getLevelSize(0);
+    }
+
+    @Managed
+    public int getPendingSplitsLevel1()
+    {
+        return pendingSplits.getLevelSize(1);
+    }
+
+    @Managed
+    public int getPendingSplitsLevel2()
+    {
+        return pendingSplits.getLevelSize(2);
+    }
+
+    @Managed
+    public int getPendingSplitsLevel3()
+    {
+        return pendingSplits.getLevelSize(3);
+    }
+
+    @Managed
+    public int getPendingSplitsLevel4()
+    {
+        return pendingSplits.getLevelSize(4);
+    }
+
+    @Managed
+    public long getScheduledNanosLevel0()
+    {
+        return pendingSplits.getLevelScheduledNanos(0);
+    }
+
+    @Managed
+    public long getScheduledNanosLevel1()
+    {
+        return pendingSplits.getLevelScheduledNanos(1);
+    }
+
+    @Managed
+    public long getScheduledNanosLevel2()
+    {
+        return pendingSplits.getLevelScheduledNanos(2);
+    }
+
+    @Managed
+    public long getScheduledNanosLevel3()
+    {
+        return pendingSplits.getLevelScheduledNanos(3);
+    }
+
+    @Managed
+    public long getScheduledNanosLevel4()
+    {
+        return pendingSplits.getLevelScheduledNanos(4);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getWaitTimeLevel0()
+    {
+        return pendingSplits.getLevelWaitTime(0);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getWaitTimeLevel1()
+    {
+        return pendingSplits.getLevelWaitTime(1);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getWaitTimeLevel2()
+    {
+        return pendingSplits.getLevelWaitTime(2);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getWaitTimeLevel3()
+    {
+        return pendingSplits.getLevelWaitTime(3);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getWaitTimeLevel4()
+    {
+        return pendingSplits.getLevelWaitTime(4);
+    }
+
+    @Managed
+    public synchronized int getQueries()
+    {
+        return queries.size();
+    }
+
     @Managed
     public int getRunningSplits()
     {
@@ -151,6 +151,21 @@ public class TaskInfo
         return failures;
     }
 
+    public TaskStatus toTaskStatus()
+    {
+        return new TaskStatus(
+                taskId,
+                nodeInstanceId,
+                version,
+                state,
+                self,
+                failures,
+                stats.getQueuedPartitionedDrivers(),
+                stats.getRunningPartitionedDrivers(),
+                stats.getMemoryReservation(),
+                outputBuffers.getTotalBufferedBytes());
+    }
+
     public TaskInfo summarize()
     {
         return new TaskInfo(taskId, nodeInstanceId, version, state, self, lastHeartbeat, outputBuffers, noMoreSplits, stats.summarize(), failures);
@@ -17,11 +17,14 @@ import com.facebook.presto.OutputBuffers;
 import com.facebook.presto.Session;
 import com.facebook.presto.TaskSource;
 import com.facebook.presto.memory.MemoryPoolAssignmentsRequest;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface TaskManager
 {
@@ -51,13 +54,27 @@ public interface TaskManager
      */
     ListenableFuture<TaskInfo> getTaskInfo(TaskId taskId, TaskState currentState);
 
+    /**
+     * Gets the status for the specified task. The status is much cheaper to
+     * create than the task info. If the task has not been created yet, an
+     * uninitialized task is created and the status is returned.
+     */
+    TaskStatus getTaskStatus(TaskId taskId);
+
+    /**
+     * Gets future status for the task after the state changes from
+     * {@code current state}. See {@link #getTaskInfo(TaskId, TaskState)}.
+     */
+    ListenableFuture<TaskStatus> getTaskStatus(TaskId taskId, TaskState currentState);
+
     void updateMemoryPoolAssignments(MemoryPoolAssignmentsRequest assignments);
 
     /**
      * Updates the task plan, sources and output buffers.  If the task does not
-     * already exist, is is created and then updated.
+     * already exist, is is created and then updated.  The fragment is only
+     * required for the update that creates the task execution.
      */
-    TaskInfo updateTask(Session session, TaskId taskId, PlanFragment fragment, List<TaskSource> sources, OutputBuffers outputBuffers);
+    TaskStatus updateTask(Session session, TaskId taskId, Optional<PlanFragment> fragment, List<TaskSource> sources, OutputBuffers outputBuffers);
 
     /**
      * Cancels a task.  If the task does not already exist, is is created and then
@@ -81,6 +98,17 @@ public interface TaskManager
      */
     ListenableFuture<BufferResult> getTaskResults(TaskId taskId, TaskId outputName, long startingSequenceId, DataSize maxSize);
 
+    /**
+     * Gets the session of a task, which is used to convert the results of
+     * the task to the values returned to clients.
+     */
+    ConnectorSession getTaskSession(TaskId taskId);
+
+    /**
+     * Gets the types of the results of a task.
+     */
+    List<Type> getTaskOutputTypes(TaskId taskId);
+
     /**
      * Aborts a result buffer for a task.  If the task or buffer has not been
      * created yet, an uninitialized task is created and a the buffer is
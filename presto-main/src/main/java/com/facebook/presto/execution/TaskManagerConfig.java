@@ -23,9 +23,11 @@ import io.airlift.units.Duration;
 import io.airlift.units.MaxDuration;
 import io.airlift.units.MinDuration;
 
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import java.nio.file.Paths;
 import java.util.concurrent.TimeUnit;
 
 @DefunctConfig("experimental.big-query-max-task-memory")
@@ -39,16 +41,22 @@ public class TaskManagerConfig
     private DataSize maxTaskIndexMemoryUsage = new DataSize(64, Unit.MEGABYTE);
     private int maxWorkerThreads = Runtime.getRuntime().availableProcessors() * 4;
     private Integer minDrivers;
+    private double levelTimeMultiplier = 2;
 
     private DataSize sinkMaxBufferSize = new DataSize(32, Unit.MEGABYTE);
 
     private Duration clientTimeout = new Duration(2, TimeUnit.MINUTES);
     private Duration infoMaxAge = new Duration(15, TimeUnit.MINUTES);
     private Duration infoRefreshMaxWait = new Duration(200, TimeUnit.MILLISECONDS);
+    private Duration infoUpdateInterval = new Duration(3, TimeUnit.SECONDS);
     private int writerCount = 1;
     private int taskDefaultConcurrency = 1;
     private int httpNotificationThreads = 25;
 
+    private boolean spillEnabled;
+    private boolean dynamicFilteringEnabled;
+    private String spillPath = Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spills").toString();
+
     @MinDuration("1ms")
     @MaxDuration("10s")
     @NotNull
@@ -64,6 +72,22 @@ public class TaskManagerConfig
         return this;
     }
 
+    @MinDuration("1ms")
+    @MaxDuration("10s")
+    @NotNull
+    public Duration getInfoUpdateInterval()
+    {
+        return infoUpdateInterval;
+    }
+
+    @Config("task.info-update-interval")
+    @ConfigDescription("Interval between refreshes of the full info of remote tasks")
+    public TaskManagerConfig setInfoUpdateInterval(Duration infoUpdateInterval)
+    {
+        this.infoUpdateInterval = infoUpdateInterval;
+        return this;
+    }
+
     public boolean isVerboseStats()
     {
         return verboseStats;
@@ -170,6 +194,20 @@ public class TaskManagerConfig
         return this;
     }
 
+    @DecimalMin("1.0")
+    public double getLevelTimeMultiplier()
+    {
+        return levelTimeMultiplier;
+    }
+
+    @Config("task.level-time-multiplier")
+    @ConfigDescription("Share of thread time given to each priority level relative to the level below it")
+    public TaskManagerConfig setLevelTimeMultiplier(double levelTimeMultiplier)
+    {
+        this.levelTimeMultiplier = levelTimeMultiplier;
+        return this;
+    }
+
     @NotNull
     public DataSize getSinkMaxBufferSize()
     {
@@ -250,4 +288,44 @@ public class TaskManagerConfig
         this.httpNotificationThreads = httpNotificationThreads;
         return this;
     }
+
+    public boolean isSpillEnabled()
+    {
+        return spillEnabled;
+    }
+
+    @Config("task.spill-enabled")
+    @ConfigDescription("Spill operator state to local disk when memory is exhausted")
+    public TaskManagerConfig setSpillEnabled(boolean spillEnabled)
+    {
+        this.spillEnabled = spillEnabled;
+        return this;
+    }
+
+    @NotNull
+    public String getSpillPath()
+    {
+        return spillPath;
+    }
+
+    @Config("task.spill-path")
+    @ConfigDescription("Local directory for spill files")
+    public TaskManagerConfig setSpillPath(String spillPath)
+    {
+        this.spillPath = spillPath;
+        return this;
+    }
+
+    public boolean isDynamicFilteringEnabled()
+    {
+        return dynamicFilteringEnabled;
+    }
+
+    @Config("task.dynamic-filtering-enabled")
+    @ConfigDescription("Skip probe side data of inner joins using the join keys of the build side")
+    public TaskManagerConfig setDynamicFilteringEnabled(boolean dynamicFilteringEnabled)
+    {
+        this.dynamicFilteringEnabled = dynamicFilteringEnabled;
+        return this;
+    }
 }
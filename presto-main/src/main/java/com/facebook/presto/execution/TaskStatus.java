@@ -0,0 +1,177 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.execution.TaskInfo.MIN_VERSION;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.units.DataSize.Unit.BYTE;
+
+/**
+ * The small subset of {@link TaskInfo} needed to schedule a task. Unlike the
+ * task info, it does not require collecting the stats of every driver, so the
+ * coordinator can poll it frequently.
+ */
+@Immutable
+public class TaskStatus
+{
+    private final TaskId taskId;
+    private final Optional<String> nodeInstanceId;
+    private final long version;
+    private final TaskState state;
+    private final URI self;
+    private final List<ExecutionFailureInfo> failures;
+    private final int queuedPartitionedDrivers;
+    private final int runningPartitionedDrivers;
+    private final DataSize memoryReservation;
+    private final long outputBufferedBytes;
+
+    @JsonCreator
+    public TaskStatus(@JsonProperty("taskId") TaskId taskId,
+            @JsonProperty("nodeInstanceId") Optional<String> nodeInstanceId,
+            @JsonProperty("version") long version,
+            @JsonProperty("state") TaskState state,
+            @JsonProperty("self") URI self,
+            @JsonProperty("failures") List<ExecutionFailureInfo> failures,
+            @JsonProperty("queuedPartitionedDrivers") int queuedPartitionedDrivers,
+            @JsonProperty("runningPartitionedDrivers") int runningPartitionedDrivers,
+            @JsonProperty("memoryReservation") DataSize memoryReservation,
+            @JsonProperty("outputBufferedBytes") long outputBufferedBytes)
+    {
+        this.taskId = checkNotNull(taskId, "taskId is null");
+        this.nodeInstanceId = checkNotNull(nodeInstanceId, "nodeInstanceId is null");
+        this.version = version;
+        this.state = checkNotNull(state, "state is null");
+        this.self = checkNotNull(self, "self is null");
+
+        checkArgument(queuedPartitionedDrivers >= 0, "queuedPartitionedDrivers must be positive");
+        this.queuedPartitionedDrivers = queuedPartitionedDrivers;
+
+        checkArgument(runningPartitionedDrivers >= 0, "runningPartitionedDrivers must be positive");
+        this.runningPartitionedDrivers = runningPartitionedDrivers;
+
+        this.memoryReservation = checkNotNull(memoryReservation, "memoryReservation is null");
+
+        checkArgument(outputBufferedBytes >= 0, "outputBufferedBytes must be positive");
+        this.outputBufferedBytes = outputBufferedBytes;
+
+        if (failures != null) {
+            this.failures = ImmutableList.copyOf(failures);
+        }
+        else {
+            this.failures = ImmutableList.of();
+        }
+    }
+
+    @JsonProperty
+    public TaskId getTaskId()
+    {
+        return taskId;
+    }
+
+    @JsonProperty
+    public Optional<String> getNodeInstanceId()
+    {
+        return nodeInstanceId;
+    }
+
+    @JsonProperty
+    public long getVersion()
+    {
+        return version;
+    }
+
+    @JsonProperty
+    public TaskState getState()
+    {
+        return state;
+    }
+
+    @JsonProperty
+    public URI getSelf()
+    {
+        return self;
+    }
+
+    @JsonProperty
+    public List<ExecutionFailureInfo> getFailures()
+    {
+        return failures;
+    }
+
+    @JsonProperty
+    public int getQueuedPartitionedDrivers()
+    {
+        return queuedPartitionedDrivers;
+    }
+
+    @JsonProperty
+    public int getRunningPartitionedDrivers()
+    {
+        return runningPartitionedDrivers;
+    }
+
+    @JsonProperty
+    public DataSize getMemoryReservation()
+    {
+        return memoryReservation;
+    }
+
+    @JsonProperty
+    public long getOutputBufferedBytes()
+    {
+        return outputBufferedBytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("taskId", taskId)
+                .add("state", state)
+                .toString();
+    }
+
+    public static TaskStatus initialTaskStatus(TaskId taskId, URI location)
+    {
+        return new TaskStatus(taskId, Optional.empty(), MIN_VERSION, TaskState.PLANNED, location, ImmutableList.of(), 0, 0, new DataSize(0, BYTE), 0);
+    }
+
+    public static TaskStatus failWith(TaskStatus taskStatus, long version, TaskState state, List<ExecutionFailureInfo> failures)
+    {
+        return new TaskStatus(
+                taskStatus.getTaskId(),
+                taskStatus.getNodeInstanceId(),
+                version,
+                state,
+                taskStatus.getSelf(),
+                failures,
+                taskStatus.getQueuedPartitionedDrivers(),
+                taskStatus.getRunningPartitionedDrivers(),
+                taskStatus.getMemoryReservation(),
+                taskStatus.getOutputBufferedBytes());
+    }
+}
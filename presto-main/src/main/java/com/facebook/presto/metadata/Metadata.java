@@ -17,6 +17,8 @@ import com.facebook.presto.Session;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.Constraint;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
@@ -66,6 +68,12 @@ public interface Metadata
     @NotNull
     TableLayout getLayout(TableLayoutHandle handle);
 
+    /**
+     * Returns the estimated statistics of the part of the table that matches the constraint.
+     */
+    @NotNull
+    TableStatistics getTableStatistics(Session session, TableHandle tableHandle, TupleDomain<ColumnHandle> constraint);
+
     /**
      * Return the metadata for the specified table handle.
      *
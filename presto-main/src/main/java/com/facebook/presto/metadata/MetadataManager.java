@@ -33,6 +33,7 @@ import com.facebook.presto.spi.Constraint;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.TableStatistics;
 import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.type.Type;
@@ -62,6 +63,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.OptionalDouble;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -289,6 +291,18 @@ public class MetadataManager
         return fromConnectorLayout(connectorId, metadata.getTableLayout(handle.getConnectorHandle()));
     }
 
+    @Override
+    public TableStatistics getTableStatistics(Session session, TableHandle tableHandle, TupleDomain<ColumnHandle> constraint)
+    {
+        if (constraint.isNone()) {
+            return new TableStatistics(OptionalDouble.of(0), OptionalDouble.of(0), ImmutableMap.of());
+        }
+
+        // assume connectorId and catalog are the same
+        ConnectorSession connectorSession = session.toConnectorSession(tableHandle.getConnectorId());
+        return lookupConnectorFor(tableHandle).getTableStatistics(connectorSession, tableHandle.getConnectorHandle(), constraint);
+    }
+
     @Override
     public TableMetadata getTableMetadata(TableHandle tableHandle)
     {
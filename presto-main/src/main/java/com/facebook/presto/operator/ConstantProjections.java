@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Output channels of a projection whose value is the same for every row.
+ * The processors only compute the remaining channels, and the constant
+ * channels are added to each output page as run length encoded blocks.
+ */
+public final class ConstantProjections
+{
+    private final List<Type> types;
+    private final Map<Integer, Block> constantBlocks;
+    private final List<Type> computedTypes;
+
+    public ConstantProjections(List<Type> types, Map<Integer, Block> constantBlocks)
+    {
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.constantBlocks = ImmutableMap.copyOf(checkNotNull(constantBlocks, "constantBlocks is null"));
+
+        ImmutableList.Builder<Type> computedTypes = ImmutableList.builder();
+        for (int channel = 0; channel < types.size(); channel++) {
+            Block block = constantBlocks.get(channel);
+            if (block == null) {
+                computedTypes.add(types.get(channel));
+            }
+            else {
+                checkArgument(block.getPositionCount() == 1, "constant block for channel %s must have a single position", channel);
+            }
+        }
+        this.computedTypes = computedTypes.build();
+        checkArgument(this.computedTypes.size() + this.constantBlocks.size() == types.size(), "constant channels must be within the output channels");
+    }
+
+    public static ConstantProjections noConstantProjections(List<Type> types)
+    {
+        return new ConstantProjections(types, ImmutableMap.of());
+    }
+
+    /**
+     * Types of all output channels.
+     */
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    /**
+     * Types of the channels produced by the processors, in output order.
+     */
+    public List<Type> getComputedTypes()
+    {
+        return computedTypes;
+    }
+
+    public Page toOutputPage(Page computedPage)
+    {
+        if (constantBlocks.isEmpty()) {
+            return computedPage;
+        }
+
+        int positionCount = computedPage.getPositionCount();
+        Block[] blocks = new Block[types.size()];
+        int computedChannel = 0;
+        for (int channel = 0; channel < blocks.length; channel++) {
+            Block block = constantBlocks.get(channel);
+            if (block != null) {
+                blocks[channel] = new RunLengthEncodedBlock(block, positionCount);
+            }
+            else {
+                blocks[channel] = computedPage.getBlock(computedChannel);
+                computedChannel++;
+            }
+        }
+        return new Page(positionCount, blocks);
+    }
+}
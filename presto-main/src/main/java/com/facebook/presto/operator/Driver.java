@@ -79,6 +79,9 @@ public class Driver
     @GuardedBy("exclusiveLock")
     private final Map<PlanNodeId, TaskSource> currentSources = new ConcurrentHashMap<>();
 
+    // true when the last blocked future returned was waiting for the source operator only
+    private volatile boolean blockedOnInput;
+
     private enum State
     {
         ALIVE, NEED_DESTRUCTION, DESTROYED
@@ -152,6 +155,16 @@ public class Driver
         }
     }
 
+    /**
+     * Returns true if the last blocked future returned by {@link #process} or
+     * {@link #processFor} waits for the source operator of this driver to
+     * produce data, rather than for output buffers, memory or other operators.
+     */
+    public boolean isBlockedOnInput()
+    {
+        return blockedOnInput;
+    }
+
     public boolean isFinished()
     {
         checkLockNotHeld("Can not check finished status while holding the driver lock");
@@ -350,6 +363,7 @@ public class Driver
                 ListenableFuture<?> blocked = isBlocked(current);
                 if (!blocked.isDone()) {
                     current.getOperatorContext().recordBlocked(blocked);
+                    blockedOnInput = false;
                     return blocked;
                 }
 
@@ -420,6 +434,7 @@ public class Driver
                     for (Operator operator : blockedOperators) {
                         operator.getOperatorContext().recordBlocked(blocked);
                     }
+                    blockedOnInput = isBlockedOnInput(blockedOperators);
                     return blocked;
                 }
             }
@@ -497,6 +512,16 @@ public class Driver
         }
     }
 
+    private boolean isBlockedOnInput(List<Operator> blockedOperators)
+    {
+        // waiting for memory does not count as waiting for input
+        Operator source = operators.get(0);
+        return source instanceof SourceOperator &&
+                blockedOperators.size() == 1 &&
+                blockedOperators.get(0) == source &&
+                !source.isBlocked().isDone();
+    }
+
     private static ListenableFuture<?> isBlocked(Operator operator)
     {
         ListenableFuture<?> blocked = operator.isBlocked();
@@ -372,6 +372,11 @@ public class DriverContext
         return partitioned;
     }
 
+    public boolean isExecutionStarted()
+    {
+        return executionStartTime.get() != null;
+    }
+
     private long currentThreadUserTime()
     {
         if (!isCpuTimerEnabled()) {
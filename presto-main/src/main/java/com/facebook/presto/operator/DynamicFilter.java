@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * The values of the join keys of the build side of a join.  They are published
+ * when the build finishes, and the probe side uses them to skip data that can
+ * not match.  Until then the filter does not exclude anything.
+ */
+@ThreadSafe
+public class DynamicFilter
+{
+    // types whose native values are equal exactly when the SQL values are equal, which
+    // excludes double (0.0 and -0.0) and types with a time zone
+    private static final Set<Type> SUPPORTED_TYPES = ImmutableSet.<Type>of(BIGINT, BOOLEAN, VARCHAR, DATE, TIMESTAMP);
+
+    private final List<Type> types;
+    private volatile List<Domain> domains;
+
+    public DynamicFilter(List<Type> types)
+    {
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+    }
+
+    public static boolean isSupportedType(Type type)
+    {
+        return SUPPORTED_TYPES.contains(type);
+    }
+
+    /**
+     * Types of the join keys.
+     */
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    public void setDomains(List<Domain> domains)
+    {
+        checkNotNull(domains, "domains is null");
+        checkArgument(domains.size() == types.size(), "Expected %s domains, but got %s", types.size(), domains.size());
+        checkState(this.domains == null, "domains are already set");
+        this.domains = ImmutableList.copyOf(domains);
+    }
+
+    public boolean isDone()
+    {
+        return domains != null;
+    }
+
+    /**
+     * Returns the filter on the columns, given as a map from join key index to column.
+     */
+    public <T> TupleDomain<T> getTupleDomain(Map<Integer, T> columns)
+    {
+        List<Domain> domains = this.domains;
+        if (domains == null) {
+            return TupleDomain.all();
+        }
+
+        ImmutableMap.Builder<T, Domain> columnDomains = ImmutableMap.builder();
+        for (Map.Entry<Integer, T> entry : columns.entrySet()) {
+            columnDomains.put(entry.getValue(), domains.get(entry.getKey()));
+        }
+        return TupleDomain.withColumnDomains(columnDomains.build());
+    }
+}
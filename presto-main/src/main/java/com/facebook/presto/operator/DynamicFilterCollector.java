@@ -0,0 +1,169 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Primitives;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Collects the join key values added to a hash build, and publishes them to a
+ * {@link DynamicFilter} as a set of values, or as the range between the
+ * smallest and largest value when there are too many distinct values.
+ * Nulls are not collected because they never match in an equi-join.
+ */
+public class DynamicFilterCollector
+{
+    private static final int MAX_DISTINCT_VALUES = 1000;
+
+    private final DynamicFilter dynamicFilter;
+    private final List<Integer> channels;
+    private final ChannelValues[] values;
+
+    public DynamicFilterCollector(DynamicFilter dynamicFilter, List<Integer> channels)
+    {
+        this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
+        this.channels = ImmutableList.copyOf(checkNotNull(channels, "channels is null"));
+        checkArgument(dynamicFilter.getTypes().size() == channels.size(), "dynamic filter types do not match the channels");
+
+        values = new ChannelValues[channels.size()];
+        for (int i = 0; i < values.length; i++) {
+            Type type = dynamicFilter.getTypes().get(i);
+            if (DynamicFilter.isSupportedType(type)) {
+                values[i] = new ChannelValues(type);
+            }
+        }
+    }
+
+    public void addPage(Page page)
+    {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                values[i].add(page.getBlock(channels.get(i)));
+            }
+        }
+    }
+
+    public void finish()
+    {
+        ImmutableList.Builder<Domain> domains = ImmutableList.builder();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                domains.add(Domain.all(Primitives.wrap(dynamicFilter.getTypes().get(i).getJavaType())));
+            }
+            else {
+                domains.add(values[i].toDomain());
+            }
+        }
+        dynamicFilter.setDomains(domains.build());
+    }
+
+    private static class ChannelValues
+    {
+        private final Type type;
+        private final Class<?> javaType;
+
+        private Set<Comparable<?>> distinctValues = new HashSet<>();
+        private Comparable<Object> min;
+        private Comparable<Object> max;
+
+        public ChannelValues(Type type)
+        {
+            this.type = type;
+            this.javaType = type.getJavaType();
+        }
+
+        public void add(Block block)
+        {
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                if (block.isNull(position)) {
+                    continue;
+                }
+                Comparable<Object> value = getValue(block, position);
+
+                if (min == null || value.compareTo(min) < 0) {
+                    min = retain(value);
+                }
+                if (max == null || value.compareTo(max) > 0) {
+                    max = retain(value);
+                }
+
+                if (distinctValues != null && !distinctValues.contains(value)) {
+                    distinctValues.add(retain(value));
+                    if (distinctValues.size() > MAX_DISTINCT_VALUES) {
+                        distinctValues = null;
+                    }
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Comparable<Object> retain(Comparable<Object> value)
+        {
+            // slices may point into the page, so copy them to not retain the page
+            Object raw = value;
+            if (raw instanceof Slice) {
+                return (Comparable<Object>) (Comparable<?>) Slices.copyOf((Slice) raw);
+            }
+            return value;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Comparable<Object> getValue(Block block, int position)
+        {
+            if (javaType == long.class) {
+                return (Comparable<Object>) (Comparable<?>) type.getLong(block, position);
+            }
+            if (javaType == boolean.class) {
+                return (Comparable<Object>) (Comparable<?>) type.getBoolean(block, position);
+            }
+            if (javaType == Slice.class) {
+                return (Comparable<Object>) (Comparable<?>) type.getSlice(block, position);
+            }
+            throw new IllegalArgumentException("Unsupported type " + type);
+        }
+
+        public Domain toDomain()
+        {
+            Class<?> domainType = Primitives.wrap(javaType);
+            if (min == null) {
+                return Domain.none(domainType);
+            }
+
+            if (distinctValues != null) {
+                ImmutableList.Builder<Range> ranges = ImmutableList.builder();
+                for (Comparable<?> value : distinctValues) {
+                    ranges.add(Range.equal(value));
+                }
+                return Domain.create(SortedRangeSet.copyOf(domainType, ranges.build()), false);
+            }
+
+            return Domain.create(SortedRangeSet.of(Range.range(min, true, max, true)), false);
+        }
+    }
+}
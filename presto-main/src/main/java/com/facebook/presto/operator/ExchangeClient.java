@@ -60,6 +60,7 @@ public class ExchangeClient
     private final DataSize maxResponseSize;
     private final int concurrentRequestMultiplier;
     private final Duration minErrorDuration;
+    private final boolean compressionEnabled;
     private final HttpClient httpClient;
     private final ScheduledExecutorService executor;
 
@@ -98,12 +99,26 @@ public class ExchangeClient
             Duration minErrorDuration,
             HttpClient httpClient,
             ScheduledExecutorService executor)
+    {
+        this(blockEncodingSerde, maxBufferedBytes, maxResponseSize, concurrentRequestMultiplier, minErrorDuration, false, httpClient, executor);
+    }
+
+    public ExchangeClient(
+            BlockEncodingSerde blockEncodingSerde,
+            DataSize maxBufferedBytes,
+            DataSize maxResponseSize,
+            int concurrentRequestMultiplier,
+            Duration minErrorDuration,
+            boolean compressionEnabled,
+            HttpClient httpClient,
+            ScheduledExecutorService executor)
     {
         this.blockEncodingSerde = blockEncodingSerde;
         this.maxBufferedBytes = maxBufferedBytes.toBytes();
         this.maxResponseSize = maxResponseSize;
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
         this.minErrorDuration = minErrorDuration;
+        this.compressionEnabled = compressionEnabled;
         this.httpClient = httpClient;
         this.executor = executor;
     }
@@ -115,11 +130,23 @@ public class ExchangeClient
             bufferedPages--;
         }
 
+        long compressedBytesReceived = 0;
+        long uncompressedBytesReceived = 0;
         ImmutableList.Builder<PageBufferClientStatus> exchangeStatus = ImmutableList.builder();
         for (HttpPageBufferClient client : allClients.values()) {
-            exchangeStatus.add(client.getStatus());
+            PageBufferClientStatus status = client.getStatus();
+            compressedBytesReceived += status.getCompressedBytesReceived();
+            uncompressedBytesReceived += status.getUncompressedBytesReceived();
+            exchangeStatus.add(status);
         }
-        return new ExchangeClientStatus(bufferBytes, averageBytesPerRequest, bufferedPages, noMoreLocations, exchangeStatus.build());
+        return new ExchangeClientStatus(
+                bufferBytes,
+                averageBytesPerRequest,
+                bufferedPages,
+                noMoreLocations,
+                compressedBytesReceived,
+                uncompressedBytesReceived,
+                exchangeStatus.build());
     }
 
     public synchronized void addLocation(URI location)
@@ -252,6 +279,7 @@ public class ExchangeClient
                         httpClient,
                         maxResponseSize,
                         minErrorDuration,
+                        compressionEnabled,
                         location,
                         new ExchangeClientCallback(),
                         blockEncodingSerde,
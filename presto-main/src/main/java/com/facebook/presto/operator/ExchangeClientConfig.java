@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.http.client.HttpClientConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
@@ -32,6 +33,7 @@ public class ExchangeClientConfig
     private Duration minErrorDuration = new Duration(1, TimeUnit.MINUTES);
     private DataSize maxResponseSize = new HttpClientConfig().getMaxContentLength();
     private int clientThreads = 25;
+    private boolean compressionEnabled;
 
     @NotNull
     public DataSize getMaxBufferSize()
@@ -98,4 +100,17 @@ public class ExchangeClientConfig
         this.clientThreads = clientThreads;
         return this;
     }
+
+    public boolean isCompressionEnabled()
+    {
+        return compressionEnabled;
+    }
+
+    @Config("exchange.compression-enabled")
+    @ConfigDescription("Request pages from upstream tasks compressed with Snappy")
+    public ExchangeClientConfig setCompressionEnabled(boolean compressionEnabled)
+    {
+        this.compressionEnabled = compressionEnabled;
+        return this;
+    }
 }
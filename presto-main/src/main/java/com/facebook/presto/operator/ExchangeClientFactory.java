@@ -33,6 +33,7 @@ public class ExchangeClientFactory
     private final DataSize maxBufferedBytes;
     private final int concurrentRequestMultiplier;
     private final Duration minErrorDuration;
+    private final boolean compressionEnabled;
     private final HttpClient httpClient;
     private final DataSize maxResponseSize;
     private final ScheduledExecutorService executor;
@@ -48,6 +49,7 @@ public class ExchangeClientFactory
                 config.getMaxResponseSize(),
                 config.getConcurrentRequestMultiplier(),
                 config.getMinErrorDuration(),
+                config.isCompressionEnabled(),
                 httpClient,
                 executor);
     }
@@ -58,6 +60,7 @@ public class ExchangeClientFactory
             DataSize maxResponseSize,
             int concurrentRequestMultiplier,
             Duration minErrorDuration,
+            boolean compressionEnabled,
             HttpClient httpClient,
             ScheduledExecutorService executor)
     {
@@ -65,6 +68,7 @@ public class ExchangeClientFactory
         this.maxBufferedBytes = checkNotNull(maxBufferedBytes, "maxBufferedBytes is null");
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
         this.minErrorDuration = checkNotNull(minErrorDuration, "minErrorDuration is null");
+        this.compressionEnabled = compressionEnabled;
         this.httpClient = checkNotNull(httpClient, "httpClient is null");
         this.maxResponseSize = checkNotNull(maxResponseSize, "maxResponseSize is null");
         this.executor = checkNotNull(executor, "executor is null");
@@ -83,6 +87,7 @@ public class ExchangeClientFactory
                 maxResponseSize,
                 concurrentRequestMultiplier,
                 minErrorDuration,
+                compressionEnabled,
                 httpClient,
                 executor);
     }
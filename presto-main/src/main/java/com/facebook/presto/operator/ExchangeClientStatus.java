@@ -28,6 +28,8 @@ public class ExchangeClientStatus
     private final long averageBytesPerRequest;
     private final int bufferedPages;
     private final boolean noMoreLocations;
+    private final long compressedBytesReceived;
+    private final long uncompressedBytesReceived;
     private final List<PageBufferClientStatus> pageBufferClientStatuses;
 
     @JsonCreator
@@ -36,12 +38,16 @@ public class ExchangeClientStatus
             @JsonProperty("averageBytesPerRequest") long averageBytesPerRequest,
             @JsonProperty("bufferedPages") int bufferedPages,
             @JsonProperty("noMoreLocations") boolean noMoreLocations,
+            @JsonProperty("compressedBytesReceived") long compressedBytesReceived,
+            @JsonProperty("uncompressedBytesReceived") long uncompressedBytesReceived,
             @JsonProperty("pageBufferClientStatuses") List<PageBufferClientStatus> pageBufferClientStatuses)
     {
         this.bufferedBytes = bufferedBytes;
         this.averageBytesPerRequest = averageBytesPerRequest;
         this.bufferedPages = bufferedPages;
         this.noMoreLocations = noMoreLocations;
+        this.compressedBytesReceived = compressedBytesReceived;
+        this.uncompressedBytesReceived = uncompressedBytesReceived;
         this.pageBufferClientStatuses = ImmutableList.copyOf(checkNotNull(pageBufferClientStatuses, "pageBufferClientStatuses is null"));
     }
 
@@ -70,7 +76,18 @@ public class ExchangeClientStatus
     }
 
     @JsonProperty
+    public long getCompressedBytesReceived()
+    {
+        return compressedBytesReceived;
+    }
 
+    @JsonProperty
+    public long getUncompressedBytesReceived()
+    {
+        return uncompressedBytesReceived;
+    }
+
+    @JsonProperty
     public List<PageBufferClientStatus> getPageBufferClientStatuses()
     {
         return pageBufferClientStatuses;
@@ -84,6 +101,8 @@ public class ExchangeClientStatus
                 .add("averageBytesPerRequest", averageBytesPerRequest)
                 .add("bufferedPages", bufferedPages)
                 .add("noMoreLocations", noMoreLocations)
+                .add("compressedBytesReceived", compressedBytesReceived)
+                .add("uncompressedBytesReceived", uncompressedBytesReceived)
                 .add("pageBufferClientStatuses", pageBufferClientStatuses)
                 .toString();
     }
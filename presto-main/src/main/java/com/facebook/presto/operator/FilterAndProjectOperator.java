@@ -28,6 +28,7 @@ public class FilterAndProjectOperator
 {
     private final OperatorContext operatorContext;
     private final List<Type> types;
+    private final ConstantProjections constantProjections;
 
     private final PageBuilder pageBuilder;
     private final PageProcessor processor;
@@ -36,11 +37,17 @@ public class FilterAndProjectOperator
     private boolean finishing;
 
     public FilterAndProjectOperator(OperatorContext operatorContext, Iterable<? extends Type> types, PageProcessor processor)
+    {
+        this(operatorContext, processor, ConstantProjections.noConstantProjections(ImmutableList.copyOf(checkNotNull(types, "types is null"))));
+    }
+
+    public FilterAndProjectOperator(OperatorContext operatorContext, PageProcessor processor, ConstantProjections constantProjections)
     {
         this.processor = checkNotNull(processor, "processor is null");
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
-        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
-        this.pageBuilder = new PageBuilder(getTypes());
+        this.constantProjections = checkNotNull(constantProjections, "constantProjections is null");
+        this.types = constantProjections.getTypes();
+        this.pageBuilder = new PageBuilder(constantProjections.getComputedTypes());
     }
 
     @Override
@@ -99,7 +106,7 @@ public class FilterAndProjectOperator
             return null;
         }
 
-        Page page = pageBuilder.build();
+        Page page = constantProjections.toOutputPage(pageBuilder.build());
         pageBuilder.reset();
         return page;
     }
@@ -109,20 +116,25 @@ public class FilterAndProjectOperator
     {
         private final int operatorId;
         private final PageProcessor processor;
-        private final List<Type> types;
+        private final ConstantProjections constantProjections;
         private boolean closed;
 
         public FilterAndProjectOperatorFactory(int operatorId, PageProcessor processor, List<Type> types)
+        {
+            this(operatorId, processor, ConstantProjections.noConstantProjections(types));
+        }
+
+        public FilterAndProjectOperatorFactory(int operatorId, PageProcessor processor, ConstantProjections constantProjections)
         {
             this.operatorId = operatorId;
             this.processor = processor;
-            this.types = types;
+            this.constantProjections = checkNotNull(constantProjections, "constantProjections is null");
         }
 
         @Override
         public List<Type> getTypes()
         {
-            return types;
+            return constantProjections.getTypes();
         }
 
         @Override
@@ -130,7 +142,7 @@ public class FilterAndProjectOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, FilterAndProjectOperator.class.getSimpleName());
-            return new FilterAndProjectOperator(operatorContext, types, processor);
+            return new FilterAndProjectOperator(operatorContext, processor, constantProjections);
         }
 
         @Override
@@ -19,16 +19,21 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.IntPredicate;
 
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -54,6 +59,7 @@ public class HashAggregationOperator
         private final List<Type> types;
         private boolean closed;
         private final long maxPartialMemory;
+        private final Optional<SpillerFactory> spillerFactory;
 
         public HashAggregationOperatorFactory(
                 int operatorId,
@@ -65,6 +71,21 @@ public class HashAggregationOperator
                 Optional<Integer> hashChannel,
                 int expectedGroups,
                 DataSize maxPartialMemory)
+        {
+            this(operatorId, groupByTypes, groupByChannels, step, accumulatorFactories, maskChannel, hashChannel, expectedGroups, maxPartialMemory, Optional.empty());
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                Step step,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> maskChannel,
+                Optional<Integer> hashChannel,
+                int expectedGroups,
+                DataSize maxPartialMemory,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.maskChannel = checkNotNull(maskChannel, "maskChannel is null");
@@ -75,6 +96,7 @@ public class HashAggregationOperator
             this.accumulatorFactories = ImmutableList.copyOf(accumulatorFactories);
             this.expectedGroups = expectedGroups;
             this.maxPartialMemory = checkNotNull(maxPartialMemory, "maxPartialMemory is null").toBytes();
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
 
             this.types = toTypes(groupByTypes, step, accumulatorFactories, hashChannel);
         }
@@ -91,11 +113,15 @@ public class HashAggregationOperator
             checkState(!closed, "Factory is already closed");
 
             OperatorContext operatorContext;
+            Optional<SpillerFactory> spillerFactory;
             if (step == Step.PARTIAL) {
                 operatorContext = driverContext.addOperatorContext(operatorId, HashAggregationOperator.class.getSimpleName(), maxPartialMemory);
+                // partial aggregations flush their output when full, so they never need to spill
+                spillerFactory = Optional.empty();
             }
             else {
                 operatorContext = driverContext.addOperatorContext(operatorId, HashAggregationOperator.class.getSimpleName());
+                spillerFactory = this.spillerFactory;
             }
             HashAggregationOperator hashAggregationOperator = new HashAggregationOperator(
                     operatorContext,
@@ -105,7 +131,8 @@ public class HashAggregationOperator
                     accumulatorFactories,
                     maskChannel,
                     hashChannel,
-                    expectedGroups);
+                    expectedGroups,
+                    spillerFactory);
             return hashAggregationOperator;
         }
 
@@ -116,6 +143,9 @@ public class HashAggregationOperator
         }
     }
 
+    // number of hash partitions spilled groups are split into; each partition is merged separately at finish
+    private static final int SPILL_PARTITION_COUNT = 16;
+
     private final OperatorContext operatorContext;
     private final List<Type> groupByTypes;
     private final List<Integer> groupByChannels;
@@ -124,6 +154,7 @@ public class HashAggregationOperator
     private final Optional<Integer> maskChannel;
     private final Optional<Integer> hashChannel;
     private final int expectedGroups;
+    private final Optional<SpillerFactory> spillerFactory;
 
     private final List<Type> types;
 
@@ -131,6 +162,10 @@ public class HashAggregationOperator
     private Iterator<Page> outputIterator;
     private boolean finishing;
 
+    // one spiller per partition, created when the operator first spills
+    private List<Spiller> spillers;
+    private int nextSpilledPartition;
+
     public HashAggregationOperator(
             OperatorContext operatorContext,
             List<Type> groupByTypes,
@@ -139,7 +174,8 @@ public class HashAggregationOperator
             List<AccumulatorFactory> accumulatorFactories,
             Optional<Integer> maskChannel,
             Optional<Integer> hashChannel,
-            int expectedGroups)
+            int expectedGroups,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         checkNotNull(step, "step is null");
@@ -153,6 +189,8 @@ public class HashAggregationOperator
         this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
         this.step = step;
         this.expectedGroups = expectedGroups;
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
+        checkArgument(step != Step.PARTIAL || !spillerFactory.isPresent(), "partial aggregation can not spill");
         this.types = toTypes(groupByTypes, step, accumulatorFactories, hashChannel);
     }
 
@@ -177,7 +215,7 @@ public class HashAggregationOperator
     @Override
     public boolean isFinished()
     {
-        return finishing && aggregationBuilder == null && (outputIterator == null || !outputIterator.hasNext());
+        return finishing && aggregationBuilder == null && !hasUnmergedSpills() && (outputIterator == null || !outputIterator.hasNext());
     }
 
     @Override
@@ -193,14 +231,15 @@ public class HashAggregationOperator
         checkNotNull(page, "page is null");
         if (aggregationBuilder == null) {
             aggregationBuilder = new GroupByHashAggregationBuilder(
-                    accumulatorFactories,
+                    createAggregators(accumulatorFactories, step),
                     step,
                     expectedGroups,
                     groupByTypes,
                     groupByChannels,
                     maskChannel,
                     hashChannel,
-                    operatorContext);
+                    operatorContext,
+                    spillerFactory.isPresent());
 
             // assume initial aggregationBuilder is not full
         }
@@ -208,6 +247,11 @@ public class HashAggregationOperator
             checkState(!aggregationBuilder.isFull(), "Aggregation buffer is full");
         }
         aggregationBuilder.processPage(page);
+
+        // when the memory pool can not hold the groups, move them to disk instead of failing the query
+        if (spillerFactory.isPresent() && aggregationBuilder.isFull()) {
+            spillToDisk();
+        }
     }
 
     @Override
@@ -217,6 +261,10 @@ public class HashAggregationOperator
             // current output iterator is done
             outputIterator = null;
 
+            if (spillers != null) {
+                return getSpilledOutput();
+            }
+
             // no data
             if (aggregationBuilder == null) {
                 return null;
@@ -240,6 +288,121 @@ public class HashAggregationOperator
         return outputIterator.next();
     }
 
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (spillers != null) {
+            try (Closer closer = Closer.create()) {
+                spillers.forEach(closer::register);
+            }
+        }
+    }
+
+    private boolean hasUnmergedSpills()
+    {
+        return spillers != null && nextSpilledPartition < spillers.size();
+    }
+
+    private void spillToDisk()
+    {
+        if (spillers == null) {
+            ImmutableList.Builder<Spiller> builder = ImmutableList.builder();
+            for (int i = 0; i < SPILL_PARTITION_COUNT; i++) {
+                builder.add(spillerFactory.get().create());
+            }
+            spillers = builder.build();
+        }
+
+        long start = System.nanoTime();
+        long spilledBytes = 0;
+        int[] groupPartitions = aggregationBuilder.getGroupPartitions(spillers.size());
+        for (int partition = 0; partition < spillers.size(); partition++) {
+            int currentPartition = partition;
+            spilledBytes += spillers.get(partition).spill(aggregationBuilder.buildIntermediate(groupId -> groupPartitions[groupId] == currentPartition));
+        }
+        operatorContext.recordSpill(spilledBytes, System.nanoTime() - start);
+
+        aggregationBuilder = null;
+        operatorContext.setMemoryReservation(0);
+    }
+
+    private Page getSpilledOutput()
+    {
+        // nothing can be produced until all input has been spilled
+        if (!finishing) {
+            return null;
+        }
+
+        if (aggregationBuilder != null) {
+            spillToDisk();
+        }
+
+        if (!hasUnmergedSpills()) {
+            return null;
+        }
+
+        // all groups of a partition are in that partition's spill runs, so each partition can be merged independently
+        Spiller spiller = spillers.get(nextSpilledPartition);
+        nextSpilledPartition++;
+
+        GroupByHashAggregationBuilder mergeBuilder = createMergeBuilder();
+        for (Iterator<Page> spill : spiller.getSpills()) {
+            while (spill.hasNext()) {
+                mergeBuilder.processPage(spill.next());
+                // updates the memory reservation; a partition that does not fit fails the query
+                mergeBuilder.isFull();
+            }
+        }
+
+        outputIterator = mergeBuilder.build();
+        if (!outputIterator.hasNext()) {
+            outputIterator = null;
+            return null;
+        }
+        return outputIterator.next();
+    }
+
+    private GroupByHashAggregationBuilder createMergeBuilder()
+    {
+        // spilled pages are laid out as: group by channels, optional hash channel, intermediate aggregation states
+        ImmutableList.Builder<Integer> mergeGroupByChannels = ImmutableList.builder();
+        for (int i = 0; i < groupByTypes.size(); i++) {
+            mergeGroupByChannels.add(i);
+        }
+        Optional<Integer> mergeHashChannel = hashChannel.map(channel -> groupByTypes.size());
+        int intermediateChannel = groupByTypes.size() + (hashChannel.isPresent() ? 1 : 0);
+
+        ImmutableList.Builder<Aggregator> aggregators = ImmutableList.builder();
+        for (AccumulatorFactory accumulatorFactory : accumulatorFactories) {
+            aggregators.add(new Aggregator(accumulatorFactory, step, intermediateChannel));
+            intermediateChannel++;
+        }
+
+        return new GroupByHashAggregationBuilder(
+                aggregators.build(),
+                step,
+                expectedGroups,
+                groupByTypes,
+                mergeGroupByChannels.build(),
+                Optional.empty(),
+                mergeHashChannel,
+                operatorContext,
+                false);
+    }
+
+    private static List<Aggregator> createAggregators(List<AccumulatorFactory> accumulatorFactories, Step step)
+    {
+        // wrapper each function with an aggregator
+        ImmutableList.Builder<Aggregator> builder = ImmutableList.builder();
+        checkNotNull(accumulatorFactories, "accumulatorFactories is null");
+        for (int i = 0; i < accumulatorFactories.size(); i++) {
+            AccumulatorFactory accumulatorFactory = accumulatorFactories.get(i);
+            builder.add(new Aggregator(accumulatorFactory, step));
+        }
+        return builder.build();
+    }
+
     private static List<Type> toTypes(List<? extends Type> groupByType, Step step, List<AccumulatorFactory> factories, Optional<Integer> hashChannel)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
@@ -259,29 +422,37 @@ public class HashAggregationOperator
         private final List<Aggregator> aggregators;
         private final OperatorContext operatorContext;
         private final boolean partial;
+        private final boolean spillable;
+        private final HashGenerator groupHashGenerator;
 
         private GroupByHashAggregationBuilder(
-                List<AccumulatorFactory> accumulatorFactories,
+                List<Aggregator> aggregators,
                 Step step,
                 int expectedGroups,
                 List<Type> groupByTypes,
                 List<Integer> groupByChannels,
                 Optional<Integer> maskChannel,
                 Optional<Integer> hashChannel,
-                OperatorContext operatorContext)
+                OperatorContext operatorContext,
+                boolean spillable)
         {
             this.groupByHash = createGroupByHash(groupByTypes, Ints.toArray(groupByChannels), maskChannel, hashChannel, expectedGroups);
             this.operatorContext = operatorContext;
             this.partial = (step == Step.PARTIAL);
+            this.spillable = spillable;
+            this.aggregators = ImmutableList.copyOf(checkNotNull(aggregators, "aggregators is null"));
 
-            // wrapper each function with an aggregator
-            ImmutableList.Builder<Aggregator> builder = ImmutableList.builder();
-            checkNotNull(accumulatorFactories, "accumulatorFactories is null");
-            for (int i = 0; i < accumulatorFactories.size(); i++) {
-                AccumulatorFactory accumulatorFactory = accumulatorFactories.get(i);
-                builder.add(new Aggregator(accumulatorFactory, step));
+            // hash generator over the values produced by groupByHash.appendValuesTo
+            int[] groupValueChannels = new int[groupByTypes.size()];
+            for (int i = 0; i < groupValueChannels.length; i++) {
+                groupValueChannels[i] = i;
+            }
+            if (hashChannel.isPresent()) {
+                this.groupHashGenerator = new PrecomputedHashGenerator(groupByTypes.size());
+            }
+            else {
+                this.groupHashGenerator = new InterpretedHashGenerator(groupByTypes, groupValueChannels);
             }
-            aggregators = builder.build();
         }
 
         private void processPage(Page page)
@@ -308,7 +479,7 @@ public class HashAggregationOperator
             if (memorySize < 0) {
                 memorySize = 0;
             }
-            if (partial) {
+            if (partial || spillable) {
                 return !operatorContext.trySetMemoryReservation(memorySize);
             }
             else {
@@ -317,11 +488,52 @@ public class HashAggregationOperator
             }
         }
 
+        /**
+         * Assigns every group to one of {@code partitionCount} hash partitions.
+         */
+        public int[] getGroupPartitions(int partitionCount)
+        {
+            int groupCount = groupByHash.getGroupCount();
+            int[] groupPartitions = new int[groupCount];
+
+            PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+            int groupId = 0;
+            while (groupId < groupCount) {
+                pageBuilder.reset();
+                int firstGroupId = groupId;
+                while (!pageBuilder.isFull() && groupId < groupCount) {
+                    groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+                    pageBuilder.declarePosition();
+                    groupId++;
+                }
+
+                Page page = pageBuilder.build();
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    groupPartitions[firstGroupId + position] = groupHashGenerator.getPartitionBucket(partitionCount, position, page);
+                }
+            }
+            return groupPartitions;
+        }
+
         public Iterator<Page> build()
+        {
+            return buildPages(groupId -> true, false);
+        }
+
+        /**
+         * Builds pages with the intermediate state of the selected groups, which can be
+         * merged back with {@link Aggregator#processPage} in intermediate mode.
+         */
+        public Iterator<Page> buildIntermediate(IntPredicate groupFilter)
+        {
+            return buildPages(groupFilter, true);
+        }
+
+        private Iterator<Page> buildPages(IntPredicate groupFilter, boolean intermediate)
         {
             List<Type> types = new ArrayList<>(groupByHash.getTypes());
             for (Aggregator aggregator : aggregators) {
-                types.add(aggregator.getType());
+                types.add(intermediate ? aggregator.getIntermediateType() : aggregator.getType());
             }
 
             final PageBuilder pageBuilder = new PageBuilder(types);
@@ -333,26 +545,35 @@ public class HashAggregationOperator
                 @Override
                 protected Page computeNext()
                 {
-                    if (groupId >= groupCount) {
-                        return endOfData();
-                    }
-
                     pageBuilder.reset();
 
                     List<Type> types = groupByHash.getTypes();
                     while (!pageBuilder.isFull() && groupId < groupCount) {
+                        if (!groupFilter.test(groupId)) {
+                            groupId++;
+                            continue;
+                        }
+
                         groupByHash.appendValuesTo(groupId, pageBuilder, 0);
 
                         pageBuilder.declarePosition();
                         for (int i = 0; i < aggregators.size(); i++) {
                             Aggregator aggregator = aggregators.get(i);
                             BlockBuilder output = pageBuilder.getBlockBuilder(types.size() + i);
-                            aggregator.evaluate(groupId, output);
+                            if (intermediate) {
+                                aggregator.evaluateIntermediate(groupId, output);
+                            }
+                            else {
+                                aggregator.evaluate(groupId, output);
+                            }
                         }
 
                         groupId++;
                     }
 
+                    if (pageBuilder.isEmpty()) {
+                        return endOfData();
+                    }
                     return pageBuilder.build();
                 }
             };
@@ -365,6 +586,18 @@ public class HashAggregationOperator
         private final Step step;
         private final int intermediateChannel;
 
+        /**
+         * Creates an aggregator that combines intermediate states read from {@code intermediateChannel},
+         * and produces the output of {@code step}.
+         */
+        private Aggregator(AccumulatorFactory accumulatorFactory, Step step, int intermediateChannel)
+        {
+            checkArgument(intermediateChannel >= 0, "intermediateChannel is negative");
+            this.intermediateChannel = intermediateChannel;
+            this.aggregation = accumulatorFactory.createGroupedIntermediateAccumulator();
+            this.step = step;
+        }
+
         private Aggregator(AccumulatorFactory accumulatorFactory, Step step)
         {
             if (step == Step.FINAL) {
@@ -394,9 +627,14 @@ public class HashAggregationOperator
             }
         }
 
+        public Type getIntermediateType()
+        {
+            return aggregation.getIntermediateType();
+        }
+
         public void processPage(GroupByIdBlock groupIds, Page page)
         {
-            if (step == Step.FINAL) {
+            if (intermediateChannel >= 0) {
                 aggregation.addIntermediate(groupIds, page.getBlock(intermediateChannel));
             }
             else {
@@ -413,5 +651,10 @@ public class HashAggregationOperator
                 aggregation.evaluateFinal(groupId, output);
             }
         }
+
+        public void evaluateIntermediate(int groupId, BlockBuilder output)
+        {
+            aggregation.evaluateIntermediate(groupId, output);
+        }
     }
 }
@@ -14,22 +14,34 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Closer;
+import com.google.common.primitives.Ints;
 
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
 
 @ThreadSafe
 public class HashBuilderOperator
         implements Operator
 {
+    // must be a power of 2
+    private static final int SPILL_PARTITION_COUNT = 8;
+
     public static class HashBuilderOperatorFactory
             implements OperatorFactory
     {
@@ -39,6 +51,8 @@ public class HashBuilderOperator
         private final Optional<Integer> hashChannel;
 
         private final int expectedPositions;
+        private final Optional<SpillerFactory> spillerFactory;
+        private final Optional<DynamicFilter> dynamicFilter;
         private boolean closed;
 
         public HashBuilderOperatorFactory(
@@ -47,6 +61,29 @@ public class HashBuilderOperator
                 List<Integer> hashChannels,
                 Optional<Integer> hashChannel,
                 int expectedPositions)
+        {
+            this(operatorId, types, hashChannels, hashChannel, expectedPositions, Optional.empty());
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                List<Integer> hashChannels,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory)
+        {
+            this(operatorId, types, hashChannels, hashChannel, expectedPositions, spillerFactory, Optional.empty());
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                List<Integer> hashChannels,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory,
+                Optional<DynamicFilter> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.lookupSourceSupplier = new SettableLookupSourceSupplier(checkNotNull(types, "types is null"));
@@ -56,6 +93,8 @@ public class HashBuilderOperator
             this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
 
             this.expectedPositions = expectedPositions;
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
+            this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
         }
 
         public LookupSourceSupplier getLookupSourceSupplier()
@@ -79,7 +118,9 @@ public class HashBuilderOperator
                     lookupSourceSupplier,
                     hashChannels,
                     hashChannel,
-                    expectedPositions);
+                    expectedPositions,
+                    spillerFactory,
+                    dynamicFilter);
         }
 
         @Override
@@ -93,9 +134,20 @@ public class HashBuilderOperator
     private final SettableLookupSourceSupplier lookupSourceSupplier;
     private final List<Integer> hashChannels;
     private final Optional<Integer> hashChannel;
+    private final int expectedPositions;
 
     private final PagesIndex pagesIndex;
 
+    // when spilling is enabled the build side is hash partitioned, and partitions are spilled individually
+    private final Optional<SpillerFactory> spillerFactory;
+    private final HashGenerator hashGenerator;
+    private final PagesIndex[] partitions;
+    private final PageBuilder[] partitionPageBuilders;
+    private final Spiller[] spillers;
+    private final long[] spilledPartitionSizes;
+
+    private final Optional<DynamicFilterCollector> dynamicFilterCollector;
+
     private boolean finished;
 
     public HashBuilderOperator(
@@ -103,7 +155,9 @@ public class HashBuilderOperator
             SettableLookupSourceSupplier lookupSourceSupplier,
             List<Integer> hashChannels,
             Optional<Integer> hashChannel,
-            int expectedPositions)
+            int expectedPositions,
+            Optional<SpillerFactory> spillerFactory,
+            Optional<DynamicFilter> dynamicFilter)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
 
@@ -112,8 +166,37 @@ public class HashBuilderOperator
         Preconditions.checkArgument(!hashChannels.isEmpty(), "hashChannels is empty");
         this.hashChannels = ImmutableList.copyOf(checkNotNull(hashChannels, "hashChannels is null"));
         this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
+        this.expectedPositions = expectedPositions;
+
+        List<Type> types = lookupSourceSupplier.getTypes();
+        this.pagesIndex = new PagesIndex(types, expectedPositions);
+
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
+        if (spillerFactory.isPresent()) {
+            if (hashChannel.isPresent()) {
+                this.hashGenerator = new PrecomputedHashGenerator(hashChannel.get());
+            }
+            else {
+                this.hashGenerator = new InterpretedHashGenerator(getHashChannelTypes(), Ints.toArray(hashChannels));
+            }
+            this.partitions = new PagesIndex[SPILL_PARTITION_COUNT];
+            this.partitionPageBuilders = new PageBuilder[SPILL_PARTITION_COUNT];
+            for (int partition = 0; partition < partitions.length; partition++) {
+                partitions[partition] = new PagesIndex(types, expectedPositions);
+                partitionPageBuilders[partition] = new PageBuilder(types);
+            }
+            this.spillers = new Spiller[SPILL_PARTITION_COUNT];
+            this.spilledPartitionSizes = new long[SPILL_PARTITION_COUNT];
+        }
+        else {
+            this.hashGenerator = null;
+            this.partitions = null;
+            this.partitionPageBuilders = null;
+            this.spillers = null;
+            this.spilledPartitionSizes = null;
+        }
 
-        this.pagesIndex = new PagesIndex(lookupSourceSupplier.getTypes(), expectedPositions);
+        this.dynamicFilterCollector = checkNotNull(dynamicFilter, "dynamicFilter is null").map(filter -> new DynamicFilterCollector(filter, hashChannels));
     }
 
     @Override
@@ -135,12 +218,67 @@ public class HashBuilderOperator
             return;
         }
 
+        LookupSource lookupSource;
+        if (spillerFactory.isPresent()) {
+            lookupSource = createPartitionedLookupSource();
+        }
+        else {
+            lookupSource = pagesIndex.createLookupSource(hashChannels, hashChannel);
+        }
+
+        // publish the filter before the lookup source, so the probe side sees it when it starts
+        dynamicFilterCollector.ifPresent(DynamicFilterCollector::finish);
+
         // Free memory, as the SharedLookupSource is going to take it over
         operatorContext.setMemoryReservation(0);
-        lookupSourceSupplier.setLookupSource(new SharedLookupSource(pagesIndex.createLookupSource(hashChannels, hashChannel), operatorContext.getDriverContext().getPipelineContext().getTaskContext()));
+        lookupSourceSupplier.setLookupSource(new SharedLookupSource(lookupSource, operatorContext.getDriverContext().getPipelineContext().getTaskContext()));
         finished = true;
     }
 
+    private LookupSource createPartitionedLookupSource()
+    {
+        ImmutableList.Builder<LookupSource> lookupSources = ImmutableList.builder();
+        ImmutableMap.Builder<Integer, Spiller> spilledPartitions = ImmutableMap.builder();
+        // leave room for a join operator to load the largest spilled partition, hash table included,
+        // which roughly doubles the size of the partition data
+        long maxPartitionSize = 0;
+        for (int partition = 0; partition < partitions.length; partition++) {
+            maxPartitionSize = Math.max(maxPartitionSize, Math.max(partitions[partition].getEstimatedSize().toBytes(), spilledPartitionSizes[partition]));
+        }
+        long reservedSize = 2 * maxPartitionSize;
+        for (int partition = 0; partition < partitions.length; partition++) {
+            if (spillers[partition] == null && partitions[partition].getPositionCount() > 0) {
+                // the hash table needs memory on top of the partition data, so spill the partition when it does not fit
+                LookupSource lookupSource = partitions[partition].createLookupSource(hashChannels, hashChannel);
+                long remainingSize = 0;
+                for (int next = partition + 1; next < partitions.length; next++) {
+                    remainingSize += partitions[next].getEstimatedSize().toBytes();
+                }
+                if (operatorContext.trySetMemoryReservation(reservedSize + lookupSource.getInMemorySizeInBytes() + remainingSize)) {
+                    reservedSize += lookupSource.getInMemorySizeInBytes();
+                    lookupSources.add(lookupSource);
+                    continue;
+                }
+                lookupSource.close();
+            }
+
+            if (partitions[partition].getPositionCount() > 0) {
+                spillPartition(partition);
+            }
+            if (spillers[partition] != null) {
+                spilledPartitions.put(partition, spillers[partition]);
+            }
+            lookupSources.add(partitions[partition].createLookupSource(hashChannels, hashChannel));
+        }
+
+        Map<Integer, Spiller> spilled = spilledPartitions.build();
+        Optional<SpilledBuildPartitions> spilledBuildPartitions = Optional.empty();
+        if (!spilled.isEmpty()) {
+            spilledBuildPartitions = Optional.of(new SpilledBuildPartitions(getTypes(), hashChannels, hashChannel, expectedPositions, spillerFactory.get(), spilled));
+        }
+        return new PartitionedLookupSource(lookupSources.build(), getHashChannelTypes(), spilledBuildPartitions);
+    }
+
     @Override
     public boolean isFinished()
     {
@@ -159,6 +297,16 @@ public class HashBuilderOperator
         checkNotNull(page, "page is null");
         checkState(!isFinished(), "Operator is already finished");
 
+        if (dynamicFilterCollector.isPresent()) {
+            dynamicFilterCollector.get().addPage(page);
+        }
+
+        if (spillerFactory.isPresent()) {
+            addPartitionedPage(page);
+            operatorContext.recordGeneratedOutput(page.getSizeInBytes(), page.getPositionCount());
+            return;
+        }
+
         pagesIndex.addPage(page);
         if (!operatorContext.trySetMemoryReservation(pagesIndex.getEstimatedSize().toBytes())) {
             pagesIndex.compact();
@@ -167,9 +315,108 @@ public class HashBuilderOperator
         operatorContext.recordGeneratedOutput(page.getSizeInBytes(), page.getPositionCount());
     }
 
+    private void addPartitionedPage(Page page)
+    {
+        // copy the rows of each partition, so that spilling a partition releases its memory
+        List<Type> types = getTypes();
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            int rawHash = hashGenerator.hashPosition(position, page);
+            PageBuilder partitionPageBuilder = partitionPageBuilders[murmurHash3(rawHash) & (SPILL_PARTITION_COUNT - 1)];
+            partitionPageBuilder.declarePosition();
+            for (int channel = 0; channel < types.size(); channel++) {
+                types.get(channel).appendTo(page.getBlock(channel), position, partitionPageBuilder.getBlockBuilder(channel));
+            }
+        }
+
+        for (int partition = 0; partition < partitions.length; partition++) {
+            if (!partitionPageBuilders[partition].isEmpty()) {
+                partitions[partition].addPage(partitionPageBuilders[partition].build());
+                partitionPageBuilders[partition].reset();
+            }
+        }
+
+        while (!operatorContext.trySetMemoryReservation(getPartitionsSize())) {
+            int partition = selectPartitionToSpill();
+            if (partition < 0) {
+                // nothing left to spill, so wait for (or fail on) the memory like the non-spilling build
+                operatorContext.setMemoryReservation(getPartitionsSize());
+                return;
+            }
+            spillPartition(partition);
+        }
+    }
+
+    /**
+     * Prefers flushing the buffered rows of already spilled partitions, so that
+     * as many partitions as possible stay in memory.
+     */
+    private int selectPartitionToSpill()
+    {
+        int selected = -1;
+        for (int partition = 0; partition < partitions.length; partition++) {
+            if (partitions[partition].getPositionCount() == 0) {
+                continue;
+            }
+            if (selected < 0 ||
+                    (spillers[partition] != null && spillers[selected] == null) ||
+                    ((spillers[partition] != null) == (spillers[selected] != null) && partitions[partition].getEstimatedSize().toBytes() > partitions[selected].getEstimatedSize().toBytes())) {
+                selected = partition;
+            }
+        }
+        return selected;
+    }
+
+    private void spillPartition(int partition)
+    {
+        if (spillers[partition] == null) {
+            spillers[partition] = spillerFactory.get().create();
+        }
+
+        long start = System.nanoTime();
+        long spilledBytes = spillers[partition].spill(partitions[partition].getSortedPages());
+        operatorContext.recordSpill(spilledBytes, System.nanoTime() - start);
+
+        spilledPartitionSizes[partition] += partitions[partition].getEstimatedSize().toBytes();
+        partitions[partition].clear();
+    }
+
+    private long getPartitionsSize()
+    {
+        long size = 0;
+        for (PagesIndex partition : partitions) {
+            size += partition.getEstimatedSize().toBytes();
+        }
+        return size;
+    }
+
+    private List<Type> getHashChannelTypes()
+    {
+        ImmutableList.Builder<Type> hashChannelTypes = ImmutableList.builder();
+        for (int channel : hashChannels) {
+            hashChannelTypes.add(lookupSourceSupplier.getTypes().get(channel));
+        }
+        return hashChannelTypes.build();
+    }
+
     @Override
     public Page getOutput()
     {
         return null;
     }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        // once finished, the spilled partitions are owned by the lookup source
+        if (spillers != null && !finished) {
+            try (Closer closer = Closer.create()) {
+                for (Spiller spiller : spillers) {
+                    if (spiller != null) {
+                        closer.register(spiller);
+                    }
+                }
+            }
+        }
+    }
 }
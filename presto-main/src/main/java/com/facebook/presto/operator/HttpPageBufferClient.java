@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.CompressedPagesSerde;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
@@ -48,10 +49,13 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES_TYPE;
+import static com.facebook.presto.block.CompressedPagesSerde.SNAPPY_CODEC;
 import static com.facebook.presto.block.PagesSerde.readPages;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_COMPRESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
 import static com.facebook.presto.operator.HttpPageBufferClient.PagesResponse.createClosedResponse;
@@ -99,6 +103,7 @@ public final class HttpPageBufferClient
     private final HttpClient httpClient;
     private final DataSize maxResponseSize;
     private final Duration minErrorDuration;
+    private final boolean compressionEnabled;
     private final URI location;
     private final ClientCallback clientCallback;
     private final BlockEncodingSerde blockEncodingSerde;
@@ -121,6 +126,8 @@ public final class HttpPageBufferClient
     private long errorDelayMillis;
 
     private final AtomicInteger pagesReceived = new AtomicInteger();
+    private final AtomicLong compressedBytesReceived = new AtomicLong();
+    private final AtomicLong uncompressedBytesReceived = new AtomicLong();
 
     private final AtomicInteger requestsScheduled = new AtomicInteger();
     private final AtomicInteger requestsCompleted = new AtomicInteger();
@@ -135,7 +142,20 @@ public final class HttpPageBufferClient
             BlockEncodingSerde blockEncodingSerde,
             ScheduledExecutorService executor)
     {
-        this(httpClient, maxResponseSize, minErrorDuration, location, clientCallback, blockEncodingSerde, executor, Stopwatch.createUnstarted());
+        this(httpClient, maxResponseSize, minErrorDuration, false, location, clientCallback, blockEncodingSerde, executor);
+    }
+
+    public HttpPageBufferClient(
+            HttpClient httpClient,
+            DataSize maxResponseSize,
+            Duration minErrorDuration,
+            boolean compressionEnabled,
+            URI location,
+            ClientCallback clientCallback,
+            BlockEncodingSerde blockEncodingSerde,
+            ScheduledExecutorService executor)
+    {
+        this(httpClient, maxResponseSize, minErrorDuration, compressionEnabled, location, clientCallback, blockEncodingSerde, executor, Stopwatch.createUnstarted());
     }
 
     public HttpPageBufferClient(
@@ -147,10 +167,25 @@ public final class HttpPageBufferClient
             BlockEncodingSerde blockEncodingSerde,
             ScheduledExecutorService executor,
             Stopwatch errorStopwatch)
+    {
+        this(httpClient, maxResponseSize, minErrorDuration, false, location, clientCallback, blockEncodingSerde, executor, errorStopwatch);
+    }
+
+    public HttpPageBufferClient(
+            HttpClient httpClient,
+            DataSize maxResponseSize,
+            Duration minErrorDuration,
+            boolean compressionEnabled,
+            URI location,
+            ClientCallback clientCallback,
+            BlockEncodingSerde blockEncodingSerde,
+            ScheduledExecutorService executor,
+            Stopwatch errorStopwatch)
     {
         this.httpClient = checkNotNull(httpClient, "httpClient is null");
         this.maxResponseSize = checkNotNull(maxResponseSize, "maxResponseSize is null");
         this.minErrorDuration = checkNotNull(minErrorDuration, "minErrorDuration is null");
+        this.compressionEnabled = compressionEnabled;
         this.location = checkNotNull(location, "location is null");
         this.clientCallback = checkNotNull(clientCallback, "clientCallback is null");
         this.blockEncodingSerde = checkNotNull(blockEncodingSerde, "blockEncodingManager is null");
@@ -182,6 +217,8 @@ public final class HttpPageBufferClient
                 state,
                 lastUpdate,
                 pagesReceived.get(),
+                compressedBytesReceived.get(),
+                uncompressedBytesReceived.get(),
                 requestsScheduled.get(),
                 requestsCompleted.get(),
                 requestsFailed.get(),
@@ -251,11 +288,13 @@ public final class HttpPageBufferClient
         }
 
         final URI uri = HttpUriBuilder.uriBuilderFrom(location).appendPath(String.valueOf(token)).build();
-        future = httpClient.executeAsync(
-                prepareGet()
-                        .setHeader(PRESTO_MAX_SIZE, maxResponseSize.toString())
-                        .setUri(uri).build(),
-                new PageResponseHandler(blockEncodingSerde));
+        Request.Builder request = prepareGet()
+                .setHeader(PRESTO_MAX_SIZE, maxResponseSize.toString())
+                .setUri(uri);
+        if (compressionEnabled) {
+            request.setHeader(PRESTO_PAGE_COMPRESSION, SNAPPY_CODEC);
+        }
+        future = httpClient.executeAsync(request.build(), new PageResponseHandler(blockEncodingSerde));
 
         Futures.addCallback(future, new FutureCallback<PagesResponse>()
         {
@@ -275,6 +314,8 @@ public final class HttpPageBufferClient
                     if (result.getToken() == token) {
                         pages = result.getPages();
                         token = result.getNextToken();
+                        compressedBytesReceived.addAndGet(result.getCompressedBytes());
+                        uncompressedBytesReceived.addAndGet(result.getUncompressedBytes());
                     }
                     else {
                         pages = ImmutableList.of();
@@ -462,8 +503,15 @@ public final class HttpPageBufferClient
             long nextToken = getNextToken(response);
 
             try (SliceInput input = new InputStreamSliceInput(response.getInputStream())) {
+                if (SNAPPY_CODEC.equals(response.getHeader(PRESTO_PAGE_COMPRESSION))) {
+                    CompressedPagesSerde.PagesReader reader = CompressedPagesSerde.readPages(blockEncodingSerde, input);
+                    List<Page> pages = ImmutableList.copyOf(reader);
+                    return createPagesResponse(token, nextToken, pages, reader.getCompressedBytes(), reader.getUncompressedBytes());
+                }
+
                 List<Page> pages = ImmutableList.copyOf(readPages(blockEncodingSerde, input));
-                return createPagesResponse(token, nextToken, pages);
+                long bytes = input.position();
+                return createPagesResponse(token, nextToken, pages, bytes, bytes);
             }
             catch (IOException e) {
                 throw Throwables.propagate(e);
@@ -503,30 +551,39 @@ public final class HttpPageBufferClient
     {
         public static PagesResponse createPagesResponse(long token, long nextToken, Iterable<Page> pages)
         {
-            return new PagesResponse(token, nextToken, pages, false);
+            return new PagesResponse(token, nextToken, pages, false, 0, 0);
+        }
+
+        public static PagesResponse createPagesResponse(long token, long nextToken, Iterable<Page> pages, long compressedBytes, long uncompressedBytes)
+        {
+            return new PagesResponse(token, nextToken, pages, false, compressedBytes, uncompressedBytes);
         }
 
         public static PagesResponse createEmptyPagesResponse(long token, long nextToken)
         {
-            return new PagesResponse(token, nextToken, ImmutableList.<Page>of(), false);
+            return new PagesResponse(token, nextToken, ImmutableList.<Page>of(), false, 0, 0);
         }
 
         public static PagesResponse createClosedResponse(long token)
         {
-            return new PagesResponse(token, -1, ImmutableList.<Page>of(), true);
+            return new PagesResponse(token, -1, ImmutableList.<Page>of(), true, 0, 0);
         }
 
         private final long token;
         private final long nextToken;
         private final List<Page> pages;
         private final boolean clientClosed;
+        private final long compressedBytes;
+        private final long uncompressedBytes;
 
-        private PagesResponse(long token, long nextToken, Iterable<Page> pages, boolean clientClosed)
+        private PagesResponse(long token, long nextToken, Iterable<Page> pages, boolean clientClosed, long compressedBytes, long uncompressedBytes)
         {
             this.token = token;
             this.nextToken = nextToken;
             this.pages = ImmutableList.copyOf(pages);
             this.clientClosed = clientClosed;
+            this.compressedBytes = compressedBytes;
+            this.uncompressedBytes = uncompressedBytes;
         }
 
         public long getToken()
@@ -549,6 +606,22 @@ public final class HttpPageBufferClient
             return clientClosed;
         }
 
+        /**
+         * Bytes of page data received over the wire.
+         */
+        public long getCompressedBytes()
+        {
+            return compressedBytes;
+        }
+
+        /**
+         * Bytes of page data after decompression.
+         */
+        public long getUncompressedBytes()
+        {
+            return uncompressedBytes;
+        }
+
         @Override
         public String toString()
         {
@@ -17,16 +17,24 @@ import com.facebook.presto.operator.LookupJoinOperators.JoinType;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
 import com.google.common.util.concurrent.ListenableFuture;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 
 import java.io.Closeable;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.FULL_OUTER;
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.LOOKUP_OUTER;
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.PROBE_OUTER;
+import static com.facebook.presto.operator.PartitionedLookupSource.getSpilledPartition;
+import static com.facebook.presto.operator.PartitionedLookupSource.isSpilledJoinPosition;
 import static com.facebook.presto.util.MoreFutures.tryGetUnchecked;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -47,6 +55,7 @@ public class LookupJoinOperator
     private final boolean probeOnOuterSide;
 
     private LookupSource lookupSource;
+    private SpilledBuildPartitions spilledPartitions;
     private JoinProbe probe;
 
     private boolean closed;
@@ -55,6 +64,12 @@ public class LookupJoinOperator
 
     private LongIterator unvisitedJoinPositions;
 
+    // probe rows of build partitions that were spilled to disk, keyed by partition
+    private final TreeMap<Integer, PageBuilder> spilledProbeBuilders = new TreeMap<>();
+    private final TreeMap<Integer, Spiller> probeSpillers = new TreeMap<>();
+    private Iterator<Integer> unjoinedSpilledPartitions;
+    private Iterator<Page> spilledProbePages;
+
     public LookupJoinOperator(
             OperatorContext operatorContext,
             LookupSourceSupplier lookupSourceSupplier,
@@ -109,7 +124,8 @@ public class LookupJoinOperator
                 finishing &&
                 probe == null &&
                 pageBuilder.isEmpty() &&
-                (!lookupOnOuterSide || (unvisitedJoinPositions != null && !unvisitedJoinPositions.hasNext()));
+                (!lookupOnOuterSide || (unvisitedJoinPositions != null && !unvisitedJoinPositions.hasNext())) &&
+                spilledPartitionsJoined();
 
         // if finished drop references so memory is freed early
         if (finished) {
@@ -117,6 +133,10 @@ public class LookupJoinOperator
                 lookupSource.close();
                 lookupSource = null;
             }
+            if (spilledPartitions != null) {
+                // release the last spilled partition loaded by this operator
+                operatorContext.setMemoryReservation(0);
+            }
             probe = null;
             pageBuilder.reset();
         }
@@ -168,6 +188,11 @@ public class LookupJoinOperator
             }
         }
 
+        // once the probe side is exhausted, join the spilled probe rows one build partition at a time
+        if (finishing && probe == null && !spilledPartitionsJoined()) {
+            startNextSpilledProbe();
+        }
+
         // join probe page with the lookup source
         if (probe != null) {
             while (joinCurrentPosition()) {
@@ -206,6 +231,9 @@ public class LookupJoinOperator
             return;
         }
         closed = true;
+        for (Spiller spiller : probeSpillers.values()) {
+            spiller.close();
+        }
         lookupSourceSupplier.release();
     }
 
@@ -232,14 +260,87 @@ public class LookupJoinOperator
 
     private boolean advanceProbePosition()
     {
-        if (!probe.advanceNextPosition()) {
-            probe = null;
-            return false;
+        while (probe.advanceNextPosition()) {
+            // update join position
+            joinPosition = probe.getCurrentJoinPosition();
+            if (!isSpilledJoinPosition(joinPosition)) {
+                return true;
+            }
+            // the build partition for this row is on disk, so the row is joined after the rest of the probe side
+            spillProbePosition(getSpilledPartition(joinPosition));
+        }
+        probe = null;
+        return false;
+    }
+
+    private void spillProbePosition(int partition)
+    {
+        PageBuilder spilledProbeBuilder = spilledProbeBuilders.get(partition);
+        if (spilledProbeBuilder == null) {
+            spilledProbeBuilder = new PageBuilder(probeTypes);
+            spilledProbeBuilders.put(partition, spilledProbeBuilder);
         }
+        spilledProbeBuilder.declarePosition();
+        probe.appendTo(spilledProbeBuilder);
+        if (spilledProbeBuilder.isFull()) {
+            flushSpilledProbeRows(partition, spilledProbeBuilder);
+        }
+    }
 
-        // update join position
-        joinPosition = probe.getCurrentJoinPosition();
-        return true;
+    private void flushSpilledProbeRows(int partition, PageBuilder spilledProbeBuilder)
+    {
+        Spiller spiller = probeSpillers.get(partition);
+        if (spiller == null) {
+            Optional<SpilledBuildPartitions> spilledPartitions = lookupSource.getSpilledPartitions();
+            checkState(spilledPartitions.isPresent(), "lookup source does not have spilled partitions");
+            spiller = spilledPartitions.get().createProbeSpiller();
+            probeSpillers.put(partition, spiller);
+        }
+
+        long start = System.nanoTime();
+        long spilledBytes = spiller.spill(Iterators.singletonIterator(spilledProbeBuilder.build()));
+        operatorContext.recordSpill(spilledBytes, System.nanoTime() - start);
+        spilledProbeBuilder.reset();
+    }
+
+    private boolean spilledPartitionsJoined()
+    {
+        if (unjoinedSpilledPartitions == null) {
+            return spilledProbeBuilders.isEmpty();
+        }
+        return !unjoinedSpilledPartitions.hasNext() && (spilledProbePages == null || !spilledProbePages.hasNext());
+    }
+
+    private void startNextSpilledProbe()
+    {
+        if (unjoinedSpilledPartitions == null) {
+            for (Map.Entry<Integer, PageBuilder> entry : spilledProbeBuilders.entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+                    flushSpilledProbeRows(entry.getKey(), entry.getValue());
+                }
+            }
+            unjoinedSpilledPartitions = ImmutableList.copyOf(probeSpillers.keySet()).iterator();
+            // the shared lookup source is replaced by the spilled partitions from here on
+            spilledPartitions = lookupSource.getSpilledPartitions().get();
+        }
+
+        while (probe == null) {
+            if (spilledProbePages != null && spilledProbePages.hasNext()) {
+                probe = joinProbeFactory.createJoinProbe(lookupSource, spilledProbePages.next());
+                joinPosition = -1;
+                return;
+            }
+            if (!unjoinedSpilledPartitions.hasNext()) {
+                return;
+            }
+
+            int partition = unjoinedSpilledPartitions.next();
+            lookupSource.close();
+            // the in memory lookup source is not shared, so it is accounted to this operator
+            lookupSource = spilledPartitions.createLookupSource(partition);
+            operatorContext.setMemoryReservation(lookupSource.getInMemorySizeInBytes());
+            spilledProbePages = Iterators.concat(probeSpillers.get(partition).getSpills().iterator());
+        }
     }
 
     private boolean outerJoinCurrentPosition()
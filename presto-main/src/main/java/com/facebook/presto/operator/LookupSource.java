@@ -18,6 +18,7 @@ import com.facebook.presto.spi.PageBuilder;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 
 import java.io.Closeable;
+import java.util.Optional;
 
 public interface LookupSource
         extends Closeable
@@ -36,6 +37,15 @@ public interface LookupSource
 
     LongIterator getUnvisitedJoinPositions();
 
+    /**
+     * Build side partitions that are not in memory. Probe rows of these partitions get
+     * a join position for which {@link PartitionedLookupSource#isSpilledJoinPosition} is true.
+     */
+    default Optional<SpilledBuildPartitions> getSpilledPartitions()
+    {
+        return Optional.empty();
+    }
+
     @Override
     void close();
 }
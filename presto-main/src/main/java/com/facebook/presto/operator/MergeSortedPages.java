@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public final class MergeSortedPages
+{
+    private MergeSortedPages() {}
+
+    /**
+     * Merges runs of pages, each sorted on the sort channels, into a single sorted stream of pages
+     * with the specified types.  Only the current page of every run is held in memory.
+     */
+    public static Iterator<Page> mergeSortedPages(List<Iterator<Page>> sortedRuns, List<Type> types, List<Integer> sortChannels, List<SortOrder> sortOrders)
+    {
+        checkNotNull(sortedRuns, "sortedRuns is null");
+        List<Type> pageTypes = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        List<Integer> channels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
+        List<SortOrder> orders = ImmutableList.copyOf(checkNotNull(sortOrders, "sortOrders is null"));
+        checkArgument(channels.size() == orders.size(), "sortChannels size (%s) doesn't match sortOrders size (%s)", channels.size(), orders.size());
+
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>(Math.max(sortedRuns.size(), 1), (left, right) -> {
+            for (int i = 0; i < channels.size(); i++) {
+                int channel = channels.get(i);
+                int comparison = orders.get(i).compareBlockValue(
+                        pageTypes.get(channel),
+                        left.getPage().getBlock(channel),
+                        left.getPosition(),
+                        right.getPage().getBlock(channel),
+                        right.getPosition());
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            // keep the merge stable with respect to run order
+            return Integer.compare(left.getRun(), right.getRun());
+        });
+
+        for (int run = 0; run < sortedRuns.size(); run++) {
+            RunCursor cursor = new RunCursor(run, sortedRuns.get(run));
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+
+        PageBuilder pageBuilder = new PageBuilder(pageTypes);
+        return new AbstractIterator<Page>()
+        {
+            @Override
+            protected Page computeNext()
+            {
+                pageBuilder.reset();
+                while (!pageBuilder.isFull() && !queue.isEmpty()) {
+                    RunCursor cursor = queue.poll();
+
+                    pageBuilder.declarePosition();
+                    for (int channel = 0; channel < pageTypes.size(); channel++) {
+                        pageTypes.get(channel).appendTo(cursor.getPage().getBlock(channel), cursor.getPosition(), pageBuilder.getBlockBuilder(channel));
+                    }
+
+                    if (cursor.advance()) {
+                        queue.add(cursor);
+                    }
+                }
+
+                if (pageBuilder.isEmpty()) {
+                    return endOfData();
+                }
+                return pageBuilder.build();
+            }
+        };
+    }
+
+    private static class RunCursor
+    {
+        private final int run;
+        private final Iterator<Page> pages;
+        private Page page;
+        private int position = -1;
+
+        private RunCursor(int run, Iterator<Page> pages)
+        {
+            this.run = run;
+            this.pages = checkNotNull(pages, "pages is null");
+        }
+
+        public int getRun()
+        {
+            return run;
+        }
+
+        public Page getPage()
+        {
+            return page;
+        }
+
+        public int getPosition()
+        {
+            return position;
+        }
+
+        /**
+         * Moves to the next row of the run, returning false if the run is exhausted.
+         */
+        public boolean advance()
+        {
+            position++;
+            while (page == null || position >= page.getPositionCount()) {
+                if (!pages.hasNext()) {
+                    page = null;
+                    return false;
+                }
+                page = pages.next();
+                position = 0;
+            }
+            return true;
+        }
+    }
+}
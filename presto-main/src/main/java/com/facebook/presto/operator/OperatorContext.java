@@ -60,6 +60,7 @@ public class OperatorContext
     private final AtomicLong addInputUserNanos = new AtomicLong();
     private final CounterStat inputDataSize = new CounterStat();
     private final CounterStat inputPositions = new CounterStat();
+    private final AtomicLong readWaitNanos = new AtomicLong();
 
     private final AtomicLong getOutputCalls = new AtomicLong();
     private final AtomicLong getOutputWallNanos = new AtomicLong();
@@ -77,6 +78,9 @@ public class OperatorContext
     private final AtomicLong finishCpuNanos = new AtomicLong();
     private final AtomicLong finishUserNanos = new AtomicLong();
 
+    private final AtomicLong spilledDataSize = new AtomicLong();
+    private final AtomicLong spillWallNanos = new AtomicLong();
+
     private final AtomicLong memoryReservation = new AtomicLong();
     private final long maxMemoryReservation;
 
@@ -160,6 +164,11 @@ public class OperatorContext
         return addInputWallNanos.getAndAdd(readNanos);
     }
 
+    public void recordReadWait(long waitNanos)
+    {
+        readWaitNanos.getAndAdd(waitNanos);
+    }
+
     public void recordGetOutput(Page page)
     {
         getOutputCalls.incrementAndGet();
@@ -202,6 +211,12 @@ public class OperatorContext
         finishUserNanos.getAndAdd(nanosBetween(intervalUserStart.get(), currentThreadUserTime()));
     }
 
+    public void recordSpill(long sizeInBytes, long spillNanos)
+    {
+        spilledDataSize.getAndAdd(sizeInBytes);
+        spillWallNanos.getAndAdd(spillNanos);
+    }
+
     public ListenableFuture<?> isWaitingForMemory()
     {
         return memoryFuture.get();
@@ -357,6 +372,7 @@ public class OperatorContext
                 new Duration(addInputUserNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
                 new DataSize(inputDataSize.getTotalCount(), BYTE).convertToMostSuccinctDataSize(),
                 inputPositions.getTotalCount(),
+                new Duration(readWaitNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
 
                 getOutputCalls.get(),
                 new Duration(getOutputWallNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
@@ -372,6 +388,9 @@ public class OperatorContext
                 new Duration(finishCpuNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
                 new Duration(finishUserNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
 
+                new DataSize(spilledDataSize.get(), BYTE).convertToMostSuccinctDataSize(),
+                new Duration(spillWallNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
+
                 new DataSize(memoryReservation.get(), BYTE).convertToMostSuccinctDataSize(),
                 memoryFuture.get().isDone() ? Optional.empty() : Optional.of(WAITING_FOR_MEMORY),
                 info);
@@ -41,6 +41,7 @@ public class OperatorStats
     private final Duration addInputUser;
     private final DataSize inputDataSize;
     private final long inputPositions;
+    private final Duration readWaitWall;
 
     private final long getOutputCalls;
     private final Duration getOutputWall;
@@ -56,6 +57,9 @@ public class OperatorStats
     private final Duration finishCpu;
     private final Duration finishUser;
 
+    private final DataSize spilledDataSize;
+    private final Duration spillWall;
+
     private final DataSize memoryReservation;
     private final Optional<BlockedReason> blockedReason;
 
@@ -72,6 +76,7 @@ public class OperatorStats
             @JsonProperty("addInputUser") Duration addInputUser,
             @JsonProperty("inputDataSize") DataSize inputDataSize,
             @JsonProperty("inputPositions") long inputPositions,
+            @JsonProperty("readWaitWall") Duration readWaitWall,
 
             @JsonProperty("getOutputCalls") long getOutputCalls,
             @JsonProperty("getOutputWall") Duration getOutputWall,
@@ -87,6 +92,9 @@ public class OperatorStats
             @JsonProperty("finishCpu") Duration finishCpu,
             @JsonProperty("finishUser") Duration finishUser,
 
+            @JsonProperty("spilledDataSize") DataSize spilledDataSize,
+            @JsonProperty("spillWall") Duration spillWall,
+
             @JsonProperty("memoryReservation") DataSize memoryReservation,
             @JsonProperty("blockedReason") Optional<BlockedReason> blockedReason,
 
@@ -103,6 +111,7 @@ public class OperatorStats
         this.inputDataSize = checkNotNull(inputDataSize, "inputDataSize is null");
         checkArgument(inputPositions >= 0, "inputPositions is negative");
         this.inputPositions = inputPositions;
+        this.readWaitWall = checkNotNull(readWaitWall, "readWaitWall is null");
 
         this.getOutputCalls = getOutputCalls;
         this.getOutputWall = checkNotNull(getOutputWall, "getOutputWall is null");
@@ -119,6 +128,9 @@ public class OperatorStats
         this.finishCpu = checkNotNull(finishCpu, "finishCpu is null");
         this.finishUser = checkNotNull(finishUser, "finishUser is null");
 
+        this.spilledDataSize = checkNotNull(spilledDataSize, "spilledDataSize is null");
+        this.spillWall = checkNotNull(spillWall, "spillWall is null");
+
         this.memoryReservation = checkNotNull(memoryReservation, "memoryReservation is null");
         this.blockedReason = blockedReason;
 
@@ -173,6 +185,15 @@ public class OperatorStats
         return inputPositions;
     }
 
+    /**
+     * Time spent waiting for input that is read in the background. This is not included in the add input wall time.
+     */
+    @JsonProperty
+    public Duration getReadWaitWall()
+    {
+        return readWaitWall;
+    }
+
     @JsonProperty
     public long getGetOutputCalls()
     {
@@ -239,6 +260,18 @@ public class OperatorStats
         return finishUser;
     }
 
+    @JsonProperty
+    public DataSize getSpilledDataSize()
+    {
+        return spilledDataSize;
+    }
+
+    @JsonProperty
+    public Duration getSpillWall()
+    {
+        return spillWall;
+    }
+
     @JsonProperty
     public DataSize getMemoryReservation()
     {
@@ -271,6 +304,7 @@ public class OperatorStats
         long addInputUser = this.addInputUser.roundTo(NANOSECONDS);
         long inputDataSize = this.inputDataSize.toBytes();
         long inputPositions = this.inputPositions;
+        long readWaitWall = this.readWaitWall.roundTo(NANOSECONDS);
 
         long getOutputCalls = this.getOutputCalls;
         long getOutputWall = this.getOutputWall.roundTo(NANOSECONDS);
@@ -286,6 +320,9 @@ public class OperatorStats
         long finishCpu = this.finishCpu.roundTo(NANOSECONDS);
         long finishUser = this.finishUser.roundTo(NANOSECONDS);
 
+        long spilledDataSize = this.spilledDataSize.toBytes();
+        long spillWall = this.spillWall.roundTo(NANOSECONDS);
+
         long memoryReservation = this.memoryReservation.toBytes();
         Optional<BlockedReason> blockedReason = this.blockedReason;
 
@@ -302,6 +339,7 @@ public class OperatorStats
             addInputUser += operator.getAddInputUser().roundTo(NANOSECONDS);
             inputDataSize += operator.getInputDataSize().toBytes();
             inputPositions += operator.getInputPositions();
+            readWaitWall += operator.getReadWaitWall().roundTo(NANOSECONDS);
 
             getOutputCalls += operator.getGetOutputCalls();
             getOutputWall += operator.getGetOutputWall().roundTo(NANOSECONDS);
@@ -317,6 +355,9 @@ public class OperatorStats
 
             blockedWall += operator.getBlockedWall().roundTo(NANOSECONDS);
 
+            spilledDataSize += operator.getSpilledDataSize().toBytes();
+            spillWall += operator.getSpillWall().roundTo(NANOSECONDS);
+
             memoryReservation += operator.getMemoryReservation().toBytes();
             if (operator.getBlockedReason().isPresent()) {
                 blockedReason = operator.getBlockedReason();
@@ -338,6 +379,7 @@ public class OperatorStats
                 new Duration(addInputUser, NANOSECONDS).convertToMostSuccinctTimeUnit(),
                 new DataSize(inputDataSize, BYTE).convertToMostSuccinctDataSize(),
                 inputPositions,
+                new Duration(readWaitWall, NANOSECONDS).convertToMostSuccinctTimeUnit(),
 
                 getOutputCalls,
                 new Duration(getOutputWall, NANOSECONDS).convertToMostSuccinctTimeUnit(),
@@ -353,6 +395,9 @@ public class OperatorStats
                 new Duration(finishCpu, NANOSECONDS).convertToMostSuccinctTimeUnit(),
                 new Duration(finishUser, NANOSECONDS).convertToMostSuccinctTimeUnit(),
 
+                new DataSize(spilledDataSize, BYTE).convertToMostSuccinctDataSize(),
+                new Duration(spillWall, NANOSECONDS).convertToMostSuccinctTimeUnit(),
+
                 new DataSize(memoryReservation, BYTE).convertToMostSuccinctDataSize(),
                 blockedReason,
 
@@ -15,13 +15,19 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
+import static com.facebook.presto.operator.MergeSortedPages.mergeSortedPages;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
@@ -38,6 +44,7 @@ public class OrderByOperator
         private final List<Integer> sortChannels;
         private final List<SortOrder> sortOrder;
         private final List<Type> types;
+        private final Optional<SpillerFactory> spillerFactory;
         private boolean closed;
 
         public OrderByOperatorFactory(
@@ -47,6 +54,18 @@ public class OrderByOperator
                 int expectedPositions,
                 List<Integer> sortChannels,
                 List<SortOrder> sortOrder)
+        {
+            this(operatorId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, Optional.empty());
+        }
+
+        public OrderByOperatorFactory(
+                int operatorId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                int expectedPositions,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.sourceTypes = ImmutableList.copyOf(checkNotNull(sourceTypes, "sourceTypes is null"));
@@ -54,6 +73,7 @@ public class OrderByOperator
             this.expectedPositions = expectedPositions;
             this.sortChannels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
             this.sortOrder = ImmutableList.copyOf(checkNotNull(sortOrder, "sortOrder is null"));
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
 
             this.types = toTypes(sourceTypes, outputChannels);
         }
@@ -76,7 +96,8 @@ public class OrderByOperator
                     outputChannels,
                     expectedPositions,
                     sortChannels,
-                    sortOrder);
+                    sortOrder,
+                    spillerFactory);
         }
 
         @Override
@@ -94,6 +115,7 @@ public class OrderByOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final List<Integer> sortChannels;
     private final List<SortOrder> sortOrder;
     private final int[] outputChannels;
@@ -104,6 +126,12 @@ public class OrderByOperator
     private final PageBuilder pageBuilder;
     private int currentPosition;
 
+    private final Optional<SpillerFactory> spillerFactory;
+    // created when the operator first spills a sorted run
+    private Spiller spiller;
+    // merge of the spilled runs and the rows still in memory
+    private Iterator<Page> mergedPages;
+
     private State state = State.NEEDS_INPUT;
 
     public OrderByOperator(
@@ -112,13 +140,16 @@ public class OrderByOperator
             List<Integer> outputChannels,
             int expectedPositions,
             List<Integer> sortChannels,
-            List<SortOrder> sortOrder)
+            List<SortOrder> sortOrder,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
+        this.sourceTypes = ImmutableList.copyOf(checkNotNull(sourceTypes, "sourceTypes is null"));
         this.outputChannels = Ints.toArray(checkNotNull(outputChannels, "outputChannels is null"));
         this.types = toTypes(sourceTypes, outputChannels);
         this.sortChannels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
         this.sortOrder = ImmutableList.copyOf(checkNotNull(sortOrder, "sortOrder is null"));
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
 
         this.pageIndex = new PagesIndex(sourceTypes, expectedPositions);
 
@@ -145,6 +176,15 @@ public class OrderByOperator
 
             // sort the index
             pageIndex.sort(sortChannels, sortOrder);
+
+            if (spiller != null) {
+                // the rows still in memory form the last sorted run
+                List<Iterator<Page>> sortedRuns = ImmutableList.<Iterator<Page>>builder()
+                        .addAll(spiller.getSpills())
+                        .add(pageIndex.getSortedPages())
+                        .build();
+                mergedPages = mergeSortedPages(sortedRuns, sourceTypes, sortChannels, sortOrder);
+            }
         }
     }
 
@@ -167,6 +207,29 @@ public class OrderByOperator
         checkNotNull(page, "page is null");
 
         pageIndex.addPage(page);
+
+        long memorySize = pageIndex.getEstimatedSize().toBytes();
+        // like the hash aggregation, spill once the query can not reserve more memory on this node
+        if (!spillerFactory.isPresent()) {
+            operatorContext.setMemoryReservation(memorySize);
+        }
+        else if (!operatorContext.trySetMemoryReservation(memorySize)) {
+            spillToDisk();
+        }
+    }
+
+    private void spillToDisk()
+    {
+        if (spiller == null) {
+            spiller = spillerFactory.get().create();
+        }
+
+        long start = System.nanoTime();
+        pageIndex.sort(sortChannels, sortOrder);
+        long spilledBytes = spiller.spill(pageIndex.getSortedPages());
+        operatorContext.recordSpill(spilledBytes, System.nanoTime() - start);
+
+        pageIndex.clear();
         operatorContext.setMemoryReservation(pageIndex.getEstimatedSize().toBytes());
     }
 
@@ -177,6 +240,14 @@ public class OrderByOperator
             return null;
         }
 
+        if (mergedPages != null) {
+            if (!mergedPages.hasNext()) {
+                state = State.FINISHED;
+                return null;
+            }
+            return selectOutputChannels(mergedPages.next());
+        }
+
         if (currentPosition >= pageIndex.getPositionCount()) {
             state = State.FINISHED;
             return null;
@@ -196,6 +267,23 @@ public class OrderByOperator
         return page;
     }
 
+    @Override
+    public void close()
+    {
+        if (spiller != null) {
+            spiller.close();
+        }
+    }
+
+    private Page selectOutputChannels(Page page)
+    {
+        Block[] blocks = new Block[outputChannels.length];
+        for (int i = 0; i < outputChannels.length; i++) {
+            blocks[i] = page.getBlock(outputChannels[i]);
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+
     private static List<Type> toTypes(List<? extends Type> sourceTypes, List<Integer> outputChannels)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
@@ -21,6 +21,7 @@ import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.gen.OrderingCompiler;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
@@ -29,6 +30,7 @@ import it.unimi.dsi.fastutil.Swapper;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -240,6 +242,33 @@ public class PagesIndex
         return position;
     }
 
+    /**
+     * Returns all channels of the indexed rows as pages, in position order.
+     */
+    public Iterator<Page> getSortedPages()
+    {
+        int[] outputChannels = new int[types.size()];
+        for (int i = 0; i < outputChannels.length; i++) {
+            outputChannels[i] = i;
+        }
+        PageBuilder pageBuilder = new PageBuilder(types);
+        return new AbstractIterator<Page>()
+        {
+            private int currentPosition;
+
+            @Override
+            protected Page computeNext()
+            {
+                pageBuilder.reset();
+                currentPosition = buildPage(currentPosition, outputChannels, pageBuilder);
+                if (pageBuilder.isEmpty()) {
+                    return endOfData();
+                }
+                return pageBuilder.build();
+            }
+        };
+    }
+
     public void appendTo(int channel, int position, BlockBuilder output)
     {
         long pageAddress = valueAddresses.getLong(position);
@@ -46,6 +46,7 @@ public class ParallelHashBuilder
     private final List<SettableFuture<SharedLookupSource>> lookupSourceFutures;
     private final LookupSourceSupplier lookupSourceSupplier;
     private final List<Type> types;
+    private final Optional<DynamicFilter> dynamicFilter;
 
     public ParallelHashBuilder(
             List<Type> types,
@@ -53,12 +54,24 @@ public class ParallelHashBuilder
             Optional<Integer> hashChannel,
             int expectedPositions,
             int partitionCount)
+    {
+        this(types, hashChannels, hashChannel, expectedPositions, partitionCount, Optional.empty());
+    }
+
+    public ParallelHashBuilder(
+            List<Type> types,
+            List<Integer> hashChannels,
+            Optional<Integer> hashChannel,
+            int expectedPositions,
+            int partitionCount,
+            Optional<DynamicFilter> dynamicFilter)
     {
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
         this.hashChannels = ImmutableList.copyOf(requireNonNull(hashChannels, "hashChannels is null"));
         this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
         checkArgument(expectedPositions >= 0, "expectedPositions is negative");
         this.expectedPositions = expectedPositions;
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
 
         checkArgument(Integer.bitCount(partitionCount) == 1, "partitionCount must be a power of 2");
         ImmutableList.Builder<SettableFuture<PagesIndex>> pagesIndexFutures = ImmutableList.builder();
@@ -81,7 +94,8 @@ public class ParallelHashBuilder
                 types,
                 hashChannels,
                 hashChannel,
-                expectedPositions);
+                expectedPositions,
+                dynamicFilter);
     }
 
     public OperatorFactory getBuildOperatorFactory()
@@ -110,6 +124,7 @@ public class ParallelHashBuilder
         private final Optional<Integer> hashChannel;
 
         private final int expectedPositions;
+        private final Optional<DynamicFilter> dynamicFilter;
         private boolean closed;
 
         public ParallelHashCollectOperatorFactory(
@@ -118,7 +133,8 @@ public class ParallelHashBuilder
                 List<Type> types,
                 List<Integer> hashChannels,
                 Optional<Integer> hashChannel,
-                int expectedPositions)
+                int expectedPositions,
+                Optional<DynamicFilter> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.partitionFutures = partitionFutures;
@@ -126,6 +142,7 @@ public class ParallelHashBuilder
             this.hashChannels = hashChannels;
             this.hashChannel = hashChannel;
             this.expectedPositions = expectedPositions;
+            this.dynamicFilter = dynamicFilter;
         }
 
         @Override
@@ -145,7 +162,8 @@ public class ParallelHashBuilder
                     types,
                     hashChannels,
                     hashChannel,
-                    expectedPositions);
+                    expectedPositions,
+                    dynamicFilter);
         }
 
         @Override
@@ -165,6 +183,7 @@ public class ParallelHashBuilder
         private final int parallelStreamMask;
         private final PagesIndex[] partitions;
         private final List<Type> types;
+        private final Optional<DynamicFilterCollector> dynamicFilterCollector;
 
         private boolean finished;
 
@@ -174,7 +193,8 @@ public class ParallelHashBuilder
                 List<Type> types,
                 List<Integer> hashChannels,
                 Optional<Integer> hashChannel,
-                int expectedPositions)
+                int expectedPositions,
+                Optional<DynamicFilter> dynamicFilter)
         {
             this.operatorContext = operatorContext;
             this.partitionFutures = partitionFutures;
@@ -197,6 +217,8 @@ public class ParallelHashBuilder
             for (int partition = 0; partition < partitions.length; partition++) {
                 this.partitions[partition] = new PagesIndex(types, expectedPositions);
             }
+
+            this.dynamicFilterCollector = dynamicFilter.map(filter -> new DynamicFilterCollector(filter, hashChannels));
         }
 
         @Override
@@ -218,6 +240,9 @@ public class ParallelHashBuilder
                 return;
             }
 
+            // publish the filter before the partitions, so the probe side sees it when it starts
+            dynamicFilterCollector.ifPresent(DynamicFilterCollector::finish);
+
             for (int partition = 0; partition < partitions.length; partition++) {
                 partitionFutures.get(partition).set(partitions[partition]);
             }
@@ -243,6 +268,10 @@ public class ParallelHashBuilder
             checkNotNull(page, "page is null");
             checkState(!isFinished(), "Operator is already finished");
 
+            if (dynamicFilterCollector.isPresent()) {
+                dynamicFilterCollector.get().addPage(page);
+            }
+
             // build a block containing the partition id of each position
             BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), page.getPositionCount());
             for (int position = 0; position < page.getPositionCount(); position++) {
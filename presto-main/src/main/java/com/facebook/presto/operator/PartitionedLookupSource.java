@@ -20,17 +20,30 @@ import it.unimi.dsi.fastutil.longs.LongIterator;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.util.Objects.requireNonNull;
 
 public class PartitionedLookupSource
         implements LookupSource
 {
+    // join positions at or below this value identify a probe row of a spilled build partition
+    private static final long SPILLED_JOIN_POSITION = -2;
+
     private final LookupSource[] lookupSources;
     private final HashGenerator hashGenerator;
     private final int partitionMask;
+    private final Optional<SpilledBuildPartitions> spilledPartitions;
+    private final boolean[] spilled;
 
     public PartitionedLookupSource(List<? extends LookupSource> lookupSources, List<Type> hashChannelTypes)
+    {
+        this(lookupSources, hashChannelTypes, Optional.empty());
+    }
+
+    public PartitionedLookupSource(List<? extends LookupSource> lookupSources, List<Type> hashChannelTypes, Optional<SpilledBuildPartitions> spilledPartitions)
     {
         this.lookupSources = lookupSources.toArray(new LookupSource[lookupSources.size()]);
 
@@ -43,6 +56,21 @@ public class PartitionedLookupSource
         this.hashGenerator = new InterpretedHashGenerator(hashChannelTypes, hashChannels);
 
         this.partitionMask = lookupSources.size() - 1;
+
+        this.spilledPartitions = requireNonNull(spilledPartitions, "spilledPartitions is null");
+        this.spilled = new boolean[lookupSources.size()];
+        spilledPartitions.ifPresent(partitions -> partitions.getPartitions().forEach(partition -> spilled[partition] = true));
+    }
+
+    public static boolean isSpilledJoinPosition(long joinPosition)
+    {
+        return joinPosition <= SPILLED_JOIN_POSITION;
+    }
+
+    public static int getSpilledPartition(long joinPosition)
+    {
+        checkArgument(isSpilledJoinPosition(joinPosition), "join position is not spilled");
+        return (int) (SPILLED_JOIN_POSITION - joinPosition);
     }
 
     @Override
@@ -67,6 +95,9 @@ public class PartitionedLookupSource
     public long getJoinPosition(int position, Page page, int rawHash)
     {
         int partition = murmurHash3(rawHash) & partitionMask;
+        if (spilled[partition]) {
+            return SPILLED_JOIN_POSITION - partition;
+        }
         LookupSource lookupSource = lookupSources[partition];
         long joinPosition = lookupSource.getJoinPosition(position, page, rawHash);
         if (joinPosition < 0) {
@@ -103,6 +134,12 @@ public class PartitionedLookupSource
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Optional<SpilledBuildPartitions> getSpilledPartitions()
+    {
+        return spilledPartitions;
+    }
+
     @Override
     public void close()
     {
@@ -277,6 +277,20 @@ public class PipelineContext
         return stat;
     }
 
+    public int getQueuedPartitionedDrivers()
+    {
+        return (int) drivers.stream()
+                .filter(driver -> driver.isPartitioned() && !driver.isExecutionStarted())
+                .count();
+    }
+
+    public int getRunningPartitionedDrivers()
+    {
+        return (int) drivers.stream()
+                .filter(driver -> driver.isPartitioned() && driver.isExecutionStarted())
+                .count();
+    }
+
     public PipelineStats getPipelineStats()
     {
         List<DriverContext> driverContexts = ImmutableList.copyOf(this.drivers);
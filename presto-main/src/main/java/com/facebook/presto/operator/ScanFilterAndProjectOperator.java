@@ -16,10 +16,12 @@ package com.facebook.presto.operator;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.RecordPageSource;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.UpdatablePageSource;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSourceProvider;
@@ -48,6 +50,8 @@ public class ScanFilterAndProjectOperator
     private final PageSourceProvider pageSourceProvider;
     private final List<Type> types;
     private final List<ColumnHandle> columns;
+    private final ConstantProjections constantProjections;
+    private final Supplier<TupleDomain<ColumnHandle>> dynamicFilter;
     private final PageBuilder pageBuilder;
     private final CursorProcessor cursorProcessor;
     private final PageProcessor pageProcessor;
@@ -64,6 +68,7 @@ public class ScanFilterAndProjectOperator
 
     private long completedBytes;
     private long readTimeNanos;
+    private long readWaitNanos;
 
     protected ScanFilterAndProjectOperator(
             OperatorContext operatorContext,
@@ -73,16 +78,43 @@ public class ScanFilterAndProjectOperator
             PageProcessor pageProcessor,
             Iterable<ColumnHandle> columns,
             Iterable<Type> types)
+    {
+        this(operatorContext, sourceId, pageSourceProvider, cursorProcessor, pageProcessor, columns, ConstantProjections.noConstantProjections(ImmutableList.copyOf(checkNotNull(types, "types is null"))));
+    }
+
+    protected ScanFilterAndProjectOperator(
+            OperatorContext operatorContext,
+            PlanNodeId sourceId,
+            PageSourceProvider pageSourceProvider,
+            CursorProcessor cursorProcessor,
+            PageProcessor pageProcessor,
+            Iterable<ColumnHandle> columns,
+            ConstantProjections constantProjections)
+    {
+        this(operatorContext, sourceId, pageSourceProvider, cursorProcessor, pageProcessor, columns, constantProjections, TupleDomain::all);
+    }
+
+    protected ScanFilterAndProjectOperator(
+            OperatorContext operatorContext,
+            PlanNodeId sourceId,
+            PageSourceProvider pageSourceProvider,
+            CursorProcessor cursorProcessor,
+            PageProcessor pageProcessor,
+            Iterable<ColumnHandle> columns,
+            ConstantProjections constantProjections,
+            Supplier<TupleDomain<ColumnHandle>> dynamicFilter)
     {
         this.cursorProcessor = checkNotNull(cursorProcessor, "cursorProcessor is null");
         this.pageProcessor = checkNotNull(pageProcessor, "pageProcessor is null");
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         this.planNodeId = checkNotNull(sourceId, "sourceId is null");
         this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceManager is null");
-        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.constantProjections = checkNotNull(constantProjections, "constantProjections is null");
+        this.types = constantProjections.getTypes();
         this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
+        this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
 
-        this.pageBuilder = new PageBuilder(getTypes());
+        this.pageBuilder = new PageBuilder(constantProjections.getComputedTypes());
     }
 
     @Override
@@ -165,10 +197,8 @@ public class ScanFilterAndProjectOperator
     @Override
     public final boolean isFinished()
     {
-        if (!finishing) {
-            createSourceIfNecessary();
-        }
-
+        // the source is opened on the first getOutput call instead of here, so a scan on the probe
+        // side of a join does not open it until the build side has finished and published its filter
         if (pageSource != null && pageSource.isFinished() && currentPage == null) {
             finishing = true;
         }
@@ -224,6 +254,10 @@ public class ScanFilterAndProjectOperator
                         completedBytes = endCompletedBytes;
                         readTimeNanos = endReadTimeNanos;
                     }
+                    long endReadWaitNanos = pageSource.getReadWaitNanos();
+                    operatorContext.recordReadWait(endReadWaitNanos - readWaitNanos);
+                    readWaitNanos = endReadWaitNanos;
+                    operatorContext.setMemoryReservation(pageSource.getSystemMemoryUsage());
 
                     currentPosition = 0;
                 }
@@ -243,7 +277,7 @@ public class ScanFilterAndProjectOperator
             return null;
         }
 
-        Page page = pageBuilder.build();
+        Page page = constantProjections.toOutputPage(pageBuilder.build());
         pageBuilder.reset();
         return page;
     }
@@ -251,7 +285,15 @@ public class ScanFilterAndProjectOperator
     private void createSourceIfNecessary()
     {
         if ((split != null) && (pageSource == null) && (cursor == null)) {
-            ConnectorPageSource source = pageSourceProvider.createPageSource(split, columns);
+            // the filter from the build side of a join, if it finished before this split started
+            TupleDomain<ColumnHandle> filter = dynamicFilter.get();
+            ConnectorPageSource source;
+            if (filter.isNone()) {
+                source = new FixedPageSource(ImmutableList.of());
+            }
+            else {
+                source = pageSourceProvider.createPageSource(split, columns, filter);
+            }
             if (source instanceof RecordPageSource) {
                 cursor = ((RecordPageSource) source).getCursor();
             }
@@ -270,7 +312,8 @@ public class ScanFilterAndProjectOperator
         private final PlanNodeId sourceId;
         private final PageSourceProvider pageSourceProvider;
         private final List<ColumnHandle> columns;
-        private final List<Type> types;
+        private final ConstantProjections constantProjections;
+        private final Supplier<TupleDomain<ColumnHandle>> dynamicFilter;
         private boolean closed;
 
         public ScanFilterAndProjectOperatorFactory(
@@ -281,6 +324,31 @@ public class ScanFilterAndProjectOperator
                 PageProcessor pageProcessor,
                 Iterable<ColumnHandle> columns,
                 List<Type> types)
+        {
+            this(operatorId, sourceId, pageSourceProvider, cursorProcessor, pageProcessor, columns, ConstantProjections.noConstantProjections(types));
+        }
+
+        public ScanFilterAndProjectOperatorFactory(
+                int operatorId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                CursorProcessor cursorProcessor,
+                PageProcessor pageProcessor,
+                Iterable<ColumnHandle> columns,
+                ConstantProjections constantProjections)
+        {
+            this(operatorId, sourceId, pageSourceProvider, cursorProcessor, pageProcessor, columns, constantProjections, TupleDomain::all);
+        }
+
+        public ScanFilterAndProjectOperatorFactory(
+                int operatorId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                CursorProcessor cursorProcessor,
+                PageProcessor pageProcessor,
+                Iterable<ColumnHandle> columns,
+                ConstantProjections constantProjections,
+                Supplier<TupleDomain<ColumnHandle>> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.cursorProcessor = checkNotNull(cursorProcessor, "cursorProcessor is null");
@@ -288,7 +356,8 @@ public class ScanFilterAndProjectOperator
             this.sourceId = checkNotNull(sourceId, "sourceId is null");
             this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceProvider is null");
             this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
-            this.types = checkNotNull(types, "types is null");
+            this.constantProjections = checkNotNull(constantProjections, "constantProjections is null");
+            this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
         }
 
         @Override
@@ -300,7 +369,7 @@ public class ScanFilterAndProjectOperator
         @Override
         public List<Type> getTypes()
         {
-            return types;
+            return constantProjections.getTypes();
         }
 
         @Override
@@ -315,7 +384,8 @@ public class ScanFilterAndProjectOperator
                     cursorProcessor,
                     pageProcessor,
                     columns,
-                    types);
+                    constantProjections,
+                    dynamicFilter);
         }
 
         @Override
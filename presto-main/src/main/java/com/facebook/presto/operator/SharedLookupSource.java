@@ -19,6 +19,8 @@ import it.unimi.dsi.fastutil.longs.LongIterator;
 
 import javax.annotation.concurrent.GuardedBy;
 
+import java.util.Optional;
+
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 
@@ -79,11 +81,19 @@ public final class SharedLookupSource
         return lookupSource.getUnvisitedJoinPositions();
     }
 
+    @Override
+    public Optional<SpilledBuildPartitions> getSpilledPartitions()
+    {
+        return lookupSource.getSpilledPartitions();
+    }
+
     synchronized void freeMemory()
     {
         checkState(!freed, "Already freed");
         freed = true;
         taskContext.freeMemory(lookupSource.getInMemorySizeInBytes());
+        // all of the join operators are done with the lookup source, so the spilled partitions are no longer needed
+        lookupSource.getSpilledPartitions().ifPresent(SpilledBuildPartitions::close);
     }
 
     @Override
@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Closer;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.spi.StandardErrorCode.INTERNAL_ERROR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Build side partitions of a hash join that were spilled to disk. Probe rows that
+ * hash to one of these partitions are spilled by the join operator and joined against
+ * the partition after the rest of the probe side has been processed.
+ */
+@ThreadSafe
+public final class SpilledBuildPartitions
+{
+    private final List<Type> types;
+    private final List<Integer> hashChannels;
+    private final Optional<Integer> hashChannel;
+    private final int expectedPositions;
+    private final SpillerFactory spillerFactory;
+    private final Map<Integer, Spiller> partitions;
+    private boolean closed;
+
+    public SpilledBuildPartitions(
+            List<Type> types,
+            List<Integer> hashChannels,
+            Optional<Integer> hashChannel,
+            int expectedPositions,
+            SpillerFactory spillerFactory,
+            Map<Integer, Spiller> partitions)
+    {
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.hashChannels = ImmutableList.copyOf(requireNonNull(hashChannels, "hashChannels is null"));
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.expectedPositions = expectedPositions;
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        this.partitions = ImmutableMap.copyOf(requireNonNull(partitions, "partitions is null"));
+    }
+
+    public Set<Integer> getPartitions()
+    {
+        return partitions.keySet();
+    }
+
+    /**
+     * Loads a spilled partition back into memory. The returned lookup source is
+     * owned by the caller.
+     */
+    public LookupSource createLookupSource(int partition)
+    {
+        checkArgument(partitions.containsKey(partition), "partition %s was not spilled", partition);
+
+        PagesIndex pagesIndex = new PagesIndex(types, expectedPositions);
+        for (Iterator<Page> spill : getSpills(partition)) {
+            while (spill.hasNext()) {
+                pagesIndex.addPage(spill.next());
+            }
+        }
+        return pagesIndex.createLookupSource(hashChannels, hashChannel);
+    }
+
+    /**
+     * Creates a spiller for the probe rows of the spilled partitions.
+     */
+    public Spiller createProbeSpiller()
+    {
+        return spillerFactory.create();
+    }
+
+    private synchronized List<Iterator<Page>> getSpills(int partition)
+    {
+        return partitions.get(partition).getSpills();
+    }
+
+    public synchronized void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try (Closer closer = Closer.create()) {
+            partitions.values().forEach(closer::register);
+        }
+        catch (IOException e) {
+            throw new PrestoException(INTERNAL_ERROR, "Failed to delete spilled build partitions", e);
+        }
+    }
+}
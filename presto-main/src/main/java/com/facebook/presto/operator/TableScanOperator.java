@@ -16,7 +16,9 @@ package com.facebook.presto.operator;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.UpdatablePageSource;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSourceProvider;
@@ -46,6 +48,7 @@ public class TableScanOperator
         private final PageSourceProvider pageSourceProvider;
         private final List<Type> types;
         private final List<ColumnHandle> columns;
+        private final Supplier<TupleDomain<ColumnHandle>> dynamicFilter;
         private boolean closed;
 
         public TableScanOperatorFactory(
@@ -54,12 +57,24 @@ public class TableScanOperator
                 PageSourceProvider pageSourceProvider,
                 List<Type> types,
                 Iterable<ColumnHandle> columns)
+        {
+            this(operatorId, sourceId, pageSourceProvider, types, columns, TupleDomain::all);
+        }
+
+        public TableScanOperatorFactory(
+                int operatorId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                List<Type> types,
+                Iterable<ColumnHandle> columns,
+                Supplier<TupleDomain<ColumnHandle>> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.sourceId = checkNotNull(sourceId, "sourceId is null");
             this.types = checkNotNull(types, "types is null");
             this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceManager is null");
             this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
+            this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
         }
 
         @Override
@@ -84,7 +99,8 @@ public class TableScanOperator
                     sourceId,
                     pageSourceProvider,
                     types,
-                    columns);
+                    columns,
+                    dynamicFilter);
         }
 
         @Override
@@ -99,6 +115,7 @@ public class TableScanOperator
     private final PageSourceProvider pageSourceProvider;
     private final List<Type> types;
     private final List<ColumnHandle> columns;
+    private final Supplier<TupleDomain<ColumnHandle>> dynamicFilter;
     private final SettableFuture<?> blocked = SettableFuture.create();
 
     private Split split;
@@ -108,6 +125,7 @@ public class TableScanOperator
 
     private long completedBytes;
     private long readTimeNanos;
+    private long readWaitNanos;
 
     public TableScanOperator(
             OperatorContext operatorContext,
@@ -115,12 +133,24 @@ public class TableScanOperator
             PageSourceProvider pageSourceProvider,
             List<Type> types,
             Iterable<ColumnHandle> columns)
+    {
+        this(operatorContext, planNodeId, pageSourceProvider, types, columns, TupleDomain::all);
+    }
+
+    public TableScanOperator(
+            OperatorContext operatorContext,
+            PlanNodeId planNodeId,
+            PageSourceProvider pageSourceProvider,
+            List<Type> types,
+            Iterable<ColumnHandle> columns,
+            Supplier<TupleDomain<ColumnHandle>> dynamicFilter)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         this.planNodeId = checkNotNull(planNodeId, "planNodeId is null");
         this.types = checkNotNull(types, "types is null");
         this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceManager is null");
         this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
+        this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
     }
 
     @Override
@@ -202,8 +232,8 @@ public class TableScanOperator
     @Override
     public boolean isFinished()
     {
+        // the source is opened on the first getOutput call, see ScanFilterAndProjectOperator
         if (!finished) {
-            createSourceIfNecessary();
             finished = (source != null) && source.isFinished();
         }
 
@@ -248,6 +278,10 @@ public class TableScanOperator
             completedBytes = endCompletedBytes;
             readTimeNanos = endReadTimeNanos;
         }
+        long endReadWaitNanos = source.getReadWaitNanos();
+        operatorContext.recordReadWait(endReadWaitNanos - readWaitNanos);
+        readWaitNanos = endReadWaitNanos;
+        operatorContext.setMemoryReservation(source.getSystemMemoryUsage());
 
         return page;
     }
@@ -255,7 +289,13 @@ public class TableScanOperator
     private void createSourceIfNecessary()
     {
         if ((split != null) && (source == null)) {
-            source = pageSourceProvider.createPageSource(split, columns);
+            TupleDomain<ColumnHandle> filter = dynamicFilter.get();
+            if (filter.isNone()) {
+                source = new FixedPageSource(ImmutableList.of());
+            }
+            else {
+                source = pageSourceProvider.createPageSource(split, columns, filter);
+            }
         }
     }
 }
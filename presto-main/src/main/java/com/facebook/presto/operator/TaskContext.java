@@ -248,6 +248,25 @@ public class TaskContext
         return stat;
     }
 
+    public DataSize getMemoryReservation()
+    {
+        return new DataSize(memoryReservation.get(), BYTE).convertToMostSuccinctDataSize();
+    }
+
+    public int getQueuedPartitionedDrivers()
+    {
+        return pipelineContexts.stream()
+                .mapToInt(PipelineContext::getQueuedPartitionedDrivers)
+                .sum();
+    }
+
+    public int getRunningPartitionedDrivers()
+    {
+        return pipelineContexts.stream()
+                .mapToInt(PipelineContext::getRunningPartitionedDrivers)
+                .sum();
+    }
+
     public TaskStats getTaskStats()
     {
         // check for end state to avoid callback ordering problems
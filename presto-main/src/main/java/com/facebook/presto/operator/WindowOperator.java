@@ -21,15 +21,19 @@ import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
+import static com.facebook.presto.operator.MergeSortedPages.mergeSortedPages;
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -57,6 +61,7 @@ public class WindowOperator
         private final FrameInfo frameInfo;
         private final int expectedPositions;
         private final List<Type> types;
+        private final Optional<SpillerFactory> spillerFactory;
         private boolean closed;
 
         public WindowOperatorFactory(
@@ -71,6 +76,34 @@ public class WindowOperator
                 int preSortedChannelPrefix,
                 FrameInfo frameInfo,
                 int expectedPositions)
+        {
+            this(operatorId,
+                    sourceTypes,
+                    outputChannels,
+                    windowFunctionDefinitions,
+                    partitionChannels,
+                    preGroupedChannels,
+                    sortChannels,
+                    sortOrder,
+                    preSortedChannelPrefix,
+                    frameInfo,
+                    expectedPositions,
+                    Optional.empty());
+        }
+
+        public WindowOperatorFactory(
+                int operatorId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<WindowFunctionDefinition> windowFunctionDefinitions,
+                List<Integer> partitionChannels,
+                List<Integer> preGroupedChannels,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                int preSortedChannelPrefix,
+                FrameInfo frameInfo,
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory)
         {
             requireNonNull(sourceTypes, "sourceTypes is null");
             requireNonNull(outputChannels, "outputChannels is null");
@@ -84,6 +117,7 @@ public class WindowOperator
             checkArgument(preSortedChannelPrefix <= sortChannels.size(), "Cannot have more pre-sorted channels than specified sorted channels");
             checkArgument(preSortedChannelPrefix == 0 || ImmutableSet.copyOf(preGroupedChannels).equals(ImmutableSet.copyOf(partitionChannels)), "preSortedChannelPrefix can only be greater than zero if all partition channels are pre-grouped");
             requireNonNull(frameInfo, "frameInfo is null");
+            requireNonNull(spillerFactory, "spillerFactory is null");
 
             this.operatorId = operatorId;
             this.sourceTypes = ImmutableList.copyOf(sourceTypes);
@@ -96,6 +130,7 @@ public class WindowOperator
             this.preSortedChannelPrefix = preSortedChannelPrefix;
             this.frameInfo = frameInfo;
             this.expectedPositions = expectedPositions;
+            this.spillerFactory = spillerFactory;
             this.types = Stream.concat(
                     outputChannels.stream()
                             .map(sourceTypes::get),
@@ -127,7 +162,8 @@ public class WindowOperator
                     sortOrder,
                     preSortedChannelPrefix,
                     frameInfo,
-                    expectedPositions);
+                    expectedPositions,
+                    spillerFactory);
         }
 
         @Override
@@ -146,6 +182,7 @@ public class WindowOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final int[] outputChannels;
     private final List<WindowFunction> windowFunctions;
     private final List<Integer> orderChannels;
@@ -153,6 +190,7 @@ public class WindowOperator
     private final List<Type> types;
 
     private final int[] preGroupedChannels;
+    private final int[] unGroupedPartitionChannels;
 
     private final PagesHashStrategy preGroupedPartitionHashStrategy;
     private final PagesHashStrategy unGroupedPartitionHashStrategy;
@@ -171,6 +209,12 @@ public class WindowOperator
 
     private Page pendingInput;
 
+    // only present when the input is not pre-grouped, since spilled runs are re-grouped by the merge
+    private final Optional<SpillerFactory> spillerFactory;
+    private Spiller spiller;
+    // merge of the spilled sorted runs, grouped and sorted on all partition and sort channels
+    private Iterator<Page> mergedInput;
+
     public WindowOperator(
             OperatorContext operatorContext,
             List<Type> sourceTypes,
@@ -182,7 +226,8 @@ public class WindowOperator
             List<SortOrder> sortOrder,
             int preSortedChannelPrefix,
             FrameInfo frameInfo,
-            int expectedPositions)
+            int expectedPositions,
+            Optional<SpillerFactory> spillerFactory)
     {
         requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(outputChannels, "outputChannels is null");
@@ -196,6 +241,7 @@ public class WindowOperator
         checkArgument(preSortedChannelPrefix <= sortChannels.size(), "Cannot have more pre-sorted channels than specified sorted channels");
         checkArgument(preSortedChannelPrefix == 0 || ImmutableSet.copyOf(preGroupedChannels).equals(ImmutableSet.copyOf(partitionChannels)), "preSortedChannelPrefix can only be greater than zero if all partition channels are pre-grouped");
         requireNonNull(frameInfo, "frameInfo is null");
+        requireNonNull(spillerFactory, "spillerFactory is null");
 
         this.operatorContext = operatorContext;
         this.outputChannels = Ints.toArray(outputChannels);
@@ -203,6 +249,7 @@ public class WindowOperator
                 .map(WindowFunctionDefinition::createWindowFunction)
                 .collect(toImmutableList());
         this.frameInfo = frameInfo;
+        this.spillerFactory = preGroupedChannels.isEmpty() ? spillerFactory : Optional.empty();
 
         this.types = Stream.concat(
                 outputChannels.stream()
@@ -211,12 +258,14 @@ public class WindowOperator
                         .map(WindowFunction::getType))
                 .collect(toImmutableList());
 
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
         this.pagesIndex = new PagesIndex(sourceTypes, expectedPositions);
         this.preGroupedChannels = Ints.toArray(preGroupedChannels);
         this.preGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(preGroupedChannels, Optional.<Integer>empty());
         List<Integer> unGroupedPartitionChannels = partitionChannels.stream()
                 .filter(channel -> !preGroupedChannels.contains(channel))
                 .collect(toImmutableList());
+        this.unGroupedPartitionChannels = Ints.toArray(unGroupedPartitionChannels);
         this.unGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(unGroupedPartitionChannels, Optional.empty());
         List<Integer> preSortedChannels = sortChannels.stream()
                 .limit(preSortedChannelPrefix)
@@ -257,8 +306,15 @@ public class WindowOperator
             return;
         }
         if (state == State.NEEDS_INPUT) {
-            // Since was waiting for more input, prepare what we have for output since we will not be getting any more input
-            sortPagesIndexIfNecessary();
+            if (spiller != null) {
+                // Spill the remaining rows as the last run and read everything back through a merge of the runs
+                spillToDisk();
+                mergedInput = mergeSortedPages(spiller.getSpills(), sourceTypes, orderChannels, ordering);
+            }
+            else {
+                // Since was waiting for more input, prepare what we have for output since we will not be getting any more input
+                sortPagesIndexIfNecessary();
+            }
         }
         state = State.FINISHING;
     }
@@ -290,6 +346,28 @@ public class WindowOperator
         if (processPendingInput()) {
             state = State.HAS_OUTPUT;
         }
+
+        long memorySize = pagesIndex.getEstimatedSize().toBytes();
+        if (!spillerFactory.isPresent()) {
+            operatorContext.setMemoryReservation(memorySize);
+        }
+        else if (!operatorContext.trySetMemoryReservation(memorySize)) {
+            spillToDisk();
+        }
+    }
+
+    private void spillToDisk()
+    {
+        if (spiller == null) {
+            spiller = spillerFactory.get().create();
+        }
+
+        long start = System.nanoTime();
+        sortPagesIndexIfNecessary();
+        long spilledBytes = spiller.spill(pagesIndex.getSortedPages());
+        operatorContext.recordSpill(spilledBytes, System.nanoTime() - start);
+
+        pagesIndex.clear();
         operatorContext.setMemoryReservation(pagesIndex.getEstimatedSize().toBytes());
     }
 
@@ -301,6 +379,15 @@ public class WindowOperator
         checkState(pendingInput != null);
         pendingInput = updatePagesIndex(pendingInput);
 
+        if (mergedInput != null) {
+            // Keep reading the merged runs until the current partition is complete
+            while (pendingInput == null && mergedInput.hasNext()) {
+                pendingInput = updatePagesIndex(mergedInput.next());
+            }
+            // The merged runs are already sorted
+            return true;
+        }
+
         // If we have unused input or are finishing, then we have buffered a full group
         if (pendingInput != null || state == State.FINISHING) {
             sortPagesIndexIfNecessary();
@@ -319,11 +406,15 @@ public class WindowOperator
     {
         checkArgument(page.getPositionCount() > 0);
 
+        // Merged spill runs are grouped on all of the partition channels
+        int[] groupedChannels = mergedInput == null ? preGroupedChannels : unGroupedPartitionChannels;
+        PagesHashStrategy groupedHashStrategy = mergedInput == null ? preGroupedPartitionHashStrategy : unGroupedPartitionHashStrategy;
+
         // TODO: Fix pagesHashStrategy to allow specifying channels for comparison, it currently requires us to rearrange the right side blocks in consecutive channel order
-        Page preGroupedPage = rearrangePage(page, preGroupedChannels);
-        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(preGroupedPartitionHashStrategy, 0, 0, preGroupedPage.getBlocks())) {
+        Page preGroupedPage = rearrangePage(page, groupedChannels);
+        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(groupedHashStrategy, 0, 0, preGroupedPage.getBlocks())) {
             // Find the position where the pre-grouped columns change
-            int groupEnd = findGroupEnd(preGroupedPage, preGroupedPartitionHashStrategy, 0);
+            int groupEnd = findGroupEnd(preGroupedPage, groupedHashStrategy, 0);
 
             // Add the section of the page that contains values for the current group
             pagesIndex.addPage(page.getRegion(0, groupEnd));
@@ -378,6 +469,10 @@ public class WindowOperator
                     partition = null;
                     pagesIndex.clear();
 
+                    if (pendingInput == null && mergedInput != null && mergedInput.hasNext()) {
+                        pendingInput = mergedInput.next();
+                    }
+
                     // Try to extract more partitions from the pendingInput
                     if (pendingInput != null && processPendingInput()) {
                         partitionStart = 0;
@@ -410,6 +505,14 @@ public class WindowOperator
         return page;
     }
 
+    @Override
+    public void close()
+    {
+        if (spiller != null) {
+            spiller.close();
+        }
+    }
+
     private void sortPagesIndexIfNecessary()
     {
         if (pagesIndex.getPositionCount() > 1 && !orderChannels.isEmpty()) {
@@ -0,0 +1,221 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.client.Column;
+import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import io.airlift.json.JsonCodec;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.RuntimeIOException;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+
+import javax.inject.Inject;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+import static com.facebook.presto.client.ColumnarQueryResults.BIGINT_ENCODING;
+import static com.facebook.presto.client.ColumnarQueryResults.BOOLEAN_ENCODING;
+import static com.facebook.presto.client.ColumnarQueryResults.DOUBLE_ENCODING;
+import static com.facebook.presto.client.ColumnarQueryResults.NO_DATA;
+import static com.facebook.presto.client.ColumnarQueryResults.PRESTO_COLUMNAR_RESULTS;
+import static com.facebook.presto.client.ColumnarQueryResults.VARCHAR_ENCODING;
+import static com.facebook.presto.client.ColumnarQueryResults.getEncoding;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes {@link QueryResults} in the format of {@link com.facebook.presto.client.ColumnarQueryResults}.
+ * Results backed by {@link ResultPages} are written from the blocks of the pages.
+ */
+@Provider
+@Produces(PRESTO_COLUMNAR_RESULTS)
+public class ColumnarQueryResultsWriter
+        implements MessageBodyWriter<QueryResults>
+{
+    private static final MediaType PRESTO_COLUMNAR_RESULTS_TYPE = MediaType.valueOf(PRESTO_COLUMNAR_RESULTS);
+
+    private final JsonCodec<QueryResults> queryResultsCodec;
+    private final ObjectMapper objectMapper;
+
+    @Inject
+    public ColumnarQueryResultsWriter(JsonCodec<QueryResults> queryResultsCodec, ObjectMapper objectMapper)
+    {
+        this.queryResultsCodec = checkNotNull(queryResultsCodec, "queryResultsCodec is null");
+        this.objectMapper = checkNotNull(objectMapper, "objectMapper is null");
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, java.lang.reflect.Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return QueryResults.class.isAssignableFrom(type) && mediaType.isCompatible(PRESTO_COLUMNAR_RESULTS_TYPE);
+    }
+
+    @Override
+    public long getSize(QueryResults results, Class<?> type, java.lang.reflect.Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(QueryResults results,
+            Class<?> type,
+            java.lang.reflect.Type genericType,
+            Annotation[] annotations,
+            MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders,
+            OutputStream output)
+            throws IOException, WebApplicationException
+    {
+        try {
+            SliceOutput sliceOutput = new OutputStreamSliceOutput(output);
+            writeQueryResults(sliceOutput, results);
+            sliceOutput.flush();
+        }
+        catch (RuntimeIOException e) {
+            // EOF exception occurs when the client disconnects while writing data
+            // This is not a "server" problem so we don't want to log this
+            if (!(e.getCause() instanceof EOFException)) {
+                throw e;
+            }
+        }
+    }
+
+    public void writeQueryResults(SliceOutput output, QueryResults results)
+            throws IOException
+    {
+        QueryResults resultsWithoutData = new QueryResults(
+                results.getId(),
+                results.getInfoUri(),
+                results.getPartialCancelUri(),
+                results.getNextUri(),
+                results.getColumns(),
+                (Iterable<List<Object>>) null,
+                results.getDataUris(),
+                results.getStats(),
+                results.getError(),
+                results.getUpdateType(),
+                results.getUpdateCount());
+        writeString(output, queryResultsCodec.toJson(resultsWithoutData).getBytes(UTF_8));
+
+        Iterable<List<Object>> data = results.getData();
+        if (data == null) {
+            output.writeInt(NO_DATA);
+        }
+        else if (data instanceof ResultPages) {
+            writePages(output, (ResultPages) data, objectMapper);
+        }
+        else {
+            writeRows(output, results.getColumns(), ImmutableList.copyOf(data));
+        }
+    }
+
+    static void writePages(SliceOutput output, ResultPages resultPages, ObjectMapper objectMapper)
+            throws JsonProcessingException
+    {
+        ConnectorSession session = resultPages.getSession();
+        output.writeInt(resultPages.getPositionCount());
+        for (int channel = 0; channel < resultPages.getTypes().size(); channel++) {
+            Type type = resultPages.getTypes().get(channel);
+            byte encoding = getEncoding(type.getTypeSignature().toString());
+            output.writeByte(encoding);
+            for (Page page : resultPages.getPages()) {
+                Block block = page.getBlock(channel);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    if (block.isNull(position)) {
+                        output.writeByte(1);
+                        continue;
+                    }
+                    output.writeByte(0);
+                    switch (encoding) {
+                        case BIGINT_ENCODING:
+                            output.writeLong(type.getLong(block, position));
+                            break;
+                        case DOUBLE_ENCODING:
+                            output.writeDouble(type.getDouble(block, position));
+                            break;
+                        case BOOLEAN_ENCODING:
+                            output.writeByte(type.getBoolean(block, position) ? 1 : 0);
+                            break;
+                        case VARCHAR_ENCODING:
+                            Slice slice = type.getSlice(block, position);
+                            output.writeInt(slice.length());
+                            output.writeBytes(slice);
+                            break;
+                        default:
+                            writeString(output, objectMapper.writeValueAsBytes(type.getObjectValue(session, block, position)));
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeRows(SliceOutput output, List<Column> columns, List<List<Object>> rows)
+            throws JsonProcessingException
+    {
+        checkNotNull(columns, "columns is null");
+        output.writeInt(rows.size());
+        for (int channel = 0; channel < columns.size(); channel++) {
+            byte encoding = getEncoding(columns.get(channel).getType());
+            output.writeByte(encoding);
+            for (List<Object> row : rows) {
+                Object value = row.get(channel);
+                if (value == null) {
+                    output.writeByte(1);
+                    continue;
+                }
+                output.writeByte(0);
+                switch (encoding) {
+                    case BIGINT_ENCODING:
+                        output.writeLong(((Number) value).longValue());
+                        break;
+                    case DOUBLE_ENCODING:
+                        output.writeDouble(((Number) value).doubleValue());
+                        break;
+                    case BOOLEAN_ENCODING:
+                        output.writeByte((Boolean) value ? 1 : 0);
+                        break;
+                    case VARCHAR_ENCODING:
+                        writeString(output, value.toString().getBytes(UTF_8));
+                        break;
+                    default:
+                        writeString(output, objectMapper.writeValueAsBytes(value));
+                }
+            }
+        }
+    }
+
+    private static void writeString(SliceOutput output, byte[] bytes)
+    {
+        output.writeInt(bytes.length);
+        output.writeBytes(bytes);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.server.FullSmileResponseHandler.SmileResponse;
+import com.google.common.io.ByteStreams;
+import com.google.common.net.MediaType;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.json.JsonCodec;
+
+import java.io.IOException;
+
+import static com.facebook.presto.PrestoMediaTypes.JACKSON_SMILE_TYPE;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static io.airlift.http.client.ResponseHandlerUtils.propagate;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads a Smile response body. A JSON body is decoded with the JSON codec
+ * instead, so a server that does not answer in Smile is still understood.
+ */
+public class FullSmileResponseHandler<T>
+        implements ResponseHandler<SmileResponse<T>, RuntimeException>
+{
+    private static final MediaType MEDIA_TYPE_JSON = MediaType.create("application", "json");
+
+    private final SmileCodec<T> smileCodec;
+    private final JsonCodec<T> jsonCodec;
+
+    public static <T> FullSmileResponseHandler<T> createFullSmileResponseHandler(SmileCodec<T> smileCodec, JsonCodec<T> jsonCodec)
+    {
+        return new FullSmileResponseHandler<>(smileCodec, jsonCodec);
+    }
+
+    private FullSmileResponseHandler(SmileCodec<T> smileCodec, JsonCodec<T> jsonCodec)
+    {
+        this.smileCodec = checkNotNull(smileCodec, "smileCodec is null");
+        this.jsonCodec = checkNotNull(jsonCodec, "jsonCodec is null");
+    }
+
+    @Override
+    public SmileResponse<T> handleException(Request request, Exception exception)
+    {
+        throw propagate(request, exception);
+    }
+
+    @Override
+    public SmileResponse<T> handle(Request request, Response response)
+    {
+        byte[] bytes = readResponseBytes(response);
+        String contentType = response.getHeader(CONTENT_TYPE);
+        if (contentType == null) {
+            return new SmileResponse<>(response.getStatusCode(), response.getStatusMessage(), bytes);
+        }
+
+        MediaType mediaType = MediaType.parse(contentType);
+        try {
+            if (mediaType.is(JACKSON_SMILE_TYPE)) {
+                return new SmileResponse<>(response.getStatusCode(), response.getStatusMessage(), smileCodec.fromSmile(bytes), bytes);
+            }
+            if (mediaType.is(MEDIA_TYPE_JSON)) {
+                return new SmileResponse<>(response.getStatusCode(), response.getStatusMessage(), jsonCodec.fromJson(bytes), bytes);
+            }
+        }
+        catch (IllegalArgumentException e) {
+            return new SmileResponse<>(response.getStatusCode(), response.getStatusMessage(), bytes, new IllegalArgumentException(format("Unable to create %s from %s response", smileCodec.getType().getName(), mediaType), e));
+        }
+        return new SmileResponse<>(response.getStatusCode(), response.getStatusMessage(), bytes);
+    }
+
+    private static byte[] readResponseBytes(Response response)
+    {
+        try {
+            return ByteStreams.toByteArray(response.getInputStream());
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Error reading response from server", e);
+        }
+    }
+
+    public static class SmileResponse<T>
+    {
+        private final int statusCode;
+        private final String statusMessage;
+        private final boolean hasValue;
+        private final T value;
+        private final byte[] responseBytes;
+        private final IllegalArgumentException exception;
+
+        public SmileResponse(int statusCode, String statusMessage, byte[] responseBytes)
+        {
+            this(statusCode, statusMessage, false, null, responseBytes, null);
+        }
+
+        public SmileResponse(int statusCode, String statusMessage, T value, byte[] responseBytes)
+        {
+            this(statusCode, statusMessage, true, value, responseBytes, null);
+        }
+
+        public SmileResponse(int statusCode, String statusMessage, byte[] responseBytes, IllegalArgumentException exception)
+        {
+            this(statusCode, statusMessage, false, null, responseBytes, checkNotNull(exception, "exception is null"));
+        }
+
+        private SmileResponse(int statusCode, String statusMessage, boolean hasValue, T value, byte[] responseBytes, IllegalArgumentException exception)
+        {
+            this.statusCode = statusCode;
+            this.statusMessage = statusMessage;
+            this.hasValue = hasValue;
+            this.value = value;
+            this.responseBytes = checkNotNull(responseBytes, "responseBytes is null");
+            this.exception = exception;
+        }
+
+        public int getStatusCode()
+        {
+            return statusCode;
+        }
+
+        public String getStatusMessage()
+        {
+            return statusMessage;
+        }
+
+        public boolean hasValue()
+        {
+            return hasValue;
+        }
+
+        public T getValue()
+        {
+            if (!hasValue) {
+                throw new IllegalStateException("Response does not contain a value", exception);
+            }
+            return value;
+        }
+
+        public String getResponseBody()
+        {
+            return new String(responseBytes, UTF_8);
+        }
+
+        public IllegalArgumentException getException()
+        {
+            return exception;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("statusCode", statusCode)
+                    .add("statusMessage", statusMessage)
+                    .add("hasValue", hasValue)
+                    .add("value", value)
+                    .toString();
+        }
+    }
+}
@@ -29,8 +29,10 @@ import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskState;
+import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.TaskStats;
+import com.facebook.presto.server.FullSmileResponseHandler.SmileResponse;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.plan.PlanNode;
@@ -48,13 +50,13 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.RateLimiter;
 import io.airlift.concurrent.SetThreadName;
-import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpStatus;
 import io.airlift.http.client.Request;
 import io.airlift.http.client.StatusResponseHandler.StatusResponse;
 import io.airlift.json.JsonCodec;
 import io.airlift.log.Logger;
+import io.airlift.stats.CounterStat;
 import io.airlift.units.Duration;
 import org.joda.time.DateTime;
 
@@ -77,6 +79,8 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -84,30 +88,39 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
+import static com.facebook.presto.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
+import static com.facebook.presto.PrestoMediaTypes.JACKSON_SMILE_TYPE;
+import static com.facebook.presto.execution.TaskInfo.MAX_VERSION;
+import static com.facebook.presto.execution.TaskStatus.failWith;
+import static com.facebook.presto.execution.TaskStatus.initialTaskStatus;
 import static com.facebook.presto.spi.StandardErrorCode.REMOTE_TASK_ERROR;
 import static com.facebook.presto.spi.StandardErrorCode.TOO_MANY_REQUESTS_FAILED;
 import static com.facebook.presto.spi.StandardErrorCode.WORKER_RESTARTED;
 import static com.facebook.presto.util.Failures.WORKER_NODE_ERROR;
 import static com.facebook.presto.util.Failures.WORKER_RESTARTED_ERROR;
 import static com.facebook.presto.util.Failures.toFailure;
+import static com.facebook.presto.server.FullSmileResponseHandler.createFullSmileResponseHandler;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
-import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
-import static io.airlift.http.client.JsonBodyGenerator.jsonBodyGenerator;
 import static io.airlift.http.client.Request.Builder.prepareDelete;
 import static io.airlift.http.client.Request.Builder.prepareGet;
 import static io.airlift.http.client.Request.Builder.preparePost;
+import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
 import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class HttpRemoteTask
         implements RemoteTask
 {
     private static final Logger log = Logger.get(HttpRemoteTask.class);
 
+    // prefer Smile, but still understand a worker that answers in JSON
+    private static final String ACCEPT_SMILE_OR_JSON = JACKSON_SMILE_TYPE + ", " + MediaType.JSON_UTF_8.withoutParameters() + ";q=0.5";
+
     private final TaskId taskId;
 
     private final Session session;
@@ -116,6 +129,7 @@ public class HttpRemoteTask
 
     private final AtomicLong nextSplitId = new AtomicLong();
 
+    private final StateMachine<TaskStatus> taskStatus;
     private final StateMachine<TaskInfo> taskInfo;
 
     @GuardedBy("this")
@@ -132,18 +146,30 @@ public class HttpRemoteTask
     @GuardedBy("this")
     private final AtomicReference<OutputBuffers> outputBuffers = new AtomicReference<>();
 
-    private final ContinuousTaskInfoFetcher continuousTaskInfoFetcher;
+    private final ContinuousTaskStatusFetcher continuousTaskStatusFetcher;
+    private final TaskInfoFetcher taskInfoFetcher;
 
     private final HttpClient httpClient;
     private final Executor executor;
-    private final JsonCodec<TaskInfo> taskInfoCodec;
-    private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
+    private final ScheduledExecutorService updateScheduledExecutor;
+    private final FullSmileResponseHandler<TaskStatus> taskStatusResponseHandler;
+    private final FullSmileResponseHandler<TaskInfo> taskInfoResponseHandler;
+    private final SmileCodec<TaskUpdateRequest> taskUpdateRequestCodec;
 
     private final RequestErrorTracker updateErrorTracker;
     private final RequestErrorTracker getErrorTracker;
 
     private final AtomicBoolean needsUpdate = new AtomicBoolean(true);
 
+    // the fragment is sent until the task acknowledges an update, after which only the sources change
+    @GuardedBy("this")
+    private boolean sendPlan = true;
+
+    private final RemoteTaskStats stats;
+    private final long createNanos = System.nanoTime();
+    // the bytes of the update requests sent to this task, with decaying rates that are readable while the task runs
+    private final CounterStat updateRequestBytes = new CounterStat();
+
     public HttpRemoteTask(Session session,
             TaskId taskId,
             String nodeId,
@@ -153,11 +179,17 @@ public class HttpRemoteTask
             OutputBuffers outputBuffers,
             HttpClient httpClient,
             Executor executor,
+            ScheduledExecutorService updateScheduledExecutor,
             int maxConsecutiveErrorCount,
             Duration minErrorDuration,
             Duration refreshMaxWait,
+            Duration taskInfoUpdateInterval,
+            JsonCodec<TaskStatus> taskStatusCodec,
+            SmileCodec<TaskStatus> taskStatusSmileCodec,
             JsonCodec<TaskInfo> taskInfoCodec,
-            JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec)
+            SmileCodec<TaskInfo> taskInfoSmileCodec,
+            SmileCodec<TaskUpdateRequest> taskUpdateRequestCodec,
+            RemoteTaskStats stats)
     {
         checkNotNull(session, "session is null");
         checkNotNull(taskId, "taskId is null");
@@ -167,8 +199,14 @@ public class HttpRemoteTask
         checkNotNull(outputBuffers, "outputBuffers is null");
         checkNotNull(httpClient, "httpClient is null");
         checkNotNull(executor, "executor is null");
+        checkNotNull(updateScheduledExecutor, "updateScheduledExecutor is null");
+        checkNotNull(taskInfoUpdateInterval, "taskInfoUpdateInterval is null");
+        checkNotNull(taskStatusCodec, "taskStatusCodec is null");
+        checkNotNull(taskStatusSmileCodec, "taskStatusSmileCodec is null");
         checkNotNull(taskInfoCodec, "taskInfoCodec is null");
+        checkNotNull(taskInfoSmileCodec, "taskInfoSmileCodec is null");
         checkNotNull(taskUpdateRequestCodec, "taskUpdateRequestCodec is null");
+        checkNotNull(stats, "stats is null");
 
         try (SetThreadName ignored = new SetThreadName("HttpRemoteTask-%s", taskId)) {
             this.taskId = taskId;
@@ -178,8 +216,11 @@ public class HttpRemoteTask
             this.outputBuffers.set(outputBuffers);
             this.httpClient = httpClient;
             this.executor = executor;
-            this.taskInfoCodec = taskInfoCodec;
+            this.updateScheduledExecutor = updateScheduledExecutor;
+            this.taskStatusResponseHandler = createFullSmileResponseHandler(taskStatusSmileCodec, taskStatusCodec);
+            this.taskInfoResponseHandler = createFullSmileResponseHandler(taskInfoSmileCodec, taskInfoCodec);
             this.taskUpdateRequestCodec = taskUpdateRequestCodec;
+            this.stats = stats;
             this.updateErrorTracker = new RequestErrorTracker(taskId, location, maxConsecutiveErrorCount, minErrorDuration);
             this.getErrorTracker = new RequestErrorTracker(taskId, location, maxConsecutiveErrorCount, minErrorDuration);
 
@@ -198,7 +239,8 @@ public class HttpRemoteTask
 
             TaskStats taskStats = new TaskStats(DateTime.now(), null);
 
-            taskInfo = new StateMachine<>("task " + taskId, executor, new TaskInfo(
+            taskStatus = new StateMachine<>("task " + taskId, executor, initialTaskStatus(taskId, location));
+            taskInfo = new StateMachine<>("task info " + taskId, executor, new TaskInfo(
                     taskId,
                     Optional.empty(),
                     TaskInfo.MIN_VERSION,
@@ -210,7 +252,16 @@ public class HttpRemoteTask
                     taskStats,
                     ImmutableList.<ExecutionFailureInfo>of()));
 
-            continuousTaskInfoFetcher = new ContinuousTaskInfoFetcher(refreshMaxWait);
+            continuousTaskStatusFetcher = new ContinuousTaskStatusFetcher(refreshMaxWait);
+            taskInfoFetcher = new TaskInfoFetcher(taskInfoUpdateInterval);
+
+            stats.taskCreated(updateRequestBytes);
+            AtomicBoolean finished = new AtomicBoolean();
+            taskStatus.addStateChangeListener(status -> {
+                if (status.getState().isDone() && finished.compareAndSet(false, true)) {
+                    stats.taskFinished(updateRequestBytes, Duration.nanosSince(createNanos));
+                }
+            });
         }
     }
 
@@ -226,6 +277,21 @@ public class HttpRemoteTask
         return taskInfo.get();
     }
 
+    @Override
+    public TaskStatus getTaskStatus()
+    {
+        return taskStatus.get();
+    }
+
+    /**
+     * Returns the bytes of the update requests sent to this task. The decaying
+     * rates of the counter are the current update bytes/second of the task.
+     */
+    public CounterStat getUpdateRequestBytes()
+    {
+        return updateRequestBytes;
+    }
+
     @Override
     public void start()
     {
@@ -233,8 +299,9 @@ public class HttpRemoteTask
             // to start we just need to trigger an update
             scheduleUpdate();
 
-            // begin the info fetcher
-            continuousTaskInfoFetcher.start();
+            // begin the status and info fetchers
+            continuousTaskStatusFetcher.start();
+            taskInfoFetcher.start();
         }
     }
 
@@ -247,7 +314,7 @@ public class HttpRemoteTask
             checkState(!noMoreSplits.contains(sourceId), "noMoreSplits has already been set for %s", sourceId);
 
             // only add pending split if not done
-            if (!getTaskInfo().getState().isDone()) {
+            if (!getTaskStatus().getState().isDone()) {
                 int added = 0;
                 for (Split split : splits) {
                     if (pendingSplits.put(sourceId, new ScheduledSplit(nextSplitId.getAndIncrement(), split))) {
@@ -276,7 +343,7 @@ public class HttpRemoteTask
     @Override
     public synchronized void setOutputBuffers(OutputBuffers newOutputBuffers)
     {
-        if (getTaskInfo().getState().isDone()) {
+        if (getTaskStatus().getState().isDone()) {
             return;
         }
 
@@ -291,30 +358,53 @@ public class HttpRemoteTask
     public int getPartitionedSplitCount()
     {
         int splitCount = pendingSourceSplitCount;
-        return splitCount + taskInfo.get().getStats().getQueuedPartitionedDrivers() + taskInfo.get().getStats().getRunningPartitionedDrivers();
+        TaskStatus taskStatus = getTaskStatus();
+        return splitCount + taskStatus.getQueuedPartitionedDrivers() + taskStatus.getRunningPartitionedDrivers();
     }
 
     @Override
     public int getQueuedPartitionedSplitCount()
     {
         int splitCount = pendingSourceSplitCount;
-        return splitCount + taskInfo.get().getStats().getQueuedPartitionedDrivers();
+        return splitCount + getTaskStatus().getQueuedPartitionedDrivers();
     }
 
     @Override
-    public void addStateChangeListener(StateChangeListener<TaskInfo> stateChangeListener)
+    public void addStateChangeListener(StateChangeListener<TaskStatus> stateChangeListener)
     {
         try (SetThreadName ignored = new SetThreadName("HttpRemoteTask-%s", taskId)) {
-            taskInfo.addStateChangeListener(stateChangeListener);
+            taskStatus.addStateChangeListener(stateChangeListener);
         }
     }
 
     private synchronized void updateTaskInfo(TaskInfo newValue)
     {
-        updateTaskInfo(newValue, ImmutableList.of());
+        // never update if the task has reached a terminal state, and don't update to an older version (same version is ok)
+        taskInfo.setIf(newValue, oldValue -> !oldValue.getState().isDone() && newValue.getVersion() >= oldValue.getVersion());
+
+        // update the status after the info, so listeners of the status see the new info;
+        // this also checks for a restarted worker, which moves the info to a final state
+        updateTaskStatus(newValue.toTaskStatus());
+    }
+
+    private synchronized void acknowledgeSources(List<TaskSource> sources)
+    {
+        // remove acknowledged splits, which frees memory
+        for (TaskSource source : sources) {
+            PlanNodeId planNodeId = source.getPlanNodeId();
+            int removed = 0;
+            for (ScheduledSplit split : source.getSplits()) {
+                if (pendingSplits.remove(planNodeId, split)) {
+                    removed++;
+                }
+            }
+            if (planNodeId.equals(planFragment.getPartitionedSource())) {
+                pendingSourceSplitCount -= removed;
+            }
+        }
     }
 
-    private synchronized void updateTaskInfo(TaskInfo newValue, List<TaskSource> sources)
+    private synchronized void updateTaskStatus(TaskStatus newValue)
     {
         if (newValue.getState().isDone()) {
             // splits can be huge so clear the list
@@ -324,7 +414,7 @@ public class HttpRemoteTask
 
         // change to new value if old value is not changed and new value has a newer version
         AtomicBoolean workerRestarted = new AtomicBoolean();
-        taskInfo.setIf(newValue, oldValue -> {
+        taskStatus.setIf(newValue, oldValue -> {
             // did the worker restart
             if (oldValue.getNodeInstanceId().isPresent() && !oldValue.getNodeInstanceId().equals(newValue.getNodeInstanceId())) {
                 workerRestarted.set(true);
@@ -347,26 +437,12 @@ public class HttpRemoteTask
             failTask(exception);
             abort();
         }
-
-        // remove acknowledged splits, which frees memory
-        for (TaskSource source : sources) {
-            PlanNodeId planNodeId = source.getPlanNodeId();
-            int removed = 0;
-            for (ScheduledSplit split : source.getSplits()) {
-                if (pendingSplits.remove(planNodeId, split)) {
-                    removed++;
-                }
-            }
-            if (planNodeId.equals(planFragment.getPartitionedSource())) {
-                pendingSourceSplitCount -= removed;
-            }
-        }
     }
 
     private synchronized void scheduleUpdate()
     {
         // don't update if the task hasn't been started yet or if it is already finished
-        if (!needsUpdate.get() || taskInfo.get().getState().isDone()) {
+        if (!needsUpdate.get() || getTaskStatus().getState().isDone()) {
             return;
         }
 
@@ -386,18 +462,23 @@ public class HttpRemoteTask
         updateErrorTracker.acquireRequestPermit();
 
         List<TaskSource> sources = getSources();
+        Optional<PlanFragment> fragment = sendPlan ? Optional.of(planFragment) : Optional.empty();
         TaskUpdateRequest updateRequest = new TaskUpdateRequest(session,
-                planFragment,
+                fragment,
                 sources,
                 outputBuffers.get());
+        byte[] updateRequestSmile = taskUpdateRequestCodec.toSmile(updateRequest);
+        stats.updateRequestSent(updateRequestBytes, updateRequestSmile.length);
 
         Request request = preparePost()
-                .setUri(uriBuilderFrom(taskInfo.get().getSelf()).addParameter("summarize").build())
-                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.JSON_UTF_8.toString())
-                .setBodyGenerator(jsonBodyGenerator(taskUpdateRequestCodec, updateRequest))
+                .setUri(getTaskStatus().getSelf())
+                .setHeader(HttpHeaders.CONTENT_TYPE, APPLICATION_JACKSON_SMILE)
+                .setHeader(HttpHeaders.ACCEPT, ACCEPT_SMILE_OR_JSON)
+                .setBodyGenerator(createStaticBodyGenerator(updateRequestSmile))
                 .build();
 
-        ListenableFuture<JsonResponse<TaskInfo>> future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec));
+        // the task answers an update with its status, the full info is only fetched by the TaskInfoFetcher
+        ListenableFuture<SmileResponse<TaskStatus>> future = httpClient.executeAsync(request, taskStatusResponseHandler);
         currentRequest = future;
         currentRequestStartNanos = System.nanoTime();
 
@@ -405,7 +486,7 @@ public class HttpRemoteTask
         // and does so without grabbing the instance lock.
         needsUpdate.set(false);
 
-        Futures.addCallback(future, new SimpleHttpResponseHandler<>(new UpdateResponseHandler(sources), request.getUri()), executor);
+        Futures.addCallback(future, new SimpleHttpResponseHandler<>(new UpdateResponseHandler(sources, fragment.isPresent()), request.getUri()), executor);
     }
 
     private synchronized List<TaskSource> getSources()
@@ -433,11 +514,12 @@ public class HttpRemoteTask
     public synchronized void cancel()
     {
         try (SetThreadName ignored = new SetThreadName("HttpRemoteTask-%s", taskId)) {
-            if (getTaskInfo().getState().isDone()) {
+            TaskStatus taskStatus = getTaskStatus();
+            if (taskStatus.getState().isDone()) {
                 return;
             }
 
-            URI uri = getTaskInfo().getSelf();
+            URI uri = taskStatus.getSelf();
             if (uri == null) {
                 return;
             }
@@ -491,19 +573,8 @@ public class HttpRemoteTask
             }
 
             // mark task as canceled (if not already done)
-            TaskInfo taskInfo = getTaskInfo();
-            URI uri = taskInfo.getSelf();
-
-            updateTaskInfo(new TaskInfo(taskInfo.getTaskId(),
-                    taskInfo.getNodeInstanceId(),
-                    TaskInfo.MAX_VERSION,
-                    TaskState.ABORTED,
-                    uri,
-                    taskInfo.getLastHeartbeat(),
-                    taskInfo.getOutputBuffers(),
-                    taskInfo.getNoMoreSplits(),
-                    taskInfo.getStats(),
-                    ImmutableList.<ExecutionFailureInfo>of()));
+            URI uri = getTaskStatus().getSelf();
+            setFinalState(TaskState.ABORTED, ImmutableList.of());
 
             // send abort to task and ignore response
             long start = System.nanoTime();
@@ -543,49 +614,86 @@ public class HttpRemoteTask
      */
     private void failTask(Throwable cause)
     {
-        TaskInfo taskInfo = getTaskInfo();
-        if (!taskInfo.getState().isDone()) {
-            log.debug(cause, "Remote task failed: %s", taskInfo.getSelf());
+        TaskStatus taskStatus = getTaskStatus();
+        if (!taskStatus.getState().isDone()) {
+            log.debug(cause, "Remote task failed: %s", taskStatus.getSelf());
         }
-        updateTaskInfo(new TaskInfo(taskInfo.getTaskId(),
+        setFinalState(TaskState.FAILED, ImmutableList.of(toFailure(cause)));
+    }
+
+    private void setFinalState(TaskState state, List<ExecutionFailureInfo> failures)
+    {
+        // use a version that is newer than any version the remote task can report
+        setFinalStatus(failWith(getTaskStatus(), MAX_VERSION, state, failures));
+    }
+
+    /**
+     * Moves the status and the info of the task to the final state of the specified
+     * status. The info keeps the last stats received from the task.
+     */
+    private synchronized void setFinalStatus(TaskStatus finalStatus)
+    {
+        checkState(finalStatus.getState().isDone(), "%s is not a final state", finalStatus.getState());
+
+        // update the info first, so listeners of the status see the final info
+        TaskInfo taskInfo = getTaskInfo();
+        TaskInfo finalTaskInfo = new TaskInfo(taskInfo.getTaskId(),
                 taskInfo.getNodeInstanceId(),
-                TaskInfo.MAX_VERSION,
-                TaskState.FAILED,
+                finalStatus.getVersion(),
+                finalStatus.getState(),
                 taskInfo.getSelf(),
                 taskInfo.getLastHeartbeat(),
                 taskInfo.getOutputBuffers(),
                 taskInfo.getNoMoreSplits(),
                 taskInfo.getStats(),
-                ImmutableList.of(toFailure(cause))));
+                finalStatus.getFailures());
+        this.taskInfo.setIf(finalTaskInfo, oldValue -> !oldValue.getState().isDone());
+
+        updateTaskStatus(finalStatus);
     }
 
     @Override
     public String toString()
     {
         return toStringHelper(this)
-                .addValue(getTaskInfo())
+                .addValue(getTaskStatus())
+                .add("updateBytesPerSecond", updateRequestBytes.getOneMinute().getRate())
                 .toString();
     }
 
     private class UpdateResponseHandler
-            implements SimpleHttpResponseCallback<TaskInfo>
+            implements SimpleHttpResponseCallback<TaskStatus>
     {
         private final List<TaskSource> sources;
+        private final boolean sentPlan;
 
-        private UpdateResponseHandler(List<TaskSource> sources)
+        private UpdateResponseHandler(List<TaskSource> sources, boolean sentPlan)
         {
             this.sources = ImmutableList.copyOf(checkNotNull(sources, "sources is null"));
+            this.sentPlan = sentPlan;
         }
 
         @Override
-        public void success(TaskInfo value)
+        public void success(TaskStatus value)
         {
             try (SetThreadName ignored = new SetThreadName("UpdateResponseHandler-%s", taskId)) {
                 try {
                     synchronized (HttpRemoteTask.this) {
                         currentRequest = null;
+                        if (sentPlan) {
+                            // the task has been created on the worker
+                            sendPlan = false;
+                        }
+                    }
+                    acknowledgeSources(sources);
+                    if (value.getState().isDone()) {
+                        // like the status fetcher, publish the final state with the final stats
+                        continuousTaskStatusFetcher.stop();
+                        taskInfoFetcher.fetchFinalTaskInfo(value);
+                    }
+                    else {
+                        updateTaskStatus(value);
                     }
-                    updateTaskInfo(value, sources);
                     updateErrorTracker.requestSucceeded();
                 }
                 finally {
@@ -607,8 +715,8 @@ public class HttpRemoteTask
                     needsUpdate.set(true);
 
                     // if task not already done, record error
-                    TaskInfo taskInfo = getTaskInfo();
-                    if (!taskInfo.getState().isDone()) {
+                    TaskStatus taskStatus = getTaskStatus();
+                    if (!taskStatus.getState().isDone()) {
                         updateErrorTracker.requestFailed(cause);
                     }
                 }
@@ -637,12 +745,12 @@ public class HttpRemoteTask
     }
 
     /**
-     * Continuous update loop for task info.  Wait for a short period for task state to change, and
-     * if it does not, return the current state of the task.  This will cause stats to be updated at a
-     * regular interval, and state changes will be immediately recorded.
+     * Continuous update loop for task status.  Wait for a short period for task state to change, and
+     * if it does not, return the current status of the task.  This will cause the split counts and
+     * memory to be updated at a regular interval, and state changes will be immediately recorded.
      */
-    private class ContinuousTaskInfoFetcher
-            implements SimpleHttpResponseCallback<TaskInfo>
+    private class ContinuousTaskStatusFetcher
+            implements SimpleHttpResponseCallback<TaskStatus>
     {
         private final Duration refreshMaxWait;
 
@@ -650,9 +758,9 @@ public class HttpRemoteTask
         private boolean running;
 
         @GuardedBy("this")
-        private ListenableFuture<JsonResponse<TaskInfo>> future;
+        private ListenableFuture<SmileResponse<TaskStatus>> future;
 
-        public ContinuousTaskInfoFetcher(Duration refreshMaxWait)
+        public ContinuousTaskStatusFetcher(Duration refreshMaxWait)
         {
             this.refreshMaxWait = refreshMaxWait;
         }
@@ -679,8 +787,8 @@ public class HttpRemoteTask
         private synchronized void scheduleNextRequest()
         {
             // stopped or done?
-            TaskInfo taskInfo = HttpRemoteTask.this.taskInfo.get();
-            if (!running || taskInfo.getState().isDone()) {
+            TaskStatus taskStatus = getTaskStatus();
+            if (!running || taskStatus.getState().isDone()) {
                 return;
             }
 
@@ -692,26 +800,34 @@ public class HttpRemoteTask
             }
 
             Request request = prepareGet()
-                    .setUri(uriBuilderFrom(taskInfo.getSelf()).addParameter("summarize").build())
-                    .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.JSON_UTF_8.toString())
-                    .setHeader(PrestoHeaders.PRESTO_CURRENT_STATE, taskInfo.getState().toString())
+                    .setUri(uriBuilderFrom(taskStatus.getSelf()).appendPath("status").build())
+                    .setHeader(HttpHeaders.ACCEPT, ACCEPT_SMILE_OR_JSON)
+                    .setHeader(PrestoHeaders.PRESTO_CURRENT_STATE, taskStatus.getState().toString())
                     .setHeader(PrestoHeaders.PRESTO_MAX_WAIT, refreshMaxWait.toString())
                     .build();
 
-            future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec));
+            future = httpClient.executeAsync(request, taskStatusResponseHandler);
             Futures.addCallback(future, new SimpleHttpResponseHandler<>(this, request.getUri()), executor);
         }
 
         @Override
-        public void success(TaskInfo value)
+        public void success(TaskStatus value)
         {
-            try (SetThreadName ignored = new SetThreadName("ContinuousTaskInfoFetcher-%s", taskId)) {
+            try (SetThreadName ignored = new SetThreadName("ContinuousTaskStatusFetcher-%s", taskId)) {
                 synchronized (this) {
                     future = null;
                 }
 
                 try {
-                    updateTaskInfo(value, ImmutableList.<TaskSource>of());
+                    if (value.getState().isDone()) {
+                        // the state can not change anymore, so stop polling and publish
+                        // the final state once the final stats of the task are fetched
+                        stop();
+                        taskInfoFetcher.fetchFinalTaskInfo(value);
+                    }
+                    else {
+                        updateTaskStatus(value);
+                    }
                     getErrorTracker.requestSucceeded();
                 }
                 finally {
@@ -723,15 +839,15 @@ public class HttpRemoteTask
         @Override
         public void failed(Throwable cause)
         {
-            try (SetThreadName ignored = new SetThreadName("ContinuousTaskInfoFetcher-%s", taskId)) {
+            try (SetThreadName ignored = new SetThreadName("ContinuousTaskStatusFetcher-%s", taskId)) {
                 synchronized (this) {
                     future = null;
                 }
 
                 try {
                     // if task not already done, record error
-                    TaskInfo taskInfo = getTaskInfo();
-                    if (!taskInfo.getState().isDone()) {
+                    TaskStatus taskStatus = getTaskStatus();
+                    if (!taskStatus.getState().isDone()) {
                         getErrorTracker.requestFailed(cause);
                     }
                 }
@@ -755,7 +871,147 @@ public class HttpRemoteTask
         @Override
         public void fatal(Throwable cause)
         {
-            try (SetThreadName ignored = new SetThreadName("ContinuousTaskInfoFetcher-%s", taskId)) {
+            try (SetThreadName ignored = new SetThreadName("ContinuousTaskStatusFetcher-%s", taskId)) {
+                synchronized (this) {
+                    future = null;
+                }
+
+                failTask(cause);
+            }
+        }
+    }
+
+    /**
+     * Fetches the full task info, which contains the stats of every pipeline, at a low
+     * frequency and once more when the task is done. The info is only used for reporting,
+     * since the state of the task is tracked with the {@link ContinuousTaskStatusFetcher}.
+     */
+    private class TaskInfoFetcher
+            implements SimpleHttpResponseCallback<TaskInfo>
+    {
+        private final Duration updateInterval;
+
+        @GuardedBy("this")
+        private ScheduledFuture<?> scheduledFuture;
+
+        @GuardedBy("this")
+        private ListenableFuture<SmileResponse<TaskInfo>> future;
+
+        @GuardedBy("this")
+        private TaskStatus finalTaskStatus;
+
+        public TaskInfoFetcher(Duration updateInterval)
+        {
+            this.updateInterval = updateInterval;
+        }
+
+        public synchronized void start()
+        {
+            if (scheduledFuture != null) {
+                // already running
+                return;
+            }
+            long intervalMillis = updateInterval.toMillis();
+            scheduledFuture = updateScheduledExecutor.scheduleWithFixedDelay(this::scheduleNextRequest, intervalMillis, intervalMillis, MILLISECONDS);
+        }
+
+        /**
+         * Fetches the info of a task the worker reported done. The final status is
+         * published along with the final info, or by itself if the info can not be fetched.
+         */
+        public synchronized void fetchFinalTaskInfo(TaskStatus taskStatus)
+        {
+            if (finalTaskStatus != null) {
+                return;
+            }
+            finalTaskStatus = taskStatus;
+            stopUpdates();
+            sendRequest(taskStatus.getSelf());
+        }
+
+        private synchronized void stopUpdates()
+        {
+            if (scheduledFuture != null) {
+                scheduledFuture.cancel(false);
+            }
+            if (future != null) {
+                future.cancel(true);
+                future = null;
+            }
+        }
+
+        private synchronized void scheduleNextRequest()
+        {
+            // done or waiting for the final info?
+            TaskStatus taskStatus = getTaskStatus();
+            if (taskStatus.getState().isDone() || finalTaskStatus != null) {
+                stopUpdates();
+                return;
+            }
+
+            // the previous request is still running, so skip this update
+            if (future != null && !future.isDone()) {
+                return;
+            }
+
+            sendRequest(taskStatus.getSelf());
+        }
+
+        @GuardedBy("this")
+        private void sendRequest(URI uri)
+        {
+            Request request = prepareGet()
+                    .setUri(uriBuilderFrom(uri).addParameter("summarize").build())
+                    .setHeader(HttpHeaders.ACCEPT, ACCEPT_SMILE_OR_JSON)
+                    .build();
+
+            future = httpClient.executeAsync(request, taskInfoResponseHandler);
+            Futures.addCallback(future, new SimpleHttpResponseHandler<>(this, request.getUri()), executor);
+        }
+
+        @Override
+        public void success(TaskInfo value)
+        {
+            try (SetThreadName ignored = new SetThreadName("TaskInfoFetcher-%s", taskId)) {
+                synchronized (this) {
+                    future = null;
+                }
+
+                updateTaskInfo(value);
+            }
+        }
+
+        @Override
+        public void failed(Throwable cause)
+        {
+            try (SetThreadName ignored = new SetThreadName("TaskInfoFetcher-%s", taskId)) {
+                // requests are canceled when the final info is fetched
+                if (cause instanceof CancellationException) {
+                    return;
+                }
+
+                TaskStatus finalTaskStatus;
+                synchronized (this) {
+                    future = null;
+                    finalTaskStatus = this.finalTaskStatus;
+                }
+
+                if (finalTaskStatus != null) {
+                    // the task is done, so publish the final state without the final stats
+                    logError(cause, "Unable to fetch final info of task %s", taskId);
+                    setFinalStatus(finalTaskStatus);
+                    return;
+                }
+
+                // errors are tracked by the status fetcher, and the next update retries
+                log.debug(cause, "Error fetching info of task %s", taskId);
+            }
+        }
+
+        @Override
+        public void fatal(Throwable cause)
+        {
+            try (SetThreadName ignored = new SetThreadName("TaskInfoFetcher-%s", taskId)) {
                 synchronized (this) {
                     future = null;
                 }
@@ -766,7 +1022,7 @@ public class HttpRemoteTask
     }
 
     public static class SimpleHttpResponseHandler<T>
-            implements FutureCallback<JsonResponse<T>>
+            implements FutureCallback<SmileResponse<T>>
     {
         private final SimpleHttpResponseCallback<T> callback;
 
@@ -779,7 +1035,7 @@ public class HttpRemoteTask
         }
 
         @Override
-        public void onSuccess(JsonResponse<T> response)
+        public void onSuccess(SmileResponse<T> response)
         {
             try {
                 if (response.getStatusCode() == HttpStatus.OK.code() && response.hasValue()) {
@@ -22,11 +22,13 @@ import com.facebook.presto.execution.RemoteTaskFactory;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.ForScheduler;
 import com.facebook.presto.spi.Node;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Multimap;
 import io.airlift.concurrent.BoundedExecutor;
 import io.airlift.concurrent.ExecutorServiceAdapter;
@@ -37,45 +39,66 @@ import io.airlift.units.Duration;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 
 public class HttpRemoteTaskFactory
         implements RemoteTaskFactory
 {
     private final HttpClient httpClient;
     private final LocationFactory locationFactory;
+    private final JsonCodec<TaskStatus> taskStatusCodec;
+    private final SmileCodec<TaskStatus> taskStatusSmileCodec;
     private final JsonCodec<TaskInfo> taskInfoCodec;
-    private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
+    private final SmileCodec<TaskInfo> taskInfoSmileCodec;
+    private final SmileCodec<TaskUpdateRequest> taskUpdateRequestCodec;
     private final int maxConsecutiveErrorCount;
     private final Duration minErrorDuration;
     private final Duration taskInfoRefreshMaxWait;
+    private final Duration taskInfoUpdateInterval;
     private final ExecutorService executor;
     private final ThreadPoolExecutorMBean executorMBean;
+    private final ScheduledExecutorService updateScheduledExecutor;
+    private final RemoteTaskStats stats = new RemoteTaskStats();
 
     @Inject
     public HttpRemoteTaskFactory(QueryManagerConfig config,
             TaskManagerConfig taskConfig,
             @ForScheduler HttpClient httpClient,
             LocationFactory locationFactory,
+            JsonCodec<TaskStatus> taskStatusCodec,
             JsonCodec<TaskInfo> taskInfoCodec,
-            JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec)
+            ObjectMapper objectMapper)
     {
         this.httpClient = httpClient;
         this.locationFactory = locationFactory;
+        this.taskStatusCodec = taskStatusCodec;
+        this.taskStatusSmileCodec = new SmileCodec<>(objectMapper, TaskStatus.class);
         this.taskInfoCodec = taskInfoCodec;
-        this.taskUpdateRequestCodec = taskUpdateRequestCodec;
+        this.taskInfoSmileCodec = new SmileCodec<>(objectMapper, TaskInfo.class);
+        this.taskUpdateRequestCodec = new SmileCodec<>(objectMapper, TaskUpdateRequest.class);
         this.maxConsecutiveErrorCount = config.getRemoteTaskMaxConsecutiveErrorCount();
         this.minErrorDuration = config.getRemoteTaskMinErrorDuration();
         this.taskInfoRefreshMaxWait = taskConfig.getInfoRefreshMaxWait();
+        this.taskInfoUpdateInterval = taskConfig.getInfoUpdateInterval();
         ExecutorService coreExecutor = newCachedThreadPool(daemonThreadsNamed("remote-task-callback-%s"));
         this.executor = ExecutorServiceAdapter.from(new BoundedExecutor(coreExecutor, config.getRemoteTaskMaxCallbackThreads()));
         this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) coreExecutor);
+        this.updateScheduledExecutor = newSingleThreadScheduledExecutor(daemonThreadsNamed("task-info-update-scheduler-%s"));
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        updateScheduledExecutor.shutdownNow();
     }
 
     @Managed
@@ -85,6 +108,13 @@ public class HttpRemoteTaskFactory
         return executorMBean;
     }
 
+    @Managed
+    @Nested
+    public RemoteTaskStats getStats()
+    {
+        return stats;
+    }
+
     @Override
     public RemoteTask createRemoteTask(Session session,
             TaskId taskId,
@@ -102,11 +132,17 @@ public class HttpRemoteTaskFactory
                 outputBuffers,
                 httpClient,
                 executor,
+                updateScheduledExecutor,
                 maxConsecutiveErrorCount,
                 minErrorDuration,
                 taskInfoRefreshMaxWait,
+                taskInfoUpdateInterval,
+                taskStatusCodec,
+                taskStatusSmileCodec,
                 taskInfoCodec,
-                taskUpdateRequestCodec
+                taskInfoSmileCodec,
+                taskUpdateRequestCodec,
+                stats
         );
     }
 }
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.server;
 
+import com.facebook.presto.block.CompressedPagesSerde;
 import com.facebook.presto.block.PagesSerde;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
@@ -20,6 +21,7 @@ import com.google.common.base.Throwables;
 import com.google.common.reflect.TypeToken;
 import io.airlift.slice.OutputStreamSliceOutput;
 import io.airlift.slice.RuntimeIOException;
+import io.airlift.slice.SliceOutput;
 
 import javax.inject.Inject;
 import javax.ws.rs.Produces;
@@ -37,6 +39,8 @@ import java.lang.reflect.Type;
 import java.util.List;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.block.CompressedPagesSerde.SNAPPY_CODEC;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_COMPRESSION;
 
 @Provider
 @Produces(PRESTO_PAGES)
@@ -88,7 +92,13 @@ public class PagesResponseWriter
             throws IOException, WebApplicationException
     {
         try {
-            PagesSerde.writePages(blockEncodingSerde, new OutputStreamSliceOutput(output), pages);
+            SliceOutput sliceOutput = new OutputStreamSliceOutput(output);
+            if (SNAPPY_CODEC.equals(httpHeaders.getFirst(PRESTO_PAGE_COMPRESSION))) {
+                CompressedPagesSerde.writePages(blockEncodingSerde, sliceOutput, pages);
+            }
+            else {
+                PagesSerde.writePages(blockEncodingSerde, sliceOutput, pages);
+            }
         }
         catch (RuntimeIOException e) {
             // EOF exception occurs when the client disconnects while writing data
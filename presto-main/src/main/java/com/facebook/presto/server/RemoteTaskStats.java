@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.google.common.collect.Sets;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.DistributionStat;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.util.Set;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+public final class RemoteTaskStats
+{
+    private final CounterStat updateRequestBytes = new CounterStat();
+    private final DistributionStat updateRequestSize = new DistributionStat();
+    private final DistributionStat taskUpdateBytesPerSecond = new DistributionStat();
+    private final Set<CounterStat> runningTaskUpdateBytes = Sets.newConcurrentHashSet();
+
+    /**
+     * Tracks the update bytes of a new remote task, so its rate is visible while the task runs.
+     */
+    public void taskCreated(CounterStat taskUpdateBytes)
+    {
+        runningTaskUpdateBytes.add(taskUpdateBytes);
+    }
+
+    public void updateRequestSent(CounterStat taskUpdateBytes, long bytes)
+    {
+        taskUpdateBytes.update(bytes);
+        updateRequestBytes.update(bytes);
+        updateRequestSize.add(bytes);
+    }
+
+    /**
+     * Stops tracking a remote task, and records the average rate of the update requests
+     * sent to it over its lifetime.
+     */
+    public void taskFinished(CounterStat taskUpdateBytes, Duration elapsed)
+    {
+        runningTaskUpdateBytes.remove(taskUpdateBytes);
+        double seconds = Math.max(elapsed.getValue(SECONDS), 1);
+        taskUpdateBytesPerSecond.add((long) (taskUpdateBytes.getTotalCount() / seconds));
+    }
+
+    @Managed
+    public int getRunningTasks()
+    {
+        return runningTaskUpdateBytes.size();
+    }
+
+    @Managed
+    public double getMaxRunningTaskUpdateBytesPerSecond()
+    {
+        return runningTaskUpdateBytes.stream()
+                .mapToDouble(taskUpdateBytes -> taskUpdateBytes.getOneMinute().getRate())
+                .max()
+                .orElse(0);
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getUpdateRequestBytes()
+    {
+        return updateRequestBytes;
+    }
+
+    @Managed
+    @Nested
+    public DistributionStat getUpdateRequestSize()
+    {
+        return updateRequestSize;
+    }
+
+    @Managed
+    @Nested
+    public DistributionStat getTaskUpdateBytesPerSecond()
+    {
+        return taskUpdateBytesPerSecond;
+    }
+}
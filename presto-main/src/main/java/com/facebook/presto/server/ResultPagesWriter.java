@@ -0,0 +1,91 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.RuntimeIOException;
+import io.airlift.slice.SliceOutput;
+
+import javax.inject.Inject;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import static com.facebook.presto.client.ColumnarQueryResults.PRESTO_COLUMNAR_PAGES;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes the pages of task results for clients that read the output of a query directly from the workers.
+ */
+@Provider
+@Produces(PRESTO_COLUMNAR_PAGES)
+public class ResultPagesWriter
+        implements MessageBodyWriter<ResultPages>
+{
+    private static final MediaType PRESTO_COLUMNAR_PAGES_TYPE = MediaType.valueOf(PRESTO_COLUMNAR_PAGES);
+
+    private final ObjectMapper objectMapper;
+
+    @Inject
+    public ResultPagesWriter(ObjectMapper objectMapper)
+    {
+        this.objectMapper = checkNotNull(objectMapper, "objectMapper is null");
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return ResultPages.class.isAssignableFrom(type) && mediaType.isCompatible(PRESTO_COLUMNAR_PAGES_TYPE);
+    }
+
+    @Override
+    public long getSize(ResultPages resultPages, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(ResultPages resultPages,
+            Class<?> type,
+            Type genericType,
+            Annotation[] annotations,
+            MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders,
+            OutputStream output)
+            throws IOException, WebApplicationException
+    {
+        try {
+            SliceOutput sliceOutput = new OutputStreamSliceOutput(output);
+            ColumnarQueryResultsWriter.writePages(sliceOutput, resultPages, objectMapper);
+            sliceOutput.flush();
+        }
+        catch (RuntimeIOException e) {
+            // EOF exception occurs when the client disconnects while writing data
+            // This is not a "server" problem so we don't want to log this
+            if (!(e.getCause() instanceof EOFException)) {
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.String.format;
+
+/**
+ * Encodes values as Smile, the binary form of JSON, with the serializers of
+ * the given (JSON) object mapper. This is the same encoding the server side
+ * {@link io.airlift.jaxrs.SmileMapper} writes.
+ */
+public class SmileCodec<T>
+{
+    private static final SmileFactory SMILE_FACTORY = new SmileFactory();
+
+    private final ObjectMapper objectMapper;
+    private final Class<T> type;
+
+    public SmileCodec(ObjectMapper objectMapper, Class<T> type)
+    {
+        this.objectMapper = checkNotNull(objectMapper, "objectMapper is null");
+        this.type = checkNotNull(type, "type is null");
+    }
+
+    public Class<T> getType()
+    {
+        return type;
+    }
+
+    public byte[] toSmile(T value)
+            throws IllegalArgumentException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = SMILE_FACTORY.createGenerator(out)) {
+            objectMapper.writeValue(generator, value);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(format("%s could not be converted to Smile", type.getName()), e);
+        }
+        return out.toByteArray();
+    }
+
+    public T fromSmile(byte[] bytes)
+            throws IllegalArgumentException
+    {
+        try (JsonParser parser = SMILE_FACTORY.createParser(bytes)) {
+            // deserializers that read nested values through the parser need the codec
+            parser.setCodec(objectMapper);
+            return objectMapper.readValue(parser, type);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(format("Invalid Smile bytes for %s", type.getName()), e);
+        }
+    }
+}
@@ -33,15 +33,13 @@ import com.facebook.presto.execution.StageState;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.operator.ExchangeClient;
-import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ErrorCode;
 import com.facebook.presto.spi.Page;
-import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.StandardTypes;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeSignature;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.AbstractIterator;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -58,6 +56,7 @@ import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -72,10 +71,9 @@ import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -86,7 +84,9 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
+import static com.facebook.presto.client.ColumnarQueryResults.PRESTO_COLUMNAR_RESULTS;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLEAR_SESSION;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_DIRECT_RESULTS;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SET_SESSION;
 import static com.facebook.presto.server.ResourceUtil.assertRequest;
 import static com.facebook.presto.server.ResourceUtil.createSessionForRequest;
@@ -103,6 +103,7 @@ import static java.lang.String.format;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT;
 
 @Path("/v1/statement")
 public class StatementResource
@@ -112,6 +113,8 @@ public class StatementResource
     private static final Duration MAX_WAIT_TIME = new Duration(1, SECONDS);
     private static final Ordering<Comparable<Duration>> WAIT_ORDERING = Ordering.natural().nullsLast();
     private static final long DESIRED_RESULT_BYTES = new DataSize(1, MEGABYTE).toBytes();
+    private static final Splitter ACCEPT_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+    private static final Splitter PARAMETER_SPLITTER = Splitter.on(';').trimResults();
 
     private final QueryManager queryManager;
     private final Supplier<ExchangeClient> exchangeClientSupplier;
@@ -135,9 +138,11 @@ public class StatementResource
     }
 
     @POST
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, PRESTO_COLUMNAR_RESULTS})
     public Response createQuery(
             String statement,
+            @HeaderParam(ACCEPT) String accept,
+            @HeaderParam(PRESTO_DIRECT_RESULTS) String directResults,
             @Context HttpServletRequest servletRequest,
             @Context UriInfo uriInfo)
             throws InterruptedException
@@ -147,19 +152,20 @@ public class StatementResource
         Session session = createSessionForRequest(servletRequest);
 
         ExchangeClient exchangeClient = exchangeClientSupplier.get();
-        Query query = new Query(session, statement, queryManager, exchangeClient);
+        Query query = new Query(session, statement, queryManager, exchangeClient, Boolean.parseBoolean(directResults));
         queries.put(query.getQueryId(), query);
 
-        return getQueryResults(query, Optional.empty(), uriInfo, new Duration(1, MILLISECONDS));
+        return getQueryResults(query, Optional.empty(), uriInfo, new Duration(1, MILLISECONDS), acceptsColumnarResults(accept));
     }
 
     @GET
     @Path("{queryId}/{token}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, PRESTO_COLUMNAR_RESULTS})
     public Response getQueryResults(
             @PathParam("queryId") QueryId queryId,
             @PathParam("token") long token,
             @QueryParam("maxWait") Duration maxWait,
+            @HeaderParam(ACCEPT) String accept,
             @Context UriInfo uriInfo)
             throws InterruptedException
     {
@@ -169,10 +175,10 @@ public class StatementResource
         }
 
         Duration wait = WAIT_ORDERING.min(MAX_WAIT_TIME, maxWait);
-        return getQueryResults(query, Optional.of(token), uriInfo, wait);
+        return getQueryResults(query, Optional.of(token), uriInfo, wait, acceptsColumnarResults(accept));
     }
 
-    private static Response getQueryResults(Query query, Optional<Long> token, UriInfo uriInfo, Duration wait)
+    private static Response getQueryResults(Query query, Optional<Long> token, UriInfo uriInfo, Duration wait, boolean columnarResults)
             throws InterruptedException
     {
         QueryResults queryResults;
@@ -183,7 +189,7 @@ public class StatementResource
             queryResults = query.getNextResults(uriInfo, wait);
         }
 
-        ResponseBuilder response = Response.ok(queryResults);
+        ResponseBuilder response = Response.ok(queryResults, columnarResults ? PRESTO_COLUMNAR_RESULTS : MediaType.APPLICATION_JSON);
 
         // add set session properties
         query.getSetSessionProperties().entrySet().stream()
@@ -196,6 +202,19 @@ public class StatementResource
         return response.build();
     }
 
+    private static boolean acceptsColumnarResults(String accept)
+    {
+        if (accept == null) {
+            return false;
+        }
+        for (String mediaRange : ACCEPT_SPLITTER.split(accept)) {
+            if (PARAMETER_SPLITTER.split(mediaRange).iterator().next().equalsIgnoreCase(PRESTO_COLUMNAR_RESULTS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @DELETE
     @Path("{queryId}/{token}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -216,6 +235,7 @@ public class StatementResource
         private final QueryManager queryManager;
         private final QueryId queryId;
         private final ExchangeClient exchangeClient;
+        private final boolean directResultsRequested;
 
         private final AtomicLong resultId = new AtomicLong();
         private final Session session;
@@ -238,10 +258,18 @@ public class StatementResource
         @GuardedBy("this")
         private Long updateCount;
 
+        // set when the client reads the data from the output buffers instead of the exchange client
+        @GuardedBy("this")
+        private boolean directResults;
+
+        @GuardedBy("this")
+        private final Set<URI> dataUris = new LinkedHashSet<>();
+
         public Query(Session session,
                 String query,
                 QueryManager queryManager,
-                ExchangeClient exchangeClient)
+                ExchangeClient exchangeClient,
+                boolean directResultsRequested)
         {
             checkNotNull(session, "session is null");
             checkNotNull(query, "query is null");
@@ -254,6 +282,7 @@ public class StatementResource
             QueryInfo queryInfo = queryManager.createQuery(session, query);
             queryId = queryInfo.getQueryId();
             this.exchangeClient = exchangeClient;
+            this.directResultsRequested = directResultsRequested;
         }
 
         public void cancel()
@@ -367,6 +396,7 @@ public class StatementResource
                     nextResultsUri,
                     columns,
                     data,
+                    directResults ? ImmutableList.copyOf(dataUris) : null,
                     toStatementStats(queryInfo),
                     toQueryError(queryInfo),
                     queryInfo.getUpdateType(),
@@ -403,11 +433,22 @@ public class StatementResource
                 columns = createColumnsList(queryInfo);
             }
 
+            // the client reads the data from the output buffers, unless the data
+            // contains the update count which is returned by the coordinator
+            if (directResultsRequested && queryInfo.getUpdateType() == null) {
+                directResults = true;
+                exchangeClient.close();
+                if (!queryInfo.getOutputStage().getState().isDone()) {
+                    dataUris.addAll(getOutputLocations(queryInfo.getOutputStage()));
+                }
+                return null;
+            }
+
             List<Type> types = queryInfo.getOutputStage().getTypes();
 
             updateExchangeClient(queryInfo.getOutputStage());
 
-            ImmutableList.Builder<RowIterable> pages = ImmutableList.builder();
+            ImmutableList.Builder<Page> pages = ImmutableList.builder();
             // wait up to max wait for data to arrive; then try to return at least DESIRED_RESULT_BYTES
             long bytes = 0;
             while (bytes < DESIRED_RESULT_BYTES) {
@@ -416,7 +457,7 @@ public class StatementResource
                     break;
                 }
                 bytes += page.getSizeInBytes();
-                pages.add(new RowIterable(session.toConnectorSession(), types, page));
+                pages.add(page);
 
                 // only wait on first call
                 maxWait = new Duration(0, MILLISECONDS);
@@ -426,7 +467,7 @@ public class StatementResource
                 return null;
             }
 
-            return Iterables.concat(pages.build());
+            return new ResultPages(session.toConnectorSession(), types, pages.build());
         }
 
         private static boolean isQueryStarted(QueryInfo queryInfo)
@@ -439,21 +480,8 @@ public class StatementResource
         {
             // add any additional output locations
             if (!outputStage.getState().isDone()) {
-                for (TaskInfo taskInfo : outputStage.getTasks()) {
-                    SharedBufferInfo outputBuffers = taskInfo.getOutputBuffers();
-                    List<BufferInfo> buffers = outputBuffers.getBuffers();
-                    if (buffers.isEmpty() || outputBuffers.getState().canAddBuffers()) {
-                        // output buffer has not been created yet
-                        continue;
-                    }
-                    Preconditions.checkState(buffers.size() == 1,
-                            "Expected a single output buffer for task %s, but found %s",
-                            taskInfo.getTaskId(),
-                            buffers);
-
-                    TaskId bufferId = Iterables.getOnlyElement(buffers).getBufferId();
-                    URI uri = uriBuilderFrom(taskInfo.getSelf()).appendPath("results").appendPath(bufferId.toString()).build();
-                    exchangeClient.addLocation(uri);
+                for (URI location : getOutputLocations(outputStage)) {
+                    exchangeClient.addLocation(location);
                 }
             }
 
@@ -462,6 +490,27 @@ public class StatementResource
             }
         }
 
+        private static List<URI> getOutputLocations(StageInfo outputStage)
+        {
+            ImmutableList.Builder<URI> locations = ImmutableList.builder();
+            for (TaskInfo taskInfo : outputStage.getTasks()) {
+                SharedBufferInfo outputBuffers = taskInfo.getOutputBuffers();
+                List<BufferInfo> buffers = outputBuffers.getBuffers();
+                if (buffers.isEmpty() || outputBuffers.getState().canAddBuffers()) {
+                    // output buffer has not been created yet
+                    continue;
+                }
+                Preconditions.checkState(buffers.size() == 1,
+                        "Expected a single output buffer for task %s, but found %s",
+                        taskInfo.getTaskId(),
+                        buffers);
+
+                TaskId bufferId = Iterables.getOnlyElement(buffers).getBufferId();
+                locations.add(uriBuilderFrom(taskInfo.getSelf()).appendPath("results").appendPath(bufferId.toString()).build());
+            }
+            return locations.build();
+        }
+
         private static boolean allOutputBuffersCreated(StageInfo outputStage)
         {
             StageState stageState = outputStage.getState();
@@ -644,60 +693,6 @@ public class StatementResource
                     failure.getErrorLocation(),
                     failure);
         }
-
-        private static class RowIterable
-                implements Iterable<List<Object>>
-        {
-            private final ConnectorSession session;
-            private final List<Type> types;
-            private final Page page;
-
-            private RowIterable(ConnectorSession session, List<Type> types, Page page)
-            {
-                this.session = session;
-                this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
-                this.page = checkNotNull(page, "page is null");
-            }
-
-            @Override
-            public Iterator<List<Object>> iterator()
-            {
-                return new RowIterator(session, types, page);
-            }
-        }
-
-        private static class RowIterator
-                extends AbstractIterator<List<Object>>
-        {
-            private final ConnectorSession session;
-            private final List<Type> types;
-            private final Page page;
-            private int position = -1;
-
-            private RowIterator(ConnectorSession session, List<Type> types, Page page)
-            {
-                this.session = session;
-                this.types = types;
-                this.page = page;
-            }
-
-            @Override
-            protected List<Object> computeNext()
-            {
-                position++;
-                if (position >= page.getPositionCount()) {
-                    return endOfData();
-                }
-
-                List<Object> values = new ArrayList<>(page.getChannelCount());
-                for (int channel = 0; channel < page.getChannelCount(); channel++) {
-                    Type type = types.get(channel);
-                    Block block = page.getBlock(channel);
-                    values.add(type.getObjectValue(session, block, position));
-                }
-                return Collections.unmodifiableList(values);
-            }
-        }
     }
 
     private static class PurgeQueriesRunnable
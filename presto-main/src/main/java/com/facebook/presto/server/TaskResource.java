@@ -18,6 +18,7 @@ import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskManager;
 import com.facebook.presto.execution.TaskState;
+import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.util.MoreFutures;
 import com.google.common.collect.ImmutableList;
@@ -51,9 +52,13 @@ import javax.ws.rs.core.UriInfo;
 import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 
+import static com.facebook.presto.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.block.CompressedPagesSerde.SNAPPY_CODEC;
+import static com.facebook.presto.client.ColumnarQueryResults.PRESTO_COLUMNAR_PAGES;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CURRENT_STATE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_WAIT;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_COMPRESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -61,6 +66,7 @@ import static com.google.common.collect.Iterables.transform;
 import static io.airlift.http.server.AsyncResponseHandler.bindAsyncResponse;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.ws.rs.core.HttpHeaders.ACCEPT;
 
 /**
  * Manages tasks on this worker node
@@ -94,28 +100,25 @@ public class TaskResource
 
     @POST
     @Path("{taskId}")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public Response createOrUpdateTask(@PathParam("taskId") TaskId taskId, TaskUpdateRequest taskUpdateRequest, @Context UriInfo uriInfo)
+    @Consumes({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+    public Response createOrUpdateTask(@PathParam("taskId") TaskId taskId, TaskUpdateRequest taskUpdateRequest)
     {
         checkNotNull(taskUpdateRequest, "taskUpdateRequest is null");
 
-        TaskInfo taskInfo = taskManager.updateTask(taskUpdateRequest.getSession(),
+        // the client only needs to know the update was accepted, so the full task info is not built
+        TaskStatus taskStatus = taskManager.updateTask(taskUpdateRequest.getSession(),
                 taskId,
                 taskUpdateRequest.getFragment(),
                 taskUpdateRequest.getSources(),
                 taskUpdateRequest.getOutputIds());
 
-        if (shouldSummarize(uriInfo)) {
-            taskInfo = taskInfo.summarize();
-        }
-
-        return Response.ok().entity(taskInfo).build();
+        return Response.ok().entity(taskStatus).build();
     }
 
     @GET
     @Path("{taskId}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
     public void getTaskInfo(@PathParam("taskId") final TaskId taskId,
             @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
             @HeaderParam(PRESTO_MAX_WAIT) Duration maxWait,
@@ -149,6 +152,33 @@ public class TaskResource
                 .withTimeout(timeout);
     }
 
+    @GET
+    @Path("{taskId}/status")
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+    public void getTaskStatus(@PathParam("taskId") TaskId taskId,
+            @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
+            @HeaderParam(PRESTO_MAX_WAIT) Duration maxWait,
+            @Suspended AsyncResponse asyncResponse)
+    {
+        checkNotNull(taskId, "taskId is null");
+
+        if (currentState == null || maxWait == null) {
+            asyncResponse.resume(taskManager.getTaskStatus(taskId));
+            return;
+        }
+
+        ListenableFuture<TaskStatus> futureTaskStatus = MoreFutures.addTimeout(
+                taskManager.getTaskStatus(taskId, currentState),
+                () -> taskManager.getTaskStatus(taskId),
+                maxWait,
+                executor);
+
+        // For hard timeout, add an additional 5 seconds to max wait for thread scheduling contention and GC
+        Duration timeout = new Duration(maxWait.toMillis() + 5000, MILLISECONDS);
+        bindAsyncResponse(asyncResponse, futureTaskStatus, executor)
+                .withTimeout(timeout);
+    }
+
     @DELETE
     @Path("{taskId}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -174,16 +204,24 @@ public class TaskResource
 
     @GET
     @Path("{taskId}/results/{outputId}/{token}")
-    @Produces(PRESTO_PAGES)
+    @Produces({PRESTO_PAGES, PRESTO_COLUMNAR_PAGES})
     public void getResults(@PathParam("taskId") TaskId taskId,
             @PathParam("outputId") TaskId outputId,
             @PathParam("token") final long token,
+            @HeaderParam(PRESTO_PAGE_COMPRESSION) String compression,
+            @HeaderParam(ACCEPT) String accept,
             @Suspended AsyncResponse asyncResponse)
             throws InterruptedException
     {
         checkNotNull(taskId, "taskId is null");
         checkNotNull(outputId, "outputId is null");
 
+        // clients reading the output of a query directly get the pages as rows of client values
+        boolean columnar = PRESTO_COLUMNAR_PAGES.equals(accept);
+
+        // pages are only compressed if the client asked for a codec we support
+        boolean compressed = !columnar && SNAPPY_CODEC.equals(compression);
+
         ListenableFuture<BufferResult> bufferResultFuture = taskManager.getTaskResults(taskId, outputId, token, DEFAULT_MAX_SIZE);
         bufferResultFuture = MoreFutures.addTimeout(
                 bufferResultFuture,
@@ -194,9 +232,13 @@ public class TaskResource
         ListenableFuture<Response> responseFuture = Futures.transform(bufferResultFuture, (BufferResult result) -> {
             List<Page> pages = result.getPages();
 
-            GenericEntity<?> entity = null;
+            Object entity = null;
             Status status;
-            if (!pages.isEmpty()) {
+            if (!pages.isEmpty() && columnar) {
+                entity = new ResultPages(taskManager.getTaskSession(taskId), taskManager.getTaskOutputTypes(taskId), pages);
+                status = Status.OK;
+            }
+            else if (!pages.isEmpty()) {
                 entity = new GenericEntity<>(pages, new TypeToken<List<Page>>() {}.getType());
                 status = Status.OK;
             }
@@ -207,11 +249,15 @@ public class TaskResource
                 status = Status.NO_CONTENT;
             }
 
-            return Response.status(status)
+            Response.ResponseBuilder response = Response.status(status)
                     .entity(entity)
+                    .type(columnar ? PRESTO_COLUMNAR_PAGES : PRESTO_PAGES)
                     .header(PRESTO_PAGE_TOKEN, result.getToken())
-                    .header(PRESTO_PAGE_NEXT_TOKEN, result.getNextToken())
-                    .build();
+                    .header(PRESTO_PAGE_NEXT_TOKEN, result.getNextToken());
+            if (compressed && entity != null) {
+                response.header(PRESTO_PAGE_COMPRESSION, SNAPPY_CODEC);
+            }
+            return response.build();
         });
 
         // For hard timeout, add an additional 5 seconds to max wait for thread scheduling contention and GC
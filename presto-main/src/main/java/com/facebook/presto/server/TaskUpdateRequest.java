@@ -23,20 +23,21 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
+import java.util.Optional;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 
 public class TaskUpdateRequest
 {
     private final Session session;
-    private final PlanFragment fragment;
+    private final Optional<PlanFragment> fragment;
     private final List<TaskSource> sources;
     private final OutputBuffers outputIds;
 
     @JsonCreator
     public TaskUpdateRequest(
             @JsonProperty("session") Session session,
-            @JsonProperty("fragment") PlanFragment fragment,
+            @JsonProperty("fragment") Optional<PlanFragment> fragment,
             @JsonProperty("sources") List<TaskSource> sources,
             @JsonProperty("outputIds") OutputBuffers outputIds)
     {
@@ -58,7 +59,7 @@ public class TaskUpdateRequest
     }
 
     @JsonProperty
-    public PlanFragment getFragment()
+    public Optional<PlanFragment> getFragment()
     {
         return fragment;
     }
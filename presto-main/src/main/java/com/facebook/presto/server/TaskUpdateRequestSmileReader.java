@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+
+import javax.inject.Inject;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import static com.facebook.presto.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
+
+/**
+ * Reads a Smile task update. The generic {@link io.airlift.jaxrs.SmileMapper} creates its
+ * parser without a codec, so the expression and slice deserializers of the plan fragment
+ * can not read their values through it.
+ */
+@Provider
+@Consumes(APPLICATION_JACKSON_SMILE)
+public class TaskUpdateRequestSmileReader
+        implements MessageBodyReader<TaskUpdateRequest>
+{
+    private static final MediaType JACKSON_SMILE_TYPE = MediaType.valueOf(APPLICATION_JACKSON_SMILE);
+
+    private final SmileCodec<TaskUpdateRequest> codec;
+
+    @Inject
+    public TaskUpdateRequestSmileReader(ObjectMapper objectMapper)
+    {
+        this.codec = new SmileCodec<>(objectMapper, TaskUpdateRequest.class);
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return TaskUpdateRequest.class.isAssignableFrom(type) && mediaType.isCompatible(JACKSON_SMILE_TYPE);
+    }
+
+    @Override
+    public TaskUpdateRequest readFrom(Class<TaskUpdateRequest> type,
+            Type genericType,
+            Annotation[] annotations,
+            MediaType mediaType,
+            MultivaluedMap<String, String> httpHeaders,
+            InputStream input)
+            throws IOException, WebApplicationException
+    {
+        try {
+            return codec.fromSmile(ByteStreams.toByteArray(input));
+        }
+        catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+    }
+}
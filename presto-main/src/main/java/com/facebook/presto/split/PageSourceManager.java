@@ -17,6 +17,7 @@ import com.facebook.presto.metadata.Split;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorPageSourceProvider;
+import com.facebook.presto.spi.TupleDomain;
 
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
@@ -44,6 +45,16 @@ public class PageSourceManager
         return getPageSourceProvider(split).createPageSource(split.getConnectorSplit(), columns);
     }
 
+    @Override
+    public ConnectorPageSource createPageSource(Split split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        checkNotNull(split, "split is null");
+        checkNotNull(columns, "columns is null");
+        checkNotNull(dynamicFilter, "dynamicFilter is null");
+
+        return getPageSourceProvider(split).createPageSource(split.getConnectorSplit(), columns, dynamicFilter);
+    }
+
     private ConnectorPageSourceProvider getPageSourceProvider(Split split)
     {
         ConnectorPageSourceProvider provider = pageSourceProviders.get(split.getConnectorId());
@@ -16,10 +16,16 @@ package com.facebook.presto.split;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.TupleDomain;
 
 import java.util.List;
 
 public interface PageSourceProvider
 {
     ConnectorPageSource createPageSource(Split split, List<ColumnHandle> columns);
+
+    default ConnectorPageSource createPageSource(Split split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        return createPageSource(split, columns);
+    }
 }
@@ -15,6 +15,11 @@ package com.facebook.presto.sql.analyzer;
 
 import io.airlift.configuration.Config;
 import io.airlift.configuration.LegacyConfig;
+import io.airlift.units.DataSize;
+
+import javax.validation.constraints.NotNull;
+
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 public class FeaturesConfig
 {
@@ -25,6 +30,9 @@ public class FeaturesConfig
     private boolean optimizeMetadataQueries;
     private boolean optimizeHashGeneration;
     private boolean optimizeSingleDistinct = true;
+    private boolean reorderJoins;
+    private boolean automaticJoinDistribution;
+    private DataSize broadcastJoinMaxBuildSize = new DataSize(100, MEGABYTE);
 
     @LegacyConfig("analyzer.experimental-syntax-enabled")
     @Config("experimental-syntax-enabled")
@@ -110,4 +118,41 @@ public class FeaturesConfig
         this.optimizeSingleDistinct = optimizeSingleDistinct;
         return this;
     }
+
+    public boolean isReorderJoins()
+    {
+        return reorderJoins;
+    }
+
+    @Config("optimizer.reorder-joins")
+    public FeaturesConfig setReorderJoins(boolean reorderJoins)
+    {
+        this.reorderJoins = reorderJoins;
+        return this;
+    }
+
+    public boolean isAutomaticJoinDistribution()
+    {
+        return automaticJoinDistribution;
+    }
+
+    @Config("optimizer.automatic-join-distribution")
+    public FeaturesConfig setAutomaticJoinDistribution(boolean automaticJoinDistribution)
+    {
+        this.automaticJoinDistribution = automaticJoinDistribution;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getBroadcastJoinMaxBuildSize()
+    {
+        return broadcastJoinMaxBuildSize;
+    }
+
+    @Config("optimizer.broadcast-join-max-build-size")
+    public FeaturesConfig setBroadcastJoinMaxBuildSize(DataSize broadcastJoinMaxBuildSize)
+    {
+        this.broadcastJoinMaxBuildSize = broadcastJoinMaxBuildSize;
+        return this;
+    }
 }
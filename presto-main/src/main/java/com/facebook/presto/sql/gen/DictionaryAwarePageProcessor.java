@@ -0,0 +1,375 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.presto.metadata.FunctionInfo;
+import com.facebook.presto.metadata.FunctionRegistry;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.operator.PageProcessor;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.LazySliceArrayBlock;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.relational.CallExpression;
+import com.facebook.presto.sql.relational.ConstantExpression;
+import com.facebook.presto.sql.relational.Expressions;
+import com.facebook.presto.sql.relational.InputReferenceExpression;
+import com.facebook.presto.sql.relational.RowExpression;
+import com.facebook.presto.sql.relational.RowExpressionVisitor;
+import com.facebook.presto.sql.tree.QualifiedName;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.sql.relational.Expressions.constant;
+import static com.facebook.presto.sql.relational.Expressions.field;
+import static com.facebook.presto.sql.relational.Signatures.CAST;
+import static com.facebook.presto.sql.relational.Signatures.COALESCE;
+import static com.facebook.presto.sql.relational.Signatures.IF;
+import static com.facebook.presto.sql.relational.Signatures.IN;
+import static com.facebook.presto.sql.relational.Signatures.IS_NULL;
+import static com.facebook.presto.sql.relational.Signatures.NULL_IF;
+import static com.facebook.presto.sql.relational.Signatures.SWITCH;
+import static com.facebook.presto.sql.relational.Signatures.TRY_CAST;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Evaluates the filter and projections that read a single column once per
+ * distinct value when that column is dictionary or run length encoded.
+ * The results are cached per dictionary and mapped back to the positions
+ * through the dictionary ids, and the rest of the page is processed by a
+ * processor compiled with those expressions replaced by the cached results.
+ */
+public class DictionaryAwarePageProcessor
+        implements PageProcessor
+{
+    private static final int MAX_CACHED_DICTIONARIES = 32;
+
+    private final ExpressionCompiler compiler;
+    private final RowExpression filter;
+    private final List<RowExpression> projections;
+    private final PageProcessor processor;
+    private final List<DictionaryExpression> dictionaryExpressions;
+
+    // processors for the combinations of expressions replaced by dictionary results, keyed by expression index
+    private final ConcurrentMap<Set<Integer>, PageProcessor> processors = new ConcurrentHashMap<>();
+
+    public DictionaryAwarePageProcessor(ExpressionCompiler compiler, FunctionRegistry registry, RowExpression filter, List<RowExpression> projections, PageProcessor processor)
+    {
+        checkNotNull(registry, "registry is null");
+        this.compiler = checkNotNull(compiler, "compiler is null");
+        this.filter = checkNotNull(filter, "filter is null");
+        this.projections = ImmutableList.copyOf(checkNotNull(projections, "projections is null"));
+        this.processor = checkNotNull(processor, "processor is null");
+
+        ImmutableList.Builder<DictionaryExpression> dictionaryExpressions = ImmutableList.builder();
+        List<RowExpression> expressions = getExpressions(filter, projections);
+        for (int index = 0; index < expressions.size(); index++) {
+            RowExpression expression = expressions.get(index);
+            if (isDictionaryExpression(registry, expression)) {
+                dictionaryExpressions.add(new DictionaryExpression(compiler, index, expression));
+            }
+        }
+        this.dictionaryExpressions = dictionaryExpressions.build();
+    }
+
+    /**
+     * Returns true if evaluating any of the expressions once per dictionary entry could save work.
+     */
+    public static boolean hasDictionaryExpressions(FunctionRegistry registry, RowExpression filter, List<RowExpression> projections)
+    {
+        return getExpressions(filter, projections).stream().anyMatch(expression -> isDictionaryExpression(registry, expression));
+    }
+
+    @Override
+    public int process(ConnectorSession session, Page page, int start, int end, PageBuilder pageBuilder)
+    {
+        List<Block> blocks = null;
+        ImmutableSet.Builder<Integer> replaced = ImmutableSet.builder();
+        for (DictionaryExpression dictionaryExpression : dictionaryExpressions) {
+            Block result = dictionaryExpression.evaluate(session, page.getBlock(dictionaryExpression.getChannel()));
+            if (result != null) {
+                if (blocks == null) {
+                    blocks = new ArrayList<>(page.getChannelCount() + dictionaryExpressions.size());
+                    for (int channel = 0; channel < page.getChannelCount(); channel++) {
+                        blocks.add(page.getBlock(channel));
+                    }
+                }
+                blocks.add(result);
+                replaced.add(dictionaryExpression.getIndex());
+            }
+        }
+
+        if (blocks == null) {
+            return processor.process(session, page, start, end, pageBuilder);
+        }
+
+        Page resultPage = new Page(page.getPositionCount(), blocks.toArray(new Block[blocks.size()]));
+        PageProcessor resultProcessor = processors.computeIfAbsent(replaced.build(), indexes -> compileResultProcessor(page.getChannelCount(), indexes));
+        return resultProcessor.process(session, resultPage, start, end, pageBuilder);
+    }
+
+    private PageProcessor compileResultProcessor(int channelCount, Set<Integer> indexes)
+    {
+        // the dictionary results are appended to the page in the order of the expressions
+        List<RowExpression> expressions = new ArrayList<>(getExpressions(filter, projections));
+        int channel = channelCount;
+        for (int index = 0; index < expressions.size(); index++) {
+            if (indexes.contains(index)) {
+                expressions.set(index, field(channel, expressions.get(index).getType()));
+                channel++;
+            }
+        }
+        return compiler.compileDirectPageProcessor(expressions.get(0), expressions.subList(1, expressions.size()));
+    }
+
+    private static List<RowExpression> getExpressions(RowExpression filter, List<RowExpression> projections)
+    {
+        return ImmutableList.<RowExpression>builder()
+                .add(filter)
+                .addAll(projections)
+                .build();
+    }
+
+    private static boolean isDictionaryExpression(FunctionRegistry registry, RowExpression expression)
+    {
+        // plain column references and constants are already as cheap as a dictionary lookup
+        return expression instanceof CallExpression && getInputChannels(expression).size() == 1 && isDeterministic(registry, expression);
+    }
+
+    private static Set<Integer> getInputChannels(RowExpression expression)
+    {
+        ImmutableSet.Builder<Integer> channels = ImmutableSet.builder();
+        for (RowExpression subExpression : Expressions.subExpressions(ImmutableList.of(expression))) {
+            if (subExpression instanceof InputReferenceExpression) {
+                channels.add(((InputReferenceExpression) subExpression).getField());
+            }
+        }
+        return channels.build();
+    }
+
+    private static boolean isDeterministic(FunctionRegistry registry, RowExpression expression)
+    {
+        for (RowExpression subExpression : Expressions.subExpressions(ImmutableList.of(expression))) {
+            if (subExpression instanceof CallExpression && !isDeterministic(registry, ((CallExpression) subExpression).getSignature())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDeterministic(FunctionRegistry registry, Signature signature)
+    {
+        // casts and special forms are not looked up as functions by the compiler
+        if (signature.getName().equals(CAST)) {
+            return true;
+        }
+        switch (signature.getName()) {
+            case TRY_CAST:
+            case IF:
+            case NULL_IF:
+            case SWITCH:
+            case "WHEN":
+            case IS_NULL:
+            case "IS_DISTINCT_FROM":
+            case COALESCE:
+            case IN:
+            case "AND":
+            case "OR":
+                return true;
+            default:
+                // same lookup as FunctionCallCodeGenerator
+                FunctionInfo function = registry.getExactFunction(signature);
+                if (function == null) {
+                    function = registry.resolveFunction(QualifiedName.of(signature.getName()), signature.getArgumentTypes(), false);
+                }
+                return function.isDeterministic();
+        }
+    }
+
+    private static final class DictionaryExpression
+    {
+        private final int index;
+        private final int channel;
+        private final Type type;
+        private final Supplier<PageProcessor> processor;
+
+        // keyed by dictionary identity, so entries go away with the dictionary
+        // dictionaries that could not be evaluated are cached as empty
+        private final Cache<Block, Optional<Block>> results = CacheBuilder.newBuilder()
+                .weakKeys()
+                .maximumSize(MAX_CACHED_DICTIONARIES)
+                .build();
+
+        private DictionaryExpression(ExpressionCompiler compiler, int index, RowExpression expression)
+        {
+            this.index = index;
+            this.channel = getInputChannels(expression).iterator().next();
+            this.type = expression.getType();
+
+            // evaluates the expression over a page containing only the dictionary
+            RowExpression dictionaryExpression = expression.accept(new InputChannelRewriter(channel), null);
+            this.processor = Suppliers.memoize(() -> compiler.compileDirectPageProcessor(constant(true, BOOLEAN), ImmutableList.of(dictionaryExpression)));
+        }
+
+        public int getIndex()
+        {
+            return index;
+        }
+
+        public int getChannel()
+        {
+            return channel;
+        }
+
+        /**
+         * Returns the values of the expression for every position of the block, or null if
+         * the block is not dictionary or run length encoded.
+         */
+        public Block evaluate(ConnectorSession session, Block block)
+        {
+            // The filter reads its input for every position anyway, so its lazy input can be
+            // loaded here. Projections are only evaluated for the selected positions, so their
+            // input is only used if something else already loaded it.
+            if (block instanceof LazySliceArrayBlock) {
+                LazySliceArrayBlock lazyBlock = (LazySliceArrayBlock) block;
+                if ((index == 0 || lazyBlock.isLoaded()) && lazyBlock.isDictionary()) {
+                    block = lazyBlock.toDictionaryBlock();
+                }
+            }
+
+            if (block instanceof DictionaryBlock) {
+                DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
+                Block values = evaluateDictionary(session, dictionaryBlock.getDictionary());
+                if (values == null) {
+                    return null;
+                }
+                int positionCount = dictionaryBlock.getPositionCount();
+                int[] ids = new int[positionCount];
+                for (int position = 0; position < positionCount; position++) {
+                    ids[position] = dictionaryBlock.getId(position);
+                }
+                return new DictionaryBlock(positionCount, values, ids);
+            }
+
+            if (block instanceof RunLengthEncodedBlock) {
+                RunLengthEncodedBlock runLengthEncodedBlock = (RunLengthEncodedBlock) block;
+                Block value = evaluateDictionary(session, runLengthEncodedBlock.getValue());
+                if (value == null) {
+                    return null;
+                }
+                return new RunLengthEncodedBlock(value, runLengthEncodedBlock.getPositionCount());
+            }
+
+            return null;
+        }
+
+        private Block evaluateDictionary(ConnectorSession session, Block dictionary)
+        {
+            Optional<Block> values = results.getIfPresent(dictionary);
+            if (values == null) {
+                try {
+                    values = Optional.of(evaluateAll(session, dictionary));
+                }
+                catch (PrestoException e) {
+                    // the dictionary may contain entries that are never selected, and evaluating
+                    // those can fail where the row by row evaluation would not, so the positions
+                    // using this dictionary are evaluated row by row
+                    values = Optional.empty();
+                }
+                results.put(dictionary, values);
+            }
+            return values.orElse(null);
+        }
+
+        private Block evaluateAll(ConnectorSession session, Block dictionary)
+        {
+            Page page = new Page(dictionary);
+            int positionCount = dictionary.getPositionCount();
+
+            PageBuilder pageBuilder = new PageBuilder(ImmutableList.of(type));
+            int position = processor.get().process(session, page, 0, positionCount, pageBuilder);
+            if (position == positionCount) {
+                return pageBuilder.build().getBlock(0);
+            }
+
+            // the dictionary does not fit in a single page, so copy the chunks into one block
+            BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), positionCount);
+            while (true) {
+                Block chunk = pageBuilder.build().getBlock(0);
+                for (int i = 0; i < chunk.getPositionCount(); i++) {
+                    type.appendTo(chunk, i, blockBuilder);
+                }
+                if (position == positionCount) {
+                    return blockBuilder.build();
+                }
+                pageBuilder.reset();
+                position = processor.get().process(session, page, position, positionCount, pageBuilder);
+            }
+        }
+    }
+
+    private static class InputChannelRewriter
+            implements RowExpressionVisitor<Void, RowExpression>
+    {
+        private final int channel;
+
+        public InputChannelRewriter(int channel)
+        {
+            this.channel = channel;
+        }
+
+        @Override
+        public RowExpression visitCall(CallExpression call, Void context)
+        {
+            ImmutableList.Builder<RowExpression> arguments = ImmutableList.builder();
+            for (RowExpression argument : call.getArguments()) {
+                arguments.add(argument.accept(this, context));
+            }
+            return new CallExpression(call.getSignature(), call.getType(), arguments.build());
+        }
+
+        @Override
+        public RowExpression visitInputReference(InputReferenceExpression reference, Void context)
+        {
+            checkArgument(reference.getField() == channel, "Expected input channel %s, but was %s", channel, reference.getField());
+            return field(0, reference.getType());
+        }
+
+        @Override
+        public RowExpression visitConstant(ConstantExpression literal, Void context)
+        {
+            return literal;
+        }
+    }
+}
@@ -83,6 +83,15 @@ public class ExpressionCompiler
     }
 
     public PageProcessor compilePageProcessor(RowExpression filter, List<RowExpression> projections)
+    {
+        PageProcessor processor = compileDirectPageProcessor(filter, projections);
+        if (!DictionaryAwarePageProcessor.hasDictionaryExpressions(metadata.getFunctionRegistry(), filter, projections)) {
+            return processor;
+        }
+        return new DictionaryAwarePageProcessor(this, metadata.getFunctionRegistry(), filter, projections, processor);
+    }
+
+    PageProcessor compileDirectPageProcessor(RowExpression filter, List<RowExpression> projections)
     {
         return pageProcessors.getUnchecked(new CacheKey(filter, projections, null));
     }
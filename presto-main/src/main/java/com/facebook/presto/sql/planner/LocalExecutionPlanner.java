@@ -21,9 +21,11 @@ import com.facebook.presto.metadata.FunctionInfo;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.operator.AggregationOperator.AggregationOperatorFactory;
+import com.facebook.presto.operator.ConstantProjections;
 import com.facebook.presto.operator.CursorProcessor;
 import com.facebook.presto.operator.DeleteOperator.DeleteOperatorFactory;
 import com.facebook.presto.operator.DriverFactory;
+import com.facebook.presto.operator.DynamicFilter;
 import com.facebook.presto.operator.ExchangeClient;
 import com.facebook.presto.operator.ExchangeOperator.ExchangeOperatorFactory;
 import com.facebook.presto.operator.FilterAndProjectOperator;
@@ -72,8 +74,11 @@ import com.facebook.presto.spi.ConnectorIndex;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.RecordSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.split.MappedRecordSet;
 import com.facebook.presto.split.PageSinkManager;
 import com.facebook.presto.split.PageSourceProvider;
@@ -93,6 +98,7 @@ import com.facebook.presto.sql.planner.plan.LimitNode;
 import com.facebook.presto.sql.planner.plan.MarkDistinctNode;
 import com.facebook.presto.sql.planner.plan.OutputNode;
 import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.plan.PlanVisitor;
 import com.facebook.presto.sql.planner.plan.ProjectNode;
 import com.facebook.presto.sql.planner.plan.RemoteSourceNode;
@@ -111,6 +117,7 @@ import com.facebook.presto.sql.planner.plan.UnnestNode;
 import com.facebook.presto.sql.planner.plan.ValuesNode;
 import com.facebook.presto.sql.planner.plan.WindowNode;
 import com.facebook.presto.sql.planner.plan.WindowNode.Frame;
+import com.facebook.presto.sql.relational.ConstantExpression;
 import com.facebook.presto.sql.relational.RowExpression;
 import com.facebook.presto.sql.relational.SqlToRowExpressionTranslator;
 import com.facebook.presto.sql.tree.BooleanLiteral;
@@ -155,6 +162,8 @@ import static com.facebook.presto.SystemSessionProperties.getTaskAggregationConc
 import static com.facebook.presto.SystemSessionProperties.getTaskHashBuildConcurrency;
 import static com.facebook.presto.SystemSessionProperties.getTaskJoinConcurrency;
 import static com.facebook.presto.SystemSessionProperties.getTaskWriterCount;
+import static com.facebook.presto.SystemSessionProperties.isDynamicFilteringEnabled;
+import static com.facebook.presto.SystemSessionProperties.isSpillEnabled;
 import static com.facebook.presto.operator.DistinctLimitOperator.DistinctLimitOperatorFactory;
 import static com.facebook.presto.operator.InMemoryExchangeSourceOperator.InMemoryExchangeSourceOperatorFactory.createBroadcastDistribution;
 import static com.facebook.presto.operator.InMemoryExchangeSourceOperator.InMemoryExchangeSourceOperatorFactory.createRandomDistribution;
@@ -171,6 +180,7 @@ import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
 import static com.facebook.presto.sql.planner.plan.TableWriterNode.CreateHandle;
 import static com.facebook.presto.sql.planner.plan.TableWriterNode.InsertHandle;
 import static com.facebook.presto.sql.planner.plan.TableWriterNode.WriterTarget;
+import static com.facebook.presto.type.TypeUtils.createBlock;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableSet;
 import static com.google.common.base.Functions.forMap;
@@ -200,6 +210,9 @@ public class LocalExecutionPlanner
     private final DataSize maxPartialAggregationMemorySize;
     private final int writerCount;
     private final int defaultConcurrency;
+    private final SpillerFactory spillerFactory;
+    private final boolean spillEnabled;
+    private final boolean dynamicFilteringEnabled;
 
     @Inject
     public LocalExecutionPlanner(
@@ -212,7 +225,8 @@ public class LocalExecutionPlanner
             ExpressionCompiler compiler,
             IndexJoinLookupStats indexJoinLookupStats,
             CompilerConfig compilerConfig,
-            TaskManagerConfig taskManagerConfig)
+            TaskManagerConfig taskManagerConfig,
+            SpillerFactory spillerFactory)
     {
         checkNotNull(compilerConfig, "compilerConfig is null");
         this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceProvider is null");
@@ -227,6 +241,9 @@ public class LocalExecutionPlanner
         this.maxPartialAggregationMemorySize = taskManagerConfig.getMaxPartialAggregationMemoryUsage();
         this.writerCount = taskManagerConfig.getWriterCount();
         this.defaultConcurrency = taskManagerConfig.getTaskDefaultConcurrency();
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
+        this.spillEnabled = taskManagerConfig.isSpillEnabled();
+        this.dynamicFilteringEnabled = taskManagerConfig.isDynamicFilteringEnabled();
 
         interpreterEnabled = compilerConfig.isInterpreterEnabled();
     }
@@ -286,6 +303,7 @@ public class LocalExecutionPlanner
         private final boolean allowLocalParallel;
         private final List<DriverFactory> driverFactories;
         private final Optional<IndexSourceContext> indexSourceContext;
+        private final Map<PlanNodeId, List<Supplier<TupleDomain<ColumnHandle>>>> dynamicFilters;
 
         private int nextOperatorId;
         private boolean inputDriver = true;
@@ -293,7 +311,7 @@ public class LocalExecutionPlanner
 
         public LocalExecutionPlanContext(Session session, Map<Symbol, Type> types, boolean allowLocalParallel)
         {
-            this(session, types, allowLocalParallel, new ArrayList<>(), Optional.empty());
+            this(session, types, allowLocalParallel, new ArrayList<>(), Optional.empty(), new HashMap<>());
         }
 
         private LocalExecutionPlanContext(
@@ -301,13 +319,15 @@ public class LocalExecutionPlanner
                 Map<Symbol, Type> types,
                 boolean allowLocalParallel,
                 List<DriverFactory> driverFactories,
-                Optional<IndexSourceContext> indexSourceContext)
+                Optional<IndexSourceContext> indexSourceContext,
+                Map<PlanNodeId, List<Supplier<TupleDomain<ColumnHandle>>>> dynamicFilters)
         {
             this.session = session;
             this.types = types;
             this.allowLocalParallel = allowLocalParallel;
             this.driverFactories = driverFactories;
             this.indexSourceContext = indexSourceContext;
+            this.dynamicFilters = dynamicFilters;
         }
 
         public void addDriverFactory(DriverFactory driverFactory)
@@ -335,6 +355,23 @@ public class LocalExecutionPlanner
             return indexSourceContext;
         }
 
+        public void addDynamicFilter(PlanNodeId scanId, Supplier<TupleDomain<ColumnHandle>> dynamicFilter)
+        {
+            dynamicFilters.computeIfAbsent(scanId, id -> new ArrayList<>()).add(checkNotNull(dynamicFilter, "dynamicFilter is null"));
+        }
+
+        public Supplier<TupleDomain<ColumnHandle>> getDynamicFilter(PlanNodeId scanId)
+        {
+            List<Supplier<TupleDomain<ColumnHandle>>> filters = ImmutableList.copyOf(dynamicFilters.getOrDefault(scanId, ImmutableList.of()));
+            return () -> {
+                TupleDomain<ColumnHandle> result = TupleDomain.all();
+                for (Supplier<TupleDomain<ColumnHandle>> filter : filters) {
+                    result = result.intersect(filter.get());
+                }
+                return result;
+            };
+        }
+
         private int getNextOperatorId()
         {
             return nextOperatorId++;
@@ -353,12 +390,12 @@ public class LocalExecutionPlanner
         public LocalExecutionPlanContext createSubContext()
         {
             checkState(!indexSourceContext.isPresent(), "index build plan can not have sub-contexts");
-            return new LocalExecutionPlanContext(session, types, allowLocalParallel, driverFactories, indexSourceContext);
+            return new LocalExecutionPlanContext(session, types, allowLocalParallel, driverFactories, indexSourceContext, dynamicFilters);
         }
 
         public LocalExecutionPlanContext createIndexSourceSubContext(IndexSourceContext indexSourceContext)
         {
-            return new LocalExecutionPlanContext(session, types, false, driverFactories, Optional.of(indexSourceContext));
+            return new LocalExecutionPlanContext(session, types, false, driverFactories, Optional.of(indexSourceContext), dynamicFilters);
         }
 
         public boolean isAllowLocalParallel()
@@ -594,7 +631,8 @@ public class LocalExecutionPlanner
                     sortOrder,
                     node.getPreSortedOrderPrefix(),
                     new FrameInfo(frame.getType(), frame.getStartType(), frameStartChannel, frame.getEndType(), frameEndChannel),
-                    10_000);
+                    10_000,
+                    getSpillerFactory());
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
@@ -649,7 +687,8 @@ public class LocalExecutionPlanner
                     outputChannels.build(),
                     10_000,
                     orderByChannels,
-                    sortOrder.build());
+                    sortOrder.build(),
+                    getSpillerFactory());
 
             return new PhysicalOperation(operator, source.getLayout(), source);
         }
@@ -875,10 +914,30 @@ public class LocalExecutionPlanner
                     .map(expression -> toRowExpression(expression, expressionTypes))
                     .collect(toImmutableList());
 
+            // constant projections are not computed per row, they are added to each output page as run length encoded blocks
+            List<Type> projectionTypes = Lists.transform(rewrittenProjections, forMap(expressionTypes));
+            ConstantProjections constantProjections = ConstantProjections.noConstantProjections(projectionTypes);
+            List<RowExpression> computedProjections = translatedProjections;
+            if (translatedProjections.stream().anyMatch(projection -> !(projection instanceof ConstantExpression))) {
+                ImmutableMap.Builder<Integer, Block> constantBlocks = ImmutableMap.builder();
+                ImmutableList.Builder<RowExpression> computed = ImmutableList.builder();
+                for (int channel = 0; channel < translatedProjections.size(); channel++) {
+                    RowExpression projection = translatedProjections.get(channel);
+                    if (projection instanceof ConstantExpression) {
+                        constantBlocks.put(channel, createBlock(projection.getType(), ((ConstantExpression) projection).getValue()));
+                    }
+                    else {
+                        computed.add(projection);
+                    }
+                }
+                constantProjections = new ConstantProjections(projectionTypes, constantBlocks.build());
+                computedProjections = computed.build();
+            }
+
             try {
                 if (columns != null) {
-                    CursorProcessor cursorProcessor = compiler.compileCursorProcessor(translatedFilter, translatedProjections, sourceNode.getId());
-                    PageProcessor pageProcessor = compiler.compilePageProcessor(translatedFilter, translatedProjections);
+                    CursorProcessor cursorProcessor = compiler.compileCursorProcessor(translatedFilter, computedProjections, sourceNode.getId());
+                    PageProcessor pageProcessor = compiler.compilePageProcessor(translatedFilter, computedProjections);
 
                     SourceOperatorFactory operatorFactory = new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
                             context.getNextOperatorId(),
@@ -887,17 +946,18 @@ public class LocalExecutionPlanner
                             cursorProcessor,
                             pageProcessor,
                             columns,
-                            Lists.transform(rewrittenProjections, forMap(expressionTypes)));
+                            constantProjections,
+                            context.getDynamicFilter(sourceNode.getId()));
 
                     return new PhysicalOperation(operatorFactory, outputMappings);
                 }
                 else {
-                    PageProcessor processor = compiler.compilePageProcessor(translatedFilter, translatedProjections);
+                    PageProcessor processor = compiler.compilePageProcessor(translatedFilter, computedProjections);
 
                     OperatorFactory operatorFactory = new FilterAndProjectOperator.FilterAndProjectOperatorFactory(
                             context.getNextOperatorId(),
                             processor,
-                            Lists.transform(rewrittenProjections, forMap(expressionTypes)));
+                            constantProjections);
 
                     return new PhysicalOperation(operatorFactory, outputMappings, source);
                 }
@@ -985,7 +1045,7 @@ public class LocalExecutionPlanner
             }
 
             List<Type> types = getSourceOperatorTypes(node, context.getTypes());
-            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, types, columns);
+            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, types, columns, context.getDynamicFilter(node.getId()));
             return new PhysicalOperation(operatorFactory, makeLayout(node));
         }
 
@@ -1281,15 +1341,22 @@ public class LocalExecutionPlanner
             // Plan probe and introduce a projection to put all fields from the probe side into a single channel if necessary
             PhysicalOperation probeSource;
             LocalExecutionPlanContext parallelParentContext = null;
+            Optional<DynamicFilter> dynamicFilter = Optional.empty();
             int joinConcurrency = getTaskJoinConcurrency(session, defaultConcurrency);
             // currently we can not run joins with an outer build in parallel
             if (!isBuildOuter(node) && context.isAllowLocalParallel() && context.getDriverInstanceCount() == 1 && joinConcurrency > 1) {
+                // the probe scan of a parallel join runs in its own pipeline feeding the in-memory exchange,
+                // and can finish before the build does, so it is not dynamically filtered
                 parallelParentContext = context;
                 context = context.createSubContext();
                 probeSource = createInMemoryExchange(probeNode, context);
                 context.setDriverInstanceCount(joinConcurrency);
             }
             else {
+                // the filter has to be registered before the probe scan is planned
+                if (node.getType() == JoinNode.Type.INNER && isDynamicFilteringEnabled(session, dynamicFilteringEnabled)) {
+                    dynamicFilter = createDynamicFilter(probeNode, probeSymbols, context);
+                }
                 probeSource = probeNode.accept(this, context);
             }
             List<Integer> probeChannels = ImmutableList.copyOf(getChannelsForSymbols(probeSymbols, probeSource.getLayout()));
@@ -1303,13 +1370,17 @@ public class LocalExecutionPlanner
 
             LookupSourceSupplier lookupSourceSupplier;
             int hashBuildConcurrency = getTaskHashBuildConcurrency(session, defaultConcurrency);
-            if (isBuildOuter(node) || hashBuildConcurrency <= 1) {
+            // spilled build partitions are joined by each join operator, which does not work with an outer build
+            Optional<SpillerFactory> joinSpillerFactory = isBuildOuter(node) ? Optional.empty() : getSpillerFactory();
+            if (isBuildOuter(node) || hashBuildConcurrency <= 1 || joinSpillerFactory.isPresent()) {
                 HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(
                         buildContext.getNextOperatorId(),
                         buildSource.getTypes(),
                         buildChannels,
                         buildHashChannel,
-                        10_000);
+                        10_000,
+                        joinSpillerFactory,
+                        dynamicFilter);
 
                 context.addDriverFactory(new DriverFactory(
                         buildContext.isInputDriver(),
@@ -1330,7 +1401,8 @@ public class LocalExecutionPlanner
                         buildChannels,
                         buildHashChannel,
                         10_000,
-                        parallelBuildCount);
+                        parallelBuildCount,
+                        dynamicFilter);
 
                 context.addDriverFactory(new DriverFactory(
                         buildContext.isInputDriver(),
@@ -1371,6 +1443,59 @@ public class LocalExecutionPlanner
             return operation;
         }
 
+        /**
+         * Creates a filter on the table scan of the probe side from the join keys of the build side,
+         * if the probe side is a scan in the same pipeline as the join, so the build finishes before the
+         * scan starts reading.
+         */
+        private Optional<DynamicFilter> createDynamicFilter(PlanNode probeNode, List<Symbol> probeSymbols, LocalExecutionPlanContext context)
+        {
+            // follow the join keys through the identity projections down to the scan
+            List<Symbol> sourceSymbols = new ArrayList<>(probeSymbols);
+            PlanNode node = probeNode;
+            while (!(node instanceof TableScanNode)) {
+                if (node instanceof FilterNode) {
+                    node = ((FilterNode) node).getSource();
+                }
+                else if (node instanceof ProjectNode) {
+                    Map<Symbol, Expression> assignments = ((ProjectNode) node).getAssignments();
+                    for (int i = 0; i < sourceSymbols.size(); i++) {
+                        Expression expression = sourceSymbols.get(i) == null ? null : assignments.get(sourceSymbols.get(i));
+                        if (expression instanceof QualifiedNameReference) {
+                            sourceSymbols.set(i, Symbol.fromQualifiedName(((QualifiedNameReference) expression).getName()));
+                        }
+                        else {
+                            sourceSymbols.set(i, null);
+                        }
+                    }
+                    node = ((ProjectNode) node).getSource();
+                }
+                else {
+                    return Optional.empty();
+                }
+            }
+            TableScanNode tableScanNode = (TableScanNode) node;
+
+            ImmutableList.Builder<Type> types = ImmutableList.builder();
+            ImmutableMap.Builder<Integer, ColumnHandle> columns = ImmutableMap.builder();
+            for (int i = 0; i < probeSymbols.size(); i++) {
+                Type type = context.getTypes().get(probeSymbols.get(i));
+                types.add(type);
+                Symbol sourceSymbol = sourceSymbols.get(i);
+                if (sourceSymbol != null && DynamicFilter.isSupportedType(type) && tableScanNode.getAssignments().containsKey(sourceSymbol)) {
+                    columns.put(i, tableScanNode.getAssignments().get(sourceSymbol));
+                }
+            }
+            Map<Integer, ColumnHandle> filteredColumns = columns.build();
+            if (filteredColumns.isEmpty()) {
+                return Optional.empty();
+            }
+
+            DynamicFilter dynamicFilter = new DynamicFilter(types.build());
+            context.addDynamicFilter(tableScanNode.getId(), () -> dynamicFilter.getTupleDomain(filteredColumns));
+            return Optional.of(dynamicFilter);
+        }
+
         private boolean isBuildOuter(JoinNode node)
         {
             return node.getType() == RIGHT || node.getType() == FULL;
@@ -1685,6 +1810,11 @@ public class LocalExecutionPlanner
 
             Optional<Integer> hashChannel = node.getHashSymbol().map(channelGetter(source));
 
+            Optional<SpillerFactory> aggregationSpillerFactory = Optional.empty();
+            if (node.getStep() != Step.PARTIAL) {
+                aggregationSpillerFactory = getSpillerFactory();
+            }
+
             OperatorFactory operatorFactory = new HashAggregationOperatorFactory(
                     context.getNextOperatorId(),
                     groupByTypes,
@@ -1694,10 +1824,19 @@ public class LocalExecutionPlanner
                     defaultMaskChannel,
                     hashChannel,
                     10_000,
-                    maxPartialAggregationMemorySize);
+                    maxPartialAggregationMemorySize,
+                    aggregationSpillerFactory);
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
+
+        private Optional<SpillerFactory> getSpillerFactory()
+        {
+            if (isSpillEnabled(session, spillEnabled)) {
+                return Optional.of(spillerFactory);
+            }
+            return Optional.empty();
+        }
     }
 
     public static List<Type> toTypes(List<ProjectionFunction> projections)
@@ -77,6 +77,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import io.airlift.units.DataSize;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -88,6 +89,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalDouble;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -107,6 +109,7 @@ import static com.facebook.presto.sql.planner.plan.JoinNode.Type.FULL;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableSet;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static java.util.stream.Collectors.toList;
@@ -118,14 +121,18 @@ public class AddExchanges
     private final Metadata metadata;
     private final boolean distributedIndexJoins;
     private final boolean distributedJoins;
+    private final boolean automaticJoinDistribution;
+    private final DataSize broadcastJoinMaxBuildSize;
     private final boolean redistributeWrites;
 
-    public AddExchanges(Metadata metadata, SqlParser parser, boolean distributedIndexJoins, boolean distributedJoins, boolean redistributeWrites)
+    public AddExchanges(Metadata metadata, SqlParser parser, boolean distributedIndexJoins, boolean distributedJoins, boolean automaticJoinDistribution, DataSize broadcastJoinMaxBuildSize, boolean redistributeWrites)
     {
         this.metadata = metadata;
         this.parser = parser;
         this.distributedIndexJoins = distributedIndexJoins;
         this.distributedJoins = distributedJoins;
+        this.automaticJoinDistribution = automaticJoinDistribution;
+        this.broadcastJoinMaxBuildSize = checkNotNull(broadcastJoinMaxBuildSize, "broadcastJoinMaxBuildSize is null");
         this.redistributeWrites = redistributeWrites;
     }
 
@@ -133,9 +140,13 @@ public class AddExchanges
     public PlanNode optimize(PlanNode plan, Session session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
     {
         boolean distributedJoinEnabled = SystemSessionProperties.isDistributedJoinEnabled(session, distributedJoins);
+        Optional<DataSize> broadcastJoinMaxBuildSize = Optional.empty();
+        if (SystemSessionProperties.isAutomaticJoinDistribution(session, automaticJoinDistribution)) {
+            broadcastJoinMaxBuildSize = Optional.of(SystemSessionProperties.getBroadcastJoinMaxBuildSize(session, this.broadcastJoinMaxBuildSize));
+        }
         boolean redistributeWrites = SystemSessionProperties.isRedistributeWrites(session, this.redistributeWrites);
         boolean preferStreamingOperators = SystemSessionProperties.preferStreamingOperators(session, false);
-        PlanWithProperties result = plan.accept(new Rewriter(symbolAllocator, idAllocator, symbolAllocator, session, distributedIndexJoins, distributedJoinEnabled, preferStreamingOperators, redistributeWrites), new Context(PreferredProperties.any(), false));
+        PlanWithProperties result = plan.accept(new Rewriter(symbolAllocator, idAllocator, symbolAllocator, session, distributedIndexJoins, distributedJoinEnabled, broadcastJoinMaxBuildSize, preferStreamingOperators, redistributeWrites), new Context(PreferredProperties.any(), false));
         return result.getNode();
     }
 
@@ -182,10 +193,12 @@ public class AddExchanges
         private final Session session;
         private final boolean distributedIndexJoins;
         private final boolean distributedJoins;
+        private final Optional<DataSize> broadcastJoinMaxBuildSize;
+        private final PlanNodeStatisticsEstimator statisticsEstimator;
         private final boolean preferStreamingOperators;
         private final boolean redistributeWrites;
 
-        public Rewriter(SymbolAllocator allocator, PlanNodeIdAllocator idAllocator, SymbolAllocator symbolAllocator, Session session, boolean distributedIndexJoins, boolean distributedJoins, boolean preferStreamingOperators, boolean redistributeWrites)
+        public Rewriter(SymbolAllocator allocator, PlanNodeIdAllocator idAllocator, SymbolAllocator symbolAllocator, Session session, boolean distributedIndexJoins, boolean distributedJoins, Optional<DataSize> broadcastJoinMaxBuildSize, boolean preferStreamingOperators, boolean redistributeWrites)
         {
             this.allocator = allocator;
             this.idAllocator = idAllocator;
@@ -193,6 +206,8 @@ public class AddExchanges
             this.session = session;
             this.distributedIndexJoins = distributedIndexJoins;
             this.distributedJoins = distributedJoins;
+            this.broadcastJoinMaxBuildSize = broadcastJoinMaxBuildSize;
+            this.statisticsEstimator = new PlanNodeStatisticsEstimator(metadata, session);
             this.preferStreamingOperators = preferStreamingOperators;
             this.redistributeWrites = redistributeWrites;
         }
@@ -733,7 +748,7 @@ public class AddExchanges
             PlanWithProperties left;
             PlanWithProperties right;
 
-            if (distributedJoins || node.getType() == FULL || node.getType() == RIGHT) {
+            if (node.getType() == FULL || node.getType() == RIGHT || isPartitionedJoin(node.getRight())) {
                 // The implementation of full outer join only works if the data is hash partitioned. See LookupJoinOperators#buildSideOuterJoinUnvisitedPositions
 
                 left = node.getLeft().accept(this, context.withPreferredProperties(PreferredProperties.hashPartitioned(leftSymbols)));
@@ -787,13 +802,25 @@ public class AddExchanges
             return new PlanWithProperties(result, deriveProperties(result, ImmutableList.of(left.getProperties(), right.getProperties())));
         }
 
+        private boolean isPartitionedJoin(PlanNode buildSide)
+        {
+            if (broadcastJoinMaxBuildSize.isPresent()) {
+                OptionalDouble buildSize = statisticsEstimator.estimate(buildSide).getOutputSizeInBytes();
+                if (buildSize.isPresent()) {
+                    // every node holds a full copy of a replicated build side
+                    return buildSize.getAsDouble() > broadcastJoinMaxBuildSize.get().toBytes();
+                }
+            }
+            return distributedJoins;
+        }
+
         @Override
         public PlanWithProperties visitSemiJoin(SemiJoinNode node, Context context)
         {
             PlanWithProperties source;
             PlanWithProperties filteringSource;
 
-            if (distributedJoins && !context.isDownstreamIsDelete()) {
+            if (isPartitionedJoin(node.getFilteringSource()) && !context.isDownstreamIsDelete()) {
                 List<Symbol> sourceSymbols = ImmutableList.of(node.getSourceJoinSymbol());
                 List<Symbol> filteringSourceSymbols = ImmutableList.of(node.getFilteringSourceJoinSymbol());
 
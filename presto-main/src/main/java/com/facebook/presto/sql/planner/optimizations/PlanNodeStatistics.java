@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.sql.planner.Symbol;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+import java.util.OptionalDouble;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Estimated size of the output of a plan node.
+ */
+final class PlanNodeStatistics
+{
+    private static final PlanNodeStatistics UNKNOWN = new PlanNodeStatistics(OptionalDouble.empty(), OptionalDouble.empty(), ImmutableMap.of());
+
+    private final OptionalDouble outputRowCount;
+    private final OptionalDouble outputSizeInBytes;
+    private final Map<Symbol, Double> distinctValuesCounts;
+
+    public PlanNodeStatistics(OptionalDouble outputRowCount, OptionalDouble outputSizeInBytes, Map<Symbol, Double> distinctValuesCounts)
+    {
+        this.outputRowCount = checkNotNull(outputRowCount, "outputRowCount is null");
+        this.outputSizeInBytes = checkNotNull(outputSizeInBytes, "outputSizeInBytes is null");
+        checkNotNull(distinctValuesCounts, "distinctValuesCounts is null");
+        checkArgument(outputRowCount.isPresent() || distinctValuesCounts.isEmpty(), "distinct values counts require a row count");
+
+        // a symbol can not have more distinct values than there are rows
+        ImmutableMap.Builder<Symbol, Double> builder = ImmutableMap.builder();
+        for (Map.Entry<Symbol, Double> entry : distinctValuesCounts.entrySet()) {
+            builder.put(entry.getKey(), Math.min(entry.getValue(), outputRowCount.getAsDouble()));
+        }
+        this.distinctValuesCounts = builder.build();
+    }
+
+    public static PlanNodeStatistics unknown()
+    {
+        return UNKNOWN;
+    }
+
+    public OptionalDouble getOutputRowCount()
+    {
+        return outputRowCount;
+    }
+
+    public OptionalDouble getOutputSizeInBytes()
+    {
+        return outputSizeInBytes;
+    }
+
+    public Map<Symbol, Double> getDistinctValuesCounts()
+    {
+        return distinctValuesCounts;
+    }
+
+    public OptionalDouble getDistinctValuesCount(Symbol symbol)
+    {
+        Double count = distinctValuesCounts.get(symbol);
+        if (count == null) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(count);
+    }
+
+    /**
+     * Average size of an output row in bytes.
+     */
+    public OptionalDouble getAverageRowSize()
+    {
+        if (!outputRowCount.isPresent() || !outputSizeInBytes.isPresent()) {
+            return OptionalDouble.empty();
+        }
+        if (outputRowCount.getAsDouble() == 0) {
+            return OptionalDouble.of(0);
+        }
+        return OptionalDouble.of(outputSizeInBytes.getAsDouble() / outputRowCount.getAsDouble());
+    }
+
+    /**
+     * Returns the statistics after keeping the given fraction of the rows.
+     */
+    public PlanNodeStatistics withSelectivity(double selectivity)
+    {
+        if (!outputRowCount.isPresent()) {
+            return this;
+        }
+        OptionalDouble sizeInBytes = OptionalDouble.empty();
+        if (outputSizeInBytes.isPresent()) {
+            sizeInBytes = OptionalDouble.of(outputSizeInBytes.getAsDouble() * selectivity);
+        }
+        return new PlanNodeStatistics(OptionalDouble.of(outputRowCount.getAsDouble() * selectivity), sizeInBytes, distinctValuesCounts);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("outputRowCount", outputRowCount)
+                .add("outputSizeInBytes", outputSizeInBytes)
+                .add("distinctValuesCounts", distinctValuesCounts)
+                .toString();
+    }
+}
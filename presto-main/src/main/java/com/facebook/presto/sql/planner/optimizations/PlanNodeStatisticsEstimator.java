@@ -0,0 +1,350 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ColumnStatistics;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.sql.planner.DependencyExtractor;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.ExchangeNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.MarkDistinctNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanVisitor;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.sql.planner.plan.SortNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+import com.facebook.presto.sql.planner.plan.UnionNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.ComparisonExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+import static com.facebook.presto.sql.ExpressionUtils.extractConjuncts;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Estimates the output size of plan nodes from the table statistics of the connectors.
+ * The estimates are rough: predicates other than comparisons of a column with a constant
+ * get a fixed selectivity, and columns are assumed to be independent.
+ */
+class PlanNodeStatisticsEstimator
+{
+    // fraction of the rows kept by predicates that can not be estimated
+    private static final double UNKNOWN_FILTER_SELECTIVITY = 0.5;
+
+    private final Metadata metadata;
+    private final Session session;
+    private final Map<PlanNode, PlanNodeStatistics> statistics = new IdentityHashMap<>();
+
+    public PlanNodeStatisticsEstimator(Metadata metadata, Session session)
+    {
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        this.session = checkNotNull(session, "session is null");
+    }
+
+    public PlanNodeStatistics estimate(PlanNode node)
+    {
+        PlanNodeStatistics result = statistics.get(node);
+        if (result == null) {
+            result = node.accept(new Visitor(), null);
+            statistics.put(node, result);
+        }
+        return result;
+    }
+
+    private class Visitor
+            extends PlanVisitor<Void, PlanNodeStatistics>
+    {
+        @Override
+        protected PlanNodeStatistics visitPlan(PlanNode node, Void context)
+        {
+            return PlanNodeStatistics.unknown();
+        }
+
+        @Override
+        public PlanNodeStatistics visitTableScan(TableScanNode node, Void context)
+        {
+            TableStatistics tableStatistics = metadata.getTableStatistics(session, node.getTable(), node.getCurrentConstraint());
+            if (!tableStatistics.getRowCount().isPresent()) {
+                return PlanNodeStatistics.unknown();
+            }
+            double rowCount = tableStatistics.getRowCount().getAsDouble();
+
+            ImmutableMap.Builder<Symbol, Double> distinctValuesCounts = ImmutableMap.builder();
+            double columnsSize = 0;
+            boolean columnsSizeKnown = true;
+            for (Symbol symbol : node.getOutputSymbols()) {
+                ColumnHandle column = node.getAssignments().get(symbol);
+                ColumnStatistics columnStatistics = tableStatistics.getColumnStatistics().getOrDefault(column, ColumnStatistics.empty());
+                if (columnStatistics.getDistinctValuesCount().isPresent()) {
+                    distinctValuesCounts.put(symbol, columnStatistics.getDistinctValuesCount().getAsDouble());
+                }
+                if (columnStatistics.getDataSize().isPresent()) {
+                    columnsSize += columnStatistics.getDataSize().getAsDouble();
+                }
+                else {
+                    columnsSize = 0;
+                    columnsSizeKnown = false;
+                }
+            }
+
+            // the size of the whole table is an upper bound when the sizes of the columns read are not known
+            OptionalDouble sizeInBytes = tableStatistics.getDataSize();
+            if (columnsSizeKnown) {
+                sizeInBytes = OptionalDouble.of(columnsSize);
+            }
+            return new PlanNodeStatistics(OptionalDouble.of(rowCount), sizeInBytes, distinctValuesCounts.build());
+        }
+
+        @Override
+        public PlanNodeStatistics visitValues(ValuesNode node, Void context)
+        {
+            return new PlanNodeStatistics(OptionalDouble.of(node.getRows().size()), OptionalDouble.empty(), ImmutableMap.of());
+        }
+
+        @Override
+        public PlanNodeStatistics visitFilter(FilterNode node, Void context)
+        {
+            PlanNodeStatistics source = estimate(node.getSource());
+
+            double selectivity = 1;
+            boolean unknownPredicate = false;
+            for (Expression conjunct : extractConjuncts(node.getPredicate())) {
+                OptionalDouble distinctValuesCount = getEqualityDistinctValuesCount(conjunct, source);
+                if (distinctValuesCount.isPresent() && distinctValuesCount.getAsDouble() > 0) {
+                    selectivity /= distinctValuesCount.getAsDouble();
+                }
+                else {
+                    unknownPredicate = true;
+                }
+            }
+            if (unknownPredicate) {
+                selectivity *= UNKNOWN_FILTER_SELECTIVITY;
+            }
+            return source.withSelectivity(selectivity);
+        }
+
+        private OptionalDouble getEqualityDistinctValuesCount(Expression conjunct, PlanNodeStatistics source)
+        {
+            if (!(conjunct instanceof ComparisonExpression) || ((ComparisonExpression) conjunct).getType() != ComparisonExpression.Type.EQUAL) {
+                return OptionalDouble.empty();
+            }
+            ComparisonExpression comparison = (ComparisonExpression) conjunct;
+            if (comparison.getLeft() instanceof QualifiedNameReference && DependencyExtractor.extractUnique(comparison.getRight()).isEmpty()) {
+                return source.getDistinctValuesCount(Symbol.fromQualifiedName(((QualifiedNameReference) comparison.getLeft()).getName()));
+            }
+            if (comparison.getRight() instanceof QualifiedNameReference && DependencyExtractor.extractUnique(comparison.getLeft()).isEmpty()) {
+                return source.getDistinctValuesCount(Symbol.fromQualifiedName(((QualifiedNameReference) comparison.getRight()).getName()));
+            }
+            return OptionalDouble.empty();
+        }
+
+        @Override
+        public PlanNodeStatistics visitProject(ProjectNode node, Void context)
+        {
+            PlanNodeStatistics source = estimate(node.getSource());
+            if (!source.getOutputRowCount().isPresent()) {
+                return source;
+            }
+
+            Map<Symbol, Double> distinctValuesCounts = new HashMap<>();
+            for (Map.Entry<Symbol, Expression> entry : node.getAssignments().entrySet()) {
+                if (entry.getValue() instanceof QualifiedNameReference) {
+                    Symbol sourceSymbol = Symbol.fromQualifiedName(((QualifiedNameReference) entry.getValue()).getName());
+                    OptionalDouble distinctValuesCount = source.getDistinctValuesCount(sourceSymbol);
+                    if (distinctValuesCount.isPresent()) {
+                        distinctValuesCounts.put(entry.getKey(), distinctValuesCount.getAsDouble());
+                    }
+                }
+            }
+            return new PlanNodeStatistics(source.getOutputRowCount(), source.getOutputSizeInBytes(), distinctValuesCounts);
+        }
+
+        @Override
+        public PlanNodeStatistics visitJoin(JoinNode node, Void context)
+        {
+            PlanNodeStatistics left = estimate(node.getLeft());
+            PlanNodeStatistics right = estimate(node.getRight());
+            if (!left.getOutputRowCount().isPresent() || !right.getOutputRowCount().isPresent()) {
+                return PlanNodeStatistics.unknown();
+            }
+            double leftRowCount = left.getOutputRowCount().getAsDouble();
+            double rightRowCount = right.getOutputRowCount().getAsDouble();
+
+            double rowCount;
+            if (node.getCriteria().isEmpty()) {
+                rowCount = leftRowCount * rightRowCount;
+            }
+            else {
+                // every row matches the rows with the same key on the other side, so use the most selective clause
+                double maxDistinctValuesCount = 0;
+                for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+                    OptionalDouble leftDistinctValuesCount = left.getDistinctValuesCount(clause.getLeft());
+                    OptionalDouble rightDistinctValuesCount = right.getDistinctValuesCount(clause.getRight());
+                    if (leftDistinctValuesCount.isPresent() && rightDistinctValuesCount.isPresent()) {
+                        maxDistinctValuesCount = Math.max(maxDistinctValuesCount, Math.max(leftDistinctValuesCount.getAsDouble(), rightDistinctValuesCount.getAsDouble()));
+                    }
+                }
+                if (maxDistinctValuesCount > 0) {
+                    rowCount = leftRowCount * rightRowCount / maxDistinctValuesCount;
+                }
+                else {
+                    // assume a foreign key join
+                    rowCount = Math.max(leftRowCount, rightRowCount);
+                }
+            }
+
+            switch (node.getType()) {
+                case LEFT:
+                    rowCount = Math.max(rowCount, leftRowCount);
+                    break;
+                case RIGHT:
+                    rowCount = Math.max(rowCount, rightRowCount);
+                    break;
+                case FULL:
+                    rowCount = Math.max(rowCount, leftRowCount + rightRowCount);
+                    break;
+            }
+
+            OptionalDouble sizeInBytes = OptionalDouble.empty();
+            if (left.getAverageRowSize().isPresent() && right.getAverageRowSize().isPresent()) {
+                sizeInBytes = OptionalDouble.of(rowCount * (left.getAverageRowSize().getAsDouble() + right.getAverageRowSize().getAsDouble()));
+            }
+
+            Map<Symbol, Double> distinctValuesCounts = new HashMap<>();
+            distinctValuesCounts.putAll(left.getDistinctValuesCounts());
+            distinctValuesCounts.putAll(right.getDistinctValuesCounts());
+            return new PlanNodeStatistics(OptionalDouble.of(rowCount), sizeInBytes, distinctValuesCounts);
+        }
+
+        @Override
+        public PlanNodeStatistics visitSemiJoin(SemiJoinNode node, Void context)
+        {
+            return estimate(node.getSource());
+        }
+
+        @Override
+        public PlanNodeStatistics visitAggregation(AggregationNode node, Void context)
+        {
+            PlanNodeStatistics source = estimate(node.getSource());
+            if (node.getGroupBy().isEmpty()) {
+                return new PlanNodeStatistics(OptionalDouble.of(1), OptionalDouble.empty(), ImmutableMap.of());
+            }
+            if (!source.getOutputRowCount().isPresent()) {
+                return PlanNodeStatistics.unknown();
+            }
+
+            // the number of groups is at most the product of the distinct values of the keys
+            double rowCount = source.getOutputRowCount().getAsDouble();
+            double groups = 1;
+            ImmutableMap.Builder<Symbol, Double> distinctValuesCounts = ImmutableMap.builder();
+            for (Symbol symbol : node.getGroupBy()) {
+                OptionalDouble distinctValuesCount = source.getDistinctValuesCount(symbol);
+                if (!distinctValuesCount.isPresent()) {
+                    groups = rowCount;
+                    break;
+                }
+                groups *= distinctValuesCount.getAsDouble();
+                distinctValuesCounts.put(symbol, distinctValuesCount.getAsDouble());
+            }
+            rowCount = Math.min(rowCount, groups);
+            return new PlanNodeStatistics(OptionalDouble.of(rowCount), OptionalDouble.empty(), distinctValuesCounts.build());
+        }
+
+        @Override
+        public PlanNodeStatistics visitMarkDistinct(MarkDistinctNode node, Void context)
+        {
+            return estimate(node.getSource());
+        }
+
+        @Override
+        public PlanNodeStatistics visitSort(SortNode node, Void context)
+        {
+            return estimate(node.getSource());
+        }
+
+        @Override
+        public PlanNodeStatistics visitLimit(LimitNode node, Void context)
+        {
+            return limit(estimate(node.getSource()), node.getCount());
+        }
+
+        @Override
+        public PlanNodeStatistics visitTopN(TopNNode node, Void context)
+        {
+            return limit(estimate(node.getSource()), node.getCount());
+        }
+
+        private PlanNodeStatistics limit(PlanNodeStatistics source, long count)
+        {
+            if (!source.getOutputRowCount().isPresent()) {
+                return new PlanNodeStatistics(OptionalDouble.of(count), OptionalDouble.empty(), ImmutableMap.of());
+            }
+            double rowCount = source.getOutputRowCount().getAsDouble();
+            if (rowCount <= count) {
+                return source;
+            }
+            return source.withSelectivity(count / rowCount);
+        }
+
+        @Override
+        public PlanNodeStatistics visitUnion(UnionNode node, Void context)
+        {
+            return sum(node.getSources());
+        }
+
+        @Override
+        public PlanNodeStatistics visitExchange(ExchangeNode node, Void context)
+        {
+            return sum(node.getSources());
+        }
+
+        private PlanNodeStatistics sum(List<PlanNode> sources)
+        {
+            double rowCount = 0;
+            double sizeInBytes = 0;
+            boolean sizeKnown = true;
+            for (PlanNode source : sources) {
+                PlanNodeStatistics sourceStatistics = estimate(source);
+                if (!sourceStatistics.getOutputRowCount().isPresent()) {
+                    return PlanNodeStatistics.unknown();
+                }
+                rowCount += sourceStatistics.getOutputRowCount().getAsDouble();
+                if (sourceStatistics.getOutputSizeInBytes().isPresent()) {
+                    sizeInBytes += sourceStatistics.getOutputSizeInBytes().getAsDouble();
+                }
+                else {
+                    sizeKnown = false;
+                }
+            }
+            return new PlanNodeStatistics(OptionalDouble.of(rowCount), sizeKnown ? OptionalDouble.of(sizeInBytes) : OptionalDouble.empty(), ImmutableMap.of());
+        }
+    }
+}
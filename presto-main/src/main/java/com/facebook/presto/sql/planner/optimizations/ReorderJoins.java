@@ -0,0 +1,207 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.SystemSessionProperties;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.PlanRewriter;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reorders trees of inner joins using the estimated sizes of their inputs. The largest
+ * input becomes the probe side of the bottom join, and inputs connected to the joined
+ * inputs by a join clause are added one at a time, picking the one that produces the
+ * fewest rows. Joins are left as they are when the size of any input is unknown.
+ */
+public class ReorderJoins
+        extends PlanOptimizer
+{
+    private final Metadata metadata;
+    private final boolean reorderJoins;
+
+    public ReorderJoins(Metadata metadata, boolean reorderJoins)
+    {
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        this.reorderJoins = reorderJoins;
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+    {
+        checkNotNull(plan, "plan is null");
+        checkNotNull(session, "session is null");
+        checkNotNull(types, "types is null");
+        checkNotNull(symbolAllocator, "symbolAllocator is null");
+        checkNotNull(idAllocator, "idAllocator is null");
+
+        if (SystemSessionProperties.isReorderJoinsEnabled(session, reorderJoins)) {
+            return PlanRewriter.rewriteWith(new Rewriter(idAllocator, new PlanNodeStatisticsEstimator(metadata, session)), plan, null);
+        }
+        return plan;
+    }
+
+    private static class Rewriter
+            extends PlanRewriter<Void>
+    {
+        private final PlanNodeIdAllocator idAllocator;
+        private final PlanNodeStatisticsEstimator estimator;
+
+        private Rewriter(PlanNodeIdAllocator idAllocator, PlanNodeStatisticsEstimator estimator)
+        {
+            this.idAllocator = checkNotNull(idAllocator, "idAllocator is null");
+            this.estimator = checkNotNull(estimator, "estimator is null");
+        }
+
+        @Override
+        public PlanNode visitJoin(JoinNode node, RewriteContext<Void> context)
+        {
+            if (!isReorderable(node)) {
+                return context.defaultRewrite(node);
+            }
+
+            List<PlanNode> sources = new ArrayList<>();
+            List<JoinNode.EquiJoinClause> criteria = new ArrayList<>();
+            flatten(node, sources, criteria);
+            if (sources.size() < 3) {
+                // a single join is ordered by the distribution of the join
+                return context.defaultRewrite(node);
+            }
+
+            List<PlanNode> rewrittenSources = new ArrayList<>();
+            for (PlanNode source : sources) {
+                PlanNode rewritten = context.rewrite(source);
+                if (!estimator.estimate(rewritten).getOutputRowCount().isPresent()) {
+                    return context.defaultRewrite(node);
+                }
+                rewrittenSources.add(rewritten);
+            }
+
+            Optional<PlanNode> result = chooseJoinOrder(rewrittenSources, criteria);
+            if (!result.isPresent()) {
+                return context.defaultRewrite(node);
+            }
+
+            PlanNode joins = result.get();
+            if (joins.getOutputSymbols().equals(node.getOutputSymbols())) {
+                return joins;
+            }
+
+            // restore the order of the output symbols expected by the parent
+            ImmutableMap.Builder<Symbol, Expression> assignments = ImmutableMap.builder();
+            for (Symbol symbol : node.getOutputSymbols()) {
+                assignments.put(symbol, symbol.toQualifiedNameReference());
+            }
+            return new ProjectNode(idAllocator.getNextId(), joins, assignments.build());
+        }
+
+        private Optional<PlanNode> chooseJoinOrder(List<PlanNode> sources, List<JoinNode.EquiJoinClause> criteria)
+        {
+            List<PlanNode> remaining = new ArrayList<>(sources);
+            List<JoinNode.EquiJoinClause> remainingCriteria = new ArrayList<>(criteria);
+
+            // stream the largest input through the joins so it is never built into a hash table
+            PlanNode current = remaining.stream()
+                    .max(Comparator.comparing(source -> estimator.estimate(source).getOutputRowCount().getAsDouble()))
+                    .get();
+            remaining.remove(current);
+
+            while (!remaining.isEmpty()) {
+                PlanNodeId id = idAllocator.getNextId();
+                JoinNode best = null;
+                double bestCost = Double.POSITIVE_INFINITY;
+                for (PlanNode source : remaining) {
+                    List<JoinNode.EquiJoinClause> clauses = getJoinClauses(current, source, remainingCriteria);
+                    if (clauses.isEmpty()) {
+                        continue;
+                    }
+                    JoinNode candidate = new JoinNode(id, JoinNode.Type.INNER, current, source, clauses, Optional.empty(), Optional.empty());
+                    double cost = estimator.estimate(candidate).getOutputRowCount().getAsDouble() + estimator.estimate(source).getOutputRowCount().getAsDouble();
+                    if (cost < bestCost) {
+                        best = candidate;
+                        bestCost = cost;
+                    }
+                }
+                if (best == null) {
+                    // the remaining inputs are only connected by a cross join
+                    return Optional.empty();
+                }
+
+                remaining.remove(best.getRight());
+                Set<Symbol> joinedSymbols = ImmutableSet.copyOf(best.getOutputSymbols());
+                remainingCriteria.removeIf(clause -> joinedSymbols.contains(clause.getLeft()) && joinedSymbols.contains(clause.getRight()));
+                current = best;
+            }
+            return Optional.of(current);
+        }
+
+        private static List<JoinNode.EquiJoinClause> getJoinClauses(PlanNode left, PlanNode right, List<JoinNode.EquiJoinClause> criteria)
+        {
+            Set<Symbol> leftSymbols = ImmutableSet.copyOf(left.getOutputSymbols());
+            Set<Symbol> rightSymbols = ImmutableSet.copyOf(right.getOutputSymbols());
+
+            ImmutableList.Builder<JoinNode.EquiJoinClause> clauses = ImmutableList.builder();
+            for (JoinNode.EquiJoinClause clause : criteria) {
+                if (leftSymbols.contains(clause.getLeft()) && rightSymbols.contains(clause.getRight())) {
+                    clauses.add(clause);
+                }
+                else if (leftSymbols.contains(clause.getRight()) && rightSymbols.contains(clause.getLeft())) {
+                    clauses.add(new JoinNode.EquiJoinClause(clause.getRight(), clause.getLeft()));
+                }
+            }
+            return clauses.build();
+        }
+
+        private static void flatten(PlanNode node, List<PlanNode> sources, List<JoinNode.EquiJoinClause> criteria)
+        {
+            if (node instanceof JoinNode && isReorderable((JoinNode) node)) {
+                JoinNode join = (JoinNode) node;
+                flatten(join.getLeft(), sources, criteria);
+                flatten(join.getRight(), sources, criteria);
+                criteria.addAll(join.getCriteria());
+            }
+            else {
+                sources.add(node);
+            }
+        }
+
+        private static boolean isReorderable(JoinNode node)
+        {
+            return node.getType() == JoinNode.Type.INNER &&
+                    !node.getCriteria().isEmpty() &&
+                    !node.getLeftHashSymbol().isPresent() &&
+                    !node.getRightHashSymbol().isPresent();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.block;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.block.CompressedPagesSerde.readPages;
+import static com.facebook.presto.block.CompressedPagesSerde.writePages;
+import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestCompressedPagesSerde
+{
+    private static final BlockEncodingManager blockEncodingManager = new BlockEncodingManager(new TypeRegistry());
+    private static final List<Type> TYPES = ImmutableList.<Type>of(BIGINT, VARCHAR);
+
+    @Test
+    public void testRoundTrip()
+    {
+        // a large, repetitive page is compressed, a tiny page is not
+        Page largePage = createPage(10_000);
+        Page smallPage = createPage(3);
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        writePages(blockEncodingManager, sliceOutput, ImmutableList.of(largePage, smallPage, largePage));
+        Slice slice = sliceOutput.slice();
+
+        CompressedPagesSerde.PagesReader reader = readPages(blockEncodingManager, slice.getInput());
+        assertPageEquals(TYPES, reader.next(), largePage);
+        assertPageEquals(TYPES, reader.next(), smallPage);
+        assertPageEquals(TYPES, reader.next(), largePage);
+        assertFalse(reader.hasNext());
+
+        assertEquals(reader.getCompressedBytes(), slice.length());
+        assertTrue(reader.getCompressedBytes() < reader.getUncompressedBytes());
+    }
+
+    @Test
+    public void testSmallPageNotCompressed()
+    {
+        Page page = createPage(3);
+
+        DynamicSliceOutput uncompressedOutput = new DynamicSliceOutput(1024);
+        PagesSerde.writePages(blockEncodingManager, uncompressedOutput, page);
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        writePages(blockEncodingManager, sliceOutput, ImmutableList.of(page));
+
+        CompressedPagesSerde.PagesReader reader = readPages(blockEncodingManager, sliceOutput.slice().getInput());
+        assertPageEquals(TYPES, reader.next(), page);
+        assertFalse(reader.hasNext());
+
+        // only the frame header is added
+        assertEquals(reader.getUncompressedBytes(), uncompressedOutput.size());
+        assertEquals(reader.getCompressedBytes(), uncompressedOutput.size() + 9);
+    }
+
+    private static Page createPage(int positions)
+    {
+        BlockBuilder bigintBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), positions);
+        BlockBuilder varcharBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), positions);
+        for (int i = 0; i < positions; i++) {
+            BIGINT.writeLong(bigintBuilder, i % 10);
+            VARCHAR.writeString(varcharBuilder, "value " + (i % 10));
+        }
+        return new Page(bigintBuilder.build(), varcharBuilder.build());
+    }
+}
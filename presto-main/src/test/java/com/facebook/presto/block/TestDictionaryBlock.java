@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.block;
+
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.SliceArrayBlock;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestDictionaryBlock
+        extends AbstractTestBlock
+{
+    @Test
+    public void test()
+    {
+        Slice[] dictionary = createDictionary(10);
+        int[] ids = createIds(100, dictionary.length);
+        Block block = new DictionaryBlock(ids.length, new SliceArrayBlock(dictionary.length, dictionary), ids);
+        assertBlock(block, expectedValues(dictionary, ids));
+    }
+
+    @Test
+    public void testSerializationCompactsDictionary()
+    {
+        Slice[] dictionary = createDictionary(1000);
+        int[] ids = createIds(10, 3);
+        Block block = new DictionaryBlock(ids.length, new SliceArrayBlock(dictionary.length, dictionary), ids);
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        block.getEncoding().writeBlock(sliceOutput, block);
+        DictionaryBlock copy = (DictionaryBlock) block.getEncoding().readBlock(sliceOutput.slice().getInput());
+
+        assertEquals(copy.getDictionary().getPositionCount(), 3);
+        assertTrue(sliceOutput.size() < block.getEncoding().getEstimatedSize(block));
+        assertBlock(copy, expectedValues(dictionary, ids));
+    }
+
+    private static Slice[] createDictionary(int size)
+    {
+        // the last entry is null
+        Slice[] dictionary = new Slice[size + 1];
+        for (int i = 0; i < size; i++) {
+            dictionary[i] = createExpectedValue(i);
+        }
+        return dictionary;
+    }
+
+    private static int[] createIds(int positionCount, int dictionarySize)
+    {
+        int[] ids = new int[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            ids[position] = (position * 7) % dictionarySize;
+        }
+        return ids;
+    }
+
+    private static Slice[] expectedValues(Slice[] dictionary, int[] ids)
+    {
+        Slice[] expectedValues = new Slice[ids.length];
+        for (int position = 0; position < ids.length; position++) {
+            expectedValues[position] = dictionary[ids[position]];
+        }
+        return expectedValues;
+    }
+}
@@ -13,8 +13,10 @@
  */
 package com.facebook.presto.block;
 
+import com.facebook.presto.spi.block.DictionaryBlock;
 import com.facebook.presto.spi.block.LazyBlockLoader;
 import com.facebook.presto.spi.block.LazySliceArrayBlock;
+import com.facebook.presto.spi.block.SliceArrayBlock;
 import io.airlift.slice.Slice;
 import org.testng.annotations.Test;
 
@@ -32,6 +34,29 @@ public class TestLazySliceArrayBlock
         assertVariableWithValues((Slice[]) alternatingNullValues(expectedValues));
     }
 
+    @Test
+    public void testDictionary()
+    {
+        // the last entry is null
+        Slice[] dictionary = new Slice[11];
+        for (int i = 0; i < 10; i++) {
+            dictionary[i] = createExpectedValue(i);
+        }
+
+        int[] ids = new int[100];
+        Slice[] expectedValues = new Slice[ids.length];
+        for (int position = 0; position < ids.length; position++) {
+            ids[position] = (position * 7) % dictionary.length;
+            expectedValues[position] = dictionary[ids[position]];
+        }
+
+        LazySliceArrayBlock block = new LazySliceArrayBlock(ids.length, lazyBlock -> lazyBlock.setValues(new SliceArrayBlock(dictionary.length, dictionary), ids));
+        assertBlock(block, expectedValues);
+        assertTrue(block.isDictionary());
+        assertBlock(block.toDictionaryBlock(), expectedValues);
+        assertTrue(block.getRegion(0, 10) instanceof DictionaryBlock);
+    }
+
     @Test
     public void testRelease()
     {
@@ -182,6 +182,12 @@ public class MockRemoteTaskFactory
                     failures);
         }
 
+        @Override
+        public TaskStatus getTaskStatus()
+        {
+            return getTaskInfo().toTaskStatus();
+        }
+
         @Override
         public void start()
         {
@@ -218,9 +224,9 @@ public class MockRemoteTaskFactory
         }
 
         @Override
-        public void addStateChangeListener(StateChangeListener<TaskInfo> stateChangeListener)
+        public void addStateChangeListener(StateChangeListener<TaskStatus> stateChangeListener)
         {
-            taskStateMachine.addStateChangeListener(newValue -> stateChangeListener.stateChanged(getTaskInfo()));
+            taskStateMachine.addStateChangeListener(newValue -> stateChangeListener.stateChanged(getTaskStatus()));
         }
 
         @Override
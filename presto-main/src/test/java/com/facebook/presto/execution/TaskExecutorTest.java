@@ -17,6 +17,8 @@ import com.facebook.presto.execution.TaskExecutor.TaskHandle;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.testing.TestingTicker;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
@@ -25,6 +27,9 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.testng.Assert.assertEquals;
 
 public class TaskExecutorTest
@@ -142,6 +147,139 @@ public class TaskExecutorTest
         }
     }
 
+    @Test
+    public void testPriorityLevelIsSharedByTheTasksOfAQuery()
+            throws Exception
+    {
+        TestingTicker ticker = new TestingTicker();
+        TaskExecutor taskExecutor = new TaskExecutor(4, 8, ticker);
+        taskExecutor.start();
+
+        try {
+            TaskHandle task1 = taskExecutor.addTask(new TaskId("query", "stage", "1"));
+            TaskHandle task2 = taskExecutor.addTask(new TaskId("query", "stage", "2"));
+            TaskHandle otherQueryTask = taskExecutor.addTask(new TaskId("other", "stage", "1"));
+            assertEquals(task1.getPriorityLevel(), 0);
+
+            // a split of the first task runs for two seconds of thread time
+            ScriptedJob job = new ScriptedJob(ticker, new Duration(2, SECONDS), false);
+            ListenableFuture<?> finished = getOnlyElement(taskExecutor.enqueueSplits(task1, false, ImmutableList.of(job)));
+            job.unblock();
+            finished.get(10, SECONDS);
+
+            // the usage is charged to the query, so the other task of the query moves down as well
+            assertEquals(task1.getPriorityLevel(), 1);
+            assertEquals(task2.getPriorityLevel(), 1);
+            assertEquals(otherQueryTask.getPriorityLevel(), 0);
+
+            // the query state goes away with its last task
+            taskExecutor.removeTask(task1);
+            taskExecutor.removeTask(task2);
+            assertEquals(taskExecutor.addTask(new TaskId("query", "stage", "3")).getPriorityLevel(), 0);
+        }
+        finally {
+            taskExecutor.stop();
+        }
+    }
+
+    @Test
+    public void testBoostForInputBlockedQueries()
+            throws Exception
+    {
+        assertEquals(getPriorityLevelAfterBlocking(true), 1);
+    }
+
+    @Test
+    public void testNoBoostForOutputBlockedQueries()
+            throws Exception
+    {
+        // a query throttled by its consumers is not treated as I/O bound
+        assertEquals(getPriorityLevelAfterBlocking(false), 2);
+    }
+
+    private static int getPriorityLevelAfterBlocking(boolean blockedOnInput)
+            throws Exception
+    {
+        TestingTicker ticker = new TestingTicker();
+        TaskExecutor taskExecutor = new TaskExecutor(4, 8, ticker);
+        taskExecutor.start();
+
+        try {
+            TaskHandle taskHandle = taskExecutor.addTask(new TaskId("query", "stage", "1"));
+
+            // the split runs for 20 seconds, which puts the query in level 2, and then blocks
+            ScriptedJob job = new ScriptedJob(ticker, new Duration(20, SECONDS), blockedOnInput);
+            ListenableFuture<?> finished = getOnlyElement(taskExecutor.enqueueSplits(taskHandle, false, ImmutableList.of(job)));
+            while (taskExecutor.getBlockedSplits() == 0) {
+                MILLISECONDS.sleep(1);
+            }
+            assertEquals(taskHandle.getPriorityLevel(), 2);
+
+            // the split stays blocked for more than twice as long as it ran
+            ticker.increment(50, SECONDS);
+            job.unblock();
+            finished.get(10, SECONDS);
+            return taskHandle.getPriorityLevel();
+        }
+        finally {
+            taskExecutor.stop();
+        }
+    }
+
+    /**
+     * Runs for a fixed amount of ticker time on the first call, and returns
+     * a blocked future that must be released with {@link #unblock}.  The job
+     * finishes on the second call.
+     */
+    private static class ScriptedJob
+            implements SplitRunner
+    {
+        private final TestingTicker ticker;
+        private final Duration runTime;
+        private final boolean blockedOnInput;
+        private final SettableFuture<?> blocked = SettableFuture.create();
+        private final AtomicInteger calls = new AtomicInteger();
+
+        public ScriptedJob(TestingTicker ticker, Duration runTime, boolean blockedOnInput)
+        {
+            this.ticker = ticker;
+            this.runTime = runTime;
+            this.blockedOnInput = blockedOnInput;
+        }
+
+        public void unblock()
+        {
+            blocked.set(null);
+        }
+
+        @Override
+        public ListenableFuture<?> processFor(Duration duration)
+        {
+            if (calls.incrementAndGet() == 1) {
+                ticker.increment(runTime.roundTo(NANOSECONDS), NANOSECONDS);
+                return blocked;
+            }
+            return Futures.immediateFuture(null);
+        }
+
+        @Override
+        public boolean isBlockedOnInput()
+        {
+            return blockedOnInput;
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return calls.get() >= 2;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
     private static class TestingJob
             implements SplitRunner
     {
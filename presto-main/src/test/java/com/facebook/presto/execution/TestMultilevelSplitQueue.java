@@ -0,0 +1,109 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+
+public class TestMultilevelSplitQueue
+{
+    @Test
+    public void testOrderWithinLevel()
+            throws Exception
+    {
+        MultilevelSplitQueue<Integer> queue = new MultilevelSplitQueue<>(3, 2);
+        queue.offer(1, 30);
+        queue.offer(1, 10);
+        queue.offer(1, 20);
+
+        assertEquals(queue.size(), 3);
+        assertEquals(queue.getLevelSize(1), 3);
+        assertEquals(queue.take().getSplit(), Integer.valueOf(10));
+        assertEquals(queue.take().getSplit(), Integer.valueOf(20));
+        assertEquals(queue.take().getSplit(), Integer.valueOf(30));
+        assertEquals(queue.size(), 0);
+        assertEquals(queue.getLevelWaitTime(1).getAllTime().getCount(), 3.0);
+    }
+
+    @Test
+    public void testLevelTimeShares()
+            throws Exception
+    {
+        MultilevelSplitQueue<Integer> queue = new MultilevelSplitQueue<>(2, 2);
+        for (int i = 0; i < 10; i++) {
+            queue.offer(0, i);
+            queue.offer(1, 100 + i);
+        }
+
+        // level 0 is entitled to twice the time of level 1
+        assertTakeLevel(queue, 0, 1);
+        assertTakeLevel(queue, 1, 1);
+        assertTakeLevel(queue, 0, 1);
+        assertTakeLevel(queue, 0, 1);
+        assertTakeLevel(queue, 1, 1);
+        assertTakeLevel(queue, 0, 1);
+        assertTakeLevel(queue, 0, 1);
+
+        assertEquals(queue.getLevelScheduledNanos(0), SECONDS.toNanos(5));
+        assertEquals(queue.getLevelScheduledNanos(1), SECONDS.toNanos(2));
+    }
+
+    @Test
+    public void testIdleLevelDoesNotBurst()
+            throws Exception
+    {
+        MultilevelSplitQueue<Integer> queue = new MultilevelSplitQueue<>(2, 2);
+        for (int i = 0; i < 10; i++) {
+            queue.offer(1, 100 + i);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertTakeLevel(queue, 1, 10);
+        }
+
+        // level 0 starts even with level 1 instead of getting all threads for 100 seconds
+        for (int i = 0; i < 10; i++) {
+            queue.offer(0, i);
+        }
+        assertTakeLevel(queue, 0, 10);
+        assertTakeLevel(queue, 1, 10);
+        assertTakeLevel(queue, 0, 10);
+    }
+
+    @Test
+    public void testRemoveAll()
+            throws Exception
+    {
+        MultilevelSplitQueue<Integer> queue = new MultilevelSplitQueue<>(3, 2);
+        queue.offer(0, 1);
+        queue.offer(1, 2);
+        queue.offer(2, 3);
+        queue.removeAll(ImmutableList.of(1, 3));
+
+        assertEquals(queue.size(), 1);
+        assertEquals(queue.getLevelSize(0), 0);
+        assertEquals(queue.getLevelSize(2), 0);
+        assertEquals(queue.take().getSplit(), Integer.valueOf(2));
+    }
+
+    private static void assertTakeLevel(MultilevelSplitQueue<Integer> queue, int expectedLevel, long runSeconds)
+            throws InterruptedException
+    {
+        MultilevelSplitQueue.QueuedSplit<Integer> split = queue.take();
+        assertEquals(split.getLevel(), expectedLevel);
+        queue.addLevelTime(split.getLevel(), SECONDS.toNanos(runSeconds));
+    }
+}
@@ -445,6 +445,12 @@ public class TestSqlStageExecution
                         failures);
             }
 
+            @Override
+            public TaskStatus getTaskStatus()
+            {
+                return getTaskInfo().toTaskStatus();
+            }
+
             public void finished()
             {
                 taskStateMachine.finished();
@@ -477,9 +483,9 @@ public class TestSqlStageExecution
             }
 
             @Override
-            public void addStateChangeListener(StateChangeListener<TaskInfo> stateChangeListener)
+            public void addStateChangeListener(StateChangeListener<TaskStatus> stateChangeListener)
             {
-                taskStateMachine.addStateChangeListener(newValue -> stateChangeListener.stateChanged(getTaskInfo()));
+                taskStateMachine.addStateChangeListener(newValue -> stateChangeListener.stateChanged(getTaskStatus()));
             }
 
             @Override
@@ -36,6 +36,7 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
 import java.net.URI;
+import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
@@ -48,6 +49,7 @@ import static com.facebook.presto.execution.TaskTestUtils.SPLIT;
 import static com.facebook.presto.execution.TaskTestUtils.TABLE_SCAN_NODE_ID;
 import static com.facebook.presto.execution.TaskTestUtils.createTestingPlanner;
 import static com.facebook.presto.execution.TaskTestUtils.updateTask;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static io.airlift.concurrent.Threads.threadsNamed;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
@@ -101,38 +103,53 @@ public class TestSqlTask
     {
         SqlTask sqlTask = createInitialTask();
 
-        TaskInfo taskInfo = sqlTask.updateTask(TEST_SESSION,
-                PLAN_FRAGMENT,
+        TaskStatus taskStatus = sqlTask.updateTask(TEST_SESSION,
+                Optional.of(PLAN_FRAGMENT),
                 ImmutableList.<TaskSource>of(),
                 INITIAL_EMPTY_OUTPUT_BUFFERS);
-        assertEquals(taskInfo.getState(), TaskState.RUNNING);
+        assertEquals(taskStatus.getState(), TaskState.RUNNING);
 
-        taskInfo = sqlTask.getTaskInfo();
+        TaskInfo taskInfo = sqlTask.getTaskInfo();
         assertEquals(taskInfo.getState(), TaskState.RUNNING);
 
-        taskInfo = sqlTask.updateTask(TEST_SESSION,
-                PLAN_FRAGMENT,
+        taskStatus = sqlTask.updateTask(TEST_SESSION,
+                Optional.empty(),
                 ImmutableList.of(new TaskSource(TABLE_SCAN_NODE_ID, ImmutableSet.<ScheduledSplit>of(), true)),
                 INITIAL_EMPTY_OUTPUT_BUFFERS.withNoMoreBufferIds());
-        assertEquals(taskInfo.getState(), TaskState.FINISHED);
+        assertEquals(taskStatus.getState(), TaskState.FINISHED);
 
         taskInfo = sqlTask.getTaskInfo();
         assertEquals(taskInfo.getState(), TaskState.FINISHED);
     }
 
+    @Test
+    public void testUpdateWithoutFragment()
+            throws Exception
+    {
+        SqlTask sqlTask = createInitialTask();
+
+        // the fragment is only omitted after the task has been created, so the task can not run
+        TaskStatus taskStatus = sqlTask.updateTask(TEST_SESSION,
+                Optional.empty(),
+                ImmutableList.<TaskSource>of(),
+                INITIAL_EMPTY_OUTPUT_BUFFERS);
+        assertEquals(taskStatus.getState(), TaskState.FAILED);
+    }
+
     @Test
     public void testSimpleQuery()
             throws Exception
     {
         SqlTask sqlTask = createInitialTask();
 
-        TaskInfo taskInfo = sqlTask.updateTask(TEST_SESSION,
-                PLAN_FRAGMENT,
+        TaskStatus taskStatus = sqlTask.updateTask(TEST_SESSION,
+                Optional.of(PLAN_FRAGMENT),
                 ImmutableList.of(new TaskSource(TABLE_SCAN_NODE_ID, ImmutableSet.of(SPLIT), true)),
                 INITIAL_EMPTY_OUTPUT_BUFFERS.withBuffer(OUT, new UnpartitionedPagePartitionFunction()).withNoMoreBufferIds());
-        assertEquals(taskInfo.getState(), TaskState.RUNNING);
+        assertEquals(taskStatus.getState(), TaskState.RUNNING);
+        assertEquals(sqlTask.getOutputTypes(), ImmutableList.of(VARCHAR));
 
-        taskInfo = sqlTask.getTaskInfo();
+        TaskInfo taskInfo = sqlTask.getTaskInfo();
         assertEquals(taskInfo.getState(), TaskState.RUNNING);
 
         BufferResult results = sqlTask.getTaskResults(OUT, 0, new DataSize(1, MEGABYTE)).get();
@@ -156,14 +173,13 @@ public class TestSqlTask
     {
         SqlTask sqlTask = createInitialTask();
 
-        TaskInfo taskInfo = sqlTask.updateTask(TEST_SESSION,
-                PLAN_FRAGMENT,
+        TaskStatus taskStatus = sqlTask.updateTask(TEST_SESSION,
+                Optional.of(PLAN_FRAGMENT),
                 ImmutableList.<TaskSource>of(),
                 INITIAL_EMPTY_OUTPUT_BUFFERS);
-        assertEquals(taskInfo.getState(), TaskState.RUNNING);
-        assertNull(taskInfo.getStats().getEndTime());
+        assertEquals(taskStatus.getState(), TaskState.RUNNING);
 
-        taskInfo = sqlTask.getTaskInfo();
+        TaskInfo taskInfo = sqlTask.getTaskInfo();
         assertEquals(taskInfo.getState(), TaskState.RUNNING);
         assertNull(taskInfo.getStats().getEndTime());
 
@@ -176,19 +192,51 @@ public class TestSqlTask
         assertNotNull(taskInfo.getStats().getEndTime());
     }
 
+    @Test
+    public void testTaskStatus()
+            throws Exception
+    {
+        SqlTask sqlTask = createInitialTask();
+
+        TaskStatus taskStatus = sqlTask.getTaskStatus();
+        assertEquals(taskStatus.getState(), TaskState.RUNNING);
+        assertEquals(taskStatus.getSelf(), sqlTask.getTaskInfo().getSelf());
+
+        TaskStatus updateStatus = sqlTask.updateTask(TEST_SESSION,
+                Optional.of(PLAN_FRAGMENT),
+                ImmutableList.<TaskSource>of(),
+                INITIAL_EMPTY_OUTPUT_BUFFERS);
+        assertEquals(updateStatus.getState(), TaskState.RUNNING);
+
+        // the status and the info share a version sequence
+        taskStatus = sqlTask.getTaskStatus();
+        assertEquals(taskStatus.getState(), TaskState.RUNNING);
+        assertTrue(taskStatus.getVersion() > updateStatus.getVersion());
+        assertTrue(sqlTask.getTaskInfo().getVersion() > taskStatus.getVersion());
+
+        ListenableFuture<TaskStatus> futureTaskStatus = sqlTask.getTaskStatus(TaskState.RUNNING);
+        assertFalse(futureTaskStatus.isDone());
+
+        sqlTask.cancel();
+        taskStatus = futureTaskStatus.get(1, SECONDS);
+        assertEquals(taskStatus.getState(), TaskState.CANCELED);
+        assertEquals(taskStatus.getQueuedPartitionedDrivers(), 0);
+        assertEquals(taskStatus.getRunningPartitionedDrivers(), 0);
+    }
+
     @Test
     public void testAbort()
             throws Exception
     {
         SqlTask sqlTask = createInitialTask();
 
-        TaskInfo taskInfo = sqlTask.updateTask(TEST_SESSION,
-                PLAN_FRAGMENT,
+        TaskStatus taskStatus = sqlTask.updateTask(TEST_SESSION,
+                Optional.of(PLAN_FRAGMENT),
                 ImmutableList.of(new TaskSource(TABLE_SCAN_NODE_ID, ImmutableSet.of(SPLIT), true)),
                 INITIAL_EMPTY_OUTPUT_BUFFERS.withBuffer(OUT, new UnpartitionedPagePartitionFunction()).withNoMoreBufferIds());
-        assertEquals(taskInfo.getState(), TaskState.RUNNING);
+        assertEquals(taskStatus.getState(), TaskState.RUNNING);
 
-        taskInfo = sqlTask.getTaskInfo();
+        TaskInfo taskInfo = sqlTask.getTaskInfo();
         assertEquals(taskInfo.getState(), TaskState.RUNNING);
 
         sqlTask.abortTaskResults(OUT);
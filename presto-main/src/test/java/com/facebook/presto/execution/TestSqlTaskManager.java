@@ -35,6 +35,7 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
 import java.net.URI;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
@@ -78,22 +79,22 @@ public class TestSqlTaskManager
     {
         try (SqlTaskManager sqlTaskManager = createSqlTaskManager(new TaskManagerConfig())) {
             TaskId taskId = TASK_ID;
-            TaskInfo taskInfo = sqlTaskManager.updateTask(TEST_SESSION,
+            TaskStatus taskStatus = sqlTaskManager.updateTask(TEST_SESSION,
                     taskId,
-                    PLAN_FRAGMENT,
+                    Optional.of(PLAN_FRAGMENT),
                     ImmutableList.<TaskSource>of(),
                     INITIAL_EMPTY_OUTPUT_BUFFERS);
-            assertEquals(taskInfo.getState(), TaskState.RUNNING);
+            assertEquals(taskStatus.getState(), TaskState.RUNNING);
 
-            taskInfo = sqlTaskManager.getTaskInfo(taskId);
+            TaskInfo taskInfo = sqlTaskManager.getTaskInfo(taskId);
             assertEquals(taskInfo.getState(), TaskState.RUNNING);
 
-            taskInfo = sqlTaskManager.updateTask(TEST_SESSION,
+            taskStatus = sqlTaskManager.updateTask(TEST_SESSION,
                     taskId,
-                    PLAN_FRAGMENT,
+                    Optional.of(PLAN_FRAGMENT),
                     ImmutableList.of(new TaskSource(TABLE_SCAN_NODE_ID, ImmutableSet.<ScheduledSplit>of(), true)),
                     INITIAL_EMPTY_OUTPUT_BUFFERS.withNoMoreBufferIds());
-            assertEquals(taskInfo.getState(), TaskState.FINISHED);
+            assertEquals(taskStatus.getState(), TaskState.FINISHED);
 
             taskInfo = sqlTaskManager.getTaskInfo(taskId);
             assertEquals(taskInfo.getState(), TaskState.FINISHED);
@@ -106,14 +107,14 @@ public class TestSqlTaskManager
     {
         try (SqlTaskManager sqlTaskManager = createSqlTaskManager(new TaskManagerConfig())) {
             TaskId taskId = TASK_ID;
-            TaskInfo taskInfo = sqlTaskManager.updateTask(TEST_SESSION,
+            TaskStatus taskStatus = sqlTaskManager.updateTask(TEST_SESSION,
                     taskId,
-                    PLAN_FRAGMENT,
+                    Optional.of(PLAN_FRAGMENT),
                     ImmutableList.of(new TaskSource(TABLE_SCAN_NODE_ID, ImmutableSet.of(SPLIT), true)),
                     INITIAL_EMPTY_OUTPUT_BUFFERS.withBuffer(OUT, new UnpartitionedPagePartitionFunction()).withNoMoreBufferIds());
-            assertEquals(taskInfo.getState(), TaskState.RUNNING);
+            assertEquals(taskStatus.getState(), TaskState.RUNNING);
 
-            taskInfo = sqlTaskManager.getTaskInfo(taskId);
+            TaskInfo taskInfo = sqlTaskManager.getTaskInfo(taskId);
             assertEquals(taskInfo.getState(), TaskState.RUNNING);
 
             BufferResult results = sqlTaskManager.getTaskResults(taskId, OUT, 0, new DataSize(1, Unit.MEGABYTE)).get();
@@ -138,15 +139,14 @@ public class TestSqlTaskManager
     {
         try (SqlTaskManager sqlTaskManager = createSqlTaskManager(new TaskManagerConfig())) {
             TaskId taskId = TASK_ID;
-            TaskInfo taskInfo = sqlTaskManager.updateTask(TEST_SESSION,
+            TaskStatus taskStatus = sqlTaskManager.updateTask(TEST_SESSION,
                     taskId,
-                    PLAN_FRAGMENT,
+                    Optional.of(PLAN_FRAGMENT),
                     ImmutableList.<TaskSource>of(),
                     INITIAL_EMPTY_OUTPUT_BUFFERS);
-            assertEquals(taskInfo.getState(), TaskState.RUNNING);
-            assertNull(taskInfo.getStats().getEndTime());
+            assertEquals(taskStatus.getState(), TaskState.RUNNING);
 
-            taskInfo = sqlTaskManager.getTaskInfo(taskId);
+            TaskInfo taskInfo = sqlTaskManager.getTaskInfo(taskId);
             assertEquals(taskInfo.getState(), TaskState.RUNNING);
             assertNull(taskInfo.getStats().getEndTime());
 
@@ -166,15 +166,14 @@ public class TestSqlTaskManager
     {
         try (SqlTaskManager sqlTaskManager = createSqlTaskManager(new TaskManagerConfig())) {
             TaskId taskId = TASK_ID;
-            TaskInfo taskInfo = sqlTaskManager.updateTask(TEST_SESSION,
+            TaskStatus taskStatus = sqlTaskManager.updateTask(TEST_SESSION,
                     taskId,
-                    PLAN_FRAGMENT,
+                    Optional.of(PLAN_FRAGMENT),
                     ImmutableList.<TaskSource>of(),
                     INITIAL_EMPTY_OUTPUT_BUFFERS);
-            assertEquals(taskInfo.getState(), TaskState.RUNNING);
-            assertNull(taskInfo.getStats().getEndTime());
+            assertEquals(taskStatus.getState(), TaskState.RUNNING);
 
-            taskInfo = sqlTaskManager.getTaskInfo(taskId);
+            TaskInfo taskInfo = sqlTaskManager.getTaskInfo(taskId);
             assertEquals(taskInfo.getState(), TaskState.RUNNING);
             assertNull(taskInfo.getStats().getEndTime());
 
@@ -194,14 +193,14 @@ public class TestSqlTaskManager
     {
         try (SqlTaskManager sqlTaskManager = createSqlTaskManager(new TaskManagerConfig())) {
             TaskId taskId = TASK_ID;
-            TaskInfo taskInfo = sqlTaskManager.updateTask(TEST_SESSION,
+            TaskStatus taskStatus = sqlTaskManager.updateTask(TEST_SESSION,
                     taskId,
-                    PLAN_FRAGMENT,
+                    Optional.of(PLAN_FRAGMENT),
                     ImmutableList.of(new TaskSource(TABLE_SCAN_NODE_ID, ImmutableSet.of(SPLIT), true)),
                     INITIAL_EMPTY_OUTPUT_BUFFERS.withBuffer(OUT, new UnpartitionedPagePartitionFunction()).withNoMoreBufferIds());
-            assertEquals(taskInfo.getState(), TaskState.RUNNING);
+            assertEquals(taskStatus.getState(), TaskState.RUNNING);
 
-            taskInfo = sqlTaskManager.getTaskInfo(taskId);
+            TaskInfo taskInfo = sqlTaskManager.getTaskInfo(taskId);
             assertEquals(taskInfo.getState(), TaskState.RUNNING);
 
             sqlTaskManager.abortTaskResults(taskId, OUT);
@@ -221,14 +220,14 @@ public class TestSqlTaskManager
         try (SqlTaskManager sqlTaskManager = createSqlTaskManager(new TaskManagerConfig().setInfoMaxAge(new Duration(5, TimeUnit.MILLISECONDS)))) {
             TaskId taskId = TASK_ID;
 
-            TaskInfo taskInfo = sqlTaskManager.updateTask(TEST_SESSION,
+            TaskStatus taskStatus = sqlTaskManager.updateTask(TEST_SESSION,
                     taskId,
-                    PLAN_FRAGMENT,
+                    Optional.of(PLAN_FRAGMENT),
                     ImmutableList.<TaskSource>of(),
                     INITIAL_EMPTY_OUTPUT_BUFFERS);
-            assertEquals(taskInfo.getState(), TaskState.RUNNING);
+            assertEquals(taskStatus.getState(), TaskState.RUNNING);
 
-            taskInfo = sqlTaskManager.cancelTask(taskId);
+            TaskInfo taskInfo = sqlTaskManager.cancelTask(taskId);
             assertEquals(taskInfo.getState(), TaskState.CANCELED);
 
             taskInfo = sqlTaskManager.getTaskInfo(taskId);
@@ -18,6 +18,7 @@ import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -33,10 +34,12 @@ public class TestTaskManagerConfig
     {
         assertRecordedDefaults(recordDefaults(TaskManagerConfig.class)
                 .setInfoRefreshMaxWait(new Duration(200, TimeUnit.MILLISECONDS))
+                .setInfoUpdateInterval(new Duration(3, TimeUnit.SECONDS))
                 .setVerboseStats(false)
                 .setTaskCpuTimerEnabled(true)
                 .setMaxWorkerThreads(Runtime.getRuntime().availableProcessors() * 4)
                 .setMinDrivers(Runtime.getRuntime().availableProcessors() * 4 * 2)
+                .setLevelTimeMultiplier(2)
                 .setInfoMaxAge(new Duration(15, TimeUnit.MINUTES))
                 .setClientTimeout(new Duration(2, TimeUnit.MINUTES))
                 .setMaxTaskMemoryUsage(new DataSize(256, Unit.MEGABYTE))
@@ -46,7 +49,10 @@ public class TestTaskManagerConfig
                 .setSinkMaxBufferSize(new DataSize(32, Unit.MEGABYTE))
                 .setWriterCount(1)
                 .setTaskDefaultConcurrency(1)
-                .setHttpNotificationThreads(25));
+                .setHttpNotificationThreads(25)
+                .setSpillEnabled(false)
+                .setSpillPath(Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spills").toString())
+                .setDynamicFilteringEnabled(false));
     }
 
     @Test
@@ -54,6 +60,7 @@ public class TestTaskManagerConfig
     {
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("task.info-refresh-max-wait", "1s")
+                .put("task.info-update-interval", "2s")
                 .put("task.verbose-stats", "true")
                 .put("task.cpu-timer-enabled", "false")
                 .put("task.max-memory", "2GB")
@@ -62,16 +69,21 @@ public class TestTaskManagerConfig
                 .put("task.max-partial-aggregation-memory", "32MB")
                 .put("task.max-worker-threads", "3")
                 .put("task.min-drivers", "2")
+                .put("task.level-time-multiplier", "3.5")
                 .put("task.info.max-age", "22m")
                 .put("task.client.timeout", "10s")
                 .put("sink.max-buffer-size", "42MB")
                 .put("task.writer-count", "3")
                 .put("task.default-concurrency", "7")
                 .put("task.http-notification-threads", "4")
+                .put("task.spill-enabled", "true")
+                .put("task.spill-path", "/tmp/custom/spill/path")
+                .put("task.dynamic-filtering-enabled", "true")
                 .build();
 
         TaskManagerConfig expected = new TaskManagerConfig()
                 .setInfoRefreshMaxWait(new Duration(1, TimeUnit.SECONDS))
+                .setInfoUpdateInterval(new Duration(2, TimeUnit.SECONDS))
                 .setVerboseStats(true)
                 .setTaskCpuTimerEnabled(false)
                 .setMaxTaskMemoryUsage(new DataSize(2, Unit.GIGABYTE))
@@ -80,12 +92,16 @@ public class TestTaskManagerConfig
                 .setMaxPartialAggregationMemoryUsage(new DataSize(32, Unit.MEGABYTE))
                 .setMaxWorkerThreads(3)
                 .setMinDrivers(2)
+                .setLevelTimeMultiplier(3.5)
                 .setInfoMaxAge(new Duration(22, TimeUnit.MINUTES))
                 .setClientTimeout(new Duration(10, TimeUnit.SECONDS))
                 .setSinkMaxBufferSize(new DataSize(42, Unit.MEGABYTE))
                 .setWriterCount(3)
                 .setTaskDefaultConcurrency(7)
-                .setHttpNotificationThreads(4);
+                .setHttpNotificationThreads(4)
+                .setSpillEnabled(true)
+                .setSpillPath("/tmp/custom/spill/path")
+                .setDynamicFilteringEnabled(true);
 
         assertFullMapping(properties, expected);
     }
@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestDynamicFilterCollector
+{
+    @Test
+    public void testDistinctValues()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(BIGINT, VARCHAR, DOUBLE));
+        DynamicFilterCollector collector = new DynamicFilterCollector(dynamicFilter, ImmutableList.of(2, 0, 1));
+
+        List<Page> pages = rowPagesBuilder(VARCHAR, DOUBLE, BIGINT)
+                .row("a", 1.0, 10)
+                .row("b", 2.0, null)
+                .pageBreak()
+                .row("a", 3.0, 30)
+                .build();
+
+        for (Page page : pages) {
+            collector.addPage(page);
+        }
+
+        assertEquals(dynamicFilter.getTupleDomain(ImmutableMap.of(0, "bigint")), TupleDomain.all());
+        assertFalse(dynamicFilter.isDone());
+
+        collector.finish();
+        assertTrue(dynamicFilter.isDone());
+
+        TupleDomain<String> tupleDomain = dynamicFilter.getTupleDomain(ImmutableMap.of(0, "bigint", 1, "varchar", 2, "double"));
+        assertEquals(tupleDomain.getDomains().get("bigint"), Domain.create(SortedRangeSet.of(Range.equal(10L), Range.equal(30L)), false));
+        assertEquals(tupleDomain.getDomains().get("varchar"), Domain.create(SortedRangeSet.of(Range.equal(utf8Slice("a")), Range.equal(utf8Slice("b"))), false));
+        // double is not collected, so it is not constrained
+        assertFalse(tupleDomain.getDomains().containsKey("double"));
+    }
+
+    @Test
+    public void testRange()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(BIGINT));
+        DynamicFilterCollector collector = new DynamicFilterCollector(dynamicFilter, ImmutableList.of(0));
+
+        collector.addPage(rowPagesBuilder(BIGINT).addSequencePage(5000, 100).build().get(0));
+        collector.finish();
+
+        TupleDomain<String> tupleDomain = dynamicFilter.getTupleDomain(ImmutableMap.of(0, "bigint"));
+        assertEquals(tupleDomain.getDomains().get("bigint"), Domain.create(SortedRangeSet.of(Range.range(100L, true, 5099L, true)), false));
+    }
+
+    @Test
+    public void testEmptyBuild()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter(ImmutableList.of(BIGINT));
+        DynamicFilterCollector collector = new DynamicFilterCollector(dynamicFilter, ImmutableList.of(0));
+        collector.finish();
+
+        assertTrue(dynamicFilter.getTupleDomain(ImmutableMap.of(0, "bigint")).isNone());
+    }
+}
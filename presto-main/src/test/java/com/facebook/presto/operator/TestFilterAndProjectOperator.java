@@ -17,9 +17,11 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -30,12 +32,17 @@ import java.util.concurrent.ExecutorService;
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
+import static com.facebook.presto.operator.OperatorAssertion.toPages;
 import static com.facebook.presto.operator.ProjectionFunctions.singleColumn;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static com.facebook.presto.type.TypeUtils.createBlock;
+import static io.airlift.testing.Assertions.assertInstanceOf;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
 
 @Test(singleThreaded = true)
 public class TestFilterAndProjectOperator
@@ -106,6 +113,36 @@ public class TestFilterAndProjectOperator
         assertOperatorEquals(operator, input, expected);
     }
 
+    @Test
+    public void testConstantProjection()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(VARCHAR, BIGINT)
+                .addSequencePage(100, 0, 0)
+                .build();
+
+        ConstantProjections constantProjections = new ConstantProjections(
+                ImmutableList.<Type>of(BIGINT, VARCHAR),
+                ImmutableMap.of(1, createBlock(VARCHAR, "constant")));
+        OperatorFactory operatorFactory = new FilterAndProjectOperator.FilterAndProjectOperatorFactory(
+                0,
+                new GenericPageProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(new Add5Projection(1))),
+                constantProjections);
+
+        Operator operator = operatorFactory.createOperator(driverContext);
+
+        MaterializedResult.Builder expected = MaterializedResult.resultBuilder(driverContext.getSession(), BIGINT, VARCHAR);
+        for (int i = 0; i < 100; i++) {
+            expected.row(i + 5, "constant");
+        }
+
+        List<Page> output = toPages(operator, input);
+        for (Page page : output) {
+            assertInstanceOf(page.getBlock(1), RunLengthEncodedBlock.class);
+        }
+        assertEquals(toMaterializedResult(driverContext.getSession(), operator.getTypes(), output), expected.build());
+    }
+
     private static class Add5Projection
             implements ProjectionFunction
     {
@@ -25,6 +25,7 @@ import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.block.PageBuilderStatus;
 import com.facebook.presto.spi.type.StandardTypes;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.BinarySpillerFactory;
 import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
 import com.facebook.presto.sql.tree.QualifiedName;
 import com.facebook.presto.testing.MaterializedResult;
@@ -38,6 +39,9 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -69,6 +73,7 @@ import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
@@ -363,4 +368,63 @@ public class TestHashAggregationOperator
         assertEquals(actual.getTypes(), expected.getTypes());
         assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
     }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testSpillToDisk(boolean hashEnabled)
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(100_000, 0)
+                .addSequencePage(100_000, 100_000)
+                .addSequencePage(100_000, 0)
+                .addSequencePage(100_000, 100_000)
+                .build();
+
+        Path spillPath = Files.createTempDirectory("spill");
+        MetadataManager metadata = MetadataManager.createTestMetadataManager();
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                Step.SINGLE,
+                ImmutableList.of(LONG_SUM.bind(ImmutableList.of(0), Optional.empty(), Optional.empty(), 1.0)),
+                Optional.<Integer>empty(),
+                rowPagesBuilder.getHashChannel(),
+                10_000,
+                new DataSize(16, MEGABYTE),
+                Optional.of(new BinarySpillerFactory(metadata.getBlockEncodingSerde(), spillPath)));
+
+        // groups of the whole input do not fit in memory, but groups of each spill partition do
+        DriverContext driverContext = createTaskContext(executor, TEST_SESSION, new DataSize(1, Unit.KILOBYTE))
+                .addPipelineContext(true, true)
+                .addDriverContext();
+        Operator operator = operatorFactory.createOperator(driverContext);
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT);
+        for (long i = 0; i < 200_000; i++) {
+            expected.row(i, 2 * i);
+        }
+
+        List<Page> outputPages = toPages(operator, input);
+        operator.close();
+
+        MaterializedResult actual;
+        if (hashEnabled) {
+            List<Page> actualPages = dropChannel(outputPages, hashChannels);
+            List<Type> expectedTypes = without(operator.getTypes(), hashChannels);
+            actual = toMaterializedResult(operator.getOperatorContext().getSession(), expectedTypes, actualPages);
+        }
+        else {
+            actual = toMaterializedResult(operator.getOperatorContext().getSession(), operator.getTypes(), outputPages);
+        }
+
+        assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.build().getMaterializedRows());
+        assertTrue(operator.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+        try (DirectoryStream<Path> spillFiles = Files.newDirectoryStream(spillPath)) {
+            assertFalse(spillFiles.iterator().hasNext(), "spill files were not deleted");
+        }
+        Files.delete(spillPath);
+    }
 }
@@ -15,10 +15,12 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFactory;
 import com.facebook.presto.operator.ValuesOperator.ValuesOperatorFactory;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.BinarySpillerFactory;
 import com.facebook.presto.testing.MaterializedResult;
 import com.facebook.presto.testing.TestingTaskContext;
 import com.google.common.collect.ImmutableList;
@@ -29,18 +31,30 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.dropChannel;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
+import static com.facebook.presto.operator.OperatorAssertion.toPages;
+import static com.facebook.presto.operator.OperatorAssertion.without;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.google.common.collect.Iterables.concat;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestHashJoinOperator
@@ -435,6 +449,73 @@ public class TestHashJoinOperator
         buildHash(parallelBuild, taskContext, Ints.asList(0), buildPages);
     }
 
+    @DataProvider(name = "spillHashEnabledValues")
+    public static Object[][] spillHashEnabledValuesProvider()
+    {
+        return new Object[][] {
+                {true, true},
+                {true, false},
+                {false, true},
+                {false, false}};
+    }
+
+    @Test(dataProvider = "spillHashEnabledValues")
+    public void testInnerJoinWithSpill(boolean probeHashEnabled, boolean buildHashEnabled)
+            throws Exception
+    {
+        // the build side does not fit in memory, but each of its partitions does
+        TaskContext taskContext = TestingTaskContext.createTaskContext(executor, TEST_SESSION, new DataSize(512, KILOBYTE));
+        Path spillPath = Files.createTempDirectory("spill");
+        BinarySpillerFactory spillerFactory = new BinarySpillerFactory(MetadataManager.createTestMetadataManager().getBlockEncodingSerde(), spillPath);
+
+        // build
+        RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), ImmutableList.of(BIGINT, BIGINT));
+        for (int i = 0; i < 8; i++) {
+            buildPages.addSequencePage(5_000, i * 5_000, 100_000 + i * 5_000);
+        }
+        DriverContext buildDriverContext = taskContext.addPipelineContext(true, true).addDriverContext();
+        ValuesOperatorFactory valuesOperatorFactory = new ValuesOperatorFactory(0, buildPages.getTypes(), buildPages.build());
+        HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(1, buildPages.getTypes(), Ints.asList(0), buildPages.getHashChannel(), 100, Optional.of(spillerFactory));
+        Operator hashBuilderOperator = hashBuilderOperatorFactory.createOperator(buildDriverContext);
+        Driver buildDriver = new Driver(buildDriverContext, valuesOperatorFactory.createOperator(buildDriverContext), hashBuilderOperator);
+        while (!buildDriver.isFinished()) {
+            buildDriver.process();
+        }
+        assertTrue(hashBuilderOperator.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+
+        // probe
+        RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0), ImmutableList.<Type>of(BIGINT));
+        for (int i = 0; i < 10; i++) {
+            probePages.addSequencePage(5_000, 20_000 + i * 5_000);
+        }
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                hashBuilderOperatorFactory.getLookupSourceSupplier(),
+                probePages.getTypes(),
+                Ints.asList(0),
+                probePages.getHashChannel());
+        Operator joinOperator = joinOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext());
+
+        List<Page> outputPages = toPages(joinOperator, probePages.build());
+        joinOperator.close();
+        joinOperatorFactory.close();
+
+        // expected
+        MaterializedResult.Builder expected = MaterializedResult.resultBuilder(taskContext.getSession(), BIGINT, BIGINT, BIGINT);
+        for (long value = 20_000; value < 40_000; value++) {
+            expected.row(value, value, 100_000 + value);
+        }
+
+        List<Integer> hashChannels = getHashChannels(probePages, buildPages);
+        MaterializedResult actual = toMaterializedResult(taskContext.getSession(), without(joinOperator.getTypes(), hashChannels), dropChannel(outputPages, hashChannels));
+        assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.build().getMaterializedRows());
+
+        try (DirectoryStream<Path> spillFiles = Files.newDirectoryStream(spillPath)) {
+            assertFalse(spillFiles.iterator().hasNext(), "spill files were not deleted");
+        }
+        Files.delete(spillPath);
+    }
+
     private TaskContext createTaskContext()
     {
         return TestingTaskContext.createTaskContext(executor, TEST_SESSION);
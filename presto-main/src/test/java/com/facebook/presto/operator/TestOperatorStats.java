@@ -38,6 +38,7 @@ public class TestOperatorStats
             new Duration(4, NANOSECONDS),
             new DataSize(5, BYTE),
             6,
+            new Duration(22, NANOSECONDS),
 
             7,
             new Duration(8, NANOSECONDS),
@@ -53,6 +54,9 @@ public class TestOperatorStats
             new Duration(16, NANOSECONDS),
             new Duration(17, NANOSECONDS),
 
+            new DataSize(20, BYTE),
+            new Duration(21, NANOSECONDS),
+
             new DataSize(18, BYTE),
             Optional.empty(),
             "19");
@@ -67,6 +71,7 @@ public class TestOperatorStats
             new Duration(4, NANOSECONDS),
             new DataSize(5, BYTE),
             6,
+            new Duration(22, NANOSECONDS),
 
             7,
             new Duration(8, NANOSECONDS),
@@ -82,6 +87,9 @@ public class TestOperatorStats
             new Duration(16, NANOSECONDS),
             new Duration(17, NANOSECONDS),
 
+            new DataSize(20, BYTE),
+            new Duration(21, NANOSECONDS),
+
             new DataSize(18, BYTE),
             Optional.empty(),
             new LongMergeable(19));
@@ -108,6 +116,7 @@ public class TestOperatorStats
         Assert.assertEquals(actual.getAddInputUser(), new Duration(4, NANOSECONDS));
         Assert.assertEquals(actual.getInputDataSize(), new DataSize(5, BYTE));
         Assert.assertEquals(actual.getInputPositions(), 6);
+        Assert.assertEquals(actual.getReadWaitWall(), new Duration(22, NANOSECONDS));
 
         Assert.assertEquals(actual.getGetOutputCalls(), 7);
         Assert.assertEquals(actual.getGetOutputWall(), new Duration(8, NANOSECONDS));
@@ -123,6 +132,9 @@ public class TestOperatorStats
         Assert.assertEquals(actual.getFinishCpu(), new Duration(16, NANOSECONDS));
         Assert.assertEquals(actual.getFinishUser(), new Duration(17, NANOSECONDS));
 
+        Assert.assertEquals(actual.getSpilledDataSize(), new DataSize(20, BYTE));
+        Assert.assertEquals(actual.getSpillWall(), new Duration(21, NANOSECONDS));
+
         Assert.assertEquals(actual.getMemoryReservation(), new DataSize(18, BYTE));
         Assert.assertEquals(actual.getInfo(), "19");
     }
@@ -141,6 +153,7 @@ public class TestOperatorStats
         Assert.assertEquals(actual.getAddInputUser(), new Duration(3 * 4, NANOSECONDS));
         Assert.assertEquals(actual.getInputDataSize(), new DataSize(3 * 5, BYTE));
         Assert.assertEquals(actual.getInputPositions(), 3 * 6);
+        Assert.assertEquals(actual.getReadWaitWall(), new Duration(3 * 22, NANOSECONDS));
 
         Assert.assertEquals(actual.getGetOutputCalls(), 3 * 7);
         Assert.assertEquals(actual.getGetOutputWall(), new Duration(3 * 8, NANOSECONDS));
@@ -155,6 +168,8 @@ public class TestOperatorStats
         Assert.assertEquals(actual.getFinishWall(), new Duration(3 * 15, NANOSECONDS));
         Assert.assertEquals(actual.getFinishCpu(), new Duration(3 * 16, NANOSECONDS));
         Assert.assertEquals(actual.getFinishUser(), new Duration(3 * 17, NANOSECONDS));
+        Assert.assertEquals(actual.getSpilledDataSize(), new DataSize(3 * 20, BYTE));
+        Assert.assertEquals(actual.getSpillWall(), new Duration(3 * 21, NANOSECONDS));
         Assert.assertEquals(actual.getMemoryReservation(), new DataSize(3 * 18, BYTE));
         Assert.assertEquals(actual.getInfo(), null);
     }
@@ -173,6 +188,7 @@ public class TestOperatorStats
         Assert.assertEquals(actual.getAddInputUser(), new Duration(3 * 4, NANOSECONDS));
         Assert.assertEquals(actual.getInputDataSize(), new DataSize(3 * 5, BYTE));
         Assert.assertEquals(actual.getInputPositions(), 3 * 6);
+        Assert.assertEquals(actual.getReadWaitWall(), new Duration(3 * 22, NANOSECONDS));
 
         Assert.assertEquals(actual.getGetOutputCalls(), 3 * 7);
         Assert.assertEquals(actual.getGetOutputWall(), new Duration(3 * 8, NANOSECONDS));
@@ -187,6 +203,8 @@ public class TestOperatorStats
         Assert.assertEquals(actual.getFinishWall(), new Duration(3 * 15, NANOSECONDS));
         Assert.assertEquals(actual.getFinishCpu(), new Duration(3 * 16, NANOSECONDS));
         Assert.assertEquals(actual.getFinishUser(), new Duration(3 * 17, NANOSECONDS));
+        Assert.assertEquals(actual.getSpilledDataSize(), new DataSize(3 * 20, BYTE));
+        Assert.assertEquals(actual.getSpillWall(), new Duration(3 * 21, NANOSECONDS));
         Assert.assertEquals(actual.getMemoryReservation(), new DataSize(3 * 18, BYTE));
         Assert.assertEquals(actual.getInfo(), new LongMergeable(19 * 3));
     }
@@ -14,8 +14,10 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.operator.OrderByOperator.OrderByOperatorFactory;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spiller.BinarySpillerFactory;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
 import io.airlift.units.DataSize;
@@ -24,7 +26,11 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
@@ -40,6 +46,8 @@ import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestOrderByOperator
@@ -186,4 +194,47 @@ public class TestOrderByOperator
 
         toPages(operator, input);
     }
+
+    @Test
+    public void testSpillToDisk()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT)
+                .addSequencePage(10_000, 20_000)
+                .addSequencePage(10_000, 0)
+                .addSequencePage(10_000, 30_000)
+                .addSequencePage(10_000, 10_000)
+                .build();
+
+        Path spillPath = Files.createTempDirectory("spill");
+        MetadataManager metadata = MetadataManager.createTestMetadataManager();
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                ImmutableList.of(BIGINT),
+                ImmutableList.of(0),
+                10,
+                ImmutableList.of(0),
+                ImmutableList.of(DESC_NULLS_LAST),
+                Optional.of(new BinarySpillerFactory(metadata.getBlockEncodingSerde(), spillPath)));
+
+        // each input page fits in memory, but the whole input does not
+        DriverContext driverContext = createTaskContext(executor, TEST_SESSION, new DataSize(256, Unit.KILOBYTE))
+                .addPipelineContext(true, true)
+                .addDriverContext();
+        Operator operator = operatorFactory.createOperator(driverContext);
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT);
+        for (long i = 39_999; i >= 0; i--) {
+            expected.row(i);
+        }
+
+        assertOperatorEquals(operator, input, expected.build());
+        operator.close();
+
+        assertTrue(operator.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+        try (DirectoryStream<Path> spillFiles = Files.newDirectoryStream(spillPath)) {
+            assertFalse(spillFiles.iterator().hasNext(), "spill files were not deleted");
+        }
+        Files.delete(spillPath);
+    }
 }
@@ -19,18 +19,25 @@ import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.index.PageRecordSet;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Domain;
 import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.RecordPageSource;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSourceProvider;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slices;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
@@ -40,6 +47,7 @@ import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 public class TestScanFilterAndProjectOperator
@@ -117,6 +125,67 @@ public class TestScanFilterAndProjectOperator
         assertEquals(actual, expected);
     }
 
+    @Test
+    public void testDynamicFilter()
+            throws Exception
+    {
+        Page input = SequencePageBuilder.createSequencePage(ImmutableList.of(VARCHAR), 10_000, 0);
+        DriverContext driverContext = newDriverContext();
+        AtomicReference<TupleDomain<ColumnHandle>> dynamicFilter = new AtomicReference<>(TupleDomain.all());
+        RecordingPageSourceProvider pageSourceProvider = new RecordingPageSourceProvider(input);
+
+        SourceOperator operator = createOperatorFactory(pageSourceProvider, dynamicFilter).createOperator(driverContext);
+        operator.addSplit(new Split("test", TestingSplit.createLocalSplit()));
+        operator.noMoreSplits();
+
+        // the source is not opened until the operator is asked for output
+        assertFalse(operator.isFinished());
+        assertTrue(pageSourceProvider.getDynamicFilters().isEmpty());
+
+        // so it sees the filter published in the meantime
+        TupleDomain<ColumnHandle> filter = TupleDomain.withColumnDomains(ImmutableMap.of(new TestingColumnHandle("a"), Domain.singleValue(Slices.utf8Slice("0"))));
+        dynamicFilter.set(filter);
+
+        MaterializedResult expected = toMaterializedResult(driverContext.getSession(), ImmutableList.<Type>of(VARCHAR), ImmutableList.of(input));
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), ImmutableList.<Type>of(VARCHAR), toPages(operator));
+
+        assertEquals(actual, expected);
+        assertEquals(pageSourceProvider.getDynamicFilters(), ImmutableList.of(filter));
+    }
+
+    @Test
+    public void testEmptyDynamicFilter()
+            throws Exception
+    {
+        Page input = SequencePageBuilder.createSequencePage(ImmutableList.of(VARCHAR), 10_000, 0);
+        DriverContext driverContext = newDriverContext();
+        RecordingPageSourceProvider pageSourceProvider = new RecordingPageSourceProvider(input);
+
+        SourceOperator operator = createOperatorFactory(pageSourceProvider, new AtomicReference<>(TupleDomain.none())).createOperator(driverContext);
+        operator.addSplit(new Split("test", TestingSplit.createLocalSplit()));
+        operator.noMoreSplits();
+
+        // nothing can match the filter, so the split is not read at all
+        assertEquals(toPages(operator), ImmutableList.of());
+        assertTrue(pageSourceProvider.getDynamicFilters().isEmpty());
+    }
+
+    private static ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory createOperatorFactory(
+            PageSourceProvider pageSourceProvider,
+            AtomicReference<TupleDomain<ColumnHandle>> dynamicFilter)
+    {
+        List<Type> types = ImmutableList.<Type>of(VARCHAR);
+        return new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
+                0,
+                new PlanNodeId("0"),
+                pageSourceProvider,
+                new GenericCursorProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(VARCHAR, 0))),
+                new GenericPageProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(VARCHAR, 0))),
+                ImmutableList.<ColumnHandle>of(new TestingColumnHandle("a")),
+                ConstantProjections.noConstantProjections(types),
+                dynamicFilter::get);
+    }
+
     public static List<Page> toPages(Operator operator)
     {
         ImmutableList.Builder<Page> outputPages = ImmutableList.builder();
@@ -145,4 +214,34 @@ public class TestScanFilterAndProjectOperator
                 .addPipelineContext(true, true)
                 .addDriverContext();
     }
+
+    private static class RecordingPageSourceProvider
+            implements PageSourceProvider
+    {
+        private final Page page;
+        private final List<TupleDomain<ColumnHandle>> dynamicFilters = new ArrayList<>();
+
+        public RecordingPageSourceProvider(Page page)
+        {
+            this.page = page;
+        }
+
+        public List<TupleDomain<ColumnHandle>> getDynamicFilters()
+        {
+            return dynamicFilters;
+        }
+
+        @Override
+        public ConnectorPageSource createPageSource(Split split, List<ColumnHandle> columns)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ConnectorPageSource createPageSource(Split split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+        {
+            dynamicFilters.add(dynamicFilter);
+            return new FixedPageSource(ImmutableList.of(page));
+        }
+    }
 }
@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.SequencePageBuilder;
+import com.facebook.presto.execution.TestingSplit;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.operator.TableScanOperator.TableScanOperatorFactory;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.FixedPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.split.PageSourceProvider;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.testing.MaterializedResult;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
+import static com.facebook.presto.operator.TestScanFilterAndProjectOperator.toPages;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestTableScanOperator
+{
+    private static final List<Type> TYPES = ImmutableList.<Type>of(BIGINT);
+
+    private final ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+
+    @AfterClass
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDynamicFilter()
+            throws Exception
+    {
+        Page input = SequencePageBuilder.createSequencePage(TYPES, 100, 0);
+        DriverContext driverContext = newDriverContext();
+        AtomicReference<TupleDomain<ColumnHandle>> dynamicFilter = new AtomicReference<>(TupleDomain.all());
+        RecordingPageSourceProvider pageSourceProvider = new RecordingPageSourceProvider(input);
+
+        SourceOperator operator = createOperatorFactory(pageSourceProvider, dynamicFilter).createOperator(driverContext);
+        operator.addSplit(new Split("test", TestingSplit.createLocalSplit()));
+        operator.noMoreSplits();
+
+        // the source is not opened until the operator is asked for output
+        assertFalse(operator.isFinished());
+        assertTrue(pageSourceProvider.getDynamicFilters().isEmpty());
+
+        // so it sees the filter published in the meantime
+        TupleDomain<ColumnHandle> filter = TupleDomain.withColumnDomains(ImmutableMap.of(new TestingColumnHandle("a"), Domain.singleValue(42L)));
+        dynamicFilter.set(filter);
+
+        MaterializedResult expected = toMaterializedResult(driverContext.getSession(), TYPES, ImmutableList.of(input));
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), TYPES, toPages(operator));
+
+        assertEquals(actual, expected);
+        assertEquals(pageSourceProvider.getDynamicFilters(), ImmutableList.of(filter));
+    }
+
+    @Test
+    public void testEmptyDynamicFilter()
+            throws Exception
+    {
+        Page input = SequencePageBuilder.createSequencePage(TYPES, 100, 0);
+        RecordingPageSourceProvider pageSourceProvider = new RecordingPageSourceProvider(input);
+
+        SourceOperator operator = createOperatorFactory(pageSourceProvider, new AtomicReference<>(TupleDomain.none())).createOperator(newDriverContext());
+        operator.addSplit(new Split("test", TestingSplit.createLocalSplit()));
+        operator.noMoreSplits();
+
+        // nothing can match the filter, so the split is not read at all
+        assertEquals(toPages(operator), ImmutableList.of());
+        assertTrue(pageSourceProvider.getDynamicFilters().isEmpty());
+    }
+
+    @Test
+    public void testReadWait()
+            throws Exception
+    {
+        Page input = SequencePageBuilder.createSequencePage(TYPES, 100, 0);
+        RecordingPageSourceProvider pageSourceProvider = new RecordingPageSourceProvider(input, 1_000);
+
+        SourceOperator operator = createOperatorFactory(pageSourceProvider, new AtomicReference<>(TupleDomain.all())).createOperator(newDriverContext());
+        operator.addSplit(new Split("test", TestingSplit.createLocalSplit()));
+        operator.noMoreSplits();
+
+        assertEquals(toPages(operator).size(), 1);
+        OperatorStats stats = operator.getOperatorContext().getOperatorStats();
+        assertEquals(stats.getReadWaitWall().roundTo(NANOSECONDS), 1_000);
+        assertEquals(stats.getAddInputWall().roundTo(NANOSECONDS), 0);
+    }
+
+    private static TableScanOperatorFactory createOperatorFactory(PageSourceProvider pageSourceProvider, AtomicReference<TupleDomain<ColumnHandle>> dynamicFilter)
+    {
+        return new TableScanOperatorFactory(
+                0,
+                new PlanNodeId("0"),
+                pageSourceProvider,
+                TYPES,
+                ImmutableList.<ColumnHandle>of(new TestingColumnHandle("a")),
+                dynamicFilter::get);
+    }
+
+    private DriverContext newDriverContext()
+    {
+        return createTaskContext(executor, TEST_SESSION)
+                .addPipelineContext(true, true)
+                .addDriverContext();
+    }
+
+    private static class RecordingPageSourceProvider
+            implements PageSourceProvider
+    {
+        private final Page page;
+        private final long readWaitNanos;
+        private final List<TupleDomain<ColumnHandle>> dynamicFilters = new ArrayList<>();
+
+        public RecordingPageSourceProvider(Page page)
+        {
+            this(page, 0);
+        }
+
+        public RecordingPageSourceProvider(Page page, long readWaitNanos)
+        {
+            this.page = page;
+            this.readWaitNanos = readWaitNanos;
+        }
+
+        public List<TupleDomain<ColumnHandle>> getDynamicFilters()
+        {
+            return dynamicFilters;
+        }
+
+        @Override
+        public ConnectorPageSource createPageSource(Split split, List<ColumnHandle> columns)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ConnectorPageSource createPageSource(Split split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+        {
+            dynamicFilters.add(dynamicFilter);
+            return new FixedPageSource(ImmutableList.of(page))
+            {
+                @Override
+                public long getReadWaitNanos()
+                {
+                    // the page is returned after waiting for a background read
+                    return getCompletedBytes() > 0 ? readWaitNanos : 0;
+                }
+            };
+        }
+    }
+}
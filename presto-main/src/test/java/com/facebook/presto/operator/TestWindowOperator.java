@@ -14,6 +14,8 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.operator.WindowOperator.WindowOperatorFactory;
 import com.facebook.presto.operator.window.FirstValueFunction.VarcharFirstValueFunction;
 import com.facebook.presto.operator.window.FrameInfo;
@@ -26,6 +28,7 @@ import com.facebook.presto.operator.window.RowNumberFunction;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.BinarySpillerFactory;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
@@ -35,6 +38,9 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -56,6 +62,8 @@ import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestWindowOperator
@@ -239,6 +247,57 @@ public class TestWindowOperator
         toPages(operator, input);
     }
 
+    @Test
+    public void testSpillToDisk()
+            throws Exception
+    {
+        // rows are partitioned on the first column, and each partition is spread over all of the pages
+        RowPagesBuilder inputBuilder = rowPagesBuilder(BIGINT, BIGINT);
+        for (int page : new int[] {2, 0, 3, 1}) {
+            for (long value = page * 10_000; value < (page + 1) * 10_000; value++) {
+                inputBuilder.row(value % 10, value);
+            }
+            inputBuilder.pageBreak();
+        }
+        List<Page> input = inputBuilder.build();
+
+        Path spillPath = Files.createTempDirectory("spill");
+        MetadataManager metadata = MetadataManager.createTestMetadataManager();
+        WindowOperatorFactory operatorFactory = new WindowOperatorFactory(
+                0,
+                ImmutableList.of(BIGINT, BIGINT),
+                Ints.asList(0, 1),
+                ROW_NUMBER,
+                Ints.asList(0),
+                ImmutableList.of(),
+                Ints.asList(1),
+                ImmutableList.copyOf(new SortOrder[] {SortOrder.ASC_NULLS_LAST}),
+                0,
+                new FrameInfo(RANGE, UNBOUNDED_PRECEDING, Optional.empty(), UNBOUNDED_FOLLOWING, Optional.empty()),
+                10,
+                Optional.of(new BinarySpillerFactory(metadata.getBlockEncodingSerde(), spillPath)));
+
+        // each input page fits in memory, but the whole input does not
+        DriverContext driverContext = createTaskContext(executor, TEST_SESSION, new DataSize(256, Unit.KILOBYTE))
+                .addPipelineContext(true, true)
+                .addDriverContext();
+        Operator operator = operatorFactory.createOperator(driverContext);
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BIGINT);
+        for (long value = 0; value < 40_000; value++) {
+            expected.row(value % 10, value, value / 10 + 1);
+        }
+
+        assertOperatorEqualsIgnoreOrder(operator, input, expected.build());
+        operator.close();
+
+        assertTrue(operator.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+        try (DirectoryStream<Path> spillFiles = Files.newDirectoryStream(spillPath)) {
+            assertFalse(spillFiles.iterator().hasNext(), "spill files were not deleted");
+        }
+        Files.delete(spillPath);
+    }
+
     @Test
     public void testFirstValuePartition()
             throws Exception
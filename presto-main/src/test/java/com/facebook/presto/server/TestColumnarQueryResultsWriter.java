@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.client.ClientTypeSignature;
+import com.facebook.presto.client.Column;
+import com.facebook.presto.client.ColumnarQueryResults;
+import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.client.StatementStats;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.ObjectMapperProvider;
+import io.airlift.slice.DynamicSliceOutput;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+public class TestColumnarQueryResultsWriter
+{
+    private static final JsonCodec<QueryResults> QUERY_RESULTS_CODEC = jsonCodec(QueryResults.class);
+
+    private final ColumnarQueryResultsWriter writer = new ColumnarQueryResultsWriter(QUERY_RESULTS_CODEC, new ObjectMapperProvider().get());
+
+    @Test
+    public void testPages()
+            throws Exception
+    {
+        List<Type> types = ImmutableList.of(BIGINT, DOUBLE, BOOLEAN, VARCHAR, DATE);
+        List<Page> pages = rowPagesBuilder(types)
+                .row(1L, 1.5, true, "alice", 10L)
+                .row(null, null, null, null, null)
+                .pageBreak()
+                .row(-3L, -2.5, false, "\u00e9t\u00e9", 16000L)
+                .build();
+
+        QueryResults results = createQueryResults(createColumns(types), new ResultPages(TEST_SESSION.toConnectorSession(), types, pages), null);
+        assertRoundTrip(results);
+    }
+
+    @Test
+    public void testResultPages()
+            throws Exception
+    {
+        List<Type> types = ImmutableList.of(BIGINT, VARCHAR);
+        List<Page> pages = rowPagesBuilder(types)
+                .row(1L, "alice")
+                .row(2L, null)
+                .build();
+        ResultPages resultPages = new ResultPages(TEST_SESSION.toConnectorSession(), types, pages);
+
+        DynamicSliceOutput output = new DynamicSliceOutput(1024);
+        ColumnarQueryResultsWriter.writePages(output, resultPages, new ObjectMapperProvider().get());
+        List<List<Object>> rows = ColumnarQueryResults.readRows(createColumns(types), output.slice().getBytes());
+
+        assertEquals(rows, ImmutableList.copyOf(resultPages));
+    }
+
+    @Test
+    public void testQueryResultsWrittenFromPages()
+            throws Exception
+    {
+        List<Type> types = ImmutableList.of(BIGINT, VARCHAR);
+        List<Page> pages = rowPagesBuilder(types)
+                .row(1L, "alice")
+                .row(2L, null)
+                .build();
+        ResultPages expected = new ResultPages(TEST_SESSION.toConnectorSession(), types, pages);
+
+        // the rows of the pages must not be used to write the results
+        ResultPages resultPages = new ResultPages(TEST_SESSION.toConnectorSession(), types, pages)
+        {
+            @Override
+            public Iterator<List<Object>> iterator()
+            {
+                throw new AssertionError("results were written from the rows");
+            }
+        };
+        QueryResults results = createQueryResults(createColumns(types), resultPages, null);
+        assertSame(results.getData(), resultPages);
+
+        QueryResults actual = writeAndRead(results);
+        assertEquals(ImmutableList.copyOf(actual.getData()), ImmutableList.copyOf(expected));
+    }
+
+    @Test
+    public void testRows()
+            throws Exception
+    {
+        List<Column> columns = createColumns(ImmutableList.of(BOOLEAN));
+        QueryResults results = createQueryResults(columns, ImmutableSet.<List<Object>>of(ImmutableList.<Object>of(true)), null);
+        assertRoundTrip(results);
+    }
+
+    @Test
+    public void testNoData()
+            throws Exception
+    {
+        QueryResults results = createQueryResults(null, null, ImmutableList.of(URI.create("http://worker/v1/task/query.0.0/results/query.0.0")));
+        QueryResults actual = writeAndRead(results);
+
+        assertEquals(actual.getId(), results.getId());
+        assertEquals(actual.getNextUri(), results.getNextUri());
+        assertEquals(actual.getDataUris(), results.getDataUris());
+        assertNull(actual.getColumns());
+        assertNull(actual.getData());
+    }
+
+    private void assertRoundTrip(QueryResults results)
+            throws Exception
+    {
+        QueryResults actual = writeAndRead(results);
+        QueryResults expected = QUERY_RESULTS_CODEC.fromJson(QUERY_RESULTS_CODEC.toJson(results));
+
+        assertEquals(actual.getId(), expected.getId());
+        assertEquals(actual.getInfoUri(), expected.getInfoUri());
+        assertEquals(actual.getNextUri(), expected.getNextUri());
+        assertEquals(Lists.transform(actual.getColumns(), Column::getType), Lists.transform(expected.getColumns(), Column::getType));
+        assertEquals(ImmutableList.copyOf(actual.getData()), ImmutableList.copyOf(expected.getData()));
+    }
+
+    private QueryResults writeAndRead(QueryResults results)
+            throws Exception
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(1024);
+        writer.writeQueryResults(output, results);
+        return ColumnarQueryResults.readQueryResults(QUERY_RESULTS_CODEC, output.slice().getBytes());
+    }
+
+    private static List<Column> createColumns(List<Type> types)
+    {
+        ImmutableList.Builder<Column> columns = ImmutableList.builder();
+        for (int i = 0; i < types.size(); i++) {
+            Type type = types.get(i);
+            columns.add(new Column("column" + i, type.getTypeSignature().toString(), new ClientTypeSignature(type.getTypeSignature())));
+        }
+        return columns.build();
+    }
+
+    private static QueryResults createQueryResults(List<Column> columns, Iterable<List<Object>> data, List<URI> dataUris)
+    {
+        return new QueryResults(
+                "query",
+                URI.create("http://localhost/query.html?query"),
+                null,
+                URI.create("http://localhost/v1/statement/query/1"),
+                columns,
+                data,
+                dataUris,
+                new StatementStats("RUNNING", true, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, null),
+                null,
+                null,
+                null);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskStatus;
+import com.facebook.presto.server.FullSmileResponseHandler.SmileResponse;
+import com.google.common.net.MediaType;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.testing.TestingResponse;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.ObjectMapperProvider;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+
+import static com.facebook.presto.PrestoMediaTypes.JACKSON_SMILE_TYPE;
+import static com.facebook.presto.execution.TaskStatus.initialTaskStatus;
+import static io.airlift.http.client.HttpStatus.INTERNAL_SERVER_ERROR;
+import static io.airlift.http.client.HttpStatus.OK;
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.http.client.testing.TestingResponse.contentType;
+import static io.airlift.http.client.testing.TestingResponse.mockResponse;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestFullSmileResponseHandler
+{
+    private static final JsonCodec<TaskStatus> JSON_CODEC = jsonCodec(TaskStatus.class);
+    private static final SmileCodec<TaskStatus> SMILE_CODEC = new SmileCodec<>(new ObjectMapperProvider().get(), TaskStatus.class);
+    private static final Request REQUEST = prepareGet().setUri(URI.create("http://localhost/v1/task/query.stage.task/status")).build();
+
+    private final FullSmileResponseHandler<TaskStatus> handler = FullSmileResponseHandler.createFullSmileResponseHandler(SMILE_CODEC, JSON_CODEC);
+
+    @Test
+    public void testSmileResponse()
+    {
+        TaskStatus taskStatus = createTaskStatus();
+        byte[] smile = SMILE_CODEC.toSmile(taskStatus);
+        assertTrue(smile.length < JSON_CODEC.toJsonBytes(taskStatus).length);
+
+        SmileResponse<TaskStatus> response = handler.handle(REQUEST, new TestingResponse(OK, contentType(JACKSON_SMILE_TYPE), smile));
+        assertEquals(response.getStatusCode(), OK.code());
+        assertTrue(response.hasValue());
+        assertTaskStatusEquals(response.getValue(), taskStatus);
+    }
+
+    @Test
+    public void testJsonResponse()
+    {
+        TaskStatus taskStatus = createTaskStatus();
+        SmileResponse<TaskStatus> response = handler.handle(REQUEST, mockResponse(OK, MediaType.JSON_UTF_8, JSON_CODEC.toJson(taskStatus)));
+        assertTrue(response.hasValue());
+        assertTaskStatusEquals(response.getValue(), taskStatus);
+    }
+
+    @Test
+    public void testInvalidSmileResponse()
+    {
+        SmileResponse<TaskStatus> response = handler.handle(REQUEST, new TestingResponse(OK, contentType(JACKSON_SMILE_TYPE), "not smile".getBytes(UTF_8)));
+        assertFalse(response.hasValue());
+        assertNotNull(response.getException());
+    }
+
+    @Test
+    public void testErrorResponse()
+    {
+        SmileResponse<TaskStatus> response = handler.handle(REQUEST, mockResponse(INTERNAL_SERVER_ERROR, MediaType.PLAIN_TEXT_UTF_8, "server error"));
+        assertEquals(response.getStatusCode(), INTERNAL_SERVER_ERROR.code());
+        assertFalse(response.hasValue());
+        assertEquals(response.getResponseBody(), "server error");
+    }
+
+    private static TaskStatus createTaskStatus()
+    {
+        TaskId taskId = new TaskId("query", "stage", "task");
+        return initialTaskStatus(taskId, URI.create("http://localhost/v1/task/" + taskId));
+    }
+
+    private static void assertTaskStatusEquals(TaskStatus actual, TaskStatus expected)
+    {
+        assertEquals(actual.getTaskId(), expected.getTaskId());
+        assertEquals(actual.getVersion(), expected.getVersion());
+        assertEquals(actual.getState(), expected.getState());
+        assertEquals(actual.getSelf(), expected.getSelf());
+        assertEquals(actual.getMemoryReservation(), expected.getMemoryReservation());
+    }
+}
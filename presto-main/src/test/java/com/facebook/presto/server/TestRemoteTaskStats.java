@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import io.airlift.stats.CounterStat;
+import io.airlift.units.Duration;
+import org.testng.annotations.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestRemoteTaskStats
+{
+    @Test
+    public void testRunningTaskRate()
+    {
+        RemoteTaskStats stats = new RemoteTaskStats();
+        CounterStat smallTask = new CounterStat();
+        CounterStat largeTask = new CounterStat();
+        stats.taskCreated(smallTask);
+        stats.taskCreated(largeTask);
+        assertEquals(stats.getRunningTasks(), 2);
+        assertEquals(stats.getMaxRunningTaskUpdateBytesPerSecond(), 0.0);
+
+        stats.updateRequestSent(smallTask, 100);
+        stats.updateRequestSent(largeTask, 1000);
+        stats.updateRequestSent(largeTask, 1000);
+        assertEquals(smallTask.getTotalCount(), 100);
+        assertEquals(largeTask.getTotalCount(), 2000);
+        assertEquals(stats.getUpdateRequestBytes().getTotalCount(), 2100);
+
+        // the rate of a running task is visible before the task finishes
+        assertTrue(largeTask.getOneMinute().getRate() > smallTask.getOneMinute().getRate());
+        // the rates decay between reads, so compare them loosely
+        assertEquals(stats.getMaxRunningTaskUpdateBytesPerSecond(), largeTask.getOneMinute().getRate(), 1.0);
+
+        stats.taskFinished(largeTask, new Duration(10, SECONDS));
+        assertEquals(stats.getRunningTasks(), 1);
+        assertEquals(stats.getMaxRunningTaskUpdateBytesPerSecond(), smallTask.getOneMinute().getRate(), 1.0);
+        assertEquals(stats.getTaskUpdateBytesPerSecond().getAllTime().getCount(), 1.0);
+        assertEquals(stats.getTaskUpdateBytesPerSecond().getAllTime().getMax(), 200);
+
+        stats.taskFinished(smallTask, new Duration(10, SECONDS));
+        assertEquals(stats.getRunningTasks(), 0);
+        assertEquals(stats.getMaxRunningTaskUpdateBytesPerSecond(), 0.0);
+    }
+}
@@ -13,15 +13,23 @@
  */
 package com.facebook.presto.server;
 
+import com.facebook.presto.client.ClientSession;
+import com.facebook.presto.client.Column;
 import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.client.StatementClient;
 import com.facebook.presto.execution.QueryId;
 import com.facebook.presto.execution.QueryInfo;
+import com.facebook.presto.execution.QueryState;
 import com.facebook.presto.server.testing.TestingPrestoServer;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpUriBuilder;
 import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
 import io.airlift.http.client.StatusResponseHandler;
 import io.airlift.http.client.jetty.JettyHttpClient;
 import io.airlift.testing.Closeables;
@@ -29,23 +37,39 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 
+import static com.facebook.presto.client.ColumnarQueryResults.PRESTO_COLUMNAR_PAGES;
+import static com.facebook.presto.client.ColumnarQueryResults.readRows;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CATALOG;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_DIRECT_RESULTS;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SCHEMA;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SOURCE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_USER;
+import static com.google.common.net.HttpHeaders.ACCEPT;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
 import static io.airlift.http.client.JsonResponseHandler.createJsonResponseHandler;
+import static io.airlift.http.client.Request.Builder.prepareDelete;
 import static io.airlift.http.client.Request.Builder.prepareGet;
 import static io.airlift.http.client.Request.Builder.preparePost;
 import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
 import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
 import static io.airlift.json.JsonCodec.jsonCodec;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.ws.rs.core.Response.Status.GONE;
+import static javax.ws.rs.core.Response.Status.NO_CONTENT;
 import static javax.ws.rs.core.Response.Status.OK;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 
 @Test(singleThreaded = true)
 public class TestServer
@@ -126,8 +150,174 @@ public class TestServer
         assertEquals(rows, ImmutableList.of(ImmutableList.of("system")));
     }
 
+    @Test
+    public void testDirectResults()
+            throws Exception
+    {
+        Request request = preparePost()
+                .setUri(uriFor("/v1/statement"))
+                .setBodyGenerator(createStaticBodyGenerator("show catalogs", UTF_8))
+                .setHeader(PRESTO_USER, "user")
+                .setHeader(PRESTO_SOURCE, "source")
+                .setHeader(PRESTO_CATALOG, "catalog")
+                .setHeader(PRESTO_SCHEMA, "schema")
+                .setHeader(PRESTO_DIRECT_RESULTS, "true")
+                .build();
+
+        QueryResults queryResults = client.execute(request, createJsonResponseHandler(jsonCodec(QueryResults.class)));
+
+        // poll the coordinator until it publishes the output buffer locations
+        while ((queryResults.getDataUris() == null || queryResults.getDataUris().isEmpty()) && queryResults.getNextUri() != null) {
+            queryResults = client.execute(prepareGet().setUri(queryResults.getNextUri()).build(), createJsonResponseHandler(jsonCodec(QueryResults.class)));
+            assertNull(queryResults.getData());
+        }
+        List<URI> dataUris = queryResults.getDataUris();
+        assertNotNull(dataUris);
+        assertFalse(dataUris.isEmpty());
+        List<Column> columns = queryResults.getColumns();
+        assertNotNull(columns);
+
+        // read the rows from the workers until the buffers are finished
+        ImmutableList.Builder<List<Object>> data = ImmutableList.builder();
+        for (URI dataUri : dataUris) {
+            long token = 0;
+            while (true) {
+                ResultPagesResponse response = client.execute(
+                        prepareGet()
+                                .setUri(uriBuilderFrom(dataUri).appendPath(String.valueOf(token)).build())
+                                .setHeader(ACCEPT, PRESTO_COLUMNAR_PAGES)
+                                .build(),
+                        new ResultPagesResponseHandler());
+                if (response.getStatusCode() == GONE.getStatusCode()) {
+                    break;
+                }
+                if (response.getStatusCode() == OK.getStatusCode()) {
+                    assertEquals(response.getContentType(), PRESTO_COLUMNAR_PAGES);
+                    data.addAll(readRows(columns, response.getData()));
+                }
+                else {
+                    assertEquals(response.getStatusCode(), NO_CONTENT.getStatusCode());
+                }
+                assertEquals(response.getToken(), token);
+                token = response.getNextToken();
+
+                // the coordinator must keep returning the locations while the data is read
+                if (queryResults.getNextUri() != null) {
+                    queryResults = client.execute(
+                            prepareGet().setUri(uriBuilderFrom(queryResults.getNextUri()).addParameter("maxWait", "0ms").build()).build(),
+                            createJsonResponseHandler(jsonCodec(QueryResults.class)));
+                    assertNull(queryResults.getData());
+                }
+            }
+
+            // destroy the finished buffer
+            StatusResponseHandler.StatusResponse response = client.execute(prepareDelete().setUri(dataUri).build(), createStatusResponseHandler());
+            assertEquals(response.getStatusCode(), OK.getStatusCode());
+        }
+        assertEquals(data.build(), ImmutableList.of(ImmutableList.of("system")));
+
+        // the query finishes once the client has read all of its output
+        while (queryResults.getNextUri() != null) {
+            queryResults = client.execute(prepareGet().setUri(queryResults.getNextUri()).build(), createJsonResponseHandler(jsonCodec(QueryResults.class)));
+            assertNull(queryResults.getData());
+        }
+        assertNull(queryResults.getError());
+        assertEquals(server.getQueryManager().getQueryInfo(new QueryId(queryResults.getId())).getState(), QueryState.FINISHED);
+    }
+
+    @Test
+    public void testDirectResultsClient()
+            throws Exception
+    {
+        ClientSession session = new ClientSession(server.getBaseUrl(), "user", "source", "catalog", "schema", "UTC", Locale.ENGLISH, ImmutableMap.of(), false);
+
+        ImmutableList.Builder<List<Object>> data = ImmutableList.builder();
+        try (StatementClient statementClient = new StatementClient(client, jsonCodec(QueryResults.class), session, "show catalogs", true, true)) {
+            while (statementClient.isValid()) {
+                QueryResults results = statementClient.current();
+                if (results.getData() != null) {
+                    data.addAll(results.getData());
+                }
+                statementClient.advance();
+            }
+            assertFalse(statementClient.isGone());
+            assertNull(statementClient.finalResults().getError());
+            assertEquals(server.getQueryManager().getQueryInfo(new QueryId(statementClient.finalResults().getId())).getState(), QueryState.FINISHED);
+        }
+        assertEquals(data.build(), ImmutableList.of(ImmutableList.of("system")));
+    }
+
     public URI uriFor(String path)
     {
         return HttpUriBuilder.uriBuilderFrom(server.getBaseUrl()).replacePath(path).build();
     }
+
+    private static class ResultPagesResponseHandler
+            implements ResponseHandler<ResultPagesResponse, RuntimeException>
+    {
+        @Override
+        public ResultPagesResponse handleException(Request request, Exception exception)
+        {
+            throw Throwables.propagate(exception);
+        }
+
+        @Override
+        public ResultPagesResponse handle(Request request, Response response)
+        {
+            try {
+                return new ResultPagesResponse(
+                        response.getStatusCode(),
+                        response.getHeader(CONTENT_TYPE),
+                        Long.parseLong(response.getHeader(PRESTO_PAGE_TOKEN)),
+                        Long.parseLong(response.getHeader(PRESTO_PAGE_NEXT_TOKEN)),
+                        ByteStreams.toByteArray(response.getInputStream()));
+            }
+            catch (IOException e) {
+                throw Throwables.propagate(e);
+            }
+        }
+    }
+
+    private static class ResultPagesResponse
+    {
+        private final int statusCode;
+        private final String contentType;
+        private final long token;
+        private final long nextToken;
+        private final byte[] data;
+
+        private ResultPagesResponse(int statusCode, String contentType, long token, long nextToken, byte[] data)
+        {
+            this.statusCode = statusCode;
+            this.contentType = contentType;
+            this.token = token;
+            this.nextToken = nextToken;
+            this.data = data;
+        }
+
+        public int getStatusCode()
+        {
+            return statusCode;
+        }
+
+        public String getContentType()
+        {
+            return contentType;
+        }
+
+        public long getToken()
+        {
+            return token;
+        }
+
+        public long getNextToken()
+        {
+            return nextToken;
+        }
+
+        public byte[] getData()
+        {
+            return data;
+        }
+    }
 }
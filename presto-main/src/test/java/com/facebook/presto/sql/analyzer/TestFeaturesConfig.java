@@ -15,6 +15,7 @@ package com.facebook.presto.sql.analyzer;
 
 import com.google.common.collect.ImmutableMap;
 import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
 
 import java.util.Map;
@@ -22,6 +23,8 @@ import java.util.Map;
 import static io.airlift.configuration.testing.ConfigAssertions.assertDeprecatedEquivalence;
 import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 public class TestFeaturesConfig
 {
@@ -35,7 +38,10 @@ public class TestFeaturesConfig
                 .setRedistributeWrites(true)
                 .setOptimizeMetadataQueries(false)
                 .setOptimizeHashGeneration(false)
-                .setOptimizeSingleDistinct(true));
+                .setOptimizeSingleDistinct(true)
+                .setReorderJoins(false)
+                .setAutomaticJoinDistribution(false)
+                .setBroadcastJoinMaxBuildSize(new DataSize(100, MEGABYTE)));
     }
 
     @Test
@@ -49,6 +55,9 @@ public class TestFeaturesConfig
                 .put("optimizer.optimize-metadata-queries", "true")
                 .put("optimizer.optimize-hash-generation", "true")
                 .put("optimizer.optimize-single-distinct", "false")
+                .put("optimizer.reorder-joins", "true")
+                .put("optimizer.automatic-join-distribution", "true")
+                .put("optimizer.broadcast-join-max-build-size", "1GB")
                 .build();
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("experimental-syntax-enabled", "true")
@@ -58,6 +67,9 @@ public class TestFeaturesConfig
                 .put("optimizer.optimize-metadata-queries", "true")
                 .put("optimizer.optimize-hash-generation", "true")
                 .put("optimizer.optimize-single-distinct", "false")
+                .put("optimizer.reorder-joins", "true")
+                .put("optimizer.automatic-join-distribution", "true")
+                .put("optimizer.broadcast-join-max-build-size", "1GB")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
@@ -67,7 +79,10 @@ public class TestFeaturesConfig
                 .setRedistributeWrites(false)
                 .setOptimizeMetadataQueries(true)
                 .setOptimizeHashGeneration(true)
-                .setOptimizeSingleDistinct(false);
+                .setOptimizeSingleDistinct(false)
+                .setReorderJoins(true)
+                .setAutomaticJoinDistribution(true)
+                .setBroadcastJoinMaxBuildSize(new DataSize(1, GIGABYTE));
 
         assertFullMapping(properties, expected);
         assertDeprecatedEquivalence(FeaturesConfig.class, properties, propertiesLegacy);
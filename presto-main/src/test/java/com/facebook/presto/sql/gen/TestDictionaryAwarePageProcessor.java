@@ -0,0 +1,245 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.presto.metadata.FunctionRegistry;
+import com.facebook.presto.metadata.OperatorType;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.operator.PageProcessor;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.LazySliceArrayBlock;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.block.SliceArrayBlock;
+import com.facebook.presto.spi.type.StandardTypes;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.relational.RowExpression;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
+import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.relational.Expressions.call;
+import static com.facebook.presto.sql.relational.Expressions.constant;
+import static com.facebook.presto.sql.relational.Expressions.field;
+import static com.facebook.presto.sql.relational.Signatures.castSignature;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.testing.Assertions.assertInstanceOf;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestDictionaryAwarePageProcessor
+{
+    // where varchar >= 'value 5'
+    private static final RowExpression FILTER = call(
+            new Signature(OperatorType.GREATER_THAN_OR_EQUAL.name(), StandardTypes.BOOLEAN, StandardTypes.VARCHAR, StandardTypes.VARCHAR),
+            BOOLEAN,
+            field(0, VARCHAR),
+            constant(utf8Slice("value 5"), VARCHAR));
+
+    // bigint + 1
+    private static final RowExpression PROJECTION = call(
+            new Signature(OperatorType.ADD.name(), StandardTypes.BIGINT, StandardTypes.BIGINT, StandardTypes.BIGINT),
+            BIGINT,
+            field(1, BIGINT),
+            constant(1L, BIGINT));
+
+    private static final List<Type> TYPES = ImmutableList.<Type>of(VARCHAR, BIGINT);
+
+    private static final FunctionRegistry REGISTRY = createTestMetadataManager().getFunctionRegistry();
+
+    private final ExpressionCompiler compiler = new ExpressionCompiler(createTestMetadataManager());
+
+    @Test
+    public void testDictionary()
+    {
+        PageProcessor processor = compiler.compilePageProcessor(FILTER, ImmutableList.of(field(0, VARCHAR), PROJECTION));
+        assertInstanceOf(processor, DictionaryAwarePageProcessor.class);
+
+        Block dictionary = createDictionary(10);
+        Page dictionaryPage = new Page(createDictionaryBlock(dictionary, 100), createBigintBlock(100));
+        Page flatPage = flatten(dictionaryPage);
+
+        assertPageEquals(TYPES, process(processor, dictionaryPage), process(compiler.compileDirectPageProcessor(FILTER, ImmutableList.of(field(0, VARCHAR), PROJECTION)), flatPage));
+
+        // pages sharing the dictionary reuse the filter results
+        Page otherPage = new Page(createDictionaryBlock(dictionary, 50), createBigintBlock(50));
+        assertPageEquals(TYPES, process(processor, otherPage), process(processor, flatten(otherPage)));
+    }
+
+    @Test
+    public void testRunLengthEncoded()
+    {
+        PageProcessor processor = compiler.compilePageProcessor(FILTER, ImmutableList.of(field(0, VARCHAR), PROJECTION));
+
+        Page page = new Page(new RunLengthEncodedBlock(createDictionary(10).getSingleValueBlock(7), 100), createBigintBlock(100));
+        Page output = process(processor, page);
+        assertEquals(output.getPositionCount(), 100);
+        assertPageEquals(TYPES, output, process(processor, flatten(page)));
+
+        page = new Page(new RunLengthEncodedBlock(createDictionary(10).getSingleValueBlock(3), 100), createBigintBlock(100));
+        assertEquals(process(processor, page).getPositionCount(), 0);
+    }
+
+    @Test
+    public void testPlainColumnReferences()
+    {
+        assertFalse(DictionaryAwarePageProcessor.hasDictionaryExpressions(REGISTRY, constant(true, BOOLEAN), ImmutableList.of(field(0, VARCHAR), field(1, BIGINT))));
+    }
+
+    @Test
+    public void testNondeterministicExpressions()
+    {
+        // double + random()
+        RowExpression projection = call(
+                new Signature(OperatorType.ADD.name(), StandardTypes.DOUBLE, StandardTypes.DOUBLE, StandardTypes.DOUBLE),
+                DOUBLE,
+                field(0, DOUBLE),
+                call(new Signature("random", StandardTypes.DOUBLE), DOUBLE));
+        assertFalse(DictionaryAwarePageProcessor.hasDictionaryExpressions(REGISTRY, constant(true, BOOLEAN), ImmutableList.of(projection)));
+        assertTrue(DictionaryAwarePageProcessor.hasDictionaryExpressions(REGISTRY, constant(true, BOOLEAN), ImmutableList.of(PROJECTION)));
+    }
+
+    @Test
+    public void testUnloadedProjectionInput()
+    {
+        // where bigint < 0
+        RowExpression filter = call(
+                new Signature(OperatorType.LESS_THAN.name(), StandardTypes.BOOLEAN, StandardTypes.BIGINT, StandardTypes.BIGINT),
+                BOOLEAN,
+                field(1, BIGINT),
+                constant(0L, BIGINT));
+        PageProcessor processor = compiler.compilePageProcessor(filter, ImmutableList.of(FILTER));
+
+        // the filter selects no rows, so the dictionary of the projection input is not needed
+        LazySliceArrayBlock lazyBlock = createLazyDictionaryBlock(createDictionary(10), 100);
+        Page page = new Page(lazyBlock, createBigintBlock(100));
+        PageBuilder pageBuilder = new PageBuilder(ImmutableList.of(BOOLEAN));
+        assertEquals(processor.process(null, page, 0, page.getPositionCount(), pageBuilder), page.getPositionCount());
+        assertTrue(pageBuilder.isEmpty());
+        assertFalse(lazyBlock.isLoaded());
+
+        // the lazy input of the filter is loaded and evaluated per dictionary entry
+        processor = compiler.compilePageProcessor(FILTER, ImmutableList.of(field(0, VARCHAR), PROJECTION));
+        lazyBlock = createLazyDictionaryBlock(createDictionary(10), 100);
+        page = new Page(lazyBlock, createBigintBlock(100));
+        assertPageEquals(TYPES, process(processor, page), process(processor, flatten(page)));
+        assertTrue(lazyBlock.isLoaded());
+    }
+
+    @Test
+    public void testDictionaryEvaluationFailure()
+    {
+        // cast(varchar as bigint)
+        RowExpression projection = call(castSignature(BIGINT, VARCHAR), BIGINT, field(0, VARCHAR));
+        PageProcessor processor = compiler.compilePageProcessor(constant(true, BOOLEAN), ImmutableList.of(projection));
+        List<Type> types = ImmutableList.<Type>of(BIGINT);
+
+        // the unused dictionary entry can not be cast, so this page is evaluated row by row
+        Block badDictionary = new SliceArrayBlock(3, new Slice[] {utf8Slice("1"), utf8Slice("2"), utf8Slice("bad")});
+        Page page = new Page(new DictionaryBlock(4, badDictionary, new int[] {0, 1, 1, 0}));
+        assertPageEquals(types, process(processor, page, types), createBigintPage(1, 2, 2, 1));
+        assertPageEquals(types, process(processor, page, types), createBigintPage(1, 2, 2, 1));
+
+        // other dictionaries are still evaluated once per entry
+        Block goodDictionary = new SliceArrayBlock(2, new Slice[] {utf8Slice("3"), utf8Slice("4")});
+        page = new Page(new DictionaryBlock(3, goodDictionary, new int[] {1, 0, 1}));
+        assertPageEquals(types, process(processor, page, types), createBigintPage(4, 3, 4));
+    }
+
+    private static Page process(PageProcessor processor, Page page)
+    {
+        return process(processor, page, TYPES);
+    }
+
+    private static Page process(PageProcessor processor, Page page, List<Type> types)
+    {
+        PageBuilder pageBuilder = new PageBuilder(types);
+        int position = processor.process(null, page, 0, page.getPositionCount(), pageBuilder);
+        assertEquals(position, page.getPositionCount());
+        return pageBuilder.build();
+    }
+
+    private static Block createDictionary(int size)
+    {
+        Slice[] values = new Slice[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = utf8Slice("value " + i);
+        }
+        return new SliceArrayBlock(size, values);
+    }
+
+    private static Block createDictionaryBlock(Block dictionary, int positionCount)
+    {
+        int[] ids = new int[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            ids[i] = (i * 7) % dictionary.getPositionCount();
+        }
+        return new DictionaryBlock(positionCount, dictionary, ids);
+    }
+
+    private static LazySliceArrayBlock createLazyDictionaryBlock(Block dictionary, int positionCount)
+    {
+        DictionaryBlock dictionaryBlock = (DictionaryBlock) createDictionaryBlock(dictionary, positionCount);
+        int[] ids = new int[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            ids[position] = dictionaryBlock.getId(position);
+        }
+        return new LazySliceArrayBlock(positionCount, block -> block.setValues((SliceArrayBlock) dictionary, ids));
+    }
+
+    private static Page createBigintPage(long... values)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), values.length);
+        for (long value : values) {
+            BIGINT.writeLong(blockBuilder, value);
+        }
+        return new Page(blockBuilder.build());
+    }
+
+    private static Block createBigintBlock(int positionCount)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), positionCount);
+        for (int i = 0; i < positionCount; i++) {
+            BIGINT.writeLong(blockBuilder, i);
+        }
+        return blockBuilder.build();
+    }
+
+    private static Page flatten(Page page)
+    {
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            Block block = page.getBlock(channel);
+            BlockBuilder blockBuilder = TYPES.get(channel).createBlockBuilder(new BlockBuilderStatus(), block.getPositionCount());
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                TYPES.get(channel).appendTo(block, position, blockBuilder);
+            }
+            blocks[channel] = blockBuilder.build();
+        }
+        return new Page(blocks);
+    }
+}
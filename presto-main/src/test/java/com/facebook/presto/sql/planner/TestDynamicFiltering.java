@@ -0,0 +1,185 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Connector;
+import com.facebook.presto.spi.ConnectorFactory;
+import com.facebook.presto.spi.ConnectorHandleResolver;
+import com.facebook.presto.spi.ConnectorMetadata;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorPageSourceProvider;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.ConnectorSplitManager;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.split.RecordPageSourceProvider;
+import com.facebook.presto.testing.LocalQueryRunner;
+import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.tpch.TpchColumnHandle;
+import com.facebook.presto.tpch.TpchConnectorFactory;
+import com.facebook.presto.tpch.TpchSplit;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestDynamicFiltering
+{
+    // the probe of a parallel join is not filtered, so run the joins in a single driver
+    private static final Session SESSION = TEST_SESSION
+            .withSystemProperty("dynamic_filtering_enabled", "true")
+            .withSystemProperty("task_join_concurrency", "1");
+
+    private final List<String> scannedTables = new CopyOnWriteArrayList<>();
+    private final List<TupleDomain<ColumnHandle>> dynamicFilters = new CopyOnWriteArrayList<>();
+    private final LocalQueryRunner runner;
+
+    public TestDynamicFiltering()
+    {
+        runner = new LocalQueryRunner(SESSION);
+        runner.createCatalog(SESSION.getCatalog(), new RecordingConnectorFactory(new TpchConnectorFactory(runner.getNodeManager(), 1)), ImmutableMap.<String, String>of());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void destroy()
+    {
+        runner.close();
+    }
+
+    @BeforeMethod
+    public void setUp()
+    {
+        scannedTables.clear();
+        dynamicFilters.clear();
+    }
+
+    @Test
+    public void testProbeScanIsFiltered()
+    {
+        @Language("SQL") String sql = "SELECT count(*) FROM orders o JOIN customer c ON o.custkey = c.custkey WHERE c.name = 'Customer#000000001'";
+        MaterializedResult actual = runner.execute(sql);
+
+        // the build side is scanned first, and the probe scan is opened after the build has published its keys
+        assertEquals(scannedTables, ImmutableList.of("customer", "orders"));
+        assertEquals(dynamicFilters.get(0), TupleDomain.<ColumnHandle>all());
+
+        Map<ColumnHandle, Domain> domains = dynamicFilters.get(1).getDomains();
+        assertEquals(domains.size(), 1);
+        Map.Entry<ColumnHandle, Domain> domain = getOnlyElement(domains.entrySet());
+        assertEquals(((TpchColumnHandle) domain.getKey()).getColumnName(), "custkey");
+        assertTrue(domain.getValue().isSingleValue());
+        assertEquals(domain.getValue().getSingleValue(), 1L);
+
+        assertEquals(actual, runner.execute(SESSION.withSystemProperty("dynamic_filtering_enabled", "false"), sql));
+    }
+
+    @Test
+    public void testEmptyBuildSkipsProbeScan()
+    {
+        @Language("SQL") String sql = "SELECT count(*) FROM orders o JOIN customer c ON o.custkey = c.custkey WHERE c.name = 'no such customer'";
+        MaterializedResult actual = runner.execute(sql);
+
+        assertEquals(scannedTables, ImmutableList.of("customer"));
+        assertEquals(actual, runner.execute(SESSION.withSystemProperty("dynamic_filtering_enabled", "false"), sql));
+    }
+
+    @Test
+    public void testOuterJoinIsNotFiltered()
+    {
+        runner.execute("SELECT count(*) FROM orders o LEFT JOIN (SELECT * FROM customer WHERE name = 'Customer#000000001') c ON o.custkey = c.custkey");
+
+        assertEquals(scannedTables.size(), 2);
+
+        for (TupleDomain<ColumnHandle> dynamicFilter : dynamicFilters) {
+            assertEquals(dynamicFilter, TupleDomain.<ColumnHandle>all());
+        }
+    }
+
+    private class RecordingConnectorFactory
+            implements ConnectorFactory
+    {
+        private final ConnectorFactory delegate;
+
+        public RecordingConnectorFactory(ConnectorFactory delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getName()
+        {
+            return delegate.getName();
+        }
+
+        @Override
+        public Connector create(String connectorId, Map<String, String> config)
+        {
+            Connector connector = delegate.create(connectorId, config);
+            ConnectorPageSourceProvider pageSourceProvider = new RecordPageSourceProvider(connector.getRecordSetProvider());
+            return new Connector() {
+                @Override
+                public ConnectorHandleResolver getHandleResolver()
+                {
+                    return connector.getHandleResolver();
+                }
+
+                @Override
+                public ConnectorMetadata getMetadata()
+                {
+                    return connector.getMetadata();
+                }
+
+                @Override
+                public ConnectorSplitManager getSplitManager()
+                {
+                    return connector.getSplitManager();
+                }
+
+                @Override
+                public ConnectorPageSourceProvider getPageSourceProvider()
+                {
+                    return new ConnectorPageSourceProvider() {
+                        @Override
+                        public ConnectorPageSource createPageSource(ConnectorSplit split, List<ColumnHandle> columns)
+                        {
+                            return createPageSource(split, columns, TupleDomain.<ColumnHandle>all());
+                        }
+
+                        @Override
+                        public ConnectorPageSource createPageSource(ConnectorSplit split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+                        {
+                            scannedTables.add(((TpchSplit) split).getTableHandle().getTableName());
+                            dynamicFilters.add(dynamicFilter);
+                            return pageSourceProvider.createPageSource(split, columns);
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.sql.parser.SqlParser;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.ExchangeNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.sql.planner.optimizations.TestingStatisticsMetadata.createMetadataManager;
+import static com.facebook.presto.sql.planner.optimizations.TestingStatisticsMetadata.tableScan;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestJoinDistribution
+{
+    private static final DataSize BROADCAST_JOIN_MAX_BUILD_SIZE = new DataSize(100, MEGABYTE);
+
+    private TestingStatisticsMetadata metadata;
+    private SymbolAllocator symbolAllocator;
+    private PlanNodeIdAllocator idAllocator;
+    private Symbol probe;
+    private Symbol build;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        metadata = new TestingStatisticsMetadata();
+        symbolAllocator = new SymbolAllocator();
+        idAllocator = new PlanNodeIdAllocator();
+        probe = symbolAllocator.newSymbol("probe", BIGINT);
+        build = symbolAllocator.newSymbol("build", BIGINT);
+
+        metadata.setTableStatistics("fact", statistics(10_000_000, OptionalDouble.of(10_000 * 1024 * 1024.0)));
+        metadata.setTableStatistics("small", statistics(1000, OptionalDouble.of(1024 * 1024)));
+        metadata.setTableStatistics("large", statistics(1_000_000, OptionalDouble.of(1024 * 1024 * 1024)));
+        metadata.setTableStatistics("no_size", statistics(1000, OptionalDouble.empty()));
+    }
+
+    @Test
+    public void testSmallBuildSideIsReplicated()
+    {
+        JoinNode join = optimizeJoin(join(tableScan(idAllocator.getNextId(), "fact", probe), tableScan(idAllocator.getNextId(), "small", build)), true, true);
+        assertTrue(join.getLeft() instanceof TableScanNode);
+        assertExchange(join.getRight(), ExchangeNode.Type.REPLICATE);
+    }
+
+    @Test
+    public void testLargeBuildSideIsPartitioned()
+    {
+        JoinNode join = optimizeJoin(join(tableScan(idAllocator.getNextId(), "fact", probe), tableScan(idAllocator.getNextId(), "large", build)), true, false);
+        assertExchange(join.getLeft(), ExchangeNode.Type.REPARTITION);
+        assertExchange(join.getRight(), ExchangeNode.Type.REPARTITION);
+    }
+
+    @Test
+    public void testUnknownBuildSize()
+    {
+        // without a size estimate the distributed join setting decides
+        PlanNode plan = join(tableScan(idAllocator.getNextId(), "fact", probe), tableScan(idAllocator.getNextId(), "no_size", build));
+        assertExchange(optimizeJoin(plan, true, true).getRight(), ExchangeNode.Type.REPARTITION);
+        assertExchange(optimizeJoin(plan, true, false).getRight(), ExchangeNode.Type.REPLICATE);
+
+        plan = join(tableScan(idAllocator.getNextId(), "fact", probe), tableScan(idAllocator.getNextId(), "unknown", build));
+        assertExchange(optimizeJoin(plan, true, true).getRight(), ExchangeNode.Type.REPARTITION);
+    }
+
+    @Test
+    public void testAutomaticJoinDistributionDisabled()
+    {
+        PlanNode plan = join(tableScan(idAllocator.getNextId(), "fact", probe), tableScan(idAllocator.getNextId(), "small", build));
+        assertExchange(optimizeJoin(plan, false, true).getRight(), ExchangeNode.Type.REPARTITION);
+
+        plan = join(tableScan(idAllocator.getNextId(), "fact", probe), tableScan(idAllocator.getNextId(), "large", build));
+        assertExchange(optimizeJoin(plan, false, false).getRight(), ExchangeNode.Type.REPLICATE);
+    }
+
+    @Test
+    public void testRightJoinIsAlwaysPartitioned()
+    {
+        PlanNode plan = new JoinNode(
+                idAllocator.getNextId(),
+                JoinNode.Type.RIGHT,
+                tableScan(idAllocator.getNextId(), "fact", probe),
+                tableScan(idAllocator.getNextId(), "small", build),
+                ImmutableList.of(new JoinNode.EquiJoinClause(probe, build)),
+                Optional.empty(),
+                Optional.empty());
+        assertExchange(optimizeJoin(plan, true, false).getRight(), ExchangeNode.Type.REPARTITION);
+    }
+
+    @Test
+    public void testSemiJoin()
+    {
+        Symbol match = symbolAllocator.newSymbol("match", BOOLEAN);
+
+        PlanNode plan = semiJoin(tableScan(idAllocator.getNextId(), "fact", probe), tableScan(idAllocator.getNextId(), "small", build), match);
+        SemiJoinNode semiJoin = (SemiJoinNode) optimize(plan, true, true);
+        assertExchange(semiJoin.getFilteringSource(), ExchangeNode.Type.REPLICATE);
+
+        plan = semiJoin(tableScan(idAllocator.getNextId(), "fact", probe), tableScan(idAllocator.getNextId(), "large", build), match);
+        semiJoin = (SemiJoinNode) optimize(plan, true, false);
+        assertExchange(semiJoin.getSource(), ExchangeNode.Type.REPARTITION);
+        assertExchange(semiJoin.getFilteringSource(), ExchangeNode.Type.REPARTITION_WITH_NULL_REPLICATION);
+    }
+
+    private JoinNode optimizeJoin(PlanNode plan, boolean automaticJoinDistribution, boolean distributedJoins)
+    {
+        PlanNode optimized = optimize(plan, automaticJoinDistribution, distributedJoins);
+        assertTrue(optimized instanceof JoinNode, "expected a join: " + optimized);
+        return (JoinNode) optimized;
+    }
+
+    private PlanNode optimize(PlanNode plan, boolean automaticJoinDistribution, boolean distributedJoins)
+    {
+        AddExchanges optimizer = new AddExchanges(
+                createMetadataManager(metadata),
+                new SqlParser(),
+                false,
+                distributedJoins,
+                automaticJoinDistribution,
+                BROADCAST_JOIN_MAX_BUILD_SIZE,
+                false);
+        return optimizer.optimize(plan, TEST_SESSION, symbolAllocator.getTypes(), symbolAllocator, idAllocator);
+    }
+
+    private JoinNode join(PlanNode left, PlanNode right)
+    {
+        return new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, left, right, ImmutableList.of(new JoinNode.EquiJoinClause(probe, build)), Optional.empty(), Optional.empty());
+    }
+
+    private SemiJoinNode semiJoin(PlanNode source, PlanNode filteringSource, Symbol match)
+    {
+        return new SemiJoinNode(idAllocator.getNextId(), source, filteringSource, probe, build, match, Optional.empty(), Optional.empty());
+    }
+
+    private static void assertExchange(PlanNode node, ExchangeNode.Type type)
+    {
+        assertTrue(node instanceof ExchangeNode, "expected an exchange: " + node);
+        assertEquals(((ExchangeNode) node).getType(), type);
+    }
+
+    private static TableStatistics statistics(double rowCount, OptionalDouble dataSize)
+    {
+        return new TableStatistics(OptionalDouble.of(rowCount), dataSize, ImmutableMap.of());
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.spi.ColumnStatistics;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.tree.ComparisonExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.LogicalBinaryExpression;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.sql.planner.optimizations.TestingStatisticsMetadata.createMetadataManager;
+import static com.facebook.presto.sql.planner.optimizations.TestingStatisticsMetadata.distinctValues;
+import static com.facebook.presto.sql.planner.optimizations.TestingStatisticsMetadata.tableScan;
+import static com.facebook.presto.sql.planner.optimizations.TestingStatisticsMetadata.tableStatistics;
+import static com.facebook.presto.sql.tree.ComparisonExpression.Type.EQUAL;
+import static com.facebook.presto.sql.tree.ComparisonExpression.Type.GREATER_THAN;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestPlanNodeStatisticsEstimator
+{
+    private final Symbol a = new Symbol("a");
+    private final Symbol b = new Symbol("b");
+    private final Symbol c = new Symbol("c");
+
+    private TestingStatisticsMetadata metadata;
+    private PlanNodeStatisticsEstimator estimator;
+    private int nextId;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        metadata = new TestingStatisticsMetadata();
+        estimator = new PlanNodeStatisticsEstimator(createMetadataManager(metadata), TEST_SESSION);
+    }
+
+    @Test
+    public void testTableScan()
+    {
+        metadata.setTableStatistics("t", new TableStatistics(
+                OptionalDouble.of(1000),
+                OptionalDouble.of(100_000),
+                ImmutableMap.of(
+                        new TestingColumnHandle("a"), new ColumnStatistics(OptionalDouble.of(10), OptionalDouble.empty(), OptionalDouble.of(8000)),
+                        new TestingColumnHandle("b"), new ColumnStatistics(OptionalDouble.empty(), OptionalDouble.empty(), OptionalDouble.of(2000)))));
+
+        PlanNodeStatistics statistics = estimator.estimate(tableScan(nextId(), "t", a, b));
+        assertEquals(statistics.getOutputRowCount(), OptionalDouble.of(1000));
+        assertEquals(statistics.getOutputSizeInBytes(), OptionalDouble.of(10_000));
+        assertEquals(statistics.getDistinctValuesCount(a), OptionalDouble.of(10));
+        assertFalse(statistics.getDistinctValuesCount(b).isPresent());
+
+        // the size of the table is used when the size of a column is not known
+        statistics = estimator.estimate(tableScan(nextId(), "t", a, c));
+        assertEquals(statistics.getOutputSizeInBytes(), OptionalDouble.of(100_000));
+    }
+
+    @Test
+    public void testNoStatistics()
+    {
+        metadata.setTableStatistics("t", tableStatistics(1000, ImmutableMap.of()));
+
+        assertFalse(estimator.estimate(tableScan(nextId(), "unknown", a)).getOutputRowCount().isPresent());
+        assertFalse(estimator.estimate(join(JoinNode.Type.INNER, tableScan(nextId(), "t", a), tableScan(nextId(), "unknown", b), a, b)).getOutputRowCount().isPresent());
+    }
+
+    @Test
+    public void testEmptyConstraint()
+    {
+        metadata.setTableStatistics("t", tableStatistics(1000, ImmutableMap.of()));
+
+        TableScanNode scan = tableScan(nextId(), "t", a);
+        TableScanNode emptyScan = new TableScanNode(nextId(), scan.getTable(), scan.getOutputSymbols(), scan.getAssignments(), Optional.empty(), TupleDomain.none(), null);
+        assertEquals(estimator.estimate(emptyScan).getOutputRowCount(), OptionalDouble.of(0));
+    }
+
+    @Test
+    public void testFilter()
+    {
+        metadata.setTableStatistics("t", tableStatistics(1000, ImmutableMap.of("a", distinctValues(10))));
+        PlanNode scan = tableScan(nextId(), "t", a, b);
+
+        Expression equality = new ComparisonExpression(EQUAL, a.toQualifiedNameReference(), new LongLiteral("5"));
+        Expression range = new ComparisonExpression(GREATER_THAN, b.toQualifiedNameReference(), new LongLiteral("5"));
+
+        assertEquals(estimator.estimate(new FilterNode(nextId(), scan, equality)).getOutputRowCount(), OptionalDouble.of(100));
+        assertEquals(estimator.estimate(new FilterNode(nextId(), scan, range)).getOutputRowCount(), OptionalDouble.of(500));
+        assertEquals(estimator.estimate(new FilterNode(nextId(), scan, new LogicalBinaryExpression(LogicalBinaryExpression.Type.AND, equality, range))).getOutputRowCount(), OptionalDouble.of(50));
+    }
+
+    @Test
+    public void testJoin()
+    {
+        metadata.setTableStatistics("left", tableStatistics(1000, ImmutableMap.of("a", distinctValues(100))));
+        metadata.setTableStatistics("right", tableStatistics(500, ImmutableMap.of("b", distinctValues(50))));
+
+        PlanNode join = join(JoinNode.Type.INNER, tableScan(nextId(), "left", a), tableScan(nextId(), "right", b), a, b);
+        assertEquals(estimator.estimate(join).getOutputRowCount(), OptionalDouble.of(1000.0 * 500 / 100));
+    }
+
+    @Test
+    public void testJoinWithoutDistinctValues()
+    {
+        // a join on a key without distinct values counts is assumed to be a foreign key join
+        metadata.setTableStatistics("left", tableStatistics(1000, ImmutableMap.of()));
+        metadata.setTableStatistics("right", tableStatistics(500, ImmutableMap.of()));
+        PlanNode join = join(JoinNode.Type.INNER, tableScan(nextId(), "left", a), tableScan(nextId(), "right", b), a, b);
+        assertEquals(estimator.estimate(join).getOutputRowCount(), OptionalDouble.of(1000));
+
+        // the distinct values count of a single side is not enough
+        metadata.setTableStatistics("right", tableStatistics(500, ImmutableMap.of("b", distinctValues(50))));
+        join = join(JoinNode.Type.INNER, tableScan(nextId(), "left", a), tableScan(nextId(), "right", b), a, b);
+        assertEquals(estimator.estimate(join).getOutputRowCount(), OptionalDouble.of(1000));
+    }
+
+    @Test
+    public void testOuterJoin()
+    {
+        metadata.setTableStatistics("left", tableStatistics(1000, ImmutableMap.of("a", distinctValues(1000))));
+        metadata.setTableStatistics("right", tableStatistics(10, ImmutableMap.of("b", distinctValues(10))));
+
+        PlanNode join = join(JoinNode.Type.INNER, tableScan(nextId(), "left", a), tableScan(nextId(), "right", b), a, b);
+        assertEquals(estimator.estimate(join).getOutputRowCount(), OptionalDouble.of(10));
+
+        // every row of the outer side is returned
+        join = join(JoinNode.Type.LEFT, tableScan(nextId(), "left", a), tableScan(nextId(), "right", b), a, b);
+        assertEquals(estimator.estimate(join).getOutputRowCount(), OptionalDouble.of(1000));
+    }
+
+    @Test
+    public void testAggregation()
+    {
+        metadata.setTableStatistics("t", tableStatistics(1000, ImmutableMap.of("a", distinctValues(10))));
+
+        assertEquals(estimator.estimate(aggregation(tableScan(nextId(), "t", a, b), ImmutableList.of(a))).getOutputRowCount(), OptionalDouble.of(10));
+        assertEquals(estimator.estimate(aggregation(tableScan(nextId(), "t", a, b), ImmutableList.of(b))).getOutputRowCount(), OptionalDouble.of(1000));
+        assertEquals(estimator.estimate(aggregation(tableScan(nextId(), "t", a, b), ImmutableList.of())).getOutputRowCount(), OptionalDouble.of(1));
+    }
+
+    @Test
+    public void testLimit()
+    {
+        metadata.setTableStatistics("t", tableStatistics(1000, ImmutableMap.of()));
+
+        assertEquals(estimator.estimate(new LimitNode(nextId(), tableScan(nextId(), "t", a), 10)).getOutputRowCount(), OptionalDouble.of(10));
+        assertEquals(estimator.estimate(new LimitNode(nextId(), tableScan(nextId(), "t", a), 5000)).getOutputRowCount(), OptionalDouble.of(1000));
+        assertEquals(estimator.estimate(new LimitNode(nextId(), tableScan(nextId(), "unknown", a), 10)).getOutputRowCount(), OptionalDouble.of(10));
+    }
+
+    private JoinNode join(JoinNode.Type type, PlanNode left, PlanNode right, Symbol leftSymbol, Symbol rightSymbol)
+    {
+        return new JoinNode(nextId(), type, left, right, ImmutableList.of(new JoinNode.EquiJoinClause(leftSymbol, rightSymbol)), Optional.empty(), Optional.empty());
+    }
+
+    private AggregationNode aggregation(PlanNode source, List<Symbol> groupBy)
+    {
+        return new AggregationNode(nextId(), source, groupBy, ImmutableMap.of(), ImmutableMap.of(), ImmutableMap.of(), AggregationNode.Step.SINGLE, Optional.empty(), 1.0, Optional.empty());
+    }
+
+    private PlanNodeId nextId()
+    {
+        return new PlanNodeId(String.valueOf(nextId++));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.planner.optimizations.TestingStatisticsMetadata.createMetadataManager;
+import static com.facebook.presto.sql.planner.optimizations.TestingStatisticsMetadata.distinctValues;
+import static com.facebook.presto.sql.planner.optimizations.TestingStatisticsMetadata.tableScan;
+import static com.facebook.presto.sql.planner.optimizations.TestingStatisticsMetadata.tableStatistics;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestReorderJoins
+{
+    private final Symbol x = new Symbol("x");
+    private final Symbol y = new Symbol("y");
+    private final Symbol d1 = new Symbol("d1");
+    private final Symbol d2 = new Symbol("d2");
+    private final Map<Symbol, Type> types = ImmutableMap.of(x, BIGINT, y, BIGINT, d1, BIGINT, d2, BIGINT);
+
+    private TestingStatisticsMetadata metadata;
+    private ReorderJoins optimizer;
+    private PlanNodeIdAllocator idAllocator;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        metadata = new TestingStatisticsMetadata();
+        optimizer = new ReorderJoins(createMetadataManager(metadata), true);
+        idAllocator = new PlanNodeIdAllocator();
+
+        // a fact table joined with a large and a small dimension
+        metadata.setTableStatistics("fact", tableStatistics(1_000_000, ImmutableMap.of("x", distinctValues(1000), "y", distinctValues(10))));
+        metadata.setTableStatistics("dim1", tableStatistics(1000, ImmutableMap.of("d1", distinctValues(1000))));
+        metadata.setTableStatistics("dim2", tableStatistics(10, ImmutableMap.of("d2", distinctValues(10))));
+    }
+
+    @Test
+    public void testLargestInputIsProbedFirst()
+    {
+        TableScanNode fact = tableScan(nextId(), "fact", x, y);
+        TableScanNode dim1 = tableScan(nextId(), "dim1", d1);
+        TableScanNode dim2 = tableScan(nextId(), "dim2", d2);
+
+        // (dim1 JOIN fact) JOIN dim2
+        PlanNode plan = join(join(dim1, fact, d1, x), dim2, y, d2);
+        PlanNode optimized = optimize(plan);
+
+        // the output symbols of the original join are restored
+        assertEquals(optimized.getOutputSymbols(), plan.getOutputSymbols());
+        assertTrue(optimized instanceof ProjectNode);
+
+        // (fact JOIN dim2) JOIN dim1, as joining the small dimension first keeps the intermediate result smallest
+        JoinNode top = (JoinNode) ((ProjectNode) optimized).getSource();
+        assertSame(top.getRight(), dim1);
+        JoinNode bottom = (JoinNode) top.getLeft();
+        assertSame(bottom.getLeft(), fact);
+        assertSame(bottom.getRight(), dim2);
+        assertEquals(bottom.getCriteria(), ImmutableList.of(new JoinNode.EquiJoinClause(y, d2)));
+        assertEquals(top.getCriteria(), ImmutableList.of(new JoinNode.EquiJoinClause(x, d1)));
+    }
+
+    @Test
+    public void testUnknownStatistics()
+    {
+        TableScanNode fact = tableScan(nextId(), "fact", x, y);
+        TableScanNode dim1 = tableScan(nextId(), "unknown", d1);
+        TableScanNode dim2 = tableScan(nextId(), "dim2", d2);
+
+        PlanNode plan = join(join(dim1, fact, d1, x), dim2, y, d2);
+        assertJoinOrderUnchanged(plan, optimize(plan));
+    }
+
+    @Test
+    public void testSingleJoin()
+    {
+        TableScanNode fact = tableScan(nextId(), "fact", x, y);
+        TableScanNode dim2 = tableScan(nextId(), "dim2", d2);
+
+        // the sides of a single join are chosen by the distribution of the join
+        PlanNode plan = join(dim2, fact, d2, y);
+        assertJoinOrderUnchanged(plan, optimize(plan));
+    }
+
+    @Test
+    public void testInputConnectedThroughAnotherInput()
+    {
+        TableScanNode fact = tableScan(nextId(), "fact", x, y);
+        TableScanNode dim1 = tableScan(nextId(), "dim1", d1);
+        TableScanNode dim2 = tableScan(nextId(), "dim2", d2);
+
+        // dim2 is only connected to dim1, so it is joined after dim1
+        PlanNode plan = join(join(dim1, dim2, d1, d2), fact, d1, x);
+        PlanNode optimized = optimize(plan);
+        assertEquals(optimized.getOutputSymbols(), plan.getOutputSymbols());
+
+        JoinNode top = (JoinNode) ((ProjectNode) optimized).getSource();
+        assertSame(top.getRight(), dim2);
+        JoinNode bottom = (JoinNode) top.getLeft();
+        assertSame(bottom.getLeft(), fact);
+        assertSame(bottom.getRight(), dim1);
+    }
+
+    private PlanNode optimize(PlanNode plan)
+    {
+        return optimizer.optimize(plan, TEST_SESSION, types, new SymbolAllocator(), idAllocator);
+    }
+
+    private JoinNode join(PlanNode left, PlanNode right, Symbol leftSymbol, Symbol rightSymbol)
+    {
+        return new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, left, right, ImmutableList.of(new JoinNode.EquiJoinClause(leftSymbol, rightSymbol)), Optional.empty(), Optional.empty());
+    }
+
+    private PlanNodeId nextId()
+    {
+        return idAllocator.getNextId();
+    }
+
+    private static void assertJoinOrderUnchanged(PlanNode expected, PlanNode actual)
+    {
+        assertEquals(actual.getOutputSymbols(), expected.getOutputSymbols());
+        if (expected instanceof JoinNode) {
+            assertTrue(actual instanceof JoinNode);
+            assertJoinOrderUnchanged(((JoinNode) expected).getLeft(), ((JoinNode) actual).getLeft());
+            assertJoinOrderUnchanged(((JoinNode) expected).getRight(), ((JoinNode) actual).getRight());
+        }
+        else {
+            assertSame(actual, expected);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.metadata.TestingMetadata;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ColumnStatistics;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorTableHandle;
+import com.facebook.presto.spi.ConnectorTableLayout;
+import com.facebook.presto.spi.ConnectorTableLayoutHandle;
+import com.facebook.presto.spi.ConnectorTableLayoutResult;
+import com.facebook.presto.spi.Constraint;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
+import static com.facebook.presto.util.Types.checkType;
+
+/**
+ * Metadata of a connector that reports the statistics given to it. The columns of the
+ * tables are {@link TestingColumnHandle}s named after the symbols of the table scans, and
+ * every table has a single layout without partitioning.
+ */
+public class TestingStatisticsMetadata
+        extends TestingMetadata
+{
+    public static final String CONNECTOR_ID = "statistics";
+    private static final String SCHEMA_NAME = "default";
+
+    private final Map<String, TableStatistics> tableStatistics = new ConcurrentHashMap<>();
+
+    public static MetadataManager createMetadataManager(TestingStatisticsMetadata metadata)
+    {
+        MetadataManager metadataManager = createTestMetadataManager();
+        metadataManager.addConnectorMetadata(CONNECTOR_ID, CONNECTOR_ID, metadata);
+        return metadataManager;
+    }
+
+    public void setTableStatistics(String tableName, TableStatistics statistics)
+    {
+        tableStatistics.put(tableName, statistics);
+    }
+
+    public static TableStatistics tableStatistics(double rowCount, Map<String, ColumnStatistics> columnStatistics)
+    {
+        ImmutableMap.Builder<ColumnHandle, ColumnStatistics> columns = ImmutableMap.builder();
+        for (Map.Entry<String, ColumnStatistics> entry : columnStatistics.entrySet()) {
+            columns.put(new TestingColumnHandle(entry.getKey()), entry.getValue());
+        }
+        return new TableStatistics(OptionalDouble.of(rowCount), OptionalDouble.empty(), columns.build());
+    }
+
+    public static ColumnStatistics distinctValues(double distinctValuesCount)
+    {
+        return new ColumnStatistics(OptionalDouble.of(distinctValuesCount), OptionalDouble.empty(), OptionalDouble.empty());
+    }
+
+    public static TableScanNode tableScan(PlanNodeId id, String tableName, Symbol... symbols)
+    {
+        ImmutableMap.Builder<Symbol, ColumnHandle> assignments = ImmutableMap.builder();
+        for (Symbol symbol : symbols) {
+            assignments.put(symbol, new TestingColumnHandle(symbol.getName()));
+        }
+        List<Symbol> outputs = ImmutableList.copyOf(symbols);
+        TableHandle table = new TableHandle(CONNECTOR_ID, new InMemoryTableHandle(new SchemaTableName(SCHEMA_NAME, tableName)));
+        return new TableScanNode(id, table, outputs, assignments.build(), Optional.empty(), TupleDomain.all(), null);
+    }
+
+    @Override
+    public List<ConnectorTableLayoutResult> getTableLayouts(ConnectorTableHandle table, Constraint<ColumnHandle> constraint, Optional<Set<ColumnHandle>> desiredColumns)
+    {
+        ConnectorTableLayout layout = getTableLayout(new TestingLayoutHandle(checkType(table, InMemoryTableHandle.class, "table")));
+        return ImmutableList.of(new ConnectorTableLayoutResult(layout, constraint.getSummary()));
+    }
+
+    @Override
+    public ConnectorTableLayout getTableLayout(ConnectorTableLayoutHandle handle)
+    {
+        checkType(handle, TestingLayoutHandle.class, "handle");
+        return new ConnectorTableLayout(handle, Optional.empty(), TupleDomain.all(), Optional.empty(), Optional.empty(), ImmutableList.of());
+    }
+
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, TupleDomain<ColumnHandle> constraint)
+    {
+        String tableName = checkType(tableHandle, InMemoryTableHandle.class, "tableHandle").getTableName().getTableName();
+        return tableStatistics.getOrDefault(tableName, TableStatistics.empty());
+    }
+
+    private static class TestingLayoutHandle
+            implements ConnectorTableLayoutHandle
+    {
+        private final InMemoryTableHandle table;
+
+        public TestingLayoutHandle(InMemoryTableHandle table)
+        {
+            this.table = table;
+        }
+
+        @Override
+        public String toString()
+        {
+            return table.getTableName().toString();
+        }
+    }
+}
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.orc.OrcDataSourceUtils.getDiskRangeSlice;
 import static com.facebook.presto.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
@@ -42,7 +43,8 @@ public abstract class AbstractOrcDataSource
     private final DataSize maxMergeDistance;
     private final DataSize maxBufferSize;
     private final DataSize streamBufferSize;
-    private long readTimeNanos;
+    // reads can be issued concurrently when the record reader prefetches stripes
+    private final AtomicLong readTimeNanos = new AtomicLong();
 
     public AbstractOrcDataSource(String name, long size, DataSize maxMergeDistance, DataSize maxBufferSize, DataSize streamBufferSize)
     {
@@ -59,10 +61,24 @@ public abstract class AbstractOrcDataSource
     protected abstract void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
             throws IOException;
 
+    /**
+     * Reads each disk range fully into its buffer. The ranges are read one at a
+     * time, but data sources with a high per request latency can override this
+     * method to issue the reads concurrently.
+     */
+    protected void readInternal(Map<DiskRange, byte[]> buffers)
+            throws IOException
+    {
+        for (Entry<DiskRange, byte[]> entry : buffers.entrySet()) {
+            DiskRange diskRange = entry.getKey();
+            readInternal(diskRange.getOffset(), entry.getValue(), 0, diskRange.getLength());
+        }
+    }
+
     @Override
     public final long getReadTimeNanos()
     {
-        return readTimeNanos;
+        return readTimeNanos.get();
     }
 
     @Override
@@ -86,7 +102,7 @@ public abstract class AbstractOrcDataSource
 
         readInternal(position, buffer, bufferOffset, bufferLength);
 
-        readTimeNanos += System.nanoTime() - start;
+        readTimeNanos.addAndGet(System.nanoTime() - start);
     }
 
     @Override
@@ -135,14 +151,14 @@ public abstract class AbstractOrcDataSource
 
         Iterable<DiskRange> mergedRanges = mergeAdjacentDiskRanges(diskRanges.values(), maxMergeDistance, maxBufferSize);
 
-        // read ranges
+        // read ranges, each full range in one request
         Map<DiskRange, byte[]> buffers = new LinkedHashMap<>();
         for (DiskRange mergedRange : mergedRanges) {
-            // read full range in one request
-            byte[] buffer = new byte[mergedRange.getLength()];
-            readFully(mergedRange.getOffset(), buffer);
-            buffers.put(mergedRange, buffer);
+            buffers.put(mergedRange, new byte[mergedRange.getLength()]);
         }
+        long start = System.nanoTime();
+        readInternal(buffers);
+        readTimeNanos.addAndGet(System.nanoTime() - start);
 
         ImmutableMap.Builder<K, FixedLengthSliceInput> slices = ImmutableMap.builder();
         for (Entry<K, DiskRange> entry : diskRanges.entrySet()) {
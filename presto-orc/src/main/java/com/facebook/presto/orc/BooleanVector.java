@@ -42,4 +42,18 @@ public class BooleanVector
         }
         return objectVector;
     }
+
+    @Override
+    public BooleanVector newVector(int length)
+    {
+        return new BooleanVector(length);
+    }
+
+    @Override
+    public void copyFrom(Vector source, int sourceOffset, int offset, int length)
+    {
+        BooleanVector sourceVector = (BooleanVector) source;
+        System.arraycopy(sourceVector.isNull, sourceOffset, isNull, offset, length);
+        System.arraycopy(sourceVector.vector, sourceOffset, vector, offset, length);
+    }
 }
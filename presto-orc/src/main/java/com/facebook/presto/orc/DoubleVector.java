@@ -42,4 +42,18 @@ public class DoubleVector
         }
         return objectVector;
     }
+
+    @Override
+    public DoubleVector newVector(int length)
+    {
+        return new DoubleVector(length);
+    }
+
+    @Override
+    public void copyFrom(Vector source, int sourceOffset, int offset, int length)
+    {
+        DoubleVector sourceVector = (DoubleVector) source;
+        System.arraycopy(sourceVector.isNull, sourceOffset, isNull, offset, length);
+        System.arraycopy(sourceVector.vector, sourceOffset, vector, offset, length);
+    }
 }
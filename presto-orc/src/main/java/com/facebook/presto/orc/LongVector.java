@@ -42,4 +42,18 @@ public class LongVector
         }
         return objectVector;
     }
+
+    @Override
+    public LongVector newVector(int length)
+    {
+        return new LongVector(length);
+    }
+
+    @Override
+    public void copyFrom(Vector source, int sourceOffset, int offset, int length)
+    {
+        LongVector sourceVector = (LongVector) source;
+        System.arraycopy(sourceVector.isNull, sourceOffset, isNull, offset, length);
+        System.arraycopy(sourceVector.vector, sourceOffset, vector, offset, length);
+    }
 }
@@ -34,4 +34,17 @@ public class ObjectVector
     {
         return this;
     }
+
+    @Override
+    public ObjectVector newVector(int length)
+    {
+        return new ObjectVector(length);
+    }
+
+    @Override
+    public void copyFrom(Vector source, int sourceOffset, int offset, int length)
+    {
+        ObjectVector sourceVector = (ObjectVector) source;
+        System.arraycopy(sourceVector.vector, sourceOffset, vector, offset, length);
+    }
 }
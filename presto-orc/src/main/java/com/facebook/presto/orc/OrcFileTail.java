@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.BloomFilter;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.Metadata;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.StringStatistics;
+import com.facebook.presto.orc.metadata.StripeStatistics;
+
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.slice.SizeOf.sizeOf;
+
+/**
+ * The decoded tail of an ORC file: the post script settings, the footer and the stripe statistics.
+ */
+public class OrcFileTail
+{
+    // rough sizes of the decoded metadata objects, including object headers and references
+    private static final int REFERENCE_SIZE = 8;
+    private static final int LIST_SIZE = 32;
+    private static final int STRIPE_INFORMATION_SIZE = 56;
+    private static final int ORC_TYPE_SIZE = 32;
+    private static final int FIELD_SIZE = 2 * REFERENCE_SIZE + 16 + 56;
+    private static final int COLUMN_STATISTICS_SIZE = 64;
+    private static final int RANGE_STATISTICS_SIZE = 56;
+    private static final int SLICE_SIZE = 48;
+    private static final int BLOOM_FILTER_SIZE = 32;
+
+    private final CompressionKind compressionKind;
+    private final int bufferSize;
+    private final Footer footer;
+    private final Metadata metadata;
+    private final int serializedSize;
+    private final long retainedSize;
+
+    public OrcFileTail(CompressionKind compressionKind, int bufferSize, Footer footer, Metadata metadata, int serializedSize)
+    {
+        this.compressionKind = checkNotNull(compressionKind, "compressionKind is null");
+        this.bufferSize = bufferSize;
+        this.footer = checkNotNull(footer, "footer is null");
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        checkArgument(serializedSize >= 0, "serializedSize is negative");
+        this.serializedSize = serializedSize;
+        this.retainedSize = estimateRetainedSize(footer, metadata);
+    }
+
+    public CompressionKind getCompressionKind()
+    {
+        return compressionKind;
+    }
+
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    public Footer getFooter()
+    {
+        return footer;
+    }
+
+    public Metadata getMetadata()
+    {
+        return metadata;
+    }
+
+    /**
+     * Returns the number of bytes the tail occupies in the file.
+     */
+    public int getSerializedSize()
+    {
+        return serializedSize;
+    }
+
+    /**
+     * Returns an estimate of the memory retained by the decoded tail, which is
+     * usually much larger than the compressed tail in the file.
+     */
+    public long getRetainedSizeInBytes()
+    {
+        return retainedSize;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("compressionKind", compressionKind)
+                .add("bufferSize", bufferSize)
+                .add("serializedSize", serializedSize)
+                .add("retainedSize", retainedSize)
+                .toString();
+    }
+
+    private static long estimateRetainedSize(Footer footer, Metadata metadata)
+    {
+        long size = LIST_SIZE + footer.getStripes().size() * (REFERENCE_SIZE + STRIPE_INFORMATION_SIZE);
+
+        size += LIST_SIZE;
+        for (OrcType type : footer.getTypes()) {
+            size += REFERENCE_SIZE + ORC_TYPE_SIZE + 2 * LIST_SIZE + type.getFieldCount() * FIELD_SIZE;
+            for (String fieldName : type.getFieldNames()) {
+                size += fieldName.length() * 2;
+            }
+        }
+
+        size += estimateRetainedSize(footer.getFileStats());
+        size += LIST_SIZE;
+        for (StripeStatistics stripeStatistics : metadata.getStripeStatsList()) {
+            size += REFERENCE_SIZE + estimateRetainedSize(stripeStatistics.getColumnStatistics());
+        }
+        return size;
+    }
+
+    private static long estimateRetainedSize(List<ColumnStatistics> columnStatistics)
+    {
+        long size = LIST_SIZE;
+        for (ColumnStatistics statistics : columnStatistics) {
+            size += REFERENCE_SIZE;
+            if (statistics == null) {
+                continue;
+            }
+            size += COLUMN_STATISTICS_SIZE;
+            if (statistics.getBooleanStatistics() != null) {
+                size += RANGE_STATISTICS_SIZE;
+            }
+            if (statistics.getIntegerStatistics() != null) {
+                size += RANGE_STATISTICS_SIZE;
+            }
+            if (statistics.getDoubleStatistics() != null) {
+                size += RANGE_STATISTICS_SIZE;
+            }
+            if (statistics.getDateStatistics() != null) {
+                size += RANGE_STATISTICS_SIZE;
+            }
+            StringStatistics stringStatistics = statistics.getStringStatistics();
+            if (stringStatistics != null) {
+                // the min and max may be views of a larger buffer, which they keep alive
+                size += RANGE_STATISTICS_SIZE;
+                if (stringStatistics.getMin() != null) {
+                    size += SLICE_SIZE + stringStatistics.getMin().getRetainedSize();
+                }
+                if (stringStatistics.getMax() != null) {
+                    size += SLICE_SIZE + stringStatistics.getMax().getRetainedSize();
+                }
+            }
+            BloomFilter bloomFilter = statistics.getBloomFilter();
+            if (bloomFilter != null) {
+                size += BLOOM_FILTER_SIZE + sizeOf(bloomFilter.getBitSet());
+            }
+        }
+        return size;
+    }
+}
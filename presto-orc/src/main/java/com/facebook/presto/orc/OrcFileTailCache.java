@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.MetadataReader;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.units.DataSize;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.base.Throwables.propagateIfInstanceOf;
+
+/**
+ * Caches decoded ORC file tails so opening another split of a recently read file does not
+ * read and parse the footer again. Entries are keyed by the path, size and modification
+ * time of the file and are weighted by the estimated memory retained by the decoded tail.
+ */
+public class OrcFileTailCache
+{
+    private final Cache<FileKey, OrcFileTail> cache;
+
+    public OrcFileTailCache(DataSize maxSize)
+    {
+        checkNotNull(maxSize, "maxSize is null");
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((FileKey key, OrcFileTail tail) -> Ints.saturatedCast(tail.getRetainedSizeInBytes()))
+                .recordStats()
+                .build();
+    }
+
+    public OrcReader createOrcReader(OrcDataSource orcDataSource, MetadataReader metadataReader, String path, long modificationTime)
+            throws IOException
+    {
+        checkNotNull(orcDataSource, "orcDataSource is null");
+        checkNotNull(metadataReader, "metadataReader is null");
+
+        FileKey key = new FileKey(path, orcDataSource.getSize(), modificationTime, metadataReader.getClass());
+        OrcFileTail fileTail;
+        try {
+            fileTail = cache.get(key, () -> OrcReader.readFileTail(orcDataSource, metadataReader));
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            propagateIfInstanceOf(e.getCause(), IOException.class);
+            throw propagate(e.getCause());
+        }
+        return new OrcReader(orcDataSource, metadataReader, fileTail);
+    }
+
+    public CacheStats getStats()
+    {
+        return cache.stats();
+    }
+
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+
+    private static final class FileKey
+    {
+        private final String path;
+        private final long size;
+        private final long modificationTime;
+        private final Class<?> metadataReaderClass;
+
+        private FileKey(String path, long size, long modificationTime, Class<?> metadataReaderClass)
+        {
+            this.path = checkNotNull(path, "path is null");
+            this.size = size;
+            this.modificationTime = modificationTime;
+            this.metadataReaderClass = checkNotNull(metadataReaderClass, "metadataReaderClass is null");
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, size, modificationTime, metadataReaderClass);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            FileKey other = (FileKey) obj;
+            return Objects.equals(this.path, other.path) &&
+                    this.size == other.size &&
+                    this.modificationTime == other.modificationTime &&
+                    Objects.equals(this.metadataReaderClass, other.metadataReaderClass);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("size", size)
+                    .add("modificationTime", modificationTime)
+                    .add("metadataReader", metadataReaderClass.getSimpleName())
+                    .toString();
+        }
+    }
+}
@@ -37,4 +37,13 @@ public interface OrcPredicate
      * in the file; this will match the field order from the hive metastore
      */
     boolean matches(long numberOfRows, Map<Integer, ColumnStatistics> statisticsByColumnIndex);
+
+    /**
+     * Can the bloom filter of the column at the specified ordinal position change the
+     * result of {@link #matches}. The reader only reads bloom filters of such columns.
+     */
+    default boolean usesBloomFilter(int columnIndex)
+    {
+        return false;
+    }
 }
@@ -25,15 +25,19 @@ import com.google.common.primitives.Ints;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
 import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.lang.Math.min;
 
 public class OrcReader
@@ -52,12 +56,32 @@ public class OrcReader
     private final Footer footer;
     private final Metadata metadata;
 
-    // This is based on the Apache Hive ORC code
     public OrcReader(OrcDataSource orcDataSource, MetadataReader metadataReader)
             throws IOException
+    {
+        this(orcDataSource, metadataReader, readFileTail(orcDataSource, metadataReader));
+    }
+
+    public OrcReader(OrcDataSource orcDataSource, MetadataReader metadataReader, OrcFileTail fileTail)
     {
         this.orcDataSource = checkNotNull(orcDataSource, "orcDataSource is null");
         this.metadataReader = checkNotNull(metadataReader, "metadataReader is null");
+        checkNotNull(fileTail, "fileTail is null");
+        this.compressionKind = fileTail.getCompressionKind();
+        this.bufferSize = fileTail.getBufferSize();
+        this.footer = fileTail.getFooter();
+        this.metadata = fileTail.getMetadata();
+    }
+
+    /**
+     * Reads and decodes the footer, metadata and post script at the end of the file.
+     */
+    // This is based on the Apache Hive ORC code
+    public static OrcFileTail readFileTail(OrcDataSource orcDataSource, MetadataReader metadataReader)
+            throws IOException
+    {
+        checkNotNull(orcDataSource, "orcDataSource is null");
+        checkNotNull(metadataReader, "metadataReader is null");
 
         //
         // Read the file tail:
@@ -92,9 +116,9 @@ public class OrcReader
         checkOrcVersion(orcDataSource, postScript.getVersion());
 
         // check compression codec is supported
-        this.compressionKind = postScript.getCompression();
+        CompressionKind compressionKind = postScript.getCompression();
 
-        this.bufferSize = Ints.checkedCast(postScript.getCompressionBlockSize());
+        int bufferSize = Ints.checkedCast(postScript.getCompressionBlockSize());
 
         int footerSize = Ints.checkedCast(postScript.getFooterLength());
         int metadataSize = Ints.checkedCast(postScript.getMetadataLength());
@@ -121,12 +145,14 @@ public class OrcReader
         // read metadata
         Slice metadataSlice = completeFooterSlice.slice(0, metadataSize);
         InputStream metadataInputStream = new OrcInputStream(orcDataSource.toString(), metadataSlice.getInput(), compressionKind, bufferSize);
-        this.metadata = metadataReader.readMetadata(metadataInputStream);
+        Metadata metadata = metadataReader.readMetadata(metadataInputStream);
 
         // read footer
         Slice footerSlice = completeFooterSlice.slice(metadataSize, footerSize);
         InputStream footerInputStream = new OrcInputStream(orcDataSource.toString(), footerSlice.getInput(), compressionKind, bufferSize);
-        this.footer = metadataReader.readFooter(footerInputStream);
+        Footer footer = metadataReader.readFooter(footerInputStream);
+
+        return new OrcFileTail(compressionKind, bufferSize, footer, metadata, completeFooterSize);
     }
 
     public List<String> getColumnNames()
@@ -167,6 +193,25 @@ public class OrcReader
             long length,
             DateTimeZone hiveStorageTimeZone)
             throws IOException
+    {
+        return createRecordReader(includedColumns, predicate, offset, length, hiveStorageTimeZone, Optional.empty(), new DataSize(0, BYTE));
+    }
+
+    /**
+     * Creates a record reader that reads the next stripe on the prefetch executor while the
+     * current stripe is decoded. Stripes whose selected streams are larger than
+     * {@code maxPrefetchStripeSize} are read when they are reached. The data source must
+     * support concurrent reads.
+     */
+    public OrcRecordReader createRecordReader(
+            Map<Integer, Type> includedColumns,
+            OrcPredicate predicate,
+            long offset,
+            long length,
+            DateTimeZone hiveStorageTimeZone,
+            Optional<Executor> prefetchExecutor,
+            DataSize maxPrefetchStripeSize)
+            throws IOException
     {
         return new OrcRecordReader(
                 checkNotNull(includedColumns, "includedColumns is null"),
@@ -183,7 +228,9 @@ public class OrcReader
                 bufferSize,
                 footer.getRowsInRowGroup(),
                 checkNotNull(hiveStorageTimeZone, "hiveStorageTimeZone is null"),
-                metadataReader);
+                metadataReader,
+                checkNotNull(prefetchExecutor, "prefetchExecutor is null"),
+                checkNotNull(maxPrefetchStripeSize, "maxPrefetchStripeSize is null"));
     }
 
     /**
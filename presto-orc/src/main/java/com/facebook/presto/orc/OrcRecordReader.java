@@ -19,29 +19,43 @@ import com.facebook.presto.orc.metadata.CompressionKind;
 import com.facebook.presto.orc.metadata.MetadataReader;
 import com.facebook.presto.orc.metadata.OrcType;
 import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.orc.metadata.StripeFooter;
 import com.facebook.presto.orc.metadata.StripeInformation;
 import com.facebook.presto.orc.metadata.StripeStatistics;
 import com.facebook.presto.orc.reader.StreamReader;
 import com.facebook.presto.orc.reader.StreamReaders;
 import com.facebook.presto.orc.stream.StreamSources;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.Ints;
+import io.airlift.slice.ChunkedSliceInput;
+import io.airlift.slice.FixedLengthSliceInput;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
 import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.Comparator.comparingLong;
 
 public class OrcRecordReader
@@ -49,6 +63,8 @@ public class OrcRecordReader
     private final OrcDataSource orcDataSource;
 
     private final StreamReader[] streamReaders;
+    // row in the current row group up to which each stream reader has been advanced
+    private final int[] streamReaderPositions;
 
     private final long totalRowCount;
     private final long splitLength;
@@ -61,6 +77,16 @@ public class OrcRecordReader
     private final StripeReader stripeReader;
     private int currentStripe = -1;
 
+    private final Optional<Executor> prefetchExecutor;
+    private final long maxPrefetchStripeSize;
+    private final PrefetchOrcDataSource prefetchDataSource;
+    private final StripeReader prefetchStripeReader;
+    private CompletableFuture<PrefetchedStripe> prefetchedStripe;
+    private int prefetchedStripeIndex = -1;
+    // set by the prefetch before the streams are read
+    private volatile long prefetchedStripeSize;
+    private long prefetchWaitNanos;
+
     private final long fileRowCount;
     private final List<Long> stripeFilePositions;
     private long filePosition;
@@ -68,6 +94,7 @@ public class OrcRecordReader
     private Iterator<RowGroup> rowGroups = ImmutableList.<RowGroup>of().iterator();
     private long currentGroupRowCount;
     private long nextRowInGroup;
+    private int currentBatchOffset;
 
     public OrcRecordReader(
             Map<Integer, Type> includedColumns,
@@ -84,7 +111,9 @@ public class OrcRecordReader
             int bufferSize,
             int rowsInRowGroup,
             DateTimeZone hiveStorageTimeZone,
-            MetadataReader metadataReader)
+            MetadataReader metadataReader,
+            Optional<Executor> prefetchExecutor,
+            DataSize maxPrefetchStripeSize)
             throws IOException
     {
         checkNotNull(includedColumns, "includedColumns is null");
@@ -95,6 +124,8 @@ public class OrcRecordReader
         checkNotNull(types, "types is null");
         checkNotNull(compressionKind, "compressionKind is null");
         checkNotNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+        checkNotNull(prefetchExecutor, "prefetchExecutor is null");
+        checkNotNull(maxPrefetchStripeSize, "maxPrefetchStripeSize is null");
 
         // reduce the included columns to the set that is also present
         ImmutableSet.Builder<Integer> presentColumns = ImmutableSet.builder();
@@ -163,7 +194,23 @@ public class OrcRecordReader
                 predicate,
                 metadataReader);
 
+        // stripes are prefetched through a separate data source so the time
+        // spent reading in the background can be reported separately
+        this.prefetchExecutor = prefetchExecutor;
+        this.maxPrefetchStripeSize = maxPrefetchStripeSize.toBytes();
+        this.prefetchDataSource = new PrefetchOrcDataSource(orcDataSource);
+        this.prefetchStripeReader = new StripeReader(
+                prefetchDataSource,
+                compressionKind,
+                types,
+                bufferSize,
+                this.presentColumns,
+                rowsInRowGroup,
+                predicate,
+                metadataReader);
+
         streamReaders = createStreamReaders(orcDataSource, types, hiveStorageTimeZone, presentColumnsAndTypes.build());
+        streamReaderPositions = new int[streamReaders.length];
     }
 
     private static boolean splitContainsStripe(long splitOffset, long splitLength, StripeInformation stripe)
@@ -234,9 +281,52 @@ public class OrcRecordReader
         return splitLength;
     }
 
+    /**
+     * Returns the time the caller spent reading from the data source. Reads of prefetched
+     * stripes are not included, and neither is the time spent waiting for them.
+     */
+    public long getReadTimeNanos()
+    {
+        return orcDataSource.getReadTimeNanos() - prefetchDataSource.getReadTimeNanos();
+    }
+
+    /**
+     * Returns the time spent prefetching stripes in the background.
+     */
+    public long getPrefetchReadTimeNanos()
+    {
+        return prefetchDataSource.getReadTimeNanos();
+    }
+
+    /**
+     * Returns the time the caller was blocked waiting for prefetched stripes.
+     */
+    public long getPrefetchWaitNanos()
+    {
+        return prefetchWaitNanos;
+    }
+
+    /**
+     * Returns the memory held by the prefetched stripe that has not been consumed yet.
+     */
+    public long getSystemMemoryUsage()
+    {
+        return prefetchedStripeSize;
+    }
+
     public void close()
             throws IOException
     {
+        if (prefetchedStripe != null) {
+            // the prefetch must not read from the data source after it is closed
+            try {
+                prefetchedStripe.join();
+            }
+            catch (RuntimeException ignored) {
+            }
+            prefetchedStripe = null;
+            prefetchedStripeSize = 0;
+        }
         orcDataSource.close();
     }
 
@@ -263,12 +353,10 @@ public class OrcRecordReader
         }
 
         currentBatchSize = Ints.checkedCast(Math.min(Vector.MAX_VECTOR_LENGTH, currentGroupRowCount - nextRowInGroup));
+        currentBatchOffset = Ints.checkedCast(nextRowInGroup);
 
-        for (StreamReader column : streamReaders) {
-            if (column != null) {
-                column.prepareNextRead(currentBatchSize);
-            }
-        }
+        // the stream readers are positioned when a column is read, so columns
+        // that are not read in a batch are skipped rather than decoded
         nextRowInGroup += currentBatchSize;
         return currentBatchSize;
     }
@@ -276,7 +364,51 @@ public class OrcRecordReader
     public void readVector(int columnIndex, Object vector)
             throws IOException
     {
-        streamReaders[columnIndex].readBatch(vector);
+        readColumn(columnIndex, currentBatchOffset, currentBatchSize, vector);
+    }
+
+    /**
+     * Reads the values of a column at the specified positions of the current batch
+     * into the first {@code positionCount} entries of the vector. The positions
+     * must be increasing. The values between the positions are skipped without
+     * being decoded.
+     */
+    public void readVector(int columnIndex, Vector vector, int[] positions, int positionCount)
+            throws IOException
+    {
+        checkArgument(positionCount <= currentBatchSize, "positionCount is greater than the batch size");
+        if (positionCount == currentBatchSize) {
+            // every position is selected
+            readVector(columnIndex, vector);
+            return;
+        }
+
+        Vector run = vector.newVector(positionCount);
+        int index = 0;
+        while (index < positionCount) {
+            int start = positions[index];
+            int length = 1;
+            while (index + length < positionCount && positions[index + length] == start + length) {
+                length++;
+            }
+            readColumn(columnIndex, currentBatchOffset + start, length, run);
+            vector.copyFrom(run, 0, index, length);
+            index += length;
+        }
+    }
+
+    private void readColumn(int columnIndex, int rowInGroup, int length, Object vector)
+            throws IOException
+    {
+        StreamReader streamReader = streamReaders[columnIndex];
+        int skip = rowInGroup - streamReaderPositions[columnIndex];
+        checkState(skip >= 0, "column %s has already been read past row %s", columnIndex, rowInGroup);
+
+        // the rows of the first read are skipped when the second read is prepared
+        streamReader.prepareNextRead(skip);
+        streamReader.prepareNextRead(length);
+        streamReader.readBatch(vector);
+        streamReaderPositions[columnIndex] = rowInGroup + length;
     }
 
     private boolean advanceToNextRowGroup()
@@ -306,6 +438,7 @@ public class OrcRecordReader
                 column.startRowGroup(rowGroupStreamSources);
             }
         }
+        Arrays.fill(streamReaderPositions, 0);
 
         return true;
     }
@@ -322,8 +455,8 @@ public class OrcRecordReader
             currentStripePosition += stripes.get(currentStripe - 1).getNumberOfRows();
         }
 
-        StripeInformation stripeInformation = stripes.get(currentStripe);
-        Stripe stripe = stripeReader.readStripe(stripeInformation);
+        Stripe stripe = readStripe(currentStripe);
+        prefetchStripe(currentStripe + 1);
         if (stripe != null) {
             // Give readers access to dictionary streams
             StreamSources dictionaryStreamSources = stripe.getDictionaryStreamSources();
@@ -341,6 +474,68 @@ public class OrcRecordReader
         }
     }
 
+    private Stripe readStripe(int stripeIndex)
+            throws IOException
+    {
+        if (prefetchedStripe == null || prefetchedStripeIndex != stripeIndex) {
+            return stripeReader.readStripe(stripes.get(stripeIndex));
+        }
+
+        CompletableFuture<PrefetchedStripe> future = prefetchedStripe;
+        prefetchedStripe = null;
+        PrefetchedStripe result;
+        long start = System.nanoTime();
+        try {
+            result = future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading stripe", e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw Throwables.propagate(cause);
+        }
+        finally {
+            prefetchWaitNanos += System.nanoTime() - start;
+            prefetchedStripeSize = 0;
+        }
+
+        if (!result.isStreamsRead()) {
+            return stripeReader.readStripe(stripes.get(stripeIndex), result.getStripeFooter());
+        }
+        return result.getStripe();
+    }
+
+    private void prefetchStripe(int stripeIndex)
+    {
+        if (!prefetchExecutor.isPresent() || stripeIndex >= stripes.size()) {
+            return;
+        }
+
+        StripeInformation stripe = stripes.get(stripeIndex);
+        prefetchedStripeIndex = stripeIndex;
+        prefetchedStripe = CompletableFuture.supplyAsync(() -> {
+            try {
+                StripeFooter stripeFooter = prefetchStripeReader.readStripeFooter(stripe);
+
+                // the prefetched streams are held in memory until the stripe is read, so large stripes are left to the caller
+                long streamsLength = prefetchStripeReader.getIncludedStreamsLength(stripeFooter);
+                if (streamsLength > maxPrefetchStripeSize) {
+                    return new PrefetchedStripe(stripeFooter, false, null);
+                }
+                prefetchedStripeSize = streamsLength;
+                return new PrefetchedStripe(stripeFooter, true, prefetchStripeReader.readStripe(stripe, stripeFooter));
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, prefetchExecutor.get());
+    }
+
     private static StreamReader[] createStreamReaders(OrcDataSource orcDataSource,
             List<OrcType> types,
             DateTimeZone hiveStorageTimeZone,
@@ -420,4 +615,113 @@ public class OrcRecordReader
             return stats;
         }
     }
+
+    private static class PrefetchedStripe
+    {
+        private final StripeFooter stripeFooter;
+        private final boolean streamsRead;
+        // null if the streams were not read, or no row group of the stripe is selected
+        private final Stripe stripe;
+
+        public PrefetchedStripe(StripeFooter stripeFooter, boolean streamsRead, Stripe stripe)
+        {
+            this.stripeFooter = checkNotNull(stripeFooter, "stripeFooter is null");
+            this.streamsRead = streamsRead;
+            this.stripe = stripe;
+        }
+
+        public StripeFooter getStripeFooter()
+        {
+            return stripeFooter;
+        }
+
+        public boolean isStreamsRead()
+        {
+            return streamsRead;
+        }
+
+        public Stripe getStripe()
+        {
+            return stripe;
+        }
+    }
+
+    private static class PrefetchOrcDataSource
+            implements OrcDataSource
+    {
+        private final OrcDataSource delegate;
+        private final AtomicLong readTimeNanos = new AtomicLong();
+
+        public PrefetchOrcDataSource(OrcDataSource delegate)
+        {
+            this.delegate = checkNotNull(delegate, "delegate is null");
+        }
+
+        @Override
+        public long getReadTimeNanos()
+        {
+            return readTimeNanos.get();
+        }
+
+        @Override
+        public long getSize()
+        {
+            return delegate.getSize();
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer)
+                throws IOException
+        {
+            readFully(position, buffer, 0, buffer.length);
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+                throws IOException
+        {
+            long start = System.nanoTime();
+            try {
+                delegate.readFully(position, buffer, bufferOffset, bufferLength);
+            }
+            finally {
+                readTimeNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public <K> Map<K, FixedLengthSliceInput> readFully(Map<K, DiskRange> diskRanges)
+                throws IOException
+        {
+            Map<K, FixedLengthSliceInput> inputs;
+            long start = System.nanoTime();
+            try {
+                inputs = delegate.readFully(diskRanges);
+            }
+            finally {
+                readTimeNanos.addAndGet(System.nanoTime() - start);
+            }
+
+            // large ranges are returned as inputs that are only loaded when they are read,
+            // which would happen on the caller's thread, so they are read fully here
+            ImmutableMap.Builder<K, FixedLengthSliceInput> loadedInputs = ImmutableMap.builder();
+            for (Entry<K, FixedLengthSliceInput> entry : inputs.entrySet()) {
+                FixedLengthSliceInput input = entry.getValue();
+                if (input instanceof ChunkedSliceInput) {
+                    DiskRange diskRange = diskRanges.get(entry.getKey());
+                    byte[] buffer = new byte[diskRange.getLength()];
+                    readFully(diskRange.getOffset(), buffer);
+                    input = Slices.wrappedBuffer(buffer).getInput();
+                }
+                loadedInputs.put(entry.getKey(), input);
+            }
+            return loadedInputs.build();
+        }
+
+        @Override
+        public String toString()
+        {
+            return delegate.toString();
+        }
+    }
 }
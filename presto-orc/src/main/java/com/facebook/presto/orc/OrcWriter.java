@@ -0,0 +1,440 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.BloomFilter;
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.Metadata;
+import com.facebook.presto.orc.metadata.OrcMetadataWriter;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.StripeStatistics;
+import com.facebook.presto.orc.stream.OrcOutputBuffer;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.orc.writer.ColumnWriter;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import org.joda.time.DateTimeZone;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.BLOOM_FILTER;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.ROW_INDEX;
+import static com.facebook.presto.orc.writer.ColumnStatisticsMerger.mergeColumnStatistics;
+import static com.facebook.presto.orc.writer.ColumnWriters.createColumnWriter;
+import static com.facebook.presto.orc.writer.ColumnWriters.getOrcTypeKind;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Writes pages to an ORC file. The values of each column are encoded directly from the
+ * blocks of the pages into the column streams of the current stripe, together with the
+ * row group indexes and statistics used by readers to skip data.
+ */
+public class OrcWriter
+        implements Closeable
+{
+    public static final DataSize DEFAULT_STRIPE_MAX_SIZE = new DataSize(64, MEGABYTE);
+    public static final int DEFAULT_STRIPE_MAX_ROW_COUNT = 10_000_000;
+    public static final int DEFAULT_ROW_GROUP_MAX_ROW_COUNT = 10_000;
+    public static final DataSize DEFAULT_MAX_COMPRESSION_BUFFER_SIZE = new DataSize(256, KILOBYTE);
+    public static final double DEFAULT_BLOOM_FILTER_FPP = 0.05;
+
+    private static final Slice MAGIC = Slices.utf8Slice("ORC");
+
+    private final OutputStream output;
+    private final CompressionKind compression;
+    private final int maxCompressionBufferSize;
+    private final long stripeMaxBytes;
+    private final int stripeMaxRowCount;
+    private final int rowGroupMaxRowCount;
+    private final List<OrcType> orcTypes;
+    private final List<ColumnWriter> columnWriters;
+    private final List<Type> types;
+    private final double bloomFilterFpp;
+    // bloom filters of the current row group and of the finished row groups of the current stripe, by field
+    private final BloomFilter[] rowGroupBloomFilters;
+    private final List<List<BloomFilter>> stripeBloomFilters;
+    private final OrcMetadataWriter metadataWriter = new OrcMetadataWriter();
+
+    private final List<StripeInformation> closedStripes = new ArrayList<>();
+    private final List<StripeStatistics> closedStripeStatistics = new ArrayList<>();
+    private final List<Integer> stripeRowGroupRowCounts = new ArrayList<>();
+
+    private long fileOffset;
+    private long fileRowCount;
+    private int stripeRowCount;
+    private int rowGroupRowCount;
+    private boolean closed;
+
+    public OrcWriter(OutputStream output, List<String> columnNames, List<Type> types, CompressionKind compression, DateTimeZone hiveStorageTimeZone)
+            throws IOException
+    {
+        this(output,
+                columnNames,
+                types,
+                compression,
+                DEFAULT_STRIPE_MAX_SIZE,
+                DEFAULT_STRIPE_MAX_ROW_COUNT,
+                DEFAULT_ROW_GROUP_MAX_ROW_COUNT,
+                DEFAULT_MAX_COMPRESSION_BUFFER_SIZE,
+                hiveStorageTimeZone,
+                ImmutableSet.of(),
+                DEFAULT_BLOOM_FILTER_FPP);
+    }
+
+    public OrcWriter(
+            OutputStream output,
+            List<String> columnNames,
+            List<Type> types,
+            CompressionKind compression,
+            DataSize stripeMaxSize,
+            int stripeMaxRowCount,
+            int rowGroupMaxRowCount,
+            DataSize maxCompressionBufferSize,
+            DateTimeZone hiveStorageTimeZone,
+            Set<String> bloomFilterColumns,
+            double bloomFilterFpp)
+            throws IOException
+    {
+        this.output = checkNotNull(output, "output is null");
+        checkNotNull(columnNames, "columnNames is null");
+        checkNotNull(types, "types is null");
+        checkArgument(columnNames.size() == types.size(), "columnNames and types do not match");
+        this.compression = checkNotNull(compression, "compression is null");
+        this.stripeMaxBytes = checkNotNull(stripeMaxSize, "stripeMaxSize is null").toBytes();
+        checkArgument(stripeMaxRowCount > 0, "stripeMaxRowCount must be at least 1");
+        this.stripeMaxRowCount = stripeMaxRowCount;
+        checkArgument(rowGroupMaxRowCount > 0, "rowGroupMaxRowCount must be at least 1");
+        this.rowGroupMaxRowCount = rowGroupMaxRowCount;
+        this.maxCompressionBufferSize = Ints.checkedCast(checkNotNull(maxCompressionBufferSize, "maxCompressionBufferSize is null").toBytes());
+        checkNotNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+        checkNotNull(bloomFilterColumns, "bloomFilterColumns is null");
+        checkArgument(bloomFilterFpp > 0.0 && bloomFilterFpp < 1.0, "bloomFilterFpp must be between 0 and 1");
+        this.types = ImmutableList.copyOf(types);
+        this.bloomFilterFpp = bloomFilterFpp;
+
+        // column 0 is the struct containing the top level columns
+        ImmutableList.Builder<OrcType> orcTypes = ImmutableList.builder();
+        ImmutableList.Builder<Integer> fieldTypeIndexes = ImmutableList.builder();
+        ImmutableList.Builder<OrcType> fieldTypes = ImmutableList.builder();
+        ImmutableList.Builder<ColumnWriter> columnWriters = ImmutableList.builder();
+        for (int field = 0; field < types.size(); field++) {
+            Type type = types.get(field);
+            OrcTypeKind orcTypeKind = getOrcTypeKind(type).orElseThrow(() -> new IllegalArgumentException("Unsupported type: " + type));
+            int column = field + 1;
+            fieldTypeIndexes.add(column);
+            fieldTypes.add(new OrcType(orcTypeKind, ImmutableList.of(), ImmutableList.of()));
+            columnWriters.add(createColumnWriter(column, type, compression, this.maxCompressionBufferSize, hiveStorageTimeZone));
+        }
+        orcTypes.add(new OrcType(OrcTypeKind.STRUCT, fieldTypeIndexes.build(), columnNames));
+        orcTypes.addAll(fieldTypes.build());
+        this.orcTypes = orcTypes.build();
+        this.columnWriters = columnWriters.build();
+
+        this.rowGroupBloomFilters = new BloomFilter[types.size()];
+        ImmutableList.Builder<List<BloomFilter>> stripeBloomFilters = ImmutableList.builder();
+        for (int field = 0; field < types.size(); field++) {
+            if (bloomFilterColumns.contains(columnNames.get(field))) {
+                Type type = types.get(field);
+                checkArgument(isBloomFilterSupported(type), "Bloom filters are not supported for column %s of type %s", columnNames.get(field), type);
+                rowGroupBloomFilters[field] = new BloomFilter(rowGroupMaxRowCount, bloomFilterFpp);
+                stripeBloomFilters.add(new ArrayList<>());
+            }
+            else {
+                stripeBloomFilters.add(ImmutableList.of());
+            }
+        }
+        this.stripeBloomFilters = stripeBloomFilters.build();
+
+        // the magic at the start of the file is only used by old readers
+        MAGIC.getBytes(0, output, MAGIC.length());
+        fileOffset = MAGIC.length();
+    }
+
+    public void write(Page page)
+            throws IOException
+    {
+        checkNotNull(page, "page is null");
+        checkState(!closed, "writer is closed");
+        checkArgument(page.getChannelCount() == columnWriters.size(), "Expected page with %s channels, but got %s", columnWriters.size(), page.getChannelCount());
+
+        int positionCount = page.getPositionCount();
+        int offset = 0;
+        while (offset < positionCount) {
+            if (rowGroupRowCount == 0) {
+                columnWriters.forEach(ColumnWriter::beginRowGroup);
+            }
+
+            // split the page at row group boundaries
+            int length = Math.min(positionCount - offset, rowGroupMaxRowCount - rowGroupRowCount);
+            for (int channel = 0; channel < columnWriters.size(); channel++) {
+                Block block = page.getBlock(channel);
+                if (length != positionCount) {
+                    block = block.getRegion(offset, length);
+                }
+                columnWriters.get(channel).writeBlock(block);
+                if (rowGroupBloomFilters[channel] != null) {
+                    addBloomFilterValues(rowGroupBloomFilters[channel], types.get(channel), block);
+                }
+            }
+            offset += length;
+            rowGroupRowCount += length;
+            stripeRowCount += length;
+
+            if (rowGroupRowCount == rowGroupMaxRowCount) {
+                finishRowGroup();
+            }
+            if (stripeRowCount >= stripeMaxRowCount || getBufferedBytes() >= stripeMaxBytes) {
+                flushStripe();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes written to the file so far.
+     */
+    public long getWrittenBytes()
+    {
+        return fileOffset;
+    }
+
+    /**
+     * Returns the number of bytes buffered for the current stripe.
+     */
+    public long getBufferedBytes()
+    {
+        long bufferedBytes = 0;
+        for (ColumnWriter columnWriter : columnWriters) {
+            bufferedBytes += columnWriter.getBufferedBytes();
+        }
+        return bufferedBytes;
+    }
+
+    public static boolean isBloomFilterSupported(Type type)
+    {
+        return type.equals(BIGINT) || type.equals(DATE) || type.equals(DOUBLE) || type.equals(VARCHAR) || type.equals(VARBINARY);
+    }
+
+    private static void addBloomFilterValues(BloomFilter bloomFilter, Type type, Block block)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                continue;
+            }
+            if (type.getJavaType() == long.class) {
+                bloomFilter.addLong(type.getLong(block, position));
+            }
+            else if (type.getJavaType() == double.class) {
+                bloomFilter.addDouble(type.getDouble(block, position));
+            }
+            else {
+                bloomFilter.addSlice(type.getSlice(block, position));
+            }
+        }
+    }
+
+    private void finishRowGroup()
+    {
+        columnWriters.forEach(ColumnWriter::finishRowGroup);
+        for (int field = 0; field < rowGroupBloomFilters.length; field++) {
+            if (rowGroupBloomFilters[field] != null) {
+                stripeBloomFilters.get(field).add(rowGroupBloomFilters[field]);
+                rowGroupBloomFilters[field] = new BloomFilter(rowGroupMaxRowCount, bloomFilterFpp);
+            }
+        }
+        stripeRowGroupRowCounts.add(rowGroupRowCount);
+        rowGroupRowCount = 0;
+    }
+
+    private void flushStripe()
+            throws IOException
+    {
+        if (stripeRowCount == 0) {
+            return;
+        }
+        if (rowGroupRowCount > 0) {
+            finishRowGroup();
+        }
+        columnWriters.forEach(ColumnWriter::close);
+
+        // index streams are stored before the data streams
+        List<StreamDataOutput> indexStreams = new ArrayList<>();
+        ImmutableList.Builder<RowGroupIndex> rootRowGroupIndexes = ImmutableList.builder();
+        for (int rowCount : stripeRowGroupRowCounts) {
+            rootRowGroupIndexes.add(new RowGroupIndex(ImmutableList.of(), new ColumnStatistics((long) rowCount, null, null, null, null, null)));
+        }
+        indexStreams.add(createRowIndexStream(0, rootRowGroupIndexes.build()));
+        for (int field = 0; field < columnWriters.size(); field++) {
+            indexStreams.add(createRowIndexStream(field + 1, columnWriters.get(field).getRowGroupIndexes()));
+            if (rowGroupBloomFilters[field] != null) {
+                indexStreams.add(createBloomFilterStream(field + 1, stripeBloomFilters.get(field)));
+            }
+        }
+
+        List<StreamDataOutput> dataStreams = new ArrayList<>();
+        for (ColumnWriter columnWriter : columnWriters) {
+            dataStreams.addAll(columnWriter.getDataStreams());
+        }
+
+        ImmutableList.Builder<Stream> streams = ImmutableList.builder();
+        ImmutableList.Builder<ColumnEncoding> columnEncodings = ImmutableList.builder();
+        ImmutableList.Builder<ColumnStatistics> columnStatistics = ImmutableList.builder();
+        streams.addAll(indexStreams.stream().map(StreamDataOutput::getStream).collect(toList()));
+        streams.addAll(dataStreams.stream().map(StreamDataOutput::getStream).collect(toList()));
+        columnEncodings.add(new ColumnEncoding(DIRECT, 0));
+        columnStatistics.add(new ColumnStatistics((long) stripeRowCount, null, null, null, null, null));
+        for (ColumnWriter columnWriter : columnWriters) {
+            columnEncodings.add(columnWriter.getColumnEncoding());
+            columnStatistics.add(columnWriter.getColumnStripeStatistics());
+        }
+        StripeFooter stripeFooter = new StripeFooter(streams.build(), columnEncodings.build());
+        Slice footer = writeCompressedMetadata(output -> metadataWriter.writeStripeFooter(output, stripeFooter));
+
+        long indexLength = writeStreams(indexStreams);
+        long dataLength = writeStreams(dataStreams);
+        footer.getBytes(0, output, footer.length());
+
+        closedStripes.add(new StripeInformation(stripeRowCount, fileOffset, indexLength, dataLength, footer.length()));
+        closedStripeStatistics.add(new StripeStatistics(columnStatistics.build()));
+        fileOffset += indexLength + dataLength + footer.length();
+        fileRowCount += stripeRowCount;
+
+        columnWriters.forEach(ColumnWriter::reset);
+        for (int field = 0; field < rowGroupBloomFilters.length; field++) {
+            if (rowGroupBloomFilters[field] != null) {
+                stripeBloomFilters.get(field).clear();
+            }
+        }
+        stripeRowGroupRowCounts.clear();
+        stripeRowCount = 0;
+    }
+
+    private StreamDataOutput createRowIndexStream(int column, List<RowGroupIndex> rowGroupIndexes)
+            throws IOException
+    {
+        return new StreamDataOutput(column, ROW_INDEX, writeCompressedMetadata(output -> metadataWriter.writeRowIndexes(output, rowGroupIndexes)));
+    }
+
+    private StreamDataOutput createBloomFilterStream(int column, List<BloomFilter> bloomFilters)
+            throws IOException
+    {
+        return new StreamDataOutput(column, BLOOM_FILTER, writeCompressedMetadata(output -> metadataWriter.writeBloomFilters(output, bloomFilters)));
+    }
+
+    private long writeStreams(List<StreamDataOutput> streams)
+            throws IOException
+    {
+        long length = 0;
+        for (StreamDataOutput stream : streams) {
+            stream.writeData(output);
+            length += stream.getSizeInBytes();
+        }
+        return length;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            flushStripe();
+
+            Slice metadata = writeCompressedMetadata(output -> metadataWriter.writeMetadata(output, new Metadata(closedStripeStatistics)));
+            Footer footer = new Footer(fileRowCount, rowGroupMaxRowCount, closedStripes, orcTypes, getFileStatistics());
+            Slice footerSlice = writeCompressedMetadata(output -> metadataWriter.writeFooter(output, footer));
+
+            // the post script is never compressed
+            DynamicSliceOutput postScriptOutput = new DynamicSliceOutput(64);
+            metadataWriter.writePostScript(postScriptOutput, footerSlice.length(), metadata.length(), compression, maxCompressionBufferSize);
+            Slice postScript = postScriptOutput.slice();
+            checkState(postScript.length() < 256, "post script is too large");
+
+            metadata.getBytes(0, output, metadata.length());
+            footerSlice.getBytes(0, output, footerSlice.length());
+            postScript.getBytes(0, output, postScript.length());
+            output.write(postScript.length());
+        }
+        finally {
+            output.close();
+        }
+    }
+
+    private List<ColumnStatistics> getFileStatistics()
+    {
+        ImmutableList.Builder<ColumnStatistics> fileStatistics = ImmutableList.builder();
+        for (int column = 0; column < orcTypes.size(); column++) {
+            if (closedStripeStatistics.isEmpty()) {
+                fileStatistics.add(new ColumnStatistics(0L, null, null, null, null, null));
+                continue;
+            }
+            ImmutableList.Builder<ColumnStatistics> stripeStatistics = ImmutableList.builder();
+            for (StripeStatistics statistics : closedStripeStatistics) {
+                stripeStatistics.add(statistics.getColumnStatistics().get(column));
+            }
+            fileStatistics.add(mergeColumnStatistics(stripeStatistics.build()));
+        }
+        return fileStatistics.build();
+    }
+
+    private Slice writeCompressedMetadata(MetadataSectionWriter writer)
+            throws IOException
+    {
+        OrcOutputBuffer buffer = new OrcOutputBuffer(compression, maxCompressionBufferSize);
+        writer.write(buffer);
+        buffer.close();
+        return buffer.getCompressedData();
+    }
+
+    private interface MetadataSectionWriter
+    {
+        void write(OutputStream output)
+                throws IOException;
+    }
+}
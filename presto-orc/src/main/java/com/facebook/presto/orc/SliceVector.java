@@ -16,17 +16,33 @@ package com.facebook.presto.orc;
 import com.google.common.annotations.VisibleForTesting;
 import io.airlift.slice.Slice;
 
+import javax.annotation.Nullable;
+
 public class SliceVector
         implements Vector
 {
     public final Slice[] vector;
 
+    /**
+     * When the column is dictionary encoded, the stripe dictionary with a
+     * trailing null entry, otherwise null.  The dictionary is not modified
+     * after it is handed out, so it may be retained.
+     */
+    @Nullable
+    public Slice[] dictionary;
+    /**
+     * Positions in {@link #dictionary} of each value; only valid when the
+     * dictionary is set.
+     */
+    public final int[] ids;
+
     public SliceVector(int length)
     {
         if (length > MAX_VECTOR_LENGTH) {
             throw new IllegalArgumentException("length greater than max vector length");
         }
         vector = new Slice[length];
+        ids = new int[length];
     }
 
     @Override
@@ -41,4 +57,19 @@ public class SliceVector
         }
         return objectVector;
     }
+
+    @Override
+    public SliceVector newVector(int length)
+    {
+        return new SliceVector(length);
+    }
+
+    @Override
+    public void copyFrom(Vector source, int sourceOffset, int offset, int length)
+    {
+        SliceVector sourceVector = (SliceVector) source;
+        System.arraycopy(sourceVector.vector, sourceOffset, vector, offset, length);
+        System.arraycopy(sourceVector.ids, sourceOffset, ids, offset, length);
+        dictionary = sourceVector.dictionary;
+    }
 }
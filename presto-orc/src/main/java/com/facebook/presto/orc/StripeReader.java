@@ -15,6 +15,7 @@ package com.facebook.presto.orc;
 
 import com.facebook.presto.orc.checkpoint.InvalidCheckpointException;
 import com.facebook.presto.orc.checkpoint.StreamCheckpoint;
+import com.facebook.presto.orc.metadata.BloomFilter;
 import com.facebook.presto.orc.metadata.ColumnEncoding;
 import com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind;
 import com.facebook.presto.orc.metadata.ColumnStatistics;
@@ -55,6 +56,8 @@ import static com.facebook.presto.orc.checkpoint.Checkpoints.getDictionaryStream
 import static com.facebook.presto.orc.checkpoint.Checkpoints.getStreamCheckpoints;
 import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIONARY;
 import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIONARY_V2;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.BLOOM_FILTER;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.BLOOM_FILTER_UTF8;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.DICTIONARY_COUNT;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.DICTIONARY_DATA;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.LENGTH;
@@ -70,6 +73,7 @@ public class StripeReader
     private final List<OrcType> types;
     private final int bufferSize;
     private final Set<Integer> includedOrcColumns;
+    private final Set<Integer> bloomFilterOrcColumns;
     private final int rowsInRowGroup;
     private final OrcPredicate predicate;
     private final MetadataReader metadataReader;
@@ -91,20 +95,25 @@ public class StripeReader
         this.rowsInRowGroup = rowsInRowGroup;
         this.predicate = checkNotNull(predicate, "predicate is null");
         this.metadataReader = checkNotNull(metadataReader, "metadataReader is null");
+        this.bloomFilterOrcColumns = getBloomFilterOrcColumns(types.get(0), predicate);
     }
 
     public Stripe readStripe(StripeInformation stripe)
             throws IOException
     {
-        // read the stripe footer
-        StripeFooter stripeFooter = readStripeFooter(stripe);
+        return readStripe(stripe, readStripeFooter(stripe));
+    }
+
+    public Stripe readStripe(StripeInformation stripe, StripeFooter stripeFooter)
+            throws IOException
+    {
         List<ColumnEncoding> columnEncodings = stripeFooter.getColumnEncodings();
 
         // get streams for selected columns
         Map<StreamId, Stream> streams = new HashMap<>();
         boolean hasRowGroupDictionary = false;
         for (Stream stream : stripeFooter.getStreams()) {
-            if (includedOrcColumns.contains(stream.getColumn())) {
+            if (isStreamIncluded(stream, stripeFooter.getStreams())) {
                 streams.put(new StreamId(stream), stream);
 
                 ColumnEncodingKind columnEncoding = columnEncodings.get(stream.getColumn()).getColumnEncodingKind();
@@ -166,7 +175,7 @@ public class StripeReader
         ImmutableMap.Builder<StreamId, DiskRange> diskRangesBuilder = ImmutableMap.builder();
         for (Entry<StreamId, DiskRange> entry : getDiskRanges(stripeFooter.getStreams()).entrySet()) {
             StreamId streamId = entry.getKey();
-            if (streamId.getStreamKind() != ROW_INDEX && streams.keySet().contains(streamId)) {
+            if (streamId.getStreamKind() != ROW_INDEX && !isBloomFilterStream(streamId.getStreamKind()) && streams.keySet().contains(streamId)) {
                 diskRangesBuilder.put(entry);
             }
         }
@@ -308,6 +317,25 @@ public class StripeReader
         return new RowGroup(groupId, rowOffset, rowCount, rowGroupStreams);
     }
 
+    /**
+     * Returns the total length of the streams that are read for a stripe with the specified footer.
+     */
+    public long getIncludedStreamsLength(StripeFooter stripeFooter)
+    {
+        long length = 0;
+        for (Stream stream : stripeFooter.getStreams()) {
+            if (isStreamIncluded(stream, stripeFooter.getStreams())) {
+                length += stream.getLength();
+            }
+        }
+        return length;
+    }
+
+    private boolean isStreamIncluded(Stream stream, List<Stream> stripeStreams)
+    {
+        return includedOrcColumns.contains(stream.getColumn()) && isBloomFilterNeeded(stream, stripeStreams);
+    }
+
     public StripeFooter readStripeFooter(StripeInformation stripe)
             throws IOException
     {
@@ -321,20 +349,83 @@ public class StripeReader
         return metadataReader.readStripeFooter(types, inputStream);
     }
 
+    /**
+     * Bloom filters are only read for the columns the predicate can check against them.
+     * When a column has both variants, the UTF-8 one is read, because the original
+     * variant hashes strings inconsistently.
+     */
+    private boolean isBloomFilterNeeded(Stream stream, List<Stream> stripeStreams)
+    {
+        if (!isBloomFilterStream(stream.getStreamKind())) {
+            return true;
+        }
+        if (!bloomFilterOrcColumns.contains(stream.getColumn())) {
+            return false;
+        }
+        if (stream.getStreamKind() == BLOOM_FILTER) {
+            for (Stream other : stripeStreams) {
+                if (other.getColumn() == stream.getColumn() && other.getStreamKind() == BLOOM_FILTER_UTF8) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Set<Integer> getBloomFilterOrcColumns(OrcType rootStructType, OrcPredicate predicate)
+    {
+        ImmutableSet.Builder<Integer> columns = ImmutableSet.builder();
+        for (int ordinal = 0; ordinal < rootStructType.getFieldCount(); ordinal++) {
+            if (predicate.usesBloomFilter(ordinal)) {
+                columns.add(rootStructType.getFieldTypeIndex(ordinal));
+            }
+        }
+        return columns.build();
+    }
+
     private Map<Integer, List<RowGroupIndex>> readColumnIndexes(Map<StreamId, Stream> streams, Map<StreamId, OrcInputStream> streamsData)
             throws IOException
     {
+        Map<Integer, StreamId> bloomFilterStreams = new HashMap<>();
+        for (Entry<StreamId, Stream> entry : streams.entrySet()) {
+            if (isBloomFilterStream(entry.getValue().getStreamKind())) {
+                bloomFilterStreams.put(entry.getValue().getColumn(), entry.getKey());
+            }
+        }
+
         ImmutableMap.Builder<Integer, List<RowGroupIndex>> columnIndexes = ImmutableMap.builder();
         for (Entry<StreamId, Stream> entry : streams.entrySet()) {
             Stream stream = entry.getValue();
             if (stream.getStreamKind() == ROW_INDEX) {
                 OrcInputStream inputStream = streamsData.get(entry.getKey());
-                columnIndexes.put(stream.getColumn(), metadataReader.readRowIndexes(inputStream));
+                List<RowGroupIndex> rowGroupIndexes = metadataReader.readRowIndexes(inputStream);
+
+                StreamId bloomFilterStream = bloomFilterStreams.get(stream.getColumn());
+                if (bloomFilterStream != null) {
+                    List<BloomFilter> bloomFilters = metadataReader.readBloomFilterIndexes(streamsData.get(bloomFilterStream));
+                    rowGroupIndexes = addBloomFilters(rowGroupIndexes, bloomFilters);
+                }
+                columnIndexes.put(stream.getColumn(), rowGroupIndexes);
             }
         }
         return columnIndexes.build();
     }
 
+    private static List<RowGroupIndex> addBloomFilters(List<RowGroupIndex> rowGroupIndexes, List<BloomFilter> bloomFilters)
+    {
+        // a writer that does not produce a bloom filter for every row group can not be trusted
+        if (bloomFilters.size() != rowGroupIndexes.size()) {
+            return rowGroupIndexes;
+        }
+
+        ImmutableList.Builder<RowGroupIndex> result = ImmutableList.builder();
+        for (int i = 0; i < rowGroupIndexes.size(); i++) {
+            RowGroupIndex rowGroupIndex = rowGroupIndexes.get(i);
+            result.add(new RowGroupIndex(rowGroupIndex.getPositions(), rowGroupIndex.getColumnStatistics().withBloomFilter(bloomFilters.get(i))));
+        }
+        return result.build();
+    }
+
     private Set<Integer> selectRowGroups(StripeInformation stripe,  Map<Integer, List<RowGroupIndex>> columnIndexes)
             throws IOException
     {
@@ -373,7 +464,12 @@ public class StripeReader
 
     private static boolean isIndexStream(Stream stream)
     {
-        return stream.getStreamKind() == ROW_INDEX || stream.getStreamKind() == DICTIONARY_COUNT;
+        return stream.getStreamKind() == ROW_INDEX || stream.getStreamKind() == DICTIONARY_COUNT || isBloomFilterStream(stream.getStreamKind());
+    }
+
+    private static boolean isBloomFilterStream(StreamKind streamKind)
+    {
+        return streamKind == BLOOM_FILTER || streamKind == BLOOM_FILTER_UTF8;
     }
 
     private static boolean isDictionary(Stream stream, ColumnEncodingKind columnEncoding)
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.orc;
 
+import com.facebook.presto.orc.metadata.BloomFilter;
 import com.facebook.presto.orc.metadata.BooleanStatistics;
 import com.facebook.presto.orc.metadata.ColumnStatistics;
 import com.facebook.presto.orc.metadata.RangeStatistics;
@@ -52,6 +53,7 @@ public class TupleDomainOrcPredicate<C>
     public boolean matches(long numberOfRows, Map<Integer, ColumnStatistics> statisticsByColumnIndex)
     {
         ImmutableMap.Builder<C, Domain> domains = ImmutableMap.builder();
+        Map<C, Domain> predicateDomains = effectivePredicate.isNone() ? ImmutableMap.of() : effectivePredicate.getDomains();
 
         for (ColumnReference<C> columnReference : columnReferences) {
             ColumnStatistics columnStatistics = statisticsByColumnIndex.get(columnReference.getOrdinal());
@@ -63,6 +65,10 @@ public class TupleDomainOrcPredicate<C>
             }
             else {
                 domain = getDomain(columnReference.getType(), numberOfRows, columnStatistics);
+                Domain predicateDomain = predicateDomains.get(columnReference.getColumn());
+                if (predicateDomain != null && columnStatistics.getBloomFilter() != null && isBloomFilterSupported(columnReference.getType()) && !mightContainAny(predicateDomain, columnStatistics.getBloomFilter())) {
+                    domain = Domain.create(SortedRangeSet.none(domain.getType()), domain.isNullAllowed());
+                }
             }
             domains.put(columnReference.getColumn(), domain);
         }
@@ -71,6 +77,77 @@ public class TupleDomainOrcPredicate<C>
         return effectivePredicate.overlaps(stripeDomain);
     }
 
+    @Override
+    public boolean usesBloomFilter(int columnIndex)
+    {
+        if (effectivePredicate.isNone()) {
+            return false;
+        }
+        for (ColumnReference<C> columnReference : columnReferences) {
+            if (columnReference.getOrdinal() == columnIndex) {
+                Domain predicateDomain = effectivePredicate.getDomains().get(columnReference.getColumn());
+                return predicateDomain != null && isBloomFilterSupported(columnReference.getType()) && isDiscrete(predicateDomain);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDiscrete(Domain domain)
+    {
+        if (domain.getRanges().getRangeCount() == 0) {
+            return false;
+        }
+        for (Range range : domain.getRanges()) {
+            if (!range.isSingleValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBloomFilterSupported(Type type)
+    {
+        // timestamps are hashed by the writer in a different representation than the one used by the engine
+        String base = type.getTypeSignature().getBase();
+        return base.equals(StandardTypes.BIGINT) ||
+                base.equals(StandardTypes.DOUBLE) ||
+                base.equals(StandardTypes.DATE) ||
+                base.equals(StandardTypes.VARCHAR) ||
+                base.equals(StandardTypes.VARBINARY);
+    }
+
+    /**
+     * Returns false if the bloom filter proves that none of the values of the domain are present.
+     * Only domains consisting of discrete values can be checked against a bloom filter.
+     */
+    private static boolean mightContainAny(Domain domain, BloomFilter bloomFilter)
+    {
+        if (!isDiscrete(domain)) {
+            return true;
+        }
+
+        for (Range range : domain.getRanges()) {
+            if (mightContain(bloomFilter, range.getSingleValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean mightContain(BloomFilter bloomFilter, Object value)
+    {
+        if (value instanceof Long) {
+            return bloomFilter.testLong((Long) value);
+        }
+        if (value instanceof Double) {
+            return bloomFilter.testDouble((Double) value);
+        }
+        if (value instanceof Slice) {
+            return bloomFilter.testSlice((Slice) value);
+        }
+        return true;
+    }
+
     @VisibleForTesting
     public static Domain getDomain(Type type, long rowCount, ColumnStatistics columnStatistics)
     {
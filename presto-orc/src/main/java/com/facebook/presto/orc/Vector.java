@@ -21,4 +21,15 @@ public interface Vector
 
     @VisibleForTesting
     ObjectVector toObjectVector(int size);
+
+    /**
+     * Creates an empty vector of the same type.
+     */
+    Vector newVector(int length);
+
+    /**
+     * Copies {@code length} values starting at {@code sourceOffset} in {@code source},
+     * which must be a vector of the same type, to this vector starting at {@code offset}.
+     */
+    void copyFrom(Vector source, int sourceOffset, int offset, int length);
 }
@@ -0,0 +1,179 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.metadata;
+
+import io.airlift.slice.Slice;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Bloom filter of the values of a column in a row group. The filter is compatible with
+ * the bloom filters written by Hive: strings are hashed with the 64 bit Murmur3 variant
+ * used by Hive, and integers and doubles with a 64 bit integer hash of their bits.
+ */
+public class BloomFilter
+{
+    private static final int MURMUR3_SEED = 104729;
+    private static final long MURMUR3_C1 = 0x87c37b91114253d5L;
+    private static final long MURMUR3_C2 = 0x4cf5ad432745937fL;
+
+    private final long[] bitSet;
+    private final int numBits;
+    private final int numHashFunctions;
+
+    public BloomFilter(long expectedEntries, double fpp)
+    {
+        checkArgument(expectedEntries > 0, "expectedEntries must be positive");
+        checkArgument(fpp > 0.0 && fpp < 1.0, "fpp must be between 0 and 1");
+
+        // the bit set is rounded up to a multiple of 64 bits
+        int bits = (int) (-expectedEntries * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bitSet = new long[(bits / Long.SIZE) + 1];
+        this.numBits = bitSet.length * Long.SIZE;
+        this.numHashFunctions = Math.max(1, (int) Math.round((double) numBits / expectedEntries * Math.log(2)));
+    }
+
+    public BloomFilter(long[] bitSet, int numHashFunctions)
+    {
+        checkNotNull(bitSet, "bitSet is null");
+        checkArgument(bitSet.length > 0, "bitSet is empty");
+        checkArgument(numHashFunctions > 0, "numHashFunctions must be positive");
+        this.bitSet = bitSet;
+        this.numBits = bitSet.length * Long.SIZE;
+        this.numHashFunctions = numHashFunctions;
+    }
+
+    public long[] getBitSet()
+    {
+        return bitSet;
+    }
+
+    public int getNumHashFunctions()
+    {
+        return numHashFunctions;
+    }
+
+    public void addLong(long value)
+    {
+        addHash(getLongHash(value));
+    }
+
+    public void addDouble(double value)
+    {
+        addLong(Double.doubleToLongBits(value));
+    }
+
+    public void addSlice(Slice value)
+    {
+        addHash(murmur3Hash64(value));
+    }
+
+    public boolean testLong(long value)
+    {
+        return testHash(getLongHash(value));
+    }
+
+    public boolean testDouble(double value)
+    {
+        return testLong(Double.doubleToLongBits(value));
+    }
+
+    public boolean testSlice(Slice value)
+    {
+        return testHash(murmur3Hash64(value));
+    }
+
+    private void addHash(long hash64)
+    {
+        int hash1 = (int) hash64;
+        int hash2 = (int) (hash64 >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            int position = getBitPosition(hash1, hash2, i);
+            bitSet[position >>> 6] |= 1L << position;
+        }
+    }
+
+    private boolean testHash(long hash64)
+    {
+        int hash1 = (int) hash64;
+        int hash2 = (int) (hash64 >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            int position = getBitPosition(hash1, hash2, i);
+            if ((bitSet[position >>> 6] & (1L << position)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int getBitPosition(int hash1, int hash2, int hashFunction)
+    {
+        int combinedHash = hash1 + (hashFunction * hash2);
+        if (combinedHash < 0) {
+            combinedHash = ~combinedHash;
+        }
+        return combinedHash % numBits;
+    }
+
+    // Thomas Wang's 64 bit integer hash, as used by Hive
+    private static long getLongHash(long key)
+    {
+        key = (~key) + (key << 21);
+        key = key ^ (key >> 24);
+        key = (key + (key << 3)) + (key << 8);
+        key = key ^ (key >> 14);
+        key = (key + (key << 2)) + (key << 4);
+        key = key ^ (key >> 28);
+        key = key + (key << 31);
+        return key;
+    }
+
+    // This comes from the Hive Murmur3 code, which differs from the 128 bit Murmur3 hash
+    private static long murmur3Hash64(Slice data)
+    {
+        int length = data.length();
+        long hash = MURMUR3_SEED;
+
+        int blocks = length >> 3;
+        for (int i = 0; i < blocks; i++) {
+            long k = data.getLong(i << 3);
+            k *= MURMUR3_C1;
+            k = Long.rotateLeft(k, 31);
+            k *= MURMUR3_C2;
+            hash ^= k;
+            hash = Long.rotateLeft(hash, 27) * 5 + 0x52dce729;
+        }
+
+        int tailStart = blocks << 3;
+        if (tailStart < length) {
+            long k = 0;
+            for (int i = length - 1; i >= tailStart; i--) {
+                k ^= ((long) data.getByte(i) & 0xff) << ((i - tailStart) * 8);
+            }
+            k *= MURMUR3_C1;
+            k = Long.rotateLeft(k, 31);
+            k *= MURMUR3_C2;
+            hash ^= k;
+        }
+
+        hash ^= length;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -21,6 +21,7 @@ public class ColumnStatistics
     private final DoubleStatistics doubleStatistics;
     private final StringStatistics stringStatistics;
     private final DateStatistics dateStatistics;
+    private final BloomFilter bloomFilter;
 
     public ColumnStatistics(Long numberOfValues,
             BooleanStatistics booleanStatistics,
@@ -28,6 +29,17 @@ public class ColumnStatistics
             DoubleStatistics doubleStatistics,
             StringStatistics stringStatistics,
             DateStatistics dateStatistics)
+    {
+        this(numberOfValues, booleanStatistics, integerStatistics, doubleStatistics, stringStatistics, dateStatistics, null);
+    }
+
+    public ColumnStatistics(Long numberOfValues,
+            BooleanStatistics booleanStatistics,
+            IntegerStatistics integerStatistics,
+            DoubleStatistics doubleStatistics,
+            StringStatistics stringStatistics,
+            DateStatistics dateStatistics,
+            BloomFilter bloomFilter)
     {
         this.numberOfValues = numberOfValues;
         this.booleanStatistics = booleanStatistics;
@@ -35,6 +47,7 @@ public class ColumnStatistics
         this.doubleStatistics = doubleStatistics;
         this.stringStatistics = stringStatistics;
         this.dateStatistics = dateStatistics;
+        this.bloomFilter = bloomFilter;
     }
 
     public boolean hasNumberOfValues()
@@ -71,4 +84,17 @@ public class ColumnStatistics
     {
         return stringStatistics;
     }
+
+    /**
+     * Returns the bloom filter of the values, which is only available for row groups.
+     */
+    public BloomFilter getBloomFilter()
+    {
+        return bloomFilter;
+    }
+
+    public ColumnStatistics withBloomFilter(BloomFilter bloomFilter)
+    {
+        return new ColumnStatistics(numberOfValues, booleanStatistics, integerStatistics, doubleStatistics, stringStatistics, dateStatistics, bloomFilter);
+    }
 }
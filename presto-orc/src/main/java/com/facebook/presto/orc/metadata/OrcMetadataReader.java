@@ -14,6 +14,7 @@
 package com.facebook.presto.orc.metadata;
 
 import com.facebook.presto.hive.protobuf.CodedInputStream;
+import com.facebook.presto.hive.protobuf.UnknownFieldSet;
 import com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind;
 import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
 import com.facebook.presto.orc.metadata.Stream.StreamKind;
@@ -28,12 +29,17 @@ import org.apache.hadoop.hive.ql.io.orc.OrcProto.RowIndexEntry;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
 
+import static com.facebook.presto.hive.protobuf.WireFormat.WIRETYPE_FIXED64;
+import static com.facebook.presto.hive.protobuf.WireFormat.WIRETYPE_LENGTH_DELIMITED;
+import static com.facebook.presto.hive.protobuf.WireFormat.WIRETYPE_VARINT;
 import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
 import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
 import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 import static java.lang.Character.MIN_SURROGATE;
 
 public class OrcMetadataReader
@@ -41,6 +47,18 @@ public class OrcMetadataReader
 {
     private static final Slice MAX_BYTE = Slices.wrappedBuffer(new byte[] { (byte) 0xFF });
 
+    // bloom filters were added to the format after the protocol buffer definition used
+    // here, so the kind of bloom filter streams is an unknown field of the stream, and the
+    // bloom filter indexes are decoded directly from the wire format
+    private static final int STREAM_KIND_FIELD = 1;
+    private static final int BLOOM_FILTER_STREAM_KIND = 7;
+    private static final int BLOOM_FILTER_UTF8_STREAM_KIND = 8;
+
+    private static final int BLOOM_FILTER_FIELD = 1;
+    private static final int NUM_HASH_FUNCTIONS_FIELD = 1;
+    private static final int BIT_SET_FIELD = 2;
+    private static final int UTF8_BIT_SET_FIELD = 3;
+
     @Override
     public PostScript readPostScript(byte[] data, int offset, int length)
             throws IOException
@@ -115,7 +133,25 @@ public class OrcMetadataReader
 
     private static Stream toStream(OrcProto.Stream stream)
     {
-        return new Stream(stream.getColumn(), toStreamKind(stream.getKind()), Ints.checkedCast(stream.getLength()), true);
+        return new Stream(stream.getColumn(), getStreamKind(stream), Ints.checkedCast(stream.getLength()), true);
+    }
+
+    private static StreamKind getStreamKind(OrcProto.Stream stream)
+    {
+        UnknownFieldSet unknownFields = stream.getUnknownFields();
+        if (stream.hasKind() || !unknownFields.hasField(STREAM_KIND_FIELD)) {
+            return toStreamKind(stream.getKind());
+        }
+
+        List<Long> kinds = unknownFields.getField(STREAM_KIND_FIELD).getVarintList();
+        long kind = Iterables.getLast(kinds);
+        if (kind == BLOOM_FILTER_STREAM_KIND) {
+            return StreamKind.BLOOM_FILTER;
+        }
+        if (kind == BLOOM_FILTER_UTF8_STREAM_KIND) {
+            return StreamKind.BLOOM_FILTER_UTF8;
+        }
+        throw new IllegalStateException("Stream kind " + kind + " not implemented yet");
     }
 
     private static List<Stream> toStream(List<OrcProto.Stream> streams)
@@ -142,6 +178,93 @@ public class OrcMetadataReader
         return ImmutableList.copyOf(Iterables.transform(rowIndex.getEntryList(), OrcMetadataReader::toRowGroupIndex));
     }
 
+    @Override
+    public List<BloomFilter> readBloomFilterIndexes(InputStream inputStream)
+            throws IOException
+    {
+        CodedInputStream input = CodedInputStream.newInstance(inputStream);
+        ImmutableList.Builder<BloomFilter> bloomFilters = ImmutableList.builder();
+        while (!input.isAtEnd()) {
+            int tag = input.readTag();
+            if (getFieldNumber(tag) == BLOOM_FILTER_FIELD && getWireType(tag) == WIRETYPE_LENGTH_DELIMITED) {
+                int limit = input.pushLimit(input.readRawVarint32());
+                bloomFilters.add(readBloomFilter(input));
+                input.popLimit(limit);
+            }
+            else {
+                input.skipField(tag);
+            }
+        }
+        return bloomFilters.build();
+    }
+
+    private static BloomFilter readBloomFilter(CodedInputStream input)
+            throws IOException
+    {
+        int numHashFunctions = 0;
+        long[] bitSet = new long[0];
+        int bitSetSize = 0;
+        long[] utf8BitSet = null;
+        while (!input.isAtEnd()) {
+            int tag = input.readTag();
+            int fieldNumber = getFieldNumber(tag);
+            int wireType = getWireType(tag);
+            if (fieldNumber == NUM_HASH_FUNCTIONS_FIELD && wireType == WIRETYPE_VARINT) {
+                numHashFunctions = input.readUInt32();
+            }
+            else if (fieldNumber == BIT_SET_FIELD && wireType == WIRETYPE_FIXED64) {
+                bitSet = ensureCapacity(bitSet, bitSetSize + 1);
+                bitSet[bitSetSize++] = input.readFixed64();
+            }
+            else if (fieldNumber == BIT_SET_FIELD && wireType == WIRETYPE_LENGTH_DELIMITED) {
+                // packed encoding
+                int length = input.readRawVarint32();
+                bitSet = ensureCapacity(bitSet, bitSetSize + (length / SIZE_OF_LONG));
+                int limit = input.pushLimit(length);
+                while (!input.isAtEnd()) {
+                    bitSet[bitSetSize++] = input.readFixed64();
+                }
+                input.popLimit(limit);
+            }
+            else if (fieldNumber == UTF8_BIT_SET_FIELD && wireType == WIRETYPE_LENGTH_DELIMITED) {
+                // little endian longs
+                Slice bytes = Slices.wrappedBuffer(input.readRawBytes(input.readRawVarint32()));
+                utf8BitSet = new long[bytes.length() / SIZE_OF_LONG];
+                for (int i = 0; i < utf8BitSet.length; i++) {
+                    utf8BitSet[i] = bytes.getLong(i * SIZE_OF_LONG);
+                }
+            }
+            else {
+                input.skipField(tag);
+            }
+        }
+        if (utf8BitSet != null) {
+            return new BloomFilter(utf8BitSet, numHashFunctions);
+        }
+        if (bitSetSize != bitSet.length) {
+            bitSet = Arrays.copyOf(bitSet, bitSetSize);
+        }
+        return new BloomFilter(bitSet, numHashFunctions);
+    }
+
+    private static long[] ensureCapacity(long[] array, int capacity)
+    {
+        if (array.length >= capacity) {
+            return array;
+        }
+        return Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    private static int getFieldNumber(int tag)
+    {
+        return tag >>> 3;
+    }
+
+    private static int getWireType(int tag)
+    {
+        return tag & 0x7;
+    }
+
     private static RowGroupIndex toRowGroupIndex(RowIndexEntry rowIndexEntry)
     {
         List<Long> positionsList = rowIndexEntry.getPositionsList();
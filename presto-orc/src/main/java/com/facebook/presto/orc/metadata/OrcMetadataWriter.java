@@ -0,0 +1,370 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.metadata;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.facebook.presto.hive.protobuf.CodedOutputStream;
+import com.facebook.presto.hive.protobuf.UnknownFieldSet;
+import com.google.common.collect.ImmutableList;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import static com.facebook.presto.hive.protobuf.WireFormat.WIRETYPE_LENGTH_DELIMITED;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Writes the protocol buffer sections of an ORC file. This is the counterpart of {@link OrcMetadataReader}.
+ */
+public class OrcMetadataWriter
+{
+    private static final String MAGIC = "ORC";
+    private static final List<Integer> ORC_VERSION = ImmutableList.of(0, 12);
+
+    // see OrcMetadataReader for why bloom filters are encoded by hand
+    private static final int STREAM_KIND_FIELD = 1;
+    private static final int BLOOM_FILTER_STREAM_KIND = 7;
+
+    private static final int BLOOM_FILTER_FIELD = 1;
+    private static final int NUM_HASH_FUNCTIONS_FIELD = 1;
+    private static final int BIT_SET_FIELD = 2;
+
+    public void writePostScript(OutputStream output, int footerLength, int metadataLength, CompressionKind compression, int compressionBlockSize)
+            throws IOException
+    {
+        OrcProto.PostScript postScript = OrcProto.PostScript.newBuilder()
+                .addAllVersion(ORC_VERSION)
+                .setFooterLength(footerLength)
+                .setMetadataLength(metadataLength)
+                .setCompression(toCompression(compression))
+                .setCompressionBlockSize(compressionBlockSize)
+                .setMagic(MAGIC)
+                .build();
+        postScript.writeTo(output);
+    }
+
+    public void writeMetadata(OutputStream output, Metadata metadata)
+            throws IOException
+    {
+        OrcProto.Metadata metadataProtobuf = OrcProto.Metadata.newBuilder()
+                .addAllStripeStats(metadata.getStripeStatsList().stream()
+                        .map(OrcMetadataWriter::toStripeStatistics)
+                        .collect(toList()))
+                .build();
+        metadataProtobuf.writeTo(output);
+    }
+
+    private static OrcProto.StripeStatistics toStripeStatistics(StripeStatistics stripeStatistics)
+    {
+        return OrcProto.StripeStatistics.newBuilder()
+                .addAllColStats(stripeStatistics.getColumnStatistics().stream()
+                        .map(OrcMetadataWriter::toColumnStatistics)
+                        .collect(toList()))
+                .build();
+    }
+
+    public void writeFooter(OutputStream output, Footer footer)
+            throws IOException
+    {
+        long contentLength = MAGIC.length();
+        for (StripeInformation stripe : footer.getStripes()) {
+            contentLength += stripe.getIndexLength() + stripe.getDataLength() + stripe.getFooterLength();
+        }
+
+        OrcProto.Footer footerProtobuf = OrcProto.Footer.newBuilder()
+                .setHeaderLength(MAGIC.length())
+                .setContentLength(contentLength)
+                .setNumberOfRows(footer.getNumberOfRows())
+                .setRowIndexStride(footer.getRowsInRowGroup())
+                .addAllStripes(footer.getStripes().stream()
+                        .map(OrcMetadataWriter::toStripeInformation)
+                        .collect(toList()))
+                .addAllTypes(footer.getTypes().stream()
+                        .map(OrcMetadataWriter::toType)
+                        .collect(toList()))
+                .addAllStatistics(footer.getFileStats().stream()
+                        .map(OrcMetadataWriter::toColumnStatistics)
+                        .collect(toList()))
+                .build();
+        footerProtobuf.writeTo(output);
+    }
+
+    private static OrcProto.StripeInformation toStripeInformation(StripeInformation stripe)
+    {
+        return OrcProto.StripeInformation.newBuilder()
+                .setNumberOfRows(stripe.getNumberOfRows())
+                .setOffset(stripe.getOffset())
+                .setIndexLength(stripe.getIndexLength())
+                .setDataLength(stripe.getDataLength())
+                .setFooterLength(stripe.getFooterLength())
+                .build();
+    }
+
+    private static OrcProto.Type toType(OrcType type)
+    {
+        OrcProto.Type.Builder builder = OrcProto.Type.newBuilder()
+                .setKind(toTypeKind(type.getOrcTypeKind()))
+                .addAllSubtypes(type.getFieldTypeIndexes());
+        if (type.getFieldNames() != null) {
+            builder.addAllFieldNames(type.getFieldNames());
+        }
+        return builder.build();
+    }
+
+    public void writeStripeFooter(OutputStream output, StripeFooter stripeFooter)
+            throws IOException
+    {
+        OrcProto.StripeFooter footerProtobuf = OrcProto.StripeFooter.newBuilder()
+                .addAllStreams(stripeFooter.getStreams().stream()
+                        .map(OrcMetadataWriter::toStream)
+                        .collect(toList()))
+                .addAllColumns(stripeFooter.getColumnEncodings().stream()
+                        .map(OrcMetadataWriter::toColumnEncoding)
+                        .collect(toList()))
+                .build();
+        footerProtobuf.writeTo(output);
+    }
+
+    private static OrcProto.Stream toStream(Stream stream)
+    {
+        OrcProto.Stream.Builder builder = OrcProto.Stream.newBuilder()
+                .setColumn(stream.getColumn())
+                .setLength(stream.getLength());
+        if (stream.getStreamKind() == StreamKind.BLOOM_FILTER) {
+            builder.setUnknownFields(UnknownFieldSet.newBuilder()
+                    .addField(STREAM_KIND_FIELD, UnknownFieldSet.Field.newBuilder()
+                            .addVarint(BLOOM_FILTER_STREAM_KIND)
+                            .build())
+                    .build());
+        }
+        else {
+            builder.setKind(toStreamKind(stream.getStreamKind()));
+        }
+        return builder.build();
+    }
+
+    private static OrcProto.ColumnEncoding toColumnEncoding(ColumnEncoding columnEncoding)
+    {
+        return OrcProto.ColumnEncoding.newBuilder()
+                .setKind(toColumnEncodingKind(columnEncoding.getColumnEncodingKind()))
+                .setDictionarySize(columnEncoding.getDictionarySize())
+                .build();
+    }
+
+    public void writeRowIndexes(OutputStream output, List<RowGroupIndex> rowGroupIndexes)
+            throws IOException
+    {
+        OrcProto.RowIndex rowIndexProtobuf = OrcProto.RowIndex.newBuilder()
+                .addAllEntry(rowGroupIndexes.stream()
+                        .map(OrcMetadataWriter::toRowGroupIndex)
+                        .collect(toList()))
+                .build();
+        rowIndexProtobuf.writeTo(output);
+    }
+
+    public void writeBloomFilters(OutputStream output, List<BloomFilter> bloomFilters)
+            throws IOException
+    {
+        CodedOutputStream codedOutput = CodedOutputStream.newInstance(output);
+        for (BloomFilter bloomFilter : bloomFilters) {
+            int size = CodedOutputStream.computeUInt32Size(NUM_HASH_FUNCTIONS_FIELD, bloomFilter.getNumHashFunctions());
+            for (long word : bloomFilter.getBitSet()) {
+                size += CodedOutputStream.computeFixed64Size(BIT_SET_FIELD, word);
+            }
+
+            codedOutput.writeTag(BLOOM_FILTER_FIELD, WIRETYPE_LENGTH_DELIMITED);
+            codedOutput.writeRawVarint32(size);
+            codedOutput.writeUInt32(NUM_HASH_FUNCTIONS_FIELD, bloomFilter.getNumHashFunctions());
+            for (long word : bloomFilter.getBitSet()) {
+                codedOutput.writeFixed64(BIT_SET_FIELD, word);
+            }
+        }
+        codedOutput.flush();
+    }
+
+    private static OrcProto.RowIndexEntry toRowGroupIndex(RowGroupIndex rowGroupIndex)
+    {
+        return OrcProto.RowIndexEntry.newBuilder()
+                .addAllPositions(rowGroupIndex.getPositions().stream()
+                        .map(Integer::longValue)
+                        .collect(toList()))
+                .setStatistics(toColumnStatistics(rowGroupIndex.getColumnStatistics()))
+                .build();
+    }
+
+    private static OrcProto.ColumnStatistics toColumnStatistics(ColumnStatistics columnStatistics)
+    {
+        OrcProto.ColumnStatistics.Builder builder = OrcProto.ColumnStatistics.newBuilder();
+
+        if (columnStatistics.hasNumberOfValues()) {
+            builder.setNumberOfValues(columnStatistics.getNumberOfValues());
+        }
+
+        if (columnStatistics.getBooleanStatistics() != null) {
+            builder.setBucketStatistics(OrcProto.BucketStatistics.newBuilder()
+                    .addCount(columnStatistics.getBooleanStatistics().getTrueValueCount())
+                    .build());
+        }
+
+        IntegerStatistics integerStatistics = columnStatistics.getIntegerStatistics();
+        if (integerStatistics != null) {
+            OrcProto.IntegerStatistics.Builder integerBuilder = OrcProto.IntegerStatistics.newBuilder();
+            if (integerStatistics.getMin() != null) {
+                integerBuilder.setMinimum(integerStatistics.getMin());
+            }
+            if (integerStatistics.getMax() != null) {
+                integerBuilder.setMaximum(integerStatistics.getMax());
+            }
+            builder.setIntStatistics(integerBuilder.build());
+        }
+
+        DoubleStatistics doubleStatistics = columnStatistics.getDoubleStatistics();
+        if (doubleStatistics != null) {
+            OrcProto.DoubleStatistics.Builder doubleBuilder = OrcProto.DoubleStatistics.newBuilder();
+            if (doubleStatistics.getMin() != null) {
+                doubleBuilder.setMinimum(doubleStatistics.getMin());
+            }
+            if (doubleStatistics.getMax() != null) {
+                doubleBuilder.setMaximum(doubleStatistics.getMax());
+            }
+            builder.setDoubleStatistics(doubleBuilder.build());
+        }
+
+        StringStatistics stringStatistics = columnStatistics.getStringStatistics();
+        if (stringStatistics != null) {
+            OrcProto.StringStatistics.Builder stringBuilder = OrcProto.StringStatistics.newBuilder();
+            if (stringStatistics.getMin() != null) {
+                stringBuilder.setMinimum(stringStatistics.getMin().toStringUtf8());
+            }
+            if (stringStatistics.getMax() != null) {
+                stringBuilder.setMaximum(stringStatistics.getMax().toStringUtf8());
+            }
+            builder.setStringStatistics(stringBuilder.build());
+        }
+
+        DateStatistics dateStatistics = columnStatistics.getDateStatistics();
+        if (dateStatistics != null) {
+            OrcProto.DateStatistics.Builder dateBuilder = OrcProto.DateStatistics.newBuilder();
+            if (dateStatistics.getMin() != null) {
+                dateBuilder.setMinimum(dateStatistics.getMin());
+            }
+            if (dateStatistics.getMax() != null) {
+                dateBuilder.setMaximum(dateStatistics.getMax());
+            }
+            builder.setDateStatistics(dateBuilder.build());
+        }
+
+        return builder.build();
+    }
+
+    private static OrcProto.Type.Kind toTypeKind(OrcTypeKind typeKind)
+    {
+        switch (typeKind) {
+            case BOOLEAN:
+                return OrcProto.Type.Kind.BOOLEAN;
+            case BYTE:
+                return OrcProto.Type.Kind.BYTE;
+            case SHORT:
+                return OrcProto.Type.Kind.SHORT;
+            case INT:
+                return OrcProto.Type.Kind.INT;
+            case LONG:
+                return OrcProto.Type.Kind.LONG;
+            case FLOAT:
+                return OrcProto.Type.Kind.FLOAT;
+            case DOUBLE:
+                return OrcProto.Type.Kind.DOUBLE;
+            case STRING:
+                return OrcProto.Type.Kind.STRING;
+            case BINARY:
+                return OrcProto.Type.Kind.BINARY;
+            case TIMESTAMP:
+                return OrcProto.Type.Kind.TIMESTAMP;
+            case LIST:
+                return OrcProto.Type.Kind.LIST;
+            case MAP:
+                return OrcProto.Type.Kind.MAP;
+            case STRUCT:
+                return OrcProto.Type.Kind.STRUCT;
+            case UNION:
+                return OrcProto.Type.Kind.UNION;
+            case DECIMAL:
+                return OrcProto.Type.Kind.DECIMAL;
+            case DATE:
+                return OrcProto.Type.Kind.DATE;
+            case VARCHAR:
+                return OrcProto.Type.Kind.VARCHAR;
+            case CHAR:
+                return OrcProto.Type.Kind.CHAR;
+            default:
+                throw new IllegalArgumentException("Unsupported type: " + typeKind);
+        }
+    }
+
+    private static OrcProto.Stream.Kind toStreamKind(StreamKind streamKind)
+    {
+        switch (streamKind) {
+            case PRESENT:
+                return OrcProto.Stream.Kind.PRESENT;
+            case DATA:
+                return OrcProto.Stream.Kind.DATA;
+            case LENGTH:
+                return OrcProto.Stream.Kind.LENGTH;
+            case DICTIONARY_DATA:
+                return OrcProto.Stream.Kind.DICTIONARY_DATA;
+            case DICTIONARY_COUNT:
+                return OrcProto.Stream.Kind.DICTIONARY_COUNT;
+            case SECONDARY:
+                return OrcProto.Stream.Kind.SECONDARY;
+            case ROW_INDEX:
+                return OrcProto.Stream.Kind.ROW_INDEX;
+            default:
+                throw new IllegalArgumentException("Unsupported stream kind: " + streamKind);
+        }
+    }
+
+    private static OrcProto.ColumnEncoding.Kind toColumnEncodingKind(ColumnEncodingKind columnEncodingKind)
+    {
+        switch (columnEncodingKind) {
+            case DIRECT:
+                return OrcProto.ColumnEncoding.Kind.DIRECT;
+            case DIRECT_V2:
+                return OrcProto.ColumnEncoding.Kind.DIRECT_V2;
+            case DICTIONARY:
+                return OrcProto.ColumnEncoding.Kind.DICTIONARY;
+            case DICTIONARY_V2:
+                return OrcProto.ColumnEncoding.Kind.DICTIONARY_V2;
+            default:
+                throw new IllegalArgumentException("Unsupported column encoding: " + columnEncodingKind);
+        }
+    }
+
+    private static OrcProto.CompressionKind toCompression(CompressionKind compression)
+    {
+        switch (compression) {
+            case UNCOMPRESSED:
+                return OrcProto.CompressionKind.NONE;
+            case ZLIB:
+                return OrcProto.CompressionKind.ZLIB;
+            case SNAPPY:
+                return OrcProto.CompressionKind.SNAPPY;
+            default:
+                throw new IllegalArgumentException("Unsupported compression: " + compression);
+        }
+    }
+}
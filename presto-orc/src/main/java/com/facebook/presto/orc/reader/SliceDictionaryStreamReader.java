@@ -65,7 +65,7 @@ public class SliceDictionaryStreamReader
     private boolean dictionaryOpen;
     private int dictionarySize;
     @Nonnull
-    private Slice[] dictionary = new Slice[0];
+    private Slice[] dictionary = new Slice[1];
 
     @Nonnull
     private StreamSource<LongStream> dictionaryLengthStreamSource = missingStreamSource(LongStream.class);
@@ -160,16 +160,29 @@ public class SliceDictionaryStreamReader
             inDictionaryStream.getSetBits(nextBatchSize, inDictionary, isNullVector);
         }
 
-        for (int i = 0; i < nextBatchSize; i++) {
-            if (isNullVector[i]) {
-                sliceVector.vector[i] = null;
-            }
-            else if (inDictionary[i]) {
-                sliceVector.vector[i] = dictionary[dataVector[i]];
+        if (inDictionaryStream == null) {
+            // all values come from the stripe dictionary, so hand out the ids as well;
+            // the last dictionary entry is null
+            for (int i = 0; i < nextBatchSize; i++) {
+                int id = isNullVector[i] ? dictionarySize : dataVector[i];
+                sliceVector.ids[i] = id;
+                sliceVector.vector[i] = dictionary[id];
             }
-            else {
-                sliceVector.vector[i] = rowGroupDictionary[dataVector[i]];
+            sliceVector.dictionary = dictionary;
+        }
+        else {
+            for (int i = 0; i < nextBatchSize; i++) {
+                if (isNullVector[i]) {
+                    sliceVector.vector[i] = null;
+                }
+                else if (inDictionary[i]) {
+                    sliceVector.vector[i] = dictionary[dataVector[i]];
+                }
+                else {
+                    sliceVector.vector[i] = rowGroupDictionary[dataVector[i]];
+                }
             }
+            sliceVector.dictionary = null;
         }
 
         readOffset = 0;
@@ -180,10 +193,14 @@ public class SliceDictionaryStreamReader
             throws IOException
     {
         // read the dictionary
+        if (!dictionaryOpen) {
+            // the dictionary is handed out to callers, so it can not be reused across stripes
+            // the extra entry at the end is used for null values
+            dictionary = new Slice[dictionarySize + 1];
+        }
         if (!dictionaryOpen && dictionarySize > 0) {
-            // resize the dictionary array if necessary
-            if (dictionary.length < dictionarySize) {
-                dictionary = new Slice[dictionarySize];
+            // resize the dictionary length array if necessary
+            if (dictionaryLength.length < dictionarySize) {
                 dictionaryLength = new int[dictionarySize];
             }
 
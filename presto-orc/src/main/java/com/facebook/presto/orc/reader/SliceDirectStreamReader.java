@@ -111,6 +111,7 @@ public class SliceDirectStreamReader
         }
 
         SliceVector sliceVector = castOrcVector(vector, SliceVector.class);
+        sliceVector.dictionary = null;
         if (presentStream == null) {
             if (lengthStream == null) {
                 throw new OrcCorruptionException("Value is not null but length stream is not present");
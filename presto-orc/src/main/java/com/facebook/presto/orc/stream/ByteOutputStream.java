@@ -0,0 +1,182 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.stream.OrcStreamUtils.MIN_REPEAT_SIZE;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Run length encodes bytes. This is the counterpart of {@link ByteStream}.
+ */
+public class ByteOutputStream
+        implements ValueOutputStream
+{
+    private static final int MAX_LITERAL_SIZE = 128;
+    private static final int MAX_REPEAT_SIZE = 127 + MIN_REPEAT_SIZE;
+
+    private final StreamKind streamKind;
+    private final OrcOutputBuffer buffer;
+    private final List<List<Integer>> checkpoints = new ArrayList<>();
+
+    private final byte[] literals = new byte[MAX_LITERAL_SIZE];
+    private int numLiterals;
+    private boolean repeat;
+    private int tailRunLength;
+
+    private boolean closed;
+
+    public ByteOutputStream(CompressionKind compression, int bufferSize, StreamKind streamKind)
+    {
+        this.buffer = new OrcOutputBuffer(compression, bufferSize);
+        this.streamKind = checkNotNull(streamKind, "streamKind is null");
+    }
+
+    // This comes from the Apache Hive ORC code
+    public void writeByte(byte value)
+    {
+        checkState(!closed, "stream is closed");
+
+        if (numLiterals == 0) {
+            literals[numLiterals++] = value;
+            tailRunLength = 1;
+        }
+        else if (repeat) {
+            if (value == literals[0]) {
+                numLiterals++;
+                if (numLiterals == MAX_REPEAT_SIZE) {
+                    writeValues();
+                }
+            }
+            else {
+                writeValues();
+                literals[numLiterals++] = value;
+                tailRunLength = 1;
+            }
+        }
+        else {
+            if (value == literals[numLiterals - 1]) {
+                tailRunLength++;
+            }
+            else {
+                tailRunLength = 1;
+            }
+
+            if (tailRunLength == MIN_REPEAT_SIZE) {
+                if (numLiterals + 1 == MIN_REPEAT_SIZE) {
+                    repeat = true;
+                    numLiterals++;
+                }
+                else {
+                    // flush the literals preceding the run
+                    numLiterals -= MIN_REPEAT_SIZE - 1;
+                    writeValues();
+                    literals[0] = value;
+                    repeat = true;
+                    numLiterals = MIN_REPEAT_SIZE;
+                }
+            }
+            else {
+                literals[numLiterals++] = value;
+                if (numLiterals == MAX_LITERAL_SIZE) {
+                    writeValues();
+                }
+            }
+        }
+    }
+
+    private void writeValues()
+    {
+        if (numLiterals == 0) {
+            return;
+        }
+
+        if (repeat) {
+            buffer.write(numLiterals - MIN_REPEAT_SIZE);
+            buffer.write(literals[0]);
+        }
+        else {
+            buffer.write(-numLiterals);
+            buffer.write(literals, 0, numLiterals);
+        }
+        repeat = false;
+        tailRunLength = 0;
+        numLiterals = 0;
+    }
+
+    /**
+     * Flushes the pending run and returns the positions of the next byte.
+     */
+    List<Integer> flushAndGetCheckpointPositions()
+    {
+        writeValues();
+        return ImmutableList.<Integer>builder()
+                .addAll(buffer.getCheckpointPositions())
+                // runs are flushed at checkpoints, so the next byte is always at the start of a run
+                .add(0)
+                .build();
+    }
+
+    @Override
+    public void recordCheckpoint()
+    {
+        checkState(!closed, "stream is closed");
+        checkpoints.add(flushAndGetCheckpointPositions());
+    }
+
+    @Override
+    public List<List<Integer>> getCheckpoints()
+    {
+        return ImmutableList.copyOf(checkpoints);
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        writeValues();
+        buffer.close();
+    }
+
+    @Override
+    public StreamDataOutput getStreamDataOutput(int column)
+    {
+        checkState(closed, "stream is not closed");
+        return new StreamDataOutput(column, streamKind, buffer.getCompressedData());
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return buffer.getOutputDataSize() + numLiterals;
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        buffer.reset();
+        checkpoints.clear();
+        numLiterals = 0;
+        repeat = false;
+        tailRunLength = 0;
+    }
+}
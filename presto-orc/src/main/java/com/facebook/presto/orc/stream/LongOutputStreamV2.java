@@ -0,0 +1,377 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.stream.LongDecode.getClosestFixedBits;
+import static com.facebook.presto.orc.stream.OrcStreamUtils.MIN_REPEAT_SIZE;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+
+/**
+ * Encodes longs with the second version of the ORC run length encoding. Runs of equal
+ * values are written as short repeats, monotonic sequences as deltas and all other values
+ * are bit packed. This is the counterpart of {@link LongStreamV2}, but the patched base
+ * encoding is never used.
+ */
+public class LongOutputStreamV2
+        implements ValueOutputStream
+{
+    private static final int MAX_LITERAL_SIZE = 512;
+    private static final int MAX_SHORT_REPEAT_SIZE = 10;
+
+    private enum EncodingType
+    {
+        SHORT_REPEAT, DIRECT, PATCHED_BASE, DELTA
+    }
+
+    private final StreamKind streamKind;
+    private final boolean signed;
+    private final OrcOutputBuffer buffer;
+    private final List<List<Integer>> checkpoints = new ArrayList<>();
+
+    private final long[] literals = new long[MAX_LITERAL_SIZE];
+    private final long[] scratch = new long[MAX_LITERAL_SIZE];
+    private int numLiterals;
+    private boolean repeat;
+    private int tailRunLength;
+
+    private boolean closed;
+
+    public LongOutputStreamV2(CompressionKind compression, int bufferSize, boolean signed, StreamKind streamKind)
+    {
+        this.streamKind = checkNotNull(streamKind, "streamKind is null");
+        this.signed = signed;
+        this.buffer = new OrcOutputBuffer(compression, bufferSize);
+    }
+
+    public void writeLong(long value)
+    {
+        checkState(!closed, "stream is closed");
+
+        if (repeat) {
+            if (value == literals[0] && numLiterals < MAX_LITERAL_SIZE) {
+                numLiterals++;
+                return;
+            }
+            flush();
+        }
+
+        literals[numLiterals++] = value;
+        if (numLiterals > 1 && value == literals[numLiterals - 2]) {
+            tailRunLength++;
+        }
+        else {
+            tailRunLength = 1;
+        }
+
+        if (tailRunLength == MIN_REPEAT_SIZE) {
+            // flush the values preceding the run and start a repeated run
+            if (numLiterals > MIN_REPEAT_SIZE) {
+                writeValues(numLiterals - MIN_REPEAT_SIZE);
+            }
+            literals[0] = value;
+            numLiterals = MIN_REPEAT_SIZE;
+            repeat = true;
+        }
+        else if (numLiterals == MAX_LITERAL_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush()
+    {
+        if (numLiterals == 0) {
+            return;
+        }
+
+        if (repeat) {
+            if (numLiterals <= MAX_SHORT_REPEAT_SIZE) {
+                writeShortRepeat(literals[0], numLiterals);
+            }
+            else {
+                writeFixedDelta(literals[0], 0, numLiterals);
+            }
+        }
+        else {
+            writeValues(numLiterals);
+        }
+        numLiterals = 0;
+        repeat = false;
+        tailRunLength = 0;
+    }
+
+    private void writeValues(int length)
+    {
+        if (length < MIN_REPEAT_SIZE || !tryWriteDelta(length)) {
+            writeDirect(length);
+        }
+    }
+
+    private void writeShortRepeat(long value, int length)
+    {
+        long encoded = signed ? zigzagEncode(value) : value;
+        int bytes = Math.max(1, (bitsRequired(encoded) + 7) / 8);
+
+        buffer.write((EncodingType.SHORT_REPEAT.ordinal() << 6) | ((bytes - 1) << 3) | (length - MIN_REPEAT_SIZE));
+        // the value is stored big endian
+        for (int i = bytes - 1; i >= 0; i--) {
+            buffer.write((int) (encoded >>> (i * 8)));
+        }
+    }
+
+    private void writeFixedDelta(long firstValue, long delta, int length)
+    {
+        // a bit width of zero marks a fixed delta
+        writeHeader(EncodingType.DELTA, 0, length);
+        writeVInt(firstValue);
+        writeSignedVInt(delta);
+    }
+
+    private boolean tryWriteDelta(int length)
+    {
+        long firstDelta = 0;
+        boolean fixed = true;
+        boolean increasing = true;
+        boolean decreasing = true;
+        long encodedBits = signed ? zigzagEncode(literals[0]) : literals[0];
+        for (int i = 1; i < length; i++) {
+            long previous = literals[i - 1];
+            long current = literals[i];
+            long delta = current - previous;
+            if (((current ^ previous) & (current ^ delta)) < 0) {
+                // the delta overflows
+                return false;
+            }
+            scratch[i - 1] = delta;
+
+            if (i == 1) {
+                firstDelta = delta;
+            }
+            else {
+                fixed &= delta == firstDelta;
+            }
+            increasing &= delta >= 0;
+            decreasing &= delta <= 0;
+            encodedBits |= signed ? zigzagEncode(current) : current;
+        }
+
+        if (fixed) {
+            writeFixedDelta(literals[0], firstDelta, length);
+            return true;
+        }
+
+        // the direction of the sequence is taken from the sign of the first delta
+        if (!increasing && !(decreasing && firstDelta < 0)) {
+            return false;
+        }
+
+        // all deltas after the first are stored as bit packed magnitudes
+        long magnitudeBits = 0;
+        for (int i = 1; i < length - 1; i++) {
+            scratch[i] = Math.abs(scratch[i]);
+            magnitudeBits |= scratch[i];
+        }
+        int deltaBitWidth = getClosestFixedBits(bitsRequired(magnitudeBits));
+        if (deltaBitWidth == 1) {
+            // an encoded bit width of zero would be read as a fixed delta
+            deltaBitWidth = 2;
+        }
+        if (deltaBitWidth >= getClosestFixedBits(bitsRequired(encodedBits))) {
+            // direct encoding is at least as small
+            return false;
+        }
+
+        writeHeader(EncodingType.DELTA, encodeBitWidth(deltaBitWidth), length);
+        writeVInt(literals[0]);
+        writeSignedVInt(firstDelta);
+        writeBitPackedLongs(scratch, 1, length - 2, deltaBitWidth);
+        return true;
+    }
+
+    private void writeDirect(int length)
+    {
+        long bits = 0;
+        for (int i = 0; i < length; i++) {
+            long encoded = signed ? zigzagEncode(literals[i]) : literals[i];
+            scratch[i] = encoded;
+            bits |= encoded;
+        }
+        int bitWidth = getClosestFixedBits(bitsRequired(bits));
+
+        writeHeader(EncodingType.DIRECT, encodeBitWidth(bitWidth), length);
+        writeBitPackedLongs(scratch, 0, length, bitWidth);
+    }
+
+    private void writeHeader(EncodingType encoding, int encodedBitWidth, int length)
+    {
+        // runs are one off
+        int storedLength = length - 1;
+        buffer.write((encoding.ordinal() << 6) | (encodedBitWidth << 1) | (storedLength >>> 8));
+        buffer.write(storedLength & 0xff);
+    }
+
+    // This is based on the Apache Hive ORC code
+    private void writeBitPackedLongs(long[] values, int offset, int length, int bitSize)
+    {
+        int current = 0;
+        int bitsLeft = 8;
+        for (int i = offset; i < offset + length; i++) {
+            long value = values[i];
+            int bitsToWrite = bitSize;
+            while (bitsToWrite > bitsLeft) {
+                // fill the current byte with the most significant remaining bits
+                current |= (int) (value >>> (bitsToWrite - bitsLeft)) & ((1 << bitsLeft) - 1);
+                bitsToWrite -= bitsLeft;
+                buffer.write(current);
+                current = 0;
+                bitsLeft = 8;
+            }
+
+            bitsLeft -= bitsToWrite;
+            current |= (int) (value & ((1L << bitsToWrite) - 1)) << bitsLeft;
+            if (bitsLeft == 0) {
+                buffer.write(current);
+                current = 0;
+                bitsLeft = 8;
+            }
+        }
+
+        if (bitsLeft != 8) {
+            buffer.write(current);
+        }
+    }
+
+    private void writeVInt(long value)
+    {
+        if (signed) {
+            writeSignedVInt(value);
+        }
+        else {
+            writeUnsignedVInt(value);
+        }
+    }
+
+    private void writeSignedVInt(long value)
+    {
+        writeUnsignedVInt(zigzagEncode(value));
+    }
+
+    private void writeUnsignedVInt(long value)
+    {
+        while ((value & ~0x7FL) != 0) {
+            buffer.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.write((int) value);
+    }
+
+    private static long zigzagEncode(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int bitsRequired(long value)
+    {
+        return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Encodes a bit width returned by {@link LongDecode#getClosestFixedBits(int)}.
+     * This is the inverse of {@link LongDecode#decodeBitWidth(int)}.
+     */
+    private static int encodeBitWidth(int width)
+    {
+        if (width >= 1 && width <= 24) {
+            return width - 1;
+        }
+        switch (width) {
+            case 26:
+                return 24;
+            case 28:
+                return 25;
+            case 30:
+                return 26;
+            case 32:
+                return 27;
+            case 40:
+                return 28;
+            case 48:
+                return 29;
+            case 56:
+                return 30;
+            case 64:
+                return 31;
+            default:
+                throw new IllegalArgumentException("Unsupported bit width " + width);
+        }
+    }
+
+    @Override
+    public void recordCheckpoint()
+    {
+        checkState(!closed, "stream is closed");
+        // values are flushed at checkpoints, so the next value is always at the start of a run
+        flush();
+        checkpoints.add(ImmutableList.<Integer>builder()
+                .addAll(buffer.getCheckpointPositions())
+                .add(0)
+                .build());
+    }
+
+    @Override
+    public List<List<Integer>> getCheckpoints()
+    {
+        return ImmutableList.copyOf(checkpoints);
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        flush();
+        buffer.close();
+    }
+
+    @Override
+    public StreamDataOutput getStreamDataOutput(int column)
+    {
+        checkState(closed, "stream is not closed");
+        return new StreamDataOutput(column, streamKind, buffer.getCompressedData());
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return buffer.getOutputDataSize() + (numLiterals * SIZE_OF_LONG);
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        buffer.reset();
+        checkpoints.clear();
+        numLiterals = 0;
+        repeat = false;
+        tailRunLength = 0;
+    }
+}
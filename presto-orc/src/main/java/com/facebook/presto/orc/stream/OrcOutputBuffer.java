@@ -0,0 +1,226 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import org.iq80.snappy.Snappy;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
+import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Buffers the bytes of a single stream, splitting them in chunks of at most
+ * {@code maxBufferSize} bytes that are compressed individually. This is the
+ * counterpart of {@link OrcInputStream}.
+ */
+public final class OrcOutputBuffer
+        extends OutputStream
+{
+    private static final int INITIAL_OUTPUT_SIZE = 1024;
+
+    private final CompressionKind compressionKind;
+    private final int maxBufferSize;
+    private final DynamicSliceOutput compressedOutput;
+
+    private final byte[] buffer;
+    private int bufferPosition;
+
+    private final byte[] compressionBuffer;
+    private final Deflater deflater;
+
+    public OrcOutputBuffer(CompressionKind compressionKind, int maxBufferSize)
+    {
+        this.compressionKind = checkNotNull(compressionKind, "compressionKind is null");
+        checkArgument(maxBufferSize > 0, "maxBufferSize must be at least 1");
+        // the chunk length is stored in 23 bits
+        checkArgument(maxBufferSize < (1 << 23), "maxBufferSize is too large");
+        this.maxBufferSize = maxBufferSize;
+        this.compressedOutput = new DynamicSliceOutput(INITIAL_OUTPUT_SIZE);
+
+        if (compressionKind == UNCOMPRESSED) {
+            this.buffer = null;
+            this.compressionBuffer = null;
+            this.deflater = null;
+        }
+        else if (compressionKind == SNAPPY) {
+            this.buffer = new byte[maxBufferSize];
+            this.compressionBuffer = new byte[Snappy.maxCompressedLength(maxBufferSize)];
+            this.deflater = null;
+        }
+        else {
+            checkArgument(compressionKind == ZLIB, "%s compression not supported", compressionKind);
+            this.buffer = new byte[maxBufferSize];
+            this.compressionBuffer = new byte[maxBufferSize];
+            this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+    }
+
+    /**
+     * Returns the positions a reader needs to seek to the next byte written to this buffer.
+     */
+    public List<Integer> getCheckpointPositions()
+    {
+        if (compressionKind == UNCOMPRESSED) {
+            return ImmutableList.of(compressedOutput.size());
+        }
+        return ImmutableList.of(compressedOutput.size(), bufferPosition);
+    }
+
+    /**
+     * Returns the number of bytes written so far, before compression of the pending chunk.
+     */
+    public long getOutputDataSize()
+    {
+        return compressedOutput.size() + bufferPosition;
+    }
+
+    @Override
+    public void write(int value)
+    {
+        if (compressionKind == UNCOMPRESSED) {
+            compressedOutput.writeByte(value);
+            return;
+        }
+        if (bufferPosition == maxBufferSize) {
+            flushBuffer();
+        }
+        buffer[bufferPosition++] = (byte) value;
+    }
+
+    @Override
+    public void write(byte[] source, int sourceIndex, int length)
+    {
+        if (compressionKind == UNCOMPRESSED) {
+            compressedOutput.writeBytes(source, sourceIndex, length);
+            return;
+        }
+        while (length > 0) {
+            if (bufferPosition == maxBufferSize) {
+                flushBuffer();
+            }
+            int chunk = Math.min(length, maxBufferSize - bufferPosition);
+            System.arraycopy(source, sourceIndex, buffer, bufferPosition, chunk);
+            bufferPosition += chunk;
+            sourceIndex += chunk;
+            length -= chunk;
+        }
+    }
+
+    public void writeSlice(Slice source, int sourceIndex, int length)
+    {
+        if (compressionKind == UNCOMPRESSED) {
+            compressedOutput.writeBytes(source, sourceIndex, length);
+            return;
+        }
+        while (length > 0) {
+            if (bufferPosition == maxBufferSize) {
+                flushBuffer();
+            }
+            int chunk = Math.min(length, maxBufferSize - bufferPosition);
+            source.getBytes(sourceIndex, buffer, bufferPosition, chunk);
+            bufferPosition += chunk;
+            sourceIndex += chunk;
+            length -= chunk;
+        }
+    }
+
+    public void writeDouble(double value)
+    {
+        // doubles are stored as little endian IEEE 754 values
+        long bits = Double.doubleToLongBits(value);
+        for (int i = 0; i < 8; i++) {
+            write((int) (bits >>> (i * 8)));
+        }
+    }
+
+    /**
+     * Compresses any pending bytes. The buffer can not be written to after it is closed.
+     */
+    @Override
+    public void close()
+    {
+        if (bufferPosition > 0) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Returns the compressed contents of a closed buffer.
+     */
+    public Slice getCompressedData()
+    {
+        return compressedOutput.slice();
+    }
+
+    public void reset()
+    {
+        compressedOutput.reset();
+        bufferPosition = 0;
+    }
+
+    private void flushBuffer()
+    {
+        int compressedLength = compress(bufferPosition);
+        if (compressedLength > 0 && compressedLength < bufferPosition) {
+            writeChunkHeader(compressedLength, false);
+            compressedOutput.writeBytes(compressionBuffer, 0, compressedLength);
+        }
+        else {
+            // compression did not reduce the size, so store the chunk as is
+            writeChunkHeader(bufferPosition, true);
+            compressedOutput.writeBytes(buffer, 0, bufferPosition);
+        }
+        bufferPosition = 0;
+    }
+
+    // returns the compressed size, or -1 if the data does not fit in the compression buffer
+    private int compress(int length)
+    {
+        if (compressionKind == SNAPPY) {
+            return Snappy.compress(buffer, 0, length, compressionBuffer, 0);
+        }
+
+        deflater.reset();
+        deflater.setInput(buffer, 0, length);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished() && compressedLength < compressionBuffer.length) {
+            compressedLength += deflater.deflate(compressionBuffer, compressedLength, compressionBuffer.length - compressedLength);
+        }
+        if (!deflater.finished()) {
+            return -1;
+        }
+        return compressedLength;
+    }
+
+    // This comes from the Apache Hive ORC code
+    private void writeChunkHeader(int length, boolean isOriginal)
+    {
+        // 3 byte little endian header containing the chunk length and a flag for uncompressed chunks
+        int header = (length << 1) | (isOriginal ? 1 : 0);
+        compressedOutput.writeByte(header & 0xff);
+        compressedOutput.writeByte((header >>> 8) & 0xff);
+        compressedOutput.writeByte((header >>> 16) & 0xff);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import io.airlift.slice.Slice;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public final class StreamDataOutput
+{
+    private final Slice data;
+    private final Stream stream;
+
+    public StreamDataOutput(int column, StreamKind streamKind, Slice data)
+    {
+        this.data = checkNotNull(data, "data is null");
+        this.stream = new Stream(column, streamKind, data.length(), true);
+    }
+
+    public Stream getStream()
+    {
+        return stream;
+    }
+
+    public long getSizeInBytes()
+    {
+        return data.length();
+    }
+
+    public void writeData(OutputStream outputStream)
+            throws IOException
+    {
+        data.getBytes(0, outputStream, data.length());
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("stream", stream)
+                .toString();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import java.util.List;
+
+public interface ValueOutputStream
+{
+    /**
+     * Records the current position of the stream as the start of a new row group.
+     */
+    void recordCheckpoint();
+
+    /**
+     * Returns the positions recorded by {@link #recordCheckpoint()}, in order.
+     */
+    List<List<Integer>> getCheckpoints();
+
+    /**
+     * Flushes any buffered values. The stream can not be written to after it is closed.
+     */
+    void close();
+
+    StreamDataOutput getStreamDataOutput(int column);
+
+    /**
+     * Returns the number of bytes written to the stream, including buffered values.
+     */
+    long getBufferedBytes();
+
+    void reset();
+}
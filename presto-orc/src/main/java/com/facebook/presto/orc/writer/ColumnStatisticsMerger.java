@@ -0,0 +1,193 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.BooleanStatistics;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.DateStatistics;
+import com.facebook.presto.orc.metadata.DoubleStatistics;
+import com.facebook.presto.orc.metadata.IntegerStatistics;
+import com.facebook.presto.orc.metadata.StringStatistics;
+import io.airlift.slice.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Combines the statistics of row groups into stripe statistics, and the statistics
+ * of stripes into file statistics.
+ */
+public final class ColumnStatisticsMerger
+{
+    private ColumnStatisticsMerger()
+    {
+    }
+
+    public static ColumnStatistics mergeColumnStatistics(List<ColumnStatistics> statistics)
+    {
+        checkArgument(!statistics.isEmpty(), "statistics is empty");
+
+        long numberOfValues = 0;
+        for (ColumnStatistics columnStatistics : statistics) {
+            numberOfValues += columnStatistics.getNumberOfValues();
+        }
+
+        return new ColumnStatistics(
+                numberOfValues,
+                mergeBooleanStatistics(statistics),
+                mergeIntegerStatistics(statistics),
+                mergeDoubleStatistics(statistics),
+                mergeStringStatistics(statistics),
+                mergeDateStatistics(statistics));
+    }
+
+    private static BooleanStatistics mergeBooleanStatistics(List<ColumnStatistics> statistics)
+    {
+        if (isEmpty(statistics, ColumnStatistics::getBooleanStatistics)) {
+            return null;
+        }
+
+        long trueValueCount = 0;
+        for (ColumnStatistics columnStatistics : statistics) {
+            if (columnStatistics.getNumberOfValues() == 0) {
+                continue;
+            }
+            BooleanStatistics booleanStatistics = columnStatistics.getBooleanStatistics();
+            if (booleanStatistics == null) {
+                return null;
+            }
+            trueValueCount += booleanStatistics.getTrueValueCount();
+        }
+        return new BooleanStatistics(trueValueCount);
+    }
+
+    private static IntegerStatistics mergeIntegerStatistics(List<ColumnStatistics> statistics)
+    {
+        if (isEmpty(statistics, ColumnStatistics::getIntegerStatistics)) {
+            return null;
+        }
+
+        Long minimum = Long.MAX_VALUE;
+        Long maximum = Long.MIN_VALUE;
+        for (ColumnStatistics columnStatistics : statistics) {
+            if (columnStatistics.getNumberOfValues() == 0) {
+                continue;
+            }
+            IntegerStatistics integerStatistics = columnStatistics.getIntegerStatistics();
+            if (integerStatistics == null) {
+                return null;
+            }
+            minimum = (minimum == null || integerStatistics.getMin() == null) ? null : Math.min(minimum, integerStatistics.getMin());
+            maximum = (maximum == null || integerStatistics.getMax() == null) ? null : Math.max(maximum, integerStatistics.getMax());
+        }
+        return new IntegerStatistics(minimum, maximum);
+    }
+
+    private static DoubleStatistics mergeDoubleStatistics(List<ColumnStatistics> statistics)
+    {
+        if (isEmpty(statistics, ColumnStatistics::getDoubleStatistics)) {
+            return null;
+        }
+
+        Double minimum = Double.POSITIVE_INFINITY;
+        Double maximum = Double.NEGATIVE_INFINITY;
+        for (ColumnStatistics columnStatistics : statistics) {
+            if (columnStatistics.getNumberOfValues() == 0) {
+                continue;
+            }
+            DoubleStatistics doubleStatistics = columnStatistics.getDoubleStatistics();
+            if (doubleStatistics == null) {
+                return null;
+            }
+            minimum = (minimum == null || doubleStatistics.getMin() == null) ? null : Math.min(minimum, doubleStatistics.getMin());
+            maximum = (maximum == null || doubleStatistics.getMax() == null) ? null : Math.max(maximum, doubleStatistics.getMax());
+        }
+        return new DoubleStatistics(minimum, maximum);
+    }
+
+    private static StringStatistics mergeStringStatistics(List<ColumnStatistics> statistics)
+    {
+        if (isEmpty(statistics, ColumnStatistics::getStringStatistics)) {
+            return null;
+        }
+
+        Slice minimum = null;
+        Slice maximum = null;
+        boolean first = true;
+        for (ColumnStatistics columnStatistics : statistics) {
+            if (columnStatistics.getNumberOfValues() == 0) {
+                continue;
+            }
+            StringStatistics stringStatistics = columnStatistics.getStringStatistics();
+            if (stringStatistics == null) {
+                return null;
+            }
+            if (first) {
+                minimum = stringStatistics.getMin();
+                maximum = stringStatistics.getMax();
+                first = false;
+            }
+            else {
+                minimum = (minimum == null || stringStatistics.getMin() == null) ? null : min(minimum, stringStatistics.getMin());
+                maximum = (maximum == null || stringStatistics.getMax() == null) ? null : max(maximum, stringStatistics.getMax());
+            }
+        }
+        return new StringStatistics(minimum, maximum);
+    }
+
+    private static DateStatistics mergeDateStatistics(List<ColumnStatistics> statistics)
+    {
+        if (isEmpty(statistics, ColumnStatistics::getDateStatistics)) {
+            return null;
+        }
+
+        Integer minimum = Integer.MAX_VALUE;
+        Integer maximum = Integer.MIN_VALUE;
+        for (ColumnStatistics columnStatistics : statistics) {
+            if (columnStatistics.getNumberOfValues() == 0) {
+                continue;
+            }
+            DateStatistics dateStatistics = columnStatistics.getDateStatistics();
+            if (dateStatistics == null) {
+                return null;
+            }
+            minimum = (minimum == null || dateStatistics.getMin() == null) ? null : Math.min(minimum, dateStatistics.getMin());
+            maximum = (maximum == null || dateStatistics.getMax() == null) ? null : Math.max(maximum, dateStatistics.getMax());
+        }
+        return new DateStatistics(minimum, maximum);
+    }
+
+    // returns true if no statistics with values contain the statistics of the type
+    private static boolean isEmpty(List<ColumnStatistics> statistics, Function<ColumnStatistics, Object> typeStatistics)
+    {
+        for (ColumnStatistics columnStatistics : statistics) {
+            if (columnStatistics.getNumberOfValues() > 0 && typeStatistics.apply(columnStatistics) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Slice min(Slice left, Slice right)
+    {
+        return left.compareTo(right) <= 0 ? left : right;
+    }
+
+    private static Slice max(Slice left, Slice right)
+    {
+        return left.compareTo(right) >= 0 ? left : right;
+    }
+}
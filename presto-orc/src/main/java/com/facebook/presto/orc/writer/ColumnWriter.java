@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+
+import java.util.List;
+
+/**
+ * Encodes the values of a single column of a stripe. Rows are written in row groups: each
+ * row group starts with {@link #beginRowGroup()} and ends with {@link #finishRowGroup()}.
+ * After the last row group of the stripe the writer is closed, the encoded streams are
+ * collected, and the writer is reset for the next stripe.
+ */
+public interface ColumnWriter
+{
+    void beginRowGroup();
+
+    void writeBlock(Block block);
+
+    void finishRowGroup();
+
+    void close();
+
+    ColumnEncoding getColumnEncoding();
+
+    ColumnStatistics getColumnStripeStatistics();
+
+    List<RowGroupIndex> getRowGroupIndexes();
+
+    List<StreamDataOutput> getDataStreams();
+
+    long getBufferedBytes();
+
+    void reset();
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.stream.PresentOutputStream;
+import com.facebook.presto.orc.stream.ValueOutputStream;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.joda.time.DateTimeZone;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkState;
+
+public final class ColumnWriters
+{
+    private ColumnWriters()
+    {
+    }
+
+    public static boolean isSupportedType(Type type)
+    {
+        return getOrcTypeKind(type).isPresent();
+    }
+
+    public static Optional<OrcTypeKind> getOrcTypeKind(Type type)
+    {
+        if (BOOLEAN.equals(type)) {
+            return Optional.of(OrcTypeKind.BOOLEAN);
+        }
+        if (BIGINT.equals(type)) {
+            return Optional.of(OrcTypeKind.LONG);
+        }
+        if (DOUBLE.equals(type)) {
+            return Optional.of(OrcTypeKind.DOUBLE);
+        }
+        if (VARCHAR.equals(type)) {
+            return Optional.of(OrcTypeKind.STRING);
+        }
+        if (VARBINARY.equals(type)) {
+            return Optional.of(OrcTypeKind.BINARY);
+        }
+        if (DATE.equals(type)) {
+            return Optional.of(OrcTypeKind.DATE);
+        }
+        if (TIMESTAMP.equals(type)) {
+            return Optional.of(OrcTypeKind.TIMESTAMP);
+        }
+        return Optional.empty();
+    }
+
+    public static ColumnWriter createColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, DateTimeZone hiveStorageTimeZone)
+    {
+        OrcTypeKind orcTypeKind = getOrcTypeKind(type).orElseThrow(() -> new IllegalArgumentException("Unsupported type: " + type));
+        switch (orcTypeKind) {
+            case BOOLEAN:
+                return new BooleanColumnWriter(column, type, compression, bufferSize);
+            case LONG:
+            case DATE:
+                return new LongColumnWriter(column, type, compression, bufferSize);
+            case DOUBLE:
+                return new DoubleColumnWriter(column, type, compression, bufferSize);
+            case STRING:
+            case BINARY:
+                return new SliceColumnWriter(column, type, compression, bufferSize);
+            case TIMESTAMP:
+                return new TimestampColumnWriter(column, type, compression, bufferSize, hiveStorageTimeZone);
+            default:
+                throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+    }
+
+    /**
+     * Combines the checkpoints of the streams of a column into row group indexes. The streams
+     * must be passed in the order expected by the reader.
+     */
+    static List<RowGroupIndex> createRowGroupIndexes(List<ColumnStatistics> rowGroupStatistics, PresentOutputStream presentStream, ValueOutputStream... dataStreams)
+    {
+        Optional<List<List<Integer>>> presentCheckpoints = presentStream.getCheckpoints();
+        ImmutableList.Builder<List<List<Integer>>> dataCheckpointsBuilder = ImmutableList.builder();
+        for (ValueOutputStream dataStream : dataStreams) {
+            List<List<Integer>> checkpoints = dataStream.getCheckpoints();
+            checkState(checkpoints.size() == rowGroupStatistics.size(), "Expected %s checkpoints, but stream has %s", rowGroupStatistics.size(), checkpoints.size());
+            dataCheckpointsBuilder.add(checkpoints);
+        }
+        List<List<List<Integer>>> dataCheckpoints = dataCheckpointsBuilder.build();
+
+        ImmutableList.Builder<RowGroupIndex> rowGroupIndexes = ImmutableList.builder();
+        for (int rowGroup = 0; rowGroup < rowGroupStatistics.size(); rowGroup++) {
+            ImmutableList.Builder<Integer> positions = ImmutableList.builder();
+            if (presentCheckpoints.isPresent()) {
+                positions.addAll(presentCheckpoints.get().get(rowGroup));
+            }
+            for (List<List<Integer>> checkpoints : dataCheckpoints) {
+                positions.addAll(checkpoints.get(rowGroup));
+            }
+            rowGroupIndexes.add(new RowGroupIndex(positions.build(), rowGroupStatistics.get(rowGroup)));
+        }
+        return rowGroupIndexes.build();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.DoubleStatistics;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.stream.DoubleOutputStream;
+import com.facebook.presto.orc.stream.PresentOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.orc.writer.ColumnStatisticsMerger.mergeColumnStatistics;
+import static com.facebook.presto.orc.writer.ColumnWriters.createRowGroupIndexes;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+public class DoubleColumnWriter
+        implements ColumnWriter
+{
+    private final int column;
+    private final Type type;
+    private final PresentOutputStream presentStream;
+    private final DoubleOutputStream dataStream;
+    private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
+
+    private long nonNullValueCount;
+    private double minimum = Double.POSITIVE_INFINITY;
+    private double maximum = Double.NEGATIVE_INFINITY;
+
+    private boolean closed;
+
+    public DoubleColumnWriter(int column, Type type, CompressionKind compression, int bufferSize)
+    {
+        checkArgument(column >= 0, "column is negative");
+        this.column = column;
+        this.type = checkNotNull(type, "type is null");
+        this.presentStream = new PresentOutputStream(compression, bufferSize);
+        this.dataStream = new DoubleOutputStream(compression, bufferSize, DATA);
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        presentStream.recordCheckpoint();
+        dataStream.recordCheckpoint();
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        checkState(!closed, "writer is closed");
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                presentStream.writeBoolean(false);
+                continue;
+            }
+            presentStream.writeBoolean(true);
+
+            double value = type.getDouble(block, position);
+            dataStream.writeDouble(value);
+            nonNullValueCount++;
+            // NaN propagates to the statistics, which makes readers ignore them
+            minimum = Math.min(minimum, value);
+            maximum = Math.max(maximum, value);
+        }
+    }
+
+    @Override
+    public void finishRowGroup()
+    {
+        checkState(!closed, "writer is closed");
+        DoubleStatistics doubleStatistics = nonNullValueCount == 0 ? null : new DoubleStatistics(minimum, maximum);
+        rowGroupColumnStatistics.add(new ColumnStatistics(nonNullValueCount, null, null, doubleStatistics, null, null));
+
+        nonNullValueCount = 0;
+        minimum = Double.POSITIVE_INFINITY;
+        maximum = Double.NEGATIVE_INFINITY;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        presentStream.close();
+        dataStream.close();
+    }
+
+    @Override
+    public ColumnEncoding getColumnEncoding()
+    {
+        return new ColumnEncoding(DIRECT, 0);
+    }
+
+    @Override
+    public ColumnStatistics getColumnStripeStatistics()
+    {
+        checkState(closed, "writer is not closed");
+        return mergeColumnStatistics(rowGroupColumnStatistics);
+    }
+
+    @Override
+    public List<RowGroupIndex> getRowGroupIndexes()
+    {
+        checkState(closed, "writer is not closed");
+        return createRowGroupIndexes(rowGroupColumnStatistics, presentStream, dataStream);
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        checkState(closed, "writer is not closed");
+        ImmutableList.Builder<StreamDataOutput> streams = ImmutableList.builder();
+        presentStream.getStreamDataOutput(column).ifPresent(streams::add);
+        streams.add(dataStream.getStreamDataOutput(column));
+        return streams.build();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return presentStream.getBufferedBytes() + dataStream.getBufferedBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        presentStream.reset();
+        dataStream.reset();
+        rowGroupColumnStatistics.clear();
+        nonNullValueCount = 0;
+        minimum = Double.POSITIVE_INFINITY;
+        maximum = Double.NEGATIVE_INFINITY;
+    }
+}
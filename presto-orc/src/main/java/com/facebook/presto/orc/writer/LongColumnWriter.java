@@ -0,0 +1,169 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.DateStatistics;
+import com.facebook.presto.orc.metadata.IntegerStatistics;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.stream.LongOutputStreamV2;
+import com.facebook.presto.orc.stream.PresentOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT_V2;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.orc.writer.ColumnStatisticsMerger.mergeColumnStatistics;
+import static com.facebook.presto.orc.writer.ColumnWriters.createRowGroupIndexes;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+public class LongColumnWriter
+        implements ColumnWriter
+{
+    private final int column;
+    private final Type type;
+    private final boolean isDate;
+    private final PresentOutputStream presentStream;
+    private final LongOutputStreamV2 dataStream;
+    private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
+
+    private long nonNullValueCount;
+    private long minimum = Long.MAX_VALUE;
+    private long maximum = Long.MIN_VALUE;
+
+    private boolean closed;
+
+    public LongColumnWriter(int column, Type type, CompressionKind compression, int bufferSize)
+    {
+        checkArgument(column >= 0, "column is negative");
+        this.column = column;
+        this.type = checkNotNull(type, "type is null");
+        this.isDate = DATE.equals(type);
+        this.presentStream = new PresentOutputStream(compression, bufferSize);
+        this.dataStream = new LongOutputStreamV2(compression, bufferSize, true, DATA);
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        presentStream.recordCheckpoint();
+        dataStream.recordCheckpoint();
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        checkState(!closed, "writer is closed");
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                presentStream.writeBoolean(false);
+                continue;
+            }
+            presentStream.writeBoolean(true);
+
+            long value = type.getLong(block, position);
+            dataStream.writeLong(value);
+            nonNullValueCount++;
+            minimum = Math.min(minimum, value);
+            maximum = Math.max(maximum, value);
+        }
+    }
+
+    @Override
+    public void finishRowGroup()
+    {
+        checkState(!closed, "writer is closed");
+        ColumnStatistics statistics;
+        if (nonNullValueCount == 0) {
+            statistics = new ColumnStatistics(0L, null, null, null, null, null);
+        }
+        else if (isDate) {
+            statistics = new ColumnStatistics(nonNullValueCount, null, null, null, null, new DateStatistics((int) minimum, (int) maximum));
+        }
+        else {
+            statistics = new ColumnStatistics(nonNullValueCount, null, new IntegerStatistics(minimum, maximum), null, null, null);
+        }
+        rowGroupColumnStatistics.add(statistics);
+
+        nonNullValueCount = 0;
+        minimum = Long.MAX_VALUE;
+        maximum = Long.MIN_VALUE;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        presentStream.close();
+        dataStream.close();
+    }
+
+    @Override
+    public ColumnEncoding getColumnEncoding()
+    {
+        return new ColumnEncoding(DIRECT_V2, 0);
+    }
+
+    @Override
+    public ColumnStatistics getColumnStripeStatistics()
+    {
+        checkState(closed, "writer is not closed");
+        return mergeColumnStatistics(rowGroupColumnStatistics);
+    }
+
+    @Override
+    public List<RowGroupIndex> getRowGroupIndexes()
+    {
+        checkState(closed, "writer is not closed");
+        return createRowGroupIndexes(rowGroupColumnStatistics, presentStream, dataStream);
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        checkState(closed, "writer is not closed");
+        ImmutableList.Builder<StreamDataOutput> streams = ImmutableList.builder();
+        presentStream.getStreamDataOutput(column).ifPresent(streams::add);
+        streams.add(dataStream.getStreamDataOutput(column));
+        return streams.build();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return presentStream.getBufferedBytes() + dataStream.getBufferedBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        presentStream.reset();
+        dataStream.reset();
+        rowGroupColumnStatistics.clear();
+        nonNullValueCount = 0;
+        minimum = Long.MAX_VALUE;
+        maximum = Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.StringStatistics;
+import com.facebook.presto.orc.stream.ByteArrayOutputStream;
+import com.facebook.presto.orc.stream.LongOutputStreamV2;
+import com.facebook.presto.orc.stream.PresentOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIONARY_V2;
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT_V2;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DICTIONARY_DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.LENGTH;
+import static com.facebook.presto.orc.writer.ColumnStatisticsMerger.mergeColumnStatistics;
+import static com.facebook.presto.orc.writer.ColumnWriters.createRowGroupIndexes;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+
+/**
+ * Writes varchar values with a sorted stripe dictionary, unless the number of distinct
+ * values of the stripe is too high for the dictionary to pay off. The decision is made
+ * after the first row group and again when the stripe is closed; values buffered in the
+ * dictionary are converted to the direct encoding when it is abandoned. Varbinary values
+ * are always written directly.
+ */
+public class SliceColumnWriter
+        implements ColumnWriter
+{
+    // this matches the default of hive.exec.orc.dictionary.key.size.threshold
+    private static final double DICTIONARY_KEY_SIZE_THRESHOLD = 0.8;
+    private static final int INITIAL_VALUES_SIZE = 1024;
+
+    private final int column;
+    private final Type type;
+    private final boolean isVarchar;
+    private final PresentOutputStream presentStream;
+    private final LongOutputStreamV2 lengthStream;
+    private final ByteArrayOutputStream directDataStream;
+    private final LongOutputStreamV2 dictionaryDataStream;
+    private final ByteArrayOutputStream dictionaryStream;
+    private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
+
+    private final Map<Slice, Integer> dictionary = new HashMap<>();
+    private final List<Slice> dictionaryEntries = new ArrayList<>();
+    private long dictionaryBytes;
+    private int[] values = new int[INITIAL_VALUES_SIZE];
+    private int valueCount;
+    private final List<Integer> rowGroupValueOffsets = new ArrayList<>();
+    private boolean directEncoded;
+
+    private long nonNullValueCount;
+    private Slice minimum;
+    private Slice maximum;
+
+    private boolean closed;
+
+    public SliceColumnWriter(int column, Type type, CompressionKind compression, int bufferSize)
+    {
+        checkArgument(column >= 0, "column is negative");
+        this.column = column;
+        this.type = checkNotNull(type, "type is null");
+        this.isVarchar = VARCHAR.equals(type);
+        this.presentStream = new PresentOutputStream(compression, bufferSize);
+        this.lengthStream = new LongOutputStreamV2(compression, bufferSize, false, LENGTH);
+        this.directDataStream = new ByteArrayOutputStream(compression, bufferSize, DATA);
+        this.dictionaryDataStream = new LongOutputStreamV2(compression, bufferSize, false, DATA);
+        this.dictionaryStream = new ByteArrayOutputStream(compression, bufferSize, DICTIONARY_DATA);
+        this.directEncoded = !isVarchar;
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        presentStream.recordCheckpoint();
+        if (directEncoded) {
+            directDataStream.recordCheckpoint();
+            lengthStream.recordCheckpoint();
+        }
+        else {
+            // checkpoints of the dictionary encoded values are recorded when the dictionary is written
+            rowGroupValueOffsets.add(valueCount);
+        }
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        checkState(!closed, "writer is closed");
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                presentStream.writeBoolean(false);
+                continue;
+            }
+            presentStream.writeBoolean(true);
+
+            Slice value = type.getSlice(block, position);
+            if (directEncoded) {
+                writeDirect(value);
+            }
+            else {
+                addToDictionary(value);
+            }
+
+            nonNullValueCount++;
+            if (isVarchar) {
+                if (minimum == null || value.compareTo(minimum) < 0) {
+                    minimum = Slices.copyOf(value);
+                }
+                if (maximum == null || value.compareTo(maximum) > 0) {
+                    maximum = Slices.copyOf(value);
+                }
+            }
+        }
+    }
+
+    private void writeDirect(Slice value)
+    {
+        lengthStream.writeLong(value.length());
+        directDataStream.writeSlice(value);
+    }
+
+    private void addToDictionary(Slice value)
+    {
+        Integer id = dictionary.get(value);
+        if (id == null) {
+            // copy the value so the dictionary does not retain the block
+            Slice entry = Slices.copyOf(value);
+            id = dictionaryEntries.size();
+            dictionary.put(entry, id);
+            dictionaryEntries.add(entry);
+            dictionaryBytes += entry.length();
+        }
+
+        if (valueCount == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[valueCount++] = id;
+    }
+
+    @Override
+    public void finishRowGroup()
+    {
+        checkState(!closed, "writer is closed");
+        StringStatistics stringStatistics = null;
+        if (isVarchar && nonNullValueCount > 0) {
+            stringStatistics = new StringStatistics(minimum, maximum);
+        }
+        rowGroupColumnStatistics.add(new ColumnStatistics(nonNullValueCount, null, null, null, stringStatistics, null));
+
+        nonNullValueCount = 0;
+        minimum = null;
+        maximum = null;
+
+        // give up on the dictionary early, so high cardinality columns do not buffer the whole stripe
+        if (!directEncoded && rowGroupColumnStatistics.size() == 1 && !isDictionaryEffective()) {
+            convertToDirect();
+        }
+    }
+
+    private boolean isDictionaryEffective()
+    {
+        return dictionaryEntries.size() <= DICTIONARY_KEY_SIZE_THRESHOLD * valueCount;
+    }
+
+    private void convertToDirect()
+    {
+        int rowGroup = 0;
+        for (int i = 0; i <= valueCount; i++) {
+            while (rowGroup < rowGroupValueOffsets.size() && rowGroupValueOffsets.get(rowGroup) == i) {
+                directDataStream.recordCheckpoint();
+                lengthStream.recordCheckpoint();
+                rowGroup++;
+            }
+            if (i < valueCount) {
+                writeDirect(dictionaryEntries.get(values[i]));
+            }
+        }
+
+        clearDictionary();
+        directEncoded = true;
+    }
+
+    private void writeDictionary()
+    {
+        // the dictionary is stored in sorted order, like the dictionaries written by Hive
+        Integer[] sortedIds = new Integer[dictionaryEntries.size()];
+        for (int id = 0; id < sortedIds.length; id++) {
+            sortedIds[id] = id;
+        }
+        Arrays.sort(sortedIds, (left, right) -> dictionaryEntries.get(left).compareTo(dictionaryEntries.get(right)));
+
+        int[] newIds = new int[sortedIds.length];
+        for (int index = 0; index < sortedIds.length; index++) {
+            Slice entry = dictionaryEntries.get(sortedIds[index]);
+            lengthStream.writeLong(entry.length());
+            dictionaryStream.writeSlice(entry);
+            newIds[sortedIds[index]] = index;
+        }
+
+        int rowGroup = 0;
+        for (int i = 0; i <= valueCount; i++) {
+            while (rowGroup < rowGroupValueOffsets.size() && rowGroupValueOffsets.get(rowGroup) == i) {
+                dictionaryDataStream.recordCheckpoint();
+                rowGroup++;
+            }
+            if (i < valueCount) {
+                dictionaryDataStream.writeLong(newIds[values[i]]);
+            }
+        }
+    }
+
+    private void clearDictionary()
+    {
+        dictionary.clear();
+        dictionaryEntries.clear();
+        dictionaryBytes = 0;
+        values = new int[INITIAL_VALUES_SIZE];
+        valueCount = 0;
+        rowGroupValueOffsets.clear();
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        if (!directEncoded) {
+            if (isDictionaryEffective()) {
+                writeDictionary();
+            }
+            else {
+                convertToDirect();
+            }
+        }
+
+        presentStream.close();
+        lengthStream.close();
+        directDataStream.close();
+        dictionaryDataStream.close();
+        dictionaryStream.close();
+    }
+
+    @Override
+    public ColumnEncoding getColumnEncoding()
+    {
+        checkState(closed, "writer is not closed");
+        if (directEncoded) {
+            return new ColumnEncoding(DIRECT_V2, 0);
+        }
+        return new ColumnEncoding(DICTIONARY_V2, dictionaryEntries.size());
+    }
+
+    @Override
+    public ColumnStatistics getColumnStripeStatistics()
+    {
+        checkState(closed, "writer is not closed");
+        return mergeColumnStatistics(rowGroupColumnStatistics);
+    }
+
+    @Override
+    public List<RowGroupIndex> getRowGroupIndexes()
+    {
+        checkState(closed, "writer is not closed");
+        if (directEncoded) {
+            return createRowGroupIndexes(rowGroupColumnStatistics, presentStream, directDataStream, lengthStream);
+        }
+        return createRowGroupIndexes(rowGroupColumnStatistics, presentStream, dictionaryDataStream);
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        checkState(closed, "writer is not closed");
+        ImmutableList.Builder<StreamDataOutput> streams = ImmutableList.builder();
+        presentStream.getStreamDataOutput(column).ifPresent(streams::add);
+        if (directEncoded) {
+            streams.add(directDataStream.getStreamDataOutput(column));
+            streams.add(lengthStream.getStreamDataOutput(column));
+        }
+        else {
+            streams.add(dictionaryDataStream.getStreamDataOutput(column));
+            streams.add(lengthStream.getStreamDataOutput(column));
+            streams.add(dictionaryStream.getStreamDataOutput(column));
+        }
+        return streams.build();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        long bufferedBytes = presentStream.getBufferedBytes() +
+                lengthStream.getBufferedBytes() +
+                directDataStream.getBufferedBytes() +
+                dictionaryDataStream.getBufferedBytes() +
+                dictionaryStream.getBufferedBytes();
+        if (!directEncoded) {
+            bufferedBytes += dictionaryBytes + ((long) valueCount * SIZE_OF_INT);
+        }
+        return bufferedBytes;
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        presentStream.reset();
+        lengthStream.reset();
+        directDataStream.reset();
+        dictionaryDataStream.reset();
+        dictionaryStream.reset();
+        rowGroupColumnStatistics.clear();
+        clearDictionary();
+        directEncoded = !isVarchar;
+        nonNullValueCount = 0;
+        minimum = null;
+        maximum = null;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.stream.LongOutputStreamV2;
+import com.facebook.presto.orc.stream.PresentOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT_V2;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.SECONDARY;
+import static com.facebook.presto.orc.writer.ColumnStatisticsMerger.mergeColumnStatistics;
+import static com.facebook.presto.orc.writer.ColumnWriters.createRowGroupIndexes;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Writes timestamps as seconds relative to 2015-01-01 in the Hive storage time zone
+ * and the fraction of the second as nanoseconds. This is the counterpart of
+ * {@link com.facebook.presto.orc.reader.TimestampStreamReader}.
+ */
+public class TimestampColumnWriter
+        implements ColumnWriter
+{
+    private static final int MILLIS_PER_SECOND = 1000;
+    private static final int NANOS_PER_MILLI = 1_000_000;
+
+    private final int column;
+    private final Type type;
+    private final long baseTimestampInSeconds;
+    private final PresentOutputStream presentStream;
+    private final LongOutputStreamV2 secondsStream;
+    private final LongOutputStreamV2 nanosStream;
+    private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
+
+    private long nonNullValueCount;
+
+    private boolean closed;
+
+    public TimestampColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, DateTimeZone hiveStorageTimeZone)
+    {
+        checkArgument(column >= 0, "column is negative");
+        this.column = column;
+        this.type = checkNotNull(type, "type is null");
+        this.baseTimestampInSeconds = new DateTime(2015, 1, 1, 0, 0, checkNotNull(hiveStorageTimeZone, "hiveStorageTimeZone is null")).getMillis() / MILLIS_PER_SECOND;
+        this.presentStream = new PresentOutputStream(compression, bufferSize);
+        this.secondsStream = new LongOutputStreamV2(compression, bufferSize, true, DATA);
+        this.nanosStream = new LongOutputStreamV2(compression, bufferSize, false, SECONDARY);
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        presentStream.recordCheckpoint();
+        secondsStream.recordCheckpoint();
+        nanosStream.recordCheckpoint();
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        checkState(!closed, "writer is closed");
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                presentStream.writeBoolean(false);
+                continue;
+            }
+            presentStream.writeBoolean(true);
+
+            long millis = type.getLong(block, position);
+            // seconds are truncated and the fraction is always positive, matching java.sql.Timestamp
+            secondsStream.writeLong((millis / MILLIS_PER_SECOND) - baseTimestampInSeconds);
+            nanosStream.writeLong(encodeNanos(Math.floorMod(millis, MILLIS_PER_SECOND) * NANOS_PER_MILLI));
+            nonNullValueCount++;
+        }
+    }
+
+    // This comes from the Apache Hive ORC code
+    private static long encodeNanos(long nanos)
+    {
+        if (nanos == 0) {
+            return 0;
+        }
+        if (nanos % 100 != 0) {
+            return nanos << 3;
+        }
+
+        // the low three bits store the number of trailing zeros removed, minus one
+        nanos /= 100;
+        int trailingZeros = 1;
+        while (nanos % 10 == 0 && trailingZeros < 7) {
+            nanos /= 10;
+            trailingZeros++;
+        }
+        return (nanos << 3) | trailingZeros;
+    }
+
+    @Override
+    public void finishRowGroup()
+    {
+        checkState(!closed, "writer is closed");
+        rowGroupColumnStatistics.add(new ColumnStatistics(nonNullValueCount, null, null, null, null, null));
+        nonNullValueCount = 0;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        presentStream.close();
+        secondsStream.close();
+        nanosStream.close();
+    }
+
+    @Override
+    public ColumnEncoding getColumnEncoding()
+    {
+        return new ColumnEncoding(DIRECT_V2, 0);
+    }
+
+    @Override
+    public ColumnStatistics getColumnStripeStatistics()
+    {
+        checkState(closed, "writer is not closed");
+        return mergeColumnStatistics(rowGroupColumnStatistics);
+    }
+
+    @Override
+    public List<RowGroupIndex> getRowGroupIndexes()
+    {
+        checkState(closed, "writer is not closed");
+        return createRowGroupIndexes(rowGroupColumnStatistics, presentStream, secondsStream, nanosStream);
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        checkState(closed, "writer is not closed");
+        ImmutableList.Builder<StreamDataOutput> streams = ImmutableList.builder();
+        presentStream.getStreamDataOutput(column).ifPresent(streams::add);
+        streams.add(secondsStream.getStreamDataOutput(column));
+        streams.add(nanosStream.getStreamDataOutput(column));
+        return streams.build();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return presentStream.getBufferedBytes() + secondsStream.getBufferedBytes() + nanosStream.getBufferedBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        presentStream.reset();
+        secondsStream.reset();
+        nanosStream.reset();
+        rowGroupColumnStatistics.clear();
+        nonNullValueCount = 0;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.OrcTester.TempFile;
+import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestOrcFileTailCache
+{
+    private static final DataSize BUFFER_SIZE = new DataSize(1, MEGABYTE);
+
+    @Test
+    public void testCachedTail()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeFile(tempFile.getFile());
+            OrcFileTailCache cache = new OrcFileTailCache(new DataSize(1, MEGABYTE));
+
+            CountingOrcDataSource dataSource = new CountingOrcDataSource(tempFile.getFile());
+            OrcReader reader = cache.createOrcReader(dataSource, new OrcMetadataReader(), "test", 1);
+            assertEquals(dataSource.getReadCount(), 1);
+            assertEquals(reader.getFooter().getNumberOfRows(), 1_000);
+            dataSource.close();
+
+            // a second reader of the same file version does not read the tail
+            dataSource = new CountingOrcDataSource(tempFile.getFile());
+            reader = cache.createOrcReader(dataSource, new OrcMetadataReader(), "test", 1);
+            assertEquals(dataSource.getReadCount(), 0);
+            assertEquals(reader.getFooter().getNumberOfRows(), 1_000);
+            assertEquals(readRowCount(reader), 1_000);
+            assertEquals(cache.getStats().hitCount(), 1);
+            dataSource.close();
+
+            // a new version of the file is read again
+            dataSource = new CountingOrcDataSource(tempFile.getFile());
+            cache.createOrcReader(dataSource, new OrcMetadataReader(), "test", 2);
+            assertEquals(dataSource.getReadCount(), 1);
+            assertEquals(cache.getSize(), 2);
+            dataSource.close();
+        }
+    }
+
+    @Test
+    public void testTailLargerThanCache()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeFile(tempFile.getFile());
+            OrcFileTailCache cache = new OrcFileTailCache(new DataSize(1, BYTE));
+
+            for (int i = 0; i < 2; i++) {
+                CountingOrcDataSource dataSource = new CountingOrcDataSource(tempFile.getFile());
+                OrcReader reader = cache.createOrcReader(dataSource, new OrcMetadataReader(), "test", 1);
+                assertEquals(dataSource.getReadCount(), 1);
+                assertEquals(reader.getFooter().getNumberOfRows(), 1_000);
+                dataSource.close();
+            }
+            assertEquals(cache.getSize(), 0);
+        }
+    }
+
+    @Test
+    public void testWeighedByRetainedSize()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeFile(tempFile.getFile());
+
+            OrcDataSource dataSource = new CountingOrcDataSource(tempFile.getFile());
+            OrcFileTail tail = OrcReader.readFileTail(dataSource, new OrcMetadataReader());
+            dataSource.close();
+            assertTrue(tail.getRetainedSizeInBytes() > tail.getSerializedSize());
+
+            // the compressed tail fits in this cache, but the decoded tail does not
+            OrcFileTailCache cache = new OrcFileTailCache(new DataSize(tail.getSerializedSize() + 1, BYTE));
+            dataSource = new CountingOrcDataSource(tempFile.getFile());
+            cache.createOrcReader(dataSource, new OrcMetadataReader(), "test", 1);
+            dataSource.close();
+            assertEquals(cache.getSize(), 0);
+        }
+    }
+
+    private static long readRowCount(OrcReader reader)
+            throws IOException
+    {
+        OrcRecordReader recordReader = reader.createRecordReader(ImmutableMap.of(0, BIGINT), OrcPredicate.TRUE, HIVE_STORAGE_TIME_ZONE);
+        long rows = 0;
+        while (true) {
+            int batchSize = recordReader.nextBatch();
+            if (batchSize == -1) {
+                break;
+            }
+            rows += batchSize;
+        }
+        recordReader.close();
+        return rows;
+    }
+
+    private static void writeFile(File file)
+            throws IOException
+    {
+        OrcWriter writer = new OrcWriter(
+                new FileOutputStream(file),
+                ImmutableList.of("test"),
+                ImmutableList.of(BIGINT),
+                ZLIB,
+                new DataSize(64, MEGABYTE),
+                100_000,
+                10_000,
+                new DataSize(256, KILOBYTE),
+                HIVE_STORAGE_TIME_ZONE,
+                ImmutableSet.of(),
+                OrcWriter.DEFAULT_BLOOM_FILTER_FPP);
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), 1_000);
+        for (int i = 0; i < 1_000; i++) {
+            BIGINT.writeLong(blockBuilder, i);
+        }
+        writer.write(new Page(blockBuilder.build()));
+        writer.close();
+    }
+
+    private static class CountingOrcDataSource
+            extends FileOrcDataSource
+    {
+        private int readCount;
+
+        public CountingOrcDataSource(File path)
+                throws FileNotFoundException
+        {
+            super(path, BUFFER_SIZE, BUFFER_SIZE, BUFFER_SIZE);
+        }
+
+        @Override
+        protected void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
+                throws IOException
+        {
+            readCount++;
+            super.readInternal(position, buffer, bufferOffset, bufferLength);
+        }
+
+        public int getReadCount()
+        {
+            return readCount;
+        }
+    }
+}
@@ -16,6 +16,9 @@ package com.facebook.presto.orc;
 import com.facebook.presto.orc.OrcTester.TempFile;
 import com.facebook.presto.orc.metadata.IntegerStatistics;
 import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
 import org.apache.hadoop.hive.ql.exec.FileSinkOperator;
 import org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat;
 import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
@@ -30,14 +33,21 @@ import org.testng.annotations.Test;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.orc.OrcTester.Format.ORC_12;
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
 import static com.facebook.presto.orc.OrcTester.createCustomOrcRecordReader;
 import static com.facebook.presto.orc.OrcTester.createOrcRecordWriter;
 import static com.facebook.presto.orc.OrcTester.createSettableStructObjectInspector;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class TestOrcReaderPositions
 {
@@ -160,6 +170,155 @@ public class TestOrcReaderPositions
         }
     }
 
+    @Test
+    public void testReadSelectedPositions()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            int rowCount = 25_000;
+            createSequentialFile(tempFile.getFile(), rowCount);
+
+            OrcRecordReader reader = createCustomOrcRecordReader(tempFile, new OrcMetadataReader(), OrcPredicate.TRUE, BIGINT);
+
+            int batch = 0;
+            long position = 0;
+            while (true) {
+                int batchSize = reader.nextBatch();
+                if (batchSize == -1) {
+                    break;
+                }
+
+                // skip every third batch entirely, and read a run and then every fifth value of the others
+                if (batch % 3 != 2) {
+                    int[] positions = new int[batchSize];
+                    int positionCount = 0;
+                    for (int i = 0; i < batchSize; i++) {
+                        if (i < 10 || i % 5 == 0) {
+                            positions[positionCount] = i;
+                            positionCount++;
+                        }
+                    }
+
+                    LongVector longVector = new LongVector(positionCount);
+                    reader.readVector(0, longVector, positions, positionCount);
+                    for (int i = 0; i < positionCount; i++) {
+                        assertEquals(longVector.vector[i], position + positions[i]);
+                    }
+                }
+
+                batch++;
+                position += batchSize;
+            }
+
+            assertEquals(position, rowCount);
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testStripePrefetch()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            createMultiStripeFile(tempFile.getFile());
+
+            // the direct executor finishes each prefetch before the next batch is read
+            OrcReader orcReader = createOrcReader(tempFile);
+            List<StripeInformation> stripes = orcReader.getFooter().getStripes();
+            assertEquals(stripes.size(), 5);
+            OrcRecordReader reader = createPrefetchRecordReader(orcReader, tempFile, new DataSize(1, MEGABYTE));
+            assertEquals(reader.getSystemMemoryUsage(), 0);
+
+            for (int i = 0; i < 5; i++) {
+                assertEquals(reader.nextBatch(), 20);
+                assertCurrentBatch(reader, i);
+
+                // the streams of the following stripe are held until it is read, which excludes the streams of the root struct
+                if (i < 4) {
+                    StripeInformation nextStripe = stripes.get(i + 1);
+                    assertTrue(reader.getSystemMemoryUsage() > 0);
+                    assertTrue(reader.getSystemMemoryUsage() < nextStripe.getIndexLength() + nextStripe.getDataLength());
+                }
+                else {
+                    assertEquals(reader.getSystemMemoryUsage(), 0);
+                }
+            }
+
+            assertEquals(reader.nextBatch(), -1);
+            assertTrue(reader.getPrefetchReadTimeNanos() > 0);
+            // only the first stripe is read by the caller
+            assertTrue(reader.getReadTimeNanos() > 0);
+            assertTrue(reader.getPrefetchWaitNanos() >= 0);
+            reader.close();
+            assertEquals(reader.getSystemMemoryUsage(), 0);
+        }
+    }
+
+    @Test
+    public void testStripePrefetchLargeStreams()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            createMultiStripeFile(tempFile.getFile());
+
+            // every stream is larger than the buffer size, so the data source only reads the streams when they are used
+            OrcReader orcReader = createOrcReader(tempFile, new DataSize(1, BYTE));
+            OrcRecordReader reader = createPrefetchRecordReader(orcReader, tempFile, new DataSize(1, MEGABYTE));
+            assertEquals(reader.nextBatch(), 20);
+            assertCurrentBatch(reader, 0);
+            long readTimeNanos = reader.getReadTimeNanos();
+            assertTrue(readTimeNanos > 0);
+
+            // the prefetched streams are read fully in the background, so the caller does not read again
+            for (int i = 1; i < 5; i++) {
+                assertEquals(reader.nextBatch(), 20);
+                assertCurrentBatch(reader, i);
+                assertEquals(reader.getReadTimeNanos(), readTimeNanos);
+            }
+            assertEquals(reader.nextBatch(), -1);
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testStripePrefetchReleasedOnClose()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            createMultiStripeFile(tempFile.getFile());
+
+            OrcRecordReader reader = createPrefetchRecordReader(createOrcReader(tempFile), tempFile, new DataSize(1, MEGABYTE));
+            assertEquals(reader.nextBatch(), 20);
+            assertTrue(reader.getSystemMemoryUsage() > 0);
+            reader.close();
+            assertEquals(reader.getSystemMemoryUsage(), 0);
+        }
+    }
+
+    @Test
+    public void testStripePrefetchSizeLimit()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            createMultiStripeFile(tempFile.getFile());
+
+            // the streams of every stripe are larger than the limit, so only the stripe footers are prefetched
+            OrcRecordReader reader = createPrefetchRecordReader(createOrcReader(tempFile), tempFile, new DataSize(1, BYTE));
+            long readTimeNanos = 0;
+            for (int i = 0; i < 5; i++) {
+                assertEquals(reader.nextBatch(), 20);
+                assertCurrentBatch(reader, i);
+                assertEquals(reader.getSystemMemoryUsage(), 0);
+
+                // the streams are read by the caller
+                assertTrue(reader.getReadTimeNanos() > readTimeNanos);
+                readTimeNanos = reader.getReadTimeNanos();
+            }
+            assertEquals(reader.nextBatch(), -1);
+            reader.close();
+        }
+    }
+
     private static void assertCurrentBatch(OrcRecordReader reader, int stripe)
             throws IOException
     {
@@ -170,6 +329,32 @@ public class TestOrcReaderPositions
         }
     }
 
+    private static OrcReader createOrcReader(TempFile tempFile)
+            throws IOException
+    {
+        return createOrcReader(tempFile, new DataSize(1, MEGABYTE));
+    }
+
+    private static OrcReader createOrcReader(TempFile tempFile, DataSize maxBufferSize)
+            throws IOException
+    {
+        DataSize size = new DataSize(1, MEGABYTE);
+        return new OrcReader(new FileOrcDataSource(tempFile.getFile(), size, maxBufferSize, size), new OrcMetadataReader());
+    }
+
+    private static OrcRecordReader createPrefetchRecordReader(OrcReader orcReader, TempFile tempFile, DataSize maxPrefetchStripeSize)
+            throws IOException
+    {
+        return orcReader.createRecordReader(
+                ImmutableMap.of(0, BIGINT),
+                OrcPredicate.TRUE,
+                0,
+                tempFile.getFile().length(),
+                HIVE_STORAGE_TIME_ZONE,
+                Optional.of(directExecutor()),
+                maxPrefetchStripeSize);
+    }
+
     // write 5 stripes of 20 values each: (0,3,6,..,57), (60,..,117), .., (..297)
     private static void createMultiStripeFile(File file)
             throws IOException, ReflectiveOperationException, SerDeException
@@ -0,0 +1,702 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.OrcTester.TempFile;
+import com.facebook.presto.orc.TupleDomainOrcPredicate.ColumnReference;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.IntegerStatistics;
+import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.orc.metadata.StringStatistics;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.FixedLengthSliceInput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.testng.annotations.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIONARY_V2;
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT_V2;
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
+import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.BLOOM_FILTER;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.String.format;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+public class TestOrcWriter
+{
+    private static final int ROW_COUNT = 35_000;
+    private static final List<Type> ALL_TYPES = ImmutableList.of(BOOLEAN, BIGINT, DOUBLE, DATE, TIMESTAMP, VARBINARY, VARCHAR);
+    private static final List<String> ALL_TYPES_NAMES = ImmutableList.of("t_boolean", "t_bigint", "t_double", "t_date", "t_timestamp", "t_varbinary", "t_varchar");
+
+    @Test
+    public void testRoundTrip()
+            throws Exception
+    {
+        for (CompressionKind compression : ImmutableList.of(UNCOMPRESSED, ZLIB, SNAPPY)) {
+            try (TempFile tempFile = new TempFile("test", "orc")) {
+                writeFile(tempFile, compression, 100_000);
+                assertFileContents(tempFile, 1);
+            }
+        }
+    }
+
+    @Test
+    public void testMultipleStripes()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeFile(tempFile, ZLIB, 10_000);
+            assertFileContents(tempFile, 4);
+        }
+    }
+
+    @Test
+    public void testRowGroupSkipping()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeFile(tempFile, SNAPPY, 100_000);
+
+            // only the third row group contains values in this range
+            OrcPredicate predicate = (numberOfRows, statisticsByColumnIndex) -> {
+                if (numberOfRows == ROW_COUNT) {
+                    return true;
+                }
+                IntegerStatistics stats = statisticsByColumnIndex.get(0).getIntegerStatistics();
+                return stats.getMin() <= 25_000 && stats.getMax() >= 25_000;
+            };
+
+            OrcRecordReader reader = createReader(tempFile, predicate);
+            long position = 20_000;
+            while (true) {
+                int batchSize = reader.nextBatch();
+                if (batchSize == -1) {
+                    break;
+                }
+                assertEquals(reader.getFilePosition(), position);
+                position += batchSize;
+            }
+            assertEquals(position, 30_000);
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testBloomFilters()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeFile(tempFile, ZLIB, 100_000, ImmutableSet.of("test", "value"));
+            assertFileContents(tempFile, 1);
+
+            // "value 100" is within the min and max of every row group, but only the bloom filters show it is not present
+            assertEquals(countRows(tempFile, "value", VARCHAR, Domain.singleValue(utf8Slice("value 100"))), 0);
+            assertEquals(countRows(tempFile, "value", VARCHAR, Domain.singleValue(utf8Slice("value 42"))), ROW_COUNT);
+            assertEquals(countRows(tempFile, "test", BIGINT, Domain.singleValue(25_000L)), 10_000);
+            assertEquals(countRows(tempFile, "test", BIGINT, Domain.create(SortedRangeSet.of(Range.equal(5L), Range.equal(25_000L)), false)), 20_000);
+        }
+    }
+
+    @Test
+    public void testBloomFiltersOnlyReadWhenUsed()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeFile(tempFile, ZLIB, 100_000, ImmutableSet.of("test", "value"));
+
+            assertEquals(readBloomFilterColumns(tempFile, OrcPredicate.TRUE), ImmutableSet.of());
+            assertEquals(readBloomFilterColumns(tempFile, createPredicate("value", VARCHAR, Domain.singleValue(utf8Slice("value 42")))), ImmutableSet.of(2));
+            assertEquals(readBloomFilterColumns(tempFile, createPredicate("test", BIGINT, Domain.singleValue(25_000L))), ImmutableSet.of(1));
+            assertEquals(readBloomFilterColumns(tempFile, createPredicate("test", BIGINT, Domain.create(SortedRangeSet.of(Range.range(5L, true, 25_000L, true)), false))), ImmutableSet.of());
+        }
+    }
+
+    @Test
+    public void testAllTypesRoundTrip()
+            throws Exception
+    {
+        List<List<Object>> rows = createAllTypesRows(ROW_COUNT);
+        for (CompressionKind compression : ImmutableList.of(UNCOMPRESSED, ZLIB, SNAPPY)) {
+            try (TempFile tempFile = new TempFile("test", "orc")) {
+                writeRows(tempFile, compression, ALL_TYPES_NAMES, ALL_TYPES, rows, 10_000, 10_000);
+
+                OrcReader orcReader = createOrcReader(tempFile);
+                assertEquals(orcReader.getColumnNames(), ALL_TYPES_NAMES);
+                assertEquals(orcReader.getFooter().getStripes().size(), 4);
+
+                assertPrestoFileContents(tempFile, ALL_TYPES, rows);
+                assertHiveFileContents(tempFile, ALL_TYPES, rows);
+            }
+        }
+    }
+
+    @Test
+    public void testLongEncodings()
+            throws Exception
+    {
+        // runs of each of the patterns the RLE v2 encoder handles differently
+        Random random = new Random(1234);
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            long value;
+            switch ((i / 1_000) % 7) {
+                case 0:
+                    // short repeat
+                    value = (i / 5) * -3L;
+                    break;
+                case 1:
+                    // delta
+                    value = -ROW_COUNT + i * 7L;
+                    break;
+                case 2:
+                    // direct with small negative values
+                    value = random.nextInt(2_000) - 1_000;
+                    break;
+                case 3:
+                    // direct with full width random values
+                    value = random.nextLong();
+                    break;
+                case 4:
+                    // mostly small values with rare large outliers
+                    value = (i % 97 == 0) ? Long.MIN_VALUE + i : random.nextInt(100);
+                    break;
+                case 5:
+                    value = (i % 2 == 0) ? Long.MAX_VALUE : Long.MIN_VALUE;
+                    break;
+                default:
+                    value = -random.nextInt(Integer.MAX_VALUE) * 1_000_003L;
+                    break;
+            }
+            rows.add(Arrays.asList((i % 31 == 0) ? null : value));
+        }
+
+        List<Type> types = ImmutableList.of(BIGINT);
+        for (CompressionKind compression : ImmutableList.of(UNCOMPRESSED, ZLIB)) {
+            try (TempFile tempFile = new TempFile("test", "orc")) {
+                writeRows(tempFile, compression, ImmutableList.of("test"), types, rows, 10_000, 20_000);
+                assertPrestoFileContents(tempFile, types, rows);
+                assertHiveFileContents(tempFile, types, rows);
+            }
+        }
+    }
+
+    @Test
+    public void testDictionaryFallback()
+            throws Exception
+    {
+        // stripe 0 has few distinct values, stripe 1 gives up on the dictionary after the first
+        // row group, and stripe 2 only has too many distinct values when the stripe is closed
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 30_000; i++) {
+            String value;
+            if (i < 10_000 || (i >= 20_000 && i < 21_000)) {
+                value = "value " + (i % 100);
+            }
+            else {
+                value = "unique " + i;
+            }
+            rows.add(Arrays.asList((long) i, (i % 7 == 0) ? null : utf8Slice(value)));
+        }
+
+        List<Type> types = ImmutableList.of(BIGINT, VARCHAR);
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeRows(tempFile, ZLIB, ImmutableList.of("test", "value"), types, rows, 1_000, 10_000);
+
+            OrcReader orcReader = createOrcReader(tempFile);
+            List<StripeInformation> stripes = orcReader.getFooter().getStripes();
+            assertEquals(stripes.size(), 3);
+            StripeReader stripeReader = new StripeReader(
+                    createOrcDataSource(tempFile),
+                    orcReader.getCompressionKind(),
+                    orcReader.getFooter().getTypes(),
+                    orcReader.getBufferSize(),
+                    ImmutableSet.of(2),
+                    orcReader.getFooter().getRowsInRowGroup(),
+                    OrcPredicate.TRUE,
+                    new OrcMetadataReader());
+            assertEquals(stripeReader.readStripeFooter(stripes.get(0)).getColumnEncodings().get(2).getColumnEncodingKind(), DICTIONARY_V2);
+            assertEquals(stripeReader.readStripeFooter(stripes.get(1)).getColumnEncodings().get(2).getColumnEncodingKind(), DIRECT_V2);
+            assertEquals(stripeReader.readStripeFooter(stripes.get(2)).getColumnEncodings().get(2).getColumnEncodingKind(), DIRECT_V2);
+
+            assertPrestoFileContents(tempFile, types, rows);
+            assertHiveFileContents(tempFile, types, rows);
+
+            // the row group positions of values converted to the direct encoding are valid
+            OrcPredicate predicate = (numberOfRows, statisticsByColumnIndex) -> {
+                IntegerStatistics stats = statisticsByColumnIndex.get(0).getIntegerStatistics();
+                return stats.getMin() <= 22_500 && stats.getMax() >= 22_500;
+            };
+            OrcRecordReader reader = orcReader.createRecordReader(ImmutableMap.of(0, BIGINT, 1, VARCHAR), predicate, HIVE_STORAGE_TIME_ZONE);
+            int batchSize = reader.nextBatch();
+            assertEquals(batchSize, 1_000);
+            assertEquals(reader.getFilePosition(), 22_000);
+            SliceVector sliceVector = new SliceVector(batchSize);
+            reader.readVector(1, sliceVector);
+            for (int i = 0; i < batchSize; i++) {
+                assertEquals(sliceVector.vector[i], rows.get(22_000 + i).get(1));
+            }
+            assertEquals(reader.nextBatch(), -1);
+            reader.close();
+        }
+    }
+
+    private static Set<Integer> readBloomFilterColumns(TempFile tempFile, OrcPredicate predicate)
+            throws IOException
+    {
+        OrcReader orcReader = createOrcReader(tempFile);
+        Set<Integer> columns = new HashSet<>();
+        OrcDataSource dataSource = new ForwardingOrcDataSource(createOrcDataSource(tempFile))
+        {
+            @Override
+            public <K> Map<K, FixedLengthSliceInput> readFully(Map<K, DiskRange> diskRanges)
+                    throws IOException
+            {
+                for (K key : diskRanges.keySet()) {
+                    StreamId streamId = (StreamId) key;
+                    if (streamId.getStreamKind() == BLOOM_FILTER) {
+                        columns.add(streamId.getColumn());
+                    }
+                }
+                return super.readFully(diskRanges);
+            }
+        };
+        StripeReader stripeReader = new StripeReader(
+                dataSource,
+                orcReader.getCompressionKind(),
+                orcReader.getFooter().getTypes(),
+                orcReader.getBufferSize(),
+                ImmutableSet.of(0, 1),
+                orcReader.getFooter().getRowsInRowGroup(),
+                predicate,
+                new OrcMetadataReader());
+        for (StripeInformation stripe : orcReader.getFooter().getStripes()) {
+            stripeReader.readStripe(stripe);
+        }
+        return columns;
+    }
+
+    private static long countRows(TempFile tempFile, String column, Type type, Domain domain)
+            throws IOException
+    {
+        OrcRecordReader reader = createReader(tempFile, createPredicate(column, type, domain));
+        long rows = 0;
+        while (true) {
+            int batchSize = reader.nextBatch();
+            if (batchSize == -1) {
+                break;
+            }
+            rows += batchSize;
+        }
+        reader.close();
+        return rows;
+    }
+
+    private static OrcPredicate createPredicate(String column, Type type, Domain domain)
+    {
+        int ordinal = column.equals("test") ? 0 : 1;
+        return new TupleDomainOrcPredicate<>(
+                TupleDomain.withColumnDomains(ImmutableMap.of(column, domain)),
+                ImmutableList.of(new ColumnReference<>(column, ordinal, type)));
+    }
+
+    private static void writeFile(TempFile tempFile, CompressionKind compression, int stripeMaxRowCount)
+            throws IOException
+    {
+        writeFile(tempFile, compression, stripeMaxRowCount, ImmutableSet.of());
+    }
+
+    private static void writeFile(TempFile tempFile, CompressionKind compression, int stripeMaxRowCount, Set<String> bloomFilterColumns)
+            throws IOException
+    {
+        List<Type> types = ImmutableList.of(BIGINT, VARCHAR);
+        OrcWriter writer = new OrcWriter(
+                new FileOutputStream(tempFile.getFile()),
+                ImmutableList.of("test", "value"),
+                types,
+                compression,
+                new DataSize(64, MEGABYTE),
+                stripeMaxRowCount,
+                10_000,
+                new DataSize(256, KILOBYTE),
+                HIVE_STORAGE_TIME_ZONE,
+                bloomFilterColumns,
+                OrcWriter.DEFAULT_BLOOM_FILTER_FPP);
+
+        // use pages that do not line up with the row groups
+        for (int start = 0; start < ROW_COUNT; start += 3_000) {
+            int end = Math.min(start + 3_000, ROW_COUNT);
+            BlockBuilder longBlock = BIGINT.createBlockBuilder(new BlockBuilderStatus(), end - start);
+            BlockBuilder sliceBlock = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), end - start);
+            for (int i = start; i < end; i++) {
+                BIGINT.writeLong(longBlock, i);
+                if (i % 7 == 0) {
+                    sliceBlock.appendNull();
+                }
+                else {
+                    VARCHAR.writeSlice(sliceBlock, utf8Slice("value " + (i % 100)));
+                }
+            }
+            writer.write(new Page(longBlock.build(), sliceBlock.build()));
+        }
+        writer.close();
+    }
+
+    private static List<List<Object>> createAllTypesRows(int rowCount)
+    {
+        Random random = new Random(42);
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            byte[] binary = new byte[random.nextInt(20)];
+            random.nextBytes(binary);
+
+            double doubleValue;
+            if (i % 1_001 == 1) {
+                doubleValue = Double.NaN;
+            }
+            else if (i % 1_001 == 2) {
+                doubleValue = Double.NEGATIVE_INFINITY;
+            }
+            else {
+                doubleValue = random.nextDouble() * 1_000_000 - 500_000;
+            }
+
+            rows.add(Arrays.asList(
+                    (i % 11 == 0) ? null : (i % 3 == 0),
+                    (i % 13 == 0) ? null : ((i % 2 == 0) ? i - (long) rowCount : random.nextLong()),
+                    (i % 17 == 0) ? null : doubleValue,
+                    (i % 19 == 0) ? null : (long) i - 20_000,
+                    // timestamps between 1938 and 2074 with a fraction of a second
+                    (i % 23 == 0) ? null : i * 123_456_789L - 1_000_000_000_000L,
+                    (i % 29 == 0) ? null : Slices.wrappedBuffer(binary),
+                    (i % 7 == 0) ? null : utf8Slice("value " + (i % 100))));
+        }
+        return rows;
+    }
+
+    private static void writeRows(TempFile tempFile, CompressionKind compression, List<String> columnNames, List<Type> types, List<List<Object>> rows, int rowGroupMaxRowCount, int stripeMaxRowCount)
+            throws IOException
+    {
+        OrcWriter writer = new OrcWriter(
+                new FileOutputStream(tempFile.getFile()),
+                columnNames,
+                types,
+                compression,
+                new DataSize(64, MEGABYTE),
+                stripeMaxRowCount,
+                rowGroupMaxRowCount,
+                new DataSize(256, KILOBYTE),
+                HIVE_STORAGE_TIME_ZONE,
+                ImmutableSet.of(),
+                OrcWriter.DEFAULT_BLOOM_FILTER_FPP);
+
+        // use pages that do not line up with the row groups
+        for (int start = 0; start < rows.size(); start += 3_000) {
+            int end = Math.min(start + 3_000, rows.size());
+            PageBuilder pageBuilder = new PageBuilder(types);
+            for (List<Object> row : rows.subList(start, end)) {
+                pageBuilder.declarePosition();
+                for (int channel = 0; channel < types.size(); channel++) {
+                    writeValue(types.get(channel), pageBuilder.getBlockBuilder(channel), row.get(channel));
+                }
+            }
+            writer.write(pageBuilder.build());
+        }
+        writer.close();
+    }
+
+    private static void writeValue(Type type, BlockBuilder blockBuilder, Object value)
+    {
+        if (value == null) {
+            blockBuilder.appendNull();
+        }
+        else if (type.getJavaType() == boolean.class) {
+            type.writeBoolean(blockBuilder, (Boolean) value);
+        }
+        else if (type.getJavaType() == long.class) {
+            type.writeLong(blockBuilder, (Long) value);
+        }
+        else if (type.getJavaType() == double.class) {
+            type.writeDouble(blockBuilder, (Double) value);
+        }
+        else {
+            type.writeSlice(blockBuilder, (Slice) value);
+        }
+    }
+
+    private static void assertPrestoFileContents(TempFile tempFile, List<Type> types, List<List<Object>> rows)
+            throws IOException
+    {
+        ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
+        for (int column = 0; column < types.size(); column++) {
+            includedColumns.put(column, types.get(column));
+        }
+        OrcRecordReader reader = createOrcReader(tempFile).createRecordReader(includedColumns.build(), OrcPredicate.TRUE, HIVE_STORAGE_TIME_ZONE);
+
+        int position = 0;
+        while (true) {
+            int batchSize = reader.nextBatch();
+            if (batchSize == -1) {
+                break;
+            }
+
+            for (int column = 0; column < types.size(); column++) {
+                List<Object> values = readValues(reader, column, types.get(column), batchSize);
+                for (int i = 0; i < batchSize; i++) {
+                    assertEquals(values.get(i), rows.get(position + i).get(column), format("column %s, row %s", column, position + i));
+                }
+            }
+            position += batchSize;
+        }
+        assertEquals(position, rows.size());
+        reader.close();
+    }
+
+    private static List<Object> readValues(OrcRecordReader reader, int column, Type type, int batchSize)
+            throws IOException
+    {
+        List<Object> values = new ArrayList<>(batchSize);
+        if (type.getJavaType() == boolean.class) {
+            BooleanVector vector = new BooleanVector(batchSize);
+            reader.readVector(column, vector);
+            for (int i = 0; i < batchSize; i++) {
+                values.add(vector.isNull[i] ? null : vector.vector[i]);
+            }
+        }
+        else if (type.getJavaType() == long.class) {
+            LongVector vector = new LongVector(batchSize);
+            reader.readVector(column, vector);
+            for (int i = 0; i < batchSize; i++) {
+                values.add(vector.isNull[i] ? null : vector.vector[i]);
+            }
+        }
+        else if (type.getJavaType() == double.class) {
+            DoubleVector vector = new DoubleVector(batchSize);
+            reader.readVector(column, vector);
+            for (int i = 0; i < batchSize; i++) {
+                values.add(vector.isNull[i] ? null : vector.vector[i]);
+            }
+        }
+        else {
+            SliceVector vector = new SliceVector(batchSize);
+            reader.readVector(column, vector);
+            values.addAll(Arrays.asList(vector.vector).subList(0, batchSize));
+        }
+        return values;
+    }
+
+    private static void assertHiveFileContents(TempFile tempFile, List<Type> types, List<List<Object>> rows)
+            throws IOException
+    {
+        Reader reader = OrcFile.createReader(new Path(tempFile.getFile().toURI()), OrcFile.readerOptions(new Configuration()));
+        StructObjectInspector rowInspector = (StructObjectInspector) reader.getObjectInspector();
+        List<? extends StructField> fields = rowInspector.getAllStructFieldRefs();
+        assertEquals(fields.size(), types.size());
+
+        RecordReader recordReader = reader.rows();
+        Object row = null;
+        int position = 0;
+        while (recordReader.hasNext()) {
+            row = recordReader.next(row);
+            for (int column = 0; column < types.size(); column++) {
+                StructField field = fields.get(column);
+                Object value = rowInspector.getStructFieldData(row, field);
+                Object actual = (value == null) ? null : toPrestoValue(types.get(column), (PrimitiveObjectInspector) field.getFieldObjectInspector(), value);
+                assertEquals(actual, rows.get(position).get(column), format("column %s, row %s", column, position));
+            }
+            position++;
+        }
+        assertEquals(position, rows.size());
+        recordReader.close();
+    }
+
+    private static Object toPrestoValue(Type type, PrimitiveObjectInspector inspector, Object value)
+    {
+        if (type.equals(DATE)) {
+            return (long) ((DateWritable) inspector.getPrimitiveWritableObject(value)).getDays();
+        }
+        if (type.equals(TIMESTAMP)) {
+            // the Hive storage time zone of the tests is also the JVM time zone used by Hive
+            return ((Timestamp) inspector.getPrimitiveJavaObject(value)).getTime();
+        }
+        if (type.equals(VARBINARY)) {
+            return Slices.wrappedBuffer((byte[]) inspector.getPrimitiveJavaObject(value));
+        }
+        if (type.equals(VARCHAR)) {
+            return utf8Slice((String) inspector.getPrimitiveJavaObject(value));
+        }
+        return inspector.getPrimitiveJavaObject(value);
+    }
+
+    private static void assertFileContents(TempFile tempFile, int stripeCount)
+            throws IOException
+    {
+        OrcReader orcReader = createOrcReader(tempFile);
+        assertEquals(orcReader.getColumnNames(), ImmutableList.of("test", "value"));
+        assertEquals(orcReader.getFooter().getNumberOfRows(), ROW_COUNT);
+        assertEquals(orcReader.getFooter().getStripes().size(), stripeCount);
+
+        IntegerStatistics integerStatistics = orcReader.getFooter().getFileStats().get(1).getIntegerStatistics();
+        assertEquals(integerStatistics.getMin().longValue(), 0);
+        assertEquals(integerStatistics.getMax().longValue(), ROW_COUNT - 1);
+        StringStatistics stringStatistics = orcReader.getFooter().getFileStats().get(2).getStringStatistics();
+        assertEquals(stringStatistics.getMin(), utf8Slice("value 0"));
+        assertEquals(stringStatistics.getMax(), utf8Slice("value 99"));
+
+        OrcRecordReader reader = createReader(tempFile, OrcPredicate.TRUE);
+        long position = 0;
+        while (true) {
+            int batchSize = reader.nextBatch();
+            if (batchSize == -1) {
+                break;
+            }
+
+            LongVector longVector = new LongVector(batchSize);
+            reader.readVector(0, longVector);
+            SliceVector sliceVector = new SliceVector(batchSize);
+            reader.readVector(1, sliceVector);
+            for (int i = 0; i < batchSize; i++) {
+                long value = position + i;
+                assertFalse(longVector.isNull[i]);
+                assertEquals(longVector.vector[i], value);
+                if (value % 7 == 0) {
+                    assertNull(sliceVector.vector[i]);
+                }
+                else {
+                    assertEquals(sliceVector.vector[i], utf8Slice("value " + (value % 100)));
+                }
+            }
+            position += batchSize;
+        }
+        assertEquals(position, ROW_COUNT);
+        assertEquals(reader.getFilePosition(), ROW_COUNT);
+        reader.close();
+    }
+
+    private static OrcRecordReader createReader(TempFile tempFile, OrcPredicate predicate)
+            throws IOException
+    {
+        return createOrcReader(tempFile).createRecordReader(ImmutableMap.of(0, BIGINT, 1, VARCHAR), predicate, HIVE_STORAGE_TIME_ZONE);
+    }
+
+    private static OrcReader createOrcReader(TempFile tempFile)
+            throws IOException
+    {
+        return new OrcReader(createOrcDataSource(tempFile), new OrcMetadataReader());
+    }
+
+    private static OrcDataSource createOrcDataSource(TempFile tempFile)
+            throws IOException
+    {
+        DataSize size = new DataSize(1, MEGABYTE);
+        return new FileOrcDataSource(tempFile.getFile(), size, size, size);
+    }
+
+    private static class ForwardingOrcDataSource
+            implements OrcDataSource
+    {
+        private final OrcDataSource delegate;
+
+        public ForwardingOrcDataSource(OrcDataSource delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long getReadTimeNanos()
+        {
+            return delegate.getReadTimeNanos();
+        }
+
+        @Override
+        public long getSize()
+        {
+            return delegate.getSize();
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer)
+                throws IOException
+        {
+            delegate.readFully(position, buffer);
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+                throws IOException
+        {
+            delegate.readFully(position, buffer, bufferOffset, bufferLength);
+        }
+
+        @Override
+        public <K> Map<K, FixedLengthSliceInput> readFully(Map<K, DiskRange> diskRanges)
+                throws IOException
+        {
+            return delegate.readFully(diskRanges);
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            delegate.close();
+        }
+    }
+}
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.orc;
 
+import com.facebook.presto.orc.TupleDomainOrcPredicate.ColumnReference;
 import com.facebook.presto.orc.metadata.BooleanStatistics;
 import com.facebook.presto.orc.metadata.ColumnStatistics;
 import com.facebook.presto.orc.metadata.DateStatistics;
@@ -22,9 +23,14 @@ import com.facebook.presto.orc.metadata.StringStatistics;
 import com.facebook.presto.spi.Domain;
 import com.facebook.presto.spi.Range;
 import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.Slice;
 import org.testng.annotations.Test;
 
+import java.util.List;
+
 import static com.facebook.presto.orc.TupleDomainOrcPredicate.getDomain;
 import static com.facebook.presto.orc.metadata.OrcMetadataReader.getMaxSlice;
 import static com.facebook.presto.orc.metadata.OrcMetadataReader.getMinSlice;
@@ -44,6 +50,8 @@ import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static io.airlift.slice.Slices.utf8Slice;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestTupleDomainOrcPredicate
 {
@@ -194,6 +202,32 @@ public class TestTupleDomainOrcPredicate
         assertEquals(getDomain(DATE, 10, dateColumnStats(5L, 0, null)), create(SortedRangeSet.of(greaterThanOrEqual(0L)), true));
     }
 
+    @Test
+    public void testUsesBloomFilter()
+            throws Exception
+    {
+        List<ColumnReference<String>> columns = ImmutableList.of(
+                new ColumnReference<>("bigint", 0, BIGINT),
+                new ColumnReference<>("varchar", 1, VARCHAR),
+                new ColumnReference<>("boolean", 2, BOOLEAN));
+
+        TupleDomainOrcPredicate<String> predicate = new TupleDomainOrcPredicate<>(TupleDomain.withColumnDomains(ImmutableMap.of(
+                "bigint", create(SortedRangeSet.of(Range.equal(1L), Range.equal(5L)), false),
+                "varchar", create(SortedRangeSet.of(range(utf8Slice("a"), true, utf8Slice("b"), true)), false),
+                "boolean", singleValue(true))), columns);
+        assertTrue(predicate.usesBloomFilter(0));
+        // a range of values can not be checked against a bloom filter
+        assertFalse(predicate.usesBloomFilter(1));
+        // booleans have no bloom filter support
+        assertFalse(predicate.usesBloomFilter(2));
+        // not a column of the predicate
+        assertFalse(predicate.usesBloomFilter(3));
+
+        assertFalse(new TupleDomainOrcPredicate<>(TupleDomain.withColumnDomains(ImmutableMap.of("bigint", onlyNull(Long.class))), columns).usesBloomFilter(0));
+        assertFalse(new TupleDomainOrcPredicate<>(TupleDomain.<String>none(), columns).usesBloomFilter(0));
+        assertFalse(OrcPredicate.TRUE.usesBloomFilter(0));
+    }
+
     private static ColumnStatistics dateColumnStats(Long numberOfValues, Integer minimum, Integer maximum)
     {
         return new ColumnStatistics(numberOfValues, null, null, null, null, new DateStatistics(minimum, maximum));
@@ -0,0 +1,267 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.metadata;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestBloomFilter
+{
+    @Test
+    public void testMembership()
+    {
+        BloomFilter bloomFilter = new BloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i += 2) {
+            bloomFilter.addLong(i);
+            bloomFilter.addDouble(i + 0.5);
+            bloomFilter.addSlice(utf8Slice("value " + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 1_000; i++) {
+            boolean added = i % 2 == 0;
+            if (added) {
+                assertTrue(bloomFilter.testLong(i));
+                assertTrue(bloomFilter.testDouble(i + 0.5));
+                assertTrue(bloomFilter.testSlice(utf8Slice("value " + i)));
+            }
+            else if (bloomFilter.testLong(i) || bloomFilter.testDouble(i + 0.5) || bloomFilter.testSlice(utf8Slice("value " + i))) {
+                falsePositives++;
+            }
+        }
+        // with three value types in the filter the effective rate is higher than requested
+        assertTrue(falsePositives < 50, "too many false positives: " + falsePositives);
+    }
+
+    @Test
+    public void testRoundTrip()
+            throws IOException
+    {
+        BloomFilter first = new BloomFilter(100, 0.05);
+        first.addLong(42);
+        BloomFilter second = new BloomFilter(100, 0.05);
+        second.addSlice(utf8Slice("apple"));
+
+        DynamicSliceOutput output = new DynamicSliceOutput(1024);
+        new OrcMetadataWriter().writeBloomFilters(output, ImmutableList.of(first, second));
+        Slice data = output.slice();
+
+        List<BloomFilter> bloomFilters = new OrcMetadataReader().readBloomFilterIndexes(data.getInput());
+        assertEquals(bloomFilters.size(), 2);
+        assertEquals(bloomFilters.get(0).getNumHashFunctions(), first.getNumHashFunctions());
+        assertTrue(Arrays.equals(bloomFilters.get(0).getBitSet(), first.getBitSet()));
+        assertTrue(bloomFilters.get(0).testLong(42));
+        assertTrue(bloomFilters.get(1).testSlice(utf8Slice("apple")));
+    }
+
+    @Test
+    public void testHiveCompatibility()
+    {
+        // the filter sizes depend on the expected entries and fpp the same way in both implementations
+        for (int expectedEntries : new int[] {1, 63, 64, 1_000, 10_000}) {
+            for (double fpp : new double[] {0.01, 0.05, 0.5}) {
+                BloomFilter bloomFilter = new BloomFilter(expectedEntries, fpp);
+                HiveBloomFilter hiveBloomFilter = new HiveBloomFilter(expectedEntries, fpp);
+                assertEquals(bloomFilter.getNumHashFunctions(), hiveBloomFilter.numHashFunctions);
+                assertTrue(Arrays.equals(bloomFilter.getBitSet(), hiveBloomFilter.bitSet));
+            }
+        }
+
+        long[] longs = {0, 1, -1, 42, -42, 1L << 31, 1L << 32, Integer.MIN_VALUE, Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE};
+        for (long value : longs) {
+            BloomFilter bloomFilter = new BloomFilter(100, 0.05);
+            HiveBloomFilter hiveBloomFilter = new HiveBloomFilter(100, 0.05);
+            bloomFilter.addLong(value);
+            hiveBloomFilter.addLong(value);
+            assertTrue(Arrays.equals(bloomFilter.getBitSet(), hiveBloomFilter.bitSet), "bigint " + value);
+        }
+
+        double[] doubles = {0.0, -0.0, 1.5, -1.5, Double.MIN_VALUE, Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN};
+        for (double value : doubles) {
+            BloomFilter bloomFilter = new BloomFilter(100, 0.05);
+            HiveBloomFilter hiveBloomFilter = new HiveBloomFilter(100, 0.05);
+            bloomFilter.addDouble(value);
+            hiveBloomFilter.addDouble(value);
+            assertTrue(Arrays.equals(bloomFilter.getBitSet(), hiveBloomFilter.bitSet), "double " + value);
+        }
+
+        // every length up to a few 8 byte blocks, so all tail sizes of the hash are covered
+        StringBuilder value = new StringBuilder();
+        for (int length = 0; length <= 40; length++) {
+            assertSameStringHash(value.toString());
+            value.append((char) ('a' + length % 26));
+        }
+        assertSameStringHash("\u00e9t\u00e9");
+        assertSameStringHash("\u7a7a\u6c17\u306e\u5473");
+        assertSameStringHash("\ud83d\ude00 multi byte");
+    }
+
+    private static void assertSameStringHash(String value)
+    {
+        BloomFilter bloomFilter = new BloomFilter(100, 0.05);
+        HiveBloomFilter hiveBloomFilter = new HiveBloomFilter(100, 0.05);
+        bloomFilter.addSlice(utf8Slice(value));
+        hiveBloomFilter.addBytes(value.getBytes(UTF_8));
+        assertTrue(Arrays.equals(bloomFilter.getBitSet(), hiveBloomFilter.bitSet), "varchar " + value);
+    }
+
+    /**
+     * The bloom filter of the Hive ORC writer (org.apache.hive.common.util.BloomFilter and Murmur3
+     * in Hive 1.2), which is newer than the Hive version on the class path.  It is kept in its
+     * original byte oriented form, so it checks the Slice based hashing of {@link BloomFilter}.
+     */
+    private static class HiveBloomFilter
+    {
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+        private static final int R1 = 31;
+        private static final int R2 = 27;
+        private static final int M = 5;
+        private static final int N1 = 0x52dce729;
+        private static final int DEFAULT_SEED = 104729;
+
+        private final long[] bitSet;
+        private final int numBits;
+        private final int numHashFunctions;
+
+        public HiveBloomFilter(long expectedEntries, double fpp)
+        {
+            int nb = (int) (-expectedEntries * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            // make 'm' multiple of 64
+            this.numBits = nb + (Long.SIZE - (nb % Long.SIZE));
+            this.numHashFunctions = Math.max(1, (int) Math.round((double) numBits / expectedEntries * Math.log(2)));
+            this.bitSet = new long[numBits / Long.SIZE];
+        }
+
+        public void addBytes(byte[] value)
+        {
+            addHash(hash64(value, 0, value.length, DEFAULT_SEED));
+        }
+
+        public void addLong(long value)
+        {
+            addHash(getLongHash(value));
+        }
+
+        public void addDouble(double value)
+        {
+            addLong(Double.doubleToLongBits(value));
+        }
+
+        private void addHash(long hash64)
+        {
+            int hash1 = (int) hash64;
+            int hash2 = (int) (hash64 >>> 32);
+
+            for (int i = 1; i <= numHashFunctions; i++) {
+                int combinedHash = hash1 + (i * hash2);
+                // hashcode should be positive, flip all the bits if it's negative
+                if (combinedHash < 0) {
+                    combinedHash = ~combinedHash;
+                }
+                int pos = combinedHash % numBits;
+                bitSet[pos >>> 6] |= (1L << pos);
+            }
+        }
+
+        private static long getLongHash(long key)
+        {
+            key = (~key) + (key << 21); // key = (key << 21) - key - 1;
+            key = key ^ (key >> 24);
+            key = (key + (key << 3)) + (key << 8); // key * 265
+            key = key ^ (key >> 14);
+            key = (key + (key << 2)) + (key << 4); // key * 21
+            key = key ^ (key >> 28);
+            key = key + (key << 31);
+            return key;
+        }
+
+        private static long hash64(byte[] data, int offset, int length, int seed)
+        {
+            long hash = seed;
+            final int nblocks = length >> 3;
+
+            // body
+            for (int i = 0; i < nblocks; i++) {
+                final int i8 = i << 3;
+                long k = ((long) data[offset + i8] & 0xff)
+                        | (((long) data[offset + i8 + 1] & 0xff) << 8)
+                        | (((long) data[offset + i8 + 2] & 0xff) << 16)
+                        | (((long) data[offset + i8 + 3] & 0xff) << 24)
+                        | (((long) data[offset + i8 + 4] & 0xff) << 32)
+                        | (((long) data[offset + i8 + 5] & 0xff) << 40)
+                        | (((long) data[offset + i8 + 6] & 0xff) << 48)
+                        | (((long) data[offset + i8 + 7] & 0xff) << 56);
+
+                // mix functions
+                k *= C1;
+                k = Long.rotateLeft(k, R1);
+                k *= C2;
+                hash ^= k;
+                hash = Long.rotateLeft(hash, R2) * M + N1;
+            }
+
+            // tail
+            long k1 = 0;
+            int tailStart = nblocks << 3;
+            switch (length - tailStart) {
+                case 7:
+                    k1 ^= ((long) data[offset + tailStart + 6] & 0xff) << 48;
+                case 6:
+                    k1 ^= ((long) data[offset + tailStart + 5] & 0xff) << 40;
+                case 5:
+                    k1 ^= ((long) data[offset + tailStart + 4] & 0xff) << 32;
+                case 4:
+                    k1 ^= ((long) data[offset + tailStart + 3] & 0xff) << 24;
+                case 3:
+                    k1 ^= ((long) data[offset + tailStart + 2] & 0xff) << 16;
+                case 2:
+                    k1 ^= ((long) data[offset + tailStart + 1] & 0xff) << 8;
+                case 1:
+                    k1 ^= ((long) data[offset + tailStart] & 0xff);
+                    k1 *= C1;
+                    k1 = Long.rotateLeft(k1, R1);
+                    k1 *= C2;
+                    hash ^= k1;
+            }
+
+            // finalization
+            hash ^= length;
+            hash = fmix64(hash);
+
+            return hash;
+        }
+
+        private static long fmix64(long h)
+        {
+            h ^= (h >>> 33);
+            h *= 0xff51afd7ed558ccdL;
+            h ^= (h >>> 33);
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= (h >>> 33);
+            return h;
+        }
+    }
+}
@@ -13,10 +13,22 @@
  */
 package com.facebook.presto.orc.metadata;
 
+import com.facebook.presto.hive.protobuf.ByteString;
+import com.facebook.presto.hive.protobuf.CodedOutputStream;
+import com.facebook.presto.hive.protobuf.UnknownFieldSet;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
+import org.apache.hadoop.hive.ql.io.orc.OrcProto;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.hive.protobuf.WireFormat.WIRETYPE_LENGTH_DELIMITED;
 import static com.facebook.presto.orc.metadata.OrcMetadataReader.concatSlices;
 import static com.facebook.presto.orc.metadata.OrcMetadataReader.firstSurrogateCharacter;
 import static com.facebook.presto.orc.metadata.OrcMetadataReader.getMaxSlice;
@@ -24,6 +36,8 @@ import static com.facebook.presto.orc.metadata.OrcMetadataReader.getMinSlice;
 import static java.lang.Character.MAX_CODE_POINT;
 import static java.lang.Character.MIN_CODE_POINT;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestOrcMetadataReader
 {
@@ -89,4 +103,124 @@ public class TestOrcMetadataReader
             }
         }
     }
+
+    @Test
+    public void testReadBloomFilterStreams()
+            throws IOException
+    {
+        // newer writers add the bloom filter stream kinds, which the protocol buffer definition used here does not know
+        OrcProto.StripeFooter stripeFooter = OrcProto.StripeFooter.newBuilder()
+                .addStreams(OrcProto.Stream.newBuilder().setColumn(1).setKind(OrcProto.Stream.Kind.ROW_INDEX).setLength(10))
+                .addStreams(bloomFilterStream(1, 7, 20))
+                .addStreams(bloomFilterStream(1, 8, 30))
+                .addStreams(OrcProto.Stream.newBuilder().setColumn(1).setKind(OrcProto.Stream.Kind.DATA).setLength(40))
+                .addColumns(OrcProto.ColumnEncoding.newBuilder().setKind(OrcProto.ColumnEncoding.Kind.DIRECT))
+                .addColumns(OrcProto.ColumnEncoding.newBuilder().setKind(OrcProto.ColumnEncoding.Kind.DIRECT_V2))
+                .build();
+
+        List<Stream> streams = new OrcMetadataReader().readStripeFooter(ImmutableList.of(), stripeFooter.toByteString().newInput()).getStreams();
+        assertEquals(streams.size(), 4);
+        assertStream(streams.get(0), StreamKind.ROW_INDEX, 10);
+        assertStream(streams.get(1), StreamKind.BLOOM_FILTER, 20);
+        assertStream(streams.get(2), StreamKind.BLOOM_FILTER_UTF8, 30);
+        assertStream(streams.get(3), StreamKind.DATA, 40);
+    }
+
+    @Test
+    public void testReadUtf8BloomFilters()
+            throws IOException
+    {
+        BloomFilter expected = new BloomFilter(100, 0.05);
+        expected.addSlice(Slices.utf8Slice("apple"));
+        expected.addSlice(Slices.utf8Slice("\u00e9t\u00e9"));
+
+        // a BLOOM_FILTER_UTF8 stream stores the bit set as little endian bytes in the utf8bitset field
+        DynamicSliceOutput bitSet = new DynamicSliceOutput(expected.getBitSet().length * 8);
+        for (long word : expected.getBitSet()) {
+            bitSet.writeLong(word);
+        }
+        DynamicSliceOutput bloomFilter = new DynamicSliceOutput(1024);
+        CodedOutputStream bloomFilterOutput = CodedOutputStream.newInstance(bloomFilter);
+        bloomFilterOutput.writeUInt32(1, expected.getNumHashFunctions());
+        bloomFilterOutput.writeBytes(3, ByteString.copyFrom(bitSet.slice().getBytes()));
+        bloomFilterOutput.flush();
+
+        DynamicSliceOutput index = new DynamicSliceOutput(1024);
+        CodedOutputStream indexOutput = CodedOutputStream.newInstance(index);
+        for (int rowGroup = 0; rowGroup < 2; rowGroup++) {
+            indexOutput.writeBytes(1, ByteString.copyFrom(bloomFilter.slice().getBytes()));
+        }
+        indexOutput.flush();
+
+        List<BloomFilter> bloomFilters = new OrcMetadataReader().readBloomFilterIndexes(index.slice().getInput());
+        assertEquals(bloomFilters.size(), 2);
+        for (BloomFilter actual : bloomFilters) {
+            assertEquals(actual.getNumHashFunctions(), expected.getNumHashFunctions());
+            assertTrue(Arrays.equals(actual.getBitSet(), expected.getBitSet()));
+            assertTrue(actual.testSlice(Slices.utf8Slice("apple")));
+            assertTrue(actual.testSlice(Slices.utf8Slice("\u00e9t\u00e9")));
+            assertFalse(actual.testSlice(Slices.utf8Slice("banana")));
+        }
+    }
+
+    @Test
+    public void testReadBitSetBloomFilters()
+            throws IOException
+    {
+        BloomFilter expected = new BloomFilter(1000, 0.05);
+        expected.addLong(42);
+        expected.addLong(-7);
+
+        // the bitset field is a repeated fixed64, which may be written unpacked or packed
+        DynamicSliceOutput unpacked = new DynamicSliceOutput(1024);
+        CodedOutputStream unpackedOutput = CodedOutputStream.newInstance(unpacked);
+        unpackedOutput.writeUInt32(1, expected.getNumHashFunctions());
+        for (long word : expected.getBitSet()) {
+            unpackedOutput.writeFixed64(2, word);
+        }
+        unpackedOutput.flush();
+
+        DynamicSliceOutput packed = new DynamicSliceOutput(1024);
+        CodedOutputStream packedOutput = CodedOutputStream.newInstance(packed);
+        packedOutput.writeUInt32(1, expected.getNumHashFunctions());
+        packedOutput.writeTag(2, WIRETYPE_LENGTH_DELIMITED);
+        packedOutput.writeRawVarint32(expected.getBitSet().length * 8);
+        for (long word : expected.getBitSet()) {
+            packedOutput.writeFixed64NoTag(word);
+        }
+        packedOutput.flush();
+
+        DynamicSliceOutput index = new DynamicSliceOutput(1024);
+        CodedOutputStream indexOutput = CodedOutputStream.newInstance(index);
+        indexOutput.writeBytes(1, ByteString.copyFrom(unpacked.slice().getBytes()));
+        indexOutput.writeBytes(1, ByteString.copyFrom(packed.slice().getBytes()));
+        indexOutput.flush();
+
+        List<BloomFilter> bloomFilters = new OrcMetadataReader().readBloomFilterIndexes(index.slice().getInput());
+        assertEquals(bloomFilters.size(), 2);
+        for (BloomFilter actual : bloomFilters) {
+            assertEquals(actual.getNumHashFunctions(), expected.getNumHashFunctions());
+            assertTrue(Arrays.equals(actual.getBitSet(), expected.getBitSet()));
+            assertTrue(actual.testLong(42));
+            assertTrue(actual.testLong(-7));
+        }
+    }
+
+    private static OrcProto.Stream bloomFilterStream(int column, int kind, long length)
+    {
+        return OrcProto.Stream.newBuilder()
+                .setColumn(column)
+                .setLength(length)
+                .setUnknownFields(UnknownFieldSet.newBuilder()
+                        .addField(1, UnknownFieldSet.Field.newBuilder().addVarint(kind).build())
+                        .build())
+                .build();
+    }
+
+    private static void assertStream(Stream stream, StreamKind streamKind, int length)
+    {
+        assertEquals(stream.getColumn(), 1);
+        assertEquals(stream.getStreamKind(), streamKind);
+        assertEquals(stream.getLength(), length);
+    }
 }
@@ -34,6 +34,8 @@ import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.ViewNotFoundException;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
@@ -56,6 +58,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalDouble;
 import java.util.UUID;
 import java.util.function.Predicate;
 
@@ -216,6 +219,17 @@ public class RaptorMetadata
         return tableColumn.toColumnMetadata();
     }
 
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, TupleDomain<ColumnHandle> constraint)
+    {
+        // the shard index could prune shards using the constraint, but the totals are good enough for planning
+        long tableId = checkType(tableHandle, RaptorTableHandle.class, "tableHandle").getTableId();
+        return new TableStatistics(
+                OptionalDouble.of(shardManager.getTableRowCount(tableId)),
+                OptionalDouble.of(shardManager.getTableUncompressedSize(tableId)),
+                ImmutableMap.of());
+    }
+
     @Override
     public Map<SchemaTableName, List<ColumnMetadata>> listTableColumns(ConnectorSession session, SchemaTablePrefix prefix)
     {
@@ -275,6 +275,18 @@ public class DatabaseShardManager
         return dao.getNodeShards(nodeIdentifier);
     }
 
+    @Override
+    public long getTableRowCount(long tableId)
+    {
+        return dao.getTableRowCount(tableId);
+    }
+
+    @Override
+    public long getTableUncompressedSize(long tableId)
+    {
+        return dao.getTableUncompressedSize(tableId);
+    }
+
     @Override
     public void assignShard(long tableId, UUID shardUuid, String nodeIdentifier)
     {
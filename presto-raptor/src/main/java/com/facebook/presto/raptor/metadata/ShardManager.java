@@ -60,6 +60,16 @@ public interface ShardManager
      */
     Set<UUID> getNodeShards(String nodeIdentifier);
 
+    /**
+     * Return the total number of rows in the shards of a table.
+     */
+    long getTableRowCount(long tableId);
+
+    /**
+     * Return the total uncompressed size of the shards of a table.
+     */
+    long getTableUncompressedSize(long tableId);
+
     /**
      * Assign a shard to a node.
      */
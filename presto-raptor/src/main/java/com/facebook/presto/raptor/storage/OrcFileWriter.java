@@ -13,101 +13,97 @@
  */
 package com.facebook.presto.raptor.storage;
 
-import com.facebook.presto.raptor.util.SyncingFileSystem;
+import com.facebook.presto.orc.OrcWriter;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.PrestoException;
-import com.facebook.presto.spi.classloader.ThreadContextClassLoader;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.VarbinaryType;
 import com.facebook.presto.spi.type.VarcharType;
-import com.google.common.base.Joiner;
-import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.slice.Slice;
-import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.hive.ql.io.orc.OrcFile;
-import org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat;
-import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
-import org.apache.hadoop.hive.serde2.objectinspector.SettableStructObjectInspector;
-import org.apache.hadoop.hive.serde2.objectinspector.StructField;
 
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Properties;
+import java.util.Set;
 
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
 import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_ERROR;
-import static com.facebook.presto.raptor.storage.Row.extractRow;
 import static com.facebook.presto.spi.StandardErrorCode.INTERNAL_ERROR;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.google.common.base.Functions.toStringFunction;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.transform;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
 import static java.util.stream.Collectors.toList;
-import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMNS;
-import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMN_TYPES;
-import static org.apache.hadoop.hive.ql.exec.FileSinkOperator.RecordWriter;
-import static org.apache.hadoop.hive.ql.io.orc.CompressionKind.SNAPPY;
-import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardStructObjectInspector;
-import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaBooleanObjectInspector;
-import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaByteArrayObjectInspector;
-import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaDoubleObjectInspector;
-import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
-import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+import static org.joda.time.DateTimeZone.UTC;
 
 public class OrcFileWriter
         implements Closeable
 {
-    private static final Configuration CONFIGURATION = new Configuration();
-    private static final Constructor<? extends RecordWriter> WRITER_CONSTRUCTOR = getOrcWriterConstructor();
-
     private final List<Type> columnTypes;
+    private final List<Type> storageTypes;
 
-    private final OrcSerde serializer;
-    private final RecordWriter recordWriter;
-    private final SettableStructObjectInspector tableInspector;
-    private final List<StructField> structFields;
-    private final Object orcRow;
+    private final OrcWriter orcWriter;
+    private final PageBuilder pageBuilder;
 
     private long rowCount;
     private long uncompressedSize;
 
     public OrcFileWriter(List<Long> columnIds, List<Type> columnTypes, File target)
+    {
+        this(columnIds, columnTypes, target, false);
+    }
+
+    public OrcFileWriter(List<Long> columnIds, List<Type> columnTypes, File target, boolean bloomFiltersEnabled)
     {
         this.columnTypes = ImmutableList.copyOf(checkNotNull(columnTypes, "columnTypes is null"));
         checkArgument(columnIds.size() == columnTypes.size(), "ids and types mismatch");
         checkArgument(isUnique(columnIds), "ids must be unique");
 
-        List<StorageType> storageTypes = ImmutableList.copyOf(toStorageTypes(columnTypes));
-        Iterable<String> hiveTypeNames = storageTypes.stream().map(StorageType::getHiveTypeName).collect(toList());
+        this.storageTypes = ImmutableList.copyOf(toStorageTypes(columnTypes));
         List<String> columnNames = ImmutableList.copyOf(transform(columnIds, toStringFunction()));
 
-        Properties properties = new Properties();
-        properties.setProperty(META_TABLE_COLUMNS, Joiner.on(',').join(columnNames));
-        properties.setProperty(META_TABLE_COLUMN_TYPES, Joiner.on(':').join(hiveTypeNames));
-
-        serializer = createSerializer(CONFIGURATION, properties);
-        recordWriter = createRecordWriter(new Path(target.toURI()), CONFIGURATION);
+        ImmutableSet.Builder<String> bloomFilterColumns = ImmutableSet.builder();
+        if (bloomFiltersEnabled) {
+            for (int i = 0; i < storageTypes.size(); i++) {
+                if (OrcWriter.isBloomFilterSupported(storageTypes.get(i))) {
+                    bloomFilterColumns.add(columnNames.get(i));
+                }
+            }
+        }
 
-        tableInspector = getStandardStructObjectInspector(columnNames, getJavaObjectInspectors(storageTypes));
-        structFields = ImmutableList.copyOf(tableInspector.getAllStructFieldRefs());
-        orcRow = tableInspector.create();
+        orcWriter = createOrcWriter(target, columnNames, storageTypes, bloomFilterColumns.build());
+        pageBuilder = new PageBuilder(storageTypes);
     }
 
     public void appendPages(List<Page> pages)
     {
+        flushPageBuilder();
         for (Page page : pages) {
-            for (int position = 0; position < page.getPositionCount(); position++) {
-                appendRow(extractRow(page, position, columnTypes));
-            }
+            writePage(page);
+            rowCount += page.getPositionCount();
+            uncompressedSize += getUncompressedSize(page);
         }
     }
 
@@ -116,7 +112,13 @@ public class OrcFileWriter
         checkArgument(pageIndexes.length == positionIndexes.length, "pageIndexes and positionIndexes do not match");
         for (int i = 0; i < pageIndexes.length; i++) {
             Page page = inputPages.get(pageIndexes[i]);
-            appendRow(extractRow(page, positionIndexes[i], columnTypes));
+            int position = positionIndexes[i];
+            for (int channel = 0; channel < storageTypes.size(); channel++) {
+                Block block = page.getBlock(channel);
+                storageTypes.get(channel).appendTo(block, position, pageBuilder.getBlockBuilder(channel));
+                uncompressedSize += getUncompressedSize(storageTypes.get(channel), block, position);
+            }
+            declarePosition();
         }
     }
 
@@ -125,15 +127,9 @@ public class OrcFileWriter
         List<Object> columns = row.getColumns();
         checkArgument(columns.size() == columnTypes.size());
         for (int channel = 0; channel < columns.size(); channel++) {
-            tableInspector.setStructFieldData(orcRow, structFields.get(channel), columns.get(channel));
-        }
-        try {
-            recordWriter.write(serializer.serialize(orcRow, tableInspector));
+            appendValue(storageTypes.get(channel), pageBuilder.getBlockBuilder(channel), columns.get(channel));
         }
-        catch (IOException e) {
-            throw new PrestoException(RAPTOR_ERROR, "Failed to write record", e);
-        }
-        rowCount++;
+        declarePosition();
         uncompressedSize += row.getSizeInBytes();
     }
 
@@ -141,7 +137,8 @@ public class OrcFileWriter
     public void close()
     {
         try {
-            recordWriter.close(false);
+            flushPageBuilder();
+            orcWriter.close();
         }
         catch (IOException e) {
             throw new PrestoException(RAPTOR_ERROR, "Failed to close writer", e);
@@ -158,62 +155,108 @@ public class OrcFileWriter
         return uncompressedSize;
     }
 
-    private static OrcSerde createSerializer(Configuration conf, Properties properties)
+    private void declarePosition()
     {
-        OrcSerde serde = new OrcSerde();
-        serde.initialize(conf, properties);
-        return serde;
+        pageBuilder.declarePosition();
+        rowCount++;
+        if (pageBuilder.isFull()) {
+            flushPageBuilder();
+        }
     }
 
-    private static RecordWriter createRecordWriter(Path target, Configuration conf)
+    private void flushPageBuilder()
     {
-        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(FileSystem.class.getClassLoader());
-                FileSystem fileSystem = new SyncingFileSystem(CONFIGURATION)) {
-            OrcFile.WriterOptions options = OrcFile.writerOptions(conf)
-                    .fileSystem(fileSystem)
-                    .compress(SNAPPY);
-            return WRITER_CONSTRUCTOR.newInstance(target, options);
+        if (!pageBuilder.isEmpty()) {
+            writePage(pageBuilder.build());
+            pageBuilder.reset();
         }
-        catch (ReflectiveOperationException | IOException e) {
-            throw new PrestoException(RAPTOR_ERROR, "Failed to create writer", e);
+    }
+
+    private void writePage(Page page)
+    {
+        try {
+            orcWriter.write(page);
+        }
+        catch (IOException e) {
+            throw new PrestoException(RAPTOR_ERROR, "Failed to write data", e);
         }
     }
 
-    private static Constructor<? extends RecordWriter> getOrcWriterConstructor()
+    private static OrcWriter createOrcWriter(File target, List<String> columnNames, List<Type> storageTypes, Set<String> bloomFilterColumns)
     {
         try {
-            String writerClassName = OrcOutputFormat.class.getName() + "$OrcRecordWriter";
-            Constructor<? extends RecordWriter> constructor = OrcOutputFormat.class.getClassLoader()
-                    .loadClass(writerClassName).asSubclass(RecordWriter.class)
-                    .getDeclaredConstructor(Path.class, OrcFile.WriterOptions.class);
-            constructor.setAccessible(true);
-            return constructor;
+            return new OrcWriter(
+                    new SyncingOutputStream(new FileOutputStream(target)),
+                    columnNames,
+                    storageTypes,
+                    SNAPPY,
+                    OrcWriter.DEFAULT_STRIPE_MAX_SIZE,
+                    OrcWriter.DEFAULT_STRIPE_MAX_ROW_COUNT,
+                    OrcWriter.DEFAULT_ROW_GROUP_MAX_ROW_COUNT,
+                    OrcWriter.DEFAULT_MAX_COMPRESSION_BUFFER_SIZE,
+                    UTC,
+                    bloomFilterColumns,
+                    OrcWriter.DEFAULT_BLOOM_FILTER_FPP);
         }
-        catch (ReflectiveOperationException e) {
-            throw Throwables.propagate(e);
+        catch (IOException e) {
+            throw new PrestoException(RAPTOR_ERROR, "Failed to create writer", e);
         }
     }
 
-    private static List<ObjectInspector> getJavaObjectInspectors(List<StorageType> types)
+    private static void appendValue(Type type, BlockBuilder blockBuilder, Object value)
     {
-        return types.stream().map(OrcFileWriter::getJavaObjectInspector).collect(toList());
+        if (value == null) {
+            blockBuilder.appendNull();
+        }
+        else if (type.equals(BOOLEAN)) {
+            type.writeBoolean(blockBuilder, (Boolean) value);
+        }
+        else if (type.equals(BIGINT)) {
+            type.writeLong(blockBuilder, (Long) value);
+        }
+        else if (type.equals(DOUBLE)) {
+            type.writeDouble(blockBuilder, (Double) value);
+        }
+        else if (type.equals(VARCHAR)) {
+            type.writeSlice(blockBuilder, utf8Slice((String) value));
+        }
+        else if (type.equals(VARBINARY)) {
+            type.writeSlice(blockBuilder, wrappedBuffer((byte[]) value));
+        }
+        else {
+            throw new PrestoException(INTERNAL_ERROR, "Unhandled storage type: " + type);
+        }
     }
 
-    private static ObjectInspector getJavaObjectInspector(StorageType type)
+    private long getUncompressedSize(Page page)
     {
-        switch (type) {
-            case BOOLEAN:
-                return javaBooleanObjectInspector;
-            case LONG:
-                return javaLongObjectInspector;
-            case DOUBLE:
-                return javaDoubleObjectInspector;
-            case STRING:
-                return javaStringObjectInspector;
-            case BYTES:
-                return javaByteArrayObjectInspector;
+        long size = 0;
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            Block block = page.getBlock(channel);
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                size += getUncompressedSize(storageTypes.get(channel), block, position);
+            }
         }
-        throw new PrestoException(INTERNAL_ERROR, "Unhandled storage type: " + type);
+        return size;
+    }
+
+    // this matches the sizes computed by Row.extractRow()
+    private static int getUncompressedSize(Type type, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return SIZE_OF_BYTE;
+        }
+        Class<?> javaType = type.getJavaType();
+        if (javaType == boolean.class) {
+            return SIZE_OF_BYTE;
+        }
+        if (javaType == long.class) {
+            return SIZE_OF_LONG;
+        }
+        if (javaType == double.class) {
+            return SIZE_OF_DOUBLE;
+        }
+        return block.getLength(position);
     }
 
     private static <T> boolean isUnique(Collection<T> items)
@@ -221,31 +264,66 @@ public class OrcFileWriter
         return new HashSet<>(items).size() == items.size();
     }
 
-    private static List<StorageType> toStorageTypes(List<Type> columnTypes)
+    private static List<Type> toStorageTypes(List<Type> columnTypes)
     {
         return columnTypes.stream().map(OrcFileWriter::toStorageType).collect(toList());
     }
 
-    private static StorageType toStorageType(Type type)
+    private static Type toStorageType(Type type)
     {
         Class<?> javaType = type.getJavaType();
         if (javaType == boolean.class) {
-            return StorageType.BOOLEAN;
+            return BOOLEAN;
         }
         if (javaType == long.class) {
-            return StorageType.LONG;
+            // dates and timestamps are stored as their long representation
+            return BIGINT;
         }
         if (javaType == double.class) {
-            return StorageType.DOUBLE;
+            return DOUBLE;
         }
         if (javaType == Slice.class) {
             if (type.equals(VarcharType.VARCHAR)) {
-                return StorageType.STRING;
+                return VARCHAR;
             }
             if (type.equals(VarbinaryType.VARBINARY)) {
-                return StorageType.BYTES;
+                return VARBINARY;
             }
         }
         throw new PrestoException(NOT_SUPPORTED, "No storage type for type: " + type);
     }
+
+    private static class SyncingOutputStream
+            extends FilterOutputStream
+    {
+        private final FileOutputStream fileOutput;
+
+        public SyncingOutputStream(FileOutputStream output)
+        {
+            super(new BufferedOutputStream(output));
+            this.fileOutput = output;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length)
+                throws IOException
+        {
+            // FilterOutputStream writes one byte at a time
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            try {
+                // make sure the file is durable before it is committed
+                flush();
+                fileOutput.getFD().sync();
+            }
+            finally {
+                super.close();
+            }
+        }
+    }
 }
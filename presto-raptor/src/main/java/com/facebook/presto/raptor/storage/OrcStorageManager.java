@@ -15,6 +15,7 @@ package com.facebook.presto.raptor.storage;
 
 import com.facebook.presto.orc.FileOrcDataSource;
 import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcFileTailCache;
 import com.facebook.presto.orc.OrcPredicate;
 import com.facebook.presto.orc.OrcReader;
 import com.facebook.presto.orc.OrcRecordReader;
@@ -96,6 +97,8 @@ public class OrcStorageManager
     private final DataSize orcMaxMergeDistance;
     private final DataSize orcMaxReadSize;
     private final DataSize orcStreamBufferSize;
+    private final OrcFileTailCache fileTailCache;
+    private final boolean orcBloomFiltersEnabled;
     private final ShardRecoveryManager recoveryManager;
     private final Duration recoveryTimeout;
     private final long maxShardRows;
@@ -119,6 +122,8 @@ public class OrcStorageManager
                 config.getOrcMaxMergeDistance(),
                 config.getOrcMaxReadSize(),
                 config.getOrcStreamBufferSize(),
+                config.getOrcFileTailCacheMaxSize(),
+                config.isOrcBloomFiltersEnabled(),
                 recoveryManager,
                 config.getShardRecoveryTimeout(),
                 config.getMaxShardRows(),
@@ -134,6 +139,8 @@ public class OrcStorageManager
             DataSize orcMaxMergeDistance,
             DataSize orcMaxReadSize,
             DataSize orcStreamBufferSize,
+            DataSize orcFileTailCacheMaxSize,
+            boolean orcBloomFiltersEnabled,
             ShardRecoveryManager recoveryManager,
             Duration shardRecoveryTimeout,
             long maxShardRows,
@@ -147,6 +154,8 @@ public class OrcStorageManager
         this.orcMaxMergeDistance = checkNotNull(orcMaxMergeDistance, "orcMaxMergeDistance is null");
         this.orcMaxReadSize = checkNotNull(orcMaxReadSize, "orcMaxReadSize is null");
         this.orcStreamBufferSize = checkNotNull(orcStreamBufferSize, "orcStreamBufferSize is null");
+        this.fileTailCache = new OrcFileTailCache(checkNotNull(orcFileTailCacheMaxSize, "orcFileTailCacheMaxSize is null"));
+        this.orcBloomFiltersEnabled = orcBloomFiltersEnabled;
 
         this.recoveryManager = checkNotNull(recoveryManager, "recoveryManager is null");
         this.recoveryTimeout = checkNotNull(shardRecoveryTimeout, "shardRecoveryTimeout is null");
@@ -164,7 +173,9 @@ public class OrcStorageManager
         OrcDataSource dataSource = openShard(shardUuid);
 
         try {
-            OrcReader reader = new OrcReader(dataSource, new OrcMetadataReader());
+            // shard files are never modified, so the path identifies the contents
+            File file = storageService.getStorageFile(shardUuid).getAbsoluteFile();
+            OrcReader reader = fileTailCache.createOrcReader(dataSource, new OrcMetadataReader(), file.getPath(), 0);
 
             Map<Long, Integer> indexMap = columnIdIndex(reader.getColumnNames());
             ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
@@ -251,6 +262,18 @@ public class OrcStorageManager
         return stats;
     }
 
+    @Managed
+    public double getFileTailCacheHitRate()
+    {
+        return fileTailCache.getStats().hitRate();
+    }
+
+    @Managed
+    public long getFileTailCacheSize()
+    {
+        return fileTailCache.getSize();
+    }
+
     @VisibleForTesting
     OrcDataSource openShard(UUID shardUuid)
     {
@@ -503,7 +526,7 @@ public class OrcStorageManager
                 shardUuid = UUID.randomUUID();
                 File stagingFile = storageService.getStagingFile(shardUuid);
                 storageService.createParents(stagingFile);
-                writer = new OrcFileWriter(columnIds, columnTypes, stagingFile);
+                writer = new OrcFileWriter(columnIds, columnTypes, stagingFile, orcBloomFiltersEnabled);
             }
         }
     }
@@ -40,6 +40,8 @@ public class StorageManagerConfig
     private DataSize orcMaxMergeDistance = new DataSize(1, MEGABYTE);
     private DataSize orcMaxReadSize = new DataSize(8, MEGABYTE);
     private DataSize orcStreamBufferSize = new DataSize(8, MEGABYTE);
+    private DataSize orcFileTailCacheMaxSize = new DataSize(64, MEGABYTE);
+    private boolean orcBloomFiltersEnabled;
     private int recoveryThreads = 10;
     private int compactionThreads = 5;
 
@@ -100,6 +102,33 @@ public class StorageManagerConfig
         return this;
     }
 
+    @NotNull
+    public DataSize getOrcFileTailCacheMaxSize()
+    {
+        return orcFileTailCacheMaxSize;
+    }
+
+    @Config("storage.orc.file-tail-cache.max-size")
+    @ConfigDescription("Maximum size of the shard footers and stripe statistics cached in memory")
+    public StorageManagerConfig setOrcFileTailCacheMaxSize(DataSize orcFileTailCacheMaxSize)
+    {
+        this.orcFileTailCacheMaxSize = orcFileTailCacheMaxSize;
+        return this;
+    }
+
+    public boolean isOrcBloomFiltersEnabled()
+    {
+        return orcBloomFiltersEnabled;
+    }
+
+    @Config("storage.orc.bloom-filters-enabled")
+    @ConfigDescription("Write bloom filters for the row groups of shard columns that support them")
+    public StorageManagerConfig setOrcBloomFiltersEnabled(boolean orcBloomFiltersEnabled)
+    {
+        this.orcBloomFiltersEnabled = orcBloomFiltersEnabled;
+        return this;
+    }
+
     public Duration getShardRecoveryTimeout()
     {
         return shardRecoveryTimeout;
@@ -26,6 +26,8 @@ import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.type.TypeRegistry;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -39,6 +41,9 @@ import org.testng.annotations.Test;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.UUID;
 
 import static com.facebook.presto.metadata.MetadataUtil.TableMetadataBuilder.tableMetadataBuilder;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -49,6 +54,7 @@ import static io.airlift.json.JsonCodec.jsonCodec;
 import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static io.airlift.testing.Assertions.assertInstanceOf;
 import static java.util.Locale.ENGLISH;
+import static java.util.stream.Collectors.toList;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
@@ -64,6 +70,7 @@ public class TestRaptorMetadata
     private static final SchemaTableName DEFAULT_TEST_ORDERS = new SchemaTableName("test", "orders");
 
     private Handle dummyHandle;
+    private ShardManager shardManager;
     private ConnectorMetadata metadata;
 
     @BeforeMethod
@@ -74,7 +81,8 @@ public class TestRaptorMetadata
         DBI dbi = new DBI("jdbc:h2:mem:test" + System.nanoTime());
         dbi.registerMapper(new TableColumn.Mapper(typeRegistry));
         dummyHandle = dbi.open();
-        metadata = new RaptorMetadata(new RaptorConnectorId("default"), dbi, new DatabaseShardManager(dbi), SHARD_INFO_CODEC, SHARD_DELTA_CODEC);
+        shardManager = new DatabaseShardManager(dbi);
+        metadata = new RaptorMetadata(new RaptorConnectorId("default"), dbi, shardManager, SHARD_INFO_CODEC, SHARD_DELTA_CODEC);
     }
 
     @AfterMethod
@@ -143,6 +151,28 @@ public class TestRaptorMetadata
         assertEquals(columnMetadata.getType(), BIGINT);
     }
 
+    @Test
+    public void testTableStatistics()
+    {
+        metadata.createTable(SESSION, getOrdersTable());
+        ConnectorTableHandle tableHandle = metadata.getTableHandle(SESSION, DEFAULT_TEST_ORDERS);
+        long tableId = ((RaptorTableHandle) tableHandle).getTableId();
+
+        // an empty table has no rows rather than unknown statistics
+        assertEquals(metadata.getTableStatistics(SESSION, tableHandle, TupleDomain.all()), new TableStatistics(OptionalDouble.of(0), OptionalDouble.of(0), ImmutableMap.of()));
+
+        List<ColumnInfo> columns = metadata.getColumnHandles(tableHandle).values().stream()
+                .map(handle -> ColumnInfo.fromHandle((RaptorColumnHandle) handle))
+                .collect(toList());
+        List<ShardInfo> shards = ImmutableList.of(
+                new ShardInfo(UUID.randomUUID(), ImmutableSet.of("node1"), ImmutableList.of(), 100, 10, 1000),
+                new ShardInfo(UUID.randomUUID(), ImmutableSet.of("node2"), ImmutableList.of(), 300, 30, 3000));
+        shardManager.commitShards(tableId, columns, shards, Optional.empty());
+
+        // the data size is the uncompressed size of the shards
+        assertEquals(metadata.getTableStatistics(SESSION, tableHandle, TupleDomain.all()), new TableStatistics(OptionalDouble.of(400), OptionalDouble.of(4000), ImmutableMap.of()));
+    }
+
     @Test
     public void testListTables()
     {
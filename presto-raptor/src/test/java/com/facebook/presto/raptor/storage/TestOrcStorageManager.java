@@ -100,6 +100,7 @@ public class TestOrcStorageManager
     private static final DataSize ORC_MAX_MERGE_DISTANCE = new DataSize(1, MEGABYTE);
     private static final DataSize ORC_MAX_READ_SIZE = new DataSize(1, MEGABYTE);
     private static final DataSize ORC_STREAM_BUFFER_SIZE = new DataSize(1, MEGABYTE);
+    private static final DataSize ORC_FILE_TAIL_CACHE_SIZE = new DataSize(1, MEGABYTE);
     private static final Duration SHARD_RECOVERY_TIMEOUT = new Duration(30, TimeUnit.SECONDS);
     private static final DataSize MAX_BUFFER_SIZE = new DataSize(256, MEGABYTE);
     private static final int MAX_SHARD_ROWS = 100;
@@ -489,6 +490,8 @@ public class TestOrcStorageManager
                 ORC_MAX_MERGE_DISTANCE,
                 ORC_MAX_READ_SIZE,
                 ORC_STREAM_BUFFER_SIZE,
+                ORC_FILE_TAIL_CACHE_SIZE,
+                false,
                 recoveryManager,
                 SHARD_RECOVERY_TIMEOUT,
                 maxShardRows,
@@ -43,6 +43,8 @@ public class TestStorageManagerConfig
                 .setOrcMaxMergeDistance(new DataSize(1, MEGABYTE))
                 .setOrcMaxReadSize(new DataSize(8, MEGABYTE))
                 .setOrcStreamBufferSize(new DataSize(8, MEGABYTE))
+                .setOrcFileTailCacheMaxSize(new DataSize(64, MEGABYTE))
+                .setOrcBloomFiltersEnabled(false)
                 .setShardRecoveryTimeout(new Duration(30, SECONDS))
                 .setMissingShardDiscoveryInterval(new Duration(5, MINUTES))
                 .setCompactionInterval(new Duration(1, HOURS))
@@ -62,6 +64,8 @@ public class TestStorageManagerConfig
                 .put("storage.orc.max-merge-distance", "16kB")
                 .put("storage.orc.max-read-size", "16kB")
                 .put("storage.orc.stream-buffer-size", "16kB")
+                .put("storage.orc.file-tail-cache.max-size", "32MB")
+                .put("storage.orc.bloom-filters-enabled", "true")
                 .put("storage.shard-recovery-timeout", "1m")
                 .put("storage.missing-shard-discovery-interval", "4m")
                 .put("storage.compaction-interval", "4h")
@@ -77,6 +81,8 @@ public class TestStorageManagerConfig
                 .setOrcMaxMergeDistance(new DataSize(16, KILOBYTE))
                 .setOrcMaxReadSize(new DataSize(16, KILOBYTE))
                 .setOrcStreamBufferSize(new DataSize(16, KILOBYTE))
+                .setOrcFileTailCacheMaxSize(new DataSize(32, MEGABYTE))
+                .setOrcBloomFiltersEnabled(true)
                 .setShardRecoveryTimeout(new Duration(1, MINUTES))
                 .setMissingShardDiscoveryInterval(new Duration(4, MINUTES))
                 .setCompactionInterval(new Duration(4, HOURS))
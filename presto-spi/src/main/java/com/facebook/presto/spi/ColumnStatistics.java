@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import java.util.Objects;
+import java.util.OptionalDouble;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimated statistics of a column. Any of the values may be unknown.
+ */
+public final class ColumnStatistics
+{
+    private static final ColumnStatistics EMPTY = new ColumnStatistics(OptionalDouble.empty(), OptionalDouble.empty(), OptionalDouble.empty());
+
+    private final OptionalDouble distinctValuesCount;
+    private final OptionalDouble nullsFraction;
+    private final OptionalDouble dataSize;
+
+    public ColumnStatistics(OptionalDouble distinctValuesCount, OptionalDouble nullsFraction, OptionalDouble dataSize)
+    {
+        this.distinctValuesCount = requireNonNull(distinctValuesCount, "distinctValuesCount is null");
+        this.nullsFraction = requireNonNull(nullsFraction, "nullsFraction is null");
+        this.dataSize = requireNonNull(dataSize, "dataSize is null");
+        if (distinctValuesCount.isPresent() && distinctValuesCount.getAsDouble() < 0) {
+            throw new IllegalArgumentException("distinctValuesCount is negative");
+        }
+        if (nullsFraction.isPresent() && (nullsFraction.getAsDouble() < 0 || nullsFraction.getAsDouble() > 1)) {
+            throw new IllegalArgumentException("nullsFraction must be between 0 and 1");
+        }
+        if (dataSize.isPresent() && dataSize.getAsDouble() < 0) {
+            throw new IllegalArgumentException("dataSize is negative");
+        }
+    }
+
+    public static ColumnStatistics empty()
+    {
+        return EMPTY;
+    }
+
+    /**
+     * Number of distinct non null values.
+     */
+    public OptionalDouble getDistinctValuesCount()
+    {
+        return distinctValuesCount;
+    }
+
+    /**
+     * Fraction of the rows where the column is null, between 0 and 1.
+     */
+    public OptionalDouble getNullsFraction()
+    {
+        return nullsFraction;
+    }
+
+    /**
+     * Uncompressed size of the column data in bytes.
+     */
+    public OptionalDouble getDataSize()
+    {
+        return dataSize;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ColumnStatistics other = (ColumnStatistics) obj;
+        return Objects.equals(this.distinctValuesCount, other.distinctValuesCount) &&
+                Objects.equals(this.nullsFraction, other.nullsFraction) &&
+                Objects.equals(this.dataSize, other.dataSize);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(distinctValuesCount, nullsFraction, dataSize);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ColumnStatistics{" +
+                "distinctValuesCount=" + distinctValuesCount +
+                ", nullsFraction=" + nullsFraction +
+                ", dataSize=" + dataSize +
+                '}';
+    }
+}
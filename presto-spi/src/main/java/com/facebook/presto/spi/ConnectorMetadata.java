@@ -50,6 +50,15 @@ public interface ConnectorMetadata
         throw new UnsupportedOperationException("not yet implemented");
     }
 
+    /**
+     * Returns the estimated statistics of the part of the table that matches the constraint.
+     * The statistics are only used for planning, so they may be approximate or unknown.
+     */
+    default TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, TupleDomain<ColumnHandle> constraint)
+    {
+        return TableStatistics.empty();
+    }
+
     /**
      * Return the metadata for the specified table handle.
      *
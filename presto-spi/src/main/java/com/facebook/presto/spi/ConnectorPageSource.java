@@ -38,6 +38,24 @@ public interface ConnectorPageSource
      */
     long getReadTimeNanos();
 
+    /**
+     * Gets the wall time this page source spent waiting for data read in the
+     * background. This time is not included in {@link #getReadTimeNanos()}.
+     */
+    default long getReadWaitNanos()
+    {
+        return 0;
+    }
+
+    /**
+     * Gets the memory held by this page source outside of the returned pages,
+     * such as data read ahead of the current position.
+     */
+    default long getSystemMemoryUsage()
+    {
+        return 0;
+    }
+
     /**
      * Will this page source product more pages?
      */
@@ -18,4 +18,15 @@ import java.util.List;
 public interface ConnectorPageSourceProvider
 {
     ConnectorPageSource createPageSource(ConnectorSplit split, List<ColumnHandle> columns);
+
+    /**
+     * Creates a page source for the split that may skip rows whose values are
+     * not in {@code dynamicFilter}.  The filter is computed while the query runs
+     * (for example, from the build side of a join), and is only a hint: the
+     * engine still evaluates the query predicates on every returned row.
+     */
+    default ConnectorPageSource createPageSource(ConnectorSplit split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        return createPageSource(split, columns);
+    }
 }
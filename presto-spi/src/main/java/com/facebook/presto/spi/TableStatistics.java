@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalDouble;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimated statistics of a table, or of the part of it matching a constraint.
+ * Any of the values may be unknown.
+ */
+public final class TableStatistics
+{
+    private static final TableStatistics EMPTY = new TableStatistics(OptionalDouble.empty(), OptionalDouble.empty(), Collections.emptyMap());
+
+    private final OptionalDouble rowCount;
+    private final OptionalDouble dataSize;
+    private final Map<ColumnHandle, ColumnStatistics> columnStatistics;
+
+    public TableStatistics(OptionalDouble rowCount, OptionalDouble dataSize, Map<ColumnHandle, ColumnStatistics> columnStatistics)
+    {
+        this.rowCount = requireNonNull(rowCount, "rowCount is null");
+        this.dataSize = requireNonNull(dataSize, "dataSize is null");
+        this.columnStatistics = Collections.unmodifiableMap(new LinkedHashMap<>(requireNonNull(columnStatistics, "columnStatistics is null")));
+        if (rowCount.isPresent() && rowCount.getAsDouble() < 0) {
+            throw new IllegalArgumentException("rowCount is negative");
+        }
+        if (dataSize.isPresent() && dataSize.getAsDouble() < 0) {
+            throw new IllegalArgumentException("dataSize is negative");
+        }
+    }
+
+    public static TableStatistics empty()
+    {
+        return EMPTY;
+    }
+
+    public OptionalDouble getRowCount()
+    {
+        return rowCount;
+    }
+
+    /**
+     * Uncompressed size of the data in bytes.
+     */
+    public OptionalDouble getDataSize()
+    {
+        return dataSize;
+    }
+
+    /**
+     * Statistics of the columns, which may not contain every column.
+     */
+    public Map<ColumnHandle, ColumnStatistics> getColumnStatistics()
+    {
+        return columnStatistics;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        TableStatistics other = (TableStatistics) obj;
+        return Objects.equals(this.rowCount, other.rowCount) &&
+                Objects.equals(this.dataSize, other.dataSize) &&
+                Objects.equals(this.columnStatistics, other.columnStatistics);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(rowCount, dataSize, columnStatistics);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TableStatistics{" +
+                "rowCount=" + rowCount +
+                ", dataSize=" + dataSize +
+                ", columnStatistics=" + columnStatistics +
+                '}';
+    }
+}
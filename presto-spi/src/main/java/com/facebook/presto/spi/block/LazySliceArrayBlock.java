@@ -28,6 +28,8 @@ public class LazySliceArrayBlock
     private final int positionCount;
     private LazyBlockLoader<LazySliceArrayBlock> loader;
     private Slice[] values;
+    private SliceArrayBlock dictionary;
+    private int[] ids;
     private final AtomicInteger sizeInBytes = new AtomicInteger(-1);
 
     public LazySliceArrayBlock(int positionCount, LazyBlockLoader<LazySliceArrayBlock> loader)
@@ -42,7 +44,15 @@ public class LazySliceArrayBlock
     Slice[] getValues()
     {
         assureLoaded();
-        return values;
+        if (ids == null) {
+            return values;
+        }
+
+        Slice[] flatValues = new Slice[positionCount];
+        for (int position = 0; position < positionCount; position++) {
+            flatValues[position] = values[ids[position]];
+        }
+        return flatValues;
     }
 
     public void setValues(Slice[] values)
@@ -50,6 +60,59 @@ public class LazySliceArrayBlock
         this.values = values;
     }
 
+    /**
+     * Loads this block with dictionary encoded values, where the value at
+     * each position is {@code dictionary[ids[position]]}.
+     */
+    public void setValues(SliceArrayBlock dictionary, int[] ids)
+    {
+        if (ids.length < positionCount) {
+            throw new IllegalArgumentException("ids length is less than positionCount");
+        }
+        this.dictionary = dictionary;
+        this.ids = ids;
+        this.values = dictionary.getValues();
+    }
+
+    /**
+     * Has this block been loaded?
+     */
+    public boolean isLoaded()
+    {
+        return values != null;
+    }
+
+    /**
+     * Is this block backed by a dictionary?  Loads the block.
+     */
+    public boolean isDictionary()
+    {
+        assureLoaded();
+        return ids != null;
+    }
+
+    /**
+     * Returns a view of this block as a {@link DictionaryBlock}.
+     *
+     * @throws IllegalStateException if this block is not backed by a dictionary
+     */
+    public DictionaryBlock toDictionaryBlock()
+    {
+        if (!isDictionary()) {
+            throw new IllegalStateException("block is not backed by a dictionary");
+        }
+        return new DictionaryBlock(positionCount, dictionary, ids);
+    }
+
+    private Slice getValue(int position)
+    {
+        assureLoaded();
+        if (ids == null) {
+            return values[position];
+        }
+        return values[ids[position]];
+    }
+
     @Override
     public BlockEncoding getEncoding()
     {
@@ -59,8 +122,7 @@ public class LazySliceArrayBlock
     @Override
     protected Slice getRawSlice(int position)
     {
-        assureLoaded();
-        return values[position];
+        return getValue(position);
     }
 
     @Override
@@ -72,8 +134,7 @@ public class LazySliceArrayBlock
     @Override
     protected boolean isEntryNull(int position)
     {
-        assureLoaded();
-        return values[position] == null;
+        return getValue(position) == null;
     }
 
     @Override
@@ -85,8 +146,7 @@ public class LazySliceArrayBlock
     @Override
     public int getLength(int position)
     {
-        assureLoaded();
-        return values[position].length();
+        return getValue(position).length();
     }
 
     @Override
@@ -95,7 +155,12 @@ public class LazySliceArrayBlock
         int sizeInBytes = this.sizeInBytes.get();
         if (sizeInBytes < 0) {
             assureLoaded();
-            sizeInBytes = getSliceArraySizeInBytes(values);
+            if (ids == null) {
+                sizeInBytes = getSliceArraySizeInBytes(values);
+            }
+            else {
+                sizeInBytes = toDictionaryBlock().getSizeInBytes();
+            }
             this.sizeInBytes.set(sizeInBytes);
         }
         return sizeInBytes;
@@ -117,6 +182,9 @@ public class LazySliceArrayBlock
         }
 
         assureLoaded();
+        if (ids != null) {
+            return new DictionaryBlock(length, dictionary, Arrays.copyOfRange(ids, positionOffset, positionOffset + length));
+        }
         Slice[] newValues = Arrays.copyOfRange(values, positionOffset, positionOffset + length);
         return new SliceArrayBlock(length, newValues);
     }
@@ -129,8 +197,7 @@ public class LazySliceArrayBlock
             throw new IndexOutOfBoundsException("Invalid position " + positionOffset + " in block with " + positionCount + " positions");
         }
 
-        assureLoaded();
-        return new SliceArrayBlock(length, deepCopyAndCompact(values, positionOffset, length));
+        return new SliceArrayBlock(length, deepCopyAndCompact(getValues(), positionOffset, length));
     }
 
     @Override
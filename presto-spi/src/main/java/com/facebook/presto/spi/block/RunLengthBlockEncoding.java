@@ -11,17 +11,13 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.facebook.presto.testing;
+package com.facebook.presto.spi.block;
 
-import com.facebook.presto.spi.block.Block;
-import com.facebook.presto.spi.block.BlockEncoding;
-import com.facebook.presto.spi.block.BlockEncodingFactory;
-import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.type.TypeManager;
 import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
 
-import static com.google.common.base.Preconditions.checkNotNull;
+import java.util.Objects;
 
 public class RunLengthBlockEncoding
         implements BlockEncoding
@@ -33,7 +29,7 @@ public class RunLengthBlockEncoding
 
     public RunLengthBlockEncoding(BlockEncoding valueBlockEncoding)
     {
-        this.valueBlockEncoding = checkNotNull(valueBlockEncoding, "valueBlockEncoding is null");
+        this.valueBlockEncoding = Objects.requireNonNull(valueBlockEncoding, "valueBlockEncoding is null");
     }
 
     @Override
@@ -85,7 +81,7 @@ public class RunLengthBlockEncoding
         return FACTORY;
     }
 
-    private static class RunLengthBlockEncodingFactory
+    public static class RunLengthBlockEncodingFactory
             implements BlockEncodingFactory<RunLengthBlockEncoding>
     {
         @Override
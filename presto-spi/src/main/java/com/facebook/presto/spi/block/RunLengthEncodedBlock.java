@@ -11,16 +11,11 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.facebook.presto.testing;
+package com.facebook.presto.spi.block;
 
-import com.facebook.presto.spi.block.Block;
-import com.facebook.presto.spi.block.BlockBuilder;
 import io.airlift.slice.Slice;
 
-import static com.google.common.base.MoreObjects.toStringHelper;
-import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Preconditions.checkPositionIndexes;
+import java.util.Objects;
 
 public class RunLengthEncodedBlock
         implements Block
@@ -30,13 +25,19 @@ public class RunLengthEncodedBlock
 
     public RunLengthEncodedBlock(Block value, int positionCount)
     {
-        this.value = checkNotNull(value, "value is null");
-        checkArgument(value.getPositionCount() == 1, "Expected value to contain a single position but has %s positions", value.getPositionCount());
+        this.value = Objects.requireNonNull(value, "value is null");
+        if (value.getPositionCount() != 1) {
+            throw new IllegalArgumentException("Expected value to contain a single position but has " + value.getPositionCount() + " positions");
+        }
 
         // value can not be a RunLengthEncodedBlock because this could cause stack overflow in some of the methods
-        checkArgument(!(value instanceof RunLengthEncodedBlock), "Value can not be an instance of a %s", getClass().getName());
+        if (value instanceof RunLengthEncodedBlock) {
+            throw new IllegalArgumentException("Value can not be an instance of a " + getClass().getName());
+        }
 
-        checkArgument(positionCount >= 0, "positionCount is negative");
+        if (positionCount < 0) {
+            throw new IllegalArgumentException("positionCount is negative");
+        }
         this.positionCount = positionCount;
     }
 
@@ -72,14 +73,14 @@ public class RunLengthEncodedBlock
     @Override
     public Block getRegion(int positionOffset, int length)
     {
-        checkPositionIndexes(positionOffset, positionOffset + length, positionCount);
+        checkValidRegion(positionOffset, length);
         return new RunLengthEncodedBlock(value, length);
     }
 
     @Override
     public Block copyRegion(int positionOffset, int length)
     {
-        checkPositionIndexes(positionOffset, positionOffset + length, positionCount);
+        checkValidRegion(positionOffset, length);
         return new RunLengthEncodedBlock(value.copyRegion(0, 1), length);
     }
 
@@ -158,7 +159,7 @@ public class RunLengthEncodedBlock
     @Override
     public void writePositionTo(int position, BlockBuilder blockBuilder)
     {
-        value.writePositionTo(position, blockBuilder);
+        value.writePositionTo(0, blockBuilder);
     }
 
     @Override
@@ -196,10 +197,11 @@ public class RunLengthEncodedBlock
     @Override
     public String toString()
     {
-        return toStringHelper(this)
-                .add("value", value)
-                .add("positionCount", positionCount)
-                .toString();
+        StringBuilder sb = new StringBuilder("RunLengthEncodedBlock{");
+        sb.append("positionCount=").append(positionCount);
+        sb.append(", value=").append(value);
+        sb.append('}');
+        return sb.toString();
     }
 
     @Override
@@ -210,6 +212,15 @@ public class RunLengthEncodedBlock
 
     private void checkReadablePosition(int position)
     {
-        checkArgument(position >= 0 && position < positionCount, "position is not valid");
+        if (position < 0 || position >= positionCount) {
+            throw new IllegalArgumentException("position is not valid");
+        }
+    }
+
+    private void checkValidRegion(int positionOffset, int length)
+    {
+        if (positionOffset < 0 || length < 0 || positionOffset + length > positionCount) {
+            throw new IndexOutOfBoundsException("Invalid position " + positionOffset + " in block with " + positionCount + " positions");
+        }
     }
 }